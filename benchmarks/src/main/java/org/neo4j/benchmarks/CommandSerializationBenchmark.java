@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.kernel.impl.store.PropertyStore;
+import org.neo4j.kernel.impl.store.record.NodeRecord;
+import org.neo4j.kernel.impl.store.record.PropertyBlock;
+import org.neo4j.kernel.impl.store.record.PropertyRecord;
+import org.neo4j.kernel.impl.store.record.RelationshipRecord;
+import org.neo4j.kernel.impl.transaction.command.Command;
+import org.neo4j.kernel.impl.transaction.command.CommandRecordPool;
+import org.neo4j.kernel.impl.transaction.command.PhysicalLogCommandReaderV3_0_2;
+import org.neo4j.kernel.impl.transaction.log.InMemoryClosableChannel;
+import org.neo4j.storageengine.api.CommandReader;
+import org.neo4j.storageengine.api.CommandStream;
+import org.neo4j.storageengine.api.StorageCommand;
+
+/**
+ * Writes and reads node, relationship and property commands the way the transaction log does. Run it with the
+ * {@code gc} profiler, {@code -prof gc}, to see the allocation rate per operation, which is what this benchmark is
+ * about. Reading with {@code recycleRecords} mimics recovery, which hands records back once they are applied.
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Fork( 1 )
+@Warmup( iterations = 5 )
+@Measurement( iterations = 5 )
+public class CommandSerializationBenchmark
+{
+    @Param( {"false", "true"} )
+    public boolean recycleRecords;
+
+    @Param( {"100"} )
+    public int commandsPerKind;
+
+    private final List<Command> commands = new ArrayList<>();
+    private final List<StorageCommand> readCommands = new ArrayList<>();
+    private final CommandStream readCommandStream = visitor ->
+    {
+        for ( StorageCommand command : readCommands )
+        {
+            visitor.visit( command );
+        }
+    };
+    private InMemoryClosableChannel writeChannel;
+    private InMemoryClosableChannel readChannel;
+    private CommandRecordPool recordPool;
+    private CommandReader reader;
+
+    @Setup
+    public void setUp() throws IOException
+    {
+        for ( long id = 0; id < commandsPerKind; id++ )
+        {
+            commands.add( nodeCommand( id ) );
+            commands.add( relationshipCommand( id ) );
+            commands.add( propertyCommand( id ) );
+        }
+
+        writeChannel = new InMemoryClosableChannel( 1 << 20 );
+        readChannel = new InMemoryClosableChannel( 1 << 20 );
+        for ( Command command : commands )
+        {
+            command.serialize( readChannel );
+        }
+
+        recordPool = recycleRecords ? new CommandRecordPool() : CommandRecordPool.NO_POOLING;
+        reader = new PhysicalLogCommandReaderV3_0_2( recordPool );
+    }
+
+    @Benchmark
+    public int serialize() throws IOException
+    {
+        writeChannel.reset();
+        for ( int i = 0; i < commands.size(); i++ )
+        {
+            commands.get( i ).serialize( writeChannel );
+        }
+        return writeChannel.writerPosition();
+    }
+
+    @Benchmark
+    public int deserialize() throws IOException
+    {
+        readChannel.positionReader( 0 );
+        readCommands.clear();
+        for ( int i = 0; i < commands.size(); i++ )
+        {
+            readCommands.add( reader.read( readChannel ) );
+        }
+        int read = readCommands.size();
+        recordPool.release( readCommandStream );
+        return read;
+    }
+
+    private static Command nodeCommand( long id )
+    {
+        NodeRecord before = new NodeRecord( id ).initialize( true, 10, false, 20, 0 );
+        NodeRecord after = new NodeRecord( id ).initialize( true, 11, false, 21, 0 );
+        return new Command.NodeCommand( before, after );
+    }
+
+    private static Command relationshipCommand( long id )
+    {
+        RelationshipRecord before = new RelationshipRecord( id ).initialize( true, 10, 1, 2, 0, 3, 4, 5, 6,
+                false, false );
+        RelationshipRecord after = new RelationshipRecord( id ).initialize( true, 11, 1, 2, 0, 3, 4, 5, 7,
+                false, false );
+        return new Command.RelationshipCommand( before, after );
+    }
+
+    private static Command propertyCommand( long id )
+    {
+        PropertyRecord before = new PropertyRecord( id );
+        before.setInUse( true );
+        before.setNodeId( id );
+        before.addPropertyBlock( intProperty( 0, 42 ) );
+        PropertyRecord after = new PropertyRecord( id );
+        after.setInUse( true );
+        after.setNodeId( id );
+        after.addPropertyBlock( intProperty( 0, 43 ) );
+        after.addPropertyBlock( intProperty( 1, 44 ) );
+        return new Command.PropertyCommand( before, after );
+    }
+
+    private static PropertyBlock intProperty( int key, int value )
+    {
+        PropertyBlock block = new PropertyBlock();
+        PropertyStore.encodeValue( block, key, value, null, null );
+        return block;
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.factory.GraphDatabaseFactory;
+import org.neo4j.io.fs.FileUtils;
+
+/**
+ * Creates the data that the benchmarks run against. Everything in a fixture is derived from its parameters and a
+ * seed, so two runs with the same parameters measure the same data.
+ * <p>
+ * Fixture stores are generated once under the {@code benchmarks.fixtures} directory, which defaults to
+ * {@code target/benchmark-fixtures}, and are then reused by later runs with the same parameters.
+ */
+public final class FixtureStores
+{
+    public static final long SEED = Long.getLong( "benchmarks.seed", 42 );
+
+    private static final String COMPLETE_MARKER = "fixture.complete";
+    private static final int NODES_PER_TRANSACTION = 10_000;
+
+    private FixtureStores()
+    {
+    }
+
+    /**
+     * @return the directory of the fixture with the given name. The directory is created if it does not exist.
+     */
+    public static File directory( String name )
+    {
+        File directory = new File( System.getProperty( "benchmarks.fixtures", "target/benchmark-fixtures" ), name );
+        directory.mkdirs();
+        return directory;
+    }
+
+    /**
+     * @return an empty directory for the fixture with the given name, for benchmarks that write their own files.
+     */
+    public static File cleanDirectory( String name ) throws IOException
+    {
+        File directory = directory( name );
+        FileUtils.deleteRecursively( directory );
+        directory.mkdirs();
+        return directory;
+    }
+
+    /**
+     * Get a store with {@code nodeCount} nodes, each with {@code propertiesPerNode} properties of mixed types and
+     * sizes, generating it if it does not already exist.
+     *
+     * @return the store directory.
+     */
+    public static File propertyStore( int nodeCount, int propertiesPerNode ) throws IOException
+    {
+        File storeDir = directory( "properties-" + nodeCount + "x" + propertiesPerNode + "-" + SEED );
+        File marker = new File( storeDir, COMPLETE_MARKER );
+        if ( marker.exists() )
+        {
+            return storeDir;
+        }
+
+        // Whatever is there is the remains of an interrupted run
+        FileUtils.deleteRecursively( storeDir );
+        GraphDatabaseService db = new GraphDatabaseFactory().newEmbeddedDatabase( storeDir );
+        try
+        {
+            Random random = new Random( SEED );
+            for ( int created = 0; created < nodeCount; created += NODES_PER_TRANSACTION )
+            {
+                try ( Transaction tx = db.beginTx() )
+                {
+                    int batch = Math.min( NODES_PER_TRANSACTION, nodeCount - created );
+                    for ( int i = 0; i < batch; i++ )
+                    {
+                        Node node = db.createNode();
+                        for ( int key = 0; key < propertiesPerNode; key++ )
+                        {
+                            node.setProperty( "key" + key, propertyValue( random ) );
+                        }
+                    }
+                    tx.success();
+                }
+            }
+        }
+        finally
+        {
+            db.shutdown();
+        }
+        if ( !marker.createNewFile() )
+        {
+            throw new IOException( "Could not mark " + storeDir + " as complete" );
+        }
+        return storeDir;
+    }
+
+    /**
+     * @return {@code count} distinct strings, looking like the external ids of an import.
+     */
+    public static String[] inputIds( int count )
+    {
+        Random random = new Random( SEED );
+        String[] ids = new String[count];
+        for ( int i = 0; i < count; i++ )
+        {
+            // The index keeps the ids distinct, the random prefix spreads them out like real ids
+            ids[i] = randomString( random, 8 ) + "-" + i;
+        }
+        return ids;
+    }
+
+    private static Object propertyValue( Random random )
+    {
+        switch ( random.nextInt( 5 ) )
+        {
+        case 0:
+            return random.nextInt();
+        case 1:
+            return random.nextLong();
+        case 2:
+            // Fits inline in the property record
+            return randomString( random, 1 + random.nextInt( 10 ) );
+        case 3:
+            // Spills over into the dynamic string store
+            return randomString( random, 40 + random.nextInt( 200 ) );
+        default:
+            long[] array = new long[1 + random.nextInt( 20 )];
+            for ( int i = 0; i < array.length; i++ )
+            {
+                array[i] = random.nextLong();
+            }
+            return array;
+        }
+    }
+
+    private static String randomString( Random random, int length )
+    {
+        char[] chars = new char[length];
+        for ( int i = 0; i < length; i++ )
+        {
+            chars[i] = (char) ('a' + random.nextInt( 26 ));
+        }
+        return new String( chars );
+    }
+}
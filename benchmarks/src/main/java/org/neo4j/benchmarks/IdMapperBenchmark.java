@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.unsafe.impl.batchimport.InputIterable;
+import org.neo4j.unsafe.impl.batchimport.InputIterator;
+import org.neo4j.unsafe.impl.batchimport.cache.NumberArrayFactory;
+import org.neo4j.unsafe.impl.batchimport.cache.idmapping.IdMapper;
+import org.neo4j.unsafe.impl.batchimport.cache.idmapping.IdMappers;
+import org.neo4j.unsafe.impl.batchimport.cache.idmapping.string.EncodingIdMapper;
+import org.neo4j.unsafe.impl.batchimport.input.Collectors;
+
+import static org.neo4j.helpers.progress.ProgressListener.NONE;
+import static org.neo4j.unsafe.impl.batchimport.input.Group.GLOBAL;
+
+/**
+ * Looks up the node ids of input ids in a prepared {@link EncodingIdMapper}, the way the importer does when it
+ * resolves the start and end nodes of relationships.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Fork( 1 )
+@Warmup( iterations = 5 )
+@Measurement( iterations = 5 )
+public class IdMapperBenchmark
+{
+    @Param( {"strings", "longs"} )
+    public String idType;
+
+    @Param( {"1000000"} )
+    public int ids;
+
+    private Object[] inputIds;
+    private Object[] missingInputIds;
+    private IdMapper idMapper;
+
+    @Setup
+    public void setUp()
+    {
+        boolean strings = idType.equals( "strings" );
+        inputIds = strings ? FixtureStores.inputIds( ids ) : shuffledLongs();
+        missingInputIds = new Object[ids];
+        for ( int i = 0; i < ids; i++ )
+        {
+            missingInputIds[i] = strings ? "missing-" + inputIds[i] : (Long) inputIds[i] + ids;
+        }
+
+        idMapper = strings ? IdMappers.strings( NumberArrayFactory.HEAP ) : IdMappers.longs( NumberArrayFactory.HEAP );
+        for ( int nodeId = 0; nodeId < ids; nodeId++ )
+        {
+            idMapper.put( inputIds[nodeId], nodeId, GLOBAL );
+        }
+        idMapper.prepare( inputIds(), Collectors.silentBadCollector( 0 ), NONE );
+    }
+
+    private InputIterable<Object> inputIds()
+    {
+        return new InputIterable<Object>()
+        {
+            @Override
+            public InputIterator<Object> iterator()
+            {
+                Iterator<Object> ids = Arrays.asList( inputIds ).iterator();
+                return new InputIterator.Adapter<Object>()
+                {
+                    @Override
+                    protected Object fetchNextOrNull()
+                    {
+                        return ids.hasNext() ? ids.next() : null;
+                    }
+                };
+            }
+
+            @Override
+            public boolean supportsMultiplePasses()
+            {
+                return true;
+            }
+        };
+    }
+
+    @State( Scope.Thread )
+    public static class Random
+    {
+        SplittableRandom random = new SplittableRandom( FixtureStores.SEED + Thread.currentThread().getId() );
+    }
+
+    @Benchmark
+    public long get( Random random )
+    {
+        return idMapper.get( inputIds[random.random.nextInt( ids )], GLOBAL );
+    }
+
+    @Benchmark
+    public long getMissing( Random random )
+    {
+        return idMapper.get( missingInputIds[random.random.nextInt( ids )], GLOBAL );
+    }
+
+    private Object[] shuffledLongs()
+    {
+        // Shuffled, so that the ids are not already sorted when the mapper is prepared
+        Object[] longs = new Object[ids];
+        for ( int i = 0; i < ids; i++ )
+        {
+            longs[i] = (long) i;
+        }
+        SplittableRandom random = new SplittableRandom( FixtureStores.SEED );
+        for ( int i = ids - 1; i > 0; i-- )
+        {
+            int j = random.nextInt( i + 1 );
+            Object swap = longs[i];
+            longs[i] = longs[j];
+            longs[j] = swap;
+        }
+        return longs;
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.graphdb.factory.GraphDatabaseFactory;
+import org.neo4j.kernel.api.KernelAPI;
+import org.neo4j.kernel.api.KernelTransaction;
+import org.neo4j.kernel.api.Statement;
+import org.neo4j.kernel.api.exceptions.TransactionFailureException;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
+
+import static org.neo4j.kernel.api.security.SecurityContext.AUTH_DISABLED;
+
+/**
+ * Begins a kernel transaction, acquires a statement, reads a single random node of a
+ * {@link FixtureStores#propertyStore(int, int) fixture store} and commits. Transactions, statements and statement
+ * locks are pooled, so run it with the {@code gc} profiler, {@code -prof gc}, to see whether anything is still
+ * allocated per transaction, and with several threads to see how the pools hold up under concurrency. Comparing the
+ * {@code readOnly} runs against the others shows what the read-only fast path saves over a regular transaction.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Fork( 1 )
+@Warmup( iterations = 5 )
+@Measurement( iterations = 5 )
+public class KernelTransactionBenchmark
+{
+    @Param( {"100000"} )
+    public int nodes;
+
+    @Param( {"false", "true"} )
+    public boolean readOnly;
+
+    private GraphDatabaseAPI db;
+    private KernelAPI kernel;
+
+    @Setup
+    public void setUp() throws IOException
+    {
+        db = (GraphDatabaseAPI) new GraphDatabaseFactory().newEmbeddedDatabase(
+                FixtureStores.propertyStore( nodes, 1 ) );
+        kernel = db.getDependencyResolver().resolveDependency( KernelAPI.class );
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        db.shutdown();
+    }
+
+    @State( Scope.Thread )
+    public static class Random
+    {
+        SplittableRandom random;
+
+        @Setup
+        public void setUp()
+        {
+            random = new SplittableRandom( FixtureStores.SEED + Thread.currentThread().getId() );
+        }
+    }
+
+    @Benchmark
+    public boolean pointRead( Random random ) throws TransactionFailureException
+    {
+        try ( KernelTransaction tx = beginTransaction();
+              Statement statement = tx.acquireStatement() )
+        {
+            tx.success();
+            return statement.readOperations().nodeExists( random.random.nextInt( nodes ) );
+        }
+    }
+
+    private KernelTransaction beginTransaction() throws TransactionFailureException
+    {
+        return readOnly
+               ? kernel.newReadOnlyTransaction( KernelTransaction.Type.implicit, AUTH_DISABLED, 0 )
+               : kernel.newTransaction( KernelTransaction.Type.implicit, AUTH_DISABLED );
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.kernel.DeadlockDetectedException;
+import org.neo4j.kernel.impl.enterprise.lock.forseti.ForsetiLockManager;
+import org.neo4j.kernel.impl.locking.Locks;
+import org.neo4j.kernel.impl.locking.ResourceTypes;
+
+import static org.neo4j.kernel.impl.locking.ResourceTypes.NODE;
+
+/**
+ * Acquires and releases locks with the clients of the {@link ForsetiLockManager}. The number of resources decides
+ * how contended the locks are when the benchmark is run with several threads, from a single lock that every thread
+ * competes for, to so many that threads rarely meet. Run it with {@code -t} set to 1, 2, 4 and so on up to 64 to see
+ * how acquire and release throughput scales with the number of threads.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Fork( 1 )
+@Warmup( iterations = 5 )
+@Measurement( iterations = 5 )
+public class LockManagerBenchmark
+{
+    @Param( {"1", "1000", "1000000"} )
+    public int resources;
+
+    @Param( {"10"} )
+    public int locksPerTransaction;
+
+    private ForsetiLockManager lockManager;
+
+    @Setup
+    public void setUp()
+    {
+        lockManager = new ForsetiLockManager( ResourceTypes.values() );
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        lockManager.close();
+    }
+
+    @State( Scope.Thread )
+    public static class Client
+    {
+        Locks.Client client;
+        SplittableRandom random;
+        long[] resourceIds;
+
+        @Setup
+        public void setUp( LockManagerBenchmark benchmark )
+        {
+            client = benchmark.lockManager.newClient();
+            random = new SplittableRandom( FixtureStores.SEED + Thread.currentThread().getId() );
+            resourceIds = new long[benchmark.locksPerTransaction];
+        }
+
+        @TearDown
+        public void tearDown()
+        {
+            client.close();
+        }
+    }
+
+    @Benchmark
+    public void sharedAcquireRelease( Client client )
+    {
+        long resourceId = client.random.nextInt( resources );
+        client.client.acquireShared( NODE, resourceId );
+        client.client.releaseShared( NODE, resourceId );
+    }
+
+    @Benchmark
+    public void exclusiveAcquireRelease( Client client )
+    {
+        long resourceId = client.random.nextInt( resources );
+        client.client.acquireExclusive( NODE, resourceId );
+        client.client.releaseExclusive( NODE, resourceId );
+    }
+
+    /**
+     * Share locks a resource and upgrades that lock to exclusive. Clients upgrading the same resource at the same time
+     * deadlock, in which case one of them gives up its shared lock.
+     */
+    @Benchmark
+    public void upgradeAcquireRelease( Client client )
+    {
+        long resourceId = client.random.nextInt( resources );
+        client.client.acquireShared( NODE, resourceId );
+        try
+        {
+            client.client.acquireExclusive( NODE, resourceId );
+            client.client.releaseExclusive( NODE, resourceId );
+        }
+        catch ( DeadlockDetectedException e )
+        {
+            // One of the upgrading clients has to back off, just as a transaction would have been rolled back
+        }
+        client.client.releaseShared( NODE, resourceId );
+    }
+
+    /**
+     * Locks like a transaction would: take a client, lock a number of nodes exclusively and let closing the client
+     * release them all. The nodes are locked in order, so transactions never deadlock.
+     */
+    @Benchmark
+    public void transaction( Client client )
+    {
+        long[] resourceIds = client.resourceIds;
+        for ( int i = 0; i < resourceIds.length; i++ )
+        {
+            resourceIds[i] = client.random.nextInt( resources );
+        }
+        Arrays.sort( resourceIds );
+        try ( Locks.Client transaction = lockManager.newClient() )
+        {
+            for ( long resourceId : resourceIds )
+            {
+                transaction.acquireExclusive( NODE, resourceId );
+            }
+        }
+    }
+}
@@ -0,0 +1,269 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.bolt.v1.packstream.PackInput;
+import org.neo4j.bolt.v1.packstream.PackOutput;
+import org.neo4j.bolt.v1.packstream.PackStream;
+
+/**
+ * Packs and unpacks a Bolt record message, a struct holding a list of integers, floats, strings and maps, to and
+ * from a byte buffer. The buffer stands in for the network channel, so that only the cost of the encoding is
+ * measured.
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Fork( 1 )
+@Warmup( iterations = 5 )
+@Measurement( iterations = 5 )
+public class PackStreamBenchmark
+{
+    private static final byte RECORD_SIGNATURE = 0x71;
+
+    @Param( {"10", "100"} )
+    public int fields;
+
+    private long[] longs;
+    private double[] doubles;
+    private String[] strings;
+    private ByteBufferPackIO buffer;
+    private PackStream.Packer packer;
+    private PackStream.Unpacker unpacker;
+    private int packedLength;
+
+    @Setup
+    public void setUp() throws IOException
+    {
+        Random random = new Random( FixtureStores.SEED );
+        longs = new long[fields];
+        doubles = new double[fields];
+        strings = new String[fields];
+        for ( int i = 0; i < fields; i++ )
+        {
+            longs[i] = random.nextLong() >> random.nextInt( 64 );
+            doubles[i] = random.nextDouble();
+            strings[i] = Long.toString( random.nextLong(), Character.MAX_RADIX );
+        }
+        buffer = new ByteBufferPackIO( 1024 * 1024 );
+        packer = new PackStream.Packer( buffer );
+        unpacker = new PackStream.Unpacker( buffer );
+
+        // Leave a packed record in the buffer for the unpack benchmark
+        packedLength = packRecord();
+    }
+
+    @Benchmark
+    public int pack() throws IOException
+    {
+        return packRecord();
+    }
+
+    @Benchmark
+    public void unpack( Blackhole blackhole ) throws IOException
+    {
+        buffer.rewind( packedLength );
+        blackhole.consume( unpacker.unpackStructHeader() );
+        blackhole.consume( unpacker.unpackStructSignature() );
+        long size = unpacker.unpackListHeader();
+        for ( long i = 0; i < size; i += 4 )
+        {
+            blackhole.consume( unpacker.unpackLong() );
+            blackhole.consume( unpacker.unpackDouble() );
+            blackhole.consume( unpacker.unpackString() );
+            long entries = unpacker.unpackMapHeader();
+            for ( long j = 0; j < entries; j++ )
+            {
+                blackhole.consume( unpacker.unpackString() );
+                blackhole.consume( unpacker.unpackLong() );
+            }
+        }
+    }
+
+    private int packRecord() throws IOException
+    {
+        buffer.clear();
+        packer.packStructHeader( 1, RECORD_SIGNATURE );
+        packer.packListHeader( fields * 4 );
+        for ( int i = 0; i < fields; i++ )
+        {
+            packer.pack( longs[i] );
+            packer.pack( doubles[i] );
+            packer.pack( strings[i] );
+            packer.packMapHeader( 1 );
+            packer.pack( strings[i] );
+            packer.pack( longs[i] );
+        }
+        packer.flush();
+        return buffer.position();
+    }
+
+    /**
+     * Both ends of an in memory channel. Whatever was written since the last {@link #clear()} is read back after
+     * a {@link #rewind(int)}.
+     */
+    private static class ByteBufferPackIO implements PackInput, PackOutput
+    {
+        private final ByteBuffer buffer;
+
+        ByteBufferPackIO( int capacity )
+        {
+            buffer = ByteBuffer.allocate( capacity );
+        }
+
+        void clear()
+        {
+            buffer.clear();
+        }
+
+        void rewind( int length )
+        {
+            buffer.clear();
+            buffer.limit( length );
+        }
+
+        int position()
+        {
+            return buffer.position();
+        }
+
+        @Override
+        public PackOutput flush()
+        {
+            return this;
+        }
+
+        @Override
+        public PackOutput writeByte( byte value )
+        {
+            buffer.put( value );
+            return this;
+        }
+
+        @Override
+        public PackOutput writeBytes( ByteBuffer data )
+        {
+            buffer.put( data );
+            return this;
+        }
+
+        @Override
+        public PackOutput writeBytes( byte[] data, int offset, int amountToWrite )
+        {
+            buffer.put( data, offset, amountToWrite );
+            return this;
+        }
+
+        @Override
+        public PackOutput writeShort( short value )
+        {
+            buffer.putShort( value );
+            return this;
+        }
+
+        @Override
+        public PackOutput writeInt( int value )
+        {
+            buffer.putInt( value );
+            return this;
+        }
+
+        @Override
+        public PackOutput writeLong( long value )
+        {
+            buffer.putLong( value );
+            return this;
+        }
+
+        @Override
+        public PackOutput writeDouble( double value )
+        {
+            buffer.putDouble( value );
+            return this;
+        }
+
+        @Override
+        public boolean hasMoreData()
+        {
+            return buffer.hasRemaining();
+        }
+
+        @Override
+        public byte readByte()
+        {
+            return buffer.get();
+        }
+
+        @Override
+        public short readShort()
+        {
+            return buffer.getShort();
+        }
+
+        @Override
+        public int readInt()
+        {
+            return buffer.getInt();
+        }
+
+        @Override
+        public long readLong()
+        {
+            return buffer.getLong();
+        }
+
+        @Override
+        public double readDouble()
+        {
+            return buffer.getDouble();
+        }
+
+        @Override
+        public PackInput readBytes( byte[] into, int offset, int toRead )
+        {
+            buffer.get( into, offset, toRead );
+            return this;
+        }
+
+        @Override
+        public byte peekByte()
+        {
+            return buffer.get( buffer.position() );
+        }
+    }
+}
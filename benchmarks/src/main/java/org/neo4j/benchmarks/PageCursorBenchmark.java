@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.StandardOpenOption;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.io.fs.DefaultFileSystemAbstraction;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.PagedFile;
+import org.neo4j.io.pagecache.impl.SingleFilePageSwapperFactory;
+import org.neo4j.io.pagecache.impl.muninn.MuninnPageCache;
+import org.neo4j.io.pagecache.tracing.PageCacheTracer;
+
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_READ_LOCK;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_WRITE_LOCK;
+
+/**
+ * Pins random pages of a file with the read and write cursors of the {@link MuninnPageCache}. When the file fits in
+ * the cache this measures the cost of pinning and accessing a page, otherwise it also measures page faults and
+ * eviction.
+ * <p>
+ * Every operation opens its own cursor, the way the stores do, so that no thread keeps a page pinned between
+ * operations.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Fork( 1 )
+@Warmup( iterations = 5 )
+@Measurement( iterations = 5 )
+public class PageCursorBenchmark
+{
+    private static final int PAGE_SIZE = 8192;
+    private static final int LONGS_PER_PAGE = PAGE_SIZE / Long.BYTES;
+
+    @Param( {"10000"} )
+    public int cachePages;
+
+    @Param( {"1000", "100000"} )
+    public int filePages;
+
+    private MuninnPageCache pageCache;
+    private PagedFile pagedFile;
+
+    @Setup
+    public void setUp() throws IOException
+    {
+        File file = new File( FixtureStores.cleanDirectory( "page-cursor" ), "pages" );
+        SingleFilePageSwapperFactory swapperFactory = new SingleFilePageSwapperFactory();
+        swapperFactory.setFileSystemAbstraction( new DefaultFileSystemAbstraction() );
+        pageCache = new MuninnPageCache( swapperFactory, cachePages, PAGE_SIZE, PageCacheTracer.NULL );
+        pagedFile = pageCache.map( file, PAGE_SIZE, StandardOpenOption.CREATE );
+        try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_WRITE_LOCK ) )
+        {
+            for ( long pageId = 0; pageId < filePages; pageId++ )
+            {
+                cursor.next( pageId );
+                for ( int i = 0; i < LONGS_PER_PAGE; i++ )
+                {
+                    cursor.putLong( pageId * LONGS_PER_PAGE + i );
+                }
+            }
+        }
+        pagedFile.flushAndForce();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException
+    {
+        pagedFile.close();
+        pageCache.close();
+    }
+
+    @State( Scope.Thread )
+    public static class Random
+    {
+        SplittableRandom random = new SplittableRandom( FixtureStores.SEED + Thread.currentThread().getId() );
+    }
+
+    @Benchmark
+    public long readPage( Random random ) throws IOException
+    {
+        long sum = 0;
+        try ( PageCursor cursor = pagedFile.io( random.random.nextInt( filePages ), PF_SHARED_READ_LOCK ) )
+        {
+            if ( cursor.next() )
+            {
+                do
+                {
+                    sum = 0;
+                    cursor.setOffset( 0 );
+                    for ( int i = 0; i < LONGS_PER_PAGE; i++ )
+                    {
+                        sum += cursor.getLong();
+                    }
+                }
+                while ( cursor.shouldRetry() );
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long readLong( Random random ) throws IOException
+    {
+        int offset = random.random.nextInt( LONGS_PER_PAGE ) * Long.BYTES;
+        long value = 0;
+        try ( PageCursor cursor = pagedFile.io( random.random.nextInt( filePages ), PF_SHARED_READ_LOCK ) )
+        {
+            if ( cursor.next() )
+            {
+                do
+                {
+                    value = cursor.getLong( offset );
+                }
+                while ( cursor.shouldRetry() );
+            }
+        }
+        return value;
+    }
+
+    @Benchmark
+    public void writeLong( Random random ) throws IOException
+    {
+        int offset = random.random.nextInt( LONGS_PER_PAGE ) * Long.BYTES;
+        long value = random.random.nextLong();
+        try ( PageCursor cursor = pagedFile.io( random.random.nextInt( filePages ), PF_SHARED_WRITE_LOCK ) )
+        {
+            if ( cursor.next() )
+            {
+                do
+                {
+                    cursor.putLong( offset, value );
+                }
+                while ( cursor.shouldRetry() );
+            }
+        }
+    }
+}
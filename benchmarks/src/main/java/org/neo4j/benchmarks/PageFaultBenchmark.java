@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.StandardOpenOption;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.io.fs.DefaultFileSystemAbstraction;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.PagedFile;
+import org.neo4j.io.pagecache.impl.SingleFilePageSwapperFactory;
+import org.neo4j.io.pagecache.impl.muninn.MuninnPageCache;
+import org.neo4j.io.pagecache.tracing.PageCacheTracer;
+
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_READ_LOCK;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_WRITE_LOCK;
+
+/**
+ * Measures the page fault throughput of the {@link MuninnPageCache}, with threads that pin random pages of a file
+ * that is much larger than the cache. Almost every pin is a page fault, so this mostly measures the freelists and
+ * the eviction.
+ * <p>
+ * Unlike the {@link PageCursorBenchmark}, every thread keeps its cursor open for the whole run, so the cost of
+ * opening cursors does not hide the cost of the page faults.
+ * <p>
+ * Run it with an increasing number of threads ({@code -t}), and with different values for the
+ * {@code org.neo4j.io.pagecache.impl.muninn.MuninnPageCache.memoryPartitions} and
+ * {@code org.neo4j.io.pagecache.impl.muninn.MuninnPageCache.evictionThreads} system properties ({@code -jvmArgsAppend}),
+ * to see how the striping of the freelists and the eviction affects the scaling.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Fork( 1 )
+@Warmup( iterations = 5 )
+@Measurement( iterations = 5 )
+public class PageFaultBenchmark
+{
+    private static final int PAGE_SIZE = 8192;
+
+    @Param( {"16384"} )
+    public int cachePages;
+
+    @Param( {"131072"} )
+    public int filePages;
+
+    private MuninnPageCache pageCache;
+    private PagedFile pagedFile;
+
+    @Setup
+    public void setUp() throws IOException
+    {
+        File file = new File( FixtureStores.cleanDirectory( "page-fault" ), "pages" );
+        SingleFilePageSwapperFactory swapperFactory = new SingleFilePageSwapperFactory();
+        swapperFactory.setFileSystemAbstraction( new DefaultFileSystemAbstraction() );
+        pageCache = new MuninnPageCache( swapperFactory, cachePages, PAGE_SIZE, PageCacheTracer.NULL );
+        pagedFile = pageCache.map( file, PAGE_SIZE, StandardOpenOption.CREATE );
+        try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_WRITE_LOCK ) )
+        {
+            for ( long pageId = 0; pageId < filePages; pageId++ )
+            {
+                cursor.next( pageId );
+                cursor.putLong( pageId );
+            }
+        }
+        pagedFile.flushAndForce();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException
+    {
+        pagedFile.close();
+        pageCache.close();
+    }
+
+    @State( Scope.Thread )
+    public static class Cursor
+    {
+        SplittableRandom random = new SplittableRandom( FixtureStores.SEED + Thread.currentThread().getId() );
+        PageCursor cursor;
+
+        @Setup
+        public void setUp( PageFaultBenchmark benchmark ) throws IOException
+        {
+            cursor = benchmark.pagedFile.io( 0, PF_SHARED_READ_LOCK );
+        }
+
+        @TearDown
+        public void tearDown()
+        {
+            cursor.close();
+        }
+    }
+
+    @Benchmark
+    public long pinRandomPage( Cursor cursor ) throws IOException
+    {
+        long value = 0;
+        if ( cursor.cursor.next( cursor.random.nextInt( filePages ) ) )
+        {
+            do
+            {
+                value = cursor.cursor.getLong( 0 );
+            }
+            while ( cursor.cursor.shouldRetry() );
+        }
+        return value;
+    }
+}
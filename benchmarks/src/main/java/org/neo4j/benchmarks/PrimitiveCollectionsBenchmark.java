@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.collection.primitive.Primitive;
+import org.neo4j.collection.primitive.PrimitiveLongObjectMap;
+import org.neo4j.collection.primitive.PrimitiveLongSet;
+
+/**
+ * Lookups and updates in the primitive long hash set and long to object hash map, at sizes that fit in the CPU
+ * caches and sizes that do not. The keys are random, so every lookup is a random access into the table.
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Fork( 1 )
+@Warmup( iterations = 5 )
+@Measurement( iterations = 5 )
+public class PrimitiveCollectionsBenchmark
+{
+    private static final Object VALUE = new Object();
+
+    @Param( {"1000", "1000000"} )
+    public int size;
+
+    private long[] keys;
+    private long[] missingKeys;
+    private int nextKey;
+    private PrimitiveLongSet set;
+    private PrimitiveLongObjectMap<Object> map;
+
+    @Setup
+    public void setUp()
+    {
+        SplittableRandom random = new SplittableRandom( FixtureStores.SEED );
+        keys = random.longs( size, 0, Long.MAX_VALUE ).toArray();
+        // Negative keys are never among the present ones
+        missingKeys = random.longs( size, Long.MIN_VALUE, 0 ).toArray();
+        set = Primitive.longSet();
+        map = Primitive.longObjectMap();
+        for ( long key : keys )
+        {
+            set.add( key );
+            map.put( key, VALUE );
+        }
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        set.close();
+        map.close();
+    }
+
+    @Benchmark
+    public boolean setContains()
+    {
+        return set.contains( keys[next()] );
+    }
+
+    @Benchmark
+    public boolean setContainsMissing()
+    {
+        return set.contains( missingKeys[next()] );
+    }
+
+    @Benchmark
+    public boolean setRemoveAdd()
+    {
+        long key = keys[next()];
+        set.remove( key );
+        return set.add( key );
+    }
+
+    @Benchmark
+    public Object mapGet()
+    {
+        return map.get( keys[next()] );
+    }
+
+    @Benchmark
+    public Object mapGetMissing()
+    {
+        return map.get( missingKeys[next()] );
+    }
+
+    @Benchmark
+    public Object mapRemovePut()
+    {
+        long key = keys[next()];
+        map.remove( key );
+        return map.put( key, VALUE );
+    }
+
+    @Benchmark
+    public PrimitiveLongSet setPopulate()
+    {
+        PrimitiveLongSet populated = Primitive.longSet();
+        for ( long key : keys )
+        {
+            populated.add( key );
+        }
+        return populated;
+    }
+
+    @Benchmark
+    public PrimitiveLongObjectMap<Object> mapPopulate()
+    {
+        PrimitiveLongObjectMap<Object> populated = Primitive.longObjectMap();
+        for ( long key : keys )
+        {
+            populated.put( key, VALUE );
+        }
+        return populated;
+    }
+
+    private int next()
+    {
+        int key = nextKey;
+        nextKey = key + 1 == size ? 0 : key + 1;
+        return key;
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.graphdb.factory.GraphDatabaseFactory;
+import org.neo4j.kernel.impl.api.store.StorePropertyCursor;
+import org.neo4j.kernel.impl.storageengine.impl.recordstorage.RecordStorageEngine;
+import org.neo4j.kernel.impl.store.NeoStores;
+import org.neo4j.kernel.impl.store.NodeStore;
+import org.neo4j.kernel.impl.store.RecordCursors;
+import org.neo4j.kernel.impl.store.record.NodeRecord;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
+
+import static org.neo4j.kernel.impl.locking.LockService.NO_LOCK;
+import static org.neo4j.kernel.impl.store.record.RecordLoad.NORMAL;
+
+/**
+ * Reads all properties of random nodes of a {@link FixtureStores#propertyStore(int, int) fixture store} with a
+ * {@link StorePropertyCursor}. The properties are a mix of inlined values, strings in the dynamic string store and
+ * arrays in the dynamic array store.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Fork( 1 )
+@Warmup( iterations = 5 )
+@Measurement( iterations = 5 )
+public class StorePropertyCursorBenchmark
+{
+    @Param( {"100000"} )
+    public int nodes;
+
+    @Param( {"1", "10"} )
+    public int propertiesPerNode;
+
+    private GraphDatabaseAPI db;
+    private NeoStores neoStores;
+    private long[] firstPropertyIds;
+
+    @Setup
+    public void setUp() throws IOException
+    {
+        db = (GraphDatabaseAPI) new GraphDatabaseFactory().newEmbeddedDatabase(
+                FixtureStores.propertyStore( nodes, propertiesPerNode ) );
+        neoStores = db.getDependencyResolver().resolveDependency( RecordStorageEngine.class ).testAccessNeoStores();
+
+        NodeStore nodeStore = neoStores.getNodeStore();
+        NodeRecord record = nodeStore.newRecord();
+        firstPropertyIds = new long[nodes];
+        for ( int nodeId = 0; nodeId < nodes; nodeId++ )
+        {
+            firstPropertyIds[nodeId] = nodeStore.getRecord( nodeId, record, NORMAL ).getNextProp();
+        }
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        db.shutdown();
+    }
+
+    @State( Scope.Thread )
+    public static class Cursor
+    {
+        RecordCursors recordCursors;
+        StorePropertyCursor cursor;
+        SplittableRandom random;
+
+        @Setup
+        public void setUp( StorePropertyCursorBenchmark benchmark )
+        {
+            recordCursors = new RecordCursors( benchmark.neoStores );
+            cursor = new StorePropertyCursor( recordCursors, ignored -> {} );
+            random = new SplittableRandom( FixtureStores.SEED + Thread.currentThread().getId() );
+        }
+
+        @TearDown
+        public void tearDown()
+        {
+            recordCursors.close();
+        }
+    }
+
+    @Benchmark
+    public void readAllProperties( Cursor cursor, Blackhole blackhole )
+    {
+        long firstPropertyId = firstPropertyIds[cursor.random.nextInt( nodes )];
+        try ( StorePropertyCursor properties = cursor.cursor.init( firstPropertyId, NO_LOCK ) )
+        {
+            while ( properties.next() )
+            {
+                blackhole.consume( properties.propertyKeyId() );
+                blackhole.consume( properties.value() );
+            }
+        }
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.io.fs.DefaultFileSystemAbstraction;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.kernel.impl.api.TransactionToApply;
+import org.neo4j.kernel.impl.core.DatabasePanicEventGenerator;
+import org.neo4j.kernel.impl.pagecache.StandalonePageCacheFactory;
+import org.neo4j.kernel.impl.store.MetaDataStore;
+import org.neo4j.kernel.impl.store.NeoStores;
+import org.neo4j.kernel.impl.store.StoreFactory;
+import org.neo4j.kernel.impl.store.StoreType;
+import org.neo4j.kernel.impl.store.record.NodeRecord;
+import org.neo4j.kernel.impl.transaction.command.Command.NodeCommand;
+import org.neo4j.kernel.impl.transaction.log.BatchingTransactionAppender;
+import org.neo4j.kernel.impl.transaction.log.LogHeaderCache;
+import org.neo4j.kernel.impl.transaction.log.PhysicalLogFile;
+import org.neo4j.kernel.impl.transaction.log.PhysicalLogFiles;
+import org.neo4j.kernel.impl.transaction.log.PhysicalTransactionRepresentation;
+import org.neo4j.kernel.impl.transaction.log.TransactionMetadataCache;
+import org.neo4j.kernel.impl.transaction.tracing.LogAppendEvent;
+import org.neo4j.kernel.internal.DatabaseHealth;
+import org.neo4j.kernel.internal.KernelEventHandlers;
+import org.neo4j.kernel.lifecycle.LifeSupport;
+import org.neo4j.logging.NullLog;
+import org.neo4j.logging.NullLogProvider;
+import org.neo4j.storageengine.api.StorageCommand;
+
+import static org.neo4j.kernel.impl.transaction.log.rotation.LogRotation.NO_ROTATION;
+import static org.neo4j.kernel.impl.util.IdOrderingQueue.BYPASS;
+
+/**
+ * Appends batches of transactions to a transaction log with the {@link BatchingTransactionAppender}, including the
+ * force that makes them durable. Run it with several threads to see how concurrent appenders share forces.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Fork( 1 )
+@Warmup( iterations = 5 )
+@Measurement( iterations = 5 )
+public class TransactionAppenderBenchmark
+{
+    @Param( {"1", "10"} )
+    public int transactionsPerBatch;
+
+    @Param( {"1", "100"} )
+    public int commandsPerTransaction;
+
+    private final LifeSupport life = new LifeSupport();
+    private PageCache pageCache;
+    private NeoStores neoStores;
+    private BatchingTransactionAppender appender;
+    private PhysicalTransactionRepresentation[] transactions;
+
+    @Setup
+    public void setUp() throws IOException
+    {
+        File directory = FixtureStores.cleanDirectory( "transaction-log" );
+        FileSystemAbstraction fs = new DefaultFileSystemAbstraction();
+        pageCache = StandalonePageCacheFactory.createPageCache( fs );
+        neoStores = new StoreFactory( directory, pageCache, fs, NullLogProvider.getInstance() )
+                .openNeoStores( true, StoreType.META_DATA );
+        // The meta data store keeps track of both the committed transactions and the log version
+        MetaDataStore transactionIdStore = neoStores.getMetaDataStore();
+        PhysicalLogFile logFile = life.add( new PhysicalLogFile( fs, new PhysicalLogFiles( directory, fs ),
+                Long.MAX_VALUE, transactionIdStore::getLastCommittedTransactionId,
+                transactionIdStore, new PhysicalLogFile.Monitor.Adapter(), new LogHeaderCache( 10 ) ) );
+        DatabaseHealth databaseHealth = new DatabaseHealth(
+                new DatabasePanicEventGenerator( new KernelEventHandlers( NullLog.getInstance() ) ),
+                NullLog.getInstance() );
+        appender = life.add( new BatchingTransactionAppender( logFile, NO_ROTATION,
+                new TransactionMetadataCache( 1000 ), transactionIdStore, BYPASS, databaseHealth ) );
+        life.start();
+
+        transactions = new PhysicalTransactionRepresentation[transactionsPerBatch];
+        for ( int i = 0; i < transactionsPerBatch; i++ )
+        {
+            transactions[i] = transaction( (long) i * commandsPerTransaction );
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException
+    {
+        life.shutdown();
+        neoStores.close();
+        pageCache.close();
+    }
+
+    @Benchmark
+    public long append() throws IOException
+    {
+        TransactionToApply first = new TransactionToApply( transactions[0] );
+        TransactionToApply last = first;
+        for ( int i = 1; i < transactions.length; i++ )
+        {
+            TransactionToApply next = new TransactionToApply( transactions[i] );
+            last.next( next );
+            last = next;
+        }
+        return appender.append( first, LogAppendEvent.NULL );
+    }
+
+    private PhysicalTransactionRepresentation transaction( long firstNodeId )
+    {
+        List<StorageCommand> commands = new ArrayList<>( commandsPerTransaction );
+        for ( long nodeId = firstNodeId; nodeId < firstNodeId + commandsPerTransaction; nodeId++ )
+        {
+            NodeRecord before = new NodeRecord( nodeId );
+            NodeRecord after = new NodeRecord( nodeId );
+            after.setInUse( true );
+            commands.add( new NodeCommand( before, after ) );
+        }
+        PhysicalTransactionRepresentation transaction = new PhysicalTransactionRepresentation( commands );
+        transaction.setHeader( new byte[0], 0, 0, 0, 0, 0, -1 );
+        return transaction;
+    }
+}
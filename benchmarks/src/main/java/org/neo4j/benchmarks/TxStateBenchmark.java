@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.kernel.api.properties.Property;
+import org.neo4j.kernel.impl.api.state.TxState;
+
+/**
+ * Cost of building up transaction state, per changed entity. Run with {@code -prof gc} and look at
+ * {@code gc.alloc.rate.norm}, which is the number of bytes allocated per changed entity since every invocation
+ * changes {@link #ENTITIES} entities. Most of that allocation stays live until the transaction closes.
+ */
+@State( Scope.Thread )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.NANOSECONDS )
+@Fork( value = 1, jvmArgs = {"-Xmx4g"} )
+@Warmup( iterations = 5 )
+@Measurement( iterations = 5 )
+public class TxStateBenchmark
+{
+    private static final int ENTITIES = 1_000_000;
+    private static final int LABEL = 1;
+    private static final int PROPERTY_KEY = 2;
+    private static final int RELATIONSHIP_TYPE = 3;
+
+    @Benchmark
+    @OperationsPerInvocation( ENTITIES )
+    public TxState createNodes()
+    {
+        TxState state = new TxState();
+        for ( long node = 0; node < ENTITIES; node++ )
+        {
+            state.nodeDoCreate( node );
+        }
+        return release( state );
+    }
+
+    @Benchmark
+    @OperationsPerInvocation( ENTITIES )
+    public TxState createNodesWithLabelAndProperty()
+    {
+        TxState state = new TxState();
+        for ( long node = 0; node < ENTITIES; node++ )
+        {
+            state.nodeDoCreate( node );
+            state.nodeDoAddLabel( LABEL, node );
+            state.nodeDoReplaceProperty( node, Property.noNodeProperty( node, PROPERTY_KEY ),
+                    Property.longProperty( PROPERTY_KEY, node ) );
+        }
+        return release( state );
+    }
+
+    @Benchmark
+    @OperationsPerInvocation( ENTITIES )
+    public TxState createRelationships()
+    {
+        TxState state = new TxState();
+        for ( long relationship = 0; relationship < ENTITIES; relationship++ )
+        {
+            state.relationshipDoCreate( relationship, RELATIONSHIP_TYPE, relationship, relationship + 1 );
+        }
+        return release( state );
+    }
+
+    @Benchmark
+    @OperationsPerInvocation( ENTITIES )
+    public TxState deleteNodes()
+    {
+        TxState state = new TxState();
+        for ( long node = 0; node < ENTITIES; node++ )
+        {
+            state.nodeDoDelete( node );
+        }
+        return release( state );
+    }
+
+    private static TxState release( TxState state )
+    {
+        state.release();
+        return state;
+    }
+}
@@ -44,6 +44,8 @@ public class TransactionStateMachine implements StatementProcessor
     private static final String BEGIN = "BEGIN";
     private static final String COMMIT = "COMMIT";
     private static final String ROLLBACK = "ROLLBACK";
+    private static final String MODE = "mode";
+    private static final String READ_ONLY_MODE = "r";
 
     final SPI spi;
     final MutableTransactionState ctx;
@@ -145,7 +147,10 @@ public class TransactionStateMachine implements StatementProcessor
                     {
                         if ( statement.equalsIgnoreCase( BEGIN ) )
                         {
-                            ctx.currentTransaction = spi.beginTransaction( ctx.securityContext );
+                            // BEGIN {mode: "r"} asks for a transaction that will only read
+                            ctx.currentTransaction = READ_ONLY_MODE.equals( params.get( MODE ) )
+                                                     ? spi.beginReadOnlyTransaction( ctx.securityContext )
+                                                     : spi.beginTransaction( ctx.securityContext );
 
                             if ( params.containsKey( "bookmark" ) )
                             {
@@ -392,6 +397,8 @@ public class TransactionStateMachine implements StatementProcessor
 
         KernelTransaction beginTransaction( SecurityContext securityContext );
 
+        KernelTransaction beginReadOnlyTransaction( SecurityContext securityContext );
+
         void bindTransactionToCurrentThread( KernelTransaction tx );
 
         void unbindTransactionFromCurrentThread();
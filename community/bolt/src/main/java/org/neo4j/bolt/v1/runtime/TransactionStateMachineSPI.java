@@ -96,6 +96,13 @@ class TransactionStateMachineSPI implements TransactionStateMachine.SPI
         return txBridge.getKernelTransactionBoundToThisThread( false );
     }
 
+    @Override
+    public KernelTransaction beginReadOnlyTransaction( SecurityContext securityContext )
+    {
+        db.beginReadOnlyTransaction( KernelTransaction.Type.explicit, securityContext );
+        return txBridge.getKernelTransactionBoundToThisThread( false );
+    }
+
     @Override
     public void bindTransactionToCurrentThread( KernelTransaction tx )
     {
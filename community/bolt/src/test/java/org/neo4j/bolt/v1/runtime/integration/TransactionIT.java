@@ -114,6 +114,50 @@ public class TransactionIT
         assertThat( recorder.nextResponse(), succeeded() );
     }
 
+    @Test
+    public void shouldReadInReadOnlyTransaction() throws Throwable
+    {
+        // Given
+        BoltResponseRecorder recorder = new BoltResponseRecorder();
+        BoltStateMachine machine = env.newMachine( "<test>" );
+        machine.init( USER_AGENT, emptyMap(), null );
+
+        // When
+        machine.run( "BEGIN", singletonMap( "mode", "r" ), recorder );
+        machine.discardAll( nullResponseHandler() );
+
+        machine.run( "MATCH (n) RETURN count(n)", emptyMap(), recorder );
+        machine.discardAll( nullResponseHandler() );
+
+        machine.run( "COMMIT", emptyMap(), recorder );
+        machine.discardAll( nullResponseHandler() );
+
+        // Then
+        assertThat( recorder.nextResponse(), succeeded() );
+        assertThat( recorder.nextResponse(), succeeded() );
+        assertThat( recorder.nextResponse(), succeeded() );
+    }
+
+    @Test
+    public void shouldFailToWriteInReadOnlyTransaction() throws Throwable
+    {
+        // Given
+        BoltResponseRecorder recorder = new BoltResponseRecorder();
+        BoltStateMachine machine = env.newMachine( "<test>" );
+        machine.init( USER_AGENT, emptyMap(), null );
+
+        // When
+        machine.run( "BEGIN", singletonMap( "mode", "r" ), recorder );
+        machine.discardAll( nullResponseHandler() );
+
+        machine.run( "CREATE (n:InTx)", emptyMap(), recorder );
+        machine.discardAll( nullResponseHandler() );
+
+        // Then
+        assertThat( recorder.nextResponse(), succeeded() );
+        assertThat( recorder.nextResponse(), failedWithStatus( Status.Transaction.ForbiddenDueToTransactionType ) );
+    }
+
     @Test
     public void shouldFailNicelyWhenOutOfOrderRollback() throws Throwable
     {
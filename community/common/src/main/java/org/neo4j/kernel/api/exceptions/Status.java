@@ -151,6 +151,9 @@ public interface Status
                 "Supplied bookmark cannot be interpreted. You should only supply a bookmark previously that was " +
                 "previously generated by Neo4j. Maybe you have generated your own bookmark, " +
                 "or modified a bookmark since it was generated by Neo4j." ),
+        TransactionStateTooLarge( ClientError,
+                "The transaction has built up more uncommitted state than the configured per-transaction limit " +
+                "allows. Split the work into several smaller transactions, or raise the limit." ),
 
         // database errors
         TransactionStartFailed( DatabaseError,
@@ -187,7 +190,11 @@ public interface Status
         Terminated( TransientError,
                 "Explicitly terminated by the user." ),
         Interrupted( TransientError,
-                "Interrupted while waiting." );
+                "Interrupted while waiting." ),
+        TransactionStateMemoryExhausted( TransientError,
+                "The memory reserved for uncommitted state of all running transactions is used up, and the " +
+                "database has aborted this transaction. Retrying when fewer large transactions are running " +
+                "will most likely be successful." );
 
         private final Code code;
 
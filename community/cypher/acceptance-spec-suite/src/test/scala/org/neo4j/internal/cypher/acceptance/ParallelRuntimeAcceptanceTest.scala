@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.internal.cypher.acceptance
+
+import org.neo4j.cypher.{ExecutionEngineFunSuite, NewPlannerTestSupport}
+import org.neo4j.graphdb.config.Setting
+import org.neo4j.graphdb.factory.GraphDatabaseSettings
+
+class ParallelRuntimeAcceptanceTest extends ExecutionEngineFunSuite with NewPlannerTestSupport {
+
+  // Fails queries that the parallel runtime can not run, rather than falling back to the interpreted runtime
+  override def databaseConfig(): Map[Setting[_], String] = super.databaseConfig() ++ Map(
+    GraphDatabaseSettings.cypher_parallel_runtime_workers -> "4",
+    GraphDatabaseSettings.cypher_hints_error -> "true")
+
+  override protected def initTest() {
+    super.initTest()
+    // Enough nodes for several morsels per worker
+    graph.execute(
+      """UNWIND range(0, 9999) AS i
+        |CREATE (p:Person {name: 'p' + i, age: i % 80})
+        |WITH p, i WHERE i % 3 = 0
+        |CREATE (p)-[:KNOWS]->(:Pet {name: 'pet' + i})""".stripMargin).close()
+  }
+
+  test("should count like the interpreted runtime") {
+    shouldMatchInterpreted("MATCH (n:Person) WHERE n.age > 10 RETURN count(*)")
+    shouldMatchInterpreted("MATCH (n) RETURN count(n.age)")
+  }
+
+  test("should compute min and max like the interpreted runtime") {
+    shouldMatchInterpreted("MATCH (n:Person) RETURN min(n.age), max(n.name)")
+    shouldMatchInterpreted("MATCH (n:Person) RETURN n.age % 7 AS k, min(n.name), max(n.age)")
+  }
+
+  test("should collect like the interpreted runtime") {
+    shouldMatchInterpreted("MATCH (n:Person) WHERE n.age = 42 RETURN collect(n.name) AS names")
+    shouldMatchInterpreted("MATCH (n:Person)-[:KNOWS]->(p:Pet) RETURN n.age AS age, collect(p.name) AS pets")
+  }
+
+  test("should return distinct rows like the interpreted runtime") {
+    shouldMatchInterpreted("MATCH (n:Person) RETURN DISTINCT n.age AS age")
+    shouldMatchInterpreted("MATCH (n:Person)-[:KNOWS]->() RETURN DISTINCT n.age % 5 AS k")
+  }
+
+  test("should order and limit like the interpreted runtime") {
+    shouldMatchInterpreted("MATCH (n:Person) RETURN n.name AS name ORDER BY name DESC LIMIT 15", ordered = true)
+    shouldMatchInterpreted("MATCH (n:Person) RETURN n.age AS age, n.name AS name ORDER BY age, name LIMIT 100",
+                           ordered = true)
+  }
+
+  test("should not leave worker transactions behind") {
+    innerExecute("CYPHER runtime=parallel MATCH (n:Person) RETURN count(n.name)").toList
+
+    graph.txCounts.active should equal(0)
+  }
+
+  private def shouldMatchInterpreted(query: String, ordered: Boolean = false) {
+    graph.execute(s"EXPLAIN CYPHER runtime=parallel $query")
+      .getExecutionPlanDescription.getArguments.get("runtime-impl") should equal("PARALLEL")
+
+    val expected = innerExecute(s"CYPHER runtime=interpreted $query").toComparableResult.map(sortCollected)
+    val result = innerExecute(s"CYPHER runtime=parallel $query").toComparableResult.map(sortCollected)
+
+    if (ordered)
+      result should equal(expected)
+    else
+      result should contain theSameElementsAs expected
+  }
+
+  // Workers collect in the order they take morsels, so collected lists are only compared as sorted lists
+  private def sortCollected(row: Map[String, Any]): Map[String, Any] = row.map {
+    case (key, values: Seq[_]) => key -> values.map(_.toString).sorted
+    case other => other
+  }
+}
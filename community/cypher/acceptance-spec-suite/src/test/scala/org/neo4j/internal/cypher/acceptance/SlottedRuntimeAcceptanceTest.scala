@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.internal.cypher.acceptance
+
+import org.neo4j.cypher.{ExecutionEngineFunSuite, NewPlannerTestSupport}
+import org.neo4j.graphdb.config.Setting
+import org.neo4j.graphdb.factory.GraphDatabaseSettings
+
+class SlottedRuntimeAcceptanceTest extends ExecutionEngineFunSuite with NewPlannerTestSupport {
+
+  // Fails queries that the slotted runtime can not run, rather than falling back to the interpreted runtime
+  override def databaseConfig(): Map[Setting[_], String] =
+    super.databaseConfig() + (GraphDatabaseSettings.cypher_hints_error -> "true")
+
+  override protected def initTest() {
+    super.initTest()
+    graph.execute(
+      """UNWIND range(0, 1999) AS i
+        |CREATE (p:Person {name: 'p' + i, age: i % 80})
+        |WITH p, i WHERE i % 3 = 0
+        |CREATE (p)-[:KNOWS]->(:Pet {name: 'pet' + i})""".stripMargin).close()
+  }
+
+  test("should scan like the interpreted runtime") {
+    shouldMatchInterpreted("MATCH (n) RETURN n")
+    shouldMatchInterpreted("MATCH (n:Person) RETURN n.name AS name")
+  }
+
+  test("should expand like the interpreted runtime") {
+    shouldMatchInterpreted("MATCH (n:Person)-[r:KNOWS]->(p) RETURN n, r, p")
+    shouldMatchInterpreted("MATCH (p:Pet)<-[r]-(n) RETURN p.name AS pet, n.age AS age")
+  }
+
+  test("should filter like the interpreted runtime") {
+    shouldMatchInterpreted("MATCH (n:Person) WHERE n.age > 70 AND n.name STARTS WITH 'p1' RETURN n.name AS name")
+  }
+
+  test("should project like the interpreted runtime") {
+    shouldMatchInterpreted(
+      "MATCH (n:Person)-[:KNOWS]->(p) WHERE n.age < 5 RETURN n.age + 1 AS next, p.name + '!' AS pet")
+  }
+
+  test("should skip and limit like the interpreted runtime") {
+    shouldMatchInterpreted("MATCH (n:Person) RETURN n.name AS name ORDER BY name SKIP 20 LIMIT 10", ordered = true)
+    shouldMatchInterpreted("MATCH (n:Person) RETURN n.age AS age ORDER BY age SKIP 1900", ordered = true)
+    shouldMatchInterpreted("MATCH (n:Person) RETURN n.age AS age ORDER BY age DESC LIMIT 30", ordered = true)
+  }
+
+  private def shouldMatchInterpreted(query: String, ordered: Boolean = false) {
+    graph.execute(s"EXPLAIN CYPHER runtime=slotted $query")
+      .getExecutionPlanDescription.getArguments.get("runtime-impl") should equal("SLOTTED")
+
+    val expected = innerExecute(s"CYPHER runtime=interpreted $query").toComparableResult
+    val result = innerExecute(s"CYPHER runtime=slotted $query").toComparableResult
+
+    if (ordered)
+      result should equal(expected)
+    else
+      result should contain theSameElementsAs expected
+  }
+}
@@ -19,6 +19,7 @@
  */
 package org.neo4j.cypher.internal.compiler.v3_1
 
+import java.io.File
 import java.time.Clock
 
 import org.neo4j.cypher.internal.compiler.v3_1.CompilationPhaseTracer.CompilationPhase.{AST_REWRITE, PARSING, SEMANTIC_CHECK}
@@ -29,6 +30,7 @@ import org.neo4j.cypher.internal.compiler.v3_1.codegen.CodeStructure
 import org.neo4j.cypher.internal.compiler.v3_1.executionplan._
 import org.neo4j.cypher.internal.compiler.v3_1.executionplan.procs.DelegatingProcedureExecutablePlanBuilder
 import org.neo4j.cypher.internal.compiler.v3_1.helpers.{RuntimeTypeConverter, closing}
+import org.neo4j.cypher.internal.compiler.v3_1.pipes.slotted.MorselWorkers
 import org.neo4j.cypher.internal.compiler.v3_1.planner._
 import org.neo4j.cypher.internal.compiler.v3_1.planner.logical.plans.rewriter.LogicalPlanRewriter
 import org.neo4j.cypher.internal.compiler.v3_1.planner.logical.{CachedMetricsFactory, DefaultQueryPlanner, SimpleMetricsFactory}
@@ -39,6 +41,7 @@ import org.neo4j.cypher.internal.frontend.v3_1.notification.{DeprecatedFunctionN
 import org.neo4j.cypher.internal.frontend.v3_1.parser.CypherParser
 import org.neo4j.cypher.internal.frontend.v3_1.{InputPosition, SemanticTable, inSequence}
 import org.neo4j.kernel.GraphDatabaseQueryService
+import org.neo4j.kernel.impl.util.JobScheduler
 
 trait AstRewritingMonitor {
   def abortedRewriting(obj: AnyRef)
@@ -69,7 +72,10 @@ case class CypherCompilerConfiguration(queryCacheSize: Int,
                                        idpMaxTableSize: Int,
                                        idpIterationDuration: Long,
                                        errorIfShortestPathFallbackUsedAtRuntime: Boolean,
-                                       nonIndexedLabelWarningThreshold: Long)
+                                       nonIndexedLabelWarningThreshold: Long,
+                                       parallelRuntimeWorkers: Int = 0,
+                                       queryMemoryBudget: Long = 0,
+                                       querySpillDirectory: Option[File] = None)
 
 object CypherCompilerFactory {
   val monitorTag = "cypher3.1"
@@ -91,9 +97,17 @@ object CypherCompilerFactory {
 
     val compiledPlanBuilder = CompiledPlanBuilder(clock, structure)
     val interpretedPlanBuilder = InterpretedPlanBuilder(clock, monitors, typeConverter)
+    val slottedPlanBuilder = runtimeName match {
+      case Some(ParallelRuntimeName) =>
+        SlottedPlanBuilder(clock, monitors, typeConverter, ParallelRuntimeName,
+                           MorselWorkers(config.parallelRuntimeWorkers, workerExecutor(graph)))
+      case _ =>
+        SlottedPlanBuilder(clock, monitors, typeConverter)
+    }
 
     // Pick runtime based on input
-    val runtimeBuilder = RuntimeBuilder.create(runtimeName, interpretedPlanBuilder, compiledPlanBuilder, config.useErrorsOverWarnings)
+    val runtimeBuilder = RuntimeBuilder.create(runtimeName, interpretedPlanBuilder, slottedPlanBuilder,
+                                               compiledPlanBuilder, config.useErrorsOverWarnings)
 
     val costPlanProducer = CostBasedPipeBuilderFactory.create(
       monitors = monitors,
@@ -124,6 +138,9 @@ object CypherCompilerFactory {
     CypherCompiler(parser, checker, execPlanBuilder, rewriter, cache, planCacheFactory, cacheMonitor, monitors)
   }
 
+  private def workerExecutor(graph: GraphDatabaseQueryService) =
+    graph.getDependencyResolver.resolveDependency(classOf[JobScheduler]).executor(JobScheduler.Groups.cypherWorker)
+
   def ruleBasedCompiler(graph: GraphDatabaseQueryService,
                         config: CypherCompilerConfiguration, clock: Clock, monitors: Monitors,
                         rewriterSequencer: (String) => RewriterStepSequencer,
@@ -30,7 +30,9 @@ import org.neo4j.cypher.internal.compiler.v3_1.executionplan.InterpretedExecutio
 import org.neo4j.cypher.internal.compiler.v3_1.executionplan._
 import org.neo4j.cypher.internal.compiler.v3_1.helpers._
 import org.neo4j.cypher.internal.compiler.v3_1.planDescription.InternalPlanDescription
+import org.neo4j.cypher.internal.compiler.v3_1.pipes.slotted.MorselWorkers
 import org.neo4j.cypher.internal.compiler.v3_1.planDescription.InternalPlanDescription.Arguments
+import org.neo4j.cypher.internal.compiler.v3_1.planner.execution.slotted.{SlotAllocation, SlottedPipeBuilderFactory}
 import org.neo4j.cypher.internal.compiler.v3_1.planner.execution.{PipeExecutionBuilderContext, PipeExecutionPlanBuilder}
 import org.neo4j.cypher.internal.compiler.v3_1.planner.logical.plans.LogicalPlan
 import org.neo4j.cypher.internal.compiler.v3_1.planner.{CantCompileQueryException, PeriodicCommit}
@@ -40,8 +42,10 @@ import org.neo4j.cypher.internal.frontend.v3_1.{InternalException, InvalidArgume
 
 object RuntimeBuilder {
   def create(runtimeName: Option[RuntimeName], interpretedProducer: InterpretedPlanBuilder,
-            compiledProducer: CompiledPlanBuilder, useErrorsOverWarnings: Boolean) = runtimeName match {
+            slottedProducer: SlottedPlanBuilder, compiledProducer: CompiledPlanBuilder,
+            useErrorsOverWarnings: Boolean) = runtimeName match {
     case None | Some(InterpretedRuntimeName) => InterpretedRuntimeBuilder(interpretedProducer)
+    case Some(SlottedRuntimeName) | Some(ParallelRuntimeName) => SlottedRuntimeBuilder(interpretedProducer, slottedProducer, useErrorsOverWarnings)
     case Some(CompiledRuntimeName) if useErrorsOverWarnings => ErrorReportingRuntimeBuilder(compiledProducer)
     case Some(CompiledRuntimeName) => WarningFallbackRuntimeBuilder(interpretedProducer, compiledProducer)
   }
@@ -110,6 +114,36 @@ case class ErrorReportingRuntimeBuilder(compiledProducer: CompiledPlanBuilder) e
     throw new InvalidArgumentException("The given query is not currently supported in the selected runtime")
 }
 
+/*
+Tries to plan the query on the slotted runtime, falling back to the interpreted runtime for plans it does not support.
+ */
+case class SlottedRuntimeBuilder(interpretedProducer: InterpretedPlanBuilder, slottedProducer: SlottedPlanBuilder,
+                                 useErrorsOverWarnings: Boolean) extends RuntimeBuilder {
+  override def apply(periodicCommit: Option[PeriodicCommit], logicalPlan: LogicalPlan, pipeBuildContext: PipeExecutionBuilderContext,
+                     planContext: PlanContext, tracer: CompilationPhaseTracer, semanticTable: SemanticTable,
+                     monitor: NewRuntimeSuccessRateMonitor, plannerName: PlannerName,
+                     preparedQuery: PreparedQuerySemantics,
+                     createFingerprintReference: Option[PlanFingerprint] => PlanFingerprintReference,
+                     config: CypherCompilerConfiguration): ExecutionPlan = {
+    try {
+      slottedProducer(periodicCommit, logicalPlan, pipeBuildContext, planContext, tracer, preparedQuery, createFingerprintReference, config)
+    } catch {
+      case e: CantCompileQueryException =>
+        fallback(preparedQuery, planContext.notificationLogger())
+        interpretedProducer
+          .apply(periodicCommit, logicalPlan, pipeBuildContext, planContext, tracer, preparedQuery, createFingerprintReference, config)
+    }
+  }
+
+  override def compiledProducer = throw new InternalException("This should never be called")
+
+  override def fallback(preparedQuery: PreparedQuerySemantics, notificationLogger: InternalNotificationLogger): Unit =
+    if (useErrorsOverWarnings)
+      throw new InvalidArgumentException("The given query is not currently supported in the selected runtime")
+    else
+      notificationLogger.log(RuntimeUnsupportedNotification)
+}
+
 case class InterpretedPlanBuilder(clock: Clock, monitors: Monitors,typeConverter: RuntimeTypeConverter) {
 
   def apply(periodicCommit: Option[PeriodicCommit], logicalPlan: LogicalPlan, pipeBuildContext: PipeExecutionBuilderContext,
@@ -123,6 +157,29 @@ case class InterpretedPlanBuilder(clock: Clock, monitors: Monitors,typeConverter
     }
 }
 
+/*
+Builds plans for the slotted runtime. The parallel runtime is the same runtime, given more than a single worker.
+ */
+case class SlottedPlanBuilder(clock: Clock, monitors: Monitors, typeConverter: RuntimeTypeConverter,
+                              runtimeName: RuntimeName = SlottedRuntimeName,
+                              workers: MorselWorkers = MorselWorkers.serial) {
+
+  def apply(periodicCommit: Option[PeriodicCommit], logicalPlan: LogicalPlan, pipeBuildContext: PipeExecutionBuilderContext,
+            planContext: PlanContext, tracer: CompilationPhaseTracer, preparedQuery: PreparedQuerySemantics,
+            createFingerprintReference: Option[PlanFingerprint] => PlanFingerprintReference,
+            config: CypherCompilerConfiguration) =
+    closing(tracer.beginPhase(PIPE_BUILDING)) {
+      if (periodicCommit.isDefined)
+        throw new CantCompileQueryException(s"Periodic commit is not supported by the ${runtimeName.name.toLowerCase} runtime")
+
+      val pipeline = SlotAllocation.allocateSlots(logicalPlan)
+      interpretedToExecutionPlan(new PipeExecutionPlanBuilder(clock, monitors, new SlottedPipeBuilderFactory(pipeline, workers))
+                                   .build(periodicCommit, logicalPlan)(pipeBuildContext, planContext),
+                                 planContext, preparedQuery, createFingerprintReference, config, typeConverter,
+                                 runtimeName)
+    }
+}
+
 case class CompiledPlanBuilder(clock: Clock, structure:CodeStructure[GeneratedQuery]) {
 
   private val codeGen = new CodeGenerator(structure, CodeGenConfiguration(mode = ByteCodeMode, clock = clock))
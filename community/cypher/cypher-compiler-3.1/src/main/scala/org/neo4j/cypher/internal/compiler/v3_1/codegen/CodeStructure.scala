@@ -44,6 +44,22 @@ case object LongToCountTable extends CountingJoinTableType
 case object LongsToCountTable extends CountingJoinTableType
 case class LongToListTable(structure: Map[String, CodeGenType], localMap: Map[String, String]) extends RecordingJoinTableType
 case class LongsToListTable(structure: Map[String, CodeGenType], localMap: Map[String, String]) extends RecordingJoinTableType
+/** Holds the groups of an aggregation together with their aggregated values */
+case object GroupingTable extends JoinTableType
+/** Holds the rows of a sort, handing them back in sort order */
+case object SortingTable extends JoinTableType
+
+sealed abstract class AggregateFunction(val name: String)
+case object CountAggregate extends AggregateFunction("COUNT")
+case object SumAggregate extends AggregateFunction("SUM")
+case object AvgAggregate extends AggregateFunction("AVG")
+case object MinAggregate extends AggregateFunction("MIN")
+case object MaxAggregate extends AggregateFunction("MAX")
+case object CollectAggregate extends AggregateFunction("COLLECT")
+
+case class Aggregate(function: AggregateFunction, distinct: Boolean)
+
+case class SortItem(column: Int, ascending: Boolean)
 
 /**
   * Describes the SPI for generating a method.
@@ -74,6 +90,19 @@ trait MethodStructure[E] {
   def probe(tableVar: String, tableType: JoinTableType, keyVars: Seq[String])(block: MethodStructure[E]=>Unit): Unit
   def updateProbeTableCount(tableVar: String, tableType: CountingJoinTableType, keyVar: Seq[String]): Unit
   def allocateProbeTable(tableVar: String, tableType: JoinTableType): Unit
+  def iterateCountingTable(tableVar: String, keyVar: String, countVar: String)(block: MethodStructure[E]=>Unit): Unit
+  def allocateDistinctSet(setVar: String, numberOfKeys: Int): Unit
+  /** Runs the given block only if the values of the given keys had not been added to the set before */
+  def addToDistinctSet(setVar: String, keyVars: Seq[String])(block: MethodStructure[E]=>Unit): Unit
+  def allocateDistinctValueSet(setVar: String): Unit
+  /** Runs the given block only if values equivalent to the given ones had not been added to the set before */
+  def addToDistinctValueSet(setVar: String, values: Seq[E])(block: MethodStructure[E]=>Unit): Unit
+  def allocateAggregationTable(tableVar: String, numberOfKeys: Int, aggregates: Seq[Aggregate]): Unit
+  def aggregate(tableVar: String, keys: Seq[E], values: Seq[E]): Unit
+  def allocateSortTable(tableVar: String, sortItems: Seq[SortItem], limit: Option[E]): Unit
+  def addToSortTable(tableVar: String, values: Seq[E]): Unit
+  /** Runs the given block for every row of a grouping or sorting table, with the columns of the row in the given variables */
+  def iterateRows(tableVar: String, columns: Seq[(String, CodeGenType)])(block: MethodStructure[E]=>Unit): Unit
   def invokeMethod(resultType: JoinTableType, resultVar: String, methodName: String)(block: MethodStructure[E]=>Unit): Unit
   def coerceToBoolean(propertyExpression: E): E
 
@@ -133,11 +162,15 @@ trait MethodStructure[E] {
   def nodeGetRelationships(iterVar: String, nodeVar: String, direction: SemanticDirection, typeVars: Seq[String]): Unit
   def connectingRelationships(iterVar: String, fromNode: String, dir: SemanticDirection, toNode:String)
   def connectingRelationships(iterVar: String, fromNode: String, dir: SemanticDirection, types: Seq[String], toNode: String)
+  def varLengthExpand(iterVar: String, fromNode: String, dir: SemanticDirection, types: Seq[String], min: Int,
+                      max: Option[Int], intoNode: Option[String], reverse: Boolean): Unit
   def nextNode(targetVar: String, iterVar: String): Unit
   def nextRelationshipAndNode(toNodeVar: String, iterVar: String, direction: SemanticDirection, fromNodeVar: String, relVar: String): Unit
   def nextRelationship(iterVar: String, direction: SemanticDirection, relVar: String): Unit
   def hasNextNode(iterVar: String): E
   def hasNextRelationship(iterVar: String): E
+  def nextVarLengthPath(iterVar: String, toNodeVar: Option[String], relsVar: String): Unit
+  def hasNextVarLengthPath(iterVar: String): E
   def nodeGetPropertyById(nodeIdVar: String, propId: Int, propValueVar: String): Unit
   def nodeGetPropertyForVar(nodeIdVar: String, propIdVar: String, propValueVar: String): Unit
   def nodeIdSeek(nodeIdVar: String, expression: E)(block: MethodStructure[E] => Unit): Unit
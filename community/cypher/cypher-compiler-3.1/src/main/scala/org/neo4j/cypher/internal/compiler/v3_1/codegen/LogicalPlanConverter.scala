@@ -24,11 +24,12 @@ import org.neo4j.cypher.internal.compiler.v3_1.codegen.ir.expressions._
 import org.neo4j.cypher.internal.compiler.v3_1.commands.{ManyQueryExpression, QueryExpression, RangeQueryExpression, SingleQueryExpression}
 import org.neo4j.cypher.internal.compiler.v3_1.helpers.{One, ZeroOneOrMany}
 import org.neo4j.cypher.internal.compiler.v3_1.planner.CantCompileQueryException
+import org.neo4j.cypher.internal.compiler.v3_1.planner.logical.Ascending
 import org.neo4j.cypher.internal.compiler.v3_1.planner.logical.plans
 import org.neo4j.cypher.internal.compiler.v3_1.planner.logical.plans._
-import org.neo4j.cypher.internal.frontend.v3_1.ast.Expression
+import org.neo4j.cypher.internal.frontend.v3_1.ast.{Expression, functions}
 import org.neo4j.cypher.internal.frontend.v3_1.helpers.Eagerly
-import org.neo4j.cypher.internal.frontend.v3_1.{InternalException, ast, symbols}
+import org.neo4j.cypher.internal.frontend.v3_1.{InternalException, SemanticDirection, ast, symbols}
 
 object LogicalPlanConverter {
 
@@ -41,6 +42,7 @@ object LogicalPlanConverter {
     case p: NodeUniqueIndexSeek => nodeUniqueIndexSeekAsCodeGen(p)
     case p: Expand => expandAsCodeGenPlan(p)
     case p: OptionalExpand => optExpandAsCodeGenPlan(p)
+    case p: VarExpand => varExpandAsCodeGenPlan(p)
     case p: NodeHashJoin => nodeHashJoinAsCodeGenPlan(p)
     case p: CartesianProduct => cartesianProductAsCodeGenPlan(p)
     case p: Selection => selectionAsCodeGenPlan(p)
@@ -48,6 +50,9 @@ object LogicalPlanConverter {
     case p: plans.Skip => skipAsCodeGenPlan(p)
     case p: ProduceResult => produceResultsAsCodeGenPlan(p)
     case p: plans.Projection => projectionAsCodeGenPlan(p)
+    case p: Aggregation if p.aggregationExpression.isEmpty => distinctAsCodeGenPlan(p)
+    case p: Aggregation => aggregationAsCodeGenPlan(p)
+    case p: Sort => sortAsCodeGenPlan(p, None)
 
     case _ =>
       throw new CantCompileQueryException(s"$logicalPlan is not yet supported")
@@ -318,6 +323,44 @@ object LogicalPlanConverter {
     }
   }
 
+  private def varExpandAsCodeGenPlan(varExpand: VarExpand) = new CodeGenPlan with SingleChildPlan {
+
+    override val logicalPlan: LogicalPlan = varExpand
+
+    override def consume(context: CodeGenContext, child: CodeGenPlan): (Option[JoinTableMethod], Instruction) = {
+      if (varExpand.predicates.nonEmpty)
+        throw new CantCompileQueryException("Variable length expand with predicates is not yet supported")
+      val fromNodeVar = context.getVariable(varExpand.from.name)
+      if (fromNodeVar.nullable)
+        throw new CantCompileQueryException("Variable length expand from an optional node is not yet supported")
+
+      val relVar = Variable(context.namer.newVarName(), CodeGenType(symbols.CTList(symbols.CTRelationship), ReferenceType))
+      context.addVariable(varExpand.relName.name, relVar)
+      val into = varExpand.mode == ExpandInto
+      val toNodeVar =
+        if (into) context.getVariable(varExpand.to.name)
+        else {
+          val variable = Variable(context.namer.newVarName(), CodeGenType.primitiveNode)
+          context.addVariable(varExpand.to.name, variable)
+          variable
+        }
+
+      val (methodHandle, action) = context.popParent().consume(context, this)
+      val typeVar2TypeName = varExpand.types.map(t => context.namer.newVarName() -> t.name).toMap
+      val opName = context.registerOperator(varExpand)
+      // the relationships are listed in the order of the pattern, which for a pattern that was planned from its other
+      // end is the reverse of the order they were traversed in
+      val reverse =
+        if (varExpand.dir == SemanticDirection.BOTH) varExpand.projectedDir == SemanticDirection.INCOMING
+        else varExpand.dir != varExpand.projectedDir
+      val expandGenerator = VarLengthExpandLoopDataGenerator(opName, fromNodeVar, varExpand.dir, typeVar2TypeName,
+                                                             varExpand.length.min, varExpand.length.max, toNodeVar,
+                                                             relVar, into, reverse)
+
+      (methodHandle, WhileLoop(relVar, expandGenerator, action))
+    }
+  }
+
   private def optExpandAsCodeGenPlan(optionalExpand: OptionalExpand) = new CodeGenPlan {
 
     override val logicalPlan: LogicalPlan = optionalExpand
@@ -450,10 +493,19 @@ object LogicalPlanConverter {
     }
   }
 
-  private def limitAsCodeGenPlan(limit: plans.Limit) = new CodeGenPlan with SingleChildPlan {
+  private def limitAsCodeGenPlan(limit: plans.Limit) = new CodeGenPlan {
 
     override val logicalPlan: LogicalPlan = limit
 
+    override def produce(context: CodeGenContext): (Option[JoinTableMethod], Seq[Instruction]) = {
+      context.pushParent(this)
+      val child = limit.left match {
+        case sort: Sort if limit.ties == DoNotIncludeTies => sortAsCodeGenPlan(sort, Some(limit.count))
+        case other => asCodeGenPlan(other)
+      }
+      child.produce(context)
+    }
+
     override def consume(context: CodeGenContext, child: CodeGenPlan): (Option[JoinTableMethod], Instruction) = {
       val opName = context.registerOperator(limit)
       val count = ExpressionConverter.createExpression(limit.count)(context)
@@ -482,6 +534,218 @@ object LogicalPlanConverter {
     }
   }
 
+  private def distinctAsCodeGenPlan(distinct: Aggregation) = new CodeGenPlan with SingleChildPlan {
+
+    override val logicalPlan: LogicalPlan = distinct
+
+    override def consume(context: CodeGenContext, child: CodeGenPlan): (Option[JoinTableMethod], Instruction) = {
+      val opName = context.registerOperator(distinct)
+      val setName = context.namer.newVarName()
+      primitiveEntityKeys(distinct)(context) match {
+        case Some(keys) =>
+          val (methodHandle, innerBlock) = context.popParent().consume(context, this)
+          (methodHandle, DistinctInstruction(opName, setName, keys, innerBlock))
+
+        case None =>
+          // keys that are not plain variables are projected before checking them, so later operators can use them
+          val keys = distinct.groupingExpressions.toIndexedSeq.map {
+            case (name, ast.Variable(other)) if name == other =>
+              (name, None, groupingKey(context.getVariable(name)))
+            case (name, e) =>
+              val expr = ExpressionConverter.createProjection(e)(context)
+              val variable = Variable(context.namer.newVarName(), CodeGenType(expr.codeGenType(context).ct, ReferenceType),
+                                      expr.nullable(context))
+              (name, Some(variable -> expr), LoadVariable(variable))
+          }
+          keys.foreach {
+            case (name, Some((variable, _)), _) => context.addVariable(name, variable)
+            case _ =>
+          }
+          val (methodHandle, innerBlock) = context.popParent().consume(context, this)
+          (methodHandle, DistinctValuesInstruction(opName, setName, keys.flatMap(_._2).toMap, keys.map(_._3), innerBlock))
+      }
+    }
+  }
+
+  /*
+  Aggregation is done in two steps: a method that consumes the rows of the child and aggregates them per key in a
+  table, and a loop over that table that produces a row for every key. Counting all rows per node or relationship is
+  done in a primitive counting table, every other aggregation in a table of groups.
+   */
+  private def aggregationAsCodeGenPlan(aggregation: Aggregation) = new CodeGenPlan {
+
+    override val logicalPlan: LogicalPlan = aggregation
+
+    private val groupingExpressions = aggregation.groupingExpressions.toIndexedSeq
+
+    private val aggregationExpressions = aggregation.aggregationExpression.toIndexedSeq
+
+    override def produce(context: CodeGenContext): (Option[JoinTableMethod], Seq[Instruction]) = {
+      context.pushParent(this)
+      val (Some(symbol), childInstructions) = asCodeGenPlan(aggregation.lhs.get).produce(context)
+      val opName = context.registerOperator(aggregation)
+      val aggregationMethod = MethodInvocation(Set(opName), symbol, context.namer.newMethodName(), childInstructions)
+
+      val produceRows = symbol.tableType match {
+        case LongToCountTable =>
+          val (keyName, _) = groupingExpressions.head
+          val (countName, _) = aggregationExpressions.head
+          val keyVar = Variable(context.namer.newVarName(), context.getVariable(keyName).codeGenType)
+          val countVar = Variable(context.namer.newVarName(), CodeGenType.primitiveInt)
+          context.addVariable(keyName, keyVar)
+          context.addVariable(countName, countVar)
+          (actions: Instruction) => ForEachCountingTableEntry(opName, symbol.name, keyVar, countVar, actions)
+
+        case _ =>
+          val groupingVariables = groupingExpressions.map {
+            case (name, e) => name -> Variable(context.namer.newVarName(), groupingType(e)(context), nullable = true)
+          }
+          val aggregateVariables = aggregationExpressions.map {
+            case (name, _) => name -> Variable(context.namer.newVarName(), CodeGenType.Any, nullable = true)
+          }
+          val variables = groupingVariables ++ aggregateVariables
+          variables.foreach {
+            case (name, variable) => context.addVariable(name, variable)
+          }
+          (actions: Instruction) => ForEachTableRow(opName, symbol.name, variables.map(_._2), actions)
+      }
+
+      val (methodHandle, actions) = context.popParent().consume(context, this)
+      (methodHandle, Seq(aggregationMethod, produceRows(actions)))
+    }
+
+    override def consume(context: CodeGenContext, child: CodeGenPlan): (Option[JoinTableMethod], Instruction) = {
+      val opName = context.registerOperator(aggregation)
+      val tableName = context.namer.newVarName()
+      val (tableType, table) = primitiveEntityKeys(aggregation)(context) match {
+        case Some(keys) if keys.size == 1 && isCountStar(aggregationExpressions) =>
+          val countingTable = BuildCountingProbeTable(opName, tableName, keys.toSet)
+          (countingTable.tableType, countingTable)
+
+        case _ =>
+          val keys = groupingExpressions.map {
+            case (_, ast.Variable(name)) => groupingKey(context.getVariable(name))
+            case (_, e) => ExpressionConverter.createProjection(e)(context)
+          }
+          val aggregates = aggregationExpressions.map {
+            case (_, e) => aggregate(e)(context)
+          }
+          val aggregationTable = BuildAggregationTable(opName, tableName, keys, aggregates)
+          (aggregationTable.tableType, aggregationTable)
+      }
+
+      (Some(JoinTableMethod(tableName, tableType)), table)
+    }
+
+    private def isCountStar(aggregates: Seq[(String, Expression)]) =
+      aggregates.size == 1 && aggregates.head._2.isInstanceOf[ast.CountStar]
+
+    private def groupingType(e: Expression)(implicit context: CodeGenContext) = e match {
+      case ast.Variable(name) => restoredType(context.getVariable(name).codeGenType)
+      case _ => CodeGenType(ExpressionConverter.createProjection(e).codeGenType.ct, ReferenceType)
+    }
+  }
+
+  /*
+  Sorting is done in two steps: a method that consumes the rows of the child and keeps all their variables in a table,
+  and a loop over that table that produces the rows in sort order. When the sort is followed by a limit, only the rows
+  that can make it through the limit are kept, like the interpreted top pipes do.
+   */
+  private def sortAsCodeGenPlan(sort: Sort, limit: Option[Expression]) = new CodeGenPlan {
+
+    override val logicalPlan: LogicalPlan = sort
+
+    override def produce(context: CodeGenContext): (Option[JoinTableMethod], Seq[Instruction]) = {
+      context.pushParent(this)
+      val (Some(symbol), childInstructions) = asCodeGenPlan(sort.lhs.get).produce(context)
+      val opName = context.registerOperator(sort)
+      val sortMethod = MethodInvocation(Set(opName), symbol, context.namer.newMethodName(), childInstructions)
+
+      val variables = columns(context).map { name =>
+        val incoming = context.getVariable(name)
+        name -> Variable(context.namer.newVarName(), restoredType(incoming.codeGenType), incoming.nullable)
+      }
+      variables.foreach {
+        case (name, variable) => context.addVariable(name, variable)
+      }
+
+      val (methodHandle, actions) = context.popParent().consume(context, this)
+      (methodHandle, Seq(sortMethod, ForEachTableRow(opName, symbol.name, variables.map(_._2), actions)))
+    }
+
+    override def consume(context: CodeGenContext, child: CodeGenPlan): (Option[JoinTableMethod], Instruction) = {
+      val opName = context.registerOperator(sort)
+      val tableName = context.namer.newVarName()
+      val names = columns(context)
+      val values = names.map(c => groupingKey(context.getVariable(c)))
+      val sortItems = sort.sortItems.map { item =>
+        val column = names.indexOf(item.id.name)
+        if (column < 0)
+          throw new CantCompileQueryException(s"Sorting on `${item.id.name}` is not yet supported")
+        SortItem(column, item.isInstanceOf[Ascending])
+      }
+      val count = limit.map(ExpressionConverter.createExpression(_)(context))
+      val table = BuildSortTable(opName, tableName, values, sortItems, count)
+
+      (Some(JoinTableMethod(tableName, table.tableType)), table)
+    }
+
+    private def columns(context: CodeGenContext) =
+      sort.availableSymbols.map(_.name).filter(context.variableQueryVariables()).toIndexedSeq.sorted
+  }
+
+  /*
+  Grouping on ids is only possible for nodes and relationships that are known not to be null.
+   */
+  private def primitiveEntityKeys(aggregation: Aggregation)(implicit context: CodeGenContext): Option[Seq[Variable]] = {
+    val keys = aggregation.groupingExpressions.toIndexedSeq.collect {
+      case (name, ast.Variable(other)) if name == other => context.getVariable(name)
+    }
+    val primitive = keys.size == aggregation.groupingExpressions.size && keys.forall { variable =>
+      variable.codeGenType.isPrimitive && !variable.nullable && isEntity(variable.codeGenType)
+    }
+    if (primitive) Some(keys) else None
+  }
+
+  /*
+  Nodes and relationships are kept by id in grouping and sorting tables, so that they can be restored as ids.
+   */
+  private def groupingKey(variable: Variable): CodeGenExpression = variable.codeGenType match {
+    case CodeGenType(symbols.CTNode, IntType) => NodeExpression(variable)
+    case CodeGenType(symbols.CTRelationship, IntType) => RelationshipExpression(variable)
+    case _ => LoadVariable(variable)
+  }
+
+  private def restoredType(codeGenType: CodeGenType) =
+    if (isEntity(codeGenType)) codeGenType else CodeGenType(codeGenType.ct, ReferenceType)
+
+  private def aggregate(e: Expression)(implicit context: CodeGenContext): (Aggregate, CodeGenExpression) = e match {
+    case _: ast.CountStar =>
+      (Aggregate(CountAggregate, distinct = false), Literal(Long.box(1L)))
+
+    case invocation@ast.FunctionInvocation(_, _, distinct, IndexedSeq(argument)) =>
+      val function = invocation.function match {
+        case functions.Count => CountAggregate
+        case functions.Sum => SumAggregate
+        case functions.Avg => AvgAggregate
+        case functions.Min => MinAggregate
+        case functions.Max => MaxAggregate
+        case functions.Collect => CollectAggregate
+        case _ => throw new CantCompileQueryException(s"Aggregating with ${invocation.name} is not yet supported")
+      }
+      val value = argument match {
+        case ast.Variable(name) if !context.getVariable(name).codeGenType.isPrimitive => LoadVariable(context.getVariable(name))
+        case _ => ExpressionConverter.createProjection(argument)
+      }
+      (Aggregate(function, distinct), value)
+
+    case _ =>
+      throw new CantCompileQueryException(s"Aggregating $e is not yet supported")
+  }
+
+  private def isEntity(codeGenType: CodeGenType) =
+    codeGenType.ct == symbols.CTNode || codeGenType.ct == symbols.CTRelationship
+
   trait SingleChildPlan extends CodeGenPlan {
 
     final override def produce(context: CodeGenContext): (Option[JoinTableMethod], Seq[Instruction]) = {
@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v3_1.codegen.ir
+
+import org.neo4j.cypher.internal.compiler.v3_1.codegen._
+import org.neo4j.cypher.internal.compiler.v3_1.codegen.ir.expressions.CodeGenExpression
+
+/**
+ * Generates instruction for adding the current row to a sort table, keeping only the first rows in sort order when
+ * a limit is given
+ */
+case class BuildSortTable(opName: String, tableName: String, columns: Seq[CodeGenExpression],
+                          sortItems: Seq[SortItem], limit: Option[CodeGenExpression]) extends Instruction {
+
+  override def init[E](generator: MethodStructure[E])(implicit context: CodeGenContext) = {
+    limit.foreach(_.init(generator))
+    generator.allocateSortTable(tableName, sortItems,
+                                limit.map(l => generator.box(l.generateExpression(generator), l.codeGenType)))
+    columns.foreach(_.init(generator))
+  }
+
+  override def body[E](generator: MethodStructure[E])(implicit context: CodeGenContext) =
+    generator.addToSortTable(tableName, columns.map(c => generator.box(c.generateExpression(generator), c.codeGenType)))
+
+  override protected def children = Seq.empty
+
+  override protected def operatorId = Set(opName)
+
+  val tableType = SortingTable
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v3_1.codegen.ir
+
+import org.neo4j.cypher.internal.compiler.v3_1.codegen.{CodeGenContext, MethodStructure, Variable}
+import org.neo4j.cypher.internal.frontend.v3_1.SemanticDirection
+
+/*
+Produces the paths of a variable length expand. When the end node is already bound, only the paths that end in it are
+produced, otherwise every path binds toVar to the node it ends in.
+ */
+case class VarLengthExpandLoopDataGenerator(opName: String, fromVar: Variable, dir: SemanticDirection,
+                                            types: Map[String, String], min: Int, max: Option[Int],
+                                            toVar: Variable, relVar: Variable, into: Boolean, reverse: Boolean)
+  extends LoopDataGenerator {
+
+  override def init[E](generator: MethodStructure[E])(implicit context: CodeGenContext) = {
+    types.foreach {
+      case (typeVar,relType) => generator.lookupRelationshipTypeId(typeVar, relType)
+    }
+  }
+
+  override def produceIterator[E](iterVar: String, generator: MethodStructure[E])(implicit context: CodeGenContext) = {
+    generator.varLengthExpand(iterVar, fromVar.name, dir, types.keys.toIndexedSeq, min, max,
+                              if (into) Some(toVar.name) else None, reverse)
+    generator.incrementDbHits()
+  }
+
+  override def produceNext[E](nextVar: Variable, iterVar: String, generator: MethodStructure[E])
+                             (implicit context: CodeGenContext) =
+    generator.nextVarLengthPath(iterVar, if (into) None else Some(toVar.name), relVar.name)
+
+  override def hasNext[E](generator: MethodStructure[E], iterVar: String): E = generator.hasNextVarLengthPath(iterVar)
+}
@@ -23,7 +23,7 @@ import org.neo4j.cypher.internal.compiler.v3_1.codegen.ir.expressions
 import org.neo4j.cypher.internal.compiler.v3_1.codegen.ir.functions.functionConverter
 import org.neo4j.cypher.internal.compiler.v3_1.codegen.{CodeGenContext, MethodStructure}
 import org.neo4j.cypher.internal.compiler.v3_1.planner.CantCompileQueryException
-import org.neo4j.cypher.internal.frontend.v3_1.symbols.{CTBoolean, CTNode, CTRelationship}
+import org.neo4j.cypher.internal.frontend.v3_1.symbols.{CTBoolean, CTInteger, CTNode, CTRelationship}
 import org.neo4j.cypher.internal.frontend.v3_1.{InternalException, ast}
 
 object ExpressionConverter {
@@ -93,10 +93,13 @@ object ExpressionConverter {
 
     val variable = context.getVariable(variableQueryVariable)
 
-    variable.codeGenType.ct match {
-      case CTNode => NodeProjection(variable)
-      case CTRelationship => RelationshipProjection(variable)
-      case _ => throw new InternalException("The compiled runtime only handles variables pointing to rels and nodes at this time")
+    variable.codeGenType match {
+      case CodeGenType(CTNode, IntType) => NodeProjection(variable)
+      case CodeGenType(CTRelationship, IntType) => RelationshipProjection(variable)
+      case CodeGenType(CTInteger, IntType) => LoadVariable(variable)
+      // variables that are not primitive already hold the value to produce
+      case CodeGenType(_, ReferenceType) => LoadVariable(variable)
+      case _ => throw new InternalException(s"The compiled runtime cannot produce `$variableQueryVariable` at this time")
     }
   }
 
@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v3_1.commands.expressions
+
+import org.neo4j.cypher.internal.compiler.v3_1._
+import org.neo4j.cypher.internal.compiler.v3_1.pipes.QueryState
+import org.neo4j.cypher.internal.compiler.v3_1.pipes.slotted.SlottedExecutionContext
+import org.neo4j.cypher.internal.compiler.v3_1.symbols.SymbolTable
+import org.neo4j.cypher.internal.frontend.v3_1.symbols._
+
+/*
+Reads the relationship stored, by id, in a long slot of a slotted execution context. This replaces a variable lookup
+once the variable has been given a slot.
+ */
+case class RelationshipFromSlot(offset: Int, name: String) extends Expression {
+
+  def apply(ctx: ExecutionContext)(implicit state: QueryState): Any =
+    state.query.relationshipOps.getById(ctx.asInstanceOf[SlottedExecutionContext].getLong(offset))
+
+  override def toString: String = name
+
+  def rewrite(f: (Expression) => Expression) = f(this)
+
+  def arguments = Seq()
+
+  def calculateType(symbols: SymbolTable) = CTRelationship
+
+  def symbolTableDependencies = Set(name)
+}
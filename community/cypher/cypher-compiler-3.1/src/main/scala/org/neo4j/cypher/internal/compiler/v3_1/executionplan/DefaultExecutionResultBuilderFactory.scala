@@ -19,8 +19,11 @@
  */
 package org.neo4j.cypher.internal.compiler.v3_1.executionplan
 
+import java.io.File
+
 import org.neo4j.cypher.internal.compiler.v3_1.helpers.RuntimeTypeConverter
 import org.neo4j.cypher.internal.compiler.v3_1.pipes._
+import org.neo4j.cypher.internal.compiler.v3_1.pipes.spill.QueryMemoryBudget
 import org.neo4j.cypher.internal.compiler.v3_1.planDescription.InternalPlanDescription
 import org.neo4j.cypher.internal.compiler.v3_1.spi.{CSVResources, QueryContext}
 import org.neo4j.cypher.internal.compiler.v3_1.{ExecutionMode, ExplainMode, _}
@@ -29,7 +32,9 @@ import org.neo4j.cypher.internal.frontend.v3_1.CypherException
 import scala.collection.mutable
 
 case class DefaultExecutionResultBuilderFactory(pipeInfo: PipeInfo, columns: List[String],
-                                                typeConverter: RuntimeTypeConverter) extends ExecutionResultBuilderFactory {
+                                                typeConverter: RuntimeTypeConverter,
+                                                queryMemoryBudget: Long = 0,
+                                                querySpillDirectory: Option[File] = None) extends ExecutionResultBuilderFactory {
   def create(): ExecutionResultBuilder =
     ExecutionWorkflowBuilder()
 
@@ -60,9 +65,11 @@ case class DefaultExecutionResultBuilderFactory(pipeInfo: PipeInfo, columns: Lis
 
     def build(queryId: AnyRef, planType: ExecutionMode, params: Map[String, Any], notificationLogger: InternalNotificationLogger): InternalExecutionResult = {
       taskCloser.addTask(queryContext.transactionalContext.close)
+      val memoryBudget = QueryMemoryBudget(queryMemoryBudget, querySpillDirectory.orNull)
+      taskCloser.addTask(_ => memoryBudget.close())
       val state = new QueryState(queryContext, externalResource, params, pipeDecorator, queryId = queryId,
                                  triadicState = mutable.Map.empty, repeatableReads = mutable.Map.empty,
-                                 typeConverter = typeConverter)
+                                 typeConverter = typeConverter, memoryBudget = memoryBudget)
       try {
         try {
           createResults(state, planType, notificationLogger)
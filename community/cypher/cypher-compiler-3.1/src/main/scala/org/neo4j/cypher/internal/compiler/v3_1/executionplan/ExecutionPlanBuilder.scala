@@ -111,10 +111,12 @@ object InterpretedExecutionPlanBuilder {
   def interpretedToExecutionPlan(pipeInfo: PipeInfo, planContext: PlanContext, inputQuery: PreparedQuerySemantics,
                                  createFingerprintReference: Option[PlanFingerprint] => PlanFingerprintReference,
                                  config: CypherCompilerConfiguration,
-                                 typeConverter: RuntimeTypeConverter) = {
+                                 typeConverter: RuntimeTypeConverter,
+                                 runtimeName: RuntimeName = InterpretedRuntimeName) = {
     val PipeInfo(pipe, updating, periodicCommitInfo, fp, planner) = pipeInfo
     val columns = inputQuery.statement.returnColumns
-    val resultBuilderFactory = DefaultExecutionResultBuilderFactory(pipeInfo, columns, typeConverter)
+    val resultBuilderFactory = DefaultExecutionResultBuilderFactory(pipeInfo, columns, typeConverter, config.queryMemoryBudget,
+                                                                     config.querySpillDirectory)
     val func = getExecutionPlanFunction(periodicCommitInfo, inputQuery.queryText, updating, resultBuilderFactory, planContext.notificationLogger())
     new ExecutionPlan {
       private val fingerprint = createFingerprintReference(fp)
@@ -126,7 +128,7 @@ object InterpretedExecutionPlanBuilder {
       override def plannerUsed = planner
       override def isStale(lastTxId: () => Long, statistics: GraphStatistics) = fingerprint.isStale(lastTxId, statistics)
 
-      override def runtimeUsed = InterpretedRuntimeName
+      override def runtimeUsed = runtimeName
 
       override def notifications(planContext: PlanContext) = checkForNotifications(pipe, planContext, config)
     }
@@ -23,6 +23,7 @@ import org.neo4j.cypher.internal.compiler.v3_1._
 import org.neo4j.cypher.internal.compiler.v3_1.commands.expressions.Expression
 import org.neo4j.cypher.internal.compiler.v3_1.commands.predicates.Equivalent
 import org.neo4j.cypher.internal.compiler.v3_1.executionplan.Effects._
+import org.neo4j.cypher.internal.compiler.v3_1.pipes.spill.PartitionedDistinct
 import org.neo4j.cypher.internal.compiler.v3_1.planDescription.InternalPlanDescription.Arguments.KeyNames
 import org.neo4j.cypher.internal.compiler.v3_1.symbols.SymbolTable
 import org.neo4j.cypher.internal.frontend.v3_1.helpers.Eagerly
@@ -47,6 +48,9 @@ case class DistinctPipe(source: Pipe, expressions: Map[String, Expression])(val
       ctx.copy(m = newMap)
     })
 
+    if (state.memoryBudget.isBounded)
+      return PartitionedDistinct(result, ctx => Equivalent(keyNames.map(ctx)), state)
+
     /*
      * The filtering is done by extracting from the context the values of all return expressions, and keeping them
      * in a set.
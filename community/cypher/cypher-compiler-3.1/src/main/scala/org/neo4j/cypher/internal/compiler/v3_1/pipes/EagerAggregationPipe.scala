@@ -23,6 +23,7 @@ import org.neo4j.cypher.internal.compiler.v3_1._
 import org.neo4j.cypher.internal.compiler.v3_1.commands.expressions.AggregationExpression
 import org.neo4j.cypher.internal.compiler.v3_1.commands.predicates.Equivalent
 import org.neo4j.cypher.internal.compiler.v3_1.pipes.aggregation.AggregationFunction
+import org.neo4j.cypher.internal.compiler.v3_1.pipes.spill.{RowSize, SpilledPartitions}
 import org.neo4j.cypher.internal.compiler.v3_1.planDescription.InternalPlanDescription.Arguments
 import org.neo4j.cypher.internal.frontend.v3_1.symbols._
 import org.neo4j.cypher.internal.compiler.v3_1.symbols.SymbolTable
@@ -52,8 +53,6 @@ case class EagerAggregationPipe(source: Pipe, keyExpressions: Set[String], aggre
     //register as parent so that stats are associated with this pipe
     state.decorator.registerParentPipe(this)
 
-    // This is the temporary storage used while the aggregation is going on
-    val result = MutableMap[Equals, Seq[AggregationFunction]]()
     val keyNames = keyExpressions.toList
     val aggregationNames: Seq[String] = aggregations.keys.toIndexedSeq
     val keyNamesSize = keyNames.size
@@ -99,27 +98,75 @@ case class EagerAggregationPipe(source: Pipe, keyExpressions: Set[String], aggre
       ExecutionContext(newMap)
     }
 
-    input.foreach(ctx => {
-      val groupValues: Equals = keyNamesSize match {
-        case 1 => Equivalent(ctx(keyNames.head))
-        case 2 => (Equivalent(ctx(keyNames.head)),Equivalent(ctx(keyNames.last)))
-        case 3 => (Equivalent(ctx(keyNames.head)),Equivalent(ctx(keyNames.tail.head)),Equivalent(ctx(keyNames.last)))
-        case _ => keyNames.map( k => Equivalent(ctx(k)))
-      }
-      val functions = result.getOrElseUpdate(groupValues, {
+    /*
+    With a bounded memory budget, groups are only created for as long as the budget allows. Rows of groups that
+    already exist are still aggregated in memory after that, rows with new keys are spilled into partitions by the
+    hash of their key. All rows of such a group end up in the same partition, so the partitions can be aggregated one
+    by one once the groups in memory have been emitted.
+     */
+    def aggregate(input: Iterator[ExecutionContext], level: Int): Iterator[ExecutionContext] = {
+      // This is the temporary storage used while the aggregation is going on
+      val result = MutableMap[Equals, Seq[AggregationFunction]]()
+      val canSpill = keyNamesSize > 0 && SpilledPartitions.canSpill(state.memoryBudget, level)
+      val reservation = state.memoryBudget.newReservation()
+      var spilled: SpilledPartitions = null
+
+      def newGroup(): Seq[AggregationFunction] = {
         val aggregateFunctions: Seq[AggregationFunction] = aggregations.map(_._2.createAggregationFunction).toIndexedSeq
         aggregateFunctions
+      }
+
+      // The size of the aggregation state is not known up front, each function is counted as a few boxed values
+      def groupSize(ctx: ExecutionContext): Long =
+        keyNames.foldLeft(64L * (aggregationNames.size + 1))((size, k) => size + RowSize.of(ctx(k)))
+
+      input.foreach(ctx => {
+        val groupValues: Equals = keyNamesSize match {
+          case 1 => Equivalent(ctx(keyNames.head))
+          case 2 => (Equivalent(ctx(keyNames.head)),Equivalent(ctx(keyNames.last)))
+          case 3 => (Equivalent(ctx(keyNames.head)),Equivalent(ctx(keyNames.tail.head)),Equivalent(ctx(keyNames.last)))
+          case _ => keyNames.map( k => Equivalent(ctx(k)))
+        }
+        if (!canSpill) {
+          val functions = result.getOrElseUpdate(groupValues, newGroup())
+          functions.foreach(func => func(ctx)(state))
+        } else result.get(groupValues) match {
+          case Some(functions) =>
+            functions.foreach(func => func(ctx)(state))
+          case None if spilled == null && reservation.tryReserve(groupSize(ctx)) =>
+            val functions = newGroup()
+            result.put(groupValues, functions)
+            functions.foreach(func => func(ctx)(state))
+          case None =>
+            if (spilled == null)
+              spilled = new SpilledPartitions(state.memoryBudget, level)
+            spilled.add(groupValues.hashCode(), ctx)
+        }
       })
-      functions.foreach(func => func(ctx)(state))
-    })
-
-    if (result.isEmpty && keyNames.isEmpty) {
-      createEmptyResult(state.params)
-    } else {
-      result.map {
-        case (key, aggregator) => createResults(key, aggregator)
-      }.toIterator
+
+      val aggregated =
+        if (result.isEmpty && keyNames.isEmpty) {
+          createEmptyResult(state.params)
+        } else {
+          result.map {
+            case (key, aggregator) => createResults(key, aggregator)
+          }.toIterator
+        }
+
+      if (!canSpill)
+        aggregated
+      else
+        reservation.releasedAtEnd(aggregated) ++ {
+          if (spilled == null)
+            Iterator.empty
+          else
+            spilled.partitions.iterator.filterNot(spilled.isEmpty).flatMap { partition =>
+              aggregate(spilled.file(partition).read(), level + 1)
+            }
+        }
     }
+
+    aggregate(input, level = 0)
   }
 
   def planDescriptionWithoutCardinality = source.planDescription.
@@ -21,6 +21,7 @@ package org.neo4j.cypher.internal.compiler.v3_1.pipes
 
 import org.neo4j.cypher.internal.compiler.v3_1._
 import org.neo4j.cypher.internal.compiler.v3_1.executionplan.Effects
+import org.neo4j.cypher.internal.compiler.v3_1.pipes.spill.SpillingBuffer
 import org.neo4j.cypher.internal.compiler.v3_1.planDescription.InternalPlanDescription
 import org.neo4j.cypher.internal.compiler.v3_1.symbols.SymbolTable
 
@@ -39,7 +40,10 @@ case class EagerPipe(src: Pipe)(val estimatedCardinality: Option[Double] = None)
   override def planDescription = src.planDescription.andThen(this.id, "Eager", variables)
 
   protected def internalCreateResults(input: Iterator[ExecutionContext], state: QueryState): Iterator[ExecutionContext] =
-    input.toIndexedSeq.toIterator
+    if (state.memoryBudget.isBounded)
+      SpillingBuffer(input, state)
+    else
+      input.toIndexedSeq.toIterator
 
   override def planDescriptionWithoutCardinality: InternalPlanDescription = src.planDescription.andThen(this.id, "Eager", variables)
 
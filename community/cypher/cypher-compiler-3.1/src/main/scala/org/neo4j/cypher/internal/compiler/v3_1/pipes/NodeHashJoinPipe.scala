@@ -21,6 +21,7 @@ package org.neo4j.cypher.internal.compiler.v3_1.pipes
 
 import org.neo4j.cypher.internal.compiler.v3_1.ExecutionContext
 import org.neo4j.cypher.internal.compiler.v3_1.executionplan.Effects
+import org.neo4j.cypher.internal.compiler.v3_1.pipes.spill.GraceHashJoin
 import org.neo4j.cypher.internal.compiler.v3_1.planDescription.InternalPlanDescription.Arguments.KeyNames
 import org.neo4j.cypher.internal.compiler.v3_1.planDescription.{InternalPlanDescription, PlanDescriptionImpl, TwoChildren}
 import org.neo4j.cypher.internal.frontend.v3_1.CypherTypeException
@@ -41,6 +42,11 @@ case class NodeHashJoinPipe(nodeVariables: Set[String], left: Pipe, right: Pipe)
     if (rhsIterator.isEmpty)
       return Iterator.empty
 
+    if (state.memoryBudget.isBounded) {
+      val key = (context: ExecutionContext) => computeKey(context).orNull
+      return new GraceHashJoin(key, key, state).apply(input, rhsIterator)
+    }
+
     val table = buildProbeTable(input)
 
     if (table.isEmpty)
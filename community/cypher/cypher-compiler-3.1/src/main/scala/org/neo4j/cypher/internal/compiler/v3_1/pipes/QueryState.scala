@@ -26,6 +26,7 @@ import org.neo4j.cypher.internal.compiler.v3_1._
 import org.neo4j.cypher.internal.compiler.v3_1.commands.expressions.PathValueBuilder
 import org.neo4j.cypher.internal.compiler.v3_1.commands.predicates.{InCheckContainer, SingleThreadedLRUCache}
 import org.neo4j.cypher.internal.compiler.v3_1.helpers.{IdentityTypeConverter, RuntimeTypeConverter}
+import org.neo4j.cypher.internal.compiler.v3_1.pipes.spill.QueryMemoryBudget
 import org.neo4j.cypher.internal.compiler.v3_1.spi.QueryContext
 import org.neo4j.cypher.internal.frontend.v3_1.ParameterNotFoundException
 
@@ -42,7 +43,8 @@ class QueryState(val query: QueryContext,
                  val repeatableReads: mutable.Map[Pipe, Seq[ExecutionContext]] = mutable.Map.empty,
                  val typeConverter: RuntimeTypeConverter = IdentityTypeConverter,
                  val cachedIn: SingleThreadedLRUCache[Any, InCheckContainer] =
-                   new SingleThreadedLRUCache(maxSize = 16)) {
+                   new SingleThreadedLRUCache(maxSize = 16),
+                 val memoryBudget: QueryMemoryBudget = QueryMemoryBudget.unbounded) {
   private var _pathValueBuilder: PathValueBuilder = null
 
   def clearPathValueBuilder = {
@@ -60,13 +62,21 @@ class QueryState(val query: QueryContext,
   def getStatistics = query.getOptStatistics.getOrElse(QueryState.defaultStatistics)
 
   def withDecorator(decorator: PipeDecorator) =
-    new QueryState(query, resources, params, decorator, timeReader, initialContext, queryId, triadicState, repeatableReads, typeConverter, cachedIn)
+    new QueryState(query, resources, params, decorator, timeReader, initialContext, queryId, triadicState, repeatableReads, typeConverter, cachedIn, memoryBudget)
 
   def withInitialContext(initialContext: ExecutionContext) =
-    new QueryState(query, resources, params, decorator, timeReader, Some(initialContext), queryId, triadicState, repeatableReads, typeConverter, cachedIn)
+    new QueryState(query, resources, params, decorator, timeReader, Some(initialContext), queryId, triadicState, repeatableReads, typeConverter, cachedIn, memoryBudget)
 
   def withQueryContext(query: QueryContext) =
-    new QueryState(query, resources, params, decorator, timeReader, initialContext, queryId, triadicState, repeatableReads, typeConverter, cachedIn)
+    new QueryState(query, resources, params, decorator, timeReader, initialContext, queryId, triadicState, repeatableReads, typeConverter, cachedIn, memoryBudget)
+
+  /*
+  State for executing pipes on another thread with the given query context. The caches are not thread safe, so the
+  new state gets empty ones of its own. The memory budget is shared, it covers the query as a whole.
+   */
+  def forWorker(query: QueryContext) =
+    new QueryState(query, resources, params, decorator, timeReader, initialContext, queryId,
+                   typeConverter = typeConverter, memoryBudget = memoryBudget)
 }
 
 object QueryState {
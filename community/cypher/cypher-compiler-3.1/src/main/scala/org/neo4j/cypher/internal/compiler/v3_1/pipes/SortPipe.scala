@@ -19,6 +19,7 @@
  */
 package org.neo4j.cypher.internal.compiler.v3_1.pipes
 
+import org.neo4j.cypher.internal.compiler.v3_1.pipes.spill.ExternalMergeSort
 import org.neo4j.cypher.internal.compiler.v3_1.planDescription.InternalPlanDescription.Arguments.KeyNames
 import org.neo4j.cypher.internal.compiler.v3_1.{Comparer, ExecutionContext}
 
@@ -26,9 +27,13 @@ case class SortPipe(source: Pipe, orderBy: Seq[SortDescription])
                    (val estimatedCardinality: Option[Double] = None)(implicit monitor: PipeMonitor)
   extends PipeWithSource(source, monitor) with RonjaPipe with NoEffectsPipe {
   protected def internalCreateResults(input: Iterator[ExecutionContext], state: QueryState): Iterator[ExecutionContext] = {
-    val array = input.toArray
-    java.util.Arrays.sort(array, new InnerOrdering(orderBy)(state))
-    array.toIterator
+    if (state.memoryBudget.isBounded)
+      ExternalMergeSort(input, new InnerOrdering(orderBy)(state), state)
+    else {
+      val array = input.toArray
+      java.util.Arrays.sort(array, new InnerOrdering(orderBy)(state))
+      array.toIterator
+    }
   }
 
   def planDescriptionWithoutCardinality = source.planDescription.andThen(this.id, "Sort", variables, KeyNames(orderBy.map(_.id)))
@@ -23,6 +23,7 @@ import org.neo4j.cypher.internal.compiler.v3_1.ExecutionContext
 import org.neo4j.cypher.internal.compiler.v3_1.commands.expressions.Expression
 import org.neo4j.cypher.internal.compiler.v3_1.commands.predicates.Equivalent
 import org.neo4j.cypher.internal.compiler.v3_1.executionplan.Effects
+import org.neo4j.cypher.internal.compiler.v3_1.pipes.spill.GraceHashJoin
 import org.neo4j.cypher.internal.compiler.v3_1.planDescription.InternalPlanDescription.Arguments.LegacyExpressions
 import org.neo4j.cypher.internal.compiler.v3_1.planDescription.{InternalPlanDescription, PlanDescriptionImpl, TwoChildren}
 
@@ -42,6 +43,14 @@ case class ValueHashJoinPipe(lhsExpression: Expression, rhsExpression: Expressio
     if (rhsIterator.isEmpty)
       return Iterator.empty
 
+    if (state.memoryBudget.isBounded) {
+      def key(expression: Expression)(context: ExecutionContext): Equivalent = expression(context) match {
+        case null => null
+        case value => Equivalent(value)
+      }
+      return new GraceHashJoin(key(lhsExpression) _, key(rhsExpression) _, state).apply(input, rhsIterator)
+    }
+
     val table = buildProbeTable(input)
 
     if (table.isEmpty)
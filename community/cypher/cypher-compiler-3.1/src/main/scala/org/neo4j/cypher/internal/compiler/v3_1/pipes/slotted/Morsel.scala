@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v3_1.pipes.slotted
+
+import org.neo4j.cypher.internal.compiler.v3_1.ExecutionContext
+import org.neo4j.graphdb.Node
+
+/*
+A batch of rows sharing the slot layout of a pipeline. Slots are stored column by column, so the values of one slot
+for all rows of the morsel are next to each other in memory. Pipes that support it hand whole morsels to each other
+instead of pulling rows one at a time.
+ */
+class Morsel(val pipeline: PipelineInformation, val capacity: Int) {
+
+  private val longs = new Array[Long](pipeline.numberOfLongs * capacity)
+  private val refs = new Array[Any](pipeline.numberOfReferences * capacity)
+
+  var validRows: Int = 0
+
+  def isFull: Boolean = validRows == capacity
+
+  def getLong(row: Int, offset: Int): Long = longs(offset * capacity + row)
+
+  def setLong(row: Int, offset: Int, value: Long): Unit = longs(offset * capacity + row) = value
+
+  def getRef(row: Int, offset: Int): Any = refs(offset * capacity + row)
+
+  def setRef(row: Int, offset: Int, value: Any): Unit = refs(offset * capacity + row) = value
+
+  def copyRow(from: Int, target: Morsel, to: Int): Unit = {
+    var offset = 0
+    while (offset < pipeline.numberOfLongs) {
+      target.setLong(to, offset, getLong(from, offset))
+      offset += 1
+    }
+    offset = 0
+    while (offset < pipeline.numberOfReferences) {
+      target.setRef(to, offset, getRef(from, offset))
+      offset += 1
+    }
+  }
+}
+
+object Morsel {
+  val DEFAULT_SIZE = 1024
+
+  /*
+  Packs the ids of the given nodes into morsels, writing them to the given long slot.
+   */
+  def fromNodes(pipeline: PipelineInformation, offset: Int, nodes: Iterator[Node]): Iterator[Morsel] =
+    new Iterator[Morsel] {
+      def hasNext: Boolean = nodes.hasNext
+
+      def next(): Morsel = {
+        val morsel = new Morsel(pipeline, DEFAULT_SIZE)
+        while (!morsel.isFull && nodes.hasNext) {
+          morsel.setLong(morsel.validRows, offset, nodes.next().getId)
+          morsel.validRows += 1
+        }
+        morsel
+      }
+    }
+
+  /*
+  Presents the rows of the given morsels as execution contexts, for pipes that consume rows one at a time. The same
+  context is moved from row to row, so it must not be kept around after asking for the next row.
+   */
+  def rows(pipeline: PipelineInformation, morsels: Iterator[Morsel]): Iterator[ExecutionContext] =
+    new Iterator[ExecutionContext] {
+      private val cursor = new MorselExecutionContext(pipeline)
+      private var current: Morsel = null
+      private var row = 0
+
+      def hasNext: Boolean = {
+        while ((current == null || row >= current.validRows) && morsels.hasNext) {
+          current = morsels.next()
+          row = 0
+        }
+        current != null && row < current.validRows
+      }
+
+      def next(): ExecutionContext = {
+        if (!hasNext)
+          Iterator.empty.next()
+        cursor.moveTo(current, row)
+        row += 1
+        cursor
+      }
+    }
+}
+
+/*
+A slotted execution context that reads and writes the slots of one row of a morsel. It is used to evaluate
+expressions against the rows of a morsel without materializing them. Cloning it copies the row out of the morsel.
+ */
+class MorselExecutionContext(pipeline: PipelineInformation) extends SlottedExecutionContext(pipeline) {
+
+  private var morsel: Morsel = null
+  private var row = 0
+
+  def moveTo(morsel: Morsel, row: Int): Unit = {
+    this.morsel = morsel
+    this.row = row
+  }
+
+  override def getLong(offset: Int): Long = morsel.getLong(row, offset)
+
+  override def setLong(offset: Int, value: Long): Unit = morsel.setLong(row, offset, value)
+
+  override def getRef(offset: Int): Any = morsel.getRef(row, offset)
+
+  override def setRef(offset: Int, value: Any): Unit = morsel.setRef(row, offset, value)
+
+  override protected def copySlotsTo(targetLongs: Array[Long], targetRefs: Array[Any]): Unit = {
+    var offset = 0
+    while (offset < targetLongs.length) {
+      targetLongs(offset) = morsel.getLong(row, offset)
+      offset += 1
+    }
+    offset = 0
+    while (offset < targetRefs.length) {
+      targetRefs(offset) = morsel.getRef(row, offset)
+      offset += 1
+    }
+  }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v3_1.pipes.slotted
+
+import org.neo4j.cypher.internal.compiler.v3_1.ExecutionContext
+import org.neo4j.cypher.internal.compiler.v3_1.pipes.{NullPipeDecorator, Pipe, PipeMonitor, PipeWithSource, QueryState}
+
+/*
+A slotted pipe that, next to producing rows, can produce its results as morsels.
+ */
+trait MorselPipe extends Pipe {
+  def pipeline: PipelineInformation
+
+  /*
+  Produces the results of this pipe as morsels, given the morsels produced by the scan at the bottom of the chain.
+  This lets parallel execution hand the morsels of one scan out to several copies of the rest of the chain.
+   */
+  def createMorsels(state: QueryState, scanned: Iterator[Morsel]): Iterator[Morsel]
+
+  def createMorsels(state: QueryState): Iterator[Morsel] = createMorsels(state, scan.scanMorsels(state))
+
+  def scan: MorselScanPipe = sources.head match {
+    case source: MorselPipe => source.scan
+  }
+
+  /*
+  Morsels bypass the pipe decorators, which count rows and db hits per pipe, so they are only used when nothing is
+  being profiled, and only when every pipe below this one can produce morsels as well.
+   */
+  def canCreateMorsels(state: QueryState): Boolean =
+    (state.decorator eq NullPipeDecorator) && sources.forall {
+      case source: MorselPipe => source.canCreateMorsels(state)
+      case _ => false
+    }
+
+  protected def sourceMorsels(state: QueryState, scanned: Iterator[Morsel]): Iterator[Morsel] = sources.head match {
+    case source: MorselPipe => source.createMorsels(state, scanned)
+  }
+}
+
+/*
+A leaf pipe that can produce its results as morsels.
+ */
+trait MorselScanPipe extends MorselPipe {
+  def scanMorsels(state: QueryState): Iterator[Morsel]
+
+  override def scan: MorselScanPipe = this
+
+  def createMorsels(state: QueryState, scanned: Iterator[Morsel]): Iterator[Morsel] = scanned
+}
+
+/*
+A pipe that consumes the rows of its source one at a time, but pulls them out of morsels when the source can
+produce them.
+ */
+abstract class MorselConsumerPipe(source: Pipe, monitor: PipeMonitor) extends PipeWithSource(source, monitor) {
+  override def createResults(state: QueryState): Iterator[ExecutionContext] = sources.head match {
+    case source: MorselPipe if source.canCreateMorsels(state) =>
+      consumeMorsels(source, state)
+    case _ =>
+      super.createResults(state)
+  }
+
+  protected def consumeMorsels(source: MorselPipe, state: QueryState): Iterator[ExecutionContext] =
+    internalCreateResults(Morsel.rows(source.pipeline, source.createMorsels(state)), state)
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v3_1.pipes.slotted
+
+import java.util.concurrent._
+import java.util.concurrent.atomic.{AtomicBoolean, AtomicReference}
+
+import org.neo4j.cypher.internal.compiler.v3_1.pipes.QueryState
+
+import scala.collection.mutable.ArrayBuffer
+import scala.util.Try
+
+/*
+Executes the chain of morsel pipes below a consumer on several threads. The thread executing the query runs the scan
+at the bottom of the chain, and hands its morsels out through a bounded queue. Every worker pushes the morsels it takes
+through the rest of the chain, in a read-only transaction of its own, and reduces them to a partial result. The
+consumer then merges the partial results of all workers.
+
+The workers run on the given executor, which is owned by the database, so that no worker thread outlives it.
+ */
+class MorselWorkers(val parallelism: Int, executor: Executor) {
+
+  import MorselWorkers._
+
+  /*
+  Workers read in transactions of their own, so they can not be used once the transaction executing the query has
+  changed anything.
+   */
+  def canRun(state: QueryState): Boolean = parallelism > 1 && !state.query.transactionHasChanges
+
+  def run[T](source: MorselPipe, state: QueryState)(work: (Iterator[Morsel], QueryState) => T): Seq[T] = {
+    val queue = new ArrayBlockingQueue[Morsel](parallelism * 2)
+    val stopped = new AtomicBoolean()
+    val failure = new AtomicReference[Throwable]()
+
+    val tasks = (0 until parallelism).map { _ =>
+      new FutureTask[T](new Callable[T] {
+        override def call(): T =
+          try {
+            state.query.withReadOnlyWorkerContext { query =>
+              val workerState = state.forWorker(query)
+              work(source.createMorsels(workerState, new QueuedMorsels(queue, stopped)), workerState)
+            }
+          } catch {
+            case t: Throwable =>
+              failure.compareAndSet(null, t)
+              stopped.set(true)
+              throw t
+          }
+      })
+    }
+    val started = new ArrayBuffer[FutureTask[T]]
+
+    try {
+      tasks.foreach { task =>
+        executor.execute(task)
+        started += task
+      }
+      val scanned = source.scan.scanMorsels(state)
+      while (scanned.hasNext && !stopped.get()) {
+        hand(queue, scanned.next(), stopped)
+      }
+      hand(queue, END, stopped)
+    } catch {
+      case t: Throwable =>
+        stopped.set(true)
+        started.foreach(task => Try(task.get()))
+        throw t
+    }
+
+    val results = tasks.map(task => Try(task.get()))
+    // Workers that fail after another one stopped them must not hide the failure that stopped them
+    if (failure.get() != null)
+      throw failure.get()
+    results.map(_.get)
+  }
+
+  private def hand(queue: BlockingQueue[Morsel], morsel: Morsel, stopped: AtomicBoolean): Unit =
+    while (!stopped.get() && !queue.offer(morsel, POLL_MILLIS, TimeUnit.MILLISECONDS)) {}
+}
+
+object MorselWorkers {
+  val serial = new MorselWorkers(1, new Executor {
+    override def execute(command: Runnable): Unit =
+      throw new IllegalStateException("Serial execution does not hand out work to workers")
+  })
+
+  def apply(workers: Int, executor: Executor): MorselWorkers =
+    new MorselWorkers(if (workers > 0) workers else Runtime.getRuntime.availableProcessors(), executor)
+
+  private val POLL_MILLIS = 10
+
+  /*
+  Marks the end of the scan. The worker that takes it puts it back, so that every worker gets to see it.
+   */
+  private val END = new Morsel(PipelineInformation.empty, 0)
+
+  private class QueuedMorsels(queue: BlockingQueue[Morsel], stopped: AtomicBoolean) extends Iterator[Morsel] {
+    private var nextMorsel: Morsel = null
+    private var done = false
+
+    def hasNext: Boolean = {
+      while (nextMorsel == null && !done) {
+        if (stopped.get()) {
+          done = true
+        } else {
+          val morsel = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS)
+          if (morsel eq END) {
+            queue.put(END)
+            done = true
+          } else {
+            nextMorsel = morsel
+          }
+        }
+      }
+      nextMorsel != null
+    }
+
+    def next(): Morsel = {
+      if (!hasNext)
+        Iterator.empty.next()
+      val morsel = nextMorsel
+      nextMorsel = null
+      morsel
+    }
+  }
+}
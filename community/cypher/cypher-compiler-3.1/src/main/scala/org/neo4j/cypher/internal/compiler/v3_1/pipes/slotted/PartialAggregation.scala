@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v3_1.pipes.slotted
+
+import org.neo4j.cypher.internal.compiler.v3_1.ExecutionContext
+import org.neo4j.cypher.internal.compiler.v3_1.commands.expressions._
+import org.neo4j.cypher.internal.compiler.v3_1.pipes.QueryState
+import org.neo4j.cypher.internal.compiler.v3_1.pipes.aggregation.{AggregationFunction, MaxFunction, MinFunction, SumFunction}
+
+import scala.collection.mutable.ListBuffer
+
+/*
+Aggregations that can be split between workers. Every worker aggregates its own share of the rows, after which the
+partial results are aggregated once more: counts and sums are summed up, minimums and maximums are taken again and
+collected lists are concatenated. Other aggregations, like averages, percentiles and anything distinct, can not be
+split like this.
+ */
+object PartialAggregation {
+  val PartialResultKey = "  partialResult"
+
+  private val partialResult = Variable(PartialResultKey)
+
+  /*
+  Creates the aggregation function that reduces the partial results of the given aggregation, read from the
+  PartialResultKey of the rows it is applied to.
+   */
+  def reducer(aggregation: AggregationExpression): Option[() => AggregationFunction] = aggregation match {
+    case _: CountStar | _: Count | _: Sum => Some(() => new SumFunction(partialResult))
+    case _: Min => Some(() => new MinFunction(partialResult))
+    case _: Max => Some(() => new MaxFunction(partialResult))
+    case _: Collect => Some(() => new ConcatenateFunction(partialResult))
+    case _ => None
+  }
+
+  private class ConcatenateFunction(value: Expression) extends AggregationFunction {
+    private val collection = new ListBuffer[Any]()
+
+    def apply(data: ExecutionContext)(implicit state: QueryState) {
+      collection ++= value(data).asInstanceOf[Iterable[Any]]
+    }
+
+    def result: Any = collection.toIndexedSeq
+  }
+}
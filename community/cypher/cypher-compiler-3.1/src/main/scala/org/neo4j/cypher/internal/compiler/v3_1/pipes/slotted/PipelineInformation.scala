@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v3_1.pipes.slotted
+
+import org.neo4j.cypher.internal.compiler.v3_1.planner.CantCompileQueryException
+import org.neo4j.cypher.internal.frontend.v3_1.symbols.CypherType
+
+/*
+A slot is a fixed position in the arrays backing a SlottedExecutionContext. Nodes and relationships produced by the
+pipes live in long slots, holding only their id, everything else lives in reference slots.
+ */
+sealed trait Slot {
+  def offset: Int
+  def typ: CypherType
+}
+
+case class LongSlot(offset: Int, typ: CypherType) extends Slot
+
+case class RefSlot(offset: Int, typ: CypherType) extends Slot
+
+/*
+Describes the layout of the rows flowing through a pipeline: which slot every variable has been given and how big the
+arrays of a row have to be. All rows of a pipeline share the same layout, so a row can be allocated once at the leaf
+and then be copied or updated in place by the pipes above it.
+ */
+case class PipelineInformation(slots: Map[String, Slot], numberOfLongs: Int, numberOfReferences: Int) {
+
+  def newLong(name: String, typ: CypherType): PipelineInformation = {
+    if (slots.contains(name))
+      throw new CantCompileQueryException(s"Variable `$name` has already been given a slot")
+    copy(slots = slots + (name -> LongSlot(numberOfLongs, typ)), numberOfLongs = numberOfLongs + 1)
+  }
+
+  def newReference(name: String, typ: CypherType): PipelineInformation = {
+    if (slots.contains(name))
+      throw new CantCompileQueryException(s"Variable `$name` has already been given a slot")
+    copy(slots = slots + (name -> RefSlot(numberOfReferences, typ)), numberOfReferences = numberOfReferences + 1)
+  }
+
+  def getLongOffsetFor(name: String): Int = slots.get(name) match {
+    case Some(LongSlot(offset, _)) => offset
+    case _ => throw new CantCompileQueryException(s"Variable `$name` is not stored in a long slot")
+  }
+
+  def getReferenceOffsetFor(name: String): Int = slots.get(name) match {
+    case Some(RefSlot(offset, _)) => offset
+    case _ => throw new CantCompileQueryException(s"Variable `$name` is not stored in a reference slot")
+  }
+}
+
+object PipelineInformation {
+  val empty = PipelineInformation(Map.empty, 0, 0)
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v3_1.pipes.slotted
+
+import org.neo4j.cypher.internal.compiler.v3_1.ExecutionContext
+import org.neo4j.cypher.internal.compiler.v3_1.commands.expressions.{AggregationExpression, Expression}
+import org.neo4j.cypher.internal.compiler.v3_1.commands.predicates.Equivalent
+import org.neo4j.cypher.internal.compiler.v3_1.pipes._
+import org.neo4j.cypher.internal.compiler.v3_1.pipes.aggregation.AggregationFunction
+import org.neo4j.cypher.internal.compiler.v3_1.planDescription.InternalPlanDescription.Arguments
+import org.neo4j.cypher.internal.compiler.v3_1.symbols.SymbolTable
+
+import scala.collection.mutable
+
+/*
+Slotted version of eager aggregation, and of distinct when there are no aggregations. Grouping keys held in long slots
+are grouped on their ids, without looking up the nodes or relationships behind them. Incoming rows are read straight
+out of the morsels of the source when it can produce them. With more than one worker, and aggregations that can be
+split between them, every worker aggregates the morsels it gets and the partial results are merged at the end.
+ */
+case class SlottedEagerAggregationPipe(source: Pipe, groupingExpressions: Map[String, Expression],
+                                       aggregations: Map[String, AggregationExpression], pipeline: PipelineInformation,
+                                       workers: MorselWorkers)
+                                      (val estimatedCardinality: Option[Double] = None)
+                                      (implicit pipeMonitor: PipeMonitor)
+  extends MorselConsumerPipe(source, pipeMonitor) with RonjaPipe with NoEffectsPipe {
+
+  val symbols: SymbolTable = createSymbols()
+
+  private def createSymbols() = {
+    val keyVariables = groupingExpressions.map {
+      case (id, exp) => id -> exp.getType(source.symbols)
+    }
+    val aggrVariables = aggregations.map {
+      case (innerId, exp) => innerId -> exp.getType(source.symbols)
+    }
+
+    SymbolTable(keyVariables ++ aggrVariables)
+  }
+
+  private val keys: Array[GroupingKey] = groupingExpressions.toArray.map {
+    case (name, expression) => pipeline.slots(name) match {
+      case LongSlot(offset, _) => LongKey(offset)
+      case RefSlot(offset, _) => RefKey(offset, expression)
+    }
+  }
+  private val aggregationsInOrder: Array[(String, AggregationExpression)] = aggregations.toArray
+  private val aggregationExpressions: Array[AggregationExpression] = aggregationsInOrder.map(_._2)
+  private val aggregationOffsets: Array[Int] = aggregationsInOrder.map(a => pipeline.getReferenceOffsetFor(a._1))
+  private val reducers: Option[Array[() => AggregationFunction]] = {
+    val found = aggregationExpressions.map(PartialAggregation.reducer)
+    if (found.forall(_.isDefined)) Some(found.map(_.get)) else None
+  }
+
+  protected def internalCreateResults(input: Iterator[ExecutionContext], state: QueryState) = {
+    //register as parent so that stats are associated with this pipe
+    state.decorator.registerParentPipe(this)
+
+    resultRows(aggregate(input, state))
+  }
+
+  override protected def consumeMorsels(source: MorselPipe, state: QueryState): Iterator[ExecutionContext] =
+    reducers match {
+      case Some(reducerFactories) if workers.canRun(state) =>
+        val partials = workers.run(source, state) { (morsels, workerState) =>
+          aggregate(Morsel.rows(source.pipeline, morsels), workerState)
+        }
+        resultRows(merge(partials, reducerFactories, state))
+
+      case _ =>
+        super.consumeMorsels(source, state)
+    }
+
+  private def aggregate(input: Iterator[ExecutionContext], state: QueryState) = {
+    val result = mutable.Map[Any, Array[AggregationFunction]]()
+
+    input.foreach { case ctx: SlottedExecutionContext =>
+      val functions = result.getOrElseUpdate(groupingKey(ctx, state),
+                                             aggregationExpressions.map(_.createAggregationFunction))
+      var i = 0
+      while (i < functions.length) {
+        functions(i)(ctx)(state)
+        i += 1
+      }
+    }
+    result
+  }
+
+  private def merge(partials: Seq[mutable.Map[Any, Array[AggregationFunction]]],
+                    reducerFactories: Array[() => AggregationFunction], state: QueryState) = {
+    val result = mutable.Map[Any, Array[AggregationFunction]]()
+    val partialRow = ExecutionContext.empty
+
+    partials.foreach(_.foreach {
+      case (key, functions) =>
+        val reduced = result.getOrElseUpdate(key, reducerFactories.map(_.apply()))
+        var i = 0
+        while (i < functions.length) {
+          partialRow += PartialAggregation.PartialResultKey -> functions(i).result
+          reduced(i)(partialRow)(state)
+          i += 1
+        }
+    })
+    result
+  }
+
+  private def resultRows(result: mutable.Map[Any, Array[AggregationFunction]]): Iterator[ExecutionContext] =
+    if (result.isEmpty && keys.isEmpty) {
+      val row = new SlottedExecutionContext(pipeline)
+      writeAggregates(row, aggregationExpressions.map(_.createAggregationFunction))
+      Iterator.single(row)
+    } else {
+      result.iterator.map {
+        case (key, functions) =>
+          val row = new SlottedExecutionContext(pipeline)
+          writeGroupingKey(row, key)
+          writeAggregates(row, functions)
+          row
+      }
+    }
+
+  private def groupingKey(ctx: SlottedExecutionContext, state: QueryState): Any =
+    if (keys.length == 1) keyValue(ctx, keys(0), state)
+    else keys.map(keyValue(ctx, _, state)).toList
+
+  private def keyValue(ctx: SlottedExecutionContext, key: GroupingKey, state: QueryState): Any = key match {
+    case LongKey(offset) => ctx.getLong(offset)
+    case RefKey(_, expression) => Equivalent(expression(ctx)(state))
+  }
+
+  private def writeGroupingKey(row: SlottedExecutionContext, key: Any): Unit =
+    if (keys.length == 1) writeKeyValue(row, keys(0), key)
+    else keys.zip(key.asInstanceOf[List[Any]]).foreach {
+      case (slot, value) => writeKeyValue(row, slot, value)
+    }
+
+  private def writeKeyValue(row: SlottedExecutionContext, key: GroupingKey, value: Any): Unit = key match {
+    case LongKey(offset) => row.setLong(offset, value.asInstanceOf[Long])
+    case RefKey(offset, _) => row.setRef(offset, value.asInstanceOf[Equivalent].originalValue)
+  }
+
+  private def writeAggregates(row: SlottedExecutionContext, functions: Array[AggregationFunction]): Unit = {
+    var i = 0
+    while (i < functions.length) {
+      row.setRef(aggregationOffsets(i), functions(i).result)
+      i += 1
+    }
+  }
+
+  def planDescriptionWithoutCardinality = {
+    val name = if (aggregations.isEmpty) "Distinct" else "EagerAggregation"
+    source.planDescription.andThen(this.id, name, variables, Arguments.KeyNames(groupingExpressions.keys.toSeq))
+  }
+
+  def dup(sources: List[Pipe]): Pipe = {
+    val (source :: Nil) = sources
+    copy(source = source)(estimatedCardinality)
+  }
+
+  def withEstimatedCardinality(estimated: Double) = copy()(Some(estimated))
+}
+
+/*
+How a grouping key is read from the incoming rows and written to the result rows, either as an id in a long slot or
+as the value of an expression in a reference slot.
+ */
+private sealed trait GroupingKey
+
+private case class LongKey(offset: Int) extends GroupingKey
+
+private case class RefKey(offset: Int, expression: Expression) extends GroupingKey
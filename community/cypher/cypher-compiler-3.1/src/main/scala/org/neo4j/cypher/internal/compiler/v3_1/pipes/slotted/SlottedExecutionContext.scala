@@ -0,0 +1,217 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v3_1.pipes.slotted
+
+import java.util
+
+import org.neo4j.cypher.internal.compiler.v3_1.ExecutionContext
+import org.neo4j.cypher.internal.compiler.v3_1.pipes.MutableMaps
+import org.neo4j.cypher.internal.frontend.v3_1.InternalException
+
+import scala.collection.mutable.{Map => MutableMap}
+import scala.collection.{Iterator, immutable}
+
+/*
+An execution context that stores its values in arrays, at the offsets handed out by slot allocation, instead of in a
+hash map. Nodes and relationships are kept as primitive ids in long slots and are only ever read through their slot,
+other values can still be reached by name so that the expressions of the interpreted runtime keep working on it.
+Variables that have not been given a slot, like the ones introduced by list comprehensions while they are being
+evaluated, end up in a small map that is only created when it is needed.
+
+The map the base class is given is a view of the row itself, so that the members inherited from ExecutionContext, and
+code that reads the map of a row directly, see the same values as the row.
+ */
+class SlottedExecutionContext private(val pipeline: PipelineInformation, view: SlottedExecutionContext.RowView)
+  extends ExecutionContext(view) {
+
+  def this(pipeline: PipelineInformation) = this(pipeline, new SlottedExecutionContext.RowView)
+
+  view.row = this
+
+  private val longs = new Array[Long](pipeline.numberOfLongs)
+  private val refs = new Array[Any](pipeline.numberOfReferences)
+  private var extra: MutableMap[String, Any] = null
+
+  def getLong(offset: Int): Long = longs(offset)
+
+  def setLong(offset: Int, value: Long): Unit = longs(offset) = value
+
+  def getRef(offset: Int): Any = refs(offset)
+
+  def setRef(offset: Int, value: Any): Unit = refs(offset) = value
+
+  def copyFrom(other: SlottedExecutionContext): Unit = {
+    if (other.pipeline ne pipeline)
+      throw new InternalException("Can only copy rows that share the same slot layout")
+
+    other.copySlotsTo(longs, refs)
+    extra = if (other.extra == null) null else other.extra.clone()
+  }
+
+  protected def copySlotsTo(targetLongs: Array[Long], targetRefs: Array[Any]): Unit = {
+    System.arraycopy(longs, 0, targetLongs, 0, longs.length)
+    System.arraycopy(refs, 0, targetRefs, 0, refs.length)
+  }
+
+  override def get(key: String): Option[Any] = pipeline.slots.get(key) match {
+    case Some(RefSlot(offset, _)) => Some(getRef(offset))
+    case Some(_: LongSlot) => throw longSlotAccessedByName(key)
+    case None => if (extra == null) None else extra.get(key)
+  }
+
+  override def contains(key: String): Boolean =
+    pipeline.slots.contains(key) || (extra != null && extra.contains(key))
+
+  override def iterator: Iterator[(String, Any)] = {
+    val slotted = pipeline.slots.iterator.collect {
+      case (name, RefSlot(offset, _)) => name -> getRef(offset)
+    }
+    if (extra == null) slotted else slotted ++ extra.iterator
+  }
+
+  override def size: Int = pipeline.numberOfReferences + (if (extra == null) 0 else extra.size)
+
+  override def ++(other: ExecutionContext): ExecutionContext = {
+    val result = clone()
+    other.foreach(result += _)
+    result
+  }
+
+  override def foreach[U](f: ((String, Any)) => U) {
+    iterator.foreach(f)
+  }
+
+  override def +=(kv: (String, Any)): this.type = {
+    val (key, value) = kv
+    pipeline.slots.get(key) match {
+      case Some(RefSlot(offset, _)) => setRef(offset, value)
+      case Some(_: LongSlot) => throw longSlotAccessedByName(key)
+      case None =>
+        if (extra == null)
+          extra = MutableMaps.empty
+        extra.put(key, value)
+    }
+    this
+  }
+
+  override def -=(key: String): this.type = {
+    if (pipeline.slots.contains(key))
+      throw new InternalException(s"Variable `$key` has a slot and can not be removed from the row")
+    if (extra != null)
+      extra -= key
+    this
+  }
+
+  override def toMap[T, U](implicit ev: (String, Any) <:< (T, U)): immutable.Map[T, U] = {
+    val builder = immutable.Map.newBuilder[T, U]
+    foreach(kv => builder += ev(kv))
+    builder.result()
+  }
+
+  override def newWith(newEntries: Seq[(String, Any)]): ExecutionContext = {
+    val result = clone()
+    newEntries.foreach(result += _)
+    result
+  }
+
+  override def newWith(newEntries: scala.collection.Map[String, Any]): ExecutionContext = {
+    val result = clone()
+    newEntries.foreach(result += _)
+    result
+  }
+
+  override def newFrom(newEntries: Seq[(String, Any)]): ExecutionContext = {
+    val result = new SlottedExecutionContext(pipeline)
+    newEntries.foreach(result += _)
+    result
+  }
+
+  override def newFromMutableMap(newEntries: MutableMap[String, Any]): ExecutionContext = {
+    val result = new SlottedExecutionContext(pipeline)
+    newEntries.foreach(result += _)
+    result
+  }
+
+  override def newWith(newEntry: (String, Any)): ExecutionContext = clone() += newEntry
+
+  override def newWith1(key1: String, value1: Any): ExecutionContext = clone() += (key1 -> value1)
+
+  override def newWith2(key1: String, value1: Any, key2: String, value2: Any): ExecutionContext = {
+    val result = clone()
+    result += (key1 -> value1)
+    result += (key2 -> value2)
+  }
+
+  override def newWith3(key1: String, value1: Any, key2: String, value2: Any, key3: String, value3: Any): ExecutionContext = {
+    val result = clone()
+    result += (key1 -> value1)
+    result += (key2 -> value2)
+    result += (key3 -> value3)
+  }
+
+  override def clone(): SlottedExecutionContext = {
+    val result = new SlottedExecutionContext(pipeline)
+    result.copyFrom(this)
+    result
+  }
+
+  override protected def createWithNewMap(newMap: MutableMap[String, Any]): ExecutionContext =
+    newFromMutableMap(newMap)
+
+  override def equals(other: Any): Boolean = other match {
+    case that: SlottedExecutionContext =>
+      (that eq this) ||
+        (pipeline == that.pipeline && util.Arrays.equals(longs, that.longs) && refs.sameElements(that.refs) &&
+          extraOrEmpty == that.extraOrEmpty)
+    case _ => false
+  }
+
+  override def hashCode(): Int = 31 * util.Arrays.hashCode(longs) + refs.toSeq.hashCode()
+
+  override def toString: String =
+    s"SlottedExecutionContext(longs=${longs.mkString("[", ", ", "]")}, refs=${refs.mkString("[", ", ", "]")}, " +
+      s"extra=$extraOrEmpty)"
+
+  private def extraOrEmpty: collection.Map[String, Any] = if (extra == null) Map.empty else extra
+
+  private def longSlotAccessedByName(key: String) =
+    new InternalException(s"Variable `$key` is stored as an id and has to be read through its slot")
+}
+
+object SlottedExecutionContext {
+
+  private class RowView extends MutableMap[String, Any] {
+    var row: SlottedExecutionContext = null
+
+    override def get(key: String): Option[Any] = row.get(key)
+
+    override def iterator: Iterator[(String, Any)] = row.iterator
+
+    override def +=(kv: (String, Any)): this.type = {
+      row += kv
+      this
+    }
+
+    override def -=(key: String): this.type = {
+      row -= key
+      this
+    }
+  }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v3_1.pipes.slotted
+
+import org.neo4j.cypher.internal.compiler.v3_1.ExecutionContext
+import org.neo4j.cypher.internal.compiler.v3_1.executionplan.{Effects, ReadsAllNodes, ReadsAllRelationships}
+import org.neo4j.cypher.internal.compiler.v3_1.pipes._
+import org.neo4j.cypher.internal.compiler.v3_1.planDescription.InternalPlanDescription.Arguments.ExpandExpression
+import org.neo4j.cypher.internal.frontend.v3_1.SemanticDirection
+import org.neo4j.cypher.internal.frontend.v3_1.symbols._
+import org.neo4j.graphdb.{Node, Relationship}
+
+/*
+Expands from a node held in a long slot. Every produced row is a copy of the incoming one, with the ids of the
+relationship and the node on the other side written into their slots. When producing morsels, the rows of the input
+morsels are expanded into new morsels that are only handed on once they are full.
+ */
+case class SlottedExpandAllPipe(source: Pipe,
+                                fromName: String,
+                                relName: String,
+                                toName: String,
+                                dir: SemanticDirection,
+                                types: LazyTypes,
+                                pipeline: PipelineInformation)(val estimatedCardinality: Option[Double] = None)
+                               (implicit pipeMonitor: PipeMonitor)
+  extends PipeWithSource(source, pipeMonitor) with RonjaPipe with MorselPipe {
+
+  private val fromOffset = pipeline.getLongOffsetFor(fromName)
+  private val relOffset = pipeline.getLongOffsetFor(relName)
+  private val toOffset = pipeline.getLongOffsetFor(toName)
+
+  protected def internalCreateResults(input: Iterator[ExecutionContext], state: QueryState): Iterator[ExecutionContext] = {
+    input.flatMap {
+      case row: SlottedExecutionContext =>
+        val n = state.query.nodeOps.getById(row.getLong(fromOffset))
+        state.query.getRelationshipsForIds(n, dir, types.types(state.query)).map { r =>
+          val newRow = row.clone()
+          newRow.setLong(relOffset, r.getId)
+          newRow.setLong(toOffset, r.getOtherNode(n).getId)
+          newRow
+        }
+    }
+  }
+
+  def createMorsels(state: QueryState, scanned: Iterator[Morsel]): Iterator[Morsel] = new Iterator[Morsel] {
+    private val input = sourceMorsels(state, scanned)
+    private val relTypes = types.types(state.query)
+    private var current: Morsel = null
+    private var row = -1
+    private var fromNode: Node = null
+    private var relationships: Iterator[Relationship] = Iterator.empty
+    private var nextMorsel: Morsel = null
+
+    def hasNext: Boolean = {
+      if (nextMorsel == null)
+        nextMorsel = fill()
+      nextMorsel != null
+    }
+
+    def next(): Morsel = {
+      if (!hasNext)
+        Iterator.empty.next()
+      val result = nextMorsel
+      nextMorsel = null
+      result
+    }
+
+    private def fill(): Morsel = {
+      val output = new Morsel(pipeline, Morsel.DEFAULT_SIZE)
+      while (!output.isFull && (relationships.hasNext || nextInputRow())) {
+        val r = relationships.next()
+        val outputRow = output.validRows
+        current.copyRow(row, output, outputRow)
+        output.setLong(outputRow, relOffset, r.getId)
+        output.setLong(outputRow, toOffset, r.getOtherNode(fromNode).getId)
+        output.validRows += 1
+      }
+      if (output.validRows == 0) null else output
+    }
+
+    private def nextInputRow(): Boolean = {
+      while (true) {
+        row += 1
+        while (current == null || row >= current.validRows) {
+          if (!input.hasNext)
+            return false
+          current = input.next()
+          row = 0
+        }
+        fromNode = state.query.nodeOps.getById(current.getLong(row, fromOffset))
+        relationships = state.query.getRelationshipsForIds(fromNode, dir, relTypes)
+        if (relationships.hasNext)
+          return true
+      }
+      false
+    }
+  }
+
+  def typeNames = types.names
+
+  def planDescriptionWithoutCardinality = {
+    val expandDesc = ExpandExpression(fromName, relName, typeNames, toName, dir, 1, Some(1))
+    source.planDescription.andThen(this.id, "Expand(All)", variables, expandDesc)
+  }
+
+  val symbols = source.symbols.add(toName, CTNode).add(relName, CTRelationship)
+
+  override def localEffects = Effects(ReadsAllNodes, ReadsAllRelationships)
+
+  def dup(sources: List[Pipe]): Pipe = {
+    val (source :: Nil) = sources
+    copy(source = source)(estimatedCardinality)
+  }
+
+  def withEstimatedCardinality(estimated: Double) = copy()(Some(estimated))
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v3_1.pipes.slotted
+
+import org.neo4j.cypher.internal.compiler.v3_1.ExecutionContext
+import org.neo4j.cypher.internal.compiler.v3_1.commands.predicates.Predicate
+import org.neo4j.cypher.internal.compiler.v3_1.pipes.{Pipe, PipeMonitor, PipeWithSource, QueryState, RonjaPipe}
+import org.neo4j.cypher.internal.compiler.v3_1.planDescription.InternalPlanDescription.Arguments.LegacyExpression
+
+/*
+Slotted version of filter. Morsels are filtered in place, by moving the rows that match up over the ones that do not.
+ */
+case class SlottedFilterPipe(source: Pipe, predicate: Predicate, pipeline: PipelineInformation)
+                            (val estimatedCardinality: Option[Double] = None)
+                            (implicit pipeMonitor: PipeMonitor)
+  extends PipeWithSource(source, pipeMonitor) with RonjaPipe with MorselPipe {
+  val symbols = source.symbols
+
+  protected def internalCreateResults(input: Iterator[ExecutionContext], state: QueryState) = {
+    //register as parent so that stats are associated with this pipe
+    state.decorator.registerParentPipe(this)
+
+    input.filter(ctx => predicate.isTrue(ctx)(state))
+  }
+
+  def createMorsels(state: QueryState, scanned: Iterator[Morsel]): Iterator[Morsel] = {
+    val cursor = new MorselExecutionContext(pipeline)
+    sourceMorsels(state, scanned).map { morsel =>
+      var kept = 0
+      var row = 0
+      while (row < morsel.validRows) {
+        cursor.moveTo(morsel, row)
+        if (predicate.isTrue(cursor)(state)) {
+          if (kept != row)
+            morsel.copyRow(row, morsel, kept)
+          kept += 1
+        }
+        row += 1
+      }
+      morsel.validRows = kept
+      morsel
+    }.filter(_.validRows > 0)
+  }
+
+  def planDescriptionWithoutCardinality = source.planDescription.andThen(this.id, "Filter", variables, LegacyExpression(predicate))
+
+  def dup(sources: List[Pipe]): Pipe = {
+    val (source :: Nil) = sources
+    copy(source = source)(estimatedCardinality)
+  }
+
+  override def localEffects = {
+    val predicateEffects = predicate.effects(symbols)
+    if (source.isLeaf) predicateEffects.asLeafEffects else predicateEffects
+  }
+
+  def withEstimatedCardinality(estimated: Double) = copy()(Some(estimated))
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v3_1.pipes.slotted
+
+import org.neo4j.cypher.internal.compiler.v3_1.ExecutionContext
+import org.neo4j.cypher.internal.compiler.v3_1.commands.expressions.Expression
+import org.neo4j.cypher.internal.compiler.v3_1.executionplan.Effects
+import org.neo4j.cypher.internal.compiler.v3_1.pipes._
+import org.neo4j.cypher.internal.compiler.v3_1.planDescription.InternalPlanDescription.Arguments.KeyNames
+
+/*
+Turns slotted rows back into the named rows handed to the result. Columns are read through the expressions for their
+slots, so nodes and relationships held by id are materialized here and only for the columns that are returned.
+ */
+case class SlottedProduceResultsPipe(source: Pipe, columns: Seq[(String, Expression)])
+                                    (val estimatedCardinality: Option[Double] = None)
+                                    (implicit pipeMonitor: PipeMonitor)
+  extends MorselConsumerPipe(source, pipeMonitor) with RonjaPipe {
+
+  private val columnNames: Seq[String] = columns.map(_._1)
+  private val names: Array[String] = columnNames.toArray
+  private val expressions: Array[Expression] = columns.map(_._2).toArray
+
+  protected def internalCreateResults(input: Iterator[ExecutionContext], state: QueryState) = {
+    // do not register this pipe as parent as it does not do anything except filtering of already fetched
+    // key-value pairs and thus should not have any stats
+
+    input.map {
+      original =>
+        val m = MutableMaps.create(names.length)
+        var i = 0
+        while (i < names.length) {
+          m.put(names(i), expressions(i)(original)(state))
+          i += 1
+        }
+
+        ExecutionContext(m)
+    }
+  }
+
+  def planDescriptionWithoutCardinality = source.planDescription
+    .andThen(this.id, "ProduceResults", variables, KeyNames(columnNames))
+
+  def withEstimatedCardinality(estimated: Double) = copy()(Some(estimated))
+
+  def localEffects = Effects()
+
+  def symbols = source.symbols.filter(columnNames.contains)
+
+  def dup(sources: List[Pipe]): Pipe = {
+    val (source :: Nil) = sources
+    copy(source = source)(estimatedCardinality)
+  }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v3_1.pipes.slotted
+
+import org.neo4j.cypher.internal.compiler.v3_1.ExecutionContext
+import org.neo4j.cypher.internal.compiler.v3_1.commands.expressions.Expression
+import org.neo4j.cypher.internal.compiler.v3_1.executionplan.Effects._
+import org.neo4j.cypher.internal.compiler.v3_1.pipes.{Pipe, PipeMonitor, PipeWithSource, QueryState, RonjaPipe}
+import org.neo4j.cypher.internal.compiler.v3_1.planDescription.InternalPlanDescription.Arguments.LegacyExpressions
+
+/*
+Slotted version of projection. Every expression has been given a reference slot up front, so results are written
+straight into the arrays of the row instead of being hashed into a map.
+ */
+case class SlottedProjectionPipe(source: Pipe, expressions: Map[String, Expression], pipeline: PipelineInformation)
+                                (val estimatedCardinality: Option[Double] = None)
+                                (implicit pipeMonitor: PipeMonitor)
+  extends PipeWithSource(source, pipeMonitor) with RonjaPipe with MorselPipe {
+  val symbols = {
+    val newVariables = expressions.map {
+      case (name, expression) => name -> expression.getType(source.symbols)
+    }
+
+    source.symbols.add(newVariables)
+  }
+
+  private val projections: Array[(String, Expression)] = expressions.toArray
+  private val offsets: Array[Int] = projections.map(p => pipeline.getReferenceOffsetFor(p._1))
+  private val commands: Array[Expression] = projections.map(_._2)
+
+  protected def internalCreateResults(input: Iterator[ExecutionContext], state: QueryState) = {
+    //register as parent so that stats are associated with this pipe
+    state.decorator.registerParentPipe(this)
+    input.map {
+      case ctx: SlottedExecutionContext =>
+        var i = 0
+        while (i < offsets.length) {
+          ctx.setRef(offsets(i), commands(i)(ctx)(state))
+          i += 1
+        }
+
+        ctx
+    }
+  }
+
+  def createMorsels(state: QueryState, scanned: Iterator[Morsel]): Iterator[Morsel] = {
+    val cursor = new MorselExecutionContext(pipeline)
+    sourceMorsels(state, scanned).map { morsel =>
+      var row = 0
+      while (row < morsel.validRows) {
+        cursor.moveTo(morsel, row)
+        var i = 0
+        while (i < offsets.length) {
+          morsel.setRef(row, offsets(i), commands(i)(cursor)(state))
+          i += 1
+        }
+        row += 1
+      }
+      morsel
+    }
+  }
+
+  def planDescriptionWithoutCardinality =
+    source.planDescription
+      .andThen(this.id, "Projection", variables, LegacyExpressions(expressions))
+
+  def dup(sources: List[Pipe]): Pipe = {
+    val (source :: Nil) = sources
+    copy(source = source)(estimatedCardinality)
+  }
+
+  override def localEffects = expressions.effects(symbols)
+
+  def withEstimatedCardinality(estimated: Double) = copy()(Some(estimated))
+}
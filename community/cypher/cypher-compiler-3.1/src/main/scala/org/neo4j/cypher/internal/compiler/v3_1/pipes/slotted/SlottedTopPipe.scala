@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v3_1.pipes.slotted
+
+import java.util.PriorityQueue
+
+import org.neo4j.cypher.internal.compiler.v3_1.ExecutionContext
+import org.neo4j.cypher.internal.compiler.v3_1.commands.expressions.Expression
+import org.neo4j.cypher.internal.compiler.v3_1.pipes._
+import org.neo4j.cypher.internal.compiler.v3_1.planDescription.InternalPlanDescription.Arguments.{KeyNames, LegacyExpression}
+
+/*
+Slotted version of top, for ORDER BY ... LIMIT. The top rows are kept in a heap with the last of them on top, so that
+most incoming rows are rejected after comparing them to a single row. Rows are only copied, out of the morsels of the
+source, once they make it into the heap. With more than one worker, every worker finds the top rows among the morsels
+it gets, and the top rows among those are picked at the end.
+ */
+case class SlottedTopPipe(source: Pipe, sortDescription: List[SortDescription], countExpression: Expression,
+                          pipeline: PipelineInformation, workers: MorselWorkers)
+                         (val estimatedCardinality: Option[Double] = None)
+                         (implicit pipeMonitor: PipeMonitor)
+  extends MorselConsumerPipe(source, pipeMonitor) with RonjaPipe with NoEffectsPipe {
+
+  private val sortItems: Array[SortDescription] = sortDescription.toArray
+  private val sortOffsets: Array[Int] = sortItems.map(item => pipeline.getReferenceOffsetFor(item.id))
+
+  protected def internalCreateResults(input: Iterator[ExecutionContext], state: QueryState): Iterator[ExecutionContext] = {
+    //register as parent so that stats are associated with this pipe
+    state.decorator.registerParentPipe(this)
+
+    val count = limit(state)
+    if (count <= 0)
+      Iterator.empty
+    else
+      sorted(top(input, count, state), state)
+  }
+
+  override protected def consumeMorsels(source: MorselPipe, state: QueryState): Iterator[ExecutionContext] =
+    if (workers.canRun(state)) {
+      val count = limit(state)
+      if (count <= 0)
+        Iterator.empty
+      else {
+        val partials = workers.run(source, state) { (morsels, workerState) =>
+          top(Morsel.rows(source.pipeline, morsels), count, workerState)
+        }
+        sorted(top(partials.iterator.flatMap(_.iterator), count, state), state)
+      }
+    } else {
+      super.consumeMorsels(source, state)
+    }
+
+  private def limit(state: QueryState): Int =
+    countExpression(ExecutionContext.empty)(state).asInstanceOf[Number].intValue()
+
+  private def top(input: Iterator[ExecutionContext], count: Int, state: QueryState): Array[SlottedExecutionContext] = {
+    val ordering = rowOrdering(state)
+    val heap = new PriorityQueue[SlottedExecutionContext](math.min(count, Morsel.DEFAULT_SIZE), ordering.reverse)
+
+    input.foreach { case row: SlottedExecutionContext =>
+      if (heap.size < count) {
+        heap.add(row.clone())
+      } else if (ordering.compare(row, heap.peek()) < 0) {
+        heap.poll()
+        heap.add(row.clone())
+      }
+    }
+    heap.toArray(new Array[SlottedExecutionContext](heap.size))
+  }
+
+  private def sorted(rows: Array[SlottedExecutionContext], state: QueryState): Iterator[ExecutionContext] =
+    rows.sorted(rowOrdering(state)).iterator
+
+  private def rowOrdering(implicit state: QueryState) = new Ordering[SlottedExecutionContext] {
+    override def compare(a: SlottedExecutionContext, b: SlottedExecutionContext): Int = {
+      var i = 0
+      while (i < sortItems.length) {
+        val result = sortItems(i).compareAny(a.getRef(sortOffsets(i)), b.getRef(sortOffsets(i)))
+        if (result != 0)
+          return result
+        i += 1
+      }
+      0
+    }
+  }
+
+  def symbols = source.symbols
+
+  def planDescriptionWithoutCardinality =
+    source.planDescription
+      .andThen(this.id, "Top", variables, LegacyExpression(countExpression), KeyNames(sortItems.map(_.id)))
+
+  def dup(sources: List[Pipe]): Pipe = {
+    val (source :: Nil) = sources
+    copy(source = source)(estimatedCardinality)
+  }
+
+  def withEstimatedCardinality(estimated: Double) = copy()(Some(estimated))
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v3_1.pipes.spill
+
+import java.util.{Arrays, Comparator, PriorityQueue}
+
+import org.neo4j.cypher.internal.compiler.v3_1.ExecutionContext
+import org.neo4j.cypher.internal.compiler.v3_1.pipes.QueryState
+import org.neo4j.cypher.internal.compiler.v3_1.pipes.spill.SpillFile.BUFFER_SIZE
+
+import scala.collection.mutable.ArrayBuffer
+
+/*
+External merge sort. Rows are collected until the memory budget runs out, at which point they are sorted and written
+to a file as a run. Once the input is exhausted the runs are merged, together with the rows still in memory. Rows
+that compare as equal keep their input order, the same as with the in memory sort.
+
+Every run that is being merged holds an open file and a read buffer, which are charged to the budget. So that neither
+grows with the size of the input, at most as many runs as the budget has room for buffers are merged at once, and
+when there are more runs than that, neighbouring runs are first merged into longer runs, in as many passes as it takes.
+ */
+object ExternalMergeSort {
+
+  private val MAX_FAN_IN = 64
+
+  def apply(input: Iterator[ExecutionContext], ordering: Comparator[ExecutionContext],
+            state: QueryState): Iterator[ExecutionContext] = {
+    val budget = state.memoryBudget
+    val reservation = budget.newReservation()
+    val runs = ArrayBuffer.empty[SpillFile]
+    val buffer = ArrayBuffer.empty[ExecutionContext]
+
+    input.foreach { row =>
+      if (!reservation.tryReserve(row) && buffer.nonEmpty) {
+        val run = budget.newSpillFile()
+        sorted(buffer, ordering).foreach(run.write)
+        run.finishWriting()
+        runs += run
+        buffer.clear()
+        reservation.releaseAll()
+        reservation.reserve(row)
+      }
+      buffer += row
+    }
+
+    val inMemory = sorted(buffer, ordering)
+    buffer.clear()
+    if (runs.isEmpty)
+      reservation.releasedAtEnd(inMemory.iterator)
+    else {
+      // The rows still in memory take up one of the inputs of the last merge
+      val fanIn = fanInFor(budget)
+      val lastRuns = mergeRuns(runs, fanIn, fanIn - 1, ordering, budget)
+      reservation.reserve(lastRuns.size.toLong * BUFFER_SIZE)
+      reservation.releasedAtEnd(merge(lastRuns.map(_.read()) :+ inMemory.iterator, ordering))
+    }
+  }
+
+  private def fanInFor(budget: QueryMemoryBudget): Int =
+    math.max(2L, math.min(MAX_FAN_IN, budget.maxBytes / BUFFER_SIZE)).toInt
+
+  // Only neighbouring runs are merged, so that rows that compare as equal still come out in their input order
+  private def mergeRuns(runs: Seq[SpillFile], fanIn: Int, maxRuns: Int, ordering: Comparator[ExecutionContext],
+                        budget: QueryMemoryBudget): Seq[SpillFile] = {
+    var remaining = runs
+    while (remaining.size > maxRuns) {
+      remaining = remaining.grouped(fanIn).map { group =>
+        if (group.size == 1)
+          group.head
+        else {
+          val buffers = budget.newReservation()
+          buffers.reserve(group.size.toLong * BUFFER_SIZE)
+          val run = budget.newSpillFile()
+          merge(group.map(_.read()), ordering).foreach(run.write)
+          run.finishWriting()
+          buffers.releaseAll()
+          run
+        }
+      }.toIndexedSeq
+    }
+    remaining
+  }
+
+  private def sorted(rows: ArrayBuffer[ExecutionContext], ordering: Comparator[ExecutionContext]) = {
+    val array = rows.toArray
+    Arrays.sort(array, ordering)
+    array
+  }
+
+  private def merge(runs: Seq[Iterator[ExecutionContext]],
+                    ordering: Comparator[ExecutionContext]): Iterator[ExecutionContext] = new Iterator[ExecutionContext] {
+
+    private class Head(val run: Int, var row: ExecutionContext)
+
+    private val heads = new PriorityQueue[Head](runs.size, new Comparator[Head] {
+      override def compare(a: Head, b: Head): Int = {
+        val cmp = ordering.compare(a.row, b.row)
+        if (cmp != 0) cmp else Integer.compare(a.run, b.run)
+      }
+    })
+
+    runs.indices.foreach { run =>
+      if (runs(run).hasNext)
+        heads.add(new Head(run, runs(run).next()))
+    }
+
+    override def hasNext: Boolean = !heads.isEmpty
+
+    override def next(): ExecutionContext = {
+      val head = heads.poll()
+      if (head == null)
+        Iterator.empty.next()
+      val row = head.row
+      if (runs(head.run).hasNext) {
+        head.row = runs(head.run).next()
+        heads.add(head)
+      }
+      row
+    }
+  }
+}
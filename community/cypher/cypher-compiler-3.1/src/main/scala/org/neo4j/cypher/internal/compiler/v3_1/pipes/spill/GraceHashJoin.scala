@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v3_1.pipes.spill
+
+import org.neo4j.cypher.internal.compiler.v3_1.ExecutionContext
+import org.neo4j.cypher.internal.compiler.v3_1.pipes.QueryState
+
+import scala.collection.mutable
+
+/*
+Grace hash join. The probe table is built from the left hand side for as long as the memory budget allows. If it
+runs out, the rows already in the table and all left hand side rows still to come are spilled into partitions by the
+hash of their join key, and so are all right hand side rows. Matching rows always end up in partitions with the same
+number, so the partitions can then be joined pair by pair, repartitioning again if a pair still does not fit.
+
+The key functions return null for rows that do not take part in the join.
+ */
+class GraceHashJoin[K <: AnyRef](lhsKey: ExecutionContext => K, rhsKey: ExecutionContext => K, state: QueryState) {
+
+  def apply(lhs: Iterator[ExecutionContext], rhs: Iterator[ExecutionContext]): Iterator[ExecutionContext] =
+    join(lhs, rhs, level = 0)
+
+  private def join(lhs: Iterator[ExecutionContext], rhs: Iterator[ExecutionContext],
+                   level: Int): Iterator[ExecutionContext] = {
+    val budget = state.memoryBudget
+    val canSpill = SpilledPartitions.canSpill(budget, level)
+    val reservation = budget.newReservation()
+    val table = new mutable.HashMap[K, mutable.MutableList[ExecutionContext]]
+    var lhsPartitions: SpilledPartitions = null
+
+    lhs.foreach { row =>
+      val key = lhsKey(row)
+      if (key != null) {
+        if (lhsPartitions == null && (!canSpill || reservation.tryReserve(row)))
+          table.getOrElseUpdate(key, mutable.MutableList.empty) += row
+        else {
+          if (lhsPartitions == null) {
+            lhsPartitions = new SpilledPartitions(budget, level)
+            table.foreach {
+              case (k, rows) => rows.foreach(lhsPartitions.add(k.hashCode(), _))
+            }
+            table.clear()
+            reservation.releaseAll()
+          }
+          lhsPartitions.add(key.hashCode(), row)
+        }
+      }
+    }
+
+    if (lhsPartitions == null)
+      probe(table, rhs, reservation)
+    else {
+      val rhsPartitions = new SpilledPartitions(budget, level)
+      rhs.foreach { row =>
+        val key = rhsKey(row)
+        if (key != null)
+          rhsPartitions.add(key.hashCode(), row)
+      }
+
+      lhsPartitions.partitions.iterator.flatMap { partition =>
+        if (lhsPartitions.isEmpty(partition) || rhsPartitions.isEmpty(partition)) {
+          if (!lhsPartitions.isEmpty(partition)) lhsPartitions.file(partition).delete()
+          if (!rhsPartitions.isEmpty(partition)) rhsPartitions.file(partition).delete()
+          Iterator.empty
+        } else
+          join(lhsPartitions.file(partition).read(), rhsPartitions.file(partition).read(),
+               level + 1)
+      }
+    }
+  }
+
+  private def probe(table: mutable.HashMap[K, mutable.MutableList[ExecutionContext]], rhs: Iterator[ExecutionContext],
+                    reservation: MemoryReservation): Iterator[ExecutionContext] = {
+    if (table.isEmpty) {
+      reservation.releaseAll()
+      return Iterator.empty
+    }
+
+    val result = for {context <- rhs
+                      key = rhsKey(context) if key != null}
+      yield table.getOrElse(key, mutable.MutableList.empty).map(context ++ _)
+
+    reservation.releasedAtEnd(result.flatten)
+  }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v3_1.pipes.spill
+
+import org.neo4j.cypher.internal.compiler.v3_1.ExecutionContext
+import org.neo4j.cypher.internal.compiler.v3_1.pipes.QueryState
+
+import scala.collection.mutable
+
+/*
+Distinct that keeps the keys it has seen in memory for as long as the budget allows. Once it does not, rows with keys
+that have been seen are still dropped straight away, but rows with new keys are spilled into partitions by the hash
+of their key. None of those keys can be among the ones already seen, so after the input is exhausted the seen keys
+can be let go of, and every partition is made distinct on its own.
+ */
+object PartitionedDistinct {
+
+  def apply(input: Iterator[ExecutionContext], key: ExecutionContext => AnyRef,
+            state: QueryState): Iterator[ExecutionContext] = distinct(input, key, state, level = 0)
+
+  private def distinct(input: Iterator[ExecutionContext], key: ExecutionContext => AnyRef, state: QueryState,
+                       level: Int): Iterator[ExecutionContext] = {
+    val budget = state.memoryBudget
+    val canSpill = SpilledPartitions.canSpill(budget, level)
+    val reservation = budget.newReservation()
+    var seen = mutable.Set[AnyRef]()
+    var spilled: SpilledPartitions = null
+
+    val unique = input.filter { row =>
+      val values = key(row)
+      if (seen.contains(values))
+        false
+      else if (spilled == null && (!canSpill || reservation.tryReserve(row))) {
+        seen += values
+        true
+      } else {
+        if (spilled == null)
+          spilled = new SpilledPartitions(budget, level)
+        spilled.add(values.hashCode(), row)
+        false
+      }
+    }
+
+    unique ++ {
+      seen = null
+      reservation.releaseAll()
+      if (spilled == null)
+        Iterator.empty
+      else
+        spilled.partitions.iterator.filterNot(spilled.isEmpty).flatMap { partition =>
+          distinct(spilled.file(partition).read(), key, state, level + 1)
+        }
+    }
+  }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v3_1.pipes.spill
+
+import java.io.{File, IOException}
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.atomic.AtomicLong
+
+import org.neo4j.cypher.internal.compiler.v3_1.ExecutionContext
+import org.neo4j.cypher.internal.frontend.v3_1.CypherExecutionException
+
+import scala.collection.JavaConverters._
+
+/*
+The memory that the eager operators of a single query may use together, as estimated by RowSize. Operators reserve
+memory for the rows they hold on to through a MemoryReservation, and spill rows to temporary files when a reservation
+can not be granted. An unbounded budget grants every reservation without keeping track of anything, which keeps the
+operators on their plain in memory code paths.
+ */
+class QueryMemoryBudget private(val maxBytes: Long, directory: File) {
+
+  private val reserved = new AtomicLong()
+  private val spillFiles = new ConcurrentLinkedQueue[SpillFile]()
+
+  def isBounded: Boolean = maxBytes > 0
+
+  def reservedBytes: Long = reserved.get()
+
+  def newReservation(): MemoryReservation = new MemoryReservation(this)
+
+  def newSpillFile(): SpillFile = {
+    val file = try {
+      if (directory != null && !directory.isDirectory && !directory.mkdirs() && !directory.isDirectory)
+        throw new IOException(s"Unable to create directory $directory")
+      File.createTempFile("cypher-spill-", ".tmp", directory)
+    } catch {
+      case e: IOException => throw new CypherExecutionException("Unable to create a file to spill query results to", e)
+    }
+    val spillFile = new SpillFile(file, newReservation())
+    spillFiles.add(spillFile)
+    spillFile
+  }
+
+  // Removes the files of operators that did not get to read their spilled rows back, like those of a failed query
+  def close(): Unit = {
+    spillFiles.asScala.foreach(_.delete())
+    spillFiles.clear()
+  }
+
+  private[spill] def tryReserve(bytes: Long): Boolean = {
+    if (reserved.addAndGet(bytes) <= maxBytes)
+      true
+    else {
+      reserved.addAndGet(-bytes)
+      false
+    }
+  }
+
+  private[spill] def reserve(bytes: Long): Unit = reserved.addAndGet(bytes)
+
+  private[spill] def release(bytes: Long): Unit = reserved.addAndGet(-bytes)
+}
+
+object QueryMemoryBudget {
+  val unbounded = new QueryMemoryBudget(0, null)
+
+  def apply(maxBytes: Long): QueryMemoryBudget = apply(maxBytes, null)
+
+  def apply(maxBytes: Long, directory: File): QueryMemoryBudget =
+    if (maxBytes > 0) new QueryMemoryBudget(maxBytes, directory) else unbounded
+}
+
+/*
+The part of the budget that is held by a single operator, so that it can give back everything at once when it has
+spilled its rows or has emitted its results.
+ */
+class MemoryReservation(budget: QueryMemoryBudget) {
+
+  private var held = 0L
+
+  def tryReserve(row: ExecutionContext): Boolean = !budget.isBounded || tryReserve(RowSize.of(row))
+
+  def tryReserve(bytes: Long): Boolean =
+    if (!budget.isBounded)
+      true
+    else if (budget.tryReserve(bytes)) {
+      held += bytes
+      true
+    } else
+      false
+
+  // For rows that have to be kept in memory whatever the budget says, like the one that did not fit right after spilling
+  def reserve(row: ExecutionContext): Unit = if (budget.isBounded) reserve(RowSize.of(row))
+
+  def reserve(bytes: Long): Unit = if (budget.isBounded) {
+    budget.reserve(bytes)
+    held += bytes
+  }
+
+  def releaseAll(): Unit = {
+    budget.release(held)
+    held = 0
+  }
+
+  // Keeps the reservation until the rows an operator emits from memory have all been consumed
+  def releasedAtEnd(rows: Iterator[ExecutionContext]): Iterator[ExecutionContext] = new Iterator[ExecutionContext] {
+    override def hasNext: Boolean = {
+      val more = rows.hasNext
+      if (!more)
+        releaseAll()
+      more
+    }
+
+    override def next(): ExecutionContext = rows.next()
+  }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v3_1.pipes.spill
+
+import org.neo4j.cypher.internal.compiler.v3_1.ExecutionContext
+import org.neo4j.cypher.internal.compiler.v3_1.pipes.slotted.SlottedExecutionContext
+import org.neo4j.graphdb.{Path, PropertyContainer}
+
+import scala.collection.JavaConverters._
+
+/*
+Rough estimate of the heap a row takes up. It only has to be good enough to tell a row with a few ids in it apart
+from one holding long strings or big collections, walking the object graph precisely would cost more than it saves.
+ */
+object RowSize {
+  private val ROW = 64L
+  private val ENTRY = 48L
+  private val REFERENCE = 8L
+  private val BOXED = 16L
+  private val STRING = 40L
+  private val ENTITY = 48L
+  private val COLLECTION = 32L
+
+  // What spilling a row costs for every node, relationship or path in it, as those stay in memory. The proxies are not
+  // asked for anything, not even the length of a path, so that spilling never touches an entity the query deleted.
+  val SPILLED_ENTITY: Long = REFERENCE + ENTITY
+
+  def of(row: ExecutionContext): Long = {
+    var size = ROW
+    row match {
+      case slotted: SlottedExecutionContext =>
+        size += 8L * slotted.pipeline.numberOfLongs
+      case _ =>
+    }
+    row.foreach {
+      case (_, value) => size += ENTRY + of(value)
+    }
+    size
+  }
+
+  def of(value: Any): Long = value match {
+    case null => 0
+    case s: String => STRING + 2L * s.length
+    case _: PropertyContainer => ENTITY
+    case p: Path => COLLECTION + (2L * p.length + 1) * (REFERENCE + ENTITY)
+    case m: scala.collection.Map[_, _] => m.foldLeft(COLLECTION) { case (acc, (k, v)) => acc + ENTRY + of(k) + of(v) }
+    case t: Traversable[_] => t.foldLeft(COLLECTION)((acc, v) => acc + REFERENCE + of(v))
+    case m: java.util.Map[_, _] => m.asScala.foldLeft(COLLECTION) { case (acc, (k, v)) => acc + ENTRY + of(k) + of(v) }
+    case c: java.util.Collection[_] => c.asScala.foldLeft(COLLECTION)((acc, v) => acc + REFERENCE + of(v))
+    case a: Array[_] => a.foldLeft(COLLECTION)((acc, v) => acc + REFERENCE + of(v))
+    case _ => BOXED
+  }
+}
@@ -0,0 +1,302 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v3_1.pipes.spill
+
+import java.io._
+import java.nio.charset.StandardCharsets
+
+import org.neo4j.cypher.internal.compiler.v3_1.pipes.MutableMaps
+import org.neo4j.cypher.internal.compiler.v3_1.pipes.slotted.{PipelineInformation, SlottedExecutionContext}
+import org.neo4j.cypher.internal.compiler.v3_1.{CRS, CartesianPoint, ExecutionContext, GeographicPoint}
+import org.neo4j.cypher.internal.frontend.v3_1.{CypherExecutionException, CypherTypeException, InternalException}
+import org.neo4j.graphdb.{Path, PropertyContainer}
+
+import scala.collection.JavaConverters._
+import scala.collection.mutable.ArrayBuffer
+
+/*
+A temporary file that rows are appended to, and that can be read back once. Nodes, relationships and paths stay in
+memory as the proxies the operator was given, the file only refers to them by position. Looking them up again by id
+would fail for entities that the query deletes before the rows are read back, which the eager pipe exists for.
+Those proxies are charged to the memory budget, but as they can not be spilled, a query that spills a great many rows
+holding entities still goes over its budget. Everything else is written by value, and values of a type that has no
+encoding here are rejected. The file is removed as soon as the rows have been read back, or when the query is closed.
+ */
+class SpillFile(file: File, reservation: MemoryReservation) {
+
+  private var out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), SpillFile.BUFFER_SIZE))
+  private var in: DataInputStream = null
+  private var rows = 0L
+  private val entities = new ArrayBuffer[AnyRef]()
+  // Slotted rows are written without their slot layout, all rows of one file come from the same operator
+  private var pipeline: PipelineInformation = null
+
+  def size: Long = rows
+
+  def isEmpty: Boolean = rows == 0
+
+  def write(row: ExecutionContext): Unit = {
+    if (out == null)
+      throw new InternalException("Can not write to a spill file that has been closed for writing")
+    try {
+      writeRow(row)
+      rows += 1
+    } catch {
+      case e: IOException => throw new CypherExecutionException("Unable to spill query results to disk", e)
+    }
+  }
+
+  // Closes the file for writing, so that a file that is only read back later does not keep it open in the meantime
+  def finishWriting(): Unit = {
+    try {
+      if (out != null) out.close()
+    } catch {
+      case e: IOException => throw new CypherExecutionException("Unable to spill query results to disk", e)
+    }
+    out = null
+  }
+
+  def read(): Iterator[ExecutionContext] = {
+    finishWriting()
+    try {
+      in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), SpillFile.BUFFER_SIZE))
+    } catch {
+      case e: IOException => throw new CypherExecutionException("Unable to read spilled query results", e)
+    }
+
+    new Iterator[ExecutionContext] {
+      private var remaining = rows
+
+      override def hasNext: Boolean = {
+        if (remaining == 0)
+          delete()
+        remaining > 0
+      }
+
+      override def next(): ExecutionContext = {
+        if (!hasNext)
+          Iterator.empty.next()
+        remaining -= 1
+        try {
+          readRow()
+        } catch {
+          case e: IOException => throw new CypherExecutionException("Unable to read spilled query results", e)
+        }
+      }
+    }
+  }
+
+  def delete(): Unit = {
+    try {
+      if (out != null) out.close()
+      if (in != null) in.close()
+    } catch {
+      case _: IOException => // the file is removed below anyway
+    }
+    out = null
+    in = null
+    entities.clear()
+    reservation.releaseAll()
+    file.delete()
+  }
+
+  private def writeRow(row: ExecutionContext): Unit = row match {
+    case slotted: SlottedExecutionContext =>
+      if (pipeline == null)
+        pipeline = slotted.pipeline
+      else if ((pipeline ne slotted.pipeline) && pipeline != slotted.pipeline)
+        throw new InternalException("Can only spill rows that share the same slot layout to one file")
+      out.writeByte(SpillFile.SLOTTED_ROW)
+      (0 until pipeline.numberOfLongs).foreach(offset => out.writeLong(slotted.getLong(offset)))
+      (0 until pipeline.numberOfReferences).foreach(offset => writeValue(slotted.getRef(offset)))
+      val extra = slotted.iterator.filterNot { case (key, _) => pipeline.slots.contains(key) }.toIndexedSeq
+      writeEntries(extra)
+
+    case _ =>
+      out.writeByte(SpillFile.MAP_ROW)
+      writeEntries(row.iterator.toIndexedSeq)
+  }
+
+  private def writeEntries(entries: Seq[(String, Any)]): Unit = {
+    out.writeInt(entries.size)
+    entries.foreach {
+      case (key, value) =>
+        out.writeUTF(key)
+        writeValue(value)
+    }
+  }
+
+  private def readRow(): ExecutionContext = in.readByte().toInt match {
+    case SpillFile.SLOTTED_ROW =>
+      val row = new SlottedExecutionContext(pipeline)
+      (0 until pipeline.numberOfLongs).foreach(offset => row.setLong(offset, in.readLong()))
+      (0 until pipeline.numberOfReferences).foreach(offset => row.setRef(offset, readValue()))
+      readEntries().foreach(row += _)
+      row
+
+    case _ =>
+      ExecutionContext(MutableMaps.create(readEntries(): _*))
+  }
+
+  private def readEntries(): Seq[(String, Any)] =
+    (0 until in.readInt()).map(_ => in.readUTF() -> readValue())
+
+  private def writeValue(value: Any): Unit = {
+    import SpillFile._
+    value match {
+      case null => out.writeByte(NULL)
+      case b: Boolean => out.writeByte(if (b) TRUE else FALSE)
+      case b: Byte => out.writeByte(BYTE); out.writeByte(b)
+      case s: Short => out.writeByte(SHORT); out.writeShort(s)
+      case i: Int => out.writeByte(INT); out.writeInt(i)
+      case l: Long => out.writeByte(LONG); out.writeLong(l)
+      case f: Float => out.writeByte(FLOAT); out.writeFloat(f)
+      case d: Double => out.writeByte(DOUBLE); out.writeDouble(d)
+      case c: Char => out.writeByte(CHAR); out.writeChar(c)
+      case s: String => out.writeByte(STRING); writeString(s)
+      case e: PropertyContainer => out.writeByte(ENTITY); writeEntity(e)
+      case p: Path => out.writeByte(ENTITY); writeEntity(p)
+      case p: CartesianPoint => out.writeByte(CARTESIAN_POINT); out.writeDouble(p.x); out.writeDouble(p.y)
+      case p: GeographicPoint => out.writeByte(GEOGRAPHIC_POINT); out.writeDouble(p.longitude); out.writeDouble(p.latitude)
+      case m: scala.collection.Map[_, _] => out.writeByte(MAP); writeMap(m.toSeq)
+      case t: Traversable[_] => out.writeByte(LIST); writeList(t.toIndexedSeq)
+      case m: java.util.Map[_, _] => out.writeByte(JAVA_MAP); writeMap(m.asScala.toSeq)
+      case l: java.util.List[_] => out.writeByte(JAVA_LIST); writeList(l.asScala.toIndexedSeq)
+      case a: Array[_] =>
+        out.writeByte(ARRAY)
+        out.writeUTF(a.getClass.getComponentType.getName)
+        writeList(a.toIndexedSeq)
+      case x =>
+        throw new CypherTypeException(s"Unable to spill a value of type ${x.getClass.getName} to disk")
+    }
+  }
+
+  private def writeEntity(entity: AnyRef): Unit = {
+    out.writeInt(entities.size)
+    entities += entity
+    reservation.reserve(RowSize.SPILLED_ENTITY)
+  }
+
+  private def writeString(s: String): Unit = {
+    val bytes = s.getBytes(StandardCharsets.UTF_8)
+    out.writeInt(bytes.length)
+    out.write(bytes)
+  }
+
+  private def writeList(values: IndexedSeq[Any]): Unit = {
+    out.writeInt(values.size)
+    values.foreach(writeValue)
+  }
+
+  private def writeMap(entries: Seq[(Any, Any)]): Unit = {
+    out.writeInt(entries.size)
+    entries.foreach {
+      case (k, v) =>
+        writeValue(k)
+        writeValue(v)
+    }
+  }
+
+  private def readValue(): Any = {
+    import SpillFile._
+    in.readByte().toInt match {
+      case NULL => null
+      case TRUE => true
+      case FALSE => false
+      case BYTE => in.readByte()
+      case SHORT => in.readShort()
+      case INT => in.readInt()
+      case LONG => in.readLong()
+      case FLOAT => in.readFloat()
+      case DOUBLE => in.readDouble()
+      case CHAR => in.readChar()
+      case STRING => readString()
+      case ENTITY => entities(in.readInt())
+      case CARTESIAN_POINT => CartesianPoint(in.readDouble(), in.readDouble(), CRS.Cartesian)
+      case GEOGRAPHIC_POINT => GeographicPoint(in.readDouble(), in.readDouble(), CRS.WGS84)
+      case MAP => readMap().toMap
+      case LIST => readList().toVector
+      case JAVA_MAP =>
+        val map = new java.util.HashMap[Any, Any]()
+        readMap().foreach { case (k, v) => map.put(k, v) }
+        map
+      case JAVA_LIST => new java.util.ArrayList[Any](readList().asJava)
+      case ARRAY =>
+        val componentType = arrayComponentType(in.readUTF())
+        val values = readList()
+        val array = java.lang.reflect.Array.newInstance(componentType, values.size)
+        values.indices.foreach(i => java.lang.reflect.Array.set(array, i, values(i)))
+        array
+      case tag =>
+        throw new InternalException(s"Unknown value type $tag in spill file")
+    }
+  }
+
+  private def readString(): String = {
+    val bytes = new Array[Byte](in.readInt())
+    in.readFully(bytes)
+    new String(bytes, StandardCharsets.UTF_8)
+  }
+
+  private def readList(): IndexedSeq[Any] =
+    (0 until in.readInt()).map(_ => readValue())
+
+  private def readMap(): IndexedSeq[(Any, Any)] =
+    (0 until in.readInt()).map(_ => readValue() -> readValue())
+
+  private def arrayComponentType(name: String): Class[_] = name match {
+    case "boolean" => java.lang.Boolean.TYPE
+    case "byte" => java.lang.Byte.TYPE
+    case "short" => java.lang.Short.TYPE
+    case "int" => java.lang.Integer.TYPE
+    case "long" => java.lang.Long.TYPE
+    case "float" => java.lang.Float.TYPE
+    case "double" => java.lang.Double.TYPE
+    case "char" => java.lang.Character.TYPE
+    case _ => Class.forName(name)
+  }
+}
+
+object SpillFile {
+  private[spill] val BUFFER_SIZE = 64 * 1024
+
+  private final val MAP_ROW = 0
+  private final val SLOTTED_ROW = 1
+
+  private final val NULL = 0
+  private final val TRUE = 1
+  private final val FALSE = 2
+  private final val BYTE = 3
+  private final val SHORT = 4
+  private final val INT = 5
+  private final val LONG = 6
+  private final val FLOAT = 7
+  private final val DOUBLE = 8
+  private final val CHAR = 9
+  private final val STRING = 10
+  private final val ENTITY = 11
+  private final val CARTESIAN_POINT = 12
+  private final val GEOGRAPHIC_POINT = 13
+  private final val MAP = 14
+  private final val LIST = 15
+  private final val JAVA_MAP = 16
+  private final val JAVA_LIST = 17
+  private final val ARRAY = 18
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v3_1.pipes.spill
+
+import org.neo4j.cypher.internal.compiler.v3_1.ExecutionContext
+
+import scala.util.hashing.MurmurHash3
+
+/*
+Rows spilled into a fixed number of files by the hash of their key, so that all rows with the same key end up in the
+same file and every file can be processed on its own. Each level of repartitioning mixes the hash differently, so
+that rows that shared a partition on one level are spread out on the next.
+ */
+class SpilledPartitions(budget: QueryMemoryBudget, val level: Int) {
+
+  private val files = new Array[SpillFile](SpilledPartitions.PARTITIONS)
+
+  def add(keyHash: Int, row: ExecutionContext): Unit = {
+    val partition = SpilledPartitions.partitionOf(keyHash, level)
+    if (files(partition) == null)
+      files(partition) = budget.newSpillFile()
+    files(partition).write(row)
+  }
+
+  def isEmpty(partition: Int): Boolean = files(partition) == null
+
+  def partitions: Range = files.indices
+
+  def file(partition: Int): SpillFile = files(partition)
+}
+
+object SpilledPartitions {
+  val PARTITIONS = 16
+
+  /*
+  Rows are repartitioned at most this many times. Rows that still do not fit after that share most of their key
+  hashes, and are processed in memory whatever the budget says, as splitting them any further would not help.
+   */
+  val MAX_LEVEL = 3
+
+  def canSpill(budget: QueryMemoryBudget, level: Int): Boolean = budget.isBounded && level < MAX_LEVEL
+
+  def partitionOf(keyHash: Int, level: Int): Int =
+    (MurmurHash3.finalizeHash(MurmurHash3.mix(level, keyHash), 1) & Int.MaxValue) % PARTITIONS
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v3_1.pipes.spill
+
+import org.neo4j.cypher.internal.compiler.v3_1.ExecutionContext
+import org.neo4j.cypher.internal.compiler.v3_1.pipes.QueryState
+
+import scala.collection.mutable.ArrayBuffer
+
+/*
+Materializes all of its input before handing out the first row, like Eager does, but appends rows to a file whenever
+the memory budget runs out. The rows come back in the order they were read.
+ */
+object SpillingBuffer {
+
+  def apply(input: Iterator[ExecutionContext], state: QueryState): Iterator[ExecutionContext] = {
+    val reservation = state.memoryBudget.newReservation()
+    val buffer = ArrayBuffer.empty[ExecutionContext]
+    var spilled: SpillFile = null
+
+    input.foreach { row =>
+      if (!reservation.tryReserve(row) && buffer.nonEmpty) {
+        if (spilled == null)
+          spilled = state.memoryBudget.newSpillFile()
+        buffer.foreach(spilled.write)
+        buffer.clear()
+        reservation.releaseAll()
+        reservation.reserve(row)
+      }
+      buffer += row
+    }
+
+    if (spilled == null)
+      reservation.releasedAtEnd(buffer.iterator)
+    else
+      spilled.read() ++ reservation.releasedAtEnd(buffer.iterator)
+  }
+}
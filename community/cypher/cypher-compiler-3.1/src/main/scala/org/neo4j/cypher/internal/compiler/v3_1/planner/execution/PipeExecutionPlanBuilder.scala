@@ -506,13 +506,13 @@ case class ActualPipeBuilder(monitors: Monitors, recurse: LogicalPlan => Pipe, r
     override def apply(that: AnyRef): AnyRef = instance.apply(that)
   }
 
-  private def buildExpression(expr: ast.Expression)(implicit planContext: PlanContext): CommandExpression = {
+  private[execution] def buildExpression(expr: ast.Expression)(implicit planContext: PlanContext): CommandExpression = {
     val rewrittenExpr = expr.endoRewrite(buildPipeExpressions) // TODO
 
     toCommandExpression(rewrittenExpr).rewrite(resolver.resolveExpressions(_, planContext))
   }
 
-  private def buildPredicate(expr: ast.Expression)(implicit context: PipeExecutionBuilderContext, planContext: PlanContext): Predicate = {
+  private[execution] def buildPredicate(expr: ast.Expression)(implicit context: PipeExecutionBuilderContext, planContext: PlanContext): Predicate = {
     val rewrittenExpr: Expression = expr.endoRewrite(buildPipeExpressions)
 
     toCommandPredicate(rewrittenExpr).rewrite(resolver.resolveExpressions(_, planContext)).asInstanceOf[Predicate]
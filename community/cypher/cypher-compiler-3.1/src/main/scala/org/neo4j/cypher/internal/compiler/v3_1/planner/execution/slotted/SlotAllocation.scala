@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v3_1.planner.execution.slotted
+
+import org.neo4j.cypher.internal.compiler.v3_1.ast.NestedPlanExpression
+import org.neo4j.cypher.internal.compiler.v3_1.pipes.slotted.{LongSlot, PipelineInformation, RefSlot}
+import org.neo4j.cypher.internal.compiler.v3_1.planner.CantCompileQueryException
+import org.neo4j.cypher.internal.compiler.v3_1.planner.logical.plans.{Limit => LimitPlan, Skip => SkipPlan, _}
+import org.neo4j.cypher.internal.frontend.v3_1.Foldable._
+import org.neo4j.cypher.internal.frontend.v3_1.ast.Variable
+import org.neo4j.cypher.internal.frontend.v3_1.symbols._
+
+/*
+Gives every variable of a logical plan a fixed slot in the rows flowing through it. Nodes and relationships get long
+slots holding their ids, projected, grouped and aggregated values get reference slots. Only linear plans built from
+the operators that have a slotted pipe are supported, anything else makes the query fall back to the interpreted
+runtime.
+ */
+object SlotAllocation {
+
+  def allocateSlots(plan: LogicalPlan): PipelineInformation = {
+    if (plan.exists { case _: NestedPlanExpression => true })
+      throw new CantCompileQueryException("Nested plans are not supported by the slotted runtime")
+
+    allocate(plan)
+  }
+
+  private def allocate(plan: LogicalPlan): PipelineInformation = plan match {
+    case AllNodesScan(IdName(id), argumentIds) if argumentIds.isEmpty =>
+      PipelineInformation.empty.newLong(id, CTNode)
+
+    case NodeByLabelScan(IdName(id), _, argumentIds) if argumentIds.isEmpty =>
+      PipelineInformation.empty.newLong(id, CTNode)
+
+    case Expand(source, _, _, _, IdName(to), IdName(rel), ExpandAll) =>
+      allocate(source).newLong(rel, CTRelationship).newLong(to, CTNode)
+
+    case Selection(_, source) =>
+      allocate(source)
+
+    case LimitPlan(source, _, DoNotIncludeTies) =>
+      allocate(source)
+
+    case SkipPlan(source, _) =>
+      allocate(source)
+
+    case Projection(source, expressions) =>
+      expressions.foldLeft(allocate(source)) {
+        case (pipeline, (name, Variable(other))) if name == other =>
+          pipeline
+
+        case (pipeline, (name, _)) =>
+          withReference(pipeline, name)
+      }
+
+    case Aggregation(source, groupingExpressions, aggregationExpressions) =>
+      val grouped = groupingExpressions.foldLeft(allocate(source)) {
+        case (pipeline, (name, Variable(other))) if name == other =>
+          if (!pipeline.slots.contains(name))
+            throw new CantCompileQueryException(s"Grouping key `$name` has not been given a slot")
+          pipeline
+
+        case (pipeline, (name, _)) =>
+          withReference(pipeline, name)
+      }
+      aggregationExpressions.keys.foldLeft(grouped)(withReference)
+
+    case Sort(source, sortItems) =>
+      val pipeline = allocate(source)
+      sortItems.map(_.id.name).foreach { column =>
+        if (!pipeline.slots.get(column).exists(_.isInstanceOf[RefSlot]))
+          throw new CantCompileQueryException(s"Sorting is only supported on values in reference slots, not on `$column`")
+      }
+      pipeline
+
+    case ProduceResult(columns, source) =>
+      val pipeline = allocate(source)
+      columns.find(!pipeline.slots.contains(_)).foreach { column =>
+        throw new CantCompileQueryException(s"Column `$column` has not been given a slot")
+      }
+      pipeline
+
+    case _ =>
+      throw new CantCompileQueryException(s"${plan.getClass.getSimpleName} is not supported by the slotted runtime")
+  }
+
+  private def withReference(pipeline: PipelineInformation, name: String): PipelineInformation =
+    pipeline.slots.get(name) match {
+      case None => pipeline.newReference(name, CTAny)
+      case Some(_: RefSlot) => pipeline
+      case Some(_: LongSlot) =>
+        throw new CantCompileQueryException(s"Can not write a new value into the id slot of `$name`")
+    }
+}
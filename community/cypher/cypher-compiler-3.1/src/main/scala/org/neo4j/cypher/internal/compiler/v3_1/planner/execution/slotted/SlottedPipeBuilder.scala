@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v3_1.planner.execution.slotted
+
+import org.neo4j.cypher.internal.compiler.v3_1.Monitors
+import org.neo4j.cypher.internal.compiler.v3_1.commands.expressions._
+import org.neo4j.cypher.internal.compiler.v3_1.commands.predicates.Predicate
+import org.neo4j.cypher.internal.compiler.v3_1.commands.{AllInList, AnyInList, NoneInList, PathExpression, SingleInList}
+import org.neo4j.cypher.internal.compiler.v3_1.pipes._
+import org.neo4j.cypher.internal.compiler.v3_1.pipes.slotted._
+import org.neo4j.cypher.internal.compiler.v3_1.planner.{CantCompileQueryException, logical}
+import org.neo4j.cypher.internal.compiler.v3_1.planner.execution.{ActualPipeBuilder, PipeBuilder, PipeBuilderFactory, PipeExecutionBuilderContext}
+import org.neo4j.cypher.internal.compiler.v3_1.planner.logical.plans.{Limit => LimitPlan, Skip => SkipPlan, _}
+import org.neo4j.cypher.internal.compiler.v3_1.spi.PlanContext
+import org.neo4j.cypher.internal.frontend.v3_1.ast
+import org.neo4j.cypher.internal.frontend.v3_1.helpers.Eagerly
+import org.neo4j.cypher.internal.frontend.v3_1.symbols._
+
+class SlottedPipeBuilderFactory(pipeline: PipelineInformation, workers: MorselWorkers) extends PipeBuilderFactory {
+  override def apply(monitors: Monitors, recurse: LogicalPlan => Pipe, readOnly: Boolean)
+                    (implicit context: PipeExecutionBuilderContext, planContext: PlanContext): PipeBuilder =
+    new SlottedPipeBuilder(monitors, pipeline, workers, new ActualPipeBuilder(monitors, recurse, readOnly))
+}
+
+/**
+ * Builds slotted pipes for the plans supported by slot allocation, using the slots in the given pipeline. Expressions
+ * are converted like in the interpreted runtime, after which variables that have a slot are rewritten to read from it.
+ * Pipes that consume their whole input, like aggregation and top, split their work between the given workers when they
+can.
+ */
+class SlottedPipeBuilder(monitors: Monitors, pipeline: PipelineInformation, workers: MorselWorkers,
+                         interpreted: ActualPipeBuilder)
+                        (implicit context: PipeExecutionBuilderContext, planContext: PlanContext) extends PipeBuilder {
+
+  implicit private val table = context.semanticTable
+  implicit private val monitor = monitors.newMonitor[PipeMonitor]()
+
+  def build(plan: LogicalPlan): RonjaPipe = plan match {
+    case AllNodesScan(IdName(id), _) =>
+      SlottedAllNodesScanPipe(id, pipeline)()
+
+    case NodeByLabelScan(IdName(id), label, _) =>
+      SlottedNodeByLabelScanPipe(id, LazyLabel(label), pipeline)()
+
+    case x =>
+      throw new CantCompileQueryException(s"${x.getClass.getSimpleName} is not supported by the slotted runtime")
+  }
+
+  def build(plan: LogicalPlan, source: Pipe): RonjaPipe = plan match {
+    case Expand(_, IdName(fromName), dir, types, IdName(toName), IdName(relName), ExpandAll) =>
+      SlottedExpandAllPipe(source, fromName, relName, toName, dir, LazyTypes(types), pipeline)()
+
+    case Selection(predicates, _) =>
+      SlottedFilterPipe(source, predicates.map(buildPredicate).reduce(_ andWith _), pipeline)()
+
+    case Projection(_, expressions) =>
+      val projected = expressions.filterNot {
+        case (name, ast.Variable(other)) => name == other
+        case _ => false
+      }
+      SlottedProjectionPipe(source, Eagerly.immutableMapValues(projected, buildExpression), pipeline)()
+
+    case Sort(_, sortItems) =>
+      SortPipe(source, sortItems.map {
+        case logical.Ascending(IdName(name)) => Ascending(name)
+        case logical.Descending(IdName(name)) => Descending(name)
+      })()
+
+    case LimitPlan(_, count, DoNotIncludeTies) => source match {
+      case SortPipe(inner, sortDescription) =>
+        SlottedTopPipe(inner, sortDescription.toList, buildExpression(count), pipeline, workers)()
+      case _ =>
+        LimitPipe(source, buildExpression(count))()
+    }
+
+    case SkipPlan(_, count) =>
+      SkipPipe(source, buildExpression(count))()
+
+    case Aggregation(_, groupingExpressions, aggregatingExpressions) =>
+      val aggregations = Eagerly.immutableMapValues[String, ast.Expression, AggregationExpression](
+        aggregatingExpressions, buildExpression(_).asInstanceOf[AggregationExpression])
+      SlottedEagerAggregationPipe(source, Eagerly.immutableMapValues(groupingExpressions, buildExpression),
+                                  aggregations, pipeline, workers)()
+
+    case ProduceResult(columns, _) =>
+      SlottedProduceResultsPipe(source, columns.map(column => column -> slotExpression(column)))()
+
+    case x =>
+      throw new CantCompileQueryException(s"${x.getClass.getSimpleName} is not supported by the slotted runtime")
+  }
+
+  def build(plan: LogicalPlan, lhs: Pipe, rhs: Pipe): RonjaPipe =
+    throw new CantCompileQueryException(s"${plan.getClass.getSimpleName} is not supported by the slotted runtime")
+
+  private def buildExpression(expr: ast.Expression): Expression =
+    checkSupported(interpreted.buildExpression(expr).rewrite(useSlots))
+
+  private def buildPredicate(expr: ast.Expression): Predicate =
+    checkSupported(interpreted.buildPredicate(expr).rewriteAsPredicate(useSlots))
+
+  private def useSlots(expression: Expression): Expression = expression match {
+    case Variable(name) if pipeline.slots.contains(name) => slotExpression(name)
+    case other => other
+  }
+
+  private def slotExpression(name: String): Expression = pipeline.slots.get(name) match {
+    case Some(LongSlot(offset, CTNode)) => NodeFromSlot(offset, name)
+    case Some(LongSlot(offset, CTRelationship)) => RelationshipFromSlot(offset, name)
+    case Some(RefSlot(offset, _)) => ReferenceFromSlot(offset, name)
+    case _ => throw new CantCompileQueryException(s"Variable `$name` has not been given a slot")
+  }
+
+  /*
+  Some expressions read variables from the row by name, without going through a Variable expression, or introduce
+  variables of their own. These can not be used together with slots.
+   */
+  private def checkSupported[T <: Expression](expression: T): T = {
+    val unsupported = expression.exists {
+      case _: ProjectedPath | _: DesugaredMapProjection | _: PathExpression | _: ShortestPathExpression |
+           _: NestedPipeExpression | _: CachedExpression => true
+      case ExtractFunction(_, id, _) => pipeline.slots.contains(id)
+      case FilterFunction(_, id, _) => pipeline.slots.contains(id)
+      case ReduceFunction(_, id, _, acc, _) => pipeline.slots.contains(id) || pipeline.slots.contains(acc)
+      case AllInList(_, id, _) => pipeline.slots.contains(id)
+      case AnyInList(_, id, _) => pipeline.slots.contains(id)
+      case NoneInList(_, id, _) => pipeline.slots.contains(id)
+      case SingleInList(_, id, _) => pipeline.slots.contains(id)
+      case _ => false
+    }
+    if (unsupported)
+      throw new CantCompileQueryException(s"Expression $expression is not supported by the slotted runtime")
+    expression
+  }
+}
@@ -65,6 +65,15 @@ object LogicalPlan2PlanDescription extends ((LogicalPlan, Map[LogicalPlan, Id])
         }
         PlanDescriptionImpl(id = idMap(plan), modeText, SingleChild(apply(inner, idMap)), expressions, symbols)
 
+      case VarExpand(inner, IdName(fromName), dir, _, typeNames, IdName(toName), IdName(relName), length, mode, predicates) =>
+        val expressions = predicates.map { case (_, predicate) => Expression(predicate) } :+
+          ExpandExpression(fromName, relName, typeNames.map(_.name), toName, dir, length.min, length.max)
+        val modeText = mode match {
+          case ExpandAll => "VarLengthExpand(All)"
+          case ExpandInto => "VarLengthExpand(Into)"
+        }
+        PlanDescriptionImpl(id = idMap(plan), modeText, SingleChild(apply(inner, idMap)), expressions, symbols)
+
 
       case NodeHashJoin(nodes, lhs, rhs) =>
         val children = TwoChildren(apply(lhs, idMap), apply(rhs, idMap))
@@ -88,6 +97,15 @@ object LogicalPlan2PlanDescription extends ((LogicalPlan, Map[LogicalPlan, Id])
         PlanDescriptionImpl(id = idMap(plan), name = "Skip", children = SingleChild(apply(lhs, idMap)),
                             Seq(Expression(count)), symbols)
 
+      case Aggregation(lhs, groupingExpressions, aggregationExpressions) =>
+        val name = if (aggregationExpressions.isEmpty) "Distinct" else "EagerAggregation"
+        PlanDescriptionImpl(id = idMap(plan), name, SingleChild(apply(lhs, idMap)),
+                            Seq(KeyNames(groupingExpressions.keys.toIndexedSeq)), symbols)
+
+      case Sort(lhs, sortItems) =>
+        PlanDescriptionImpl(id = idMap(plan), "Sort", SingleChild(apply(lhs, idMap)),
+                            Seq(KeyNames(sortItems.map(_.id.name))), symbols)
+
       case row: SingleRow =>
         new SingleRowPlanDescription(id = idMap(plan), Seq.empty, row.argumentIds.map(_.name))
 
@@ -130,6 +130,10 @@ class DelegatingQueryContext(val inner: QueryContext) extends QueryContext {
 
   override def withAnyOpenQueryContext[T](work: (QueryContext) => T): T = inner.withAnyOpenQueryContext(work)
 
+  override def withReadOnlyWorkerContext[T](work: (QueryContext) => T): T = inner.withReadOnlyWorkerContext(work)
+
+  override def transactionHasChanges: Boolean = inner.transactionHasChanges
+
   override def lockingUniqueIndexSeek(index: IndexDescriptor, value: Any): Option[Node] =
     singleDbHit(inner.lockingUniqueIndexSeek(index, value))
 
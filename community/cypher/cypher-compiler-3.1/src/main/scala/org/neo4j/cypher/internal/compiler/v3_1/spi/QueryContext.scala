@@ -124,6 +124,14 @@ trait QueryContext extends TokenContext {
    */
   def withAnyOpenQueryContext[T](work: (QueryContext) => T): T
 
+  /**
+   * Runs the work in a new read-only transaction of the same user, bound to the calling thread. Used to read the
+   * store from worker threads. The work does not see the changes made by this transaction.
+   */
+  def withReadOnlyWorkerContext[T](work: (QueryContext) => T): T
+
+  def transactionHasChanges: Boolean
+
   def relationshipStartNode(rel: Relationship): Node
 
   def relationshipEndNode(rel: Relationship): Node
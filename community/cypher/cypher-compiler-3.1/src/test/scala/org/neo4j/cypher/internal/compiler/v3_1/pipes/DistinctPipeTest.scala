@@ -20,6 +20,7 @@
 package org.neo4j.cypher.internal.compiler.v3_1.pipes
 
 import org.neo4j.cypher.internal.compiler.v3_1.commands.expressions.{Expression, Variable, Literal, Multiply}
+import org.neo4j.cypher.internal.compiler.v3_1.pipes.spill.QueryMemoryBudget
 import org.neo4j.cypher.internal.frontend.v3_1.symbols._
 import org.neo4j.cypher.internal.frontend.v3_1.test_helpers.CypherFunSuite
 
@@ -79,4 +80,19 @@ class DistinctPipeTest extends CypherFunSuite {
     val source = new FakePipe(input, "x" -> CTNumber)
     new DistinctPipe(source, expressions)()
   }
+
+  test("distinct removes duplicates of keys that were spilled to disk") {
+    //GIVEN
+    val input = (0 until 200).map(i => Map[String, Any]("x" -> i % 50)).toList
+    val pipe = createDistinctPipe(input)
+    val budget = QueryMemoryBudget(1000)
+
+    //WHEN
+    val result = pipe.createResults(QueryStateHelper.emptyWith(memoryBudget = budget)).toList
+
+    //THEN
+    result should have size 50
+    result.map(_("x")).toSet should equal((0 until 50).toSet)
+    budget.reservedBytes should equal(0)
+  }
 }
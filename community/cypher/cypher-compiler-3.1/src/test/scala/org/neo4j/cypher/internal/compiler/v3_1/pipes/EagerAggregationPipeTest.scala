@@ -22,6 +22,7 @@ package org.neo4j.cypher.internal.compiler.v3_1.pipes
 import org.neo4j.cypher.internal.compiler.v3_1.commands.expressions._
 import org.neo4j.cypher.internal.compiler.v3_1.commands.predicates.Equivalent
 import org.neo4j.cypher.internal.compiler.v3_1.commands.values.TokenType.PropertyKey
+import org.neo4j.cypher.internal.compiler.v3_1.pipes.spill.QueryMemoryBudget
 import org.neo4j.cypher.internal.frontend.v3_1.SyntaxException
 import org.neo4j.cypher.internal.frontend.v3_1.symbols._
 import org.neo4j.cypher.internal.frontend.v3_1.test_helpers.CypherFunSuite
@@ -162,6 +163,19 @@ class EagerAggregationPipeTest extends CypherFunSuite {
     getResults(aggregationPipe) should equal(List(Map("count(name)" -> 3)))
   }
 
+  test("should aggregate groups that were spilled to disk") {
+    val source = new FakePipe((0 until 300).map(i => Map[String, Any]("name" -> s"name${i % 60}", "age" -> i)),
+      "name" -> CTString, "age" -> CTInteger)
+    val budget = QueryMemoryBudget(2000)
+
+    val aggregationPipe = new EagerAggregationPipe(source, createReturnItemsFor("name"),
+      Map("count(*)" -> CountStar(), "max(age)" -> Max(Variable("age"))))()
+    val result = aggregationPipe.createResults(QueryStateHelper.emptyWith(memoryBudget = budget)).map(_.m.toMap).toSet
+
+    result should equal((0 until 60).map(i => Map("name" -> s"name$i", "count(*)" -> 5, "max(age)" -> (240 + i))).toSet)
+    budget.reservedBytes should equal(0)
+  }
+
   private def createSymbolTableFor(name: String): (String, CypherType) = name -> CTNode
 
   private def getResults(p: Pipe) = p.createResults(QueryStateHelper.empty).map(_.m.toMap).toList
@@ -20,6 +20,7 @@
 package org.neo4j.cypher.internal.compiler.v3_1.pipes
 
 import org.neo4j.cypher.internal.compiler.v3_1._
+import org.neo4j.cypher.internal.compiler.v3_1.pipes.spill.QueryMemoryBudget
 import org.neo4j.cypher.internal.frontend.v3_1.test_helpers.CypherFunSuite
 
 class EagerPipeTest extends CypherFunSuite {
@@ -39,4 +40,18 @@ class EagerPipeTest extends CypherFunSuite {
     lazyIterator shouldBe empty
     resultIterator should not be empty
   }
+
+  test("should keep the input order when rows are spilled to disk") {
+    // Given
+    val rows = (0 until 100).map(i => Map[String, Any]("x" -> i, "name" -> s"row $i"))
+    val eager = new EagerPipe(new FakePipe(rows))()
+    val budget = QueryMemoryBudget(1000)
+
+    // When
+    val result = eager.createResults(QueryStateHelper.emptyWith(memoryBudget = budget)).map(_.m.toMap).toList
+
+    // Then
+    result should equal(rows)
+    budget.reservedBytes should equal(0)
+  }
 }
@@ -19,7 +19,10 @@
  */
 package org.neo4j.cypher.internal.compiler.v3_1.pipes
 
+import java.nio.file.Files
+
 import org.junit.Assert._
+import org.neo4j.cypher.internal.compiler.v3_1.pipes.spill.QueryMemoryBudget
 import org.neo4j.cypher.internal.frontend.v3_1.symbols._
 import org.neo4j.cypher.internal.frontend.v3_1.test_helpers.CypherFunSuite
 import org.scalatest.mock.MockitoSugar
@@ -91,4 +94,39 @@ class SortPipeTest extends CypherFunSuite with MockitoSugar {
       MutableMap("y" -> 2),
       MutableMap("y" -> null)), sortPipe.createResults(QueryStateHelper.empty).toList)
   }
+
+  test("should sort rows that do not fit in the memory budget by merging spilled runs") {
+    val values = (0 until 100).map(i => (i * 37) % 100)
+    val list: Seq[MutableMap[String, Any]] = values.map(v => MutableMap[String, Any]("x" -> v, "y" -> (v % 3)))
+    val source = new FakePipe(list, "x" -> CTNumber, "y" -> CTNumber)
+    val budget = QueryMemoryBudget(1000)
+
+    val sortPipe = new SortPipe(source, List(Descending("y"), Ascending("x")))()
+    val result = sortPipe.createResults(QueryStateHelper.emptyWith(memoryBudget = budget)).toList
+
+    assertEquals(values.sortBy(v => (-(v % 3), v)).map(v => MutableMap("x" -> v, "y" -> v % 3)).toList, result)
+    assertEquals(0L, budget.reservedBytes)
+  }
+
+  test("should merge spilled runs in several passes when there are more than can be merged at once") {
+    val directory = Files.createTempDirectory("sort-pipe-test").toFile
+    directory.deleteOnExit()
+    // Rows with equal keys must keep their input order through every pass
+    val list: Seq[MutableMap[String, Any]] = (0 until 200).map(i => MutableMap[String, Any]("x" -> (i % 7), "i" -> i))
+    val source = new FakePipe(list, "x" -> CTNumber, "i" -> CTNumber)
+    val budget = QueryMemoryBudget(1000, directory)
+
+    try {
+      val sortPipe = new SortPipe(source, List(Ascending("x")))()
+      val result = sortPipe.createResults(QueryStateHelper.emptyWith(memoryBudget = budget))
+
+      // A budget this small only has room for merging a single run with the rows still in memory
+      directory.listFiles() should have size 1
+      assertEquals(list.sortBy(_("x").asInstanceOf[Int]).toList, result.toList)
+      assertEquals(0L, budget.reservedBytes)
+      directory.listFiles() shouldBe empty
+    } finally {
+      budget.close()
+    }
+  }
 }
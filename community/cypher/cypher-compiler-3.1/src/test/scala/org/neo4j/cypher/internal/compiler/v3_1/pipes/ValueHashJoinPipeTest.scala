@@ -22,6 +22,7 @@ package org.neo4j.cypher.internal.compiler.v3_1.pipes
 import org.mockito.Matchers._
 import org.neo4j.cypher.internal.compiler.v3_1.ExecutionContext
 import org.neo4j.cypher.internal.compiler.v3_1.commands.expressions.Variable
+import org.neo4j.cypher.internal.compiler.v3_1.pipes.spill.QueryMemoryBudget
 import org.neo4j.cypher.internal.compiler.v3_1.symbols.SymbolTable
 import org.neo4j.cypher.internal.compiler.v3_1.test_helpers.TestableIterator
 import org.neo4j.cypher.internal.frontend.v3_1.symbols._
@@ -192,5 +193,23 @@ class ValueHashJoinPipeTest extends CypherFunSuite {
     when(pipe.symbols).thenReturn(symbolTable)
     pipe
   }
-}
 
+  test("should join partitions when the probe table does not fit in the memory budget") {
+    // given
+    val queryState = QueryStateHelper.emptyWith(memoryBudget = QueryMemoryBudget(1000))
+
+    val left = newMockedPipe(SymbolTable(Map("a" -> CTInteger)))
+    when(left.createResults(queryState)).thenReturn((0 until 100).map(i => row("a" -> i % 40, "a2" -> i)).toIterator)
+
+    val right = newMockedPipe(SymbolTable(Map("b" -> CTInteger)))
+    when(right.createResults(queryState)).thenReturn((0 until 40).map(i => row("b" -> i * 2)).toIterator)
+
+    // when
+    val result = ValueHashJoinPipe(Variable("a"), Variable("b"), left, right)().createResults(queryState)
+
+    // then
+    val expected = for (i <- 0 until 100 if i % 40 % 2 == 0) yield Map("a" -> i % 40, "a2" -> i, "b" -> i % 40)
+    result.map(_.m.toMap).toSet should equal(expected.toSet)
+    queryState.memoryBudget.reservedBytes should equal(0)
+  }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v3_1.pipes.slotted
+
+import org.mockito.Mockito.when
+import org.neo4j.cypher.internal.frontend.v3_1.symbols._
+import org.neo4j.cypher.internal.frontend.v3_1.test_helpers.CypherFunSuite
+import org.neo4j.graphdb.Node
+
+class MorselTest extends CypherFunSuite {
+
+  private val pipeline = PipelineInformation.empty.newLong("n", CTNode).newReference("x", CTAny)
+
+  test("should pack nodes into full morsels") {
+    val nodes = (0 until Morsel.DEFAULT_SIZE + 10).map(newMockedNode)
+
+    val morsels = Morsel.fromNodes(pipeline, 0, nodes.iterator).toList
+
+    morsels.map(_.validRows) should equal(List(Morsel.DEFAULT_SIZE, 10))
+    morsels(1).getLong(9, 0) should equal(Morsel.DEFAULT_SIZE + 9L)
+  }
+
+  test("should copy all slots of a row") {
+    val from = new Morsel(pipeline, 4)
+    val to = new Morsel(pipeline, 4)
+    from.setLong(2, 0, 42)
+    from.setRef(2, 0, "foo")
+
+    from.copyRow(2, to, 0)
+
+    to.getLong(0, 0) should equal(42L)
+    to.getRef(0, 0) should equal("foo")
+  }
+
+  test("should present the rows of morsels as execution contexts") {
+    val first = new Morsel(pipeline, 4)
+    first.setLong(0, 0, 1)
+    first.setRef(0, 0, "a")
+    first.validRows = 1
+    val empty = new Morsel(pipeline, 4)
+    val second = new Morsel(pipeline, 4)
+    second.setLong(0, 0, 2)
+    second.setRef(0, 0, "b")
+    second.setLong(1, 0, 3)
+    second.setRef(1, 0, "c")
+    second.validRows = 2
+
+    val rows = Morsel.rows(pipeline, Iterator(first, empty, second)).map {
+      case ctx: SlottedExecutionContext => (ctx.getLong(0), ctx("x"))
+    }.toList
+
+    rows should equal(List((1L, "a"), (2L, "b"), (3L, "c")))
+  }
+
+  test("should copy the current row out of the morsel when cloning a morsel row") {
+    val morsel = new Morsel(pipeline, 4)
+    morsel.setLong(1, 0, 42)
+    morsel.setRef(1, 0, "foo")
+    val cursor = new MorselExecutionContext(pipeline)
+    cursor.moveTo(morsel, 1)
+
+    val copy = cursor.clone()
+    morsel.setLong(1, 0, 43)
+
+    copy.getLong(0) should equal(42L)
+    copy("x") should equal("foo")
+  }
+
+  private def newMockedNode(id: Int) = {
+    val node = mock[Node]
+    when(node.getId).thenReturn(id.toLong)
+    node
+  }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v3_1.pipes.slotted
+
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.{ConcurrentHashMap, ExecutorService, Executors}
+
+import org.mockito.Matchers.any
+import org.mockito.Mockito.when
+import org.mockito.invocation.InvocationOnMock
+import org.mockito.stubbing.Answer
+import org.neo4j.cypher.internal.compiler.v3_1.pipes.{PipeMonitor, QueryStateHelper}
+import org.neo4j.cypher.internal.compiler.v3_1.spi.{Operations, QueryContext}
+import org.neo4j.cypher.internal.frontend.v3_1.symbols._
+import org.neo4j.cypher.internal.frontend.v3_1.test_helpers.CypherFunSuite
+import org.neo4j.graphdb.Node
+
+class MorselWorkersTest extends CypherFunSuite {
+
+  private implicit val monitor = mock[PipeMonitor]
+  private val pipeline = PipelineInformation.empty.newLong("n", CTNode)
+  private val scan = SlottedAllNodesScanPipe("n", pipeline)()
+
+  private var executor: ExecutorService = _
+  private val opened = new AtomicInteger()
+  private val closed = new AtomicInteger()
+
+  override protected def beforeEach() {
+    super.beforeEach()
+    executor = Executors.newCachedThreadPool()
+    opened.set(0)
+    closed.set(0)
+  }
+
+  override protected def afterEach() {
+    executor.shutdownNow()
+    super.afterEach()
+  }
+
+  test("should hand every morsel to one worker and let every worker see the end of the scan") {
+    val nodeCount = Morsel.DEFAULT_SIZE * 10 + 7
+    val workers = MorselWorkers(4, executor)
+    val threads = ConcurrentHashMap.newKeySet[Thread]()
+
+    val results = workers.run(scan, stateScanning((0 until nodeCount).iterator.map(newMockedNode))) {
+      (morsels, _) =>
+        threads.add(Thread.currentThread())
+        morsels.map(morsel => (0 until morsel.validRows).map(row => morsel.getLong(row, 0)).sum).sum
+    }
+
+    results should have size 4
+    results.sum should equal((0L until nodeCount).sum)
+    threads should have size 4
+    threads should not contain Thread.currentThread()
+    opened.get() should equal(4)
+    closed.get() should equal(4)
+  }
+
+  test("should stop all workers and rethrow the failure of a worker") {
+    val workers = MorselWorkers(4, executor)
+    val node = newMockedNode(0)
+    val failing = new AtomicInteger()
+
+    val exception = intercept[IllegalStateException] {
+      workers.run(scan, stateScanning(Iterator.continually(node))) { (morsels, _) =>
+        if (morsels.hasNext && failing.getAndIncrement() == 0)
+          throw new IllegalStateException("worker failed")
+        morsels.size
+      }
+    }
+
+    exception.getMessage should equal("worker failed")
+    opened.get() should equal(4)
+    closed.get() should equal(4)
+  }
+
+  test("should stop all workers and rethrow the failure of the scan") {
+    val workers = MorselWorkers(4, executor)
+    val nodes = (0 until Morsel.DEFAULT_SIZE * 3).iterator.map(newMockedNode) ++
+      Iterator.continually[Node](throw new IllegalStateException("scan failed"))
+    val finished = new AtomicInteger()
+
+    val exception = intercept[IllegalStateException] {
+      workers.run(scan, stateScanning(nodes)) { (morsels, _) =>
+        val count = morsels.size
+        finished.incrementAndGet()
+        count
+      }
+    }
+
+    exception.getMessage should equal("scan failed")
+    finished.get() should equal(4)
+    opened.get() should equal(4)
+    closed.get() should equal(4)
+  }
+
+  test("should only run in parallel with more than one worker and without changes in the transaction") {
+    val query = mock[QueryContext]
+    val state = QueryStateHelper.emptyWith(query = query)
+
+    when(query.transactionHasChanges).thenReturn(false)
+    MorselWorkers(4, executor).canRun(state) should equal(true)
+    MorselWorkers(1, executor).canRun(state) should equal(false)
+    MorselWorkers.serial.canRun(state) should equal(false)
+
+    when(query.transactionHasChanges).thenReturn(true)
+    MorselWorkers(4, executor).canRun(state) should equal(false)
+  }
+
+  private def stateScanning(nodes: Iterator[Node]) = {
+    val nodeOps = when(mock[Operations[Node]].all).thenReturn(nodes).getMock[Operations[Node]]
+    val query = when(mock[QueryContext].nodeOps).thenReturn(nodeOps).getMock[QueryContext]
+    val workerQuery = mock[QueryContext]
+    when(query.withReadOnlyWorkerContext(any[QueryContext => Any]())).thenAnswer(new Answer[Any] {
+      override def answer(invocation: InvocationOnMock): Any = {
+        val work = invocation.getArguments()(0).asInstanceOf[QueryContext => Any]
+        opened.incrementAndGet()
+        try work(workerQuery) finally closed.incrementAndGet()
+      }
+    })
+    QueryStateHelper.emptyWith(query = query)
+  }
+
+  private def newMockedNode(id: Int) = {
+    val node = mock[Node]
+    when(node.getId).thenReturn(id.toLong)
+    node
+  }
+}
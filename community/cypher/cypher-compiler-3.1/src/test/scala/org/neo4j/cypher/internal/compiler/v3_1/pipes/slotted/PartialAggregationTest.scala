@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v3_1.pipes.slotted
+
+import org.neo4j.cypher.internal.compiler.v3_1.ExecutionContext
+import org.neo4j.cypher.internal.compiler.v3_1.commands.expressions._
+import org.neo4j.cypher.internal.compiler.v3_1.pipes.QueryStateHelper
+import org.neo4j.cypher.internal.frontend.v3_1.test_helpers.CypherFunSuite
+
+class PartialAggregationTest extends CypherFunSuite {
+
+  test("should sum up partial counts") {
+    reduce(CountStar(), 2L, 0L, 3L) should equal(5L)
+    reduce(Count(Variable("x")), 1L, 4L) should equal(5L)
+  }
+
+  test("should take the minimum and maximum of partial minimums and maximums") {
+    reduce(Min(Variable("x")), 3, null, 1, 2) should equal(1)
+    reduce(Max(Variable("x")), 3, null, 1, 2) should equal(3)
+  }
+
+  test("should concatenate partially collected lists") {
+    reduce(Collect(Variable("x")), Seq(1, 2), Seq.empty, Seq(3)) should equal(Seq(1, 2, 3))
+  }
+
+  test("should not split aggregations that can not be reduced from partial results") {
+    PartialAggregation.reducer(Avg(Variable("x"))) should be(None)
+    PartialAggregation.reducer(Distinct(Count(Variable("x")), Variable("x"))) should be(None)
+  }
+
+  private def reduce(aggregation: AggregationExpression, partials: Any*): Any = {
+    val state = QueryStateHelper.empty
+    val reducer = PartialAggregation.reducer(aggregation).get.apply()
+    partials.foreach { partial =>
+      reducer(ExecutionContext.empty.newWith1(PartialAggregation.PartialResultKey, partial))(state)
+    }
+    reducer.result
+  }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v3_1.pipes.slotted
+
+import org.neo4j.cypher.internal.compiler.v3_1.ExecutionContext
+import org.neo4j.cypher.internal.frontend.v3_1.InternalException
+import org.neo4j.cypher.internal.frontend.v3_1.symbols._
+import org.neo4j.cypher.internal.frontend.v3_1.test_helpers.CypherFunSuite
+
+class SlottedExecutionContextTest extends CypherFunSuite {
+
+  private val pipeline = PipelineInformation.empty.newLong("n", CTNode).newReference("x", CTAny)
+
+  test("should copy slots when creating a new row") {
+    val row = new SlottedExecutionContext(pipeline)
+    row.setLong(0, 42)
+    row.setRef(0, "foo")
+
+    val copy = row.newWith1("y", 1)
+    row.setLong(0, 43)
+    row.setRef(0, "bar")
+
+    copy shouldBe a [SlottedExecutionContext]
+    copy.asInstanceOf[SlottedExecutionContext].getLong(0) should equal(42)
+    copy("x") should equal("foo")
+    copy("y") should equal(1)
+    row.get("y") should equal(None)
+  }
+
+  test("should write reference slots when setting a value by name") {
+    val row = new SlottedExecutionContext(pipeline)
+
+    row.put("x", "foo")
+
+    row.getRef(0) should equal("foo")
+    row.toMap should equal(Map("x" -> "foo"))
+  }
+
+  test("should not allow reading a long slot by name") {
+    val row = new SlottedExecutionContext(pipeline)
+
+    an [InternalException] should be thrownBy row.get("n")
+  }
+
+  test("should support the members inherited from execution context") {
+    val row = new SlottedExecutionContext(pipeline)
+    row.setRef(0, "foo")
+
+    row.m.put("y", 1)
+
+    row("y") should equal(1)
+    row.m should equal(Map("x" -> "foo", "y" -> 1))
+    (ExecutionContext.from("z" -> 2) ++ row).toMap should equal(Map("x" -> "foo", "y" -> 1, "z" -> 2))
+    row.copy(m = row.m.clone()).toMap should equal(Map("x" -> "foo", "y" -> 1))
+  }
+}
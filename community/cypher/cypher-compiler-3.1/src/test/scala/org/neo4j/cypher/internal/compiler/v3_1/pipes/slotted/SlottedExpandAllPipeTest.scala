@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v3_1.pipes.slotted
+
+import org.mockito.Matchers._
+import org.mockito.Mockito._
+import org.mockito.invocation.InvocationOnMock
+import org.mockito.stubbing.Answer
+import org.neo4j.cypher.internal.compiler.v3_1.pipes.{LazyTypes, PipeMonitor, QueryStateHelper}
+import org.neo4j.cypher.internal.compiler.v3_1.spi.{Operations, QueryContext}
+import org.neo4j.cypher.internal.frontend.v3_1.SemanticDirection
+import org.neo4j.cypher.internal.frontend.v3_1.symbols._
+import org.neo4j.cypher.internal.frontend.v3_1.test_helpers.CypherFunSuite
+import org.neo4j.graphdb.{Node, Relationship}
+
+class SlottedExpandAllPipeTest extends CypherFunSuite {
+
+  private implicit val monitor = mock[PipeMonitor]
+  private val pipeline = PipelineInformation.empty.newLong("a", CTNode).newLong("r", CTRelationship).newLong("b", CTNode)
+
+  test("should write the ids of every expanded relationship and node into the slots of a copy of the row") {
+    val (a, b, c) = (newMockedNode(1), newMockedNode(2), newMockedNode(3))
+    val query = newQuery(Seq(a, b, c), Map(
+      a -> Seq(newMockedRelationship(10, a, b), newMockedRelationship(11, a, c)),
+      c -> Seq(newMockedRelationship(12, c, a))))
+
+    val rows = expandPipe.createResults(QueryStateHelper.emptyWith(query = query)).map {
+      case row: SlottedExecutionContext => (row.getLong(0), row.getLong(1), row.getLong(2))
+    }.toList
+
+    rows should equal(List((1L, 10L, 2L), (1L, 11L, 3L), (3L, 12L, 1L)))
+  }
+
+  test("should fill every morsel before handing it on, continuing expansions across morsels") {
+    val nodes = (1 to 4).map(newMockedNode)
+    val target = newMockedNode(100)
+    var relId = 0
+    val relationships = nodes.take(3).map { node =>
+      node -> (1 to 400).map { _ =>
+        relId += 1
+        newMockedRelationship(relId, node, target)
+      }
+    }.toMap
+    val state = QueryStateHelper.emptyWith(query = newQuery(nodes :+ target, relationships))
+
+    val morsels = expandPipe.createMorsels(state).toList
+    val expanded = for (morsel <- morsels; row <- 0 until morsel.validRows)
+      yield (morsel.getLong(row, 0), morsel.getLong(row, 1), morsel.getLong(row, 2))
+
+    morsels.map(_.validRows) should equal(List(Morsel.DEFAULT_SIZE, 1200 - Morsel.DEFAULT_SIZE))
+    expanded should equal(expandPipe.createResults(state).map {
+      case row: SlottedExecutionContext => (row.getLong(0), row.getLong(1), row.getLong(2))
+    }.toList)
+    expanded.map(_._2) should equal((1L to 1200L).toList)
+  }
+
+  private def expandPipe =
+    SlottedExpandAllPipe(SlottedAllNodesScanPipe("a", pipeline)(), "a", "r", "b", SemanticDirection.OUTGOING,
+                         LazyTypes.empty, pipeline)()
+
+  private def newQuery(nodes: Seq[Node], relationships: Map[Node, Seq[Relationship]]) = {
+    val nodeOps = mock[Operations[Node]]
+    when(nodeOps.all).thenAnswer(new Answer[Iterator[Node]] {
+      def answer(invocation: InvocationOnMock): Iterator[Node] = nodes.iterator
+    })
+    when(nodeOps.getById(anyLong())).thenAnswer(new Answer[Node] {
+      def answer(invocation: InvocationOnMock): Node =
+        nodes.find(_.getId == invocation.getArguments()(0).asInstanceOf[Long]).get
+    })
+    val query = mock[QueryContext]
+    when(query.nodeOps).thenReturn(nodeOps)
+    when(query.getRelationshipsForIds(any(), any(), any())).thenAnswer(new Answer[Iterator[Relationship]] {
+      def answer(invocation: InvocationOnMock): Iterator[Relationship] =
+        relationships.getOrElse(invocation.getArguments()(0).asInstanceOf[Node], Seq.empty).iterator
+    })
+    query
+  }
+
+  private def newMockedNode(id: Int) = {
+    val node = mock[Node]
+    when(node.getId).thenReturn(id.toLong)
+    node
+  }
+
+  private def newMockedRelationship(id: Int, startNode: Node, endNode: Node) = {
+    val relationship = mock[Relationship]
+    when(relationship.getId).thenReturn(id.toLong)
+    when(relationship.getOtherNode(startNode)).thenReturn(endNode)
+    relationship
+  }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v3_1.pipes.slotted
+
+import org.mockito.Matchers.{any, anyLong}
+import org.mockito.Mockito.when
+import org.mockito.invocation.InvocationOnMock
+import org.mockito.stubbing.Answer
+import org.neo4j.cypher.internal.compiler.v3_1.ExecutionContext
+import org.neo4j.cypher.internal.compiler.v3_1.commands.expressions.{Literal, NodeFromSlot, ReferenceFromSlot}
+import org.neo4j.cypher.internal.compiler.v3_1.pipes.{Pipe, PipeMonitor, QueryStateHelper}
+import org.neo4j.cypher.internal.compiler.v3_1.spi.{Operations, QueryContext}
+import org.neo4j.cypher.internal.frontend.v3_1.symbols._
+import org.neo4j.cypher.internal.frontend.v3_1.test_helpers.CypherFunSuite
+import org.neo4j.graphdb.Node
+
+class SlottedProduceResultsPipeTest extends CypherFunSuite {
+
+  private implicit val monitor = mock[PipeMonitor]
+  private val pipeline = PipelineInformation.empty.newLong("a", CTNode).newReference("x", CTAny)
+  private val nodes = (0 until Morsel.DEFAULT_SIZE + 5).map(newMockedNode)
+  private val state = QueryStateHelper.emptyWith(query = newQuery(nodes))
+  private val columns = Seq("a" -> NodeFromSlot(0, "a"), "x" -> ReferenceFromSlot(0, "x"))
+
+  test("should turn slotted rows into named rows, materializing nodes held by id") {
+    val source = mock[Pipe]
+    when(source.createResults(any())).thenReturn(Iterator(slottedRow(2, "foo"), slottedRow(0, "bar")))
+
+    val results = SlottedProduceResultsPipe(source, columns)().createResults(state).toList
+
+    results.map(_.toMap) should equal(List(Map("a" -> nodes(2), "x" -> "foo"), Map("a" -> nodes(0), "x" -> "bar")))
+    results.foreach(_ should not be a [SlottedExecutionContext])
+  }
+
+  test("should produce named rows for every row of the morsels of its source") {
+    val projection = SlottedProjectionPipe(SlottedAllNodesScanPipe("a", pipeline)(), Map("x" -> Literal("foo")),
+                                           pipeline)()
+
+    val results = SlottedProduceResultsPipe(projection, columns)().createResults(state).toList
+
+    results.map(_.toMap) should equal(nodes.map(node => Map("a" -> node, "x" -> "foo")).toList)
+  }
+
+  private def slottedRow(node: Long, x: Any): ExecutionContext = {
+    val row = new SlottedExecutionContext(pipeline)
+    row.setLong(0, node)
+    row.setRef(0, x)
+    row
+  }
+
+  private def newQuery(nodes: Seq[Node]) = {
+    val nodeOps = mock[Operations[Node]]
+    when(nodeOps.all).thenAnswer(new Answer[Iterator[Node]] {
+      def answer(invocation: InvocationOnMock): Iterator[Node] = nodes.iterator
+    })
+    when(nodeOps.getById(anyLong())).thenAnswer(new Answer[Node] {
+      def answer(invocation: InvocationOnMock): Node = nodes(invocation.getArguments()(0).asInstanceOf[Long].toInt)
+    })
+    when(mock[QueryContext].nodeOps).thenReturn(nodeOps).getMock[QueryContext]
+  }
+
+  private def newMockedNode(id: Int) = {
+    val node = mock[Node]
+    when(node.getId).thenReturn(id.toLong)
+    node
+  }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v3_1.pipes.slotted
+
+import org.mockito.Matchers.anyLong
+import org.mockito.Mockito.when
+import org.mockito.invocation.InvocationOnMock
+import org.mockito.stubbing.Answer
+import org.neo4j.cypher.internal.compiler.v3_1.commands.expressions.{IdFunction, Literal, NodeFromSlot}
+import org.neo4j.cypher.internal.compiler.v3_1.pipes.{PipeMonitor, QueryStateHelper}
+import org.neo4j.cypher.internal.compiler.v3_1.spi.{Operations, QueryContext}
+import org.neo4j.cypher.internal.frontend.v3_1.symbols._
+import org.neo4j.cypher.internal.frontend.v3_1.test_helpers.CypherFunSuite
+import org.neo4j.graphdb.Node
+
+class SlottedProjectionPipeTest extends CypherFunSuite {
+
+  private implicit val monitor = mock[PipeMonitor]
+  private val pipeline = PipelineInformation.empty.newLong("a", CTNode).newReference("id", CTAny).newReference("x", CTAny)
+  private val nodes = (0 until Morsel.DEFAULT_SIZE + 5).map(newMockedNode)
+  private val state = QueryStateHelper.emptyWith(query = newQuery(nodes))
+
+  private val projection = SlottedProjectionPipe(SlottedAllNodesScanPipe("a", pipeline)(),
+                                                 Map("id" -> IdFunction(NodeFromSlot(0, "a")), "x" -> Literal("foo")),
+                                                 pipeline)()
+
+  test("should write projected values into their reference slots") {
+    val rows = projection.createResults(state).map {
+      case row: SlottedExecutionContext => (row.getLong(0), row.getRef(0), row.getRef(1), row("x"))
+    }.toList
+
+    rows should equal(nodes.map(node => (node.getId, node.getId, "foo", "foo")).toList)
+  }
+
+  test("should write projected values into the rows of every morsel") {
+    val morsels = projection.createMorsels(state).toList
+    val rows = for (morsel <- morsels; row <- 0 until morsel.validRows)
+      yield (morsel.getLong(row, 0), morsel.getRef(row, 0), morsel.getRef(row, 1))
+
+    morsels.map(_.validRows) should equal(List(Morsel.DEFAULT_SIZE, 5))
+    rows should equal(nodes.map(node => (node.getId, node.getId, "foo")).toList)
+  }
+
+  private def newQuery(nodes: Seq[Node]) = {
+    val nodeOps = mock[Operations[Node]]
+    when(nodeOps.all).thenAnswer(new Answer[Iterator[Node]] {
+      def answer(invocation: InvocationOnMock): Iterator[Node] = nodes.iterator
+    })
+    when(nodeOps.getById(anyLong())).thenAnswer(new Answer[Node] {
+      def answer(invocation: InvocationOnMock): Node = nodes(invocation.getArguments()(0).asInstanceOf[Long].toInt)
+    })
+    when(mock[QueryContext].nodeOps).thenReturn(nodeOps).getMock[QueryContext]
+  }
+
+  private def newMockedNode(id: Int) = {
+    val node = mock[Node]
+    when(node.getId).thenReturn(id.toLong)
+    node
+  }
+}
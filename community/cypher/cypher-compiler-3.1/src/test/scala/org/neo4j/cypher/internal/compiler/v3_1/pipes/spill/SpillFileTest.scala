@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v3_1.pipes.spill
+
+import java.io.File
+import java.nio.file.Files
+
+import org.mockito.Mockito._
+import org.neo4j.cypher.internal.compiler.v3_1.{CRS, CartesianPoint, ExecutionContext, GeographicPoint}
+import org.neo4j.cypher.internal.frontend.v3_1.CypherTypeException
+import org.neo4j.cypher.internal.frontend.v3_1.test_helpers.CypherFunSuite
+import org.neo4j.graphdb.{Node, Path, Relationship}
+
+class SpillFileTest extends CypherFunSuite {
+
+  private val directory = Files.createTempDirectory("spill-file-test").toFile
+  directory.deleteOnExit()
+  private val budget = QueryMemoryBudget(1, directory)
+
+  override protected def afterEach(): Unit = {
+    budget.close()
+    super.afterEach()
+  }
+
+  test("should read back the values that were written") {
+    val row = ExecutionContext.from(
+      "null" -> null,
+      "boolean" -> true,
+      "int" -> 42,
+      "long" -> 42L,
+      "double" -> 4.2,
+      "string" -> "hällo wörld" * 10000,
+      "list" -> List(1L, "two", List(3.0)),
+      "map" -> Map("a" -> 1L, "b" -> Map("c" -> "d")),
+      "javaList" -> java.util.Arrays.asList(1L, 2L))
+
+    val file = budget.newSpillFile()
+    file.write(row)
+    val result = file.read().toList
+
+    result should equal(List(row))
+  }
+
+  test("should read back arrays with their component type") {
+    val file = budget.newSpillFile()
+    file.write(ExecutionContext.from("ints" -> Array(1, 2, 3), "strings" -> Array("a", "b")))
+
+    val result = file.read().next()
+
+    result("ints").asInstanceOf[Array[Int]].toList should equal(List(1, 2, 3))
+    result("strings").asInstanceOf[Array[String]].toList should equal(List("a", "b"))
+  }
+
+  test("should give back the same nodes and relationships without looking them up again") {
+    // Entities that the query deletes before the rows are read back can no longer be looked up by id
+    val node = mock[Node]
+    val relationship = mock[Relationship]
+    val path = mock[Path]
+
+    val file = budget.newSpillFile()
+    file.write(ExecutionContext.from("n" -> node, "r" -> relationship, "p" -> path, "l" -> List(node, relationship)))
+    val result = file.read().next()
+
+    result("n").asInstanceOf[AnyRef] should be theSameInstanceAs node
+    result("r").asInstanceOf[AnyRef] should be theSameInstanceAs relationship
+    result("p").asInstanceOf[AnyRef] should be theSameInstanceAs path
+    result("l") should equal(List(node, relationship))
+    verifyZeroInteractions(node, relationship, path)
+  }
+
+  test("should read back points") {
+    val row = ExecutionContext.from(
+      "cartesian" -> CartesianPoint(1.5, 2.5, CRS.Cartesian),
+      "geographic" -> GeographicPoint(12.9, 56.7, CRS.WGS84))
+
+    val file = budget.newSpillFile()
+    file.write(row)
+
+    file.read().toList should equal(List(row))
+  }
+
+  test("should refuse to spill values it has no encoding for") {
+    val file = budget.newSpillFile()
+
+    a [CypherTypeException] should be thrownBy file.write(ExecutionContext.from("x" -> new java.util.Date()))
+  }
+
+  test("should create the spill directory when it does not exist yet") {
+    val missing = new File(directory, "missing")
+    val budget = QueryMemoryBudget(1, missing)
+    try {
+      budget.newSpillFile().write(ExecutionContext.from("x" -> 1))
+
+      missing.listFiles() should have size 1
+    } finally {
+      budget.close()
+      missing.delete()
+    }
+  }
+
+  test("should remove the file once all rows have been read") {
+    val file = budget.newSpillFile()
+    (0 until 10).foreach(i => file.write(ExecutionContext.from("x" -> i)))
+
+    file.read().map(_("x")).toList should equal(0 until 10)
+
+    directory.listFiles() shouldBe empty
+  }
+
+  test("should charge the entities it holds on to to the budget until the file is removed") {
+    val file = budget.newSpillFile()
+    file.write(ExecutionContext.from("x" -> 1))
+    budget.reservedBytes should equal(0L)
+
+    file.write(ExecutionContext.from("n" -> mock[Node], "r" -> mock[Relationship]))
+    budget.reservedBytes should be > 0L
+
+    file.read().toList should have size 2
+    budget.reservedBytes should equal(0L)
+  }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v3_1.planner.execution.slotted
+
+import org.neo4j.cypher.internal.compiler.v3_1.pipes.slotted.{LongSlot, RefSlot}
+import org.neo4j.cypher.internal.compiler.v3_1.planner.logical.Ascending
+import org.neo4j.cypher.internal.compiler.v3_1.planner.logical.plans._
+import org.neo4j.cypher.internal.compiler.v3_1.planner.{CantCompileQueryException, LogicalPlanningTestSupport}
+import org.neo4j.cypher.internal.frontend.v3_1.SemanticDirection
+import org.neo4j.cypher.internal.frontend.v3_1.symbols._
+import org.neo4j.cypher.internal.frontend.v3_1.test_helpers.CypherFunSuite
+
+class SlotAllocationTest extends CypherFunSuite with LogicalPlanningTestSupport {
+
+  test("should give nodes and relationships of an expansion long slots") {
+    val scan = AllNodesScan(IdName("a"), Set.empty)(solved)
+    val expand = Expand(scan, IdName("a"), SemanticDirection.OUTGOING, Seq.empty, IdName("b"), IdName("r"), ExpandAll)(solved)
+    val plan = ProduceResult(Seq("a", "r", "b"), expand)
+
+    val pipeline = SlotAllocation.allocateSlots(plan)
+
+    pipeline.numberOfLongs should equal(3)
+    pipeline.numberOfReferences should equal(0)
+    pipeline.slots should equal(Map(
+      "a" -> LongSlot(0, CTNode),
+      "r" -> LongSlot(1, CTRelationship),
+      "b" -> LongSlot(2, CTNode)))
+  }
+
+  test("should give projected values reference slots and skip projections of a variable onto itself") {
+    val scan = NodeByLabelScan(IdName("a"), lblName("Person"), Set.empty)(solved)
+    val projection = Projection(scan, Map("a" -> varFor("a"), "x" -> literalInt(42)))(solved)
+    val plan = ProduceResult(Seq("a", "x"), projection)
+
+    val pipeline = SlotAllocation.allocateSlots(plan)
+
+    pipeline.slots should equal(Map("a" -> LongSlot(0, CTNode), "x" -> RefSlot(0, CTAny)))
+  }
+
+  test("should not support projecting a new value into a long slot") {
+    val scan = AllNodesScan(IdName("a"), Set.empty)(solved)
+    val projection = Projection(scan, Map("a" -> literalInt(42)))(solved)
+
+    a [CantCompileQueryException] should be thrownBy SlotAllocation.allocateSlots(projection)
+  }
+
+  test("should give grouping expressions of a distinct reference slots") {
+    val scan = AllNodesScan(IdName("a"), Set.empty)(solved)
+    val distinct = Aggregation(scan, Map("a" -> varFor("a"), "x" -> literalInt(42)), Map.empty)(solved)
+    val plan = ProduceResult(Seq("a", "x"), distinct)
+
+    val pipeline = SlotAllocation.allocateSlots(plan)
+
+    pipeline.slots should equal(Map("a" -> LongSlot(0, CTNode), "x" -> RefSlot(0, CTAny)))
+  }
+
+  test("should sort on values in reference slots") {
+    val scan = AllNodesScan(IdName("a"), Set.empty)(solved)
+    val projection = Projection(scan, Map("x" -> literalInt(42)))(solved)
+    val plan = Sort(projection, Seq(Ascending(IdName("x"))))(solved)
+
+    val pipeline = SlotAllocation.allocateSlots(plan)
+
+    pipeline.slots should equal(Map("a" -> LongSlot(0, CTNode), "x" -> RefSlot(0, CTAny)))
+  }
+
+  test("should not support sorting on values in long slots") {
+    val scan = AllNodesScan(IdName("a"), Set.empty)(solved)
+    val plan = Sort(scan, Seq(Ascending(IdName("a"))))(solved)
+
+    a [CantCompileQueryException] should be thrownBy SlotAllocation.allocateSlots(plan)
+  }
+
+  test("should not support plans without a slotted pipe") {
+    val lhs = AllNodesScan(IdName("a"), Set.empty)(solved)
+    val rhs = AllNodesScan(IdName("b"), Set.empty)(solved)
+    val plan = CartesianProduct(lhs, rhs)(solved)
+
+    a [CantCompileQueryException] should be thrownBy SlotAllocation.allocateSlots(plan)
+  }
+
+  test("should not support leaves that take arguments") {
+    val plan = AllNodesScan(IdName("a"), Set(IdName("b")))(solved)
+
+    a [CantCompileQueryException] should be thrownBy SlotAllocation.allocateSlots(plan)
+  }
+}
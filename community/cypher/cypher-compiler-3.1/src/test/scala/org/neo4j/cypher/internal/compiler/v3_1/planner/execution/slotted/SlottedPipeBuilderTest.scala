@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v3_1.planner.execution.slotted
+
+import java.time.Clock
+
+import org.mockito.Mockito.when
+import org.neo4j.cypher.internal.compiler.v3_1.commands.expressions.{Literal, NodeFromSlot, Property, ReferenceFromSlot, RelationshipFromSlot}
+import org.neo4j.cypher.internal.compiler.v3_1.commands.predicates
+import org.neo4j.cypher.internal.compiler.v3_1.pipes._
+import org.neo4j.cypher.internal.compiler.v3_1.pipes.slotted._
+import org.neo4j.cypher.internal.compiler.v3_1.planner.execution.PipeExecutionPlanBuilder
+import org.neo4j.cypher.internal.compiler.v3_1.planner.logical.plans._
+import org.neo4j.cypher.internal.compiler.v3_1.planner.logical.{Ascending => AscendingPlan}
+import org.neo4j.cypher.internal.compiler.v3_1.planner.{CantCompileQueryException, LogicalPlanningTestSupport}
+import org.neo4j.cypher.internal.compiler.v3_1.spi.PlanContext
+import org.neo4j.cypher.internal.frontend.v3_1.SemanticDirection
+import org.neo4j.cypher.internal.frontend.v3_1.ast.{Equals, NilPathStep, NodePathStep, PathExpression, StringLiteral}
+import org.neo4j.cypher.internal.frontend.v3_1.test_helpers.CypherFunSuite
+
+class SlottedPipeBuilderTest extends CypherFunSuite with LogicalPlanningTestSupport {
+
+  implicit val planContext: PlanContext = newMockedPlanContext
+  implicit val pipeMonitor = mock[PipeMonitor]
+  implicit val pipeBuildContext = newMockedPipeExecutionPlanBuilderContext
+  when(planContext.getOptPropertyKeyId("name")).thenReturn(Some(1))
+  when(planContext.getOptPropertyKeyId("age")).thenReturn(Some(2))
+
+  private def build(plan: LogicalPlan): (Pipe, PipelineInformation) = {
+    val pipeline = SlotAllocation.allocateSlots(plan)
+    val builder = new PipeExecutionPlanBuilder(Clock.systemUTC(), monitors,
+                                               new SlottedPipeBuilderFactory(pipeline, MorselWorkers.serial))
+    (builder.build(None, plan).pipe, pipeline)
+  }
+
+  test("should build slotted pipes for a scan and an expansion") {
+    val scan = AllNodesScan(IdName("a"), Set.empty)(solved)
+    val expand = Expand(scan, IdName("a"), SemanticDirection.OUTGOING, Seq.empty, IdName("b"), IdName("r"), ExpandAll)(solved)
+    val plan = ProduceResult(Seq("a", "r", "b"), expand)
+
+    val (pipe, pipeline) = build(plan)
+
+    pipe should equal(
+      SlottedProduceResultsPipe(
+        SlottedExpandAllPipe(SlottedAllNodesScanPipe("a", pipeline)(), "a", "r", "b", SemanticDirection.OUTGOING,
+                             LazyTypes.empty, pipeline)(),
+        Seq("a" -> NodeFromSlot(0, "a"), "r" -> RelationshipFromSlot(1, "r"), "b" -> NodeFromSlot(2, "b")))())
+  }
+
+  test("should read variables with a slot from their slot in expressions") {
+    val scan = NodeByLabelScan(IdName("a"), lblName("Person"), Set.empty)(solved)
+    val filter = Selection(Seq(Equals(prop("a", "name"), StringLiteral("Alice")(pos))(pos)), scan)(solved)
+    val projection = Projection(filter, Map("a" -> varFor("a"), "x" -> prop("a", "age")))(solved)
+    val plan = ProduceResult(Seq("a", "x"), projection)
+
+    val (pipe, pipeline) = build(plan)
+
+    val SlottedProduceResultsPipe(SlottedProjectionPipe(SlottedFilterPipe(source, predicate, _), expressions, _), columns) = pipe
+    source should equal(SlottedNodeByLabelScanPipe("a", LazyLabel("Person"), pipeline)())
+    predicate should matchPattern { case predicates.Equals(Property(NodeFromSlot(0, "a"), _), Literal("Alice")) => }
+    expressions.keySet should equal(Set("x"))
+    expressions("x") should matchPattern { case Property(NodeFromSlot(0, "a"), _) => }
+    columns should equal(Seq("a" -> NodeFromSlot(0, "a"), "x" -> ReferenceFromSlot(0, "x")))
+  }
+
+  test("should build a top pipe for a sort followed by a limit, and plain pipes for skip and limit") {
+    val scan = AllNodesScan(IdName("a"), Set.empty)(solved)
+    val projection = Projection(scan, Map("x" -> prop("a", "age")))(solved)
+    val sort = Sort(projection, Seq(AscendingPlan(IdName("x"))))(solved)
+    val top = Limit(sort, literalInt(10), DoNotIncludeTies)(solved)
+    val skip = Skip(Limit(projection, literalInt(10), DoNotIncludeTies)(solved), literalInt(2))(solved)
+
+    val (topPipe, _) = build(top)
+    val (skipPipe, _) = build(skip)
+
+    topPipe should matchPattern {
+      case SlottedTopPipe(_: SlottedProjectionPipe, List(Ascending("x")), Literal(10), _, MorselWorkers.serial) =>
+    }
+    skipPipe should matchPattern { case SkipPipe(LimitPipe(_: SlottedProjectionPipe, Literal(10)), Literal(2)) => }
+  }
+
+  test("should not build pipes for plans the slotted runtime does not support") {
+    val scan = AllNodesScan(IdName("a"), Set.empty)(solved)
+    val optional = Optional(scan)(solved)
+    val product = CartesianProduct(scan, AllNodesScan(IdName("b"), Set.empty)(solved))(solved)
+
+    a [CantCompileQueryException] should be thrownBy build(optional)
+    a [CantCompileQueryException] should be thrownBy build(product)
+  }
+
+  test("should not build pipes for expressions that read variables by name") {
+    val scan = AllNodesScan(IdName("a"), Set.empty)(solved)
+    val path = PathExpression(NodePathStep(varFor("a"), NilPathStep))(pos)
+    val plan = ProduceResult(Seq("p"), Projection(scan, Map("p" -> path))(solved))
+
+    a [CantCompileQueryException] should be thrownBy build(plan)
+  }
+}
@@ -71,6 +71,9 @@ class LogicalPlan2PlanDescriptionTest extends CypherFunSuite with TableDrivenPro
       , Expand(lhsLP, IdName("a"), SemanticDirection.OUTGOING, Seq.empty, IdName("a"), IdName("r1"), ExpandInto)(113) ->
         PlanDescriptionImpl(id, "Expand(Into)", SingleChild(lhsPD), Seq(ExpandExpression("a", "r1", Seq.empty, "a", SemanticDirection.OUTGOING, 1, Some(1)), EstimatedRows(113)), Set("a", "r1"))
 
+      , VarExpand(lhsLP, IdName("a"), SemanticDirection.INCOMING, SemanticDirection.OUTGOING, Seq(RelTypeName("R")(pos)), IdName("b"), IdName("r1"), VarPatternLength(1, Some(3)))(64) ->
+        PlanDescriptionImpl(id, "VarLengthExpand(All)", SingleChild(lhsPD), Seq(ExpandExpression("a", "r1", Seq("R"), "b", SemanticDirection.INCOMING, 1, Some(3)), EstimatedRows(64)), Set("a", "r1", "b"))
+
       , NodeHashJoin(Set(IdName("a")), lhsLP, rhsLP)(2345) ->
         PlanDescriptionImpl(id, "NodeHashJoin", TwoChildren(lhsPD, rhsPD), Seq(KeyNames(Seq("a")), EstimatedRows(2345)), Set("a", "b"))
     )
@@ -58,6 +58,10 @@ trait QueryContextAdaptation {
     */
   override def withAnyOpenQueryContext[T](work: (QueryContext) => T): T = ???
 
+  override def withReadOnlyWorkerContext[T](work: (QueryContext) => T): T = ???
+
+  override def transactionHasChanges: Boolean = ???
+
   // Legacy dependency between kernel and compiler
   override def variableLengthPathExpand(node: PatternNode, realNode: Node, minHops: Option[Int], maxHops: Option[Int], direction: SemanticDirection, relTypes: Seq[String]): scala.Iterator[Path] = ???
 
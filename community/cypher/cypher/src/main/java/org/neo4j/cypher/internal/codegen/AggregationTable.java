@@ -0,0 +1,351 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.codegen;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.neo4j.cypher.internal.frontend.v3_1.CypherTypeException;
+import org.neo4j.cypher.internal.frontend.v3_1.SyntaxException;
+
+/**
+ * Groups the rows consumed by a compiled aggregation on their grouping keys and keeps the aggregates of every group.
+ * <p>
+ * Grouping keys are compared the way the interpreted runtime compares them, and the aggregate functions follow the
+ * semantics of their interpreted counterparts. Iterating the table produces one row per group, holding the grouping
+ * keys followed by the aggregated values. An aggregation without grouping keys always produces exactly one row.
+ */
+public final class AggregationTable implements Iterable<List<Object>>
+{
+    public enum Function
+    {
+        COUNT, SUM, AVG, MIN, MAX, COLLECT
+    }
+
+    private final int numberOfKeys;
+    private final Function[] functions;
+    private final boolean[] distinct;
+    private final Map<Object,Group> groups = new LinkedHashMap<>();
+
+    public AggregationTable( int numberOfKeys, String[] functions, boolean[] distinct )
+    {
+        this.numberOfKeys = numberOfKeys;
+        this.functions = new Function[functions.length];
+        for ( int i = 0; i < functions.length; i++ )
+        {
+            this.functions[i] = Function.valueOf( functions[i] );
+        }
+        this.distinct = distinct;
+    }
+
+    /**
+     * Adds one row to the group of the given keys.
+     *
+     * @param keys the values of the grouping keys of the row
+     * @param values the values of the aggregated expressions of the row, one per aggregate function
+     */
+    public void aggregate( Object[] keys, Object[] values )
+    {
+        Object groupKey = CompiledConversionUtils.groupingKey( keys );
+        Group group = groups.get( groupKey );
+        if ( group == null )
+        {
+            group = new Group( keys );
+            groups.put( groupKey, group );
+        }
+        group.aggregate( values );
+    }
+
+    @Override
+    public Iterator<List<Object>> iterator()
+    {
+        if ( numberOfKeys == 0 && groups.isEmpty() )
+        {
+            return Collections.singletonList( new Group( new Object[0] ).row() ).iterator();
+        }
+        Iterator<Group> inner = groups.values().iterator();
+        return new Iterator<List<Object>>()
+        {
+            @Override
+            public boolean hasNext()
+            {
+                return inner.hasNext();
+            }
+
+            @Override
+            public List<Object> next()
+            {
+                return inner.next().row();
+            }
+        };
+    }
+
+    private final class Group
+    {
+        private final Object[] keys;
+        private final Aggregator[] aggregators;
+
+        Group( Object[] keys )
+        {
+            this.keys = keys;
+            this.aggregators = new Aggregator[functions.length];
+            for ( int i = 0; i < functions.length; i++ )
+            {
+                Aggregator aggregator = newAggregator( functions[i] );
+                aggregators[i] = distinct[i] ? new DistinctAggregator( aggregator ) : aggregator;
+            }
+        }
+
+        void aggregate( Object[] values )
+        {
+            for ( int i = 0; i < aggregators.length; i++ )
+            {
+                aggregators[i].update( values[i] );
+            }
+        }
+
+        List<Object> row()
+        {
+            Object[] row = Arrays.copyOf( keys, keys.length + aggregators.length );
+            for ( int i = 0; i < aggregators.length; i++ )
+            {
+                row[keys.length + i] = aggregators[i].result();
+            }
+            return Arrays.asList( row );
+        }
+    }
+
+    private static Aggregator newAggregator( Function function )
+    {
+        switch ( function )
+        {
+        case COUNT:
+            return new Count();
+        case SUM:
+            return new Sum();
+        case AVG:
+            return new Avg();
+        case MIN:
+            return new MinMax( true );
+        case MAX:
+            return new MinMax( false );
+        case COLLECT:
+            return new Collect();
+        default:
+            throw new IllegalArgumentException( "Unknown aggregate function " + function );
+        }
+    }
+
+    private interface Aggregator
+    {
+        void update( Object value );
+
+        Object result();
+    }
+
+    private static final class DistinctAggregator implements Aggregator
+    {
+        private final Set<Object> seen = new HashSet<>();
+        private final Aggregator inner;
+
+        DistinctAggregator( Aggregator inner )
+        {
+            this.inner = inner;
+        }
+
+        @Override
+        public void update( Object value )
+        {
+            if ( value != null && seen.add( CompiledConversionUtils.groupingKey( value ) ) )
+            {
+                inner.update( value );
+            }
+        }
+
+        @Override
+        public Object result()
+        {
+            return inner.result();
+        }
+    }
+
+    private static final class Count implements Aggregator
+    {
+        private long count;
+
+        @Override
+        public void update( Object value )
+        {
+            if ( value != null )
+            {
+                count++;
+            }
+        }
+
+        @Override
+        public Object result()
+        {
+            return count;
+        }
+    }
+
+    private static final class Sum implements Aggregator
+    {
+        private long longSum;
+        private double doubleSum;
+        private boolean floatingPoint;
+
+        @Override
+        public void update( Object value )
+        {
+            Number number = asNumber( "SUM", value );
+            if ( number == null )
+            {
+                return;
+            }
+            if ( !floatingPoint && !(number instanceof Double || number instanceof Float) )
+            {
+                try
+                {
+                    longSum = Math.addExact( longSum, number.longValue() );
+                    return;
+                }
+                catch ( ArithmeticException e )
+                {
+                    // widen to a floating point sum, like the interpreted sum does on overflow
+                }
+            }
+            if ( !floatingPoint )
+            {
+                floatingPoint = true;
+                doubleSum = longSum;
+            }
+            doubleSum += number.doubleValue();
+        }
+
+        @Override
+        public Object result()
+        {
+            return floatingPoint ? (Object) doubleSum : (Object) longSum;
+        }
+    }
+
+    private static final class Avg implements Aggregator
+    {
+        private long count;
+        private double average;
+
+        @Override
+        public void update( Object value )
+        {
+            Number number = asNumber( "AVG", value );
+            if ( number != null )
+            {
+                count++;
+                average += (number.doubleValue() - average) / count;
+            }
+        }
+
+        @Override
+        public Object result()
+        {
+            return count > 0 ? average : null;
+        }
+    }
+
+    private static final class MinMax implements Aggregator
+    {
+        private final boolean min;
+        private Object current;
+
+        MinMax( boolean min )
+        {
+            this.min = min;
+        }
+
+        @Override
+        public void update( Object value )
+        {
+            if ( value == null )
+            {
+                return;
+            }
+            if ( !(value instanceof Comparable<?>) )
+            {
+                throw new SyntaxException(
+                        "MIN/MAX can only handle values of Comparable type, or null. This was a :" + value );
+            }
+            if ( current == null )
+            {
+                current = value;
+            }
+            else
+            {
+                int comparison = CompiledConversionUtils.compare( current, value );
+                if ( min ? comparison > 0 : comparison < 0 )
+                {
+                    current = value;
+                }
+            }
+        }
+
+        @Override
+        public Object result()
+        {
+            return current;
+        }
+    }
+
+    private static final class Collect implements Aggregator
+    {
+        private final List<Object> values = new ArrayList<>();
+
+        @Override
+        public void update( Object value )
+        {
+            if ( value != null )
+            {
+                values.add( value );
+            }
+        }
+
+        @Override
+        public Object result()
+        {
+            return values;
+        }
+    }
+
+    private static Number asNumber( String function, Object value )
+    {
+        if ( value == null || value instanceof Number )
+        {
+            return (Number) value;
+        }
+        throw new CypherTypeException( function + " can only handle numerical values, or null.", null );
+    }
+}
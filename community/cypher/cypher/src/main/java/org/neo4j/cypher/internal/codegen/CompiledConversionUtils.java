@@ -26,11 +26,13 @@ import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 
+import org.neo4j.cypher.internal.compiler.v3_1.commands.predicates.Equivalent;
 import org.neo4j.cypher.internal.frontend.v3_1.CypherTypeException;
 import org.neo4j.cypher.internal.frontend.v3_1.IncomparableValuesException;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Relationship;
 import org.neo4j.helpers.MathUtil;
+import org.neo4j.kernel.impl.api.PropertyValueComparison;
 
 // Class with static methods used by compiled execution plans
 public abstract class CompiledConversionUtils
@@ -101,6 +103,33 @@ public abstract class CompiledConversionUtils
         }
     }
 
+    /**
+     * Creates the key under which a row with the given values is grouped, such that rows with equivalent values get
+     * equal keys. Nodes and relationships that are only known by their id are compared on that id.
+     */
+    public static Object groupingKey( Object... values )
+    {
+        if ( values.length == 1 )
+        {
+            return groupingKeyOf( values[0] );
+        }
+        Object[] key = new Object[values.length];
+        for ( int i = 0; i < values.length; i++ )
+        {
+            key[i] = groupingKeyOf( values[i] );
+        }
+        return Arrays.asList( key );
+    }
+
+    private static Object groupingKeyOf( Object value )
+    {
+        if ( value instanceof NodeIdWrapper || value instanceof RelationshipIdWrapper )
+        {
+            return value;
+        }
+        return Equivalent.apply( value );
+    }
+
     public static Boolean equals( Object lhs, Object rhs )
     {
         if ( lhs == null || rhs == null )
@@ -213,6 +242,51 @@ public abstract class CompiledConversionUtils
         return true;
     }
 
+    /**
+     * Compares two values the way ORDER BY, min and max do: only strings, numbers and booleans can be compared
+     * with each other, and null is ordered after every other value.
+     */
+    public static int compare( Object lhs, Object rhs )
+    {
+        if ( (isString( lhs ) && isString( rhs )) || (isNumber( lhs ) && isNumber( rhs )) ||
+             (isBoolean( lhs ) && isBoolean( rhs )) )
+        {
+            if ( lhs == null || rhs == null )
+            {
+                return lhs == rhs ? 0 : lhs == null ? 1 : -1;
+            }
+            try
+            {
+                return PropertyValueComparison.COMPARE_VALUES.compare( lhs, rhs );
+            }
+            catch ( IllegalArgumentException e )
+            {
+                // fall through to the incomparable case below
+            }
+        }
+        throw new IncomparableValuesException( typeName( lhs ), typeName( rhs ) );
+    }
+
+    private static boolean isString( Object value )
+    {
+        return value == null || value instanceof String || value instanceof Character;
+    }
+
+    private static boolean isNumber( Object value )
+    {
+        return value == null || value instanceof Number;
+    }
+
+    private static boolean isBoolean( Object value )
+    {
+        return value == null || value instanceof Boolean;
+    }
+
+    private static String typeName( Object value )
+    {
+        return value == null ? "null" : value.getClass().getSimpleName();
+    }
+
     public static Boolean or( Object lhs, Object rhs )
     {
         if ( lhs == null && rhs == null )
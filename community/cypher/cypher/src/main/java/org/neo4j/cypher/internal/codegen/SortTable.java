@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.codegen;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Collects the rows consumed by a compiled sort and hands them back ordered on the sort columns.
+ * <p>
+ * When a limit is given only that many rows are retained while consuming the input, which is what makes a sort
+ * followed by a limit a top-n operation.
+ */
+public final class SortTable implements Iterable<List<Object>>
+{
+    private final Comparator<Object[]> ordering;
+    private final long limit;
+    private final List<Object[]> rows = new ArrayList<>();
+    private final PriorityQueue<Object[]> top;
+
+    /**
+     * @param columns the offsets of the columns to sort on, in order of precedence
+     * @param ascending for every sort column, whether it is sorted in ascending order
+     * @param limit the number of rows to keep, or a negative value to keep all rows
+     */
+    public SortTable( int[] columns, boolean[] ascending, long limit )
+    {
+        this.ordering = ( lhs, rhs ) ->
+        {
+            for ( int i = 0; i < columns.length; i++ )
+            {
+                int column = columns[i];
+                int comparison = ascending[i] ? CompiledConversionUtils.compare( lhs[column], rhs[column] )
+                                              : CompiledConversionUtils.compare( rhs[column], lhs[column] );
+                if ( comparison != 0 )
+                {
+                    return comparison;
+                }
+            }
+            return 0;
+        };
+        this.limit = limit;
+        this.top = limit < 0 ? null : new PriorityQueue<>( 11, ordering.reversed() );
+    }
+
+    public void add( Object[] row )
+    {
+        if ( top == null )
+        {
+            rows.add( row );
+        }
+        else if ( top.size() < limit )
+        {
+            top.add( row );
+        }
+        else if ( limit > 0 && ordering.compare( row, top.peek() ) < 0 )
+        {
+            top.poll();
+            top.add( row );
+        }
+    }
+
+    @Override
+    public Iterator<List<Object>> iterator()
+    {
+        List<Object[]> sorted = top == null ? rows : new ArrayList<>( top );
+        sorted.sort( ordering );
+        Iterator<Object[]> inner = sorted.iterator();
+        return new Iterator<List<Object>>()
+        {
+            @Override
+            public boolean hasNext()
+            {
+                return inner.hasNext();
+            }
+
+            @Override
+            public List<Object> next()
+            {
+                return Arrays.asList( inner.next() );
+            }
+        };
+    }
+}
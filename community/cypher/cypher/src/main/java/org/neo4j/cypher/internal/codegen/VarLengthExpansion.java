@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.codegen;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.neo4j.cypher.internal.frontend.v3_1.CypherExecutionException;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.kernel.api.ReadOperations;
+import org.neo4j.kernel.api.StatementTokenNameLookup;
+import org.neo4j.kernel.api.exceptions.EntityNotFoundException;
+import org.neo4j.kernel.impl.api.RelationshipDataExtractor;
+import org.neo4j.kernel.impl.api.store.RelationshipIterator;
+import org.neo4j.kernel.impl.core.NodeManager;
+
+/**
+ * Lazily produces the paths of a compiled variable length expand, in the same order as the interpreted runtime.
+ * <p>
+ * The paths are explored depth first from the start node, never following the same relationship twice within one
+ * path, and only paths with a length in the requested range are produced. After moving to a path with
+ * {@link #next()}, {@link #endNode()} returns the node it ends in and {@link #relationships()} the relationships
+ * along it.
+ */
+public final class VarLengthExpansion
+{
+    private static final long[] NO_RELATIONSHIPS = new long[0];
+
+    private final ReadOperations readOperations;
+    private final NodeManager nodeManager;
+    private final Direction direction;
+    private final int[] types;
+    private final int minLength;
+    private final int maxLength;
+    private final long intoNode;
+    private final boolean reverse;
+    private final RelationshipDataExtractor extractor = new RelationshipDataExtractor();
+    private final Deque<Step> stack = new ArrayDeque<>();
+    private Step next;
+    private Step current;
+
+    /**
+     * @param types the relationship types to follow, or no types to follow relationships of any type
+     * @param maxLength the maximum length of the paths, or a negative value for paths of any length
+     * @param intoNode the node the paths have to end in, or a negative value for paths that may end anywhere
+     * @param reverse whether the relationships of a path are produced from its end towards its start
+     */
+    public VarLengthExpansion( ReadOperations readOperations, NodeManager nodeManager, long fromNode,
+            Direction direction, int[] types, int minLength, int maxLength, long intoNode, boolean reverse )
+    {
+        this.readOperations = readOperations;
+        this.nodeManager = nodeManager;
+        this.direction = direction;
+        this.types = types;
+        this.minLength = minLength;
+        this.maxLength = maxLength < 0 ? Integer.MAX_VALUE : maxLength;
+        this.intoNode = intoNode;
+        this.reverse = reverse;
+        this.stack.push( new Step( fromNode, NO_RELATIONSHIPS ) );
+    }
+
+    public boolean hasNext()
+    {
+        while ( next == null && !stack.isEmpty() )
+        {
+            Step step = stack.pop();
+            try
+            {
+                expand( step );
+            }
+            catch ( EntityNotFoundException e )
+            {
+                throw new CypherExecutionException(
+                        e.getUserMessage( new StatementTokenNameLookup( readOperations ) ), e );
+            }
+            if ( step.relationships.length >= minLength && (intoNode < 0 || step.node == intoNode) )
+            {
+                next = step;
+            }
+        }
+        return next != null;
+    }
+
+    public void next()
+    {
+        if ( !hasNext() )
+        {
+            throw new NoSuchElementException();
+        }
+        current = next;
+        next = null;
+    }
+
+    /**
+     * @return the id of the node that the current path ends in
+     */
+    public long endNode()
+    {
+        return current.node;
+    }
+
+    /**
+     * @return the relationships along the current path
+     */
+    public List<Relationship> relationships()
+    {
+        long[] ids = current.relationships;
+        List<Relationship> relationships = new ArrayList<>( ids.length );
+        for ( int i = 0; i < ids.length; i++ )
+        {
+            relationships.add( nodeManager.newRelationshipProxyById( ids[reverse ? ids.length - 1 - i : i] ) );
+        }
+        return relationships;
+    }
+
+    private void expand( Step step ) throws EntityNotFoundException
+    {
+        if ( step.relationships.length >= maxLength )
+        {
+            return;
+        }
+        RelationshipIterator relationships = types.length == 0
+                                             ? readOperations.nodeGetRelationships( step.node, direction )
+                                             : readOperations.nodeGetRelationships( step.node, direction, types );
+        while ( relationships.hasNext() )
+        {
+            long relationship = relationships.next();
+            if ( !step.contains( relationship ) )
+            {
+                relationships.relationshipVisit( relationship, extractor );
+                stack.push( step.extend( extractor.otherNode( step.node ), relationship ) );
+            }
+        }
+    }
+
+    private static final class Step
+    {
+        private final long node;
+        private final long[] relationships;
+
+        Step( long node, long[] relationships )
+        {
+            this.node = node;
+            this.relationships = relationships;
+        }
+
+        boolean contains( long relationship )
+        {
+            for ( long id : relationships )
+            {
+                if ( id == relationship )
+                {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        Step extend( long otherNode, long relationship )
+        {
+            long[] extended = new long[relationships.length + 1];
+            System.arraycopy( relationships, 0, extended, 0, relationships.length );
+            extended[relationships.length] = relationship;
+            return new Step( otherNode, extended );
+        }
+    }
+}
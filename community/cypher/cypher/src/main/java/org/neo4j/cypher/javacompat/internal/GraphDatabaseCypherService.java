@@ -89,6 +89,13 @@ public class GraphDatabaseCypherService implements GraphDatabaseQueryService
         return graph.beginTransaction( type, securityContext, timeout, unit );
     }
 
+    @Override
+    public InternalTransaction beginReadOnlyTransaction( KernelTransaction.Type type,
+            SecurityContext securityContext )
+    {
+        return graph.beginReadOnlyTransaction( type, securityContext );
+    }
+
     @Override
     public URL validateURLAccess( URL url ) throws URLAccessValidationError
     {
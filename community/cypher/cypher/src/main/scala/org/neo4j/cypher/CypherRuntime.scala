@@ -25,7 +25,9 @@ case object CypherRuntime extends CypherOptionCompanion[CypherRuntime] {
 
   case object default extends CypherRuntime("default")
   case object interpreted extends CypherRuntime("interpreted")
+  case object slotted extends CypherRuntime("slotted")
+  case object parallel extends CypherRuntime("parallel")
   case object compiled extends CypherRuntime("compiled")
 
-  val all: Set[CypherRuntime] = Set(interpreted, compiled)
+  val all: Set[CypherRuntime] = Set(interpreted, slotted, parallel, compiled)
 }
@@ -19,6 +19,7 @@
  */
 package org.neo4j.cypher.internal
 
+import java.io.File
 import java.time.Clock
 
 import org.neo4j.cypher.internal.compatibility.exceptionHandlerFor3_1
@@ -29,6 +30,7 @@ import org.neo4j.graphdb.factory.GraphDatabaseSettings
 import org.neo4j.kernel.GraphDatabaseQueryService
 import org.neo4j.kernel.api.KernelAPI
 import org.neo4j.kernel.configuration.Config
+import org.neo4j.kernel.internal.GraphDatabaseAPI
 import org.neo4j.kernel.monitoring.{Monitors => KernelMonitors}
 import org.neo4j.logging.{Log, LogProvider}
 
@@ -38,6 +40,9 @@ object CypherCompiler {
   val CLOCK = Clock.systemUTC()
   val DEFAULT_STATISTICS_DIVERGENCE_THRESHOLD = 0.5
   val DEFAULT_NON_INDEXED_LABEL_WARNING_THRESHOLD = 10000
+  val DEFAULT_PARALLEL_RUNTIME_WORKERS = 0
+  val DEFAULT_QUERY_MEMORY_BUDGET = 0L
+  val DEFAULT_QUERY_SPILL_DIRECTORY_NAME = "cypher-spill"
 }
 
 case class PreParsedQuery(statement: String, rawStatement: String, version: CypherVersion,
@@ -85,14 +90,19 @@ class CypherCompiler(graph: GraphDatabaseQueryService,
     idpMaxTableSize = idpMaxTableSize,
     idpIterationDuration = idpIterationDuration,
     errorIfShortestPathFallbackUsedAtRuntime = errorIfShortestPathFallbackUsedAtRuntime,
-    nonIndexedLabelWarningThreshold = getNonIndexedLabelWarningThreshold
+    nonIndexedLabelWarningThreshold = getNonIndexedLabelWarningThreshold,
+    parallelRuntimeWorkers = getParallelRuntimeWorkers,
+    queryMemoryBudget = getQueryMemoryBudget,
+    querySpillDirectory = getQuerySpillDirectory
   )
 
   private val factory = new PlannerFactory(graph, kernelAPI, kernelMonitors, log, config)
   private val planners: PlannerCache = new PlannerCache(factory)
 
 
-  private final val ILLEGAL_PLANNER_RUNTIME_COMBINATIONS: Set[(CypherPlanner, CypherRuntime)] = Set((CypherPlanner.rule, CypherRuntime.compiled))
+  private final val ILLEGAL_PLANNER_RUNTIME_COMBINATIONS: Set[(CypherPlanner, CypherRuntime)] = Set(
+    (CypherPlanner.rule, CypherRuntime.compiled), (CypherPlanner.rule, CypherRuntime.slotted),
+    (CypherPlanner.rule, CypherRuntime.parallel))
 
   @throws(classOf[SyntaxException])
   def preParseQuery(queryText: String): PreParsedQuery = exceptionHandlerFor3_1.runSafely {
@@ -156,6 +166,26 @@ class CypherCompiler(graph: GraphDatabaseQueryService,
     getSetting(graph, setting, DEFAULT_NON_INDEXED_LABEL_WARNING_THRESHOLD)
   }
 
+  private def getParallelRuntimeWorkers: Int = {
+    val setting: (Config) => Int = config => config.get(GraphDatabaseSettings.cypher_parallel_runtime_workers).intValue()
+    getSetting(graph, setting, DEFAULT_PARALLEL_RUNTIME_WORKERS)
+  }
+
+  private def getQueryMemoryBudget: Long = {
+    val setting: (Config) => Long = config => config.get(GraphDatabaseSettings.cypher_query_memory_budget).longValue()
+    getSetting(graph, setting, DEFAULT_QUERY_MEMORY_BUDGET)
+  }
+
+  // Spilled rows go next to the store unless configured otherwise, the temporary directory is often a small tmpfs
+  private def getQuerySpillDirectory: Option[File] = {
+    val setting: (Config) => Option[File] = config =>
+      Option(config.get(GraphDatabaseSettings.cypher_query_spill_directory)).orElse {
+        val storeDir = graph.getDependencyResolver.resolveDependency(classOf[GraphDatabaseAPI]).getStoreDir
+        Some(new File(storeDir, DEFAULT_QUERY_SPILL_DIRECTORY_NAME))
+      }
+    getSetting(graph, setting, None)
+  }
+
   private def getMinimumTimeBeforeReplanning: Long = {
     val setting: (Config) => Long = config => config.get(GraphDatabaseSettings.cypher_min_replan_interval).longValue()
     getSetting(graph, setting, DEFAULT_QUERY_PLAN_TTL)
@@ -54,6 +54,8 @@ case object CypherPreParser extends Parser with Base {
 
   def RuntimeOption = rule("runtime option")(
         option("runtime", "interpreted") ~ push(InterpretedRuntimeOption)
+      | option("runtime", "slotted") ~ push(SlottedRuntimeOption)
+      | option("runtime", "parallel") ~ push(ParallelRuntimeOption)
       | option("runtime", "compiledExperimentalFeatureNotSupportedForProductionUse") ~ push(CompiledRuntimeOption)
   )
 
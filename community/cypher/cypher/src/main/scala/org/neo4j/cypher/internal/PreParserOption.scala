@@ -34,6 +34,8 @@ case object GreedyPlannerOption extends PlannerPreParserOption("greedy")
 case object IDPPlannerOption extends PlannerPreParserOption("idp")
 case object DPPlannerOption extends PlannerPreParserOption("dp")
 case object InterpretedRuntimeOption extends RuntimePreParserOption("interpreted")
+case object SlottedRuntimeOption extends RuntimePreParserOption("slotted")
+case object ParallelRuntimeOption extends RuntimePreParserOption("parallel")
 case object CompiledRuntimeOption extends RuntimePreParserOption("compiled")
 case object EagerOption extends UpdateStrategyOption("eager")
 
@@ -404,6 +404,8 @@ case class CompatibilityFor2_3Cost(graph: GraphDatabaseQueryService,
     val runtimeName: Option[RuntimeName] = runtime match {
       case CypherRuntime.default => None
       case CypherRuntime.interpreted => Some(InterpretedRuntimeName)
+      case CypherRuntime.slotted => throw new IllegalArgumentException("Slotted runtime is not supported in Cypher 2.3")
+      case CypherRuntime.parallel => throw new IllegalArgumentException("Parallel runtime is not supported in Cypher 2.3")
       case CypherRuntime.compiled => throw new IllegalArgumentException("Compiled runtime is not supported in Cypher 2.3")
     }
 
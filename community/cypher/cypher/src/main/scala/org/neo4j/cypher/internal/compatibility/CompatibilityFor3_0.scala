@@ -511,6 +511,8 @@ case class CompatibilityFor3_0Cost(graph: GraphDatabaseQueryService,
     val runtimeName = runtime match {
       case CypherRuntime.default => None
       case CypherRuntime.interpreted => Some(InterpretedRuntimeName)
+      case CypherRuntime.slotted => throw new IllegalArgumentException("Slotted runtime is not supported in 3.0")
+      case CypherRuntime.parallel => throw new IllegalArgumentException("Parallel runtime is not supported in 3.0")
       case CypherRuntime.compiled => throw new IllegalArgumentException("Compiled runtime is not supported in 3.0")
     }
     val updateStrategy = strategy match {
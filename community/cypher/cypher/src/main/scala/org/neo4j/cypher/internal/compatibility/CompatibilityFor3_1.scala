@@ -508,6 +508,8 @@ case class CompatibilityFor3_1Cost(graph: GraphDatabaseQueryService,
     val runtimeName = runtime match {
       case CypherRuntime.default => None
       case CypherRuntime.interpreted => Some(InterpretedRuntimeName)
+      case CypherRuntime.slotted => Some(SlottedRuntimeName)
+      case CypherRuntime.parallel => Some(ParallelRuntimeName)
       case CypherRuntime.compiled => Some(CompiledRuntimeName)
     }
     val updateStrategy = strategy match {
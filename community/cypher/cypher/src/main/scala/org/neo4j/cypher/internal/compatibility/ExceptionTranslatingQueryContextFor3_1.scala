@@ -153,6 +153,15 @@ class ExceptionTranslatingQueryContextFor3_1(val inner: QueryContext) extends Qu
         work(new ExceptionTranslatingQueryContextFor3_1(qc))
       ))
 
+  override def withReadOnlyWorkerContext[T](work: (QueryContext) => T): T =
+    inner.withReadOnlyWorkerContext(qc =>
+      translateException(
+        work(new ExceptionTranslatingQueryContextFor3_1(qc))
+      ))
+
+  override def transactionHasChanges: Boolean =
+    translateException(inner.transactionHasChanges)
+
   override def isLabelSetOnNode(label: Int, node: Long): Boolean =
     translateException(inner.isLabelSetOnNode(label, node))
 
@@ -37,6 +37,9 @@ case class TransactionalContextWrapperv3_1(tc: TransactionalContext) extends Que
 
   def getOrBeginNewIfClosed(): TransactionalContextWrapperv3_1 = TransactionalContextWrapperv3_1(tc.getOrBeginNewIfClosed())
 
+  def beginReadOnlyWorkerContext(): TransactionalContextWrapperv3_1 =
+    TransactionalContextWrapperv3_1(tc.beginReadOnlyWorkerContext())
+
   def isOpen: Boolean = tc.isOpen
 
   def graph: GraphDatabaseQueryService = tc.graph()
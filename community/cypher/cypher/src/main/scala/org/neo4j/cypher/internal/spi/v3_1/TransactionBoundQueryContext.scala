@@ -88,6 +88,20 @@ final class TransactionBoundQueryContext(val transactionalContext: Transactional
     }
   }
 
+  override def withReadOnlyWorkerContext[T](work: (QueryContext) => T): T = {
+    val context = transactionalContext.beginReadOnlyWorkerContext()
+    var success = false
+    try {
+      val result = work(new TransactionBoundQueryContext(context))
+      success = true
+      result
+    } finally {
+      context.close(success)
+    }
+  }
+
+  override def transactionHasChanges: Boolean = transactionalContext.stateView.hasTxStateWithChanges
+
   override def createNode(): Node =
     transactionalContext.graph.createNode()
 
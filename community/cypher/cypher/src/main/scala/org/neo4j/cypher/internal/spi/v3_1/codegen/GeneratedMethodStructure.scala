@@ -25,7 +25,7 @@ import org.neo4j.codegen.Expression.{not, or, _}
 import org.neo4j.codegen.MethodReference.methodReference
 import org.neo4j.codegen._
 import org.neo4j.collection.primitive.hopscotch.LongKeyIntValueTable
-import org.neo4j.collection.primitive.{PrimitiveLongIntMap, PrimitiveLongIterator, PrimitiveLongObjectMap}
+import org.neo4j.collection.primitive.{PrimitiveLongIntMap, PrimitiveLongIterator, PrimitiveLongObjectMap, PrimitiveLongSet}
 import org.neo4j.cypher.internal.codegen.CompiledConversionUtils.CompositeKey
 import org.neo4j.cypher.internal.codegen._
 import org.neo4j.cypher.internal.compiler.v3_1.ast.convert.commands.DirectionConverter.toGraphDb
@@ -36,11 +36,13 @@ import org.neo4j.cypher.internal.compiler.v3_1.planDescription.Id
 import org.neo4j.cypher.internal.frontend.v3_1.symbols.{CTNode, CTRelationship}
 import org.neo4j.cypher.internal.frontend.v3_1.{ParameterNotFoundException, SemanticDirection, symbols}
 import org.neo4j.cypher.internal.spi.v3_1.codegen.Methods._
-import org.neo4j.cypher.internal.spi.v3_1.codegen.Templates.{createNewInstance, handleKernelExceptions, newRelationshipDataExtractor, tryCatch}
-import org.neo4j.graphdb.Direction
+import org.neo4j.cypher.internal.spi.v3_1.codegen.Templates.{createNewInstance, handleKernelExceptions, newLongSet, newRelationshipDataExtractor, tryCatch}
+import org.neo4j.graphdb.{Direction, Relationship}
+import org.neo4j.kernel.api.ReadOperations
 import org.neo4j.kernel.api.index.IndexDescriptor
 import org.neo4j.kernel.impl.api.RelationshipDataExtractor
 import org.neo4j.kernel.impl.api.store.RelationshipIterator
+import org.neo4j.kernel.impl.core.NodeManager
 
 import scala.collection.mutable
 
@@ -373,6 +375,31 @@ case class GeneratedMethodStructure(fields: Fields, generator: CodeBlock, aux: A
     }
   }
 
+  override def varLengthExpand(iterVar: String, fromNode: String, direction: SemanticDirection, typeVars: Seq[String],
+                               min: Int, max: Option[Int], intoNode: Option[String], reverse: Boolean) =
+    generator.assign(typeRef[VarLengthExpansion], iterVar,
+                     createNewInstance(typeRef[VarLengthExpansion],
+                                       (typeRef[ReadOperations], readOperations),
+                                       (typeRef[NodeManager], nodeManager),
+                                       (typeRef[Long], generator.load(fromNode)),
+                                       (typeRef[Direction], dir(direction)),
+                                       (typeRef[Array[Int]], newArray(typeRef[Int], typeVars.map(generator.load): _*)),
+                                       (typeRef[Int], constant(min)),
+                                       (typeRef[Int], constant(max.getOrElse(-1))),
+                                       (typeRef[Long], intoNode.map(generator.load).getOrElse(constant(-1L))),
+                                       (typeRef[Boolean], constant(reverse))))
+
+  override def nextVarLengthPath(iterVar: String, toNodeVar: Option[String], relsVar: String) = {
+    generator.expression(invoke(generator.load(iterVar), varLengthNext))
+    toNodeVar.foreach { nodeVar =>
+      generator.assign(typeRef[Long], nodeVar, invoke(generator.load(iterVar), varLengthEndNode))
+    }
+    generator.assign(typeRef[util.List[Relationship]], relsVar, invoke(generator.load(iterVar), varLengthRelationships))
+  }
+
+  override def hasNextVarLengthPath(iterVar: String) =
+    invoke(generator.load(iterVar), varLengthHasNext)
+
   override def loadVariable(varName: String) = generator.load(varName)
 
   override def add(lhs: Expression, rhs: Expression) = math(Methods.mathAdd, lhs, rhs)
@@ -449,6 +476,8 @@ case class GeneratedMethodStructure(fields: Fields, generator: CodeBlock, aux: A
       case LongsToListTable(structure, _) => TypeReference
         .parameterizedType(classOf[util.HashMap[_, _]], typeRef[CompositeKey],
                            parameterizedType(classOf[util.ArrayList[_]], aux.typeReference(structure)))
+      case GroupingTable => typeRef[AggregationTable]
+      case SortingTable => typeRef[SortTable]
     }
     returnType
   }
@@ -460,6 +489,101 @@ case class GeneratedMethodStructure(fields: Fields, generator: CodeBlock, aux: A
     case typ: LongsToListTable => createNewInstance(joinTableType(typ))
   }
 
+  override def iterateCountingTable(tableVar: String, keyVar: String, countVar: String)
+                                   (block: MethodStructure[Expression] => Unit) = {
+    val keys = generator.declare(typeRef[PrimitiveLongIterator], context.namer.newVarName())
+    generator.assign(keys, invoke(generator.load(tableVar), countingTableKeys))
+    using(generator.whileLoop(invoke(keys, hasNextLong))) { body =>
+      body.assign(typeRef[Long], keyVar, invoke(keys, nextLong))
+      // counts are never negative, so this is a plain widening of the int count
+      body.assign(typeRef[Long], countVar,
+                  invoke(intToLong, invoke(body.load(tableVar), countingTableGet, body.load(keyVar))))
+      block(copy(generator = body))
+    }
+  }
+
+  override def allocateDistinctSet(setVar: String, numberOfKeys: Int) =
+    if (numberOfKeys == 1)
+      generator.assign(typeRef[PrimitiveLongSet], setVar, newLongSet)
+    else {
+      val setType = parameterizedType(classOf[util.HashSet[_]], classOf[CompositeKey])
+      generator.assign(setType, setVar, createNewInstance(setType))
+    }
+
+  override def addToDistinctSet(setVar: String, keyVars: Seq[String])(block: MethodStructure[Expression] => Unit) = {
+    val added =
+      if (keyVars.size == 1)
+        invoke(generator.load(setVar), longSetAdd, generator.load(keyVars.head))
+      else
+        invoke(generator.load(setVar), compositeKeySetAdd,
+               invoke(compositeKey, newArray(typeRef[Long], keyVars.map(generator.load): _*)))
+    using(generator.ifStatement(added)) { body =>
+      block(copy(generator = body))
+    }
+  }
+
+  override def allocateDistinctValueSet(setVar: String) = {
+    val setType = parameterizedType(classOf[util.HashSet[_]], classOf[Object])
+    generator.assign(setType, setVar, createNewInstance(setType))
+  }
+
+  override def addToDistinctValueSet(setVar: String, values: Seq[Expression])
+                                    (block: MethodStructure[Expression] => Unit) = {
+    val added = invoke(generator.load(setVar), valueSetAdd,
+                       invoke(groupingKey, newArray(typeRef[Object], values: _*)))
+    using(generator.ifStatement(added)) { body =>
+      block(copy(generator = body))
+    }
+  }
+
+  override def allocateAggregationTable(tableVar: String, numberOfKeys: Int, aggregates: Seq[Aggregate]) =
+    generator.assign(typeRef[AggregationTable], tableVar,
+                     createNewInstance(typeRef[AggregationTable],
+                                       (typeRef[Int], constant(numberOfKeys)),
+                                       (typeRef[Array[String]],
+                                         newArray(typeRef[String], aggregates.map(a => constant(a.function.name)): _*)),
+                                       (typeRef[Array[Boolean]],
+                                         newArray(typeRef[Boolean], aggregates.map(a => constant(a.distinct)): _*))))
+
+  override def aggregate(tableVar: String, keys: Seq[Expression], values: Seq[Expression]) =
+    generator.expression(invoke(generator.load(tableVar), aggregationTableAggregate,
+                                newArray(typeRef[Object], keys: _*), newArray(typeRef[Object], values: _*)))
+
+  override def allocateSortTable(tableVar: String, sortItems: Seq[SortItem], limit: Option[Expression]) =
+    generator.assign(typeRef[SortTable], tableVar,
+                     createNewInstance(typeRef[SortTable],
+                                       (typeRef[Array[Int]], newArray(typeRef[Int], sortItems.map(i => constant(i.column)): _*)),
+                                       (typeRef[Array[Boolean]],
+                                         newArray(typeRef[Boolean], sortItems.map(i => constant(i.ascending)): _*)),
+                                       (typeRef[Long], limit.map(invoke(mathCastToLong, _)).getOrElse(constant(-1L)))))
+
+  override def addToSortTable(tableVar: String, values: Seq[Expression]) =
+    generator.expression(invoke(generator.load(tableVar), sortTableAdd, newArray(typeRef[Object], values: _*)))
+
+  override def iterateRows(tableVar: String, columns: Seq[(String, CodeGenType)])
+                          (block: MethodStructure[Expression] => Unit) = {
+    val rowVar = context.namer.newVarName()
+    using(generator.forEach(Parameter.param(typeRef[util.List[Object]], rowVar), generator.load(tableVar))) { body =>
+      columns.zipWithIndex.foreach {
+        case ((name, codeGenType), offset) =>
+          val value = invoke(body.load(rowVar), listGet, constant(offset))
+          codeGenType match {
+            // nodes and relationships that were kept by id are restored as ids, or -1 when they were null
+            case CodeGenType(CTNode, IntType) | CodeGenType(CTRelationship, IntType) =>
+              val (wrapper, id) = if (codeGenType.ct == CTNode) (typeRef[NodeIdWrapper], nodeId)
+                                  else (typeRef[RelationshipIdWrapper], relId)
+              val entity = context.namer.newVarName()
+              body.assign(typeRef[Object], entity, value)
+              body.assign(typeRef[Long], name,
+                          ternaryOnNull(body.load(entity), constant(-1L), invoke(cast(wrapper, body.load(entity)), id)))
+            case _ =>
+              body.assign(lowerType(codeGenType), name, cast(lowerType(codeGenType), value))
+          }
+      }
+      block(copy(generator = body))
+    }
+  }
+
   override def updateProbeTableCount(tableVar: String, tableType: CountingJoinTableType,
                                      keyVars: Seq[String]) = tableType match {
     case LongToCountTable =>
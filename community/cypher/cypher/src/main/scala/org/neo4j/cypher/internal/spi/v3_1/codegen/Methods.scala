@@ -21,13 +21,13 @@ package org.neo4j.cypher.internal.spi.v3_1.codegen
 
 import java.util
 
-import org.neo4j.collection.primitive.{PrimitiveLongIntMap, PrimitiveLongIterator}
+import org.neo4j.collection.primitive.{PrimitiveLongIntMap, PrimitiveLongIterator, PrimitiveLongSet}
 import org.neo4j.cypher.internal.codegen.CompiledConversionUtils.CompositeKey
 import org.neo4j.cypher.internal.codegen._
 import org.neo4j.cypher.internal.compiler.v3_1.codegen.{QueryExecutionEvent, QueryExecutionTracer, ResultRowImpl}
 import org.neo4j.cypher.internal.compiler.v3_1.planDescription.Id
 import org.neo4j.cypher.internal.compiler.v3_1.spi.{InternalResultRow, InternalResultVisitor}
-import org.neo4j.graphdb.Direction
+import org.neo4j.graphdb.{Direction, Relationship}
 import org.neo4j.helpers.collection.MapUtil
 import org.neo4j.kernel.api.ReadOperations
 import org.neo4j.kernel.api.index.IndexDescriptor
@@ -43,9 +43,21 @@ object Methods {
   val countingTableCompositeKeyPut = method[util.HashMap[CompositeKey, Integer], Object]("put", typeRef[Object], typeRef[Object])
   val countingTableGet = method[PrimitiveLongIntMap, Int]("get", typeRef[Long])
   val countingTableCompositeKeyGet = method[util.HashMap[CompositeKey, Integer], Object]("get", typeRef[Object])
+  val countingTableKeys = method[PrimitiveLongIntMap, PrimitiveLongIterator]("iterator")
+  val longSetAdd = method[PrimitiveLongSet, Boolean]("add", typeRef[Long])
+  val compositeKeySetAdd = method[util.HashSet[CompositeKey], Boolean]("add", typeRef[Object])
   val compositeKey = method[CompiledConversionUtils, CompositeKey]("compositeKey", typeRef[Array[Long]])
+  val groupingKey = method[CompiledConversionUtils, Object]("groupingKey", typeRef[Array[Object]])
+  val valueSetAdd = method[util.HashSet[Object], Boolean]("add", typeRef[Object])
+  val aggregationTableAggregate = method[AggregationTable, Unit]("aggregate", typeRef[Array[Object]], typeRef[Array[Object]])
+  val sortTableAdd = method[SortTable, Unit]("add", typeRef[Array[Object]])
+  val listGet = method[util.List[Object], Object]("get", typeRef[Int])
   val hasNextLong = method[PrimitiveLongIterator, Boolean]("hasNext")
   val hasMoreRelationship = method[RelationshipIterator, Boolean]("hasNext")
+  val varLengthHasNext = method[VarLengthExpansion, Boolean]("hasNext")
+  val varLengthNext = method[VarLengthExpansion, Unit]("next")
+  val varLengthEndNode = method[VarLengthExpansion, Long]("endNode")
+  val varLengthRelationships = method[VarLengthExpansion, util.List[Relationship]]("relationships")
   val createMap = method[MapUtil, util.Map[String, Object]]("map", typeRef[Array[Object]])
   val format = method[String, String]("format", typeRef[String], typeRef[Array[Object]])
   val relationshipVisit = method[RelationshipIterator, Boolean]("relationshipVisit", typeRef[Long], typeRef[RelationshipVisitor[RuntimeException]])
@@ -99,6 +111,7 @@ object Methods {
   val boxBoolean = method[java.lang.Boolean, java.lang.Boolean]("valueOf", typeRef[Boolean])
   val boxLong = method[java.lang.Long, java.lang.Long]("valueOf", typeRef[Long])
   val boxInteger = method[java.lang.Integer, java.lang.Integer]("valueOf", typeRef[Int])
+  val intToLong = method[java.lang.Integer, Long]("toUnsignedLong", typeRef[Int])
   val boxDouble = method[java.lang.Double, java.lang.Double]("valueOf", typeRef[Double])
   val unboxInteger = method[java.lang.Integer, Int]("intValue")
   val unboxBoolean = method[java.lang.Boolean, Boolean]("booleanValue")
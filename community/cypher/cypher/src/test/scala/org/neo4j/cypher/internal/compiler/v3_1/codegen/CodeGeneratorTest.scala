@@ -27,6 +27,7 @@ import org.neo4j.collection.primitive.PrimitiveLongIterator
 import org.neo4j.cypher.internal.compiler.v3_1.executionplan.ExecutionPlanBuilder.tracer
 import org.neo4j.cypher.internal.compiler.v3_1.executionplan.InternalExecutionResult
 import org.neo4j.cypher.internal.compiler.v3_1.planner.LogicalPlanningTestSupport
+import org.neo4j.cypher.internal.compiler.v3_1.planner.logical.{Ascending, Descending, plans}
 import org.neo4j.cypher.internal.compiler.v3_1.planner.logical.plans._
 import org.neo4j.cypher.internal.compiler.v3_1.spi.{InternalResultRow, InternalResultVisitor, QueryContext}
 import org.neo4j.cypher.internal.compiler.v3_1.{CostBasedPlannerName, NormalMode, TaskCloser}
@@ -196,6 +197,177 @@ class CodeGeneratorTest extends CypherFunSuite with LogicalPlanningTestSupport {
     ))
   }
 
+  test("all nodes scan + expand + distinct") { // MATCH (a)-[r]->(b) RETURN DISTINCT b
+    //given
+    val expand = Expand(
+      AllNodesScan(IdName("a"), Set.empty)(solved), IdName("a"),
+      SemanticDirection.OUTGOING, Seq.empty, IdName("b"), IdName("r"), ExpandAll)(solved)
+    val plan = ProduceResult(List("b"), Aggregation(expand, Map("b" -> varFor("b")), Map.empty)(solved))
+
+    //when
+    val compiled = compileAndExecute(plan)
+
+    //then
+    val result = getNodesFromResult(compiled, "b")
+
+    result should equal(List(
+      Map("b" -> dNode),
+      Map("b" -> eNode),
+      Map("b" -> iNode),
+      Map("b" -> hNode)))
+  }
+
+  test("all nodes scan + expand + count grouped by node") { // MATCH (a)-[r]->(b) RETURN b, count(*)
+    //given
+    val expand = Expand(
+      AllNodesScan(IdName("a"), Set.empty)(solved), IdName("a"),
+      SemanticDirection.OUTGOING, Seq.empty, IdName("b"), IdName("r"), ExpandAll)(solved)
+    val plan = ProduceResult(List("b", "count"),
+      Aggregation(expand, Map("b" -> varFor("b")), Map("count" -> CountStar()(pos)))(solved))
+
+    //when
+    val compiled = compileAndExecute(plan)
+
+    //then
+    val result = getResult(compiled, "b", "count")
+
+    result.toSet should equal(Set(
+      Map("b" -> dNode, "count" -> 3L),
+      Map("b" -> eNode, "count" -> 2L),
+      Map("b" -> iNode, "count" -> 1L),
+      Map("b" -> hNode, "count" -> 1L)))
+  }
+
+  test("all nodes scan + expand + collect grouped by node") { // MATCH (a)-[r]->(b) RETURN b, collect(a)
+    //given
+    val expand = Expand(
+      AllNodesScan(IdName("a"), Set.empty)(solved), IdName("a"),
+      SemanticDirection.OUTGOING, Seq.empty, IdName("b"), IdName("r"), ExpandAll)(solved)
+    val collect = FunctionInvocation(FunctionName("collect")(pos), varFor("a"))(pos)
+    val plan = ProduceResult(List("b", "as"), Aggregation(expand, Map("b" -> varFor("b")), Map("as" -> collect))(solved))
+
+    //when
+    val compiled = compileAndExecute(plan)
+
+    //then
+    val result = getResult(compiled, "b", "as")
+
+    result.toSet should equal(Set(
+      Map("b" -> dNode, "as" -> List(aNode, bNode, fNode)),
+      Map("b" -> eNode, "as" -> List(cNode, gNode)),
+      Map("b" -> iNode, "as" -> List(hNode)),
+      Map("b" -> hNode, "as" -> List(iNode))))
+  }
+
+  test("all nodes scan + expand + sum grouped by projected node") { // MATCH (a)-[r]->(b) WITH b, 1 AS one RETURN b, sum(one)
+    //given
+    val expand = Expand(
+      AllNodesScan(IdName("a"), Set.empty)(solved), IdName("a"),
+      SemanticDirection.OUTGOING, Seq.empty, IdName("b"), IdName("r"), ExpandAll)(solved)
+    val projection = Projection(expand, Map("b" -> varFor("b"), "one" -> SignedDecimalIntegerLiteral("1")(pos)))(solved)
+    val sum = FunctionInvocation(FunctionName("sum")(pos), varFor("one"))(pos)
+    val plan = ProduceResult(List("b", "sum"), Aggregation(projection, Map("b" -> varFor("b")), Map("sum" -> sum))(solved))
+
+    //when
+    val compiled = compileAndExecute(plan)
+
+    //then
+    val result = getResult(compiled, "b", "sum")
+
+    result.toSet should equal(Set(
+      Map("b" -> dNode, "sum" -> 3L),
+      Map("b" -> eNode, "sum" -> 2L),
+      Map("b" -> iNode, "sum" -> 1L),
+      Map("b" -> hNode, "sum" -> 1L)))
+  }
+
+  test("all nodes scan + expand + count distinct without grouping") { // MATCH (a)-[r]->(b) RETURN count(DISTINCT b)
+    //given
+    val expand = Expand(
+      AllNodesScan(IdName("a"), Set.empty)(solved), IdName("a"),
+      SemanticDirection.OUTGOING, Seq.empty, IdName("b"), IdName("r"), ExpandAll)(solved)
+    val count = FunctionInvocation(FunctionName("count")(pos), distinct = true, IndexedSeq(varFor("b")))(pos)
+    val plan = ProduceResult(List("count"), Aggregation(expand, Map.empty, Map("count" -> count))(solved))
+
+    //when
+    val compiled = compileAndExecute(plan)
+
+    //then
+    getResult(compiled, "count") should equal(List(Map("count" -> 4L)))
+  }
+
+  test("count without grouping on empty input") { // MATCH (a) WITH a SKIP 100 RETURN count(*)
+    //given
+    val skip = plans.Skip(AllNodesScan(IdName("a"), Set.empty)(solved), SignedDecimalIntegerLiteral("100")(pos))(solved)
+    val plan = ProduceResult(List("count"), Aggregation(skip, Map.empty, Map("count" -> CountStar()(pos)))(solved))
+
+    //when
+    val compiled = compileAndExecute(plan)
+
+    //then
+    getResult(compiled, "count") should equal(List(Map("count" -> 0L)))
+  }
+
+  test("all nodes scan + expand + distinct on projected node") { // MATCH (a)-[r]->(b) WITH b AS c RETURN DISTINCT c
+    //given
+    val expand = Expand(
+      AllNodesScan(IdName("a"), Set.empty)(solved), IdName("a"),
+      SemanticDirection.OUTGOING, Seq.empty, IdName("b"), IdName("r"), ExpandAll)(solved)
+    val plan = ProduceResult(List("c"), Aggregation(expand, Map("c" -> varFor("b")), Map.empty)(solved))
+
+    //when
+    val compiled = compileAndExecute(plan)
+
+    //then
+    val result = getResult(compiled, "c")
+
+    result should equal(List(
+      Map("c" -> dNode),
+      Map("c" -> eNode),
+      Map("c" -> iNode),
+      Map("c" -> hNode)))
+  }
+
+  test("all nodes scan + expand + sort descending") { // MATCH (a)-[r]->(b) WITH a, b, id(a) AS id RETURN a, b ORDER BY id DESC
+    //given
+    val plan = ProduceResult(List("a", "b"), Sort(expandWithIdOfA, Seq(Descending(IdName("id"))))(solved))
+
+    //when
+    val compiled = compileAndExecute(plan)
+
+    //then
+    getNodesFromResult(compiled, "a", "b") should equal(List(
+      Map("a" -> iNode, "b" -> hNode),
+      Map("a" -> hNode, "b" -> iNode),
+      Map("a" -> gNode, "b" -> eNode),
+      Map("a" -> fNode, "b" -> dNode),
+      Map("a" -> cNode, "b" -> eNode),
+      Map("a" -> bNode, "b" -> dNode),
+      Map("a" -> aNode, "b" -> dNode)))
+  }
+
+  test("all nodes scan + expand + sort + limit") { // MATCH (a)-[r]->(b) WITH a, b, id(a) AS id RETURN a, b ORDER BY id LIMIT 2
+    //given
+    val sort = Sort(expandWithIdOfA, Seq(Ascending(IdName("id"))))(solved)
+    val plan = ProduceResult(List("a", "b"),
+      plans.Limit(sort, SignedDecimalIntegerLiteral("2")(pos), DoNotIncludeTies)(solved))
+
+    //when
+    val compiled = compileAndExecute(plan)
+
+    //then
+    getNodesFromResult(compiled, "a", "b") should equal(List(
+      Map("a" -> aNode, "b" -> dNode),
+      Map("a" -> bNode, "b" -> dNode)))
+  }
+
+  private def expandWithIdOfA = {
+    val expand = Expand(
+      AllNodesScan(IdName("a"), Set.empty)(solved), IdName("a"),
+      SemanticDirection.OUTGOING, Seq.empty, IdName("b"), IdName("r"), ExpandAll)(solved)
+    Projection(expand, Map("id" -> FunctionInvocation(FunctionName("id")(pos), varFor("a"))(pos)))(solved)
+  }
+
   test("all node scan+ expand outgoing with one type") { // MATCH (a)-[r:R1]->(b) RETURN a, b
   //given
   val plan = ProduceResult(List("a", "b"),
@@ -485,6 +657,72 @@ class CodeGeneratorTest extends CypherFunSuite with LogicalPlanningTestSupport {
     ))
   }
 
+  test("label scan + variable length expand outgoing") { // MATCH (a:T3)-[r:R3*1..3]->(b) RETURN a, b, r
+    //given
+    val plan = ProduceResult(List("a", "b", "r"),
+      VarExpand(
+        NodeByLabelScan(IdName("a"), lblName("T3"), Set.empty)(solved), IdName("a"), SemanticDirection.OUTGOING,
+        SemanticDirection.OUTGOING, Seq(RelTypeName("R3")(pos)), IdName("b"), IdName("r"),
+        VarPatternLength(1, Some(3)), ExpandAll)(solved))
+
+    //when
+    val compiled = compileAndExecute(plan)
+
+    //then
+    val result = getResult(compiled, "a", "b", "r")
+
+    result should equal(List(
+      Map("a" -> hNode, "b" -> iNode, "r" -> Seq(relMap(16L).relationship)),
+      Map("a" -> hNode, "b" -> hNode, "r" -> Seq(relMap(16L).relationship, relMap(17L).relationship)),
+      Map("a" -> iNode, "b" -> hNode, "r" -> Seq(relMap(17L).relationship)),
+      Map("a" -> iNode, "b" -> iNode, "r" -> Seq(relMap(17L).relationship, relMap(16L).relationship))
+    ))
+  }
+
+  test("label scan + variable length expand projected in the other direction") { // MATCH (b)-[r:R3*2]->(a:T3) RETURN a, b, r
+    //given
+    val plan = ProduceResult(List("a", "b", "r"),
+      VarExpand(
+        NodeByLabelScan(IdName("a"), lblName("T3"), Set.empty)(solved), IdName("a"), SemanticDirection.INCOMING,
+        SemanticDirection.OUTGOING, Seq(RelTypeName("R3")(pos)), IdName("b"), IdName("r"),
+        VarPatternLength(2, Some(2)), ExpandAll)(solved))
+
+    //when
+    val compiled = compileAndExecute(plan)
+
+    //then
+    val result = getResult(compiled, "a", "b", "r")
+
+    result should equal(List(
+      Map("a" -> hNode, "b" -> hNode, "r" -> Seq(relMap(16L).relationship, relMap(17L).relationship)),
+      Map("a" -> iNode, "b" -> iNode, "r" -> Seq(relMap(17L).relationship, relMap(16L).relationship))
+    ))
+  }
+
+  test("variable length expand into on top of expand all with a loop") {
+    //given
+    val scanT3 = NodeByLabelScan(IdName("a"), lblName("T3"), Set.empty)(solved)
+    val expandAll = Expand(
+      scanT3, IdName("a"), SemanticDirection.OUTGOING,
+      Seq(RelTypeName("R3")(pos)), IdName("b"), IdName("r1"), ExpandAll)(solved)
+    val expandInto = VarExpand(
+      expandAll, IdName("b"), SemanticDirection.INCOMING, SemanticDirection.INCOMING,
+      Seq.empty, IdName("a"), IdName("r2"), VarPatternLength(1, Some(2)), ExpandInto)(solved)
+
+    val plan = ProduceResult(List("a", "b", "r2"), expandInto)
+
+    //when
+    val compiled = compileAndExecute(plan)
+
+    //then
+    val result = getResult(compiled, "a", "b", "r2")
+
+    result should equal(List(
+      Map("a" -> hNode, "b" -> iNode, "r2" -> Seq(relMap(16L).relationship)),
+      Map("a" -> iNode, "b" -> hNode, "r2" -> Seq(relMap(17L).relationship))
+    ))
+  }
+
   test("hash join on top of two expands from two all node scans") {
     // MATCH (a)-[r1]->(b)<-[r2]-(c) RETURN a,b,c (kind of nothing enforcing that r1 and r2 are distinct)
 
@@ -24,6 +24,7 @@ import java.io.IOException;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.WritableByteChannel;
 import java.nio.file.OpenOption;
+import java.util.BitSet;
 
 /**
  * The representation of a file that has been mapped into the associated page cache.
@@ -58,8 +59,12 @@ public interface PagedFile extends AutoCloseable
     int PF_NO_GROW = 1 << 2;
     /**
      * Read-ahead hint for sequential forward scanning.
+     * <p>
+     * Page faults will also read in a number of the following pages, if they are not already in memory, using a
+     * single vectored read. Cursors also start reading ahead by themselves, once they observe that they are being
+     * used for a sequential scan.
      */
-    int PF_READ_AHEAD = 1 << 3; // TBD
+    int PF_READ_AHEAD = 1 << 3;
     /**
      * Do not load in the page if it is not loaded already. Only useful with
      * exclusive locking when you want to overwrite the whole page anyway.
@@ -158,6 +163,17 @@ public interface PagedFile extends AutoCloseable
      */
     long getLastPageId() throws IOException;
 
+    /**
+     * Get the file-page-ids of the pages of this file, that are currently in memory.
+     * <p>
+     * This is only a snapshot, since pages can be faulted in or evicted at any time, both while the set is computed,
+     * and after it has been returned. Pages beyond file-page-id {@link Integer#MAX_VALUE} are not included.
+     *
+     * @return A set where the set bits are the file-page-ids of the pages that are in memory.
+     * @throws IllegalStateException if this file has been unmapped
+     */
+    BitSet getCachedPages() throws IOException;
+
     /**
      * Release a handle to a paged file.
      * <p>
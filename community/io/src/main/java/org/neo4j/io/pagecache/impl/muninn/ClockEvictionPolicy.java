@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+/**
+ * The classic clock eviction policy, where every access raises the usage counter of a page, and every sweep of the
+ * clock arm lowers it. Pages are evicted when their usage counter reaches zero.
+ */
+final class ClockEvictionPolicy extends EvictionPolicy
+{
+    @Override
+    String name()
+    {
+        return CLOCK;
+    }
+
+    @Override
+    void pageHit( MuninnPage page )
+    {
+        page.incrementUsage();
+    }
+
+    @Override
+    void pageRepinned( MuninnPage page )
+    {
+        page.incrementUsage();
+    }
+
+    @Override
+    void pageFaulted( MuninnPage page )
+    {
+        page.incrementUsage();
+    }
+
+    @Override
+    boolean sweep( MuninnPage page )
+    {
+        return page.decrementUsage();
+    }
+
+    @Override
+    void revolution()
+    {
+    }
+}
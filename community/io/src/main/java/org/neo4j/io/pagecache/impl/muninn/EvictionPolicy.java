@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+/**
+ * An eviction policy decides how the usage counters of the cache pages are maintained when pages are hit or faulted
+ * in, and which pages the clock arms of the eviction thread and the cooperatively evicting page faults should pick
+ * as victims.
+ * <p>
+ * The policies are called on the hot paths of the page cache, and from many threads concurrently. They are therefore
+ * allowed to be benignly racy in their internal book keeping, just like the usage counters themselves.
+ */
+abstract class EvictionPolicy
+{
+    static final String CLOCK = "clock";
+    static final String SEGMENTED_CLOCK = "segmented_clock";
+
+    /**
+     * Create the eviction policy with the given name.
+     * @param name The name of the policy, either {@value #CLOCK} or {@value #SEGMENTED_CLOCK}.
+     * @param maxPages The number of pages in the page cache that will use the policy.
+     * @throws IllegalArgumentException if there is no policy by the given name.
+     */
+    static EvictionPolicy create( String name, int maxPages )
+    {
+        if ( name == null || name.equals( CLOCK ) )
+        {
+            return new ClockEvictionPolicy();
+        }
+        if ( name.equals( SEGMENTED_CLOCK ) )
+        {
+            return new SegmentedClockEvictionPolicy( maxPages );
+        }
+        throw new IllegalArgumentException( "Unknown page cache eviction policy: " + name );
+    }
+
+    /**
+     * @return The name of this policy, as used when configuring the page cache.
+     */
+    abstract String name();
+
+    /**
+     * The given page was already in memory when it was pinned.
+     */
+    abstract void pageHit( MuninnPage page );
+
+    /**
+     * The given page was already in memory when it was pinned, and the cursor pinning it was the one that pinned it
+     * last, as when a cursor reads one record after another from the same page, or retries an optimistic read.
+     */
+    abstract void pageRepinned( MuninnPage page );
+
+    /**
+     * The given page has just been faulted into memory, and is about to be pinned by the faulting cursor.
+     * NOTE: This method is called while holding the exclusive lock on the page.
+     */
+    abstract void pageFaulted( MuninnPage page );
+
+    /**
+     * The clock arm has arrived at the given loaded page.
+     * @return {@code true} if the page should be evicted, if it can be locked.
+     */
+    abstract boolean sweep( MuninnPage page );
+
+    /**
+     * The clock arm of the background eviction thread has completed a full revolution over all the pages.
+     */
+    abstract void revolution();
+
+    @Override
+    public String toString()
+    {
+        return name();
+    }
+}
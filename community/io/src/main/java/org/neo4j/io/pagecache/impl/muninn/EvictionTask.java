@@ -19,23 +19,55 @@
  */
 package org.neo4j.io.pagecache.impl.muninn;
 
+import java.util.concurrent.locks.LockSupport;
+
 /**
- * This Runnable runs the eviction algorithm. Only one is expected for each page cache.
+ * This Runnable runs the eviction algorithm for a set of page partitions. A page cache has one or more of these, each
+ * of which owns a disjoint set of the page partitions, and keeps the freelists of those partitions topped up.
  *
  * Interrupting the thread running this runnable, will be interpreted as a shutdown signal.
  *
- * @see MuninnPageCache#continuouslySweepPages()
+ * @see MuninnPageCache#continuouslySweepPages(EvictionTask)
  */
 final class EvictionTask extends BackgroundTask
 {
-    public EvictionTask( MuninnPageCache pageCache )
+    final PagePartition[] partitions;
+
+    // The thread that runs this eviction task. We unpark this when the partitions have run out of free pages.
+    volatile Thread thread;
+    // True if the eviction thread is currently parked, without someone having
+    // signalled it to wake up. This is used as a weak guard for unparking the
+    // eviction thread, because calling unpark too much (from many page
+    // faulting threads) can cause contention on the locks protecting that
+    // threads scheduling meta-data in the OS kernel.
+    private volatile boolean parked;
+
+    public EvictionTask( MuninnPageCache pageCache, PagePartition[] partitions )
     {
         super( pageCache );
+        this.partitions = partitions;
     }
 
     @Override
     protected void run( MuninnPageCache pageCache )
     {
-        pageCache.continuouslySweepPages();
+        pageCache.continuouslySweepPages( this );
+    }
+
+    void unpark()
+    {
+        if ( parked )
+        {
+            parked = false;
+            LockSupport.unpark( thread );
+        }
+    }
+
+    void park( Object blocker, long parkNanos )
+    {
+        // Only called from the thread running this task!
+        parked = true;
+        LockSupport.parkNanos( blocker, parkNanos );
+        parked = false;
     }
 }
@@ -126,7 +126,7 @@ final class MuninnPage extends SequenceLock implements Page
         return usage == 0;
     }
 
-    private byte getUsageCounter()
+    byte getUsageCounter()
     {
         return UnsafeUtil.getByteVolatile( this, usageStampOffset );
     }
@@ -154,6 +154,7 @@ final class MuninnPage extends SequenceLock implements Page
             long bytesWritten = swapper.write( filePageId, this );
             markAsClean();
             event.addBytesWritten( bytesWritten );
+            event.addPagesFlushed( 1 );
             event.done();
         }
         catch ( IOException e )
@@ -171,15 +172,7 @@ final class MuninnPage extends SequenceLock implements Page
             long filePageId,
             PageFaultEvent faultEvent ) throws IOException
     {
-        if ( this.swapper != null || this.filePageId != PageCursor.UNBOUND_PAGE_ID )
-        {
-            String msg = format(
-                    "Cannot fault page {filePageId = %s, swapper = %s} into " +
-                    "cache page %s. Already bound to {filePageId = " +
-                    "%s, swapper = %s}.",
-                    filePageId, swapper, getCachePageId(), this.filePageId, this.swapper );
-            throw new IllegalStateException( msg );
-        }
+        assertNotBound( swapper, filePageId );
 
         // Note: It is important that we assign the filePageId before we swap
         // the page in. If the swapping fails, the page will be considered
@@ -195,6 +188,49 @@ final class MuninnPage extends SequenceLock implements Page
         this.swapper = swapper; // Page now considered isBoundTo( swapper, filePageId )
     }
 
+    /**
+     * Fault the consecutive file pages, starting at the given file page id, into the given pages, using a single
+     * vectored read.
+     * NOTE: This method MUST be called while holding the exclusive lock on all of the given pages.
+     */
+    static void faultVectored(
+            PageSwapper swapper,
+            long startFilePageId,
+            MuninnPage[] pages,
+            int length,
+            PageFaultEvent faultEvent ) throws IOException
+    {
+        for ( int i = 0; i < length; i++ )
+        {
+            pages[i].assertNotBound( swapper, startFilePageId + i );
+        }
+        // See the comment in fault() on why we assign the filePageIds before we swap the pages in.
+        for ( int i = 0; i < length; i++ )
+        {
+            pages[i].filePageId = startFilePageId + i;
+        }
+        long bytesRead = swapper.read( startFilePageId, pages, 0, length );
+        faultEvent.addBytesRead( bytesRead );
+        faultEvent.setCachePageId( pages[0].getCachePageId() );
+        for ( int i = 0; i < length; i++ )
+        {
+            pages[i].swapper = swapper;
+        }
+    }
+
+    private void assertNotBound( PageSwapper swapper, long filePageId )
+    {
+        if ( this.swapper != null || this.filePageId != PageCursor.UNBOUND_PAGE_ID )
+        {
+            String msg = format(
+                    "Cannot fault page {filePageId = %s, swapper = %s} into " +
+                    "cache page %s. Already bound to {filePageId = " +
+                    "%s, swapper = %s}.",
+                    filePageId, swapper, getCachePageId(), this.filePageId, this.swapper );
+            throw new IllegalStateException( msg );
+        }
+    }
+
     /**
      * NOTE: This method MUST be called while holding the page write lock.
      */
@@ -239,6 +275,11 @@ final class MuninnPage extends SequenceLock implements Page
         }
     }
 
+    PageSwapper getSwapper()
+    {
+        return swapper;
+    }
+
     public long getFilePageId()
     {
         return filePageId;
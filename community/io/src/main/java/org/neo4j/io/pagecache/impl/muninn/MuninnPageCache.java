@@ -25,6 +25,7 @@ import java.nio.file.CopyOption;
 import java.nio.file.OpenOption;
 import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.Executor;
@@ -38,6 +39,7 @@ import org.neo4j.io.pagecache.FileHandle;
 import org.neo4j.io.pagecache.IOLimiter;
 import org.neo4j.io.pagecache.PageCache;
 import org.neo4j.io.pagecache.PageCacheOpenOptions;
+import org.neo4j.io.pagecache.PageSwapper;
 import org.neo4j.io.pagecache.PageSwapperFactory;
 import org.neo4j.io.pagecache.PagedFile;
 import org.neo4j.io.pagecache.impl.FileIsMappedException;
@@ -52,6 +54,7 @@ import org.neo4j.unsafe.impl.internal.dragons.UnsafeUtil;
 
 import static org.neo4j.unsafe.impl.internal.dragons.FeatureToggles.flag;
 import static org.neo4j.unsafe.impl.internal.dragons.FeatureToggles.getInteger;
+import static org.neo4j.unsafe.impl.internal.dragons.FeatureToggles.getLong;
 
 /**
  * The Muninn {@link org.neo4j.io.pagecache.PageCache page cache} implementation.
@@ -118,15 +121,46 @@ public class MuninnPageCache implements PageCache
     private static final int cooperativeEvictionLiveLockThreshold = getInteger(
             MuninnPageCache.class, "cooperativeEvictionLiveLockThreshold", 100 );
 
+    // The background flusher sweeps through all the pages this often, and writes out the pages that have stayed dirty
+    // since its previous sweep.
+    private static final long backgroundFlushIntervalMillis = getLong(
+            MuninnPageCache.class, "backgroundFlushIntervalMillis", 1000 );
+
+    // The background flusher holds the monitor lock on the page cache while it looks for a page to flush. This is the
+    // most pages it will look at, before it releases the lock and gives map and unmap a chance to run.
+    private static final int backgroundFlushBatchSize = getInteger(
+            MuninnPageCache.class, "backgroundFlushBatchSize", 4096 );
+
+    // The pages are divided into this many partitions, each with their own freelist and their own memory allocations.
+    // Page faulting threads prefer the free pages of their home partition, which spreads out the contention on the
+    // freelists, and allows the operating system to place the memory of each partition close to the threads that
+    // touch it first. By default we have a partition per core, as long as the partitions are not too small.
+    private static final int memoryPartitions = getInteger(
+            MuninnPageCache.class, "memoryPartitions", Runtime.getRuntime().availableProcessors() );
+
+    // The partitions will be no smaller than this many pages, except when the cache is smaller than this.
+    private static final int minimumPartitionSize = getInteger(
+            MuninnPageCache.class, "minimumPartitionSize", 4096 );
+
+    // The number of background eviction threads. Each of them keeps the freelists of their own share of the
+    // partitions topped up. This is capped to the number of partitions.
+    private static final int evictionThreads = getInteger(
+            MuninnPageCache.class, "evictionThreads", 1 + Runtime.getRuntime().availableProcessors() / 32 );
+
+    // Allocate the page memory in slabs that are aligned to, and are multiples of, the huge page size. This allows
+    // operating systems with transparent huge pages to back the page cache with huge pages, which saves TLB misses.
+    private static final boolean hugePageSlabs = flag(
+            MuninnPageCache.class, "hugePageSlabs", false );
+
+    // The size of the slabs when hugePageSlabs is enabled.
+    private static final long hugePageSlabSize = getLong(
+            MuninnPageCache.class, "hugePageSlabSize", 16 * MemoryManager.HUGE_PAGE_SIZE );
+
     // This is a pre-allocated constant, so we can throw it without allocating any objects:
     @SuppressWarnings( "ThrowableInstanceNeverThrown" )
     private static final IOException oomException = new IOException(
             "OutOfMemoryError encountered in the page cache background eviction thread" );
 
-    // The field offset to unsafely access the freelist field.
-    private static final long freelistOffset =
-            UnsafeUtil.getFieldOffset( MuninnPageCache.class, "freelist" );
-
     // This is used as a poison-pill signal in the freelist, to inform any
     // page faulting thread that it is now no longer possible to queue up and
     // wait for more pages to be evicted, because the page cache has been shut
@@ -150,42 +184,35 @@ public class MuninnPageCache implements PageCache
     private final int pageCacheId;
     private final PageSwapperFactory swapperFactory;
     private final int cachePageSize;
-    private final int keepFree;
     private final PageCacheTracer tracer;
+    final EvictionPolicy evictionPolicy;
+    private final IOLimiter backgroundFlushLimiter;
     private final MuninnPage[] pages;
     // All PageCursors are initialised with their pointers pointing to the victim page. This way, we can do branch-free
     // bounds checking of page accesses without fear of segfaulting newly allocated cursors.
     final long victimPage;
 
-    // The freelist is a thread-safe linked-list of 2 types of objects. A link
-    // can either be a MuninnPage or a FreePage.
-    // Initially, most of the links are MuninnPages that are ready for the
-    // taking. Then towards the end, we have the last bunch of pages linked
-    // through FreePage objects. We make this transition because, once a
-    // MuninnPage has been removed from the list, it cannot be added back. The
-    // reason is that the MuninnPages are reused, and adding them back into the
-    // freelist would expose us to the ABA-problem, which can cause cycles to
-    // form. The FreePage objects, however, are single-use such that they don't
-    // exhibit the ABA-problem. In other words, eviction will never add
-    // MuninnPages to the freelist; it will only add free pages through a new
-    // FreePage object.
-    @SuppressWarnings( "unused" ) // This field is accessed via Unsafe.
-    private volatile Object freelist;
+    // The pages are divided into contiguous ranges of partitionSize pages, each with its own freelist.
+    private final PagePartition[] partitions;
+    private final int partitionSize;
+
+    // The background eviction tasks. Each partition is owned by one of these.
+    private final EvictionTask[] evictors;
+
+    // The number of pages swept by the eviction threads, since the eviction policy was last told about a revolution.
+    private final AtomicInteger pagesSweptSinceRevolution = new AtomicInteger();
 
     // Linked list of mappings - guarded by synchronized(this)
     private volatile FileMapping mappedFiles;
 
-    // The thread that runs the eviction algorithm. We unpark this when we've run out of
-    // free pages to grab.
-    private volatile Thread evictionThread;
-    // True if the eviction thread is currently parked, without someone having
-    // signalled it to wake up. This is used as a weak guard for unparking the
-    // eviction thread, because calling unpark too much (from many page
-    // faulting threads) can cause contention on the locks protecting that
-    // threads scheduling meta-data in the OS kernel.
-    private volatile boolean evictorParked;
     private volatile IOException evictorException;
 
+    // The thread that writes out dirty pages in the background, if background flushing is enabled.
+    private volatile Thread flushThread;
+
+    // The file the background flusher is currently writing a page of - guarded by synchronized(this)
+    private MuninnPagedFile backgroundFlushFile;
+
     // Flag for when page cache is closed - writes guarded by synchronized(this), reads can be unsynchronized
     private volatile boolean closed;
 
@@ -200,6 +227,54 @@ public class MuninnPageCache implements PageCache
             int maxPages,
             int cachePageSize,
             PageCacheTracer tracer )
+    {
+        this( swapperFactory, maxPages, cachePageSize, tracer, EvictionPolicy.CLOCK );
+    }
+
+    public MuninnPageCache(
+            PageSwapperFactory swapperFactory,
+            int maxPages,
+            int cachePageSize,
+            PageCacheTracer tracer,
+            String evictionPolicy )
+    {
+        this( swapperFactory, maxPages, cachePageSize, tracer, evictionPolicy, null );
+    }
+
+    /**
+     * Create a page cache that uses the named eviction policy.
+     * @param evictionPolicy either "clock" (the default), or "segmented_clock" for a scan resistant policy that keeps
+     * pages which are only accessed once, from pushing the frequently accessed pages out of the cache.
+     * @param backgroundFlushLimiter if not {@code null}, then a background thread will write out the pages that have
+     * stayed dirty for a while, at the rate allowed by this limiter. This leaves less work for
+     * {@link #flushAndForce(IOLimiter)}, and thus for check points.
+     */
+    public MuninnPageCache(
+            PageSwapperFactory swapperFactory,
+            int maxPages,
+            int cachePageSize,
+            PageCacheTracer tracer,
+            String evictionPolicy,
+            IOLimiter backgroundFlushLimiter )
+    {
+        this( swapperFactory, maxPages, cachePageSize, tracer, evictionPolicy, backgroundFlushLimiter,
+                Math.min( memoryPartitions, maxPages / Math.max( 2, minimumPartitionSize ) ), evictionThreads );
+    }
+
+    /**
+     * Create a page cache with the given number of partitions and eviction threads, rather than the numbers given
+     * by the feature toggles. The partitions get at least two pages each, and there are no more eviction threads than
+     * partitions.
+     */
+    MuninnPageCache(
+            PageSwapperFactory swapperFactory,
+            int maxPages,
+            int cachePageSize,
+            PageCacheTracer tracer,
+            String evictionPolicy,
+            IOLimiter backgroundFlushLimiter,
+            int partitionCount,
+            int evictorCount )
     {
         verifyHacks();
         verifyCachePageSizeIsPowerOfTwo( cachePageSize );
@@ -208,18 +283,64 @@ public class MuninnPageCache implements PageCache
         this.pageCacheId = pageCacheIdCounter.incrementAndGet();
         this.swapperFactory = swapperFactory;
         this.cachePageSize = cachePageSize;
-        this.keepFree = Math.min( pagesToKeepFree, maxPages / 2 );
         this.tracer = tracer;
+        this.evictionPolicy = EvictionPolicy.create( evictionPolicy, maxPages );
+        this.backgroundFlushLimiter = backgroundFlushLimiter;
         this.pages = new MuninnPage[maxPages];
         this.printExceptionsOnClose = true;
 
+        // The partitions get at least two pages each, except the last partition which might be smaller than the rest.
+        partitionCount = Math.max( 1, Math.min( partitionCount, maxPages / 2 ) );
+        this.partitionSize = (maxPages + partitionCount - 1) / partitionCount;
+        partitionCount = (maxPages + partitionSize - 1) / partitionSize;
+        this.partitions = new PagePartition[partitionCount];
+        this.evictors = new EvictionTask[Math.max( 1, Math.min( evictorCount, partitionCount ) )];
+
         long alignment = swapperFactory.getRequiredBufferAlignment();
-        long expectedMaxMemory = ((long) maxPages) * cachePageSize; // cast to long prevents overflow
-        MemoryManager memoryManager = new MemoryManager( expectedMaxMemory, alignment );
         this.victimPage = VictimPageReference.getVictimPage( cachePageSize );
+        for ( int i = 0; i < partitionCount; i++ )
+        {
+            int firstPage = i * partitionSize;
+            int endPage = Math.min( firstPage + partitionSize, maxPages );
+            int pageCount = endPage - firstPage;
+            PagePartition partition = new PagePartition(
+                    firstPage, endPage, Math.max( 1, Math.min( pagesToKeepFree, pageCount / 2 ) ) );
+            partitions[i] = partition;
+            long expectedMaxMemory = ((long) pageCount) * cachePageSize; // cast to long prevents overflow
+            initialisePartition( partition, createMemoryManager( expectedMaxMemory, alignment ), cachePageSize );
+        }
+
+        // The partitions are dealt out to the evictors like cards, so each evictor gets partitions from all over the
+        // range of pages.
+        for ( int i = 0; i < evictors.length; i++ )
+        {
+            PagePartition[] owned = new PagePartition[(partitionCount - i + evictors.length - 1) / evictors.length];
+            for ( int j = 0; j < owned.length; j++ )
+            {
+                owned[j] = partitions[i + j * evictors.length];
+            }
+            evictors[i] = new EvictionTask( this, owned );
+            for ( PagePartition partition : owned )
+            {
+                partition.evictor = evictors[i];
+            }
+        }
+    }
+
+    private static MemoryManager createMemoryManager( long expectedMaxMemory, long alignment )
+    {
+        if ( hugePageSlabs && alignment <= MemoryManager.HUGE_PAGE_SIZE )
+        {
+            return new MemoryManager( expectedMaxMemory, alignment, hugePageSlabSize, MemoryManager.HUGE_PAGE_SIZE );
+        }
+        return new MemoryManager( expectedMaxMemory, alignment );
+    }
+
+    private void initialisePartition( PagePartition partition, MemoryManager memoryManager, int cachePageSize )
+    {
         Object pageList = null;
-        int pageIndex = maxPages;
-        while ( pageIndex --> 0 )
+        int pageIndex = partition.endPage;
+        while ( pageIndex --> partition.firstPage )
         {
             MuninnPage page = new MuninnPage( cachePageSize, memoryManager );
             page.tryExclusiveLock(); // All pages in the free-list are exclusively locked, and unlocked by page fault.
@@ -232,7 +353,7 @@ public class MuninnPageCache implements PageCache
                 pageList = freePage;
             }
             else if ( pageList instanceof FreePage
-                    && ((FreePage) pageList).count < keepFree )
+                    && ((FreePage) pageList).count < partition.keepFree )
             {
                 FreePage freePage = new FreePage( page );
                 freePage.setNext( (FreePage) pageList );
@@ -244,7 +365,7 @@ public class MuninnPageCache implements PageCache
                 pageList = page;
             }
         }
-        UnsafeUtil.putObjectVolatile( this, freelistOffset, pageList );
+        partition.setFreelistHead( pageList );
     }
 
     private static void verifyHacks()
@@ -464,7 +585,14 @@ public class MuninnPageCache implements PageCache
 
         try
         {
-            backgroundThreadExecutor.execute( new EvictionTask( this ) );
+            for ( EvictionTask evictor : evictors )
+            {
+                backgroundThreadExecutor.execute( evictor );
+            }
+            if ( backgroundFlushLimiter != null )
+            {
+                backgroundThreadExecutor.execute( new BackgroundFlushTask( this ) );
+            }
         }
         catch ( Exception e )
         {
@@ -483,6 +611,7 @@ public class MuninnPageCache implements PageCache
 
     synchronized void unmap( MuninnPagedFile file )
     {
+        awaitBackgroundFlush( file );
         if ( file.decrementRefCount() )
         {
             // This was the last reference!
@@ -617,8 +746,13 @@ public class MuninnPageCache implements PageCache
             pages[i] = null;
         }
 
-        interrupt( evictionThread );
-        evictionThread = null;
+        for ( EvictionTask evictor : evictors )
+        {
+            interrupt( evictor.thread );
+            evictor.thread = null;
+        }
+        interrupt( flushThread );
+        flushThread = null;
 
         // Close the page swapper factory last. If this fails then we will still consider ourselves closed.
         swapperFactory.close();
@@ -676,7 +810,7 @@ public class MuninnPageCache implements PageCache
 
     MuninnPage grabFreeAndExclusivelyLockedPage( PageFaultEvent faultEvent ) throws IOException
     {
-        // Review the comment on the freelist field before making changes to
+        // Review the comment on the PagePartition.freelist field before making changes to
         // this part of the code.
         // Whatever the case, we're going to the head-pointer of the freelist,
         // and in doing so, we can discover a number of things.
@@ -696,20 +830,64 @@ public class MuninnPageCache implements PageCache
         // to check and see if it is the shutdownSignal instance. If that's the
         // case, then the page cache has been shut down, and we should throw an
         // exception from our page fault routine.
-        Object current;
-        for (;;)
+        // We start with the freelist of our home partition, and only look at
+        // the freelists of the other partitions if our own is empty.
+        assertHealthy();
+        int home = homePartition();
+        for ( int i = 0; i < partitions.length; i++ )
         {
-            assertHealthy();
-            current = getFreelistHead();
-            if ( current == null )
+            PagePartition partition = partitions[(home + i) % partitions.length];
+            MuninnPage page = grabFreePage( partition, 0 );
+            if ( page != null )
             {
-                unparkEvictor();
-                return cooperativelyEvict( faultEvent );
+                return page;
             }
-            else if ( current instanceof MuninnPage )
+            partition.evictor.unpark();
+        }
+        return cooperativelyEvict( faultEvent );
+    }
+
+    /**
+     * Grab a free page for the purpose of reading ahead, but only if one is immediately available without dipping
+     * too far into the pages that the eviction thread keeps free for page faults. This method never blocks, and never
+     * evicts anything itself.
+     * @return An exclusively locked free page, or {@code null} if no page could be spared.
+     */
+    MuninnPage tryGrabFreeAndExclusivelyLockedPage()
+    {
+        if ( closed )
+        {
+            return null;
+        }
+        PagePartition partition = partitions[homePartition()];
+        MuninnPage page = grabFreePage( partition, Math.max( partition.keepFree / 2, 1 ) );
+        if ( page == null )
+        {
+            partition.evictor.unpark();
+        }
+        return page;
+    }
+
+    private int homePartition()
+    {
+        return (int) (Thread.currentThread().getId() % partitions.length);
+    }
+
+    /**
+     * Take a page off the freelist of the given partition, unless that would leave the list with no more than the
+     * given number of FreePages.
+     * @return An exclusively locked free page, or {@code null} if the freelist had no page to spare.
+     */
+    private MuninnPage grabFreePage( PagePartition partition, int reserve )
+    {
+        Object current;
+        for (;;)
+        {
+            current = partition.getFreelistHead();
+            if ( current instanceof MuninnPage )
             {
                 MuninnPage page = (MuninnPage) current;
-                if ( compareAndSetFreelistHead( page, page.nextFree ) )
+                if ( partition.compareAndSetFreelistHead( page, page.nextFree ) )
                 {
                     return page;
                 }
@@ -721,18 +899,27 @@ public class MuninnPageCache implements PageCache
                 {
                     throw new IllegalStateException( "The PageCache has been shut down." );
                 }
+                if ( freePage.count <= reserve )
+                {
+                    return null;
+                }
 
-                if ( compareAndSetFreelistHead( freePage, freePage.next ) )
+                if ( partition.compareAndSetFreelistHead( freePage, freePage.next ) )
                 {
                     return freePage.page;
                 }
             }
+            else
+            {
+                return null;
+            }
         }
     }
 
     private MuninnPage cooperativelyEvict( PageFaultEvent faultEvent ) throws IOException
     {
         int iterations = 0;
+        int pagesSwept = 0;
         int clockArm = ThreadLocalRandom.current().nextInt( pages.length );
         MuninnPage page;
         boolean evicted = false;
@@ -757,7 +944,10 @@ public class MuninnPageCache implements PageCache
                         "The PageCache has been shut down" );
             }
 
-            if ( page.isLoaded() && page.decrementUsage() )
+            // Only the first full revolution follows the eviction policy. After that, we fall back to plain clock
+            // sweeping, to make sure that we eventually find a page to evict, regardless of the policy.
+            boolean followPolicy = pagesSwept < pages.length;
+            if ( page.isLoaded() && (followPolicy ? evictionPolicy.sweep( page ) : page.decrementUsage()) )
             {
                 if ( page.tryExclusiveLock() )
                 {
@@ -776,8 +966,12 @@ public class MuninnPageCache implements PageCache
                 }
             }
             clockArm++;
+            pagesSwept++;
         }
         while ( !evicted );
+        // The pages we showed to the eviction policy count towards its next revolution, the same as those swept by
+        // the eviction threads, or the policy would see more pages per revolution than there are in the cache.
+        countSweptPages( Math.min( pagesSwept, pages.length ) );
         return page;
     }
 
@@ -796,104 +990,86 @@ public class MuninnPageCache implements PageCache
                 "your database." );
     }
 
-    private void unparkEvictor()
-    {
-        if ( evictorParked )
-        {
-            evictorParked = false;
-            LockSupport.unpark( evictionThread );
-        }
-    }
-
-    private void parkEvictor( long parkNanos )
-    {
-        // Only called from the background eviction thread!
-        evictorParked = true;
-        LockSupport.parkNanos( this, parkNanos );
-        evictorParked = false;
-    }
-
-    private Object getFreelistHead()
-    {
-        return UnsafeUtil.getObjectVolatile( this, freelistOffset );
-    }
-
-    private boolean compareAndSetFreelistHead( Object expected, Object update )
-    {
-        return UnsafeUtil.compareAndSwapObject(
-                this, freelistOffset, expected, update );
-    }
-
-    private Object getAndSetFreelistHead( Object newFreelistHead )
-    {
-        return UnsafeUtil.getAndSetObject(
-                this, freelistOffset, newFreelistHead );
-    }
-
     /**
      * Scan through all the pages, one by one, and decrement their usage stamps.
      * If a usage reaches zero, we try-write-locking it, and if we get that lock,
      * we evict the page. If we don't, we move on to the next page.
      * Once we have enough free pages, we park our thread. Page-faulting will
      * unpark our thread as needed.
+     * Each eviction thread only sweeps through the pages of the partitions owned by the given evictor.
      */
-    void continuouslySweepPages()
+    void continuouslySweepPages( EvictionTask evictor )
     {
-        evictionThread = Thread.currentThread();
-        int clockArm = 0;
+        evictor.thread = Thread.currentThread();
 
         while ( !closed )
         {
-            int pageCountToEvict = parkUntilEvictionRequired( keepFree );
+            int pageCountToEvict = parkUntilEvictionRequired( evictor );
             try ( EvictionRunEvent evictionRunEvent = tracer.beginPageEvictions( pageCountToEvict ) )
             {
-                clockArm = evictPages( pageCountToEvict, clockArm, evictionRunEvent );
+                for ( PagePartition partition : evictor.partitions )
+                {
+                    int partitionCountToEvict = partition.freePagesNeeded();
+                    if ( partitionCountToEvict > 0 )
+                    {
+                        partition.clockArm = evictPages( partitionCountToEvict, partition.clockArm,
+                                partition.firstPage, partition.endPage, evictionRunEvent );
+                    }
+                }
             }
         }
 
         // The last thing we do, is signalling the shutdown of the cache via
-        // the freelist. This signal is looked out for in grabFreePage.
-        getAndSetFreelistHead( shutdownSignal );
+        // the freelists. This signal is looked out for in grabFreePage.
+        for ( PagePartition partition : evictor.partitions )
+        {
+            partition.getAndSetFreelistHead( shutdownSignal );
+        }
     }
 
-    private int parkUntilEvictionRequired( int keepFree )
+    private int parkUntilEvictionRequired( EvictionTask evictor )
     {
         // Park until we're either interrupted, or the number of free pages drops
-        // bellow keepFree.
+        // bellow keepFree in any of the partitions of the evictor.
         long parkNanos = TimeUnit.MILLISECONDS.toNanos( 10 );
         for (;;)
         {
-            parkEvictor( parkNanos );
+            evictor.park( this, parkNanos );
             if ( Thread.interrupted() || closed )
             {
                 return 0;
             }
 
-            Object freelistHead = getFreelistHead();
-
-            if ( freelistHead == null )
+            int pagesNeeded = 0;
+            for ( PagePartition partition : evictor.partitions )
             {
-                return keepFree;
+                pagesNeeded += partition.freePagesNeeded();
             }
-            else if ( freelistHead.getClass() == FreePage.class )
+            if ( pagesNeeded > 0 )
             {
-                int availablePages = ((FreePage) freelistHead).count;
-                if ( availablePages < keepFree )
-                {
-                    return keepFree - availablePages;
-                }
+                return pagesNeeded;
             }
         }
     }
 
     int evictPages( int pageCountToEvict, int clockArm, EvictionRunEvent evictionRunEvent )
     {
+        return evictPages( pageCountToEvict, clockArm, 0, pages.length, evictionRunEvent );
+    }
+
+    private int evictPages(
+            int pageCountToEvict, int clockArm, int firstPage, int endPage, EvictionRunEvent evictionRunEvent )
+    {
+        int pagesSwept = 0;
         while ( pageCountToEvict > 0 && !closed )
         {
-            if ( clockArm == pages.length )
+            if ( clockArm == endPage )
             {
-                clockArm = 0;
+                clockArm = firstPage;
+                countSweptPages( pagesSwept );
+                pagesSwept = 0;
             }
+            pagesSwept++;
             MuninnPage page = pages[clockArm];
 
             if ( page == null )
@@ -902,7 +1078,7 @@ public class MuninnPageCache implements PageCache
                 return 0;
             }
 
-            if ( page.isLoaded() && page.decrementUsage() )
+            if ( page.isLoaded() && evictionPolicy.sweep( page ) )
             {
                 if ( page.tryExclusiveLock() )
                 {
@@ -924,18 +1100,20 @@ public class MuninnPageCache implements PageCache
                         pageEvicted = page.isLoaded() && evictPage( page, evictionEvent );
                         if ( pageEvicted )
                         {
+                            // The page goes back to the freelist of the partition it belongs to.
+                            PagePartition partition = partitions[clockArm / partitionSize];
                             Object current;
                             Object nextListHead;
                             FreePage freePage = null;
                             do
                             {
-                                current = getFreelistHead();
+                                current = partition.getFreelistHead();
                                 freePage = freePage == null?
                                            new FreePage( page ) : freePage;
                                 freePage.setNext( (FreePage) current );
                                 nextListHead = freePage;
                             }
-                            while ( !compareAndSetFreelistHead( current, nextListHead ) );
+                            while ( !partition.compareAndSetFreelistHead( current, nextListHead ) );
                         }
                     }
                     finally
@@ -954,9 +1132,22 @@ public class MuninnPageCache implements PageCache
             clockArm++;
         }
 
+        countSweptPages( pagesSwept );
         return clockArm;
     }
 
+    private void countSweptPages( int pageCount )
+    {
+        // The partitions are swept independently, and by more than one thread, so we count a revolution whenever the
+        // eviction threads have together looked at as many pages as there are in the cache. Only one of the threads
+        // that observe the count going over, gets to reset it and tell the eviction policy.
+        int pagesSwept = pagesSweptSinceRevolution.addAndGet( pageCount );
+        if ( pagesSwept >= pages.length && pagesSweptSinceRevolution.compareAndSet( pagesSwept, 0 ) )
+        {
+            evictionPolicy.revolution();
+        }
+    }
+
     /**
      * Evict the given page, or return {@code false} if the eviction failed for any reason.
      * This method will never throw an exception!
@@ -989,6 +1180,181 @@ public class MuninnPageCache implements PageCache
         return false;
     }
 
+    /**
+     * Sweep through all the pages on regular intervals, and write out the pages that have been dirty since the
+     * previous sweep, at the rate allowed by the background flush limiter. Pages that are dirtied all the time are
+     * thus written at most once per interval, while pages that are dirtied once get cleaned, so the next check point
+     * won't have to write them.
+     *
+     * Unlike {@link #flushAndForce(IOLimiter)}, this does not force the written data to the storage device. That is
+     * still left for the check points to do.
+     */
+    void continuouslyFlushPages()
+    {
+        flushThread = Thread.currentThread();
+        BitSet dirtyInLastSweep = new BitSet( pages.length );
+        long parkNanos = TimeUnit.MILLISECONDS.toNanos( backgroundFlushIntervalMillis );
+
+        while ( !closed )
+        {
+            LockSupport.parkNanos( this, parkNanos );
+            if ( Thread.interrupted() || closed )
+            {
+                break;
+            }
+
+            try ( MajorFlushEvent sweepEvent = tracer.beginCacheFlush() )
+            {
+                try
+                {
+                    sweepPages( sweepEvent.flushEventOpportunity(), dirtyInLastSweep );
+                }
+                catch ( IOException e )
+                {
+                    // The page we failed to write is still dirty, so the next check point will write it, and report
+                    // the problem if it persists. We just give up on this sweep, and try again on the next one.
+                    sweepEvent.threwException( e );
+                }
+                catch ( Throwable throwable )
+                {
+                    // Nobody would notice if this thread died, and dirty pages would pile up until the next check
+                    // point, so we report the problem and keep going.
+                    sweepEvent.threwException( new IOException(
+                            "Background flush thread encountered a problem", throwable ) );
+                }
+            }
+        }
+    }
+
+    private void sweepPages( FlushEventOpportunity flushOpportunity, BitSet dirtyInLastSweep ) throws IOException
+    {
+        long limiterStamp = IOLimiter.INITIAL_STAMP;
+        int index = 0;
+        while ( index < pages.length && !closed )
+        {
+            int end = Math.min( index + backgroundFlushBatchSize, pages.length );
+            int lockedIndex = lockOldDirtyPage( index, end, dirtyInLastSweep );
+            if ( lockedIndex == -1 )
+            {
+                index = end;
+            }
+            else
+            {
+                index = lockedIndex + 1;
+                flushLockedPage( pages[lockedIndex], flushOpportunity );
+                limiterStamp = backgroundFlushLimiter.maybeLimitIO( limiterStamp, 1, this::syncDevice );
+            }
+        }
+    }
+
+    /**
+     * Look for a page, in the given range of the pages array, that has stayed dirty since the previous sweep, and
+     * exclusively lock it. This is synchronized, so that we can tell which file the page belongs to, and keep
+     * {@link #unmap(MuninnPagedFile)} from closing its swapper until {@link #flushLockedPage} is done writing it.
+     *
+     * @return the index of the page that was locked, or -1 if no page in the range was locked.
+     */
+    private synchronized int lockOldDirtyPage( int from, int to, BitSet dirtyInLastSweep )
+    {
+        for ( int i = from; i < to && !closed; i++ )
+        {
+            MuninnPage page = pages[i];
+            if ( !page.isDirty() )
+            {
+                // This is a racy read, but we only use it as a hint.
+                dirtyInLastSweep.clear( i );
+                continue;
+            }
+            if ( !dirtyInLastSweep.get( i ) )
+            {
+                // Give the page another interval to settle, before we write it.
+                dirtyInLastSweep.set( i );
+                continue;
+            }
+            // The exclusive lock keeps writers out while we write the page, so we can mark it as clean once the
+            // write has succeeded, without losing any concurrent changes. Check points will keep trying to flush
+            // lock the dirty page until we are done, so they can't miss our write when they force the file.
+            // The optimistic readers of the page will retry, just like they do when the page is being evicted.
+            if ( page.tryExclusiveLock() )
+            {
+                MuninnPagedFile pagedFile = page.isDirty()? getMappedPagedFile( page.getSwapper() ) : null;
+                if ( pagedFile == null )
+                {
+                    page.unlockExclusive();
+                    continue;
+                }
+                dirtyInLastSweep.clear( i );
+                backgroundFlushFile = pagedFile;
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Write out a page that was locked by {@link #lockOldDirtyPage}, without holding the page cache monitor, and
+     * unlock it. The page is only marked as clean if the write succeeded.
+     */
+    private void flushLockedPage( MuninnPage page, FlushEventOpportunity flushOpportunity ) throws IOException
+    {
+        try
+        {
+            page.flush( flushOpportunity );
+        }
+        finally
+        {
+            page.unlockExclusive();
+            finishBackgroundFlush();
+        }
+    }
+
+    private synchronized void finishBackgroundFlush()
+    {
+        backgroundFlushFile = null;
+        notifyAll();
+    }
+
+    /**
+     * NOTE: Must be called while synchronizing on the MuninnPageCache instance.
+     */
+    private void awaitBackgroundFlush( MuninnPagedFile file )
+    {
+        boolean interrupted = false;
+        while ( backgroundFlushFile == file )
+        {
+            try
+            {
+                wait();
+            }
+            catch ( InterruptedException e )
+            {
+                // We can't close the swapper while the page is being written, so we keep waiting.
+                interrupted = true;
+            }
+        }
+        if ( interrupted )
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * NOTE: Must be called while synchronizing on the MuninnPageCache instance.
+     */
+    private MuninnPagedFile getMappedPagedFile( PageSwapper swapper )
+    {
+        FileMapping fileMapping = mappedFiles;
+        while ( fileMapping != null )
+        {
+            if ( fileMapping.pagedFile.swapper == swapper )
+            {
+                return fileMapping.pagedFile;
+            }
+            fileMapping = fileMapping.next;
+        }
+        return null;
+    }
+
     private void clearEvictorException()
     {
         if ( evictorException != null )
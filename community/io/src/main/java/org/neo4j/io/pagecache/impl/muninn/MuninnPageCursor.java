@@ -21,6 +21,7 @@ package org.neo4j.io.pagecache.impl.muninn;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Objects;
 
 import org.neo4j.concurrent.BinaryLatch;
@@ -32,7 +33,9 @@ import org.neo4j.io.pagecache.tracing.PageFaultEvent;
 import org.neo4j.io.pagecache.tracing.PinEvent;
 import org.neo4j.unsafe.impl.internal.dragons.UnsafeUtil;
 
+import static org.neo4j.io.pagecache.PagedFile.PF_READ_AHEAD;
 import static org.neo4j.unsafe.impl.internal.dragons.FeatureToggles.flag;
+import static org.neo4j.unsafe.impl.internal.dragons.FeatureToggles.getInteger;
 
 abstract class MuninnPageCursor extends PageCursor
 {
@@ -44,6 +47,15 @@ abstract class MuninnPageCursor extends PageCursor
 
     private static final boolean boundsCheck = flag( MuninnPageCursor.class, "boundsCheck", true );
 
+    // The maximum number of pages, including the page being faulted, that we read in with a single vectored read
+    // when reading ahead.
+    private static final int readAheadPageCount = getInteger( MuninnPageCursor.class, "readAheadPageCount", 16 );
+
+    // The number of consecutive pins of consecutive file pages, after which we consider the access pattern of the
+    // cursor to be a sequential scan, and start reading ahead even if PF_READ_AHEAD was not specified.
+    private static final int readAheadSequentialPinThreshold = getInteger(
+            MuninnPageCursor.class, "readAheadSequentialPinThreshold", 4 );
+
     // Size of the respective primitive types in bytes.
     private static final int SIZE_OF_BYTE = Byte.BYTES;
     private static final int SIZE_OF_SHORT = Short.BYTES;
@@ -54,6 +66,7 @@ abstract class MuninnPageCursor extends PageCursor
     protected MuninnPagedFile pagedFile;
     protected PageSwapper swapper;
     protected PageCacheTracer tracer;
+    protected EvictionPolicy evictionPolicy;
     protected MuninnPage page;
     protected PinEvent pinEvent;
     protected long pageId;
@@ -66,6 +79,15 @@ abstract class MuninnPageCursor extends PageCursor
     private int filePageSize;
     private int offset;
     private boolean outOfBounds;
+    private long lastPinnedPageId;
+    private int sequentialPins;
+    // The cache page and file page this cursor pinned last. Unlike lastPinnedPageId, these survive the cursor being
+    // returned to and taken from the cursor pool, since reading one record after another from the same page, each
+    // time with a new cursor, is still the same access to the page as far as the eviction policy is concerned.
+    private MuninnPage previousPage;
+    private long previousFilePageId = UNBOUND_PAGE_ID;
+    private MuninnPage[] readAheadPages;
+    private BinaryLatch[] readAheadLatches;
     // This is a String with the exception message if usePreciseCursorErrorStackTraces is false, otherwise it is a
     // CursorExceptionWithPreciseStackTrace with the message and stack trace pointing more or less directly at the
     // offending code.
@@ -81,6 +103,7 @@ abstract class MuninnPageCursor extends PageCursor
     {
         this.swapper = pagedFile.swapper;
         this.tracer = pagedFile.tracer;
+        this.evictionPolicy = pagedFile.pageCache.evictionPolicy;
     }
 
     final void initialiseFlags( MuninnPagedFile pagedFile, long pageId, int pf_flags )
@@ -89,6 +112,8 @@ abstract class MuninnPageCursor extends PageCursor
         this.pageId = pageId;
         this.pf_flags = pf_flags;
         this.filePageSize = pagedFile.filePageSize;
+        this.lastPinnedPageId = UNBOUND_PAGE_ID;
+        this.sequentialPins = 0;
     }
 
     @Override
@@ -206,6 +231,7 @@ abstract class MuninnPageCursor extends PageCursor
     protected void pin( long filePageId, boolean writeLock ) throws IOException
     {
         pinEvent = tracer.beginPin( writeLock, filePageId, swapper );
+        trackSequentialAccess( filePageId );
         int chunkId = MuninnPagedFile.computeChunkId( filePageId );
         // The chunkOffset is the addressing offset into the chunk array object for the relevant array slot. Using
         // this, we can access the array slot with Unsafe.
@@ -237,7 +263,17 @@ abstract class MuninnPageCursor extends PageCursor
                 boolean locked = tryLockPage( page );
                 if ( locked & page.isBoundTo( swapper, filePageId ) )
                 {
+                    if ( page == previousPage && filePageId == previousFilePageId )
+                    {
+                        evictionPolicy.pageRepinned( page );
+                    }
+                    else
+                    {
+                        evictionPolicy.pageHit( page );
+                    }
+                    pinEvent.hit();
                     pinCursorToPage( page, filePageId, swapper );
+                    rememberPinnedPage( page, filePageId );
                     return;
                 }
                 if ( locked )
@@ -253,6 +289,32 @@ abstract class MuninnPageCursor extends PageCursor
         }
         while ( item == null );
         pinCursorToPage( (MuninnPage) item, filePageId, swapper );
+        rememberPinnedPage( (MuninnPage) item, filePageId );
+    }
+
+    private void rememberPinnedPage( MuninnPage page, long filePageId )
+    {
+        previousPage = page;
+        previousFilePageId = filePageId;
+    }
+
+    private void trackSequentialAccess( long filePageId )
+    {
+        if ( filePageId == lastPinnedPageId + 1 )
+        {
+            sequentialPins++;
+        }
+        else if ( filePageId != lastPinnedPageId )
+        {
+            // Re-pinning the same page, as when retrying after a failed optimistic read, does not break the sequence.
+            sequentialPins = 0;
+        }
+        lastPinnedPageId = filePageId;
+    }
+
+    private boolean shouldReadAhead()
+    {
+        return (pf_flags & PF_READ_AHEAD) != 0 || sequentialPins >= readAheadSequentialPinThreshold;
     }
 
     private Object[][] expandTranslationTableCapacity( int chunkId )
@@ -331,9 +393,17 @@ abstract class MuninnPageCursor extends PageCursor
             // here, so the unmapping would have already happened. We do this
             // check before page.fault(), because that would otherwise reopen
             // the file channel.
-            assertPagedFileStillMappedAndGetIdOfLastPage();
+            long lastPageId = assertPagedFileStillMappedAndGetIdOfLastPage();
             page.initBuffer();
-            page.fault( swapper, filePageId, faultEvent );
+            if ( readAheadPageCount > 1 && shouldReadAhead() && filePageId < lastPageId )
+            {
+                faultWithReadAhead( page, filePageId, lastPageId, faultEvent );
+            }
+            else
+            {
+                page.fault( swapper, filePageId, faultEvent );
+            }
+            evictionPolicy.pageFaulted( page );
         }
         catch ( Throwable throwable )
         {
@@ -354,6 +424,132 @@ abstract class MuninnPageCursor extends PageCursor
         return page;
     }
 
+    /**
+     * Fault in the given page, along with as many of the following file pages as we can claim, up to the
+     * {@link #readAheadPageCount}, using a single vectored read. The read-ahead stops at the first file page that is
+     * already in memory or being faulted in by someone else, and at the end of the file. It also stops if we cannot
+     * immediately get hold of a free page, since reading ahead is never important enough to wait for eviction.
+     * <p>
+     * The given page is handled by the caller as a normal page fault, while the read-ahead pages are published to the
+     * translation table and unlocked here. If claiming a read-ahead page or the read fails, the read-ahead pages are
+     * unlocked and left for the eviction thread to clean up, their translation table slots are cleared, and the
+     * exception is rethrown.
+     */
+    private void faultWithReadAhead(
+            MuninnPage page, long filePageId, long lastPageId, PageFaultEvent faultEvent ) throws IOException
+    {
+        if ( readAheadPages == null )
+        {
+            readAheadPages = new MuninnPage[readAheadPageCount];
+            readAheadLatches = new BinaryLatch[readAheadPageCount];
+        }
+        MuninnPage[] pages = readAheadPages;
+        BinaryLatch[] latches = readAheadLatches;
+        pages[0] = page;
+        int maxPages = (int) Math.min( readAheadPageCount, lastPageId - filePageId + 1 );
+        int count = 1;
+        try
+        {
+            while ( count < maxPages && claimReadAheadPage( filePageId + count, count ) )
+            {
+                count++;
+            }
+            MuninnPage.faultVectored( swapper, filePageId, pages, count, faultEvent );
+        }
+        catch ( Throwable throwable )
+        {
+            for ( int i = 1; i < count; i++ )
+            {
+                pages[i].unlockExclusive();
+                abortReadAhead( filePageId + i, latches[i] );
+            }
+            clearReadAheadState( count );
+            throw throwable;
+        }
+
+        for ( int i = 1; i < count; i++ )
+        {
+            MuninnPage readAheadPage = pages[i];
+            long readAheadPageId = filePageId + i;
+            Object[] chunk = pagedFile.translationTable[MuninnPagedFile.computeChunkId( readAheadPageId )];
+            UnsafeUtil.putObjectVolatile( chunk, MuninnPagedFile.computeChunkOffset( readAheadPageId ), readAheadPage );
+            evictionPolicy.pageFaulted( readAheadPage );
+            readAheadPage.unlockExclusive();
+            latches[i].release();
+            PageFaultEvent readAheadEvent = pinEvent.beginPageFault();
+            readAheadEvent.setCachePageId( readAheadPage.getCachePageId() );
+            readAheadEvent.done();
+        }
+        clearReadAheadState( count );
+    }
+
+    private void clearReadAheadState( int count )
+    {
+        // Don't keep references to pages and latches around in the cursor, after the read-ahead.
+        Arrays.fill( readAheadPages, 0, count, null );
+        Arrays.fill( readAheadLatches, 0, count, null );
+    }
+
+    private boolean claimReadAheadPage( long readAheadPageId, int index )
+    {
+        int chunkId = MuninnPagedFile.computeChunkId( readAheadPageId );
+        Object[][] tt = pagedFile.translationTable;
+        if ( tt.length <= chunkId )
+        {
+            return false;
+        }
+        Object[] chunk = tt[chunkId];
+        long chunkOffset = MuninnPagedFile.computeChunkOffset( readAheadPageId );
+        if ( UnsafeUtil.getObjectVolatile( chunk, chunkOffset ) != null )
+        {
+            return false;
+        }
+        BinaryLatch latch = new BinaryLatch();
+        if ( !UnsafeUtil.compareAndSwapObject( chunk, chunkOffset, null, latch ) )
+        {
+            return false;
+        }
+        // From here on we MUST release the latch and clear the translation table slot if anything goes wrong, or
+        // other threads will wait forever for this read-ahead to finish.
+        MuninnPage page;
+        try
+        {
+            // The grabFreePage method might throw.
+            page = pagedFile.pageCache.tryGrabFreeAndExclusivelyLockedPage();
+        }
+        catch ( Throwable throwable )
+        {
+            abortReadAhead( readAheadPageId, latch );
+            throw throwable;
+        }
+        if ( page == null )
+        {
+            abortReadAhead( readAheadPageId, latch );
+            return false;
+        }
+        try
+        {
+            page.initBuffer();
+        }
+        catch ( Throwable throwable )
+        {
+            // Make sure to unlock the page, so the eviction thread can pick up our trash.
+            page.unlockExclusive();
+            abortReadAhead( readAheadPageId, latch );
+            throw throwable;
+        }
+        readAheadPages[index] = page;
+        readAheadLatches[index] = latch;
+        return true;
+    }
+
+    private void abortReadAhead( long readAheadPageId, BinaryLatch latch )
+    {
+        Object[] chunk = pagedFile.translationTable[MuninnPagedFile.computeChunkId( readAheadPageId )];
+        UnsafeUtil.putObjectVolatile( chunk, MuninnPagedFile.computeChunkOffset( readAheadPageId ), null );
+        latch.release();
+    }
+
     private void abortPageFault( Throwable throwable, Object[] chunk, long chunkOffset,
                                  BinaryLatch latch,
                                  PageFaultEvent faultEvent ) throws IOException
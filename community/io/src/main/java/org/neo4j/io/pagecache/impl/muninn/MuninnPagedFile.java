@@ -24,6 +24,7 @@ import java.io.Flushable;
 import java.io.IOException;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.WritableByteChannel;
+import java.util.BitSet;
 
 import org.neo4j.io.pagecache.IOLimiter;
 import org.neo4j.io.pagecache.PageCursor;
@@ -40,6 +41,8 @@ import org.neo4j.io.pagecache.tracing.PageCacheTracer;
 import org.neo4j.io.pagecache.tracing.PageFaultEvent;
 import org.neo4j.unsafe.impl.internal.dragons.UnsafeUtil;
 
+import static org.neo4j.unsafe.impl.internal.dragons.FeatureToggles.getInteger;
+
 final class MuninnPagedFile implements PagedFile, Flushable
 {
     private static final int translationTableChunkSizePower = Integer.getInteger(
@@ -49,6 +52,12 @@ final class MuninnPagedFile implements PagedFile, Flushable
     private static final int translationTableChunkArrayBase = UnsafeUtil.arrayBaseOffset( MuninnPage[].class );
     private static final int translationTableChunkArrayScale = UnsafeUtil.arrayIndexScale( MuninnPage[].class );
 
+    /**
+     * The maximum number of consecutive clean pages that a flush will include in an IO vector, in order to join two
+     * runs of dirty pages into a single write. Set to 0 to only ever write dirty pages.
+     */
+    private static final int flushGapBridgeLimit = getInteger( MuninnPagedFile.class, "flushGapBridgeLimit", 4 );
+
     private static final long headerStateOffset =
             UnsafeUtil.getFieldOffset( MuninnPagedFile.class, "headerState" );
     private static final int headerStateRefCountShift = 48;
@@ -253,18 +262,23 @@ final class MuninnPagedFile implements PagedFile, Flushable
         MuninnPage[] pages = new MuninnPage[translationTableChunkSize];
         long filePageId = -1; // Start at -1 because we increment at the *start* of the chunk-loop iteration.
         long limiterStamp = IOLimiter.INITIAL_STAMP;
+        // The IO vector can grow across chunk boundaries, since the chunks map consecutive file page ids.
+        // The pagesGrabbed counts all of the pages we have locked for the vector, while pagesToFlush only counts up
+        // to, and including, the last dirty page. The pages in between are clean pages that bridge a gap between
+        // dirty pages, and the trailing clean pages past pagesToFlush are never written.
+        int pagesGrabbed = 0;
+        int pagesToFlush = 0;
         Object[][] tt = this.translationTable;
         for ( Object[] chunk : tt )
         {
-            // TODO Look into if we can tolerate flushing a few clean pages if it means we can use larger vectors.
-            // TODO The clean pages in question must still be loaded, though. Otherwise we'll end up writing
-            // TODO garbage to the file.
-            int pagesGrabbed = 0;
             chunkLoop:for ( int i = 0; i < chunk.length; i++ )
             {
                 filePageId++;
 
                 long offset = computeChunkOffset( filePageId );
+                // Writing a few clean pages is cheaper than splitting the vector into two write calls, as long as
+                // the clean pages are still loaded. Otherwise we'd end up writing garbage to the file.
+                boolean mayBridgeGap = pagesGrabbed > 0 && pagesGrabbed - pagesToFlush < flushGapBridgeLimit;
                 // We might race with eviction, but we also mustn't miss a dirty page, so we loop until we succeed
                 // in getting a lock on all available pages.
                 for (;;)
@@ -274,22 +288,40 @@ final class MuninnPagedFile implements PagedFile, Flushable
                     {
                         MuninnPage page = (MuninnPage) element;
                         long stamp = page.tryOptimisticReadLock();
-                        if ( (!page.isDirty()) && page.validateReadLock( stamp ) )
+                        boolean clean = (!page.isDirty()) && page.validateReadLock( stamp );
+                        if ( clean && !mayBridgeGap )
                         {
                             break;
                         }
 
                         if ( !(forClosing? page.tryExclusiveLock() : page.tryFlushLock()) )
                         {
+                            if ( clean )
+                            {
+                                // We don't have to wait for clean pages.
+                                break;
+                            }
                             continue;
                         }
-                        if ( page.isBoundTo( swapper, filePageId ) && page.isDirty() )
+                        if ( page.isBoundTo( swapper, filePageId ) && (page.isDirty() || mayBridgeGap) )
                         {
                             // The page is still bound to the expected file and file page id after we locked it,
-                            // so we didn't race with eviction and faulting, and the page is dirty.
-                            // So we add it to our IO vector.
+                            // so we didn't race with eviction and faulting, and the page is either dirty, or can
+                            // bridge the gap to the next dirty page. So we add it to our IO vector.
                             pages[pagesGrabbed] = page;
                             pagesGrabbed++;
+                            if ( page.isDirty() )
+                            {
+                                pagesToFlush = pagesGrabbed;
+                            }
+                            if ( pagesGrabbed == pages.length )
+                            {
+                                limiterStamp = flushVector(
+                                        pages, pagesGrabbed, pagesToFlush, flushOpportunity, forClosing,
+                                        limiter, limiterStamp );
+                                pagesGrabbed = 0;
+                                pagesToFlush = 0;
+                            }
                             continue chunkLoop;
                         }
                         else if ( forClosing )
@@ -305,21 +337,48 @@ final class MuninnPagedFile implements PagedFile, Flushable
                 }
                 if ( pagesGrabbed > 0 )
                 {
-                    vectoredFlush( pages, pagesGrabbed, flushOpportunity, forClosing );
-                    limiterStamp = limiter.maybeLimitIO( limiterStamp, pagesGrabbed, this );
+                    limiterStamp = flushVector(
+                            pages, pagesGrabbed, pagesToFlush, flushOpportunity, forClosing, limiter, limiterStamp );
                     pagesGrabbed = 0;
+                    pagesToFlush = 0;
                 }
             }
-            if ( pagesGrabbed > 0 )
-            {
-                vectoredFlush( pages, pagesGrabbed, flushOpportunity, forClosing );
-                limiterStamp = limiter.maybeLimitIO( limiterStamp, pagesGrabbed, this );
-            }
+        }
+        if ( pagesGrabbed > 0 )
+        {
+            flushVector( pages, pagesGrabbed, pagesToFlush, flushOpportunity, forClosing, limiter, limiterStamp );
         }
 
         swapper.force();
     }
 
+    private long flushVector(
+            MuninnPage[] pages, int pagesGrabbed, int pagesToFlush, FlushEventOpportunity flushOpportunity,
+            boolean forClosing, IOLimiter limiter, long limiterStamp ) throws IOException
+    {
+        try
+        {
+            vectoredFlush( pages, pagesToFlush, flushOpportunity, forClosing );
+        }
+        finally
+        {
+            // The trailing clean pages we grabbed for bridging a gap that never closed, are not part of the write,
+            // but we still have to unlock them.
+            for ( int j = pagesToFlush; j < pagesGrabbed; j++ )
+            {
+                if ( forClosing )
+                {
+                    pages[j].unlockExclusive();
+                }
+                else
+                {
+                    pages[j].unlockFlush();
+                }
+            }
+        }
+        return limiter.maybeLimitIO( limiterStamp, pagesToFlush, this );
+    }
+
     private void vectoredFlush(
             MuninnPage[] pages, int pagesGrabbed, FlushEventOpportunity flushOpportunity, boolean forClosing )
             throws IOException
@@ -401,6 +460,27 @@ final class MuninnPagedFile implements PagedFile, Flushable
         return state & headerStateLastPageIdMask;
     }
 
+    @Override
+    public BitSet getCachedPages()
+    {
+        getLastPageId(); // Throws if the file has been unmapped.
+        BitSet cachedPages = new BitSet();
+        long filePageId = 0;
+        Object[][] tt = this.translationTable;
+        for ( Object[] chunk : tt )
+        {
+            for ( int i = 0; i < chunk.length && filePageId <= Integer.MAX_VALUE; i++, filePageId++ )
+            {
+                Object element = UnsafeUtil.getObjectVolatile( chunk, computeChunkOffset( filePageId ) );
+                if ( element instanceof MuninnPage && ((MuninnPage) element).isBoundTo( swapper, filePageId ) )
+                {
+                    cachedPages.set( (int) filePageId );
+                }
+            }
+        }
+        return cachedPages;
+    }
+
     private long getHeaderState()
     {
         return UnsafeUtil.getLongVolatile( this, headerStateOffset );
@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+import org.neo4j.unsafe.impl.internal.dragons.UnsafeUtil;
+
+/**
+ * A contiguous range of the pages in a {@link MuninnPageCache}, with its own freelist and its own position of the
+ * eviction clock arm.
+ *
+ * Page faulting threads prefer to take their free pages from their "home" partition, which means that a thread tends
+ * to keep touching the same memory, and that concurrent page faults mostly CAS on different freelist heads. If the
+ * page memory of each partition is also allocated separately, then the operating system gets a chance to place that
+ * memory close to the threads that first touch it.
+ *
+ * See the comment on the {@code freelist} field for how the list itself works.
+ */
+final class PagePartition
+{
+    // The field offset to unsafely access the freelist field.
+    private static final long freelistOffset = UnsafeUtil.getFieldOffset( PagePartition.class, "freelist" );
+
+    final int firstPage;
+    final int endPage;
+    final int keepFree;
+
+    // Only accessed by the background eviction thread.
+    int clockArm;
+
+    // The eviction task that keeps the freelist of this partition topped up.
+    EvictionTask evictor;
+
+    // The freelist is a thread-safe linked-list of 2 types of objects. A link
+    // can either be a MuninnPage or a FreePage.
+    // Initially, most of the links are MuninnPages that are ready for the
+    // taking. Then towards the end, we have the last bunch of pages linked
+    // through FreePage objects. We make this transition because, once a
+    // MuninnPage has been removed from the list, it cannot be added back. The
+    // reason is that the MuninnPages are reused, and adding them back into the
+    // freelist would expose us to the ABA-problem, which can cause cycles to
+    // form. The FreePage objects, however, are single-use such that they don't
+    // exhibit the ABA-problem. In other words, eviction will never add
+    // MuninnPages to the freelist; it will only add free pages through a new
+    // FreePage object.
+    @SuppressWarnings( "unused" ) // This field is accessed via Unsafe.
+    private volatile Object freelist;
+
+    PagePartition( int firstPage, int endPage, int keepFree )
+    {
+        this.firstPage = firstPage;
+        this.endPage = endPage;
+        this.keepFree = keepFree;
+        this.clockArm = firstPage;
+    }
+
+    int size()
+    {
+        return endPage - firstPage;
+    }
+
+    /**
+     * @return the number of pages that the eviction thread should evict, to bring this partition back up to having
+     * {@link #keepFree} free pages.
+     */
+    int freePagesNeeded()
+    {
+        Object freelistHead = getFreelistHead();
+        if ( freelistHead == null )
+        {
+            return keepFree;
+        }
+        else if ( freelistHead.getClass() == FreePage.class )
+        {
+            int availablePages = ((FreePage) freelistHead).count;
+            if ( availablePages < keepFree )
+            {
+                return keepFree - availablePages;
+            }
+        }
+        return 0;
+    }
+
+    Object getFreelistHead()
+    {
+        return UnsafeUtil.getObjectVolatile( this, freelistOffset );
+    }
+
+    void setFreelistHead( Object freelistHead )
+    {
+        UnsafeUtil.putObjectVolatile( this, freelistOffset, freelistHead );
+    }
+
+    boolean compareAndSetFreelistHead( Object expected, Object update )
+    {
+        return UnsafeUtil.compareAndSwapObject( this, freelistOffset, expected, update );
+    }
+
+    Object getAndSetFreelistHead( Object newFreelistHead )
+    {
+        return UnsafeUtil.getAndSetObject( this, freelistOffset, newFreelistHead );
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+import static org.neo4j.unsafe.impl.internal.dragons.FeatureToggles.getInteger;
+
+/**
+ * A scan resistant variant of the clock eviction policy, that divides the cache into a probationary segment and a
+ * protected segment.
+ * <p>
+ * Pages enter the cache in the probationary segment, with a usage counter of zero, and are only promoted into the
+ * protected segment if they are accessed again while they are still in memory, either by another cursor, or by the
+ * same cursor after it has moved on to another page. The clock arm evicts probationary pages as soon as it finds
+ * them, but leaves the protected pages alone for as long as the protected segment stays within its share of the
+ * cache. When it grows beyond that, or when a full revolution of the clock found nothing in the probationary
+ * segment, the clock arm starts aging the protected pages, demoting them back into the probationary segment once
+ * their usage counter reaches zero.
+ * <p>
+ * The effect is that a large scan, which touches every page exactly once, only churns through the probationary
+ * segment, and leaves the hot working set in the protected segment intact.
+ */
+final class SegmentedClockEvictionPolicy extends EvictionPolicy
+{
+    // The percentage of the cache that the protected segment is allowed to occupy, before the clock arm starts
+    // aging the protected pages.
+    private static final int protectedSegmentPercentage = getInteger(
+            SegmentedClockEvictionPolicy.class, "protectedSegmentPercentage", 80 );
+
+    private final long protectedSegmentLimit;
+
+    // The counters and the aging flag are only updated by the clock arms, and are intentionally left benignly racy,
+    // since they only steer the policy and don't need to be precise.
+    private long protectedPagesSeen;
+    private long probationaryPagesSeen;
+    private volatile boolean ageProtectedPages;
+
+    SegmentedClockEvictionPolicy( int maxPages )
+    {
+        this.protectedSegmentLimit = (maxPages * (long) protectedSegmentPercentage) / 100;
+    }
+
+    @Override
+    String name()
+    {
+        return SEGMENTED_CLOCK;
+    }
+
+    @Override
+    void pageHit( MuninnPage page )
+    {
+        page.incrementUsage();
+    }
+
+    @Override
+    void pageRepinned( MuninnPage page )
+    {
+        // Pinning the page again from the same cursor is part of the access that brought the page in, so it does not
+        // count as the page being accessed again. Otherwise every page of a scan that reads more than a single record
+        // from each page would be promoted.
+    }
+
+    @Override
+    void pageFaulted( MuninnPage page )
+    {
+        // Newly faulted pages start out in the probationary segment, which they are already in, since evicted pages
+        // always have a usage counter of zero.
+    }
+
+    @Override
+    boolean sweep( MuninnPage page )
+    {
+        if ( page.getUsageCounter() == 0 )
+        {
+            probationaryPagesSeen++;
+            return true;
+        }
+        protectedPagesSeen++;
+        if ( ageProtectedPages )
+        {
+            // Demote, but don't evict. The page gets another revolution in the probationary segment to prove its
+            // worth, before it is evicted.
+            page.decrementUsage();
+        }
+        return false;
+    }
+
+    @Override
+    void revolution()
+    {
+        ageProtectedPages = protectedPagesSeen > protectedSegmentLimit || probationaryPagesSeen == 0;
+        protectedPagesSeen = 0;
+        probationaryPagesSeen = 0;
+    }
+}
@@ -30,6 +30,23 @@ public interface PageCacheCounters
      */
     long faults();
 
+    /**
+     * @return The number of page pins that found the page already in memory, thus far.
+     */
+    long hits();
+
+    /**
+     * @return The ratio of page pins that found the page already in memory, as opposed to having to fault it in,
+     * thus far. This is a number between 0 and 1, or 0 if no pins have been observed.
+     */
+    default double hitRatio()
+    {
+        long hits = hits();
+        long faults = faults();
+        long pins = hits + faults;
+        return pins == 0 ? 0.0 : ((double) hits) / pins;
+    }
+
     /**
      * @return The number of page evictions observed thus far.
      */
@@ -50,6 +67,18 @@ public interface PageCacheCounters
      */
     long flushes();
 
+    /**
+     * @return The number of pages written by flushes thus far. Since flushes may write many adjacent pages with a
+     * single vectored write, this number divided by the number of {@link #flushes() flushes} gives the average number
+     * of pages per write.
+     */
+    long pagesFlushed();
+
+    /**
+     * @return The number of pages that the page cache warmer has loaded back into memory, after a restart.
+     */
+    long pagesWarmedUp();
+
     /**
      * @return The sum total of bytes read in through page faults thus far.
      */
@@ -74,4 +103,9 @@ public interface PageCacheCounters
      * @return The number of page evictions that have thrown exceptions thus far.
      */
     long evictionExceptions();
+
+    /**
+     * @return The number of background flushes that have been aborted by exceptions thus far.
+     */
+    long flushExceptions();
 }
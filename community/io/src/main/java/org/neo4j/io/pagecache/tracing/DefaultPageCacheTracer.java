@@ -26,6 +26,7 @@ import java.lang.invoke.MethodHandles;
 import java.lang.invoke.MethodType;
 import java.lang.invoke.SwitchPoint;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.neo4j.io.pagecache.PageSwapper;
 
@@ -83,15 +84,21 @@ public class DefaultPageCacheTracer implements PageCacheTracer
     }
 
     protected final AtomicLong faults = new AtomicLong();
+    // Hits are counted on every pin, regardless of pin tracing being enabled, so we use a LongAdder to avoid
+    // contending on a single counter.
+    protected final LongAdder hits = new LongAdder();
     protected final AtomicLong evictions = new AtomicLong();
     protected final AtomicLong pins = new AtomicLong();
     protected final AtomicLong unpins = new AtomicLong();
     protected final AtomicLong flushes = new AtomicLong();
+    protected final AtomicLong pagesFlushed = new AtomicLong();
+    protected final AtomicLong pagesWarmedUp = new AtomicLong();
     protected final AtomicLong bytesRead = new AtomicLong();
     protected final AtomicLong bytesWritten = new AtomicLong();
     protected final AtomicLong filesMapped = new AtomicLong();
     protected final AtomicLong filesUnmapped = new AtomicLong();
     protected final AtomicLong evictionExceptions = new AtomicLong();
+    protected final AtomicLong flushExceptions = new AtomicLong();
 
     private final FlushEvent flushEvent = new FlushEvent()
     {
@@ -116,6 +123,7 @@ public class DefaultPageCacheTracer implements PageCacheTracer
         @Override
         public void addPagesFlushed( int pageCount )
         {
+            pagesFlushed.getAndAdd( pageCount );
         }
     };
 
@@ -217,6 +225,12 @@ public class DefaultPageCacheTracer implements PageCacheTracer
         {
         }
 
+        @Override
+        public void hit()
+        {
+            hits.increment();
+        }
+
         @Override
         public PageFaultEvent beginPageFault()
         {
@@ -237,6 +251,12 @@ public class DefaultPageCacheTracer implements PageCacheTracer
         {
         }
 
+        @Override
+        public void hit()
+        {
+            hits.increment();
+        }
+
         @Override
         public PageFaultEvent beginPageFault()
         {
@@ -257,6 +277,12 @@ public class DefaultPageCacheTracer implements PageCacheTracer
             return flushEventOpportunity;
         }
 
+        @Override
+        public void threwException( IOException exception )
+        {
+            flushExceptions.getAndIncrement();
+        }
+
         @Override
         public void close()
         {
@@ -275,6 +301,12 @@ public class DefaultPageCacheTracer implements PageCacheTracer
         filesUnmapped.getAndIncrement();
     }
 
+    @Override
+    public void warmedUp( long pageCount )
+    {
+        pagesWarmedUp.getAndAdd( pageCount );
+    }
+
     @Override
     public EvictionRunEvent beginPageEvictions( int pageCountToEvict )
     {
@@ -331,6 +363,12 @@ public class DefaultPageCacheTracer implements PageCacheTracer
         return faults.get();
     }
 
+    @Override
+    public long hits()
+    {
+        return hits.sum();
+    }
+
     @Override
     public long evictions()
     {
@@ -355,6 +393,18 @@ public class DefaultPageCacheTracer implements PageCacheTracer
         return flushes.get();
     }
 
+    @Override
+    public long pagesFlushed()
+    {
+        return pagesFlushed.get();
+    }
+
+    @Override
+    public long pagesWarmedUp()
+    {
+        return pagesWarmedUp.get();
+    }
+
     @Override
     public long bytesRead()
     {
@@ -384,4 +434,10 @@ public class DefaultPageCacheTracer implements PageCacheTracer
     {
         return evictionExceptions.get();
     }
+
+    @Override
+    public long flushExceptions()
+    {
+        return flushExceptions.get();
+    }
 }
@@ -19,6 +19,8 @@
  */
 package org.neo4j.io.pagecache.tracing;
 
+import java.io.IOException;
+
 /**
  * Begin a mass-flushing of pages.
  */
@@ -35,6 +37,11 @@ public interface MajorFlushEvent extends AutoCloseablePageCacheTracerEvent
             return FlushEventOpportunity.NULL;
         }
 
+        @Override
+        public void threwException( IOException exception )
+        {
+        }
+
         @Override
         public void close()
         {
@@ -45,4 +52,10 @@ public interface MajorFlushEvent extends AutoCloseablePageCacheTracerEvent
      * Mass-flushing obviously imply flushing opportunities.
      */
     public FlushEventOpportunity flushEventOpportunity();
+
+    /**
+     * Indicates that the flush was aborted by an exception, that is not propagated to any caller.
+     * This happens when the background flush thread encounters an IO error.
+     */
+    public void threwException( IOException exception );
 }
@@ -46,6 +46,11 @@ public interface PageCacheTracer extends PageCacheCounters
         {
         }
 
+        @Override
+        public void warmedUp( long pageCount )
+        {
+        }
+
         @Override
         public EvictionRunEvent beginPageEvictions( int pageCountToEvict )
         {
@@ -76,6 +81,12 @@ public interface PageCacheTracer extends PageCacheCounters
             return 0;
         }
 
+        @Override
+        public long hits()
+        {
+            return 0;
+        }
+
         @Override
         public long evictions()
         {
@@ -100,6 +111,18 @@ public interface PageCacheTracer extends PageCacheCounters
             return 0;
         }
 
+        @Override
+        public long pagesFlushed()
+        {
+            return 0;
+        }
+
+        @Override
+        public long pagesWarmedUp()
+        {
+            return 0;
+        }
+
         @Override
         public long bytesRead()
         {
@@ -130,6 +153,12 @@ public interface PageCacheTracer extends PageCacheCounters
             return 0;
         }
 
+        @Override
+        public long flushExceptions()
+        {
+            return 0;
+        }
+
         @Override
         public String toString()
         {
@@ -147,6 +176,12 @@ public interface PageCacheTracer extends PageCacheCounters
      */
     void unmappedFile( File file );
 
+    /**
+     * The given number of pages, that were in memory when the page cache profile was last taken, have been loaded
+     * back into memory by the page cache warmer.
+     */
+    void warmedUp( long pageCount );
+
     /**
      * A background eviction has begun. Called from the background eviction thread.
      *
@@ -23,6 +23,7 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.WritableByteChannel;
+import java.util.BitSet;
 import java.util.Objects;
 
 import org.neo4j.adversaries.Adversary;
@@ -97,6 +98,13 @@ public class AdversarialPagedFile implements PagedFile
         return delegate.getLastPageId();
     }
 
+    @Override
+    public BitSet getCachedPages() throws IOException
+    {
+        adversary.injectFailure( IllegalStateException.class );
+        return delegate.getCachedPages();
+    }
+
     @Override
     public void close() throws IOException
     {
@@ -22,6 +22,7 @@ package org.neo4j.io.pagecache;
 import java.io.IOException;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.WritableByteChannel;
+import java.util.BitSet;
 
 public class DelegatingPagedFile implements PagedFile
 {
@@ -47,6 +48,11 @@ public class DelegatingPagedFile implements PagedFile
         return delegate.getLastPageId();
     }
 
+    public BitSet getCachedPages() throws IOException
+    {
+        return delegate.getCachedPages();
+    }
+
     public int pageSize()
     {
         return delegate.pageSize();
@@ -92,6 +92,11 @@ public class RecordingPageCacheTracer implements PageCacheTracer
         // we currently do not record these
     }
 
+    @Override
+    public void warmedUp( long pageCount )
+    {
+    }
+
     @Override
     public EvictionRunEvent beginPageEvictions( int pageCountToEvict )
     {
@@ -120,6 +125,11 @@ public class RecordingPageCacheTracer implements PageCacheTracer
             {
             }
 
+            @Override
+            public void hit()
+            {
+            }
+
             @Override
             public PageFaultEvent beginPageFault()
             {
@@ -180,6 +190,12 @@ public class RecordingPageCacheTracer implements PageCacheTracer
         return 0;
     }
 
+    @Override
+    public long hits()
+    {
+        return 0;
+    }
+
     @Override
     public long evictions()
     {
@@ -204,6 +220,18 @@ public class RecordingPageCacheTracer implements PageCacheTracer
         return 0;
     }
 
+    @Override
+    public long pagesFlushed()
+    {
+        return 0;
+    }
+
+    @Override
+    public long pagesWarmedUp()
+    {
+        return 0;
+    }
+
     @Override
     public long bytesRead()
     {
@@ -234,6 +262,12 @@ public class RecordingPageCacheTracer implements PageCacheTracer
         return 0;
     }
 
+    @Override
+    public long flushExceptions()
+    {
+        return 0;
+    }
+
     public <T extends Event> T observe( Class<T> type ) throws InterruptedException
     {
         return type.cast( record.take() );
@@ -22,6 +22,7 @@ package org.neo4j.io.pagecache;
 import java.io.IOException;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.WritableByteChannel;
+import java.util.BitSet;
 
 public class StubPagedFile implements PagedFile
 {
@@ -80,6 +81,12 @@ public class StubPagedFile implements PagedFile
         return lastPageId;
     }
 
+    @Override
+    public BitSet getCachedPages() throws IOException
+    {
+        return new BitSet();
+    }
+
     @Override
     public void close() throws IOException
     {
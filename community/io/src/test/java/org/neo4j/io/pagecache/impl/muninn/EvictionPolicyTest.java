@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+import org.junit.Test;
+
+import org.neo4j.unsafe.impl.internal.dragons.MemoryManager;
+
+import static org.hamcrest.Matchers.instanceOf;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class EvictionPolicyTest
+{
+    private final MemoryManager memoryManager = new MemoryManager( 8 * 10, 8 );
+
+    private MuninnPage newPage()
+    {
+        return new MuninnPage( 8, memoryManager );
+    }
+
+    @Test
+    public void mustCreatePoliciesByName() throws Exception
+    {
+        assertThat( EvictionPolicy.create( null, 10 ), instanceOf( ClockEvictionPolicy.class ) );
+        assertThat( EvictionPolicy.create( "clock", 10 ), instanceOf( ClockEvictionPolicy.class ) );
+        assertThat( EvictionPolicy.create( "segmented_clock", 10 ), instanceOf( SegmentedClockEvictionPolicy.class ) );
+    }
+
+    @Test( expected = IllegalArgumentException.class )
+    public void mustThrowOnUnknownPolicyName() throws Exception
+    {
+        EvictionPolicy.create( "lottery", 10 );
+    }
+
+    @Test
+    public void clockMustEvictFaultedPageAfterOneSweep() throws Exception
+    {
+        EvictionPolicy policy = EvictionPolicy.create( EvictionPolicy.CLOCK, 10 );
+        MuninnPage page = newPage();
+        policy.pageFaulted( page );
+        assertTrue( policy.sweep( page ) );
+    }
+
+    @Test
+    public void segmentedClockMustEvictPagesThatWereOnlyFaultedBeforePagesThatWereHit() throws Exception
+    {
+        EvictionPolicy policy = EvictionPolicy.create( EvictionPolicy.SEGMENTED_CLOCK, 10 );
+        MuninnPage hot = newPage();
+        MuninnPage scanned = newPage();
+
+        policy.pageFaulted( hot );
+        policy.pageHit( hot );
+        policy.pageFaulted( scanned );
+
+        for ( int i = 0; i < 10; i++ )
+        {
+            assertFalse( policy.sweep( hot ) );
+        }
+        assertTrue( policy.sweep( scanned ) );
+    }
+
+    @Test
+    public void clockMustCountRepinnedPagesAsHit() throws Exception
+    {
+        EvictionPolicy policy = EvictionPolicy.create( EvictionPolicy.CLOCK, 10 );
+        MuninnPage page = newPage();
+        policy.pageFaulted( page );
+        policy.pageRepinned( page );
+        assertFalse( policy.sweep( page ) );
+        assertTrue( policy.sweep( page ) );
+    }
+
+    @Test
+    public void segmentedClockMustNotPromotePagesThatWereOnlyRepinned() throws Exception
+    {
+        EvictionPolicy policy = EvictionPolicy.create( EvictionPolicy.SEGMENTED_CLOCK, 10 );
+        MuninnPage page = newPage();
+        policy.pageFaulted( page );
+        policy.pageRepinned( page );
+        policy.pageRepinned( page );
+        policy.pageRepinned( page );
+        assertTrue( policy.sweep( page ) );
+    }
+
+    @Test
+    public void segmentedClockMustAgeProtectedPagesWhenThereIsNothingElseToEvict() throws Exception
+    {
+        EvictionPolicy policy = EvictionPolicy.create( EvictionPolicy.SEGMENTED_CLOCK, 10 );
+        MuninnPage page = newPage();
+        policy.pageFaulted( page );
+        policy.pageHit( page );
+
+        assertFalse( policy.sweep( page ) );
+        policy.revolution(); // Found nothing to evict in that revolution, so start aging protected pages.
+        assertFalse( policy.sweep( page ) ); // Demoted to the probationary segment.
+        policy.revolution();
+        assertTrue( policy.sweep( page ) );
+    }
+}
@@ -26,15 +26,27 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.neo4j.graphdb.mockfs.DelegatingFileSystemAbstraction;
 import org.neo4j.graphdb.mockfs.DelegatingStoreChannel;
 import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.io.fs.StoreChannel;
+import org.neo4j.io.pagecache.DelegatingPageSwapper;
+import org.neo4j.io.pagecache.IOLimiter;
+import org.neo4j.io.pagecache.Page;
+import org.neo4j.io.pagecache.PageEvictionCallback;
 import org.neo4j.io.pagecache.PageCacheTest;
 import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.PageSwapper;
+import org.neo4j.io.pagecache.PageSwapperFactory;
 import org.neo4j.io.pagecache.PagedFile;
 import org.neo4j.io.pagecache.RecordingPageCacheTracer;
+import org.neo4j.io.pagecache.impl.SingleFilePageSwapperFactory;
+import org.neo4j.io.pagecache.tracing.DefaultPageCacheTracer;
 import org.neo4j.io.pagecache.tracing.DelegatingPageCacheTracer;
 import org.neo4j.io.pagecache.tracing.EvictionRunEvent;
 import org.neo4j.io.pagecache.tracing.MajorFlushEvent;
@@ -48,6 +60,7 @@ import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_WRITE_LOCK;
 import static org.neo4j.io.pagecache.PagedFile.PF_NO_GROW;
+import static org.neo4j.io.pagecache.PagedFile.PF_READ_AHEAD;
 import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_READ_LOCK;
 import static org.neo4j.io.pagecache.RecordingPageCacheTracer.Evict;
 import static org.neo4j.io.pagecache.RecordingPageCacheTracer.Fault;
@@ -204,6 +217,587 @@ public class MuninnPageCacheTest extends PageCacheTest<MuninnPageCache>
         assertThat( buf.getLong(), is( 0L ) );
     }
 
+    @Test
+    public void readAheadMustFaultInFollowingPages() throws Exception
+    {
+        writeInitialDataTo( file( "a" ) );
+        DefaultPageCacheTracer tracer = new DefaultPageCacheTracer();
+
+        MuninnPageCache pageCache = getPageCache( fs, 20, 8, tracer );
+        try ( PagedFile pagedFile = pageCache.map( file( "a" ), 8 );
+              PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK | PF_READ_AHEAD ) )
+        {
+            assertTrue( cursor.next() );
+            assertThat( cursor.getLong(), is( x ) );
+            assertThat( tracer.faults(), is( 2L ) );
+
+            assertTrue( cursor.next() );
+            assertThat( cursor.getLong(), is( y ) );
+            assertThat( tracer.faults(), is( 2L ) );
+            assertThat( tracer.hits(), is( 1L ) );
+        }
+    }
+
+    @Test( timeout = SEMI_LONG_TIMEOUT_MILLIS )
+    public void failedReadAheadMustReleaseTheClaimedPagesWhenTheReadFails() throws Exception
+    {
+        int filePages = 40;
+        writePageIdsTo( file( "a" ), filePages );
+        AtomicBoolean failReads = new AtomicBoolean( true );
+        SingleFilePageSwapperFactory swapperFactory = new SingleFilePageSwapperFactory()
+        {
+            @Override
+            public PageSwapper createPageSwapper(
+                    File file, int filePageSize, PageEvictionCallback onEviction, boolean createIfNotExist )
+                    throws IOException
+            {
+                PageSwapper delegate = super.createPageSwapper( file, filePageSize, onEviction, createIfNotExist );
+                return new DelegatingPageSwapper( delegate )
+                {
+                    @Override
+                    public long read( long startFilePageId, Page[] pages, int arrayOffset, int length )
+                            throws IOException
+                    {
+                        if ( failReads.get() )
+                        {
+                            throw new IOException( "Boom" );
+                        }
+                        return super.read( startFilePageId, pages, arrayOffset, length );
+                    }
+                };
+            }
+        };
+        swapperFactory.setFileSystemAbstraction( fs );
+
+        try ( MuninnPageCache pageCache = new MuninnPageCache(
+                swapperFactory, 100, 8, PageCacheTracer.NULL, EvictionPolicy.CLOCK, IOLimiter.unlimited() );
+              PagedFile pagedFile = pageCache.map( file( "a" ), 8 ) )
+        {
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK | PF_READ_AHEAD ) )
+            {
+                cursor.next();
+                fail( "The read-ahead should have failed" );
+            }
+            catch ( IOException e )
+            {
+                assertThat( e.getMessage(), is( "Boom" ) );
+            }
+
+            // None of the pages that the failed read-ahead claimed may be left latched or bound to the wrong data.
+            failReads.set( false );
+            assertPagesContainTheirIds( pagedFile, filePages );
+        }
+    }
+
+    @Test( timeout = SEMI_LONG_TIMEOUT_MILLIS )
+    public void failedReadAheadMustReleaseTheClaimedPagesWhenClaimingAPageThrows() throws Exception
+    {
+        int filePages = 40;
+        writePageIdsTo( file( "a" ), filePages );
+        PageSwapperFactory swapperFactory = new SingleFilePageSwapperFactory();
+        swapperFactory.setFileSystemAbstraction( fs );
+        AtomicInteger claimsUntilFailure = new AtomicInteger( 3 );
+
+        try ( MuninnPageCache pageCache = new MuninnPageCache(
+                swapperFactory, 100, 8, PageCacheTracer.NULL, EvictionPolicy.CLOCK, IOLimiter.unlimited() )
+        {
+            @Override
+            MuninnPage tryGrabFreeAndExclusivelyLockedPage()
+            {
+                if ( claimsUntilFailure.decrementAndGet() == 0 )
+                {
+                    throw new IllegalStateException( "Boom" );
+                }
+                return super.tryGrabFreeAndExclusivelyLockedPage();
+            }
+        };
+              PagedFile pagedFile = pageCache.map( file( "a" ), 8 ) )
+        {
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK | PF_READ_AHEAD ) )
+            {
+                cursor.next();
+                fail( "The read-ahead should have failed" );
+            }
+            catch ( IllegalStateException e )
+            {
+                assertThat( e.getMessage(), is( "Boom" ) );
+            }
+
+            // The page that was being claimed when it threw, and the pages claimed before it, must all be released.
+            assertPagesContainTheirIds( pagedFile, filePages );
+        }
+    }
+
+    private void writePageIdsTo( File file, int pages ) throws IOException
+    {
+        try ( StoreChannel channel = fs.create( file ) )
+        {
+            ByteBuffer buf = ByteBuffer.allocate( pages * 8 );
+            for ( long pageId = 0; pageId < pages; pageId++ )
+            {
+                buf.putLong( pageId );
+            }
+            buf.flip();
+            channel.writeAll( buf );
+        }
+    }
+
+    private void assertPagesContainTheirIds( PagedFile pagedFile, int pages ) throws IOException
+    {
+        try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK ) )
+        {
+            for ( long pageId = 0; pageId < pages; pageId++ )
+            {
+                assertTrue( cursor.next( pageId ) );
+                long value;
+                do
+                {
+                    value = cursor.getLong( 0 );
+                }
+                while ( cursor.shouldRetry() );
+                assertThat( value, is( pageId ) );
+            }
+        }
+    }
+
+    @Test
+    public void flushMustBridgeSmallGapsOfCleanPagesWithSingleVectoredWrite() throws Exception
+    {
+        writeInitialDataTo( file( "a" ) );
+        DefaultPageCacheTracer tracer = new DefaultPageCacheTracer();
+
+        MuninnPageCache pageCache = getPageCache( fs, 20, 8, tracer );
+        try ( PagedFile pagedFile = pageCache.map( file( "a" ), 8 ) )
+        {
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_WRITE_LOCK ) )
+            {
+                assertTrue( cursor.next( 0 ) );
+                cursor.putLong( y );
+                assertTrue( cursor.next( 2 ) );
+                cursor.putLong( x );
+            }
+            try ( PageCursor cursor = pagedFile.io( 1, PF_SHARED_READ_LOCK ) )
+            {
+                assertTrue( cursor.next() );
+            }
+            long flushesBefore = tracer.flushes();
+            long pagesFlushedBefore = tracer.pagesFlushed();
+
+            pagedFile.flushAndForce();
+
+            assertThat( tracer.flushes() - flushesBefore, is( 1L ) );
+            assertThat( tracer.pagesFlushed() - pagesFlushedBefore, is( 3L ) );
+        }
+
+        ByteBuffer buf = ByteBuffer.allocate( 24 );
+        StoreChannel channel = fs.open( file( "a" ), "r" );
+        channel.read( buf );
+        buf.flip();
+        assertThat( buf.getLong(), is( y ) );
+        assertThat( buf.getLong(), is( y ) );
+        assertThat( buf.getLong(), is( x ) );
+    }
+
+    @Test( timeout = SEMI_LONG_TIMEOUT_MILLIS )
+    public void backgroundFlushMustWriteOutPagesThatStayDirty() throws Exception
+    {
+        writeInitialDataTo( file( "a" ) );
+        DefaultPageCacheTracer tracer = new DefaultPageCacheTracer();
+        PageSwapperFactory swapperFactory = new SingleFilePageSwapperFactory();
+        swapperFactory.setFileSystemAbstraction( fs );
+
+        try ( MuninnPageCache pageCache = new MuninnPageCache(
+                swapperFactory, 20, 8, tracer, EvictionPolicy.CLOCK, IOLimiter.unlimited() );
+              PagedFile pagedFile = pageCache.map( file( "a" ), 8 ) )
+        {
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_WRITE_LOCK ) )
+            {
+                assertTrue( cursor.next() );
+                cursor.putLong( y );
+            }
+
+            // We never flush the page ourselves, so the background flusher must eventually do it.
+            while ( tracer.pagesFlushed() == 0 )
+            {
+                Thread.sleep( 10 );
+            }
+
+            ByteBuffer buf = ByteBuffer.allocate( 16 );
+            StoreChannel channel = fs.open( file( "a" ), "r" );
+            channel.read( buf );
+            buf.flip();
+            assertThat( buf.getLong(), is( y ) );
+            assertThat( buf.getLong(), is( y ) );
+        }
+    }
+
+    @Test( timeout = SEMI_LONG_TIMEOUT_MILLIS )
+    public void backgroundFlushMustReportFailuresAndKeepFlushing() throws Exception
+    {
+        writeInitialDataTo( file( "a" ) );
+        AtomicInteger failedWrites = new AtomicInteger();
+        FileSystemAbstraction fs = new DelegatingFileSystemAbstraction( this.fs )
+        {
+            @Override
+            public StoreChannel open( File fileName, String mode ) throws IOException
+            {
+                return new DelegatingStoreChannel( super.open( fileName, mode ) )
+                {
+                    @Override
+                    public void writeAll( ByteBuffer src, long position ) throws IOException
+                    {
+                        switch ( failedWrites.getAndIncrement() )
+                        {
+                        case 0:
+                            throw new IOException( "uh-oh..." );
+                        case 1:
+                            throw new IllegalStateException( "boom" );
+                        default:
+                            super.writeAll( src, position );
+                        }
+                    }
+                };
+            }
+        };
+        DefaultPageCacheTracer tracer = new DefaultPageCacheTracer();
+        PageSwapperFactory swapperFactory = new SingleFilePageSwapperFactory();
+        swapperFactory.setFileSystemAbstraction( fs );
+
+        try ( MuninnPageCache pageCache = new MuninnPageCache(
+                swapperFactory, 20, 8, tracer, EvictionPolicy.CLOCK, IOLimiter.unlimited() );
+              PagedFile pagedFile = pageCache.map( file( "a" ), 8 ) )
+        {
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_WRITE_LOCK ) )
+            {
+                assertTrue( cursor.next() );
+                cursor.putLong( y );
+            }
+
+            // Both the IO error and the unexpected exception must be reported, and must not stop the flush thread,
+            // which will eventually manage to write the page.
+            while ( tracer.pagesFlushed() == 0 )
+            {
+                Thread.sleep( 10 );
+            }
+            assertThat( tracer.flushExceptions(), is( 2L ) );
+            assertFirstLongInFile( y );
+        }
+    }
+
+    @Test( timeout = SEMI_LONG_TIMEOUT_MILLIS )
+    public void flushMustWaitForOngoingBackgroundFlush() throws Exception
+    {
+        writeInitialDataTo( file( "a" ) );
+        CountDownLatch writeStarted = new CountDownLatch( 1 );
+        CountDownLatch writeAllowed = new CountDownLatch( 1 );
+
+        try ( MuninnPageCache pageCache = createBackgroundFlushingPageCache( writeStarted, writeAllowed );
+              PagedFile pagedFile = pageCache.map( file( "a" ), 8 ) )
+        {
+            writeAndAwaitBackgroundFlush( pagedFile, writeStarted );
+
+            // The page is not clean until the background write is done, so the flush must not skip it.
+            Future<?> flush = executor.submit( () ->
+            {
+                pagedFile.flushAndForce();
+                return null;
+            } );
+            assertStillRunning( flush );
+            writeAllowed.countDown();
+            flush.get();
+            assertFirstLongInFile( y );
+        }
+    }
+
+    @Test( timeout = SEMI_LONG_TIMEOUT_MILLIS )
+    public void unmapMustWaitForOngoingBackgroundFlush() throws Exception
+    {
+        writeInitialDataTo( file( "a" ) );
+        CountDownLatch writeStarted = new CountDownLatch( 1 );
+        CountDownLatch writeAllowed = new CountDownLatch( 1 );
+
+        try ( MuninnPageCache pageCache = createBackgroundFlushingPageCache( writeStarted, writeAllowed ) )
+        {
+            PagedFile pagedFile = pageCache.map( file( "a" ), 8 );
+            writeAndAwaitBackgroundFlush( pagedFile, writeStarted );
+
+            // The swapper must stay open until the background write is done.
+            Future<?> unmap = executor.submit( () ->
+            {
+                pagedFile.close();
+                return null;
+            } );
+            assertStillRunning( unmap );
+            writeAllowed.countDown();
+            unmap.get();
+            assertFirstLongInFile( y );
+        }
+    }
+
+    @Test( timeout = SEMI_LONG_TIMEOUT_MILLIS )
+    public void pageFaultsAndEvictionsMustReachEveryPartition() throws Exception
+    {
+        writeInitialDataTo( file( "a" ) );
+        DefaultPageCacheTracer tracer = new DefaultPageCacheTracer();
+        int maxPages = 18; // Partitions of 5, 5, 5 and 3 pages.
+
+        try ( MuninnPageCache pageCache = createPartitionedPageCache( maxPages, 4, 2, tracer );
+              PagedFile pagedFile = pageCache.map( file( "a" ), 8 ) )
+        {
+            // The write locks keep the pages from being evicted, so every page in the cache must be used, no matter
+            // which partition it is in.
+            writeWhilePinningAllPages( pagedFile, 0, maxPages );
+            assertThat( tracer.faults(), is( (long) maxPages ) );
+            assertThat( tracer.evictions(), is( 0L ) );
+
+            // And now every one of those pages must be evicted, to make room for the next ones.
+            writeWhilePinningAllPages( pagedFile, maxPages, maxPages );
+            assertThat( tracer.faults(), is( 2L * maxPages ) );
+            assertThat( tracer.evictions(), is( (long) maxPages ) );
+
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK ) )
+            {
+                for ( long i = 0; i < 2 * maxPages; i++ )
+                {
+                    assertTrue( cursor.next() );
+                    long value;
+                    do
+                    {
+                        value = cursor.getLong();
+                    }
+                    while ( cursor.shouldRetry() );
+                    assertThat( value, is( i ) );
+                }
+            }
+        }
+    }
+
+    @Test( timeout = SEMI_LONG_TIMEOUT_MILLIS )
+    public void concurrentPageFaultsMustEvictAcrossPartitions() throws Exception
+    {
+        writeInitialDataTo( file( "a" ) );
+        DefaultPageCacheTracer tracer = new DefaultPageCacheTracer();
+        int threadCount = 8;
+        int pagesPerThread = 25;
+
+        try ( MuninnPageCache pageCache = createPartitionedPageCache( 20, 4, 2, tracer );
+              PagedFile pagedFile = pageCache.map( file( "a" ), 8 ) )
+        {
+            // Each thread has a home partition of its own, but there are far more pages in the file than in the
+            // cache, so the threads keep faulting and evicting pages in the partitions of the other threads.
+            Future<?>[] futures = new Future<?>[threadCount];
+            for ( int i = 0; i < threadCount; i++ )
+            {
+                long firstPageId = i * pagesPerThread;
+                futures[i] = executor.submit( () ->
+                {
+                    for ( int round = 0; round < 10; round++ )
+                    {
+                        try ( PageCursor cursor = pagedFile.io( firstPageId, PF_SHARED_WRITE_LOCK ) )
+                        {
+                            for ( int j = 0; j < pagesPerThread; j++ )
+                            {
+                                assertTrue( cursor.next() );
+                                cursor.putLong( cursor.getCurrentPageId() + round );
+                            }
+                        }
+                    }
+                    return null;
+                } );
+            }
+            for ( Future<?> future : futures )
+            {
+                future.get();
+            }
+            assertTrue( tracer.evictions() > 0 );
+
+            pagedFile.flushAndForce();
+        }
+
+        ByteBuffer buf = ByteBuffer.allocate( 8 );
+        try ( StoreChannel channel = fs.open( file( "a" ), "r" ) )
+        {
+            for ( long pageId = 0; pageId < threadCount * pagesPerThread; pageId++ )
+            {
+                buf.clear();
+                channel.read( buf, pageId * 8 );
+                buf.flip();
+                assertThat( buf.getLong(), is( pageId + 9 ) );
+            }
+        }
+    }
+
+    @Test( timeout = SEMI_LONG_TIMEOUT_MILLIS )
+    public void sequentialScanLargerThanCacheMustNotEvictHotPagesWithSegmentedClock() throws Exception
+    {
+        int maxPages = 100;
+        int filePages = 500;
+        int hotPages = 5;
+        int recordsPerPage = 4;
+        writePageIdsTo( file( "a" ), filePages );
+        DefaultPageCacheTracer tracer = new DefaultPageCacheTracer();
+
+        // A single partition, so the hot pages are not the only pages in the partition of some thread.
+        try ( MuninnPageCache pageCache = createPartitionedPageCache(
+                maxPages, 1, 1, tracer, EvictionPolicy.SEGMENTED_CLOCK );
+              PagedFile pagedFile = pageCache.map( file( "a" ), 8 ) )
+        {
+            // Two passes over the hot pages, so every hot page is accessed again after it was brought in.
+            for ( int pass = 0; pass < 2; pass++ )
+            {
+                for ( long pageId = 0; pageId < hotPages; pageId++ )
+                {
+                    readRecords( pagedFile, pageId, recordsPerPage );
+                }
+            }
+
+            // One scan over the rest of the file, reading every record with a cursor of its own, the way the record
+            // stores do. The scanned pages are pinned several times each, but never accessed again after the scan has
+            // moved on.
+            for ( long pageId = hotPages; pageId < filePages; pageId++ )
+            {
+                readRecords( pagedFile, pageId, recordsPerPage );
+            }
+            assertTrue( tracer.evictions() > 0 );
+
+            long faultsBeforeHotPages = tracer.faults();
+            for ( long pageId = 0; pageId < hotPages; pageId++ )
+            {
+                readRecords( pagedFile, pageId, 1 );
+            }
+            assertThat( tracer.faults(), is( faultsBeforeHotPages ) );
+        }
+    }
+
+    private void readRecords( PagedFile pagedFile, long pageId, int records ) throws IOException
+    {
+        for ( int i = 0; i < records; i++ )
+        {
+            try ( PageCursor cursor = pagedFile.io( pageId, PF_SHARED_READ_LOCK ) )
+            {
+                assertTrue( cursor.next() );
+                long value;
+                do
+                {
+                    value = cursor.getLong( 0 );
+                }
+                while ( cursor.shouldRetry() );
+                assertThat( value, is( pageId ) );
+            }
+        }
+    }
+
+    private MuninnPageCache createPartitionedPageCache(
+            int maxPages, int partitionCount, int evictorCount, PageCacheTracer tracer )
+    {
+        return createPartitionedPageCache( maxPages, partitionCount, evictorCount, tracer, EvictionPolicy.CLOCK );
+    }
+
+    private MuninnPageCache createPartitionedPageCache(
+            int maxPages, int partitionCount, int evictorCount, PageCacheTracer tracer, String evictionPolicy )
+    {
+        PageSwapperFactory swapperFactory = new SingleFilePageSwapperFactory();
+        swapperFactory.setFileSystemAbstraction( fs );
+        return new MuninnPageCache( swapperFactory, maxPages, 8, tracer, evictionPolicy, null,
+                partitionCount, evictorCount );
+    }
+
+    private void writeWhilePinningAllPages( PagedFile pagedFile, long firstPageId, int pageCount ) throws IOException
+    {
+        PageCursor[] cursors = new PageCursor[pageCount];
+        try
+        {
+            for ( int i = 0; i < pageCount; i++ )
+            {
+                cursors[i] = pagedFile.io( firstPageId + i, PF_SHARED_WRITE_LOCK );
+                assertTrue( cursors[i].next() );
+                cursors[i].putLong( firstPageId + i );
+            }
+        }
+        finally
+        {
+            for ( PageCursor cursor : cursors )
+            {
+                if ( cursor != null )
+                {
+                    cursor.close();
+                }
+            }
+        }
+    }
+
+    private MuninnPageCache createBackgroundFlushingPageCache(
+            CountDownLatch writeStarted, CountDownLatch writeAllowed )
+    {
+        // Blocks the first page write, which is done by the background flusher, until it is allowed to proceed.
+        AtomicBoolean blockWrite = new AtomicBoolean( true );
+        FileSystemAbstraction fs = new DelegatingFileSystemAbstraction( this.fs )
+        {
+            @Override
+            public StoreChannel open( File fileName, String mode ) throws IOException
+            {
+                return new DelegatingStoreChannel( super.open( fileName, mode ) )
+                {
+                    @Override
+                    public void writeAll( ByteBuffer src, long position ) throws IOException
+                    {
+                        if ( blockWrite.compareAndSet( true, false ) )
+                        {
+                            writeStarted.countDown();
+                            try
+                            {
+                                writeAllowed.await();
+                            }
+                            catch ( InterruptedException e )
+                            {
+                                throw new IOException( e );
+                            }
+                        }
+                        super.writeAll( src, position );
+                    }
+                };
+            }
+        };
+        PageSwapperFactory swapperFactory = new SingleFilePageSwapperFactory();
+        swapperFactory.setFileSystemAbstraction( fs );
+        return new MuninnPageCache(
+                swapperFactory, 20, 8, PageCacheTracer.NULL, EvictionPolicy.CLOCK, IOLimiter.unlimited() );
+    }
+
+    private void writeAndAwaitBackgroundFlush( PagedFile pagedFile, CountDownLatch writeStarted ) throws Exception
+    {
+        try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_WRITE_LOCK ) )
+        {
+            assertTrue( cursor.next() );
+            cursor.putLong( y );
+        }
+        writeStarted.await();
+    }
+
+    private void assertStillRunning( Future<?> future ) throws Exception
+    {
+        try
+        {
+            future.get( 100, TimeUnit.MILLISECONDS );
+            fail( "Should be waiting for the background flush" );
+        }
+        catch ( TimeoutException ignore )
+        {
+            // Good.
+        }
+    }
+
+    private void assertFirstLongInFile( long expected ) throws IOException
+    {
+        ByteBuffer buf = ByteBuffer.allocate( 8 );
+        try ( StoreChannel channel = fs.open( file( "a" ), "r" ) )
+        {
+            channel.read( buf );
+        }
+        buf.flip();
+        assertThat( buf.getLong(), is( expected ) );
+    }
+
     @Test
     public void closingTheCursorMustUnlockModifiedPage() throws Exception
     {
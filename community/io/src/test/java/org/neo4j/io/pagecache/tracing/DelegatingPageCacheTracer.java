@@ -92,11 +92,21 @@ public class DelegatingPageCacheTracer implements PageCacheTracer
         delegate.unmappedFile( file );
     }
 
+    public void warmedUp( long pageCount )
+    {
+        delegate.warmedUp( pageCount );
+    }
+
     public long evictionExceptions()
     {
         return delegate.evictionExceptions();
     }
 
+    public long flushExceptions()
+    {
+        return delegate.flushExceptions();
+    }
+
     public long filesMapped()
     {
         return delegate.filesMapped();
@@ -107,11 +117,26 @@ public class DelegatingPageCacheTracer implements PageCacheTracer
         return delegate.flushes();
     }
 
+    public long pagesFlushed()
+    {
+        return delegate.pagesFlushed();
+    }
+
+    public long pagesWarmedUp()
+    {
+        return delegate.pagesWarmedUp();
+    }
+
     public long faults()
     {
         return delegate.faults();
     }
 
+    public long hits()
+    {
+        return delegate.hits();
+    }
+
     public long evictions()
     {
         return delegate.evictions();
@@ -85,6 +85,23 @@ public abstract class PageCacheTracerTest
         assertCounts( 1, 1, 2, 0, 0, 0, 84, 0, 0, 0 );
     }
 
+    @Test
+    public void mustCountHitsAndComputeHitRatio()
+    {
+        PinEvent pinEvent = tracer.beginPin( false, 0, swapper );
+        pinEvent.beginPageFault().done();
+        pinEvent.done();
+        for ( int i = 0; i < 3; i++ )
+        {
+            pinEvent = tracer.beginPin( false, 0, swapper );
+            pinEvent.hit();
+            pinEvent.done();
+        }
+
+        assertThat( "hits", tracer.hits(), is( 3L ) );
+        assertThat( "hitRatio", tracer.hitRatio(), is( 0.75 ) );
+    }
+
     @Test
     public void mustCountEvictions()
     {
@@ -152,4 +169,21 @@ public abstract class PageCacheTracerTest
 
         assertCounts( 0, 0, 0, 0, 0, 6, 0, 0, 0, 0 );
     }
+
+    @Test
+    public void mustCountPagesFlushed()
+    {
+        try ( MajorFlushEvent fileFlush = tracer.beginFileFlush( swapper ) )
+        {
+            FlushEvent flushEvent = fileFlush.flushEventOpportunity().beginFlush( 0, 0, swapper );
+            flushEvent.addPagesFlushed( 4 );
+            flushEvent.done();
+            flushEvent = fileFlush.flushEventOpportunity().beginFlush( 10, 0, swapper );
+            flushEvent.addPagesFlushed( 2 );
+            flushEvent.done();
+        }
+
+        assertThat( "flushes", tracer.flushes(), is( 2L ) );
+        assertThat( "pagesFlushed", tracer.pagesFlushed(), is( 6L ) );
+    }
 }
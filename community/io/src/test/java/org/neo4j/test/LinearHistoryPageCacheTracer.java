@@ -373,6 +373,11 @@ public final class LinearHistoryPageCacheTracer implements PageCacheTracer
             this.cachePageId = cachePageId;
         }
 
+        @Override
+        public void hit()
+        {
+        }
+
         @Override
         public PageFaultEvent beginPageFault()
         {
@@ -453,6 +458,7 @@ public final class LinearHistoryPageCacheTracer implements PageCacheTracer
     public class MajorFlushHEvent extends IntervalHEven implements MajorFlushEvent, FlushEventOpportunity
     {
         private File file;
+        private IOException exception;
 
         public MajorFlushHEvent( File file )
         {
@@ -471,10 +477,17 @@ public final class LinearHistoryPageCacheTracer implements PageCacheTracer
             return add( new FlushHEvent( filePageId, cachePageId, swapper ) );
         }
 
+        @Override
+        public void threwException( IOException exception )
+        {
+            this.exception = exception;
+        }
+
         @Override
         void printBody( PrintStream out, String exceptionLinePrefix )
         {
             print( out, file );
+            print( out, exception, exceptionLinePrefix );
         }
     }
 
@@ -540,6 +553,11 @@ public final class LinearHistoryPageCacheTracer implements PageCacheTracer
         add( new UnmappedFileHEvent() ).file = file;
     }
 
+    @Override
+    public void warmedUp( long pageCount )
+    {
+    }
+
     @Override
     public EvictionRunEvent beginPageEvictions( int pageCountToEvict )
     {
@@ -582,6 +600,12 @@ public final class LinearHistoryPageCacheTracer implements PageCacheTracer
         return 0;
     }
 
+    @Override
+    public long hits()
+    {
+        return 0;
+    }
+
     @Override
     public long unpins()
     {
@@ -594,6 +618,18 @@ public final class LinearHistoryPageCacheTracer implements PageCacheTracer
         return 0;
     }
 
+    @Override
+    public long pagesFlushed()
+    {
+        return 0;
+    }
+
+    @Override
+    public long pagesWarmedUp()
+    {
+        return 0;
+    }
+
     @Override
     public long bytesRead()
     {
@@ -624,6 +660,12 @@ public final class LinearHistoryPageCacheTracer implements PageCacheTracer
         return 0;
     }
 
+    @Override
+    public long flushExceptions()
+    {
+        return 0;
+    }
+
     private class HistoryPrinter implements Consumer<HEvent>
     {
         private final List<HEvent> concurrentIntervals;
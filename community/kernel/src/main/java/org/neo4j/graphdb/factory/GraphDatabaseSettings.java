@@ -156,7 +156,24 @@ public abstract class GraphDatabaseSettings
     @Internal
     public static final Setting<String> cypher_runtime = setting(
             "unsupported.cypher.runtime",
-            options( "INTERPRETED", "COMPILED", DEFAULT ), DEFAULT );
+            options( "INTERPRETED", "SLOTTED", "PARALLEL", "COMPILED", DEFAULT ), DEFAULT );
+
+    @Description( "Number of worker threads the parallel runtime splits the scans of a read only query between. " +
+                  "A value of 0 means one worker per available processor." )
+    @Internal
+    public static final Setting<Integer> cypher_parallel_runtime_workers = setting(
+            "unsupported.cypher.parallel_runtime_workers", INTEGER, "0", min( 0 ) );
+
+    @Description( "The estimated amount of memory that the sort, distinct, aggregation, eager and hash join " +
+                  "operators of a single Cypher query may use together. An operator that would grow beyond this " +
+                  "spills rows to temporary files instead. Zero means no limit, and nothing is ever spilled." )
+    public static final Setting<Long> cypher_query_memory_budget =
+            setting( "cypher.query_memory_budget", BYTES, "0", min( 0L ) );
+
+    @Description( "The directory that Cypher queries spill rows to once they exceed the query memory budget. " +
+                  "Defaults to a `cypher-spill` directory inside the database directory." )
+    public static final Setting<File> cypher_query_spill_directory =
+            pathSetting( "cypher.query_spill_directory", NO_DEFAULT );
 
     @Description( "Enable tracing of compilation in cypher." )
     @Internal
@@ -218,6 +235,17 @@ public abstract class GraphDatabaseSettings
     @Description("The maximum time interval of a transaction within which it should be completed.")
     public static final Setting<Long> transaction_timeout = setting( "dbms.transaction.timeout", DURATION, String.valueOf( UNSPECIFIED_TIMEOUT ) );
 
+    @Description( "The maximum estimated amount of memory that the uncommitted state of a single transaction may " +
+                  "use. A transaction that grows beyond this is terminated. Zero means no limit." )
+    public static final Setting<Long> transaction_state_max_size =
+            setting( "dbms.transaction.state.max_size", BYTES, "0", min( 0L ) );
+
+    @Description( "The maximum estimated amount of memory that the uncommitted state of all running transactions " +
+                  "may use together. A transaction that would push the total beyond this is terminated. " +
+                  "Zero means no limit." )
+    public static final Setting<Long> transaction_state_max_total_size =
+            setting( "dbms.transaction.state.max_total_size", BYTES, "0", min( 0L ) );
+
     @Description( "The maximum amount of time to wait for running transactions to complete before allowing "
                   + "initiated database shutdown to continue" )
     @Internal
@@ -381,6 +409,39 @@ public abstract class GraphDatabaseSettings
     public static final Setting<String> pagecache_swapper =
             setting( "dbms.memory.pagecache.swapper", STRING, (String) null );
 
+    @Description( "The eviction policy used by the page cache. The 'clock' policy treats all page accesses alike, " +
+                  "while the 'segmented_clock' policy is scan resistant, and keeps pages that are only accessed " +
+                  "once, for instance by large scans, from pushing the frequently accessed pages out of the cache." )
+    @Internal
+    public static final Setting<String> pagecache_eviction_policy =
+            setting( "unsupported.dbms.memory.pagecache.eviction_policy",
+                    options( "clock", "segmented_clock" ), "clock" );
+
+    @Description( "Let the page cache write out the pages that have stayed dirty for a while in the background, so " +
+                  "check points have less work to do, and take about the same amount of time regardless of the " +
+                  "write load. The background writes are limited by the same IO limiter as the check points, see " +
+                  "`dbms.checkpoint.iops.limit`." )
+    @Internal
+    public static final Setting<Boolean> pagecache_background_flush =
+            setting( "unsupported.dbms.memory.pagecache.background_flush", BOOLEAN, FALSE );
+
+    @Description( "Record which pages of the store files are in the page cache, and load those pages back into the " +
+                  "page cache in the background when the database starts. This shortens the time it takes for the " +
+                  "database to reach its normal performance after a restart. The profiles are stored next to the " +
+                  "store files, in files with a '.cacheprof' suffix." )
+    public static final Setting<Boolean> pagecache_warmup_enabled =
+            setting( "dbms.memory.pagecache.warmup.enable", BOOLEAN, FALSE );
+
+    @Description( "How often the profile of which pages are in the page cache is recorded. A profile is also " +
+                  "recorded when the database shuts down." )
+    public static final Setting<Long> pagecache_warmup_profiling_interval =
+            setting( "dbms.memory.pagecache.warmup.profile.interval", DURATION, "1m" );
+
+    @Description( "The maximum number of pages per second that the page cache warmup may load into memory. " +
+                  "Set this to 0 to let the warmup load pages as fast as it can." )
+    public static final Setting<Integer> pagecache_warmup_max_iops =
+            setting( "dbms.memory.pagecache.warmup.max_iops", INTEGER, "0", min( 0 ) );
+
     /**
      * Block size properties values depends from selected record format.
      * We can't figured out record format until it will be selected by corresponding edition.
@@ -431,6 +492,20 @@ public abstract class GraphDatabaseSettings
     @Description( "Relationship count threshold for considering a node to be dense" )
     public static final Setting<Integer> dense_node_threshold = setting( "dbms.relationship_grouping_threshold", INTEGER, "50", min(1) );
 
+    @Description( "Let transactions adding relationships of an existing type to a dense node share the lock on that " +
+                  "node, and only lock the relationship group of that type, exclusively, once they commit. This " +
+                  "allows concurrent ingestion of relationships into the same high degree node." )
+    public static final Setting<Boolean> dense_node_deferred_locking =
+            setting( "dbms.relationship_grouping_deferred_locking", BOOLEAN, FALSE );
+
+    @Description( "Number of threads applying the store changes of a batch of transactions, e.g. a batch pulled from " +
+                  "the master by a slave. With more than one thread, record changes of consecutive transactions are " +
+                  "partitioned and written in parallel, while index and counts store updates are still applied one " +
+                  "transaction at a time." )
+    @Internal
+    public static final Setting<Integer> transaction_apply_parallelism =
+            setting( "unsupported.dbms.transaction_apply_parallelism", INTEGER, "1", min( 1 ) );
+
     @Description( "Log executed queries that take longer than the configured threshold, dbms.logs.query.threshold. " +
             "Log entries are written to the file _query.log_ located in the Logs directory. " +
             "For location of the Logs directory, see <<file-locations>>. " +
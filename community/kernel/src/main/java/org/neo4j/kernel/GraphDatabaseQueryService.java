@@ -69,6 +69,15 @@ public interface GraphDatabaseQueryService
     InternalTransaction beginTransaction( KernelTransaction.Type type, SecurityContext securityContext, long timeout,
             TimeUnit unit);
 
+    /**
+     * Begin new internal transaction that can only read, with default timeout.
+     *
+     * @param type transaction type
+     * @param securityContext transaction security context
+     * @return internal transaction
+     */
+    InternalTransaction beginReadOnlyTransaction( KernelTransaction.Type type, SecurityContext securityContext );
+
     URL validateURLAccess( URL url ) throws URLAccessValidationError;
 
     DbmsOperations getDbmsOperations();
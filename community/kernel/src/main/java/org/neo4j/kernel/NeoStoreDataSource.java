@@ -65,6 +65,7 @@ import org.neo4j.kernel.impl.api.StatementOperationContainer;
 import org.neo4j.kernel.impl.api.StatementOperationParts;
 import org.neo4j.kernel.impl.api.TransactionCommitProcess;
 import org.neo4j.kernel.impl.api.TransactionHooks;
+import org.neo4j.kernel.impl.api.TxStateMemoryPool;
 import org.neo4j.kernel.impl.api.UpdateableSchemaState;
 import org.neo4j.kernel.impl.api.index.IndexingService;
 import org.neo4j.kernel.impl.api.operations.QueryRegistrationOperations;
@@ -83,6 +84,7 @@ import org.neo4j.kernel.impl.locking.LockService;
 import org.neo4j.kernel.impl.locking.ReentrantLockService;
 import org.neo4j.kernel.impl.locking.StatementLocksFactory;
 import org.neo4j.kernel.impl.logging.LogService;
+import org.neo4j.kernel.impl.pagecache.PageCacheWarmer;
 import org.neo4j.kernel.impl.proc.Procedures;
 import org.neo4j.storageengine.api.StoreFileMetadata;
 import org.neo4j.kernel.impl.storageengine.impl.recordstorage.RecordStorageEngine;
@@ -508,6 +510,12 @@ public class NeoStoreDataSource implements Lifecycle, IndexProviders
             throw Exceptions.launderedException( e );
         }
 
+        if ( config.get( GraphDatabaseSettings.pagecache_warmup_enabled ) )
+        {
+            life.add( new PageCacheWarmer( fs, pageCache, storeDir, scheduler, tracers.pageCacheTracer, logProvider,
+                    config ) );
+        }
+
         // NOTE: please make sure this is performed after having added everything to the life, in fact we would like
         // to perform the checkpointing as first step when the life is shutdown.
         life.add( lifecycleToTriggerCheckPointOnShutdown() );
@@ -652,7 +660,7 @@ public class NeoStoreDataSource implements Lifecycle, IndexProviders
 
         final TransactionAppender appender = life.add( new BatchingTransactionAppender(
                 logFile, logRotation, transactionMetadataCache, transactionIdStore, legacyIndexTransactionOrdering,
-                databaseHealth ) );
+                databaseHealth, scheduler ) );
         final LogicalTransactionStore logicalTransactionStore =
                 new PhysicalLogicalTransactionStore( logFile, transactionMetadataCache, logEntryReader );
 
@@ -788,7 +796,8 @@ public class NeoStoreDataSource implements Lifecycle, IndexProviders
         KernelTransactions kernelTransactions = life.add( new KernelTransactions( statementLocksFactory,
                 constraintIndexCreator, statementOperationContainer, schemaWriteGuard, transactionHeaderInformationFactory,
                 transactionCommitProcess, indexConfigStore, legacyIndexProviderLookup, hooks, transactionMonitor, life,
-                tracers, storageEngine, procedures, transactionIdStore, clock, accessCapability ) );
+                tracers, storageEngine, procedures, transactionIdStore, clock, accessCapability,
+                TxStateMemoryPool.fromConfig( config ) ) );
 
         final Kernel kernel = new Kernel( kernelTransactions, hooks, databaseHealth, transactionMonitor, procedures,
                 config );
@@ -1000,7 +1009,7 @@ public class NeoStoreDataSource implements Lifecycle, IndexProviders
         // + Locking
         LockingStatementOperations lockingContext = new LockingStatementOperations( parts.entityReadOperations(),
                 parts.entityWriteOperations(), parts.schemaReadOperations(), parts.schemaWriteOperations(),
-                parts.schemaStateOperations() );
+                parts.schemaStateOperations(), config.get( GraphDatabaseSettings.dense_node_deferred_locking ) );
         parts = parts.override( null, null, null, lockingContext, lockingContext, lockingContext, lockingContext,
                 lockingContext, null, null, null, null );
         // + Guard
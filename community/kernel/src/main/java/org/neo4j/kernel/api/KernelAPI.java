@@ -56,6 +56,18 @@ public interface KernelAPI
     KernelTransaction newTransaction( KernelTransaction.Type type, SecurityContext securityContext, long timeout )
             throws TransactionFailureException;
 
+    /**
+     * Creates and returns a new {@link KernelTransaction} that can only read the underlying graph, with custom
+     * timeout in milliseconds. Any attempt to write fails in such a transaction, in return it is cheaper to close. It
+     * takes the same locks as a regular transaction does when reading.
+     *
+     * @param type the type of the new transaction: implicit (internally created) or explicit (created by the user)
+     * @param securityContext transaction security context
+     * @param timeout transaction timeout in milliseconds
+     */
+    KernelTransaction newReadOnlyTransaction( KernelTransaction.Type type, SecurityContext securityContext,
+            long timeout ) throws TransactionFailureException;
+
     /**
      * Registers a {@link TransactionHook} that will receive notifications about committing transactions
      * and the changes they commit.
@@ -96,4 +96,11 @@ public interface KernelTransactionHandle
      * @return a list of all queries currently executing that use the underlying transaction
      */
     Stream<ExecutingQuery> executingQueries();
+
+    /**
+     * Estimated memory used by the state of the underlying transaction when handle was created.
+     *
+     * @return estimated number of bytes of uncommitted state held by the transaction.
+     */
+    long txStateMemoryUsage();
 }
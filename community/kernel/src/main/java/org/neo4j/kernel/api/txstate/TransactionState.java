@@ -101,4 +101,11 @@ public interface TransactionState extends ReadableTransactionState
     boolean constraintIndexDoUnRemove( IndexDescriptor index );
 
     void indexDoUpdateProperty( IndexDescriptor descriptor, long nodeId, DefinedProperty before, DefinedProperty after );
+
+    // LIFECYCLE
+
+    /**
+     * Releases resources, like off-heap memory, held by this state. This state cannot be used after this call.
+     */
+    void release();
 }
@@ -102,6 +102,16 @@ public class Kernel extends LifecycleAdapter implements KernelAPI
         return transaction;
     }
 
+    @Override
+    public KernelTransaction newReadOnlyTransaction( KernelTransaction.Type type, SecurityContext securityContext,
+            long timeout ) throws TransactionFailureException
+    {
+        health.assertHealthy( TransactionFailureException.class );
+        KernelTransaction transaction = transactions.newReadOnlyInstance( type, securityContext, timeout );
+        transactionMonitor.transactionStarted();
+        return transaction;
+    }
+
     @Override
     public void registerTransactionHook( TransactionHook hook )
     {
@@ -27,7 +27,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
-import java.util.function.Supplier;
+import java.util.function.Function;
 
 import org.neo4j.collection.pool.Pool;
 import org.neo4j.graphdb.TransactionTerminatedException;
@@ -86,11 +86,27 @@ public class KernelTransactionImplementation implements KernelTransaction, TxSta
      * no writes (NONE) to data writes (DATA) or schema writes (SCHEMA), but it cannot transition between
      * DATA and SCHEMA without throwing an InvalidTransactionTypeKernelException. Note that this behavior
      * is orthogonal to the SecurityContext which manages what the transaction or statement is allowed to do
-     * based on authorization.
+     * based on authorization. Read-only transactions start out as READ_ONLY, which never transitions at all.
      */
     private enum TransactionWriteState
     {
         NONE,
+        READ_ONLY
+                {
+                    @Override
+                    TransactionWriteState upgradeToDataWrites() throws InvalidTransactionTypeKernelException
+                    {
+                        throw new InvalidTransactionTypeKernelException(
+                                "Cannot perform data updates in a read-only transaction." );
+                    }
+
+                    @Override
+                    TransactionWriteState upgradeToSchemaWrites() throws InvalidTransactionTypeKernelException
+                    {
+                        throw new InvalidTransactionTypeKernelException(
+                                "Cannot perform schema updates in a read-only transaction." );
+                    }
+                },
         DATA
                 {
                     @Override
@@ -133,7 +149,8 @@ public class KernelTransactionImplementation implements KernelTransaction, TxSta
     private final StorageEngine storageEngine;
     private final TransactionTracer tracer;
     private final Pool<KernelTransactionImplementation> pool;
-    private final Supplier<LegacyIndexTransactionState> legacyIndexTxStateSupplier;
+    private final Function<TxStateMemoryTracker,LegacyIndexTransactionState> legacyIndexTxStateFactory;
+    private final TxStateMemoryTracker txStateMemory;
 
     // For committing
     private final TransactionHeaderInformationFactory headerInformationFactory;
@@ -186,12 +203,14 @@ public class KernelTransactionImplementation implements KernelTransaction, TxSta
                                             TransactionHeaderInformationFactory headerInformationFactory,
                                             TransactionCommitProcess commitProcess,
                                             TransactionMonitor transactionMonitor,
-                                            Supplier<LegacyIndexTransactionState> legacyIndexTxStateSupplier,
+                                            Function<TxStateMemoryTracker,LegacyIndexTransactionState>
+                                                    legacyIndexTxStateFactory,
                                             Pool<KernelTransactionImplementation> pool,
                                             Clock clock,
                                             TransactionTracer tracer,
                                             StorageEngine storageEngine,
-                                            AccessCapability accessCapability )
+                                            AccessCapability accessCapability,
+                                            TxStateMemoryPool txStateMemoryPool )
     {
         this.operationContainer = operationContainer;
         this.schemaWriteGuard = schemaWriteGuard;
@@ -202,13 +221,14 @@ public class KernelTransactionImplementation implements KernelTransaction, TxSta
         this.transactionMonitor = transactionMonitor;
         this.storeLayer = storageEngine.storeReadLayer();
         this.storageEngine = storageEngine;
-        this.legacyIndexTxStateSupplier = legacyIndexTxStateSupplier;
+        this.legacyIndexTxStateFactory = legacyIndexTxStateFactory;
         this.pool = pool;
         this.clock = clock;
         this.tracer = tracer;
         this.storageStatement = storeLayer.newStatement();
         this.currentStatement = new KernelStatement( this, this, storageStatement, procedures, accessCapability );
         this.userMetaData = Collections.emptyMap();
+        this.txStateMemory = new TxStateMemoryTracker( txStateMemoryPool, this::markForTermination );
     }
 
     /**
@@ -217,12 +237,24 @@ public class KernelTransactionImplementation implements KernelTransaction, TxSta
     public KernelTransactionImplementation initialize(
             long lastCommittedTx, long lastTimeStamp, StatementLocks statementLocks, Type type,
             SecurityContext frozenSecurityContext, long transactionTimeout )
+    {
+        return initialize( lastCommittedTx, lastTimeStamp, statementLocks, type, frozenSecurityContext,
+                transactionTimeout, false );
+    }
+
+    /**
+     * Reset this transaction to a vanilla state, turning it into a logically new transaction. A read-only
+     * transaction refuses all data and schema writes, and so never has any transaction state to commit or roll back.
+     */
+    public KernelTransactionImplementation initialize(
+            long lastCommittedTx, long lastTimeStamp, StatementLocks statementLocks, Type type,
+            SecurityContext frozenSecurityContext, long transactionTimeout, boolean readOnly )
     {
         this.type = type;
         this.statementLocks = statementLocks;
         this.terminationReason = null;
         this.closing = closed = failure = success = beforeHookInvoked = false;
-        this.writeState = TransactionWriteState.NONE;
+        this.writeState = readOnly ? TransactionWriteState.READ_ONLY : TransactionWriteState.NONE;
         this.startTimeMillis = clock.millis();
         this.timeoutMillis = transactionTimeout;
         this.lastTransactionIdWhenStarted = lastCommittedTx;
@@ -242,6 +274,14 @@ public class KernelTransactionImplementation implements KernelTransaction, TxSta
         return reuseCount;
     }
 
+    /**
+     * @return estimated number of bytes used by the transaction state and legacy index state of this transaction.
+     */
+    long txStateMemoryUsage()
+    {
+        return txStateMemory.usedBytes();
+    }
+
     @Override
     public long startTime()
     {
@@ -399,7 +439,7 @@ public class KernelTransactionImplementation implements KernelTransaction, TxSta
         if ( txState == null )
         {
             transactionMonitor.upgradeToWriteTransaction();
-            txState = new TxState();
+            txState = new TxState( txStateMemory );
         }
         return txState;
     }
@@ -408,7 +448,7 @@ public class KernelTransactionImplementation implements KernelTransaction, TxSta
     public LegacyIndexTransactionState legacyIndexTxState()
     {
         return legacyIndexTransactionState != null ? legacyIndexTransactionState :
-            (legacyIndexTransactionState = legacyIndexTxStateSupplier.get());
+            (legacyIndexTransactionState = legacyIndexTxStateFactory.apply( txStateMemory ));
     }
 
     @Override
@@ -422,9 +462,9 @@ public class KernelTransactionImplementation implements KernelTransaction, TxSta
         assertTransactionOpen();
         closed = true;
         closeCurrentStatementIfAny();
-        for ( CloseListener closeListener : closeListeners )
+        for ( int i = 0; i < closeListeners.size(); i++ )
         {
-            closeListener.notify( txId );
+            closeListeners.get( i ).notify( txId );
         }
     }
 
@@ -473,6 +513,10 @@ public class KernelTransactionImplementation implements KernelTransaction, TxSta
         closing = true;
         try
         {
+            if ( writeState == TransactionWriteState.READ_ONLY )
+            {
+                return closeReadOnly();
+            }
             if ( failure || !success || isTerminated() )
             {
                 rollback();
@@ -503,6 +547,29 @@ public class KernelTransactionImplementation implements KernelTransaction, TxSta
         }
     }
 
+    /**
+     * A read-only transaction has nothing to commit, roll back or hand to transaction hooks, so closing it only
+     * needs to notify the close listeners and the monitor.
+     */
+    private long closeReadOnly() throws TransactionFailureException
+    {
+        boolean committed = success && !failure && !isTerminated();
+        try
+        {
+            markAsClosed( committed ? READ_ONLY : ROLLBACK );
+        }
+        finally
+        {
+            transactionMonitor.transactionFinished( committed, false );
+        }
+        if ( !committed )
+        {
+            failOnNonExplicitRollbackIfNeeded();
+            return ROLLBACK;
+        }
+        return READ_ONLY;
+    }
+
     /**
      * Throws exception if this transaction was marked as successful but failure flag has also been set to true.
      * <p>
@@ -726,7 +793,12 @@ public class KernelTransactionImplementation implements KernelTransaction, TxSta
             securityContext = null;
             transactionEvent = null;
             legacyIndexTransactionState = null;
-            txState = null;
+            if ( txState != null )
+            {
+                txState.release();
+                txState = null;
+            }
+            txStateMemory.reset();
             hooksState = null;
             currentTransactionOperations = null;
             closeListeners.clear();
@@ -808,7 +880,7 @@ public class KernelTransactionImplementation implements KernelTransaction, TxSta
     {
         String lockSessionId = statementLocks == null
                                ? "statementLocks == null"
-                               : String.valueOf( statementLocks.pessimistic().getLockSessionId() );
+                               : String.valueOf( statementLocks.lockSessionId() );
 
         return "KernelTransaction[" + lockSessionId + "]";
     }
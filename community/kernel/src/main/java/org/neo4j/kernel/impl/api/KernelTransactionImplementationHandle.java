@@ -44,6 +44,7 @@ class KernelTransactionImplementationHandle implements KernelTransactionHandle
     private final SecurityContext securityContext;
     private final Status terminationReason;
     private final ExecutingQueryList executingQueries;
+    private final long txStateMemoryUsage;
 
     KernelTransactionImplementationHandle( KernelTransactionImplementation tx )
     {
@@ -54,6 +55,7 @@ class KernelTransactionImplementationHandle implements KernelTransactionHandle
         this.securityContext = tx.securityContext();
         this.terminationReason = tx.getReasonIfTerminated();
         this.executingQueries = tx.executingQueries();
+        this.txStateMemoryUsage = tx.txStateMemoryUsage();
         this.tx = tx;
     }
 
@@ -111,6 +113,12 @@ class KernelTransactionImplementationHandle implements KernelTransactionHandle
         return executingQueries.queries();
     }
 
+    @Override
+    public long txStateMemoryUsage()
+    {
+        return txStateMemoryUsage;
+    }
+
     @Override
     public boolean equals( Object o )
     {
@@ -23,6 +23,7 @@ import java.time.Clock;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
 import java.util.function.Supplier;
 
 import org.neo4j.collection.pool.LinkedQueuePool;
@@ -80,7 +81,8 @@ public class KernelTransactions extends LifecycleAdapter
     private final Procedures procedures;
     private final TransactionIdStore transactionIdStore;
     private final AccessCapability accessCapability;
-    private final Supplier<LegacyIndexTransactionState> legacyIndexTxStateSupplier;
+    private final Function<TxStateMemoryTracker,LegacyIndexTransactionState> legacyIndexTxStateFactory;
+    private final TxStateMemoryPool txStateMemoryPool;
     private final Clock clock;
     private final ReentrantReadWriteLock newTransactionsLock = new ReentrantReadWriteLock();
 
@@ -114,7 +116,8 @@ public class KernelTransactions extends LifecycleAdapter
                                StorageEngine storageEngine,
                                Procedures procedures,
                                TransactionIdStore transactionIdStore,
-                               Clock clock, AccessCapability accessCapability )
+                               Clock clock, AccessCapability accessCapability,
+                               TxStateMemoryPool txStateMemoryPool )
     {
         this.statementLocksFactory = statementLocksFactory;
         this.constraintIndexCreator = constraintIndexCreator;
@@ -130,8 +133,9 @@ public class KernelTransactions extends LifecycleAdapter
         this.procedures = procedures;
         this.transactionIdStore = transactionIdStore;
         this.accessCapability = accessCapability;
-        this.legacyIndexTxStateSupplier = () -> new CachingLegacyIndexTransactionState(
-                new LegacyIndexTransactionStateImpl( indexConfigStore, legacyIndexProviderLookup ) );
+        this.legacyIndexTxStateFactory = memory -> new CachingLegacyIndexTransactionState(
+                new LegacyIndexTransactionStateImpl( indexConfigStore, legacyIndexProviderLookup, memory ) );
+        this.txStateMemoryPool = txStateMemoryPool;
         this.clock = clock;
     }
 
@@ -146,8 +150,8 @@ public class KernelTransactions extends LifecycleAdapter
             KernelTransactionImplementation tx = new KernelTransactionImplementation(
                     statementOperations, schemaWriteGuard, hooks, constraintIndexCreator, procedures,
                     transactionHeaderInformationFactory, transactionCommitProcess, transactionMonitor,
-                    legacyIndexTxStateSupplier, localTxPool, clock, tracers.transactionTracer,
-                    storageEngine, accessCapability );
+                    legacyIndexTxStateFactory, localTxPool, clock, tracers.transactionTracer,
+                    storageEngine, accessCapability, txStateMemoryPool );
 
             allTransactions.add( tx );
             return tx;
@@ -155,6 +159,23 @@ public class KernelTransactions extends LifecycleAdapter
     };
 
     public KernelTransaction newInstance( KernelTransaction.Type type, SecurityContext securityContext, long timeout )
+    {
+        return newInstance( type, securityContext, timeout, false );
+    }
+
+    /**
+     * Begin a transaction that refuses all writes, and skips the commit machinery when closed. It still takes the
+     * locks that reads take, like the shared schema lock and the index entry locks of unique index lookups, so it
+     * sees a consistent schema and the same isolation as any other transaction.
+     */
+    public KernelTransaction newReadOnlyInstance( KernelTransaction.Type type, SecurityContext securityContext,
+            long timeout )
+    {
+        return newInstance( type, securityContext, timeout, true );
+    }
+
+    private KernelTransaction newInstance( KernelTransaction.Type type, SecurityContext securityContext, long timeout,
+            boolean readOnly )
     {
         assertCurrentThreadIsNotBlockingNewTransactions();
         SecurityContext frozenSecurityContext = securityContext.freeze();
@@ -165,8 +186,8 @@ public class KernelTransactions extends LifecycleAdapter
             TransactionId lastCommittedTransaction = transactionIdStore.getLastCommittedTransaction();
             KernelTransactionImplementation tx = localTxPool.acquire();
             StatementLocks statementLocks = statementLocksFactory.newInstance();
-            tx.initialize( lastCommittedTransaction.transactionId(),
-                    lastCommittedTransaction.commitTimestamp(), statementLocks, type, frozenSecurityContext, timeout );
+            tx.initialize( lastCommittedTransaction.transactionId(), lastCommittedTransaction.commitTimestamp(),
+                    statementLocks, type, frozenSecurityContext, timeout, readOnly );
             return tx;
         }
         finally
@@ -25,6 +25,8 @@ import java.util.Iterator;
 import java.util.function.Function;
 import java.util.function.Predicate;
 
+import org.neo4j.collection.primitive.PrimitiveIntIterator;
+import org.neo4j.cursor.Cursor;
 import org.neo4j.kernel.api.Statement;
 import org.neo4j.kernel.api.constraints.NodePropertyConstraint;
 import org.neo4j.kernel.api.constraints.NodePropertyExistenceConstraint;
@@ -55,6 +57,7 @@ import org.neo4j.kernel.impl.api.operations.SchemaReadOperations;
 import org.neo4j.kernel.impl.api.operations.SchemaStateOperations;
 import org.neo4j.kernel.impl.api.operations.SchemaWriteOperations;
 import org.neo4j.kernel.impl.locking.ResourceTypes;
+import org.neo4j.storageengine.api.NodeItem;
 import org.neo4j.storageengine.api.lock.ResourceType;
 import org.neo4j.storageengine.api.schema.PopulationProgress;
 import org.neo4j.storageengine.api.schema.SchemaRule;
@@ -79,6 +82,7 @@ public class LockingStatementOperations implements
     private final SchemaReadOperations schemaReadDelegate;
     private final SchemaWriteOperations schemaWriteDelegate;
     private final SchemaStateOperations schemaStateDelegate;
+    private final boolean denseNodeDeferredLocking;
 
     public LockingStatementOperations(
             EntityReadOperations entityReadDelegate,
@@ -87,6 +91,24 @@ public class LockingStatementOperations implements
             SchemaWriteOperations schemaWriteDelegate,
             SchemaStateOperations schemaStateDelegate )
     {
+        this( entityReadDelegate, entityWriteDelegate, schemaReadDelegate, schemaWriteDelegate, schemaStateDelegate,
+                false );
+    }
+
+    /**
+     * @param denseNodeDeferredLocking whether or not relationships of an existing type can be added to a dense node
+     * holding only a shared lock on that node, see
+     * {@link org.neo4j.graphdb.factory.GraphDatabaseSettings#dense_node_deferred_locking}.
+     */
+    public LockingStatementOperations(
+            EntityReadOperations entityReadDelegate,
+            EntityWriteOperations entityWriteDelegate,
+            SchemaReadOperations schemaReadDelegate,
+            SchemaWriteOperations schemaWriteDelegate,
+            SchemaStateOperations schemaStateDelegate,
+            boolean denseNodeDeferredLocking )
+    {
+        this.denseNodeDeferredLocking = denseNodeDeferredLocking;
         this.entityReadDelegate = entityReadDelegate;
         this.entityWriteDelegate = entityWriteDelegate;
         this.schemaReadDelegate = schemaReadDelegate;
@@ -313,10 +335,53 @@ public class LockingStatementOperations implements
             throws EntityNotFoundException
     {
         acquireSharedSchemaLock( state );
-        lockRelationshipNodes( state, startNodeId, endNodeId );
+        // Order the locks to lower the risk of deadlocks with other threads creating/deleting rels concurrently
+        lockRelationshipNode( state, min( startNodeId, endNodeId ), relationshipTypeId );
+        if ( startNodeId != endNodeId )
+        {
+            lockRelationshipNode( state, max( startNodeId, endNodeId ), relationshipTypeId );
+        }
         return entityWriteDelegate.relationshipCreate( state, relationshipTypeId, startNodeId, endNodeId );
     }
 
+    private void lockRelationshipNode( KernelStatement state, long nodeId, int relationshipTypeId )
+    {
+        if ( denseNodeDeferredLocking && hasRelationshipGroupInStore( state, nodeId, relationshipTypeId ) )
+        {
+            // Linking into an existing group of a dense node leaves the node record as it is, the chain itself
+            // is guarded by a relationship group lock that the storage engine takes when committing
+            acquireSharedNodeLock( state, nodeId );
+        }
+        else
+        {
+            acquireExclusiveNodeLock( state, nodeId );
+        }
+    }
+
+    private boolean hasRelationshipGroupInStore( KernelStatement state, long nodeId, int relationshipTypeId )
+    {
+        if ( state.hasTxStateWithChanges() && state.txState().nodeIsAddedInThisTx( nodeId ) )
+        {
+            return false;
+        }
+        try ( Cursor<NodeItem> cursor = state.getStoreStatement().acquireSingleNodeCursor( nodeId ) )
+        {
+            if ( !cursor.next() || !cursor.get().isDense() )
+            {
+                return false;
+            }
+            PrimitiveIntIterator types = cursor.get().getRelationshipTypes();
+            while ( types.hasNext() )
+            {
+                if ( types.next() == relationshipTypeId )
+                {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
     @Override
     public void relationshipDelete( final KernelStatement state, long relationshipId )
             throws EntityNotFoundException, AutoIndexingKernelException, InvalidTransactionTypeKernelException
@@ -543,6 +608,14 @@ public class LockingStatementOperations implements
         }
     }
 
+    private void acquireSharedNodeLock( KernelStatement state, long nodeId )
+    {
+        if ( !state.hasTxStateWithChanges() || !state.txState().nodeIsAddedInThisTx( nodeId ) )
+        {
+            state.locks().optimistic().acquireShared( ResourceTypes.NODE, nodeId );
+        }
+    }
+
     private void acquireExclusiveRelationshipLock( KernelStatement state, long relationshipId )
     {
         if ( !state.hasTxStateWithChanges() || !state.txState().relationshipIsAddedInThisTx( relationshipId ) )
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.neo4j.kernel.configuration.Config;
+import org.neo4j.unsafe.impl.internal.dragons.FeatureToggles;
+
+import static org.neo4j.graphdb.factory.GraphDatabaseSettings.transaction_state_max_size;
+import static org.neo4j.graphdb.factory.GraphDatabaseSettings.transaction_state_max_total_size;
+
+/**
+ * Memory budget for the uncommitted state of all transactions of a database. Holds the per-transaction and the
+ * total limit, and keeps count of how much of the total that is currently handed out to running transactions.
+ * <p>
+ * Transactions don't reserve from this pool for every single change, but in chunks of
+ * {@link #RESERVATION_CHUNK_SIZE} bytes, see {@link TxStateMemoryTracker}, so that the shared counter
+ * is only touched now and then.
+ */
+public class TxStateMemoryPool
+{
+    static final long RESERVATION_CHUNK_SIZE =
+            FeatureToggles.getLong( TxStateMemoryPool.class, "reservationChunkSize", 1024 * 1024 );
+
+    public static final TxStateMemoryPool UNLIMITED = new TxStateMemoryPool( 0, 0 );
+
+    private final long maxTransactionBytes;
+    private final long maxTotalBytes;
+    private final AtomicLong reservedBytes = new AtomicLong();
+
+    /**
+     * @param maxTransactionBytes max estimated bytes of state in any single transaction, or {@code 0} for no limit.
+     * @param maxTotalBytes max estimated bytes of state in all transactions together, or {@code 0} for no limit.
+     */
+    public TxStateMemoryPool( long maxTransactionBytes, long maxTotalBytes )
+    {
+        this.maxTransactionBytes = maxTransactionBytes;
+        this.maxTotalBytes = maxTotalBytes;
+    }
+
+    public static TxStateMemoryPool fromConfig( Config config )
+    {
+        return new TxStateMemoryPool( config.get( transaction_state_max_size ),
+                config.get( transaction_state_max_total_size ) );
+    }
+
+    long maxTransactionBytes()
+    {
+        return maxTransactionBytes;
+    }
+
+    boolean hasTotalLimit()
+    {
+        return maxTotalBytes > 0;
+    }
+
+    /**
+     * @return {@code true} if the given number of bytes could be reserved, or {@code false} if that would
+     * go beyond the total limit, in which case nothing is reserved.
+     */
+    boolean reserve( long bytes )
+    {
+        long current;
+        do
+        {
+            current = reservedBytes.get();
+            if ( current + bytes > maxTotalBytes )
+            {
+                return false;
+            }
+        }
+        while ( !reservedBytes.compareAndSet( current, current + bytes ) );
+        return true;
+    }
+
+    void release( long bytes )
+    {
+        reservedBytes.addAndGet( -bytes );
+    }
+
+    /**
+     * @return number of bytes currently reserved by running transactions. Only kept track of when there
+     * is a total limit.
+     */
+    public long reservedBytes()
+    {
+        return reservedBytes.get();
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api;
+
+import java.lang.reflect.Array;
+import java.util.function.Consumer;
+
+import org.neo4j.kernel.api.exceptions.Status;
+
+/**
+ * Keeps an estimate of how many bytes the uncommitted state of one transaction uses, and enforces the limits
+ * of a {@link TxStateMemoryPool} on it. The estimates are rough, only meant to catch transactions growing far
+ * beyond what the heap can take, long before they run the JVM out of memory.
+ * <p>
+ * Only the thread running the transaction may {@link #allocate(long) allocate}, whereas {@link #usedBytes()}
+ * can be read from any thread.
+ */
+public class TxStateMemoryTracker
+{
+    private static final long OBJECT_BYTES = 16;
+
+    private final TxStateMemoryPool pool;
+    private final Consumer<Status> terminator;
+    private volatile long usedBytes;
+    private long reservedBytes;
+
+    /**
+     * @param pool the pool to reserve memory from.
+     * @param terminator called with the reason before failing an allocation, to mark the transaction as terminated.
+     */
+    public TxStateMemoryTracker( TxStateMemoryPool pool, Consumer<Status> terminator )
+    {
+        this.pool = pool;
+        this.terminator = terminator;
+    }
+
+    public static TxStateMemoryTracker unlimited()
+    {
+        return new TxStateMemoryTracker( TxStateMemoryPool.UNLIMITED, status -> {} );
+    }
+
+    /**
+     * Accounts for {@code bytes} more of transaction state.
+     *
+     * @throws TxStateMemoryLimitException if that takes the transaction, or all transactions together,
+     * beyond the limits of the pool.
+     */
+    public void allocate( long bytes )
+    {
+        long used = usedBytes + bytes;
+        long maxTransactionBytes = pool.maxTransactionBytes();
+        if ( maxTransactionBytes > 0 && used > maxTransactionBytes )
+        {
+            fail( Status.Transaction.TransactionStateTooLarge, "Transaction state of estimated " + used +
+                    " bytes exceeds the limit of " + maxTransactionBytes + " bytes per transaction." );
+        }
+        if ( used > reservedBytes && pool.hasTotalLimit() )
+        {
+            long chunk = Math.max( TxStateMemoryPool.RESERVATION_CHUNK_SIZE, used - reservedBytes );
+            if ( !pool.reserve( chunk ) )
+            {
+                fail( Status.Transaction.TransactionStateMemoryExhausted, "Transaction state of estimated " + used +
+                        " bytes could not be given memory, the total limit for all transactions is reached." );
+            }
+            reservedBytes += chunk;
+        }
+        usedBytes = used;
+    }
+
+    private void fail( Status status, String message )
+    {
+        terminator.accept( status );
+        throw new TxStateMemoryLimitException( status, message );
+    }
+
+    /**
+     * @return estimated number of bytes of transaction state accounted for so far.
+     */
+    public long usedBytes()
+    {
+        return usedBytes;
+    }
+
+    /**
+     * Gives back all memory reserved from the pool, ready for use by the next transaction.
+     */
+    public void reset()
+    {
+        if ( reservedBytes > 0 )
+        {
+            pool.release( reservedBytes );
+            reservedBytes = 0;
+        }
+        usedBytes = 0;
+    }
+
+    /**
+     * @return rough estimate of the number of bytes of heap that the given property value takes up.
+     */
+    public static long sizeOf( Object value )
+    {
+        if ( value instanceof String )
+        {
+            return OBJECT_BYTES * 2 + 2L * ((String) value).length();
+        }
+        if ( value != null && value.getClass().isArray() )
+        {
+            int length = Array.getLength( value );
+            Class<?> type = value.getClass().getComponentType();
+            if ( !type.isPrimitive() )
+            {
+                long size = OBJECT_BYTES + 4L * length;
+                for ( int i = 0; i < length; i++ )
+                {
+                    size += sizeOf( Array.get( value, i ) );
+                }
+                return size;
+            }
+            return OBJECT_BYTES + (long) elementSize( type ) * length;
+        }
+        return OBJECT_BYTES;
+    }
+
+    private static int elementSize( Class<?> type )
+    {
+        if ( type == long.class || type == double.class )
+        {
+            return 8;
+        }
+        if ( type == int.class || type == float.class )
+        {
+            return 4;
+        }
+        if ( type == short.class || type == char.class )
+        {
+            return 2;
+        }
+        return 1;
+    }
+}
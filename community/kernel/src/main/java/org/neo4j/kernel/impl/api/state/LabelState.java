@@ -21,6 +21,7 @@ package org.neo4j.kernel.impl.api.state;
 
 import org.neo4j.kernel.api.constraints.NodePropertyConstraint;
 import org.neo4j.kernel.api.index.IndexDescriptor;
+import org.neo4j.kernel.impl.util.VersionedLongSet;
 import org.neo4j.kernel.impl.util.diffsets.DiffSets;
 import org.neo4j.storageengine.api.txstate.ReadableDiffSets;
 
@@ -75,7 +76,7 @@ public abstract class LabelState
         {
             if ( nodeDiffSets == null )
             {
-                nodeDiffSets = new DiffSets<>();
+                nodeDiffSets = new DiffSets<>( VersionedLongSet::new );
             }
             return nodeDiffSets;
         }
@@ -126,12 +127,12 @@ public abstract class LabelState
         }
     }
 
-    abstract static class Defaults extends StateDefaults<Integer, LabelState, Mutable>
+    abstract static class Defaults extends StateDefaults<LabelState, Mutable>
     {
         @Override
-        Mutable createValue( Integer key, TxState state )
+        Mutable createValue( long key, TxState state )
         {
-            return new Mutable( key );
+            return new Mutable( (int) key );
         }
 
         @Override
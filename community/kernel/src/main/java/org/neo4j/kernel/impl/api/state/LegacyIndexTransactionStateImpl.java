@@ -32,6 +32,7 @@ import org.neo4j.graphdb.index.IndexManager;
 import org.neo4j.kernel.api.LegacyIndex;
 import org.neo4j.kernel.api.exceptions.legacyindex.LegacyIndexNotFoundKernelException;
 import org.neo4j.kernel.api.txstate.LegacyIndexTransactionState;
+import org.neo4j.kernel.impl.api.TxStateMemoryTracker;
 import org.neo4j.kernel.impl.index.IndexCommand;
 import org.neo4j.kernel.impl.index.IndexCommand.AddNodeCommand;
 import org.neo4j.kernel.impl.index.IndexCommand.AddRelationshipCommand;
@@ -55,9 +56,13 @@ import org.neo4j.storageengine.api.StorageCommand;
  */
 public class LegacyIndexTransactionStateImpl implements LegacyIndexTransactionState, IndexCommandFactory
 {
+    // Rough estimate, in bytes, of a command and its place in the command lists, for memory accounting
+    private static final long COMMAND_BYTES = 96;
+
     private final Map<String, LegacyIndexProviderTransaction> transactions = new HashMap<>();
     private final IndexConfigStore indexConfigStore;
     private final Function<String,IndexImplementation> providerLookup;
+    private final TxStateMemoryTracker memory;
 
     // Commands
     private IndexDefineCommand defineCommand;
@@ -66,9 +71,16 @@ public class LegacyIndexTransactionStateImpl implements LegacyIndexTransactionSt
 
     public LegacyIndexTransactionStateImpl( IndexConfigStore indexConfigStore,
             Function<String,IndexImplementation> providerLookup )
+    {
+        this( indexConfigStore, providerLookup, TxStateMemoryTracker.unlimited() );
+    }
+
+    public LegacyIndexTransactionStateImpl( IndexConfigStore indexConfigStore,
+            Function<String,IndexImplementation> providerLookup, TxStateMemoryTracker memory )
     {
         this.indexConfigStore = indexConfigStore;
         this.providerLookup = providerLookup;
+        this.memory = memory;
     }
 
     @Override
@@ -184,6 +196,7 @@ public class LegacyIndexTransactionStateImpl implements LegacyIndexTransactionSt
     @Override
     public void addNode( String indexName, long id, String key, Object value )
     {
+        memory.allocate( COMMAND_BYTES + TxStateMemoryTracker.sizeOf( value ) );
         AddNodeCommand command = new AddNodeCommand();
         command.init( definitions().getOrAssignIndexNameId( indexName ),
                 id, definitions().getOrAssignKeyId( key ), value );
@@ -194,6 +207,7 @@ public class LegacyIndexTransactionStateImpl implements LegacyIndexTransactionSt
     public void addRelationship( String indexName, long id, String key, Object value,
             long startNode, long endNode )
     {
+        memory.allocate( COMMAND_BYTES + TxStateMemoryTracker.sizeOf( value ) );
         AddRelationshipCommand command = new AddRelationshipCommand();
         command.init( definitions().getOrAssignIndexNameId( indexName ),
                 id, definitions().getOrAssignKeyId( key ), value, startNode, endNode );
@@ -204,6 +218,7 @@ public class LegacyIndexTransactionStateImpl implements LegacyIndexTransactionSt
     public void removeNode( String indexName, long id,
             String keyOrNull, Object valueOrNull )
     {
+        memory.allocate( COMMAND_BYTES + TxStateMemoryTracker.sizeOf( valueOrNull ) );
         RemoveCommand command = new RemoveCommand();
         command.init( definitions().getOrAssignIndexNameId( indexName ),
                 IndexEntityType.Node.id(), id, definitions().getOrAssignKeyId( keyOrNull ), valueOrNull );
@@ -214,6 +229,7 @@ public class LegacyIndexTransactionStateImpl implements LegacyIndexTransactionSt
     public void removeRelationship( String indexName, long id,
             String keyOrNull, Object valueOrNull )
     {
+        memory.allocate( COMMAND_BYTES + TxStateMemoryTracker.sizeOf( valueOrNull ) );
         RemoveCommand command = new RemoveCommand();
         command.init( definitions().getOrAssignIndexNameId( indexName ),
                 IndexEntityType.Relationship.id(), id, definitions().getOrAssignKeyId( keyOrNull ), valueOrNull );
@@ -223,6 +239,7 @@ public class LegacyIndexTransactionStateImpl implements LegacyIndexTransactionSt
     @Override
     public void deleteIndex( IndexEntityType entityType, String indexName )
     {
+        memory.allocate( COMMAND_BYTES );
         DeleteCommand command = new DeleteCommand();
         command.init( definitions().getOrAssignIndexNameId( indexName ), entityType.id() );
         addCommand( indexName, command, true );
@@ -231,6 +248,7 @@ public class LegacyIndexTransactionStateImpl implements LegacyIndexTransactionSt
     @Override
     public void createIndex( IndexEntityType entityType, String indexName, Map<String, String> config )
     {
+        memory.allocate( COMMAND_BYTES );
         CreateCommand command = new CreateCommand();
         command.init( definitions().getOrAssignIndexNameId( indexName ), entityType.id(), config );
         addCommand( indexName, command );
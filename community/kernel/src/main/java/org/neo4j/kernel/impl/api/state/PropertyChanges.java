@@ -21,7 +21,10 @@ package org.neo4j.kernel.impl.api.state;
 
 import java.util.Map;
 
+import org.neo4j.collection.primitive.Primitive;
+import org.neo4j.collection.primitive.PrimitiveIntObjectMap;
 import org.neo4j.kernel.impl.util.VersionedHashMap;
+import org.neo4j.kernel.impl.util.VersionedLongSet;
 import org.neo4j.kernel.impl.util.diffsets.DiffSets;
 import org.neo4j.storageengine.api.txstate.ReadableDiffSets;
 
@@ -30,7 +33,7 @@ import org.neo4j.storageengine.api.txstate.ReadableDiffSets;
  */
 public class PropertyChanges
 {
-    private VersionedHashMap<Integer, Map<Object, DiffSets<Long>>> changes;
+    private PrimitiveIntObjectMap<Map<Object, DiffSets<Long>>> changes;
 
     public ReadableDiffSets<Long> changesForProperty( int propertyKeyId, Object value )
     {
@@ -70,7 +73,7 @@ public class PropertyChanges
     {
         if(changes == null)
         {
-            changes = new VersionedHashMap<>();
+            changes = Primitive.intObjectMap();
         }
 
         Map<Object, DiffSets<Long>> keyChanges = changes.get( propertyKeyId );
@@ -87,7 +90,7 @@ public class PropertyChanges
         DiffSets<Long> changes = keyChanges.get( newValue );
         if(changes == null)
         {
-            changes = new DiffSets<>();
+            changes = new DiffSets<>( VersionedLongSet::new );
             keyChanges.put( newValue, changes );
         }
         return changes;
@@ -30,6 +30,7 @@ import org.neo4j.collection.primitive.Primitive;
 import org.neo4j.collection.primitive.PrimitiveIntIterator;
 import org.neo4j.collection.primitive.PrimitiveIntObjectMap;
 import org.neo4j.collection.primitive.PrimitiveLongIterator;
+import org.neo4j.collection.primitive.PrimitiveLongObjectMap;
 import org.neo4j.collection.primitive.PrimitiveLongSet;
 import org.neo4j.cursor.Cursor;
 import org.neo4j.helpers.collection.Iterables;
@@ -47,6 +48,7 @@ import org.neo4j.kernel.api.properties.Property;
 import org.neo4j.kernel.api.txstate.RelationshipChangeVisitorAdapter;
 import org.neo4j.kernel.api.txstate.TransactionState;
 import org.neo4j.kernel.impl.api.RelationshipVisitor;
+import org.neo4j.kernel.impl.api.TxStateMemoryTracker;
 import org.neo4j.kernel.impl.api.cursor.TxAllPropertyCursor;
 import org.neo4j.kernel.impl.api.cursor.TxIteratorNodeCursor;
 import org.neo4j.kernel.impl.api.cursor.TxIteratorRelationshipCursor;
@@ -57,6 +59,7 @@ import org.neo4j.kernel.impl.api.cursor.TxSinglePropertyCursor;
 import org.neo4j.kernel.impl.api.cursor.TxSingleRelationshipCursor;
 import org.neo4j.kernel.impl.api.store.RelationshipIterator;
 import org.neo4j.kernel.impl.util.InstanceCache;
+import org.neo4j.kernel.impl.util.VersionedLongSet;
 import org.neo4j.kernel.impl.util.diffsets.DiffSets;
 import org.neo4j.kernel.impl.util.diffsets.RelationshipDiffSets;
 import org.neo4j.storageengine.api.Direction;
@@ -73,6 +76,7 @@ import org.neo4j.storageengine.api.txstate.ReadableRelationshipDiffSets;
 import org.neo4j.storageengine.api.txstate.ReadableTransactionState;
 import org.neo4j.storageengine.api.txstate.RelationshipState;
 import org.neo4j.storageengine.api.txstate.TxStateVisitor;
+import org.neo4j.unsafe.impl.internal.dragons.FeatureToggles;
 
 import static org.neo4j.collection.primitive.PrimitiveLongCollections.toPrimitiveIterator;
 import static org.neo4j.helpers.collection.Iterables.map;
@@ -93,47 +97,64 @@ import static org.neo4j.kernel.impl.api.PropertyValueComparison.SuperType.STRING
  */
 public final class TxState implements TransactionState, RelationshipVisitor.Home
 {
-    private Map<Integer/*Label ID*/, LabelState.Mutable> labelStatesMap;
+    /**
+     * Number of created or deleted nodes, or relationships, beyond which the sets keeping track of them are moved
+     * off-heap. Off by default.
+     */
+    private static final int OFF_HEAP_THRESHOLD =
+            FeatureToggles.getInteger( TxState.class, "offHeapThreshold", Integer.MAX_VALUE );
+
+    // Rough estimates, in bytes, of the state kept for each kind of change. Used for memory accounting only.
+    private static final long ENTITY_BYTES = 48;
+    private static final long RELATIONSHIP_BYTES = 160;
+    private static final long PROPERTY_BYTES = 64;
+    private static final long LABEL_BYTES = 48;
+    private static final long TOKEN_BYTES = 64;
+    private static final long INDEX_UPDATE_BYTES = 96;
+
+    private final TxStateMemoryTracker memory;
+
+    private PrimitiveLongObjectMap<LabelState.Mutable> labelStatesMap;
     private static final LabelState.Defaults LABEL_STATE = new LabelState.Defaults()
     {
         @Override
-        Map<Integer, LabelState.Mutable> getMap( TxState state )
+        PrimitiveLongObjectMap<LabelState.Mutable> getMap( TxState state )
         {
             return state.labelStatesMap;
         }
 
         @Override
-        void setMap( TxState state, Map<Integer, LabelState.Mutable> map )
+        void setMap( TxState state, PrimitiveLongObjectMap<LabelState.Mutable> map )
         {
             state.labelStatesMap = map;
         }
     };
-    private Map<Long/*Node ID*/, NodeStateImpl> nodeStatesMap;
+    private PrimitiveLongObjectMap<NodeStateImpl> nodeStatesMap;
     private static final NodeStateImpl.Defaults NODE_STATE = new NodeStateImpl.Defaults()
     {
         @Override
-        Map<Long, NodeStateImpl> getMap( TxState state )
+        PrimitiveLongObjectMap<NodeStateImpl> getMap( TxState state )
         {
             return state.nodeStatesMap;
         }
 
         @Override
-        void setMap( TxState state, Map<Long, NodeStateImpl> map )
+        void setMap( TxState state, PrimitiveLongObjectMap<NodeStateImpl> map )
         {
             state.nodeStatesMap = map;
         }
     };
-    private Map<Long/*Relationship ID*/, RelationshipStateImpl> relationshipStatesMap;
+    private PrimitiveLongObjectMap<RelationshipStateImpl> relationshipStatesMap;
     private static final RelationshipStateImpl.Defaults RELATIONSHIP_STATE = new RelationshipStateImpl.Defaults()
     {
         @Override
-        Map<Long, RelationshipStateImpl> getMap( TxState state )
+        PrimitiveLongObjectMap<RelationshipStateImpl> getMap( TxState state )
         {
             return state.relationshipStatesMap;
         }
 
         @Override
-        void setMap( TxState state, Map<Long, RelationshipStateImpl> map )
+        void setMap( TxState state, PrimitiveLongObjectMap<RelationshipStateImpl> map )
         {
             state.relationshipStatesMap = map;
         }
@@ -182,6 +203,12 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
 
     public TxState()
     {
+        this( TxStateMemoryTracker.unlimited() );
+    }
+
+    public TxState( TxStateMemoryTracker memory )
+    {
+        this.memory = memory;
         singleNodeCursor = new InstanceCache<TxSingleNodeCursor>()
         {
             @Override
@@ -559,6 +586,7 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
     @Override
     public void nodeDoCreate( long id )
     {
+        memory.allocate( ENTITY_BYTES );
         nodes().add( id );
         dataChanged();
     }
@@ -566,6 +594,7 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
     @Override
     public void nodeDoDelete( long nodeId )
     {
+        memory.allocate( ENTITY_BYTES );
         if ( nodes().remove( nodeId ) )
         {
             recordNodeDeleted( nodeId );
@@ -591,6 +620,7 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
     @Override
     public void relationshipDoCreate( long id, int relationshipTypeId, long startNodeId, long endNodeId )
     {
+        memory.allocate( RELATIONSHIP_BYTES );
         relationships().add( id );
 
         if ( startNodeId == endNodeId )
@@ -623,6 +653,7 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
     @Override
     public void relationshipDoDelete( long id, int type, long startNodeId, long endNodeId )
     {
+        memory.allocate( RELATIONSHIP_BYTES );
         if ( relationships().remove( id ) )
         {
             recordRelationshipDeleted( id );
@@ -672,6 +703,8 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
     @Override
     public void nodeDoReplaceProperty( long nodeId, Property replacedProperty, DefinedProperty newProperty )
     {
+        // the value is kept both in the node state and in the property changes used for index seeks
+        memory.allocate( 2 * PROPERTY_BYTES + TxStateMemoryTracker.sizeOf( newProperty.value() ) );
         if ( replacedProperty.isDefined() )
         {
             getOrCreateNodeState( nodeId ).changeProperty( newProperty );
@@ -692,6 +725,7 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
             Property replacedProperty,
             DefinedProperty newProperty )
     {
+        memory.allocate( PROPERTY_BYTES + TxStateMemoryTracker.sizeOf( newProperty.value() ) );
         if ( replacedProperty.isDefined() )
         {
             getOrCreateRelationshipState( relationshipId ).changeProperty( newProperty );
@@ -706,6 +740,7 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
     @Override
     public void graphDoReplaceProperty( Property replacedProperty, DefinedProperty newProperty )
     {
+        memory.allocate( PROPERTY_BYTES + TxStateMemoryTracker.sizeOf( newProperty.value() ) );
         if ( replacedProperty.isDefined() )
         {
             getOrCreateGraphState().changeProperty( newProperty );
@@ -720,6 +755,7 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
     @Override
     public void nodeDoRemoveProperty( long nodeId, DefinedProperty removedProperty )
     {
+        memory.allocate( 2 * PROPERTY_BYTES );
         getOrCreateNodeState( nodeId ).removeProperty( removedProperty );
         nodePropertyChanges().removeProperty( nodeId, removedProperty.propertyKeyId(),
                 removedProperty.value() );
@@ -729,6 +765,7 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
     @Override
     public void relationshipDoRemoveProperty( long relationshipId, DefinedProperty removedProperty )
     {
+        memory.allocate( PROPERTY_BYTES );
         getOrCreateRelationshipState( relationshipId ).removeProperty( removedProperty );
         dataChanged();
     }
@@ -736,6 +773,7 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
     @Override
     public void graphDoRemoveProperty( DefinedProperty removedProperty )
     {
+        memory.allocate( PROPERTY_BYTES );
         getOrCreateGraphState().removeProperty( removedProperty );
         dataChanged();
     }
@@ -743,6 +781,7 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
     @Override
     public void nodeDoAddLabel( int labelId, long nodeId )
     {
+        memory.allocate( 2 * LABEL_BYTES );
         getOrCreateLabelStateNodeDiffSets( labelId ).add( nodeId );
         getOrCreateNodeStateLabelDiffSets( nodeId ).add( labelId );
         dataChanged();
@@ -751,6 +790,7 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
     @Override
     public void nodeDoRemoveLabel( int labelId, long nodeId )
     {
+        memory.allocate( 2 * LABEL_BYTES );
         getOrCreateLabelStateNodeDiffSets( labelId ).remove( nodeId );
         getOrCreateNodeStateLabelDiffSets( nodeId ).remove( labelId );
         dataChanged();
@@ -759,6 +799,7 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
     @Override
     public void labelDoCreateForName( String labelName, int id )
     {
+        memory.allocate( TOKEN_BYTES + TxStateMemoryTracker.sizeOf( labelName ) );
         if ( createdLabelTokens == null )
         {
             createdLabelTokens = new HashMap<>();
@@ -770,6 +811,7 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
     @Override
     public void propertyKeyDoCreateForName( String propertyKeyName, int id )
     {
+        memory.allocate( TOKEN_BYTES + TxStateMemoryTracker.sizeOf( propertyKeyName ) );
         if ( createdPropertyKeyTokens == null )
         {
             createdPropertyKeyTokens = new HashMap<>();
@@ -781,6 +823,7 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
     @Override
     public void relationshipTypeDoCreateForName( String labelName, int id )
     {
+        memory.allocate( TOKEN_BYTES + TxStateMemoryTracker.sizeOf( labelName ) );
         if ( createdRelationshipTypeTokens == null )
         {
             createdRelationshipTypeTokens = new HashMap<>();
@@ -999,7 +1042,7 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
     {
         if ( nodes == null )
         {
-            nodes = new DiffSets<>();
+            nodes = new DiffSets<>( () -> new VersionedLongSet( OFF_HEAP_THRESHOLD ) );
         }
         return nodes;
     }
@@ -1032,7 +1075,7 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
     {
         if ( relationships == null )
         {
-            relationships = new RelationshipDiffSets<>( this );
+            relationships = new RelationshipDiffSets<>( this, () -> new VersionedLongSet( OFF_HEAP_THRESHOLD ) );
         }
         return relationships;
     }
@@ -1417,6 +1460,8 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
     public void indexDoUpdateProperty( IndexDescriptor descriptor, long nodeId,
             DefinedProperty propertyBefore, DefinedProperty propertyAfter )
     {
+        memory.allocate( INDEX_UPDATE_BYTES +
+                (propertyAfter == null ? 0 : TxStateMemoryTracker.sizeOf( propertyAfter.value() )) );
         DiffSets<Long> before = getIndexUpdatesForScanOrSeek( descriptor.getLabelId(), true, propertyBefore );
         if ( before != null )
         {
@@ -1472,7 +1517,7 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
         DiffSets<Long> diffs = updates.get( property );
         if ( diffs == null && create )
         {
-            updates.put( property, diffs = new DiffSets<>() );
+            updates.put( property, diffs = new DiffSets<>( VersionedLongSet::new ) );
         }
         return diffs;
     }
@@ -1544,6 +1589,19 @@ public final class TxState implements TransactionState, RelationshipVisitor.Home
         return hasDataChanges;
     }
 
+    @Override
+    public void release()
+    {
+        if ( nodes != null )
+        {
+            nodes.close();
+        }
+        if ( relationships != null )
+        {
+            relationships.close();
+        }
+    }
+
     private void recordNodeDeleted( long id )
     {
         if ( nodesDeletedInTx == null )
@@ -171,10 +171,7 @@ class ClassicCoreSPI implements GraphDatabaseFacade.SPI
         {
             availability.assertDatabaseAvailable();
             KernelTransaction kernelTx = dataSource.kernelAPI.get().newTransaction( type, securityContext, timeout );
-            kernelTx.registerCloseListener(
-                    (txId) -> dataSource.threadToTransactionBridge.unbindTransactionFromCurrentThread() );
-            dataSource.threadToTransactionBridge.bindTransactionToCurrentThread( kernelTx );
-            return kernelTx;
+            return bindToCurrentThread( kernelTx );
         }
         catch ( TransactionFailureException e )
         {
@@ -182,6 +179,31 @@ class ClassicCoreSPI implements GraphDatabaseFacade.SPI
         }
     }
 
+    @Override
+    public KernelTransaction beginReadOnlyTransaction( KernelTransaction.Type type, SecurityContext securityContext,
+            long timeout )
+    {
+        try
+        {
+            availability.assertDatabaseAvailable();
+            KernelTransaction kernelTx =
+                    dataSource.kernelAPI.get().newReadOnlyTransaction( type, securityContext, timeout );
+            return bindToCurrentThread( kernelTx );
+        }
+        catch ( TransactionFailureException e )
+        {
+            throw new org.neo4j.graphdb.TransactionFailureException( e.getMessage(), e );
+        }
+    }
+
+    private KernelTransaction bindToCurrentThread( KernelTransaction kernelTx )
+    {
+        kernelTx.registerCloseListener(
+                (txId) -> dataSource.threadToTransactionBridge.unbindTransactionFromCurrentThread() );
+        dataSource.threadToTransactionBridge.bindTransactionToCurrentThread( kernelTx );
+        return kernelTx;
+    }
+
     @Override
     public KernelTransaction currentTransaction()
     {
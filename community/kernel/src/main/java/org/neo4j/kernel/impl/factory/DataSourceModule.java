@@ -155,6 +155,8 @@ public class DataSourceModule
 
         // Factories for things that needs to be created later
         PageCache pageCache = platformModule.pageCache;
+        // The background flushing of the page cache shares the IO limit of the check points
+        platformModule.backgroundFlushLimiter.setDelegate( editionModule.ioLimiter );
 
         StartupStatisticsProvider startupStatistics = deps.satisfyDependency( new StartupStatisticsProvider() );
 
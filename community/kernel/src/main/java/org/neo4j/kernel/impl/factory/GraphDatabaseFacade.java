@@ -165,6 +165,13 @@ public class GraphDatabaseFacade implements GraphDatabaseAPI
          */
         KernelTransaction beginTransaction( KernelTransaction.Type type, SecurityContext securityContext, long timeout );
 
+        /**
+         * Begin a new kernel transaction that can only read, with specified timeout in milliseconds.
+         * Otherwise the same as {@link #beginTransaction(KernelTransaction.Type, SecurityContext, long)}.
+         */
+        KernelTransaction beginReadOnlyTransaction( KernelTransaction.Type type, SecurityContext securityContext,
+                long timeout );
+
         /**
          * Retrieve the transaction associated with the current context. For the classic implementation of the Core API,
          * the context is the current thread.
@@ -390,6 +397,18 @@ public class GraphDatabaseFacade implements GraphDatabaseAPI
         return beginTransactionInternal( type, securityContext, unit.toMillis( timeout ) );
     }
 
+    @Override
+    public InternalTransaction beginReadOnlyTransaction( KernelTransaction.Type type, SecurityContext securityContext )
+    {
+        if ( spi.isInOpenTransaction() )
+        {
+            return new PlaceboTransaction( spi::currentTransaction, spi::currentStatement );
+        }
+        return new TopLevelTransaction(
+                spi.beginReadOnlyTransaction( type, securityContext, defaultTransactionTimeout ),
+                spi::currentStatement );
+    }
+
     @Override
     public Result execute( String query ) throws QueryExecutionException
     {
@@ -40,6 +40,7 @@ import org.neo4j.kernel.impl.api.LogRotationMonitor;
 import org.neo4j.kernel.impl.logging.LogService;
 import org.neo4j.kernel.impl.logging.StoreLogService;
 import org.neo4j.kernel.impl.pagecache.ConfiguringPageCacheFactory;
+import org.neo4j.kernel.impl.pagecache.DelegatingIOLimiter;
 import org.neo4j.kernel.impl.pagecache.PageCacheLifecycle;
 import org.neo4j.kernel.impl.security.URLAccessRules;
 import org.neo4j.kernel.impl.spi.SimpleKernelContext;
@@ -106,6 +107,12 @@ public class PlatformModule
 
     public final TransactionStats transactionMonitor;
 
+    /**
+     * Limits the background flushing of the page cache. The edition points this at the IO limiter of its check
+     * points, once it has one.
+     */
+    public final DelegatingIOLimiter backgroundFlushLimiter;
+
     public PlatformModule( File providedStoreDir, Map<String, String> params, DatabaseInfo databaseInfo,
             GraphDatabaseFacadeFactory.Dependencies externalDependencies, GraphDatabaseFacade graphDatabaseFacade )
     {
@@ -160,6 +167,7 @@ public class PlatformModule
         dependencies.satisfyDependency( firstImplementor(
                 CheckPointerMonitor.class, tracers.checkPointTracer, CheckPointerMonitor.NULL ) );
 
+        backgroundFlushLimiter = new DelegatingIOLimiter();
         pageCache = dependencies.satisfyDependency( createPageCache( fileSystem, config, logging, tracers ) );
         life.add( new PageCacheLifecycle( pageCache ) );
 
@@ -264,7 +272,7 @@ public class PlatformModule
     {
         Log pageCacheLog = logging.getInternalLog( PageCache.class );
         ConfiguringPageCacheFactory pageCacheFactory = new ConfiguringPageCacheFactory(
-                fileSystem, config, tracers.pageCacheTracer, pageCacheLog );
+                fileSystem, config, tracers.pageCacheTracer, pageCacheLog, backgroundFlushLimiter );
         PageCache pageCache = pageCacheFactory.getOrCreatePageCache();
 
         if ( config.get( GraphDatabaseSettings.dump_configuration ) )
@@ -0,0 +1,342 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.locking;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.neo4j.storageengine.api.lock.ResourceType;
+import org.neo4j.unsafe.impl.internal.dragons.FeatureToggles;
+
+/**
+ * Wait time statistics for lock acquisitions that could not be granted immediately.
+ * <p>
+ * Lock managers report a wait once the lock has been granted, so acquisitions that never had to wait do not touch
+ * this class at all. For every {@link ResourceType} a histogram of wait times is kept, in buckets with power of two
+ * microsecond bounds. Next to that, a bounded set of the most contended resources is maintained using the
+ * space-saving algorithm: once the set is full, a newly contended resource takes over the slot of the resource with
+ * the least accumulated wait time, inheriting its counts. The figures reported for a resource can therefore be
+ * overestimated by up to the counts of the entry it evicted, but a resource that is truly hot will not be lost.
+ */
+public class LockWaitStatistics
+{
+    /**
+     * Number of histogram buckets. Bucket {@code 0} counts waits shorter than a microsecond, bucket {@code i} counts
+     * waits of at least {@code 2^(i-1)} and less than {@code 2^i} microseconds, and the last bucket counts everything
+     * longer than that.
+     */
+    public static final int HISTOGRAM_BUCKETS = 24;
+
+    private static final int TOP_RESOURCES =
+            FeatureToggles.getInteger( LockWaitStatistics.class, "topResources", 64 );
+
+    /** Statistics for lock managers that never wait, nothing is ever recorded into this instance. */
+    public static final LockWaitStatistics NONE = new LockWaitStatistics( 0 );
+
+    private final ResourceType[] resourceTypes;
+    private final WaitHistogram[] histograms;
+    private final ContendedResources contendedResources;
+
+    public LockWaitStatistics( ResourceType... resourceTypes )
+    {
+        this( TOP_RESOURCES, resourceTypes );
+    }
+
+    public LockWaitStatistics( int topResources, ResourceType... resourceTypes )
+    {
+        int maxTypeId = -1;
+        for ( ResourceType type : resourceTypes )
+        {
+            maxTypeId = Math.max( maxTypeId, type.typeId() );
+        }
+        this.resourceTypes = resourceTypes.clone();
+        this.histograms = new WaitHistogram[maxTypeId + 1];
+        for ( ResourceType type : resourceTypes )
+        {
+            histograms[type.typeId()] = new WaitHistogram();
+        }
+        this.contendedResources = new ContendedResources( topResources );
+    }
+
+    /**
+     * Record that a lock on the given resource was granted after waiting for it.
+     *
+     * @param resourceType type of the resource that was waited for.
+     * @param resourceId id of the resource that was waited for.
+     * @param waitNanos time spent waiting, in nanoseconds.
+     */
+    public void recordWait( ResourceType resourceType, long resourceId, long waitNanos )
+    {
+        int typeId = resourceType.typeId();
+        if ( typeId < 0 || typeId >= histograms.length || histograms[typeId] == null )
+        {
+            return;
+        }
+        histograms[typeId].record( waitNanos );
+        contendedResources.record( resourceType, resourceId, waitNanos );
+    }
+
+    /** @return a snapshot of the wait time histogram of every resource type known to these statistics. */
+    public List<Histogram> histograms()
+    {
+        List<Histogram> result = new ArrayList<>( resourceTypes.length );
+        for ( ResourceType type : resourceTypes )
+        {
+            result.add( histogram( type ) );
+        }
+        return result;
+    }
+
+    /** @return a snapshot of the wait time histogram of the given resource type. */
+    public Histogram histogram( ResourceType resourceType )
+    {
+        int typeId = resourceType.typeId();
+        if ( typeId < 0 || typeId >= histograms.length || histograms[typeId] == null )
+        {
+            return new Histogram( resourceType, 0, 0, new long[HISTOGRAM_BUCKETS] );
+        }
+        return histograms[typeId].snapshot( resourceType );
+    }
+
+    /** @return the most contended resources, the one with the highest accumulated wait time first. */
+    public List<ContendedResource> topContendedResources()
+    {
+        return contendedResources.snapshot();
+    }
+
+    static int bucketOf( long waitNanos )
+    {
+        long micros = TimeUnit.NANOSECONDS.toMicros( waitNanos );
+        return Math.min( HISTOGRAM_BUCKETS - 1, Long.SIZE - Long.numberOfLeadingZeros( micros ) );
+    }
+
+    private static class WaitHistogram
+    {
+        private final AtomicLong waits = new AtomicLong();
+        private final AtomicLong totalWaitNanos = new AtomicLong();
+        private final AtomicLongArray buckets = new AtomicLongArray( HISTOGRAM_BUCKETS );
+
+        void record( long waitNanos )
+        {
+            waits.incrementAndGet();
+            totalWaitNanos.addAndGet( waitNanos );
+            buckets.incrementAndGet( bucketOf( waitNanos ) );
+        }
+
+        Histogram snapshot( ResourceType resourceType )
+        {
+            long[] counts = new long[HISTOGRAM_BUCKETS];
+            for ( int i = 0; i < counts.length; i++ )
+            {
+                counts[i] = buckets.get( i );
+            }
+            return new Histogram( resourceType, waits.get(), totalWaitNanos.get(), counts );
+        }
+    }
+
+    /**
+     * Space-saving sketch of the resources with the highest accumulated wait time. This is only touched by clients
+     * that have already been waiting for a lock, so plain synchronization and a linear scan are good enough.
+     */
+    private static class ContendedResources
+    {
+        private final ResourceType[] types;
+        private final long[] resourceIds;
+        private final long[] waits;
+        private final long[] waitNanos;
+        private int size;
+
+        ContendedResources( int capacity )
+        {
+            types = new ResourceType[capacity];
+            resourceIds = new long[capacity];
+            waits = new long[capacity];
+            waitNanos = new long[capacity];
+        }
+
+        synchronized void record( ResourceType type, long resourceId, long nanos )
+        {
+            if ( types.length == 0 )
+            {
+                return;
+            }
+
+            int min = 0;
+            for ( int i = 0; i < size; i++ )
+            {
+                if ( resourceIds[i] == resourceId && types[i].typeId() == type.typeId() )
+                {
+                    waits[i]++;
+                    waitNanos[i] += nanos;
+                    return;
+                }
+                if ( waitNanos[i] < waitNanos[min] )
+                {
+                    min = i;
+                }
+            }
+
+            if ( size < types.length )
+            {
+                types[size] = type;
+                resourceIds[size] = resourceId;
+                waits[size] = 1;
+                waitNanos[size] = nanos;
+                size++;
+            }
+            else
+            {
+                types[min] = type;
+                resourceIds[min] = resourceId;
+                waits[min]++;
+                waitNanos[min] += nanos;
+            }
+        }
+
+        synchronized List<ContendedResource> snapshot()
+        {
+            List<ContendedResource> result = new ArrayList<>( size );
+            for ( int i = 0; i < size; i++ )
+            {
+                result.add( new ContendedResource( types[i], resourceIds[i], waits[i], waitNanos[i] ) );
+            }
+            result.sort( Comparator.comparingLong( ContendedResource::totalWaitNanos ).reversed() );
+            return result;
+        }
+    }
+
+    /** Wait times of all resources of one type, as they were when the snapshot was taken. */
+    public static class Histogram
+    {
+        private final ResourceType resourceType;
+        private final long waits;
+        private final long totalWaitNanos;
+        private final long[] buckets;
+
+        Histogram( ResourceType resourceType, long waits, long totalWaitNanos, long[] buckets )
+        {
+            this.resourceType = resourceType;
+            this.waits = waits;
+            this.totalWaitNanos = totalWaitNanos;
+            this.buckets = buckets;
+        }
+
+        public ResourceType resourceType()
+        {
+            return resourceType;
+        }
+
+        /** @return number of lock acquisitions that had to wait. */
+        public long waits()
+        {
+            return waits;
+        }
+
+        public long totalWaitNanos()
+        {
+            return totalWaitNanos;
+        }
+
+        /** @return number of waits that fell into the given bucket, see {@link #HISTOGRAM_BUCKETS}. */
+        public long bucket( int bucket )
+        {
+            return buckets[bucket];
+        }
+
+        /**
+         * @param percentile a value between 0 and 100.
+         * @return upper bound, in microseconds, of the bucket holding the given percentile of all waits, or
+         * {@code 0} if there were no waits.
+         */
+        public long percentileMicros( double percentile )
+        {
+            long total = 0;
+            for ( long count : buckets )
+            {
+                total += count;
+            }
+            if ( total == 0 )
+            {
+                return 0;
+            }
+
+            long rank = Math.max( 1, (long) Math.ceil( total * percentile / 100 ) );
+            long seen = 0;
+            for ( int i = 0; i < buckets.length; i++ )
+            {
+                seen += buckets[i];
+                if ( seen >= rank )
+                {
+                    return 1L << i;
+                }
+            }
+            return 1L << (buckets.length - 1);
+        }
+    }
+
+    /** Accumulated waits for a single resource, as they were when the snapshot was taken. */
+    public static class ContendedResource
+    {
+        private final ResourceType resourceType;
+        private final long resourceId;
+        private final long waits;
+        private final long totalWaitNanos;
+
+        ContendedResource( ResourceType resourceType, long resourceId, long waits, long totalWaitNanos )
+        {
+            this.resourceType = resourceType;
+            this.resourceId = resourceId;
+            this.waits = waits;
+            this.totalWaitNanos = totalWaitNanos;
+        }
+
+        public ResourceType resourceType()
+        {
+            return resourceType;
+        }
+
+        public long resourceId()
+        {
+            return resourceId;
+        }
+
+        /** @return number of lock acquisitions on this resource that had to wait. */
+        public long waits()
+        {
+            return waits;
+        }
+
+        public long totalWaitNanos()
+        {
+            return totalWaitNanos;
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format( "%s(%d) waits=%d, totalWaitNanos=%d", resourceType, resourceId, waits,
+                    totalWaitNanos );
+        }
+    }
+}
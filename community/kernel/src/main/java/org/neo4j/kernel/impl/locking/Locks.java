@@ -20,6 +20,8 @@
 package org.neo4j.kernel.impl.locking;
 
 import org.neo4j.helpers.Service;
+import org.neo4j.kernel.impl.util.JobScheduler;
+import org.neo4j.logging.LogProvider;
 import org.neo4j.storageengine.api.lock.AcquireLockTimeoutException;
 import org.neo4j.storageengine.api.lock.ResourceLocker;
 import org.neo4j.storageengine.api.lock.ResourceType;
@@ -54,6 +56,15 @@ public interface Locks
         }
 
         public abstract Locks newInstance( ResourceType[] resourceTypes );
+
+        /**
+         * Creates a lock manager that can run background work, such as deadlock detection, on the given scheduler.
+         * Lock managers that have no such work ignore the scheduler and the log provider.
+         */
+        public Locks newInstance( ResourceType[] resourceTypes, JobScheduler scheduler, LogProvider logProvider )
+        {
+            return newInstance( resourceTypes );
+        }
     }
 
     /** For introspection and debugging. */
@@ -122,5 +133,11 @@ public interface Locks
     /** Visit all held locks. */
     void accept(Visitor visitor);
 
+    /** Wait time statistics for lock acquisitions that could not be granted immediately. */
+    default LockWaitStatistics waitStatistics()
+    {
+        return LockWaitStatistics.NONE;
+    }
+
     void close();
 }
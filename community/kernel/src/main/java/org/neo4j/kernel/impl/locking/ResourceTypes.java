@@ -39,6 +39,8 @@ public enum ResourceTypes implements ResourceType
     INDEX_ENTRY (4, LockWaitStrategies.INCREMENTAL_BACKOFF),
 
     LEGACY_INDEX(5, LockWaitStrategies.INCREMENTAL_BACKOFF),
+
+    RELATIONSHIP_GROUP(6, LockWaitStrategies.INCREMENTAL_BACKOFF),
     ;
 
     private static final Map<Integer, ResourceType> idToType = new HashMap<>();
@@ -100,6 +102,17 @@ public enum ResourceTypes implements ResourceType
         // concern.
     }
 
+    /**
+     * The relationships of one type of a dense node, see
+     * {@link org.neo4j.graphdb.factory.GraphDatabaseSettings#dense_node_deferred_locking}. Exact for node ids below
+     * 2^40 and relationship type ids below 2^24. Groups beyond that may share a lock, which costs concurrency, not
+     * correctness.
+     */
+    public static long relationshipGroupResourceId( long nodeId, int relationshipTypeId )
+    {
+        return nodeId << 24 | (relationshipTypeId & 0xFFFFFF);
+    }
+
     private static int hash( long value )
     {
         return DEFAULT_HASHING.hash( value );
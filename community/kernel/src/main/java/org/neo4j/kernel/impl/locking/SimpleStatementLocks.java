@@ -19,29 +19,47 @@
  */
 package org.neo4j.kernel.impl.locking;
 
+import org.neo4j.collection.pool.Pool;
+
 /**
- * A {@link StatementLocks} implementation that uses given {@link Locks.Client} for both
+ * A {@link StatementLocks} implementation that uses a single {@link Locks.Client} for both
  * {@link #optimistic() optimistic} and {@link #pessimistic() pessimistic} locks.
+ * <p>
+ * Instances handed out by {@link SimpleStatementLocksFactory} get their client from {@link Locks} only once locks
+ * are asked for, so transactions that never lock anything, like most reads, never touch the lock manager. Such
+ * instances go back to the pool of the factory when {@link #close() closed}, and must not be used after that.
  */
 public class SimpleStatementLocks implements StatementLocks
 {
-    private final Locks.Client client;
+    private final Locks locks;
+    private final Pool<SimpleStatementLocks> pool;
+    private volatile Locks.Client client;
+    private volatile boolean stopped;
 
     public SimpleStatementLocks( Locks.Client client )
     {
+        this.locks = null;
+        this.pool = null;
         this.client = client;
     }
 
+    SimpleStatementLocks( Locks locks, Pool<SimpleStatementLocks> pool )
+    {
+        this.locks = locks;
+        this.pool = pool;
+    }
+
     @Override
     public Locks.Client pessimistic()
     {
-        return client;
+        Locks.Client current = client;
+        return current != null ? current : bindClient();
     }
 
     @Override
     public Locks.Client optimistic()
     {
-        return client;
+        return pessimistic();
     }
 
     @Override
@@ -53,12 +71,49 @@ public class SimpleStatementLocks implements StatementLocks
     @Override
     public void stop()
     {
-        client.stop();
+        // Paired with bindClient, one of the two will see the other and stop the client
+        stopped = true;
+        Locks.Client current = client;
+        if ( current != null )
+        {
+            current.stop();
+        }
     }
 
     @Override
     public void close()
     {
-        client.close();
+        Locks.Client current = client;
+        if ( pool == null )
+        {
+            current.close();
+            return;
+        }
+
+        if ( current != null )
+        {
+            client = null;
+            current.close();
+        }
+        stopped = false;
+        pool.release( this );
+    }
+
+    @Override
+    public int lockSessionId()
+    {
+        Locks.Client current = client;
+        return current != null ? current.getLockSessionId() : -1;
+    }
+
+    private Locks.Client bindClient()
+    {
+        Locks.Client current = locks.newClient();
+        client = current;
+        if ( stopped )
+        {
+            current.stop();
+        }
+        return current;
     }
 }
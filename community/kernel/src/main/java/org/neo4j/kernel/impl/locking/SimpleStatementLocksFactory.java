@@ -19,16 +19,20 @@
  */
 package org.neo4j.kernel.impl.locking;
 
+import org.neo4j.collection.pool.MarshlandPool;
+import org.neo4j.collection.pool.Pool;
 import org.neo4j.kernel.configuration.Config;
 
 import static java.util.Objects.requireNonNull;
 
 /**
- * A {@link StatementLocksFactory} that creates {@link SimpleStatementLocks}.
+ * A {@link StatementLocksFactory} that hands out {@link SimpleStatementLocks}. Those are pooled, with a slot local to
+ * every thread in front of a shared pool, the same way kernel transactions are.
  */
 public class SimpleStatementLocksFactory implements StatementLocksFactory
 {
     private Locks locks;
+    private Pool<SimpleStatementLocks> pool;
 
     public SimpleStatementLocksFactory()
     {
@@ -48,6 +52,7 @@ public class SimpleStatementLocksFactory implements StatementLocksFactory
     public void initialize( Locks locks, Config config )
     {
         this.locks = requireNonNull( locks );
+        this.pool = new MarshlandPool<>( () -> new SimpleStatementLocks( locks, pool ) );
     }
 
     @Override
@@ -58,6 +63,6 @@ public class SimpleStatementLocksFactory implements StatementLocksFactory
             throw new IllegalStateException( "Factory has not been initialized" );
         }
 
-        return new SimpleStatementLocks( locks.newClient() );
+        return pool.acquire();
     }
 }
@@ -53,6 +53,14 @@ public interface StatementLocks extends AutoCloseable
      */
     void stop();
 
+    /**
+     * Id of the lock session of the {@link #pessimistic() pessimistic} client, for logging. Unlike
+     * {@link #pessimistic()} this never makes a client be created and so is safe to call from any thread.
+     *
+     * @return the lock session id, or {@code -1} if there is no client yet.
+     */
+    int lockSessionId();
+
     /**
      * Close the underlying {@link Locks.Client client}(s).
      */
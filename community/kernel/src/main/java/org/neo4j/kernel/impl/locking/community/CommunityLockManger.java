@@ -19,11 +19,14 @@
  */
 package org.neo4j.kernel.impl.locking.community;
 
+import org.neo4j.kernel.impl.locking.LockWaitStatistics;
 import org.neo4j.kernel.impl.locking.Locks;
+import org.neo4j.kernel.impl.locking.ResourceTypes;
 
 public class CommunityLockManger implements Locks
 {
-    private final LockManagerImpl manager = new LockManagerImpl( new RagManager() );
+    private final LockWaitStatistics waitStatistics = new LockWaitStatistics( ResourceTypes.values() );
+    private final LockManagerImpl manager = new LockManagerImpl( new RagManager(), waitStatistics );
     private volatile boolean closed;
 
     @Override
@@ -54,6 +57,12 @@ public class CommunityLockManger implements Locks
         } );
     }
 
+    @Override
+    public LockWaitStatistics waitStatistics()
+    {
+        return waitStatistics;
+    }
+
     @Override
     public void close()
     {
@@ -24,6 +24,7 @@ import java.util.Map;
 
 import org.neo4j.helpers.collection.Visitor;
 import org.neo4j.kernel.DeadlockDetectedException;
+import org.neo4j.kernel.impl.locking.LockWaitStatistics;
 import org.neo4j.kernel.impl.transaction.IllegalResourceException;
 import org.neo4j.logging.Logger;
 
@@ -31,10 +32,17 @@ public class LockManagerImpl
 {
     private final Map<Object,RWLock> resourceLockMap = new HashMap<>();
     private final RagManager ragManager;
+    private final LockWaitStatistics waitStatistics;
 
     public LockManagerImpl( RagManager ragManager )
+    {
+        this( ragManager, LockWaitStatistics.NONE );
+    }
+
+    public LockManagerImpl( RagManager ragManager, LockWaitStatistics waitStatistics )
     {
         this.ragManager = ragManager;
+        this.waitStatistics = waitStatistics;
     }
 
     public boolean getReadLock( Object resource, Object tx )
@@ -157,7 +165,7 @@ public class LockManagerImpl
     // visible for testing
     protected RWLock createLock( Object resource )
     {
-        return new RWLock( resource, ragManager );
+        return new RWLock( resource, ragManager, waitStatistics );
     }
 
     private RWLock getRWLockForReleasing( Object resource, Object tx, int readCountPrerequisite,
@@ -26,6 +26,7 @@ import java.util.ListIterator;
 import org.neo4j.helpers.MathUtil;
 import org.neo4j.kernel.DeadlockDetectedException;
 import org.neo4j.kernel.impl.locking.LockType;
+import org.neo4j.kernel.impl.locking.LockWaitStatistics;
 import org.neo4j.kernel.impl.util.ArrayMap;
 import org.neo4j.logging.Logger;
 
@@ -66,6 +67,7 @@ class RWLock
     private final LinkedList<LockRequest> waitingThreadList = new LinkedList<>();
     private final ArrayMap<Object,TxLockElement> txLockElementMap = new ArrayMap<>( (byte) 5, false, true );
     private final RagManager ragManager;
+    private final LockWaitStatistics waitStatistics;
 
     // access to these is guarded by synchronized blocks
     private int totalReadCount;
@@ -73,9 +75,15 @@ class RWLock
     private int marked; // synch helper in LockManager
 
     RWLock( Object resource, RagManager ragManager )
+    {
+        this( resource, ragManager, LockWaitStatistics.NONE );
+    }
+
+    RWLock( Object resource, RagManager ragManager, LockWaitStatistics waitStatistics )
     {
         this.resource = resource;
         this.ragManager = ragManager;
+        this.waitStatistics = waitStatistics;
     }
 
     // keeps track of a transactions read and write lock count on this RWLock
@@ -187,6 +195,7 @@ class RWLock
         LockRequest lockRequest = null;
         // used to track do we need to add lock request to a waiting queue or we still have it there
         boolean addLockRequest = true;
+        long waitStartNanos = 0;
         try
         {
             tle.incrementRequests();
@@ -201,6 +210,10 @@ class RWLock
                     lockRequest = new LockRequest( tle, READ, currentThread );
                     waitingThreadList.addFirst( lockRequest );
                 }
+                if ( waitStartNanos == 0 )
+                {
+                    waitStartNanos = System.nanoTime();
+                }
 
                 addLockRequest = waitUninterruptedly();
                 ragManager.stopWaitOn( this, tx );
@@ -209,6 +222,7 @@ class RWLock
             if ( !tle.isTerminated() )
             {
                 registerReadLockAcquired( tx, tle );
+                waitCompleted( waitStartNanos );
                 return true;
             }
             else
@@ -364,6 +378,7 @@ class RWLock
         LockRequest lockRequest = null;
         // used to track do we need to add lock request to a waiting queue or we still have it there
         boolean addLockRequest = true;
+        long waitStartNanos = 0;
         try
         {
             tle.incrementRequests();
@@ -378,6 +393,10 @@ class RWLock
                     lockRequest = new LockRequest( tle, WRITE, currentThread );
                     waitingThreadList.addFirst( lockRequest );
                 }
+                if ( waitStartNanos == 0 )
+                {
+                    waitStartNanos = System.nanoTime();
+                }
 
                 addLockRequest = waitUninterruptedly();
                 ragManager.stopWaitOn( this, tx );
@@ -386,6 +405,7 @@ class RWLock
             if ( !tle.isTerminated() )
             {
                 registerWriteLockAcquired( tx, tle );
+                waitCompleted( waitStartNanos );
                 return true;
             }
             else
@@ -412,6 +432,16 @@ class RWLock
         }
     }
 
+    private void waitCompleted( long waitStartNanos )
+    {
+        if ( waitStartNanos != 0 && resource instanceof LockResource )
+        {
+            LockResource lockResource = (LockResource) resource;
+            waitStatistics.recordWait( lockResource.type(), lockResource.resourceId(),
+                    System.nanoTime() - waitStartNanos );
+        }
+    }
+
     private boolean waitUninterruptedly()
     {
         boolean addLockRequest;
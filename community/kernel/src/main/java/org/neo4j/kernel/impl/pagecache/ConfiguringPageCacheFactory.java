@@ -22,6 +22,7 @@ package org.neo4j.kernel.impl.pagecache;
 import org.neo4j.helpers.Service;
 import org.neo4j.io.ByteUnit;
 import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.IOLimiter;
 import org.neo4j.io.pagecache.PageCache;
 import org.neo4j.io.pagecache.PageSwapperFactory;
 import org.neo4j.io.pagecache.impl.SingleFilePageSwapperFactory;
@@ -32,6 +33,8 @@ import org.neo4j.kernel.impl.util.OsBeanUtil;
 import org.neo4j.logging.Log;
 
 import static org.neo4j.graphdb.factory.GraphDatabaseSettings.mapped_memory_page_size;
+import static org.neo4j.graphdb.factory.GraphDatabaseSettings.pagecache_background_flush;
+import static org.neo4j.graphdb.factory.GraphDatabaseSettings.pagecache_eviction_policy;
 import static org.neo4j.graphdb.factory.GraphDatabaseSettings.pagecache_memory;
 import static org.neo4j.graphdb.factory.GraphDatabaseSettings.pagecache_swapper;
 import static org.neo4j.kernel.configuration.Settings.BYTES;
@@ -42,15 +45,27 @@ public class ConfiguringPageCacheFactory
     private final Config config;
     private final PageCacheTracer tracer;
     private final Log log;
+    private final IOLimiter backgroundFlushLimiter;
     private PageCache pageCache;
 
     public ConfiguringPageCacheFactory(
             FileSystemAbstraction fs, Config config, PageCacheTracer tracer, Log log )
+    {
+        this( fs, config, tracer, log, IOLimiter.unlimited() );
+    }
+
+    /**
+     * @param backgroundFlushLimiter limits the IO of the background flushing of the page cache, if that is enabled
+     * with {@link org.neo4j.graphdb.factory.GraphDatabaseSettings#pagecache_background_flush}.
+     */
+    public ConfiguringPageCacheFactory(
+            FileSystemAbstraction fs, Config config, PageCacheTracer tracer, Log log, IOLimiter backgroundFlushLimiter )
     {
         this.swapperFactory = createAndConfigureSwapperFactory( fs, config, log );
         this.config = config;
         this.tracer = tracer;
         this.log = log;
+        this.backgroundFlushLimiter = backgroundFlushLimiter;
     }
 
     private PageSwapperFactory createAndConfigureSwapperFactory( FileSystemAbstraction fs, Config config, Log log )
@@ -98,7 +113,9 @@ public class ConfiguringPageCacheFactory
                 swapperFactory,
                 maxPages,
                 cachePageSize,
-                tracer );
+                tracer,
+                config.get( pagecache_eviction_policy ),
+                config.get( pagecache_background_flush ) ? backgroundFlushLimiter : null );
     }
 
     public int calculateMaxPages( Config config, int cachePageSize )
@@ -198,7 +215,9 @@ public class ConfiguringPageCacheFactory
         long pageCacheMb = ByteUnit.Byte.toMebiBytes(maxPages * cachePageSize);
         String msg = "Physical mem: " + totalPhysicalMemMb + " MiB," +
                      " Heap size: " + maxVmUsageMb + " MiB," +
-                     " Page cache size: " + pageCacheMb + " MiB.";
+                     " Page cache size: " + pageCacheMb + " MiB," +
+                     " Page cache eviction policy: " + config.get( pagecache_eviction_policy ) + "," +
+                     " Page cache background flush: " + config.get( pagecache_background_flush ) + ".";
 
         log.info( msg );
     }
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.pagecache;
+
+import java.io.Flushable;
+import java.io.IOException;
+
+import org.neo4j.io.pagecache.IOLimiter;
+
+/**
+ * An {@link IOLimiter} that can be pointed at another limiter after it has been handed out.
+ * <p>
+ * The page cache is created before the edition decides which limiter its check points use, so the background
+ * flushing of the page cache is given one of these, which is then pointed at the check point limiter. Until then,
+ * the IO is not limited.
+ */
+public class DelegatingIOLimiter implements IOLimiter
+{
+    private volatile IOLimiter delegate = IOLimiter.unlimited();
+
+    public void setDelegate( IOLimiter delegate )
+    {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public long maybeLimitIO( long previousStamp, int recentlyCompletedIOs, Flushable flushable ) throws IOException
+    {
+        return delegate.maybeLimitIO( previousStamp, recentlyCompletedIOs, flushable );
+    }
+
+    @Override
+    public void disableLimit()
+    {
+        delegate.disableLimit();
+    }
+
+    @Override
+    public void enableLimit()
+    {
+        delegate.enableLimit();
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.pagecache;
+
+import java.io.Flushable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.ObjLongConsumer;
+
+import org.neo4j.io.pagecache.IOLimiter;
+
+/**
+ * An {@link IOLimiter} that keeps the IO rate under a fixed number of IOs per second, by pausing the flushing thread
+ * for the remainder of a 100 millisecond quantum, once it has used up its share of IOs in that quantum.
+ * <p>
+ * This is used for the warmup of the page cache, which should never compete with the check points or the transaction
+ * log for IO bandwidth.
+ */
+final class FixedRateIOLimiter implements IOLimiter
+{
+    private static final int QUANTUM_MILLIS = 100;
+    private static final int TIME_BITS = 32;
+    private static final long TIME_MASK = (1L << TIME_BITS) - 1;
+
+    private final int iopq; // IOs per quantum
+    private final ObjLongConsumer<Object> pauseNanos;
+
+    FixedRateIOLimiter( int iops )
+    {
+        this( iops, LockSupport::parkNanos );
+    }
+
+    // Only visible for testing
+    FixedRateIOLimiter( int iops, ObjLongConsumer<Object> pauseNanos )
+    {
+        int quantumsPerSecond = (int) (TimeUnit.SECONDS.toMillis( 1 ) / QUANTUM_MILLIS);
+        this.iopq = Math.max( 1, iops / quantumsPerSecond );
+        this.pauseNanos = pauseNanos;
+    }
+
+    // The stamp has the same layout as the one used by the check point IO limiter:
+    // The high bits are the number of IOs performed since the last pause.
+    // The low bits is the 32-bit timestamp in milliseconds since the last pause.
+    @Override
+    public long maybeLimitIO( long previousStamp, int recentlyCompletedIOs, Flushable flushable )
+    {
+        long now = currentTimeMillis() & TIME_MASK;
+        long then = previousStamp & TIME_MASK;
+
+        if ( now - then > QUANTUM_MILLIS )
+        {
+            return now + (((long) recentlyCompletedIOs) << TIME_BITS);
+        }
+
+        long ioSum = (previousStamp >> TIME_BITS) + recentlyCompletedIOs;
+        if ( ioSum >= iopq )
+        {
+            long millisLeftInQuantum = QUANTUM_MILLIS - (now - then);
+            pauseNanos.accept( this, TimeUnit.MILLISECONDS.toNanos( millisLeftInQuantum ) );
+            return currentTimeMillis() & TIME_MASK;
+        }
+
+        return then + (ioSum << TIME_BITS);
+    }
+
+    private long currentTimeMillis()
+    {
+        return System.currentTimeMillis();
+    }
+}
@@ -0,0 +1,275 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.pagecache;
+
+import java.io.File;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.StandardCopyOption;
+import java.util.BitSet;
+import java.util.Optional;
+
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.IOLimiter;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.PagedFile;
+import org.neo4j.io.pagecache.tracing.PageCacheTracer;
+import org.neo4j.kernel.configuration.Config;
+import org.neo4j.kernel.impl.util.JobScheduler;
+import org.neo4j.kernel.lifecycle.LifecycleAdapter;
+import org.neo4j.logging.Log;
+import org.neo4j.logging.LogProvider;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_READ_LOCK;
+import static org.neo4j.kernel.impl.util.JobScheduler.Groups.pageCacheWarmup;
+
+/**
+ * Records which pages of the mapped store files are in memory, and loads those pages back into the page cache when
+ * the database starts.
+ * <p>
+ * The profile of each store file is a bitmap of its file page ids, written to a file next to the store file with a
+ * {@value #SUFFIX_CACHEPROF} suffix. The profiles are written periodically, and when the database shuts down.
+ * <p>
+ * The warmup runs in the background, while the database is serving requests, and loads the pages of each file in
+ * file offset order, at the rate allowed by the
+ * {@link GraphDatabaseSettings#pagecache_warmup_max_iops pagecache_warmup_max_iops} setting. The profiling does not
+ * start until the warmup has completed, since the profiles would otherwise be overwritten with the profile of a
+ * cold page cache.
+ */
+public class PageCacheWarmer extends LifecycleAdapter
+{
+    public static final String SUFFIX_CACHEPROF = ".cacheprof";
+    private static final String SUFFIX_CACHEPROF_TMP = ".cacheprof.tmp";
+    private static final Flushable NO_FLUSH = () ->
+    {
+    };
+
+    private final FileSystemAbstraction fs;
+    private final PageCache pageCache;
+    private final File storeDir;
+    private final JobScheduler scheduler;
+    private final PageCacheTracer tracer;
+    private final Log log;
+    private final long profileIntervalMillis;
+    private final IOLimiter limiter;
+
+    // The handle of the warmup job, or the recurring profiling job, whichever is currently scheduled.
+    // Guarded by synchronized(this).
+    private JobScheduler.JobHandle handle;
+    // Guarded by synchronized(this).
+    private boolean profilingEnabled;
+    private volatile boolean stopped;
+
+    public PageCacheWarmer( FileSystemAbstraction fs, PageCache pageCache, File storeDir, JobScheduler scheduler,
+            PageCacheTracer tracer, LogProvider logProvider, Config config )
+    {
+        this.fs = fs;
+        this.pageCache = pageCache;
+        this.storeDir = storeDir;
+        this.scheduler = scheduler;
+        this.tracer = tracer;
+        this.log = logProvider.getLog( getClass() );
+        this.profileIntervalMillis = config.get( GraphDatabaseSettings.pagecache_warmup_profiling_interval );
+        int iops = config.get( GraphDatabaseSettings.pagecache_warmup_max_iops );
+        this.limiter = iops > 0 ? new FixedRateIOLimiter( iops ) : IOLimiter.unlimited();
+    }
+
+    @Override
+    public synchronized void start() throws Throwable
+    {
+        stopped = false;
+        profilingEnabled = false;
+        handle = scheduler.schedule( pageCacheWarmup, this::warmUpAndStartProfiling );
+    }
+
+    @Override
+    public void stop() throws Throwable
+    {
+        // Make a running warmup give up, before we wait for it to release the monitor.
+        stopped = true;
+        synchronized ( this )
+        {
+            if ( handle != null )
+            {
+                handle.cancel( false );
+                handle = null;
+            }
+            if ( profilingEnabled )
+            {
+                profile();
+            }
+        }
+    }
+
+    private void warmUpAndStartProfiling()
+    {
+        try
+        {
+            long startMillis = System.currentTimeMillis();
+            long pagesLoaded = warmUp();
+            if ( pagesLoaded > 0 )
+            {
+                log.info( "Page cache warmup completed. %d pages loaded in %d ms.",
+                        pagesLoaded, System.currentTimeMillis() - startMillis );
+            }
+        }
+        catch ( IOException | RuntimeException e )
+        {
+            log.warn( "Page cache warmup failed.", e );
+        }
+
+        synchronized ( this )
+        {
+            if ( !stopped )
+            {
+                profilingEnabled = true;
+                handle = scheduler.scheduleRecurring( pageCacheWarmup, this::profileIgnoringErrors,
+                        profileIntervalMillis, profileIntervalMillis, MILLISECONDS );
+            }
+        }
+    }
+
+    private void profileIgnoringErrors()
+    {
+        try
+        {
+            profile();
+        }
+        catch ( IOException | RuntimeException e )
+        {
+            log.debug( "Page cache profiling failed, will try again later.", e );
+        }
+    }
+
+    /**
+     * Load the pages in the profiles back into the page cache. Only the files that are currently mapped are warmed
+     * up, and the warmup gives up early if this warmer is stopped.
+     *
+     * @return the number of pages that were loaded.
+     */
+    synchronized long warmUp() throws IOException
+    {
+        long pagesLoaded = 0;
+        long stamp = IOLimiter.INITIAL_STAMP;
+        File[] profiles = fs.listFiles( storeDir, ( dir, name ) -> name.endsWith( SUFFIX_CACHEPROF ) );
+        if ( profiles == null )
+        {
+            return 0;
+        }
+        for ( File profile : profiles )
+        {
+            if ( stopped )
+            {
+                break;
+            }
+            String name = profile.getName();
+            File file = new File( storeDir, name.substring( 0, name.length() - SUFFIX_CACHEPROF.length() ) );
+            BitSet pageIds = readProfile( profile );
+            Optional<PagedFile> mapping = pageCache.getExistingMapping( file );
+            if ( !mapping.isPresent() )
+            {
+                continue;
+            }
+
+            try ( PagedFile pagedFile = mapping.get();
+                  PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK ) )
+            {
+                long lastPageId = pagedFile.getLastPageId();
+                int pageId = pageIds.nextSetBit( 0 );
+                while ( pageId >= 0 && pageId <= lastPageId && !stopped )
+                {
+                    if ( cursor.next( pageId ) )
+                    {
+                        pagesLoaded++;
+                        tracer.warmedUp( 1 );
+                        stamp = limiter.maybeLimitIO( stamp, 1, NO_FLUSH );
+                    }
+                    pageId = pageIds.nextSetBit( pageId + 1 );
+                }
+            }
+        }
+        return pagesLoaded;
+    }
+
+    /**
+     * Write a profile of the pages that are in memory, for every mapped file in the store directory.
+     *
+     * @return the number of pages in memory, summed over all the profiled files.
+     */
+    synchronized long profile() throws IOException
+    {
+        long pagesInMemory = 0;
+        File[] files = fs.listFiles( storeDir );
+        if ( files == null )
+        {
+            return 0;
+        }
+        for ( File file : files )
+        {
+            if ( file.getName().endsWith( SUFFIX_CACHEPROF ) || file.getName().endsWith( SUFFIX_CACHEPROF_TMP ) )
+            {
+                continue;
+            }
+            Optional<PagedFile> mapping = pageCache.getExistingMapping( file );
+            if ( mapping.isPresent() )
+            {
+                try ( PagedFile pagedFile = mapping.get() )
+                {
+                    BitSet pageIds = pagedFile.getCachedPages();
+                    pagesInMemory += pageIds.cardinality();
+                    writeProfile( file, pageIds );
+                }
+            }
+        }
+        return pagesInMemory;
+    }
+
+    private BitSet readProfile( File profile ) throws IOException
+    {
+        byte[] bytes = new byte[(int) fs.getFileSize( profile )];
+        try ( InputStream in = fs.openAsInputStream( profile ) )
+        {
+            int offset = 0;
+            int read;
+            while ( offset < bytes.length && (read = in.read( bytes, offset, bytes.length - offset )) != -1 )
+            {
+                offset += read;
+            }
+        }
+        return BitSet.valueOf( bytes );
+    }
+
+    private void writeProfile( File file, BitSet pageIds ) throws IOException
+    {
+        // Write to a temporary file first, so a crash will never leave a partially written profile behind.
+        File tmp = new File( file.getParentFile(), file.getName() + SUFFIX_CACHEPROF_TMP );
+        try ( OutputStream out = fs.openAsOutputStream( tmp, false ) )
+        {
+            out.write( pageIds.toByteArray() );
+        }
+        fs.renameFile( tmp, new File( file.getParentFile(), file.getName() + SUFFIX_CACHEPROF ),
+                StandardCopyOption.REPLACE_EXISTING );
+    }
+}
@@ -207,4 +207,11 @@ class ProcedureGDBFacadeSPI implements GraphDatabaseFacade.SPI
     {
         throw new UnsupportedOperationException();
     }
+
+    @Override
+    public KernelTransaction beginReadOnlyTransaction( KernelTransaction.Type type, SecurityContext securityContext,
+            long timeout )
+    {
+        throw new UnsupportedOperationException();
+    }
 }
@@ -219,6 +219,15 @@ public class Neo4jTransactionalContext implements TransactionalContext
         return this;
     }
 
+    @Override
+    public TransactionalContext beginReadOnlyWorkerContext()
+    {
+        InternalTransaction workerTransaction =
+                graph.beginReadOnlyTransaction( KernelTransaction.Type.implicit, securityContext );
+        return new Neo4jTransactionalContext( graph, statementSupplier, guard, txBridge, locker, workerTransaction,
+                statementSupplier.get(), executingQuery );
+    }
+
     @Override
     public boolean isOpen()
     {
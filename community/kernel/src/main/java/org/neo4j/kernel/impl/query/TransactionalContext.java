@@ -59,6 +59,13 @@ public interface TransactionalContext
 
     TransactionalContext getOrBeginNewIfClosed();
 
+    /**
+     * Begin a new read-only transaction for the same user, bound to the calling thread, for reading the store on
+     * behalf of this query from another thread. The new transaction does not see the changes of this one. Closing
+     * the returned context only closes that transaction, it must be closed from the thread that began it.
+     */
+    TransactionalContext beginReadOnlyWorkerContext();
+
     boolean isOpen();
 
     GraphDatabaseQueryService graph();
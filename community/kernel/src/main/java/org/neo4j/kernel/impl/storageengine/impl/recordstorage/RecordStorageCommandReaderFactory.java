@@ -19,6 +19,7 @@
  */
 package org.neo4j.kernel.impl.storageengine.impl.recordstorage;
 
+import org.neo4j.kernel.impl.transaction.command.CommandRecordPool;
 import org.neo4j.kernel.impl.transaction.command.PhysicalLogCommandReaderV2_0;
 import org.neo4j.kernel.impl.transaction.command.PhysicalLogCommandReaderV2_1;
 import org.neo4j.kernel.impl.transaction.command.PhysicalLogCommandReaderV2_2;
@@ -38,6 +39,14 @@ public class RecordStorageCommandReaderFactory implements CommandReaderFactory
     private final CommandReader[] readers;
 
     public RecordStorageCommandReaderFactory()
+    {
+        this( CommandRecordPool.NO_POOLING );
+    }
+
+    /**
+     * @param recordPool where readers of the current log version get their records from.
+     */
+    public RecordStorageCommandReaderFactory( CommandRecordPool recordPool )
     {
         readers = new CommandReader[10]; // pessimistic size
         readers[-LogEntryVersion.V2_0.byteCode()] = new PhysicalLogCommandReaderV2_0();
@@ -48,7 +57,7 @@ public class RecordStorageCommandReaderFactory implements CommandReaderFactory
         readers[-LogEntryVersion.V3_0.byteCode()] = new PhysicalLogCommandReaderV3_0();
         readers[-LogEntryVersion.V2_2_10.byteCode()] = new PhysicalLogCommandReaderV2_2_10();
         readers[-LogEntryVersion.V2_3_5.byteCode()] = new PhysicalLogCommandReaderV2_2_10();
-        readers[-LogEntryVersion.V3_0_2.byteCode()] = new PhysicalLogCommandReaderV3_0_2();
+        readers[-LogEntryVersion.V3_0_2.byteCode()] = new PhysicalLogCommandReaderV3_0_2( recordPool );
 
         // A little extra safety check so that we got 'em all
         LogEntryVersion[] versions = LogEntryVersion.values();
@@ -29,6 +29,7 @@ import java.util.function.Supplier;
 
 import org.neo4j.concurrent.WorkSync;
 import org.neo4j.graphdb.factory.GraphDatabaseSettings;
+import org.neo4j.helpers.ArrayUtil;
 import org.neo4j.helpers.collection.Iterators;
 import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.io.pagecache.IOLimiter;
@@ -85,11 +86,13 @@ import org.neo4j.kernel.impl.store.id.IdReuseEligibility;
 import org.neo4j.kernel.impl.store.id.configuration.IdTypeConfigurationProvider;
 import org.neo4j.kernel.impl.store.record.AbstractBaseRecord;
 import org.neo4j.kernel.impl.transaction.command.CacheInvalidationBatchTransactionApplier;
+import org.neo4j.kernel.impl.transaction.command.CommandRecordPool;
 import org.neo4j.kernel.impl.transaction.command.HighIdBatchTransactionApplier;
 import org.neo4j.kernel.impl.transaction.command.IndexBatchTransactionApplier;
 import org.neo4j.kernel.impl.transaction.command.IndexUpdatesWork;
 import org.neo4j.kernel.impl.transaction.command.LabelUpdateWork;
 import org.neo4j.kernel.impl.transaction.command.NeoStoreBatchTransactionApplier;
+import org.neo4j.kernel.impl.transaction.command.ParallelStoreApplier;
 import org.neo4j.kernel.impl.transaction.state.DefaultSchemaIndexProviderMap;
 import org.neo4j.kernel.impl.transaction.state.IntegrityValidator;
 import org.neo4j.kernel.impl.transaction.state.Loaders;
@@ -101,6 +104,7 @@ import org.neo4j.kernel.impl.transaction.state.RecordChangeSet;
 import org.neo4j.kernel.impl.transaction.state.RelationshipCreator;
 import org.neo4j.kernel.impl.transaction.state.RelationshipDeleter;
 import org.neo4j.kernel.impl.transaction.state.RelationshipGroupGetter;
+import org.neo4j.kernel.impl.transaction.state.RelationshipGroupLocks;
 import org.neo4j.kernel.impl.transaction.state.TransactionRecordState;
 import org.neo4j.kernel.impl.transaction.state.storeview.DynamicIndexStoreView;
 import org.neo4j.kernel.impl.transaction.state.storeview.NeoStoreIndexStoreView;
@@ -155,6 +159,7 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
     private final JobScheduler scheduler;
     private final LockService lockService;
     private final WorkSync<Supplier<LabelScanWriter>,LabelUpdateWork> labelScanStoreSync;
+    private final CommandRecordPool commandRecordPool;
     private final CommandReaderFactory commandReaderFactory;
     private final WorkSync<IndexingService,IndexUpdatesWork> indexUpdatesSync;
     private final NeoStoreIndexStoreView indexStoreView;
@@ -166,6 +171,8 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
     // Immutable state for creating/applying commands
     private final Loaders loaders;
     private final RelationshipCreator relationshipCreator;
+    private final RelationshipGroupLocks relationshipGroupLocks;
+    private final int applyParallelism;
     private final RelationshipDeleter relationshipDeleter;
     private final PropertyCreator propertyCreator;
     private final PropertyDeleter propertyDeleter;
@@ -243,7 +250,8 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
 
             labelScanStoreSync = new WorkSync<>( labelScanStore::newWriter );
 
-            commandReaderFactory = new RecordStorageCommandReaderFactory();
+            commandRecordPool = new CommandRecordPool();
+            commandReaderFactory = new RecordStorageCommandReaderFactory( commandRecordPool );
             indexUpdatesSync = new WorkSync<>( indexingService );
 
             // Immutable state for creating/applying commands
@@ -252,6 +260,9 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
                     new RelationshipGroupGetter( neoStores.getRelationshipGroupStore() );
             relationshipCreator = new RelationshipCreator( relationshipGroupGetter,
                     config.get( GraphDatabaseSettings.dense_node_threshold ) );
+            relationshipGroupLocks = config.get( GraphDatabaseSettings.dense_node_deferred_locking )
+                                     ? new RelationshipGroupLocks( neoStores.getRelationshipGroupStore() ) : null;
+            applyParallelism = config.get( GraphDatabaseSettings.transaction_apply_parallelism );
             PropertyTraverser propertyTraverser = new PropertyTraverser();
             propertyDeleter = new PropertyDeleter( propertyTraverser );
             relationshipDeleter = new RelationshipDeleter( relationshipGroupGetter, propertyDeleter );
@@ -308,6 +319,11 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
         if ( txState != null )
         {
             RecordChangeSet recordChangeSet = new RecordChangeSet( loaders );
+            if ( relationshipGroupLocks != null )
+            {
+                relationshipGroupLocks.lockGroupsOfCreatedRelationships(
+                        txState, recordChangeSet.getNodeRecords(), locks );
+            }
             TransactionRecordState recordState = new TransactionRecordState( neoStores, integrityValidator,
                     recordChangeSet, lastTransactionIdWhenStarted, locks,
                     relationshipCreator, relationshipDeleter, propertyCreator, propertyDeleter );
@@ -335,6 +351,27 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
 
     @Override
     public void apply( CommandsToApply batch, TransactionApplicationMode mode ) throws Exception
+    {
+        if ( applyParallelism > 1 && batch.next() != null )
+        {
+            applyInParallel( batch, mode );
+        }
+        else
+        {
+            applySerially( batch, mode );
+        }
+
+        if ( mode == TransactionApplicationMode.RECOVERY )
+        {
+            // Recovery reads transactions only to apply them, so their records can be read into again
+            for ( CommandsToApply transaction = batch; transaction != null; transaction = transaction.next() )
+            {
+                commandRecordPool.release( transaction );
+            }
+        }
+    }
+
+    private void applySerially( CommandsToApply batch, TransactionApplicationMode mode ) throws Exception
     {
         // Have these command appliers as separate try-with-resource to have better control over
         // point between closing this and the locks above
@@ -359,6 +396,78 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
         }
     }
 
+    /**
+     * Applies a batch in segments of consecutive transactions, see {@link ParallelStoreApplier}. The records of all
+     * transactions in a segment are written in parallel, after which the decorating appliers are fed those
+     * transactions one by one, in order, as usual. Transactions that cannot be part of a segment are applied on their
+     * own, by the graph store applier followed by the decorating appliers.
+     * <p>
+     * Both paths use the same decorating applier instances, so they see every transaction of the batch in order.
+     * Those appliers are owned by, and closed once with, the facade created here. The graph store applier has
+     * nothing to close.
+     */
+    private void applyInParallel( CommandsToApply batch, TransactionApplicationMode mode ) throws Exception
+    {
+        ParallelStoreApplier storeApplier = new ParallelStoreApplier( neoStores,
+                scheduler.executor( JobScheduler.Groups.transactionApplication ), applyParallelism );
+        BatchTransactionApplier neoStoreApplier = new NeoStoreBatchTransactionApplier( neoStores, cacheAccess,
+                lockService );
+        try ( BatchTransactionApplier decoratingApplier = new BatchTransactionApplierFacade(
+                decoratingAppliers( mode ) ) )
+        {
+            while ( batch != null )
+            {
+                if ( storeApplier.add( batch ) )
+                {
+                    batch = batch.next();
+                    continue;
+                }
+
+                if ( storeApplier.isEmpty() )
+                {
+                    try ( LockGroup locks = new LockGroup();
+                          TransactionApplier txApplier = new TransactionApplierFacade(
+                                  neoStoreApplier.startTx( batch, locks ), decoratingApplier.startTx( batch, locks ) ) )
+                    {
+                        batch.accept( txApplier );
+                    }
+                    batch = batch.next();
+                }
+                else
+                {
+                    applySegment( storeApplier, decoratingApplier );
+                }
+            }
+            applySegment( storeApplier, decoratingApplier );
+        }
+        catch ( Throwable cause )
+        {
+            databaseHealth.panic( cause );
+            throw cause;
+        }
+    }
+
+    private void applySegment( ParallelStoreApplier storeApplier, BatchTransactionApplier decoratingApplier )
+            throws Exception
+    {
+        if ( storeApplier.isEmpty() )
+        {
+            return;
+        }
+        try ( LockGroup locks = new LockGroup() )
+        {
+            storeApplier.apply( lockService, locks );
+            for ( CommandsToApply transaction : storeApplier.transactions() )
+            {
+                try ( TransactionApplier txApplier = decoratingApplier.startTx( transaction, locks ) )
+                {
+                    transaction.accept( txApplier );
+                }
+            }
+        }
+        storeApplier.clear();
+    }
+
     /**
      * Creates a {@link BatchTransactionApplierFacade} that is to be used for all transactions
      * in a batch. Each transaction is handled by a {@link TransactionApplierFacade} which wraps the
@@ -368,9 +477,18 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
      */
     protected BatchTransactionApplierFacade applier( TransactionApplicationMode mode )
     {
-        ArrayList<BatchTransactionApplier> appliers = new ArrayList<>();
         // Graph store application. The order of the decorated store appliers is irrelevant
-        appliers.add( new NeoStoreBatchTransactionApplier( neoStores, cacheAccess, lockService ) );
+        return new BatchTransactionApplierFacade(
+                ArrayUtil.concat( new NeoStoreBatchTransactionApplier( neoStores, cacheAccess, lockService ),
+                        decoratingAppliers( mode ) ) );
+    }
+
+    /**
+     * @return all appliers to be used for a batch of transactions, other than the graph store applier.
+     */
+    private BatchTransactionApplier[] decoratingAppliers( TransactionApplicationMode mode )
+    {
+        ArrayList<BatchTransactionApplier> appliers = new ArrayList<>();
         if ( mode.needsHighIdTracking() )
         {
             appliers.add( new HighIdBatchTransactionApplier( neoStores ) );
@@ -393,9 +511,7 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
         // Counts store application
         appliers.add( new CountsStoreBatchTransactionApplier( neoStores.getCounts(), mode ) );
 
-        // Perform the application
-        return new BatchTransactionApplierFacade(
-                appliers.toArray( new BatchTransactionApplier[appliers.size()] ) );
+        return appliers.toArray( new BatchTransactionApplier[appliers.size()] );
     }
 
     public void satisfyDependencies( DependencySatisfier satisfier )
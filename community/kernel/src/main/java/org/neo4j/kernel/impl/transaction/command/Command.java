@@ -21,6 +21,8 @@ package org.neo4j.kernel.impl.transaction.command;
 
 import java.io.IOException;
 import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
 
 import org.neo4j.helpers.collection.Iterables;
 import org.neo4j.kernel.impl.api.CommandVisitor;
@@ -45,7 +47,6 @@ import org.neo4j.storageengine.api.schema.SchemaRule;
 
 import static java.lang.String.format;
 import static org.neo4j.kernel.impl.util.Bits.bitFlag;
-import static org.neo4j.kernel.impl.util.Bits.bitFlags;
 import static org.neo4j.kernel.impl.util.IdPrettyPrinter.label;
 import static org.neo4j.kernel.impl.util.IdPrettyPrinter.relationshipType;
 
@@ -139,6 +140,16 @@ public abstract class Command implements StorageCommand
     void writeDynamicRecords( WritableChannel channel, Iterable<DynamicRecord> records, int size ) throws IOException
     {
         channel.putInt( size ); // 4
+        if ( records instanceof List && records instanceof RandomAccess )
+        {
+            // Walk by index to not allocate an iterator per record list on the commit path
+            List<DynamicRecord> list = (List<DynamicRecord>) records;
+            for ( int i = 0; i < size; i++ )
+            {
+                writeDynamicRecord( channel, list.get( i ) );
+            }
+            return;
+        }
         for ( DynamicRecord record : records )
         {
             writeDynamicRecord( channel, record );
@@ -226,9 +237,9 @@ public abstract class Command implements StorageCommand
 
         private boolean writeNodeRecord( WritableChannel channel, NodeRecord record ) throws IOException
         {
-            byte flags = bitFlags(  bitFlag( record.inUse(), Record.IN_USE.byteValue() ),
-                                    bitFlag( record.requiresSecondaryUnit(), Record.REQUIRE_SECONDARY_UNIT ),
-                                    bitFlag( record.hasSecondaryUnitId(), Record.HAS_SECONDARY_UNIT ) );
+            byte flags = (byte) (bitFlag( record.inUse(), Record.IN_USE.byteValue() ) |
+                                 bitFlag( record.requiresSecondaryUnit(), Record.REQUIRE_SECONDARY_UNIT ) |
+                                 bitFlag( record.hasSecondaryUnitId(), Record.HAS_SECONDARY_UNIT ));
             channel.put( flags );
             if ( record.inUse() )
             {
@@ -271,10 +282,10 @@ public abstract class Command implements StorageCommand
 
         private void writeRelationshipRecord( WritableChannel channel, RelationshipRecord record ) throws IOException
         {
-            byte flags = bitFlags( bitFlag( record.inUse(), Record.IN_USE.byteValue() ),
-                                   bitFlag( record.isCreated(), Record.CREATED_IN_TX ),
-                                   bitFlag( record.requiresSecondaryUnit(), Record.REQUIRE_SECONDARY_UNIT ),
-                                   bitFlag( record.hasSecondaryUnitId(), Record.HAS_SECONDARY_UNIT ));
+            byte flags = (byte) (bitFlag( record.inUse(), Record.IN_USE.byteValue() ) |
+                                 bitFlag( record.isCreated(), Record.CREATED_IN_TX ) |
+                                 bitFlag( record.requiresSecondaryUnit(), Record.REQUIRE_SECONDARY_UNIT ) |
+                                 bitFlag( record.hasSecondaryUnitId(), Record.HAS_SECONDARY_UNIT ));
             channel.put( flags );
             if ( record.inUse() )
             {
@@ -320,9 +331,9 @@ public abstract class Command implements StorageCommand
         private void writeRelationshipGroupRecord( WritableChannel channel, RelationshipGroupRecord record )
                 throws IOException
         {
-            byte flags = bitFlags( bitFlag( record.inUse(), Record.IN_USE.byteValue() ),
-                                   bitFlag( record.requiresSecondaryUnit(), Record.REQUIRE_SECONDARY_UNIT ),
-                                   bitFlag( record.hasSecondaryUnitId(), Record.HAS_SECONDARY_UNIT ) );
+            byte flags = (byte) (bitFlag( record.inUse(), Record.IN_USE.byteValue() ) |
+                                 bitFlag( record.requiresSecondaryUnit(), Record.REQUIRE_SECONDARY_UNIT ) |
+                                 bitFlag( record.hasSecondaryUnitId(), Record.HAS_SECONDARY_UNIT ));
             channel.put( flags );
             channel.putShort( (short) record.getType() );
             channel.putLong( record.getNext() );
@@ -398,10 +409,10 @@ public abstract class Command implements StorageCommand
 
         private void writePropertyRecord( WritableChannel channel, PropertyRecord record ) throws IOException
         {
-            byte flags = bitFlags( bitFlag( record.inUse(), Record.IN_USE.byteValue() ),
-                                   bitFlag( record.getRelId() != -1, Record.REL_PROPERTY.byteValue() ),
-                                   bitFlag( record.requiresSecondaryUnit(), Record.REQUIRE_SECONDARY_UNIT ),
-                                   bitFlag( record.hasSecondaryUnitId(), Record.HAS_SECONDARY_UNIT ) );
+            byte flags = (byte) (bitFlag( record.inUse(), Record.IN_USE.byteValue() ) |
+                                 bitFlag( record.getRelId() != -1, Record.REL_PROPERTY.byteValue() ) |
+                                 bitFlag( record.requiresSecondaryUnit(), Record.REQUIRE_SECONDARY_UNIT ) |
+                                 bitFlag( record.hasSecondaryUnitId(), Record.HAS_SECONDARY_UNIT ));
 
             channel.put( flags ); // 1
             channel.putLong( record.getNextProp() ).putLong( record.getPrevProp() ); // 8 + 8
@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.command;
+
+import java.io.IOException;
+
+import org.neo4j.helpers.collection.Visitor;
+import org.neo4j.kernel.impl.store.record.AbstractBaseRecord;
+import org.neo4j.kernel.impl.store.record.NodeRecord;
+import org.neo4j.kernel.impl.store.record.PropertyRecord;
+import org.neo4j.kernel.impl.store.record.RelationshipRecord;
+import org.neo4j.storageengine.api.CommandStream;
+import org.neo4j.storageengine.api.StorageCommand;
+import org.neo4j.unsafe.impl.internal.dragons.FeatureToggles;
+
+/**
+ * Source of the node, relationship and property records that {@link PhysicalLogCommandReaderV3_0_2} reads commands
+ * into. Records handed out are always {@link AbstractBaseRecord#clear() cleared}, just like newly created ones.
+ * <p>
+ * Readers are shared between threads, so released records are kept in bounded free lists local to the releasing
+ * thread. Only code that reads commands and is certain that nothing references them anymore after applying them,
+ * like recovery, may {@link #release(CommandStream) release} them. Everyone else simply never releases anything,
+ * in which case records are allocated as usual.
+ */
+public class CommandRecordPool
+{
+    private static final int DEFAULT_CAPACITY =
+            FeatureToggles.getInteger( CommandRecordPool.class, "capacity", 16_384 );
+
+    /** Pool that never keeps any records, everything it hands out is newly allocated. */
+    public static final CommandRecordPool NO_POOLING = new CommandRecordPool( 0 );
+
+    private final int capacity;
+    private final ThreadLocal<FreeLists> freeLists;
+    private final Visitor<StorageCommand,IOException> releaser = this::release;
+
+    public CommandRecordPool()
+    {
+        this( DEFAULT_CAPACITY );
+    }
+
+    /**
+     * @param capacity max number of records of each kind to keep, per thread.
+     */
+    public CommandRecordPool( int capacity )
+    {
+        this.capacity = capacity;
+        this.freeLists = ThreadLocal.withInitial( () -> new FreeLists( capacity ) );
+    }
+
+    public NodeRecord node( long id )
+    {
+        NodeRecord record = capacity == 0 ? null : freeLists.get().nodes.pop();
+        return record == null ? new NodeRecord( id ) : reuse( record, id );
+    }
+
+    public RelationshipRecord relationship( long id )
+    {
+        RelationshipRecord record = capacity == 0 ? null : freeLists.get().relationships.pop();
+        return record == null ? new RelationshipRecord( id ) : reuse( record, id );
+    }
+
+    public PropertyRecord property( long id )
+    {
+        PropertyRecord record = capacity == 0 ? null : freeLists.get().properties.pop();
+        return record == null ? new PropertyRecord( id ) : reuse( record, id );
+    }
+
+    /**
+     * Hands the records of all node, relationship and property commands in {@code commands} back to this pool.
+     * Neither the commands nor their records may be used after this call.
+     *
+     * @param commands commands which records to release.
+     * @throws IOException if visiting the commands fails.
+     */
+    public void release( CommandStream commands ) throws IOException
+    {
+        if ( capacity > 0 )
+        {
+            commands.accept( releaser );
+        }
+    }
+
+    private boolean release( StorageCommand command )
+    {
+        FreeLists lists = freeLists.get();
+        if ( command instanceof Command.NodeCommand )
+        {
+            Command.NodeCommand nodeCommand = (Command.NodeCommand) command;
+            lists.nodes.push( nodeCommand.getBefore() );
+            lists.nodes.push( nodeCommand.getAfter() );
+        }
+        else if ( command instanceof Command.RelationshipCommand )
+        {
+            Command.RelationshipCommand relationshipCommand = (Command.RelationshipCommand) command;
+            lists.relationships.push( relationshipCommand.getBefore() );
+            lists.relationships.push( relationshipCommand.getAfter() );
+        }
+        else if ( command instanceof Command.PropertyCommand )
+        {
+            Command.PropertyCommand propertyCommand = (Command.PropertyCommand) command;
+            lists.properties.push( propertyCommand.getBefore() );
+            lists.properties.push( propertyCommand.getAfter() );
+        }
+        return false;
+    }
+
+    private static <RECORD extends AbstractBaseRecord> RECORD reuse( RECORD record, long id )
+    {
+        // Already cleared when released
+        record.setId( id );
+        return record;
+    }
+
+    private static class FreeLists
+    {
+        private final RecordStack<NodeRecord> nodes;
+        private final RecordStack<RelationshipRecord> relationships;
+        private final RecordStack<PropertyRecord> properties;
+
+        FreeLists( int capacity )
+        {
+            nodes = new RecordStack<>( capacity );
+            relationships = new RecordStack<>( capacity );
+            properties = new RecordStack<>( capacity );
+        }
+    }
+
+    private static class RecordStack<RECORD extends AbstractBaseRecord>
+    {
+        private final int capacity;
+        private Object[] records = new Object[16];
+        private int size;
+
+        RecordStack( int capacity )
+        {
+            this.capacity = capacity;
+        }
+
+        void push( RECORD record )
+        {
+            if ( size == capacity )
+            {
+                return;
+            }
+            if ( size == records.length )
+            {
+                Object[] grown = new Object[Math.min( capacity, records.length * 2 )];
+                System.arraycopy( records, 0, grown, 0, size );
+                records = grown;
+            }
+            // Cleared right away, rather than when reused, to let go of dynamic label and deleted property records early
+            record.clear();
+            records[size++] = record;
+        }
+
+        @SuppressWarnings( "unchecked" )
+        RECORD pop()
+        {
+            if ( size == 0 )
+            {
+                return null;
+            }
+            RECORD record = (RECORD) records[--size];
+            records[size] = null;
+            return record;
+        }
+    }
+}
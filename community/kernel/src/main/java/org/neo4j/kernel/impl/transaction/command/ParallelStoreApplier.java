@@ -0,0 +1,483 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.command;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+
+import org.neo4j.collection.primitive.Primitive;
+import org.neo4j.collection.primitive.PrimitiveLongCollections;
+import org.neo4j.collection.primitive.PrimitiveLongIntMap;
+import org.neo4j.collection.primitive.PrimitiveLongIterator;
+import org.neo4j.collection.primitive.PrimitiveLongSet;
+import org.neo4j.kernel.impl.api.TransactionApplier;
+import org.neo4j.kernel.impl.locking.LockGroup;
+import org.neo4j.kernel.impl.locking.LockService;
+import org.neo4j.kernel.impl.store.NeoStores;
+import org.neo4j.kernel.impl.store.PropertyType;
+import org.neo4j.kernel.impl.store.record.DynamicRecord;
+import org.neo4j.kernel.impl.store.record.NodeRecord;
+import org.neo4j.kernel.impl.store.record.PropertyBlock;
+import org.neo4j.kernel.impl.store.record.PropertyRecord;
+import org.neo4j.storageengine.api.CommandsToApply;
+import org.neo4j.storageengine.api.StorageCommand;
+
+import static org.neo4j.kernel.impl.store.NodeLabelsField.fieldPointsToDynamicRecordOfLabels;
+
+/**
+ * Applies the record changes of consecutive transactions in a batch to the {@link NeoStores} using multiple threads.
+ * <p>
+ * Transactions are {@link #add(CommandsToApply) added} to a segment, where their node, relationship, property and
+ * relationship group commands are partitioned by the page of the record they change. The commands of a partition
+ * are applied by a single thread, in the order of the transactions they came from. Changes to any one record
+ * therefore happen in commit order, while changes to records in different partitions happen in parallel. Records on
+ * the same page always end up in the same partition, so threads don't compete for page write locks either.
+ * <p>
+ * Nothing else of the transactions is applied here. Index, label scan, counts store and the other updates are applied
+ * once the records of the whole segment have been written, one transaction at a time and in order. A transaction is
+ * not added, and the segment has to be applied before it, if:
+ * <ul>
+ * <li>it contains commands the store applier has to do more for than writing a record, like token, schema or neo
+ * store commands. Such a transaction is applied on its own, the regular way.</li>
+ * <li>it changes properties or labels of a node whose properties or labels were changed by an earlier transaction
+ * in the segment. Index updates of such a change are partly derived from the store, which must only reflect the
+ * transaction the index updates are derived for.</li>
+ * <li>it writes a dynamic record written by an earlier transaction in the segment from another partition. That can
+ * happen if a freed dynamic record is reused right away by another property or node.</li>
+ * </ul>
+ */
+public class ParallelStoreApplier
+{
+    private static final int LABELS = 0;
+    private static final int STRINGS = 1;
+    private static final int ARRAYS = 2;
+    private static final int NODES = 3;
+    private static final int RELATIONSHIPS = 4;
+    private static final int PROPERTIES = 5;
+    private static final int RELATIONSHIP_GROUPS = 6;
+
+    private final NeoStores neoStores;
+    private final Executor executor;
+    private final int[] recordsPerPage = new int[RELATIONSHIP_GROUPS + 1];
+    private final List<Command>[] partitions;
+
+    // State of the current segment
+    private final List<CommandsToApply> transactions = new ArrayList<>();
+    private final PrimitiveLongSet indexedNodes = Primitive.longSet();
+    private final PrimitiveLongIntMap dynamicRecordPartitions = Primitive.longIntMap();
+    private final PrimitiveLongSet lockedNodes = Primitive.longSet();
+    private final PrimitiveLongSet lockedRelationships = Primitive.longSet();
+
+    // State of the transaction currently being added
+    private final List<Command> commands = new ArrayList<>();
+    private final PrimitiveLongSet transactionIndexedNodes = Primitive.longSet();
+    private final PrimitiveLongIntMap transactionDynamicRecordPartitions = Primitive.longIntMap();
+
+    @SuppressWarnings( "unchecked" )
+    public ParallelStoreApplier( NeoStores neoStores, Executor executor, int parallelism )
+    {
+        this.neoStores = neoStores;
+        this.executor = executor;
+        this.partitions = new List[parallelism];
+        for ( int i = 0; i < parallelism; i++ )
+        {
+            partitions[i] = new ArrayList<>();
+        }
+        recordsPerPage[NODES] = neoStores.getNodeStore().getRecordsPerPage();
+        recordsPerPage[RELATIONSHIPS] = neoStores.getRelationshipStore().getRecordsPerPage();
+        recordsPerPage[PROPERTIES] = neoStores.getPropertyStore().getRecordsPerPage();
+        recordsPerPage[RELATIONSHIP_GROUPS] = neoStores.getRelationshipGroupStore().getRecordsPerPage();
+    }
+
+    /**
+     * Adds the record commands of the given transaction to the current segment.
+     *
+     * @param transaction transaction following the last one added to this segment.
+     * @return {@code true} if the transaction was added, or {@code false} if it cannot be applied together with the
+     * transactions already in this segment. If so, the segment should be applied before the transaction is added
+     * again. If the segment was empty, the transaction cannot be applied in parallel at all.
+     * @throws IOException if the commands of the transaction could not be read.
+     */
+    public boolean add( CommandsToApply transaction ) throws IOException
+    {
+        commands.clear();
+        transactionIndexedNodes.clear();
+        transactionDynamicRecordPartitions.clear();
+        boolean[] parallelizable = {true};
+        transaction.accept( command ->
+        {
+            if ( !(command instanceof Command) || !check( (Command) command ) )
+            {
+                parallelizable[0] = false;
+                return true;
+            }
+            return false;
+        } );
+        if ( !parallelizable[0] )
+        {
+            return false;
+        }
+
+        for ( Command command : commands )
+        {
+            partitions[partitionOf( command )].add( command );
+            lock( command );
+        }
+        PrimitiveLongIterator nodes = transactionIndexedNodes.iterator();
+        while ( nodes.hasNext() )
+        {
+            indexedNodes.add( nodes.next() );
+        }
+        transactionDynamicRecordPartitions.visitEntries( ( key, partition ) ->
+        {
+            dynamicRecordPartitions.put( key, partition );
+            return false;
+        } );
+        transactions.add( transaction );
+        return true;
+    }
+
+    /**
+     * @return the transactions in the current segment, in the order they were added.
+     */
+    public List<CommandsToApply> transactions()
+    {
+        return transactions;
+    }
+
+    public boolean isEmpty()
+    {
+        return transactions.isEmpty();
+    }
+
+    /**
+     * Writes the records of all transactions in the current segment and waits for all of them to be written.
+     * The segment is left as it is, {@link #clear() clear} it once the rest of its transactions have been applied.
+     *
+     * @param lockService service for locking the nodes and relationships that get changed.
+     * @param lockGroup receives the entity locks, which have to be held until the segment has been fully applied.
+     * @throws Exception if any of the records could not be written.
+     */
+    public void apply( LockService lockService, LockGroup lockGroup ) throws Exception
+    {
+        acquireLocks( lockService, lockGroup );
+
+        List<CompletableFuture<Void>> applications = new ArrayList<>( partitions.length );
+        List<Command> local = null;
+        for ( List<Command> partition : partitions )
+        {
+            if ( partition.isEmpty() )
+            {
+                continue;
+            }
+            if ( local == null )
+            {
+                // Apply one of the partitions in this thread, it would only be waiting otherwise
+                local = partition;
+            }
+            else
+            {
+                applications.add( CompletableFuture.runAsync( () -> applyPartition( partition ), executor ) );
+            }
+        }
+
+        Throwable failure = null;
+        try
+        {
+            if ( local != null )
+            {
+                applyPartition( local );
+            }
+        }
+        catch ( Throwable e )
+        {
+            failure = e;
+        }
+        for ( CompletableFuture<Void> application : applications )
+        {
+            try
+            {
+                application.get();
+            }
+            catch ( ExecutionException e )
+            {
+                failure = chain( failure, e.getCause() );
+            }
+        }
+        if ( failure != null )
+        {
+            throw new IOException( "Failed to apply transactions " + transactions.get( 0 ).transactionId() + "-" +
+                    transactions.get( transactions.size() - 1 ).transactionId() + " to the store", failure );
+        }
+    }
+
+    public void clear()
+    {
+        transactions.clear();
+        indexedNodes.clear();
+        dynamicRecordPartitions.clear();
+        lockedNodes.clear();
+        lockedRelationships.clear();
+        for ( List<Command> partition : partitions )
+        {
+            partition.clear();
+        }
+    }
+
+    private boolean check( Command command )
+    {
+        if ( command instanceof Command.NodeCommand )
+        {
+            Command.NodeCommand nodeCommand = (Command.NodeCommand) command;
+            if ( changesLabels( nodeCommand.getBefore(), nodeCommand.getAfter() ) &&
+                 !checkIndexedNode( nodeCommand.getKey() ) )
+            {
+                return false;
+            }
+            int partition = partitionOf( command );
+            for ( DynamicRecord record : nodeCommand.getAfter().getDynamicLabelRecords() )
+            {
+                if ( !checkDynamicRecord( LABELS, record, partition ) )
+                {
+                    return false;
+                }
+            }
+        }
+        else if ( command instanceof Command.PropertyCommand )
+        {
+            Command.PropertyCommand propertyCommand = (Command.PropertyCommand) command;
+            if ( propertyCommand.getNodeId() != -1 && !checkIndexedNode( propertyCommand.getNodeId() ) )
+            {
+                return false;
+            }
+            int partition = partitionOf( command );
+            PropertyRecord record = propertyCommand.getAfter();
+            for ( PropertyBlock block : record )
+            {
+                if ( !block.isLight() && !checkDynamicRecords( block.getValueRecords(), partition ) )
+                {
+                    return false;
+                }
+            }
+            if ( !checkDynamicRecords( record.getDeletedRecords(), partition ) )
+            {
+                return false;
+            }
+        }
+        else if ( !(command instanceof Command.RelationshipCommand ||
+                    command instanceof Command.RelationshipGroupCommand) )
+        {
+            // Commands not touching the neo stores don't matter here, but they also don't get to the store applier
+            return !storeApplierCares( command );
+        }
+        commands.add( command );
+        return true;
+    }
+
+    private static boolean storeApplierCares( Command command )
+    {
+        return command instanceof Command.TokenCommand || command instanceof Command.SchemaRuleCommand ||
+               command instanceof Command.NeoStoreCommand;
+    }
+
+    private static boolean changesLabels( NodeRecord before, NodeRecord after )
+    {
+        return before.inUse() != after.inUse() || before.getLabelField() != after.getLabelField() ||
+               fieldPointsToDynamicRecordOfLabels( after.getLabelField() );
+    }
+
+    private boolean checkIndexedNode( long nodeId )
+    {
+        if ( indexedNodes.contains( nodeId ) )
+        {
+            return false;
+        }
+        transactionIndexedNodes.add( nodeId );
+        return true;
+    }
+
+    private boolean checkDynamicRecords( List<DynamicRecord> records, int partition )
+    {
+        for ( DynamicRecord record : records )
+        {
+            int kind = record.getType() == PropertyType.STRING.intValue() ? STRINGS : ARRAYS;
+            if ( !checkDynamicRecord( kind, record, partition ) )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean checkDynamicRecord( int kind, DynamicRecord record, int partition )
+    {
+        long key = ((long) kind << 60) | record.getId();
+        if ( dynamicRecordPartitions.containsKey( key ) && dynamicRecordPartitions.get( key ) != partition ||
+             transactionDynamicRecordPartitions.containsKey( key ) &&
+             transactionDynamicRecordPartitions.get( key ) != partition )
+        {
+            return false;
+        }
+        transactionDynamicRecordPartitions.put( key, partition );
+        return true;
+    }
+
+    private int partitionOf( Command command )
+    {
+        int kind;
+        if ( command instanceof Command.NodeCommand )
+        {
+            kind = NODES;
+        }
+        else if ( command instanceof Command.RelationshipCommand )
+        {
+            kind = RELATIONSHIPS;
+        }
+        else if ( command instanceof Command.PropertyCommand )
+        {
+            kind = PROPERTIES;
+        }
+        else
+        {
+            kind = RELATIONSHIP_GROUPS;
+        }
+        long pageId = ((Command.BaseCommand<?>) command).getKey() / recordsPerPage[kind];
+        long hash = (pageId * 31 + kind) * 0x9E3779B97F4A7C15L;
+        return (int) Long.remainderUnsigned( hash >>> 16, partitions.length );
+    }
+
+    private void lock( Command command )
+    {
+        if ( command instanceof Command.NodeCommand )
+        {
+            lockedNodes.add( ((Command.NodeCommand) command).getKey() );
+        }
+        else if ( command instanceof Command.RelationshipCommand )
+        {
+            lockedRelationships.add( ((Command.RelationshipCommand) command).getKey() );
+        }
+        else if ( command instanceof Command.PropertyCommand )
+        {
+            Command.PropertyCommand propertyCommand = (Command.PropertyCommand) command;
+            if ( propertyCommand.getNodeId() != -1 )
+            {
+                lockedNodes.add( propertyCommand.getNodeId() );
+            }
+            else if ( propertyCommand.getRelId() != -1 )
+            {
+                lockedRelationships.add( propertyCommand.getRelId() );
+            }
+        }
+    }
+
+    private void acquireLocks( LockService lockService, LockGroup lockGroup )
+    {
+        // Lock in id order, like the serial applier does by following the sorted commands, so that we can't
+        // deadlock with other appliers or with each other's segments.
+        for ( long nodeId : sortedIds( lockedNodes ) )
+        {
+            lockGroup.add( lockService.acquireNodeLock( nodeId, LockService.LockType.WRITE_LOCK ) );
+        }
+        for ( long relationshipId : sortedIds( lockedRelationships ) )
+        {
+            lockGroup.add( lockService.acquireRelationshipLock( relationshipId, LockService.LockType.WRITE_LOCK ) );
+        }
+    }
+
+    private static long[] sortedIds( PrimitiveLongSet ids )
+    {
+        long[] sorted = PrimitiveLongCollections.asArray( ids.iterator() );
+        Arrays.sort( sorted );
+        return sorted;
+    }
+
+    private void applyPartition( List<Command> commands )
+    {
+        try
+        {
+            TransactionApplier applier = new RecordApplier( neoStores );
+            for ( Command command : commands )
+            {
+                command.handle( applier );
+            }
+        }
+        catch ( IOException e )
+        {
+            throw new UncheckedIOException( e );
+        }
+    }
+
+    private static Throwable chain( Throwable first, Throwable next )
+    {
+        if ( first == null )
+        {
+            return next;
+        }
+        first.addSuppressed( next );
+        return first;
+    }
+
+    /**
+     * Writes records, the locks for them have already been taken for the whole segment.
+     */
+    private static class RecordApplier extends TransactionApplier.Adapter
+    {
+        private final NeoStores neoStores;
+
+        RecordApplier( NeoStores neoStores )
+        {
+            this.neoStores = neoStores;
+        }
+
+        @Override
+        public boolean visitNodeCommand( Command.NodeCommand command )
+        {
+            neoStores.getNodeStore().updateRecord( command.getAfter() );
+            return false;
+        }
+
+        @Override
+        public boolean visitRelationshipCommand( Command.RelationshipCommand command )
+        {
+            neoStores.getRelationshipStore().updateRecord( command.getAfter() );
+            return false;
+        }
+
+        @Override
+        public boolean visitPropertyCommand( Command.PropertyCommand command )
+        {
+            neoStores.getPropertyStore().updateRecord( command.getAfter() );
+            return false;
+        }
+
+        @Override
+        public boolean visitRelationshipGroupCommand( Command.RelationshipGroupCommand command )
+        {
+            neoStores.getRelationshipGroupStore().updateRecord( command.getAfter() );
+            return false;
+        }
+    }
+}
@@ -53,6 +53,7 @@ import org.neo4j.kernel.impl.transaction.command.CommandReading.DynamicRecordAdd
 import org.neo4j.storageengine.api.ReadableChannel;
 import org.neo4j.storageengine.api.schema.SchemaRule;
 
+import static java.util.Collections.emptyList;
 import static org.neo4j.kernel.impl.transaction.command.CommandReading.COLLECTION_DYNAMIC_RECORD_ADDER;
 import static org.neo4j.kernel.impl.transaction.command.CommandReading.PROPERTY_BLOCK_DYNAMIC_RECORD_ADDER;
 import static org.neo4j.kernel.impl.transaction.command.CommandReading.PROPERTY_DELETED_DYNAMIC_RECORD_ADDER;
@@ -65,6 +66,18 @@ import static org.neo4j.kernel.impl.util.IoPrimitiveUtils.shortToUnsignedInt;
 
 public class PhysicalLogCommandReaderV3_0_2 extends BaseCommandReader
 {
+    private final CommandRecordPool recordPool;
+
+    public PhysicalLogCommandReaderV3_0_2()
+    {
+        this( CommandRecordPool.NO_POOLING );
+    }
+
+    public PhysicalLogCommandReaderV3_0_2( CommandRecordPool recordPool )
+    {
+        this.recordPool = recordPool;
+    }
+
     @Override
     protected Command read( byte commandType, ReadableChannel channel ) throws IOException
     {
@@ -405,13 +418,14 @@ public class PhysicalLogCommandReaderV3_0_2 extends BaseCommandReader
         boolean requiresSecondaryUnit = bitFlag( flags, Record.REQUIRE_SECONDARY_UNIT );
         boolean hasSecondaryUnit = bitFlag( flags, Record.HAS_SECONDARY_UNIT );
 
-        NodeRecord record;
-        Collection<DynamicRecord> dynamicLabelRecords = new ArrayList<>();
+        NodeRecord record = recordPool.node( id );
         long labelField = Record.NO_LABELS_FIELD.intValue();
         if ( inUse )
         {
             boolean dense = channel.get() == 1;
-            record = new NodeRecord( id, dense, channel.getLong(), channel.getLong() );
+            long nextRel = channel.getLong();
+            long nextProp = channel.getLong();
+            record.initialize( false, nextProp, dense, nextRel, 0 );
             // labels
             labelField = channel.getLong();
             record.setRequiresSecondaryUnit( requiresSecondaryUnit );
@@ -420,11 +434,7 @@ public class PhysicalLogCommandReaderV3_0_2 extends BaseCommandReader
                 record.setSecondaryUnitId( channel.getLong() );
             }
         }
-        else
-        {
-            record = new NodeRecord( id );
-        }
-        readDynamicRecords( channel, dynamicLabelRecords, COLLECTION_DYNAMIC_RECORD_ADDER );
+        Collection<DynamicRecord> dynamicLabelRecords = readDynamicLabelRecords( channel );
         record.setLabelField( labelField, dynamicLabelRecords );
         record.setInUse( inUse );
         return record;
@@ -436,10 +446,10 @@ public class PhysicalLogCommandReaderV3_0_2 extends BaseCommandReader
         boolean inUse = bitFlag( flags, Record.IN_USE.byteValue() );
         boolean requiresSecondaryUnit = bitFlag( flags, Record.REQUIRE_SECONDARY_UNIT );
         boolean hasSecondaryUnit = bitFlag( flags, Record.HAS_SECONDARY_UNIT );
-        RelationshipRecord record;
+        RelationshipRecord record = recordPool.relationship( id );
         if ( inUse )
         {
-            record = new RelationshipRecord( id, channel.getLong(), channel.getLong(), channel.getInt() );
+            record.setLinks( channel.getLong(), channel.getLong(), channel.getInt() );
             record.setInUse( true );
             record.setRequiresSecondaryUnit( requiresSecondaryUnit );
             record.setFirstPrevRel( channel.getLong() );
@@ -457,7 +467,7 @@ public class PhysicalLogCommandReaderV3_0_2 extends BaseCommandReader
         }
         else
         {
-            record = new RelationshipRecord( id, -1, -1, channel.getInt() );
+            record.setLinks( -1, -1, channel.getInt() );
             record.setInUse( false );
         }
         if ( bitFlag( flags, Record.CREATED_IN_TX ) )
@@ -496,6 +506,23 @@ public class PhysicalLogCommandReaderV3_0_2 extends BaseCommandReader
         return record;
     }
 
+    private Collection<DynamicRecord> readDynamicLabelRecords( ReadableChannel channel ) throws IOException
+    {
+        int numberOfRecords = channel.getInt();
+        assert numberOfRecords >= 0;
+        if ( numberOfRecords == 0 )
+        {
+            // By far the most common case, so don't allocate a list for it
+            return emptyList();
+        }
+        Collection<DynamicRecord> records = new ArrayList<>( numberOfRecords );
+        while ( numberOfRecords-- > 0 )
+        {
+            records.add( readDynamicRecord( channel ) );
+        }
+        return records;
+    }
+
     private <T> int readDynamicRecords( ReadableChannel channel, T target, DynamicRecordAdder<T> adder )
             throws IOException
     {
@@ -518,7 +545,7 @@ public class PhysicalLogCommandReaderV3_0_2 extends BaseCommandReader
     {
         // in_use(byte)+type(int)+key_indexId(int)+prop_blockId(long)+
         // prev_prop_id(long)+next_prop_id(long)
-        PropertyRecord record = new PropertyRecord( id );
+        PropertyRecord record = recordPool.property( id );
         byte flags = channel.get(); // 1
 
         boolean inUse = bitFlag( flags, Record.IN_USE.byteValue() );
@@ -22,6 +22,8 @@ package org.neo4j.kernel.impl.transaction.log;
 import java.io.Flushable;
 import java.io.IOException;
 import java.nio.channels.ClosedChannelException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.Lock;
@@ -39,8 +41,10 @@ import org.neo4j.kernel.impl.transaction.tracing.LogForceEvents;
 import org.neo4j.kernel.impl.transaction.tracing.LogForceWaitEvent;
 import org.neo4j.kernel.impl.transaction.tracing.SerializeTransactionEvent;
 import org.neo4j.kernel.impl.util.IdOrderingQueue;
+import org.neo4j.kernel.impl.util.JobScheduler;
 import org.neo4j.kernel.internal.DatabaseHealth;
 import org.neo4j.kernel.lifecycle.LifecycleAdapter;
+import org.neo4j.unsafe.impl.internal.dragons.FeatureToggles;
 
 import static org.neo4j.kernel.impl.api.TransactionToApply.TRANSACTION_ID_NOT_SPECIFIED;
 import static org.neo4j.kernel.impl.transaction.log.entry.LogEntryStart.checksum;
@@ -48,9 +52,33 @@ import static org.neo4j.kernel.impl.transaction.log.entry.LogEntryStart.checksum
 /**
  * Concurrently appends transactions to the transaction log, while coordinating with the log rotation and forcing the
  * log file in batches for higher throughput in a concurrent scenario.
+ * <p>
+ * Committing is pipelined: the committing threads serialize the commands of their transactions concurrently, one
+ * thread at a time copies the serialized transactions into the log, and a dedicated forcer thread forces the log on
+ * behalf of all the transactions that were appended since its last force.
  */
 public class BatchingTransactionAppender extends LifecycleAdapter implements TransactionAppender
 {
+    /**
+     * Whether or not to force the log in a dedicated thread. Otherwise one of the committing threads does the force on
+     * behalf of the others.
+     */
+    private static final boolean dedicatedForcer =
+            FeatureToggles.flag( BatchingTransactionAppender.class, "dedicatedForcer", true );
+
+    /**
+     * The longest time the forcer will wait for more committers to join a force.
+     */
+    static final long maxForceWindowNanos = TimeUnit.MICROSECONDS.toNanos(
+            FeatureToggles.getLong( BatchingTransactionAppender.class, "maxForceWindowMicros", 500 ) );
+
+    /**
+     * The number of command buffers each committing thread keeps around for its next batch. Larger batches allocate
+     * the buffers they need beyond this, and let go of them once appended.
+     */
+    private static final int maxRetainedCommandBuffers =
+            FeatureToggles.getInteger( BatchingTransactionAppender.class, "maxRetainedCommandBuffers", 4 );
+
     // For the graph store and schema indexes order-of-updates are managed by the high level entity locks
     // such that changes are applied to the affected records in the same order that they are written to the
     // log. For the legacy indexes there are no such locks, and hence no such ordering. This queue below
@@ -65,15 +93,36 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
     private final LogPositionMarker positionMarker = new LogPositionMarker();
     private final DatabaseHealth databaseHealth;
     private final Lock forceLock = new ReentrantLock();
+    private final ThreadLocal<List<TransactionLogBuffer>> commandBuffers = ThreadLocal.withInitial( ArrayList::new );
+
+    private final JobScheduler scheduler;
 
     private FlushablePositionAwareChannel writer;
     private TransactionLogWriter transactionLogWriter;
-    private IndexCommandDetector indexCommandDetector;
+    private volatile boolean forcerRunning;
+    private volatile Thread forcer;
+
+    // Guarded by the forceLock
+    private long averageForceNanos;
+    private int lastForceBatchSize;
 
     public BatchingTransactionAppender( LogFile logFile, LogRotation logRotation,
             TransactionMetadataCache transactionMetadataCache, TransactionIdStore transactionIdStore,
             IdOrderingQueue legacyIndexTransactionOrdering, DatabaseHealth databaseHealth )
     {
+        this( logFile, logRotation, transactionMetadataCache, transactionIdStore, legacyIndexTransactionOrdering,
+                databaseHealth, null );
+    }
+
+    /**
+     * @param scheduler the scheduler to run the dedicated forcer on, or {@code null} to have the committing threads
+     * force the log on behalf of each other.
+     */
+    public BatchingTransactionAppender( LogFile logFile, LogRotation logRotation,
+            TransactionMetadataCache transactionMetadataCache, TransactionIdStore transactionIdStore,
+            IdOrderingQueue legacyIndexTransactionOrdering, DatabaseHealth databaseHealth, JobScheduler scheduler )
+    {
+        this.scheduler = scheduler;
         this.logFile = logFile;
         this.logRotation = logRotation;
         this.transactionIdStore = transactionIdStore;
@@ -86,8 +135,28 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
     public void start() throws Throwable
     {
         this.writer = logFile.getWriter();
-        this.indexCommandDetector = new IndexCommandDetector();
         this.transactionLogWriter = new TransactionLogWriter( new LogEntryWriter( writer ) );
+        if ( dedicatedForcer && scheduler != null )
+        {
+            forcerRunning = true;
+            Thread thread = scheduler.threadFactory( JobScheduler.Groups.transactionLogForce )
+                    .newThread( this::forceContinuously );
+            forcer = thread;
+            thread.start();
+        }
+    }
+
+    @Override
+    public void stop() throws Throwable
+    {
+        Thread thread = forcer;
+        if ( thread != null )
+        {
+            // Committers that come after this will force the log themselves
+            forcerRunning = false;
+            LockSupport.unpark( thread );
+            thread.join();
+        }
     }
 
     @Override
@@ -100,32 +169,54 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
 
         // Assigned base tx id just to make compiler happy
         long lastTransactionId = TransactionIdStore.BASE_TX_ID;
-        // Synchronized with logFile to get absolute control over concurrent rotations happening
-        synchronized ( logFile )
+        List<TransactionLogBuffer> serializedCommands = commandBuffers.get();
+        try
         {
-            // Assert that kernel is healthy before making any changes
-            databaseHealth.assertHealthy( IOException.class );
-            try ( SerializeTransactionEvent serialiseEvent = logAppendEvent.beginSerializeTransaction() )
+            // Serialize the commands before taking the logFile monitor, concurrently with other committers.
+            // Only the transaction ids and the start and commit entries are left to be written under the monitor.
+            serializeCommands( batch, serializedCommands );
+
+            // Synchronized with logFile to get absolute control over concurrent rotations happening
+            synchronized ( logFile )
             {
-                // Append all transactions in this batch to the log under the same logFile monitor
-                TransactionToApply tx = batch;
-                while ( tx != null )
+                // Assert that kernel is healthy before making any changes
+                databaseHealth.assertHealthy( IOException.class );
+                try ( SerializeTransactionEvent serialiseEvent = logAppendEvent.beginSerializeTransaction() )
                 {
-                    long transactionId = transactionIdStore.nextCommittingTransactionId();
-
-                    // If we're in a scenario where we're merely replicating transactions, i.e. transaction
-                    // id have already been generated by another entity we simply check that our id
-                    // that we generated match that id. If it doesn't we've run into a problem we can't ´
-                    // really recover from and would point to a bug somewhere.
-                    matchAgainstExpectedTransactionIdIfAny( transactionId, tx );
-
-                    TransactionCommitment commitment = appendToLog( tx.transactionRepresentation(), transactionId );
-                    tx.commitment( commitment, transactionId );
-                    tx = tx.next();
-                    lastTransactionId = transactionId;
+                    // Append all transactions in this batch to the log under the same logFile monitor
+                    TransactionToApply tx = batch;
+                    int index = 0;
+                    while ( tx != null )
+                    {
+                        long transactionId = transactionIdStore.nextCommittingTransactionId();
+
+                        // If we're in a scenario where we're merely replicating transactions, i.e. transaction
+                        // id have already been generated by another entity we simply check that our id
+                        // that we generated match that id. If it doesn't we've run into a problem we can't ´
+                        // really recover from and would point to a bug somewhere.
+                        matchAgainstExpectedTransactionIdIfAny( transactionId, tx );
+
+                        TransactionCommitment commitment = appendToLog( tx.transactionRepresentation(),
+                                serializedCommands.get( index++ ), transactionId );
+                        tx.commitment( commitment, transactionId );
+                        tx = tx.next();
+                        lastTransactionId = transactionId;
+                    }
                 }
             }
         }
+        finally
+        {
+            int buffers = serializedCommands.size();
+            if ( buffers > maxRetainedCommandBuffers )
+            {
+                serializedCommands.subList( maxRetainedCommandBuffers, buffers ).clear();
+            }
+            for ( TransactionLogBuffer buffer : serializedCommands )
+            {
+                buffer.clear();
+            }
+        }
 
         // At this point we've appended all transactions in this batch, but we can't mark any of them
         // as committed since they haven't been forced to disk yet. So here we force, or potentially
@@ -156,6 +247,19 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
         }
     }
 
+    private void serializeCommands( TransactionToApply batch, List<TransactionLogBuffer> buffers ) throws IOException
+    {
+        int index = 0;
+        for ( TransactionToApply tx = batch; tx != null; tx = tx.next(), index++ )
+        {
+            if ( index == buffers.size() )
+            {
+                buffers.add( new TransactionLogBuffer() );
+            }
+            buffers.get( index ).serialize( tx.transactionRepresentation() );
+        }
+    }
+
     private void publishAsCommitted( TransactionToApply batch )
     {
         while ( batch != null )
@@ -189,13 +293,9 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
      * @return A TransactionCommitment instance with metadata about the committed transaction, such as whether or not
      * this transaction contains any legacy index changes.
      */
-    private TransactionCommitment appendToLog( TransactionRepresentation transaction, long transactionId )
-            throws IOException
+    private TransactionCommitment appendToLog( TransactionRepresentation transaction,
+            TransactionLogBuffer serializedCommands, long transactionId ) throws IOException
     {
-        // Reset command writer so that we, after we've written the transaction, can ask it whether or
-        // not any legacy index command was written. If so then there's additional ordering to care about below.
-        indexCommandDetector.reset();
-
         // The outcome of this try block is either of:
         // a) transaction successfully appended, at which point we return a Commitment to be used after force
         // b) transaction failed to be appended, at which point a kernel panic is issued
@@ -205,7 +305,7 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
         try
         {
             LogPosition logPositionBeforeCommit = writer.getCurrentPosition( positionMarker ).newPosition();
-            transactionLogWriter.append( transaction, transactionId );
+            transactionLogWriter.append( transaction, serializedCommands, transactionId );
             LogPosition logPositionAfterCommit = writer.getCurrentPosition( positionMarker ).newPosition();
 
             long transactionChecksum =
@@ -214,8 +314,7 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
                     .cacheTransactionMetadata( transactionId, logPositionBeforeCommit, transaction.getMasterId(),
                             transaction.getAuthorId(), transactionChecksum, transaction.getTimeCommitted() );
 
-            transaction.accept( indexCommandDetector );
-            boolean hasLegacyIndexChanges = indexCommandDetector.hasWrittenAnyLegacyIndexCommand();
+            boolean hasLegacyIndexChanges = serializedCommands.hasLegacyIndexChanges();
             if ( hasLegacyIndexChanges )
             {
                 // Offer this transaction id to the queue so that the legacy index applier can take part in the ordering
@@ -248,7 +347,14 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
         {
             do
             {
-                if ( forceLock.tryLock() )
+                Thread forcer = this.forcer;
+                if ( forcer != null )
+                {
+                    // Let the forcer know that there is work to do, and wait for it to get done
+                    LockSupport.unpark( forcer );
+                    waitForLogForce();
+                }
+                else if ( forceLock.tryLock() )
                 {
                     attemptedForce = true;
                     try
@@ -280,33 +386,115 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
             // explicitly check if everything is OK before considering this transaction committed.
             if ( !attemptedForce )
             {
+                if ( threadLink.failure instanceof IOException )
+                {
+                    throw (IOException) threadLink.failure;
+                }
                 databaseHealth.assertHealthy( IOException.class );
             }
         }
     }
 
+    /**
+     * Run by the dedicated forcer thread, which forces the log whenever there are committers waiting for it.
+     */
+    private void forceContinuously()
+    {
+        try
+        {
+            boolean running = true;
+            while ( running )
+            {
+                // Do a final force for anyone who got in before we were stopped
+                running = forcerRunning;
+                if ( threadLinkHead.get() == ThreadLink.END )
+                {
+                    if ( running )
+                    {
+                        LockSupport.parkNanos( this, TimeUnit.MILLISECONDS.toNanos( 100 ) );
+                    }
+                    continue;
+                }
+
+                forceLock.lock();
+                try
+                {
+                    if ( running )
+                    {
+                        awaitForceWindow();
+                    }
+                    forceLog( LogAppendEvent.NULL );
+                }
+                catch ( Throwable e )
+                {
+                    // The database has been panicked, and the waiting committers have been handed the failure.
+                    // Keep going, so that committers that come after this get to see the panic too.
+                }
+                finally
+                {
+                    forceLock.unlock();
+                }
+            }
+        }
+        finally
+        {
+            // Anyone who still sees us after this stops waiting for us within a park, and forces the log itself
+            forcer = null;
+        }
+    }
+
+    /**
+     * When the last force was shared by several committers, more of them are probably on their way. Forces
+     * are expensive, so waiting a fraction of one for them to join the next force is worth it. A committer that
+     * arrives while a force is in progress gets batched up for the next force anyway, so the window only matters
+     * when forces are short, as they are on fast storage.
+     */
+    private void awaitForceWindow()
+    {
+        if ( lastForceBatchSize > 1 )
+        {
+            long window = Math.min( maxForceWindowNanos, averageForceNanos / 2 );
+            long deadline = System.nanoTime() + window;
+            long remaining = window;
+            while ( remaining > 0 )
+            {
+                // Arriving committers unpark us, so we may have to park several times
+                LockSupport.parkNanos( this, remaining );
+                remaining = deadline - System.nanoTime();
+            }
+        }
+    }
+
     private void forceLog( LogForceEvents logForceEvents ) throws IOException
     {
         ThreadLink links = threadLinkHead.getAndSet( ThreadLink.END );
+        Throwable failure = null;
+        long startNanos = System.nanoTime();
         try ( LogForceEvent logForceEvent = logForceEvents.beginLogForce() )
         {
             force();
         }
         catch ( final Throwable panic )
         {
+            failure = panic;
             databaseHealth.panic( panic );
             throw panic;
         }
         finally
         {
-            unparkAll( links );
+            long forceNanos = System.nanoTime() - startNanos;
+            averageForceNanos += (forceNanos - averageForceNanos) / 8;
+            lastForceBatchSize = unparkAll( links, failure );
         }
     }
 
-    private void unparkAll( ThreadLink links )
+    private int unparkAll( ThreadLink links, Throwable failure )
     {
+        int count = 0;
         do
         {
+            count++;
+            links.failure = failure;
             links.done = true;
             links.unpark();
             ThreadLink tmp;
@@ -319,6 +507,7 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
             links = tmp;
         }
         while ( links != ThreadLink.END );
+        return count;
     }
 
     private void waitForLogForce()
@@ -19,8 +19,21 @@
  */
 package org.neo4j.kernel.impl.transaction.log;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
 import org.neo4j.io.fs.StoreChannel;
 
 public interface LogVersionedStoreChannel extends StoreChannel, VersionableLog
 {
+    /**
+     * Maps a region of this log file into memory for reading, without moving the position of this channel.
+     * Only meaningful for log versions that will not be appended to anymore.
+     *
+     * @param position file offset where the mapped region starts.
+     * @param size number of bytes to map.
+     * @return a read-only buffer over the region, or {@code null} if this channel cannot be mapped.
+     * @throws IOException on I/O error while mapping.
+     */
+    ByteBuffer mapForReading( long position, long size ) throws IOException;
 }
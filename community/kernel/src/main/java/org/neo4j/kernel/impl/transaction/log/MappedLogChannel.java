@@ -0,0 +1,201 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.neo4j.storageengine.api.ReadPastEndException;
+import org.neo4j.unsafe.impl.internal.dragons.UnsafeUtil;
+
+/**
+ * {@link ReadableLogChannel} reading completed log versions straight out of memory mapped files, instead of
+ * copying them through a read-ahead buffer. Log versions up to and including {@code lastCompletedVersion} will
+ * not be appended to anymore and so can be mapped in full. As soon as a version that is still being written,
+ * or one that cannot be mapped, is reached then reading continues through a {@link ReadAheadLogChannel}.
+ * <p>
+ * Each mapping is unmapped as soon as reading moves past it, and on {@link #close()}, rather than when the buffer
+ * is garbage collected, so that neither the address space nor the disk space of pruned log files is held on to by
+ * buffers waiting for a GC.
+ */
+public class MappedLogChannel implements ReadableLogChannel
+{
+    private final LogVersionBridge bridge;
+    private final long lastCompletedVersion;
+    private LogVersionedStoreChannel channel;
+    private ByteBuffer mapped;
+    private long mappedFrom;
+    private ReadAheadLogChannel readAhead;
+
+    public MappedLogChannel( LogVersionedStoreChannel startingChannel, LogVersionBridge bridge,
+            long lastCompletedVersion ) throws IOException
+    {
+        this.bridge = bridge;
+        this.lastCompletedVersion = lastCompletedVersion;
+        use( startingChannel );
+    }
+
+    private void use( LogVersionedStoreChannel channel ) throws IOException
+    {
+        unmap();
+        this.channel = channel;
+        long position = channel.position();
+        ByteBuffer buffer = channel.getVersion() <= lastCompletedVersion
+                            ? channel.mapForReading( position, channel.size() - position )
+                            : null;
+        if ( buffer == null )
+        {
+            readAhead = new ReadAheadLogChannel( channel, bridge );
+        }
+        else
+        {
+            mapped = buffer;
+            mappedFrom = position;
+        }
+    }
+
+    /**
+     * @return {@code true} if the requested number of bytes can be read from the mapped buffer,
+     * {@code false} if reading has moved over to {@link #readAhead}.
+     */
+    private boolean mapped( int bytes ) throws IOException
+    {
+        while ( readAhead == null )
+        {
+            int remaining = mapped.remaining();
+            if ( remaining >= bytes )
+            {
+                return true;
+            }
+            if ( remaining > 0 )
+            {
+                // The requested bytes continue in the next version. This is no longer the common case,
+                // so let the buffered channel stitch versions together from here on
+                channel.position( mappedFrom + mapped.position() );
+                unmap();
+                readAhead = new ReadAheadLogChannel( channel, bridge );
+                return false;
+            }
+
+            LogVersionedStoreChannel nextChannel = bridge.next( channel );
+            if ( nextChannel == channel )
+            {
+                throw ReadPastEndException.INSTANCE;
+            }
+            use( nextChannel );
+        }
+        return false;
+    }
+
+    @Override
+    public byte get() throws IOException
+    {
+        return mapped( 1 ) ? mapped.get() : readAhead.get();
+    }
+
+    @Override
+    public short getShort() throws IOException
+    {
+        return mapped( 2 ) ? mapped.getShort() : readAhead.getShort();
+    }
+
+    @Override
+    public int getInt() throws IOException
+    {
+        return mapped( 4 ) ? mapped.getInt() : readAhead.getInt();
+    }
+
+    @Override
+    public long getLong() throws IOException
+    {
+        return mapped( 8 ) ? mapped.getLong() : readAhead.getLong();
+    }
+
+    @Override
+    public float getFloat() throws IOException
+    {
+        return mapped( 4 ) ? mapped.getFloat() : readAhead.getFloat();
+    }
+
+    @Override
+    public double getDouble() throws IOException
+    {
+        return mapped( 8 ) ? mapped.getDouble() : readAhead.getDouble();
+    }
+
+    @Override
+    public void get( byte[] bytes, int length ) throws IOException
+    {
+        if ( mapped( length ) )
+        {
+            mapped.get( bytes, 0, length );
+        }
+        else
+        {
+            readAhead.get( bytes, length );
+        }
+    }
+
+    @Override
+    public LogPositionMarker getCurrentPosition( LogPositionMarker positionMarker ) throws IOException
+    {
+        if ( readAhead != null )
+        {
+            return readAhead.getCurrentPosition( positionMarker );
+        }
+        positionMarker.mark( channel.getVersion(), mappedFrom + mapped.position() );
+        return positionMarker;
+    }
+
+    @Override
+    public long getVersion()
+    {
+        return readAhead != null ? readAhead.getVersion() : channel.getVersion();
+    }
+
+    @Override
+    public byte getLogFormatVersion()
+    {
+        return readAhead != null ? readAhead.getLogFormatVersion() : channel.getLogFormatVersion();
+    }
+
+    private void unmap()
+    {
+        if ( mapped != null )
+        {
+            UnsafeUtil.invokeCleaner( mapped );
+            mapped = null;
+        }
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        unmap();
+        if ( readAhead != null )
+        {
+            readAhead.close();
+        }
+        else
+        {
+            channel.close();
+        }
+    }
+}
@@ -19,6 +19,8 @@
  */
 package org.neo4j.kernel.impl.transaction.log;
 
+import org.apache.commons.lang3.SystemUtils;
+
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
@@ -30,6 +32,7 @@ import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.io.fs.StoreChannel;
 import org.neo4j.kernel.impl.transaction.log.entry.LogHeader;
 import org.neo4j.kernel.lifecycle.Lifecycle;
+import org.neo4j.unsafe.impl.internal.dragons.FeatureToggles;
 
 import static org.neo4j.kernel.impl.transaction.log.entry.LogHeader.LOG_HEADER_SIZE;
 import static org.neo4j.kernel.impl.transaction.log.entry.LogHeaderReader.readLogHeader;
@@ -58,6 +61,12 @@ public class PhysicalLogFile implements LogFile, Lifecycle
     public static final String REGEX_DEFAULT_NAME = "neostore\\.transaction\\.db";
     public static final String DEFAULT_VERSION_SUFFIX = ".";
     public static final String REGEX_DEFAULT_VERSION_SUFFIX = "\\.";
+    /**
+     * Read completed log versions through memory mapped files. Off by default on Windows where mapped files
+     * cannot be deleted until unmapped, which would get in the way of log pruning.
+     */
+    private static final boolean MAP_COMPLETED_VERSIONS = FeatureToggles.flag(
+            PhysicalLogFile.class, "mapCompletedVersions", !SystemUtils.IS_OS_WINDOWS );
     private final long rotateAtSize;
     private final FileSystemAbstraction fileSystem;
     private final Supplier<Long> lastCommittedId;
@@ -70,6 +79,7 @@ public class PhysicalLogFile implements LogFile, Lifecycle
     private final LogVersionBridge readerLogVersionBridge;
 
     private volatile PhysicalLogVersionedStoreChannel channel;
+    private volatile long lastCompletedVersion = -1;
 
     public PhysicalLogFile( FileSystemAbstraction fileSystem, PhysicalLogFiles logFiles, long rotateAtSize,
                             Supplier<Long> lastCommittedId, LogVersionRepository logVersionRepository,
@@ -91,6 +101,7 @@ public class PhysicalLogFile implements LogFile, Lifecycle
     {
         // Make sure at least a bare bones log file is available before recovery
         long lastLogVersionUsed = logVersionRepository.getCurrentLogVersion();
+        lastCompletedVersion = lastLogVersionUsed - 1;
         channel = createLogChannelForVersion( lastLogVersionUsed );
         channel.close();
     }
@@ -102,6 +113,7 @@ public class PhysicalLogFile implements LogFile, Lifecycle
         // Just read header and move to the end
 
         long lastLogVersionUsed = logVersionRepository.getCurrentLogVersion();
+        lastCompletedVersion = lastLogVersionUsed - 1;
         channel = createLogChannelForVersion( lastLogVersionUsed );
         // Move to the end
         channel.position( channel.size() );
@@ -206,6 +218,7 @@ public class PhysicalLogFile implements LogFile, Lifecycle
          * transaction complete in the log we're rotating away. Awesome.
          */
         writer.prepareForFlush().flush();
+        lastCompletedVersion = newLogVersion - 1;
         /*
          * The log version is now in the store, flushed and persistent. If we crash
          * now, on recovery we'll attempt to open the version we're about to create
@@ -259,6 +272,11 @@ public class PhysicalLogFile implements LogFile, Lifecycle
         PhysicalLogVersionedStoreChannel logChannel =
                 openForVersion( logFiles, fileSystem, position.getLogVersion(), false );
         logChannel.position( position.getByteOffset() );
+        long lastCompleted = lastCompletedVersion;
+        if ( MAP_COMPLETED_VERSIONS && position.getLogVersion() <= lastCompleted )
+        {
+            return new MappedLogChannel( logChannel, readerLogVersionBridge, lastCompleted );
+        }
         return new ReadAheadLogChannel( logChannel, readerLogVersionBridge );
     }
 
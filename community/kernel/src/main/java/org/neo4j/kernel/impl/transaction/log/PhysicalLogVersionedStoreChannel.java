@@ -24,6 +24,10 @@ import java.nio.ByteBuffer;
 import java.nio.channels.FileLock;
 
 import org.neo4j.io.fs.StoreChannel;
+import org.neo4j.io.fs.StoreFileChannel;
+import org.neo4j.io.fs.StoreFileChannelUnwrapper;
+
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
 
 public class PhysicalLogVersionedStoreChannel implements LogVersionedStoreChannel
 {
@@ -160,6 +164,17 @@ public class PhysicalLogVersionedStoreChannel implements LogVersionedStoreChanne
         return advance( delegateChannel.read( dsts ) );
     }
 
+    @Override
+    public ByteBuffer mapForReading( long position, long size ) throws IOException
+    {
+        // Only plain file channels can be mapped, anything else (adversarial, ephemeral) keeps going through read()
+        if ( delegateChannel.getClass() != StoreFileChannel.class || size > Integer.MAX_VALUE )
+        {
+            return null;
+        }
+        return StoreFileChannelUnwrapper.unwrap( delegateChannel ).map( READ_ONLY, position, size );
+    }
+
     @Override
     public long getVersion()
     {
@@ -26,6 +26,8 @@ class ThreadLink
     final Thread thread;
     volatile ThreadLink next;
     volatile boolean done;
+    // Written before done, by the thread that failed to force the log
+    Throwable failure;
 
     public ThreadLink( Thread thread )
     {
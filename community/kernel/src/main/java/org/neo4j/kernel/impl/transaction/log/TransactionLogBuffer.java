@@ -0,0 +1,210 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.neo4j.kernel.impl.transaction.TransactionRepresentation;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryWriter;
+
+/**
+ * A growable in-memory {@link FlushableChannel} that the commands of a transaction are serialized into, before the
+ * transaction is appended to the log. This lets committing threads serialize their commands concurrently, so that
+ * only copying the serialized bytes into the log has to be done by one thread at a time.
+ * <p>
+ * Transactions whose commands do not fit in {@link #MAX_SERIALIZED_SIZE} bytes are not buffered, see
+ * {@link #isSerialized()}. Their commands are serialized straight into the log instead, which keeps huge transactions
+ * from having to be held in memory twice.
+ */
+public class TransactionLogBuffer implements FlushableChannel
+{
+    private static final int INITIAL_CAPACITY = 4096;
+    // Buffers that have grown larger than this are not kept around for the next transaction
+    private static final int MAX_RETAINED_CAPACITY = 1024 * 1024;
+    static final int MAX_SERIALIZED_SIZE = 16 * 1024 * 1024;
+    private static final Flushable NO_FLUSH = () -> {};
+
+    private final LogEntryWriter writer = new LogEntryWriter( this );
+    private final IndexCommandDetector indexCommandDetector = new IndexCommandDetector();
+    private final int maxSerializedSize;
+    private ByteBuffer buffer = ByteBuffer.allocate( INITIAL_CAPACITY );
+    private boolean serialized;
+
+    public TransactionLogBuffer()
+    {
+        this( MAX_SERIALIZED_SIZE );
+    }
+
+    TransactionLogBuffer( int maxSerializedSize )
+    {
+        this.maxSerializedSize = maxSerializedSize;
+    }
+
+    /**
+     * Replace the contents of this buffer with the serialized commands of the given transaction, unless they turn
+     * out to be too large to buffer.
+     */
+    public void serialize( TransactionRepresentation transaction ) throws IOException
+    {
+        buffer.clear();
+        indexCommandDetector.reset();
+        try
+        {
+            writer.serialize( transaction );
+            serialized = true;
+        }
+        catch ( SerializedSizeExceeded e )
+        {
+            buffer.clear();
+            serialized = false;
+        }
+        transaction.accept( indexCommandDetector );
+    }
+
+    /**
+     * @return whether the commands of the last transaction are in this buffer. If not, they have to be serialized
+     * straight into the log.
+     */
+    public boolean isSerialized()
+    {
+        return serialized;
+    }
+
+    public boolean hasLegacyIndexChanges()
+    {
+        return indexCommandDetector.hasWrittenAnyLegacyIndexCommand();
+    }
+
+    /**
+     * Write the serialized commands to the given channel.
+     */
+    public void writeTo( FlushableChannel channel ) throws IOException
+    {
+        if ( !serialized )
+        {
+            throw new IllegalStateException( "The commands of this transaction were too large to be buffered" );
+        }
+        channel.put( buffer.array(), buffer.position() );
+    }
+
+    /**
+     * Let go of the serialized commands, and of the memory behind them if they were unusually large.
+     */
+    public void clear()
+    {
+        if ( buffer.capacity() > MAX_RETAINED_CAPACITY )
+        {
+            buffer = ByteBuffer.allocate( INITIAL_CAPACITY );
+        }
+        buffer.clear();
+        serialized = false;
+    }
+
+    @Override
+    public Flushable prepareForFlush()
+    {
+        return NO_FLUSH;
+    }
+
+    @Override
+    public TransactionLogBuffer put( byte value )
+    {
+        ensureCapacity( Byte.BYTES ).put( value );
+        return this;
+    }
+
+    @Override
+    public TransactionLogBuffer putShort( short value )
+    {
+        ensureCapacity( Short.BYTES ).putShort( value );
+        return this;
+    }
+
+    @Override
+    public TransactionLogBuffer putInt( int value )
+    {
+        ensureCapacity( Integer.BYTES ).putInt( value );
+        return this;
+    }
+
+    @Override
+    public TransactionLogBuffer putLong( long value )
+    {
+        ensureCapacity( Long.BYTES ).putLong( value );
+        return this;
+    }
+
+    @Override
+    public TransactionLogBuffer putFloat( float value )
+    {
+        ensureCapacity( Float.BYTES ).putFloat( value );
+        return this;
+    }
+
+    @Override
+    public TransactionLogBuffer putDouble( double value )
+    {
+        ensureCapacity( Double.BYTES ).putDouble( value );
+        return this;
+    }
+
+    @Override
+    public TransactionLogBuffer put( byte[] value, int length )
+    {
+        ensureCapacity( length ).put( value, 0, length );
+        return this;
+    }
+
+    @Override
+    public void close()
+    {
+    }
+
+    private ByteBuffer ensureCapacity( int bytes )
+    {
+        if ( buffer.remaining() < bytes )
+        {
+            long required = (long) buffer.position() + bytes;
+            if ( required > maxSerializedSize )
+            {
+                throw new SerializedSizeExceeded();
+            }
+            int capacity = (int) Math.min( maxSerializedSize, Math.max( buffer.capacity() * 2L, required ) );
+            ByteBuffer grown = ByteBuffer.allocate( capacity );
+            buffer.flip();
+            grown.put( buffer );
+            buffer = grown;
+        }
+        return buffer;
+    }
+
+    /**
+     * Aborts the serialization of a transaction that does not fit in the buffer.
+     */
+    private static class SerializedSizeExceeded extends RuntimeException
+    {
+        SerializedSizeExceeded()
+        {
+            super( null, null, false, false );
+        }
+    }
+}
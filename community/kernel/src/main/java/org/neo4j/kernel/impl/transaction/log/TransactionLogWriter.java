@@ -46,6 +46,29 @@ public class TransactionLogWriter
         writer.writeCommitEntry( transactionId, transaction.getTimeCommitted() );
     }
 
+    /**
+     * Append a transaction whose commands have already been serialized into the given buffer, or that are serialized
+     * into the log here if they were too large for it.
+     */
+    public void append( TransactionRepresentation transaction, TransactionLogBuffer serializedCommands,
+            long transactionId ) throws IOException
+    {
+        writer.writeStartEntry( transaction.getMasterId(), transaction.getAuthorId(),
+                transaction.getTimeStarted(), transaction.getLatestCommittedTxWhenStarted(),
+                transaction.additionalHeader() );
+
+        if ( serializedCommands.isSerialized() )
+        {
+            writer.writeSerializedCommands( serializedCommands );
+        }
+        else
+        {
+            writer.serialize( transaction );
+        }
+
+        writer.writeCommitEntry( transactionId, transaction.getTimeCommitted() );
+    }
+
     public void checkPoint( LogPosition logPosition ) throws IOException
     {
         writer.writeCheckPointEntry( logPosition );
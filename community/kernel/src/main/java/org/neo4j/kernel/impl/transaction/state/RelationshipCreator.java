@@ -53,9 +53,15 @@ public class RelationshipCreator
     public void relationshipCreate( long id, int type, long firstNodeId, long secondNodeId,
             RecordAccessSet recordChangeSet, ResourceLocker locks )
     {
-        // TODO could be unnecessary to mark as changed here already, dense nodes may not need to change
-        NodeRecord firstNode = recordChangeSet.getNodeRecords().getOrLoad( firstNodeId, null ).forChangingLinkage();
-        NodeRecord secondNode = recordChangeSet.getNodeRecords().getOrLoad( secondNodeId, null ).forChangingLinkage();
+        // Dense nodes link their relationships from their groups, so they are only marked as changed if a new
+        // group has to be linked from the node itself. Other transactions may be adding relationships to the
+        // same dense node concurrently, see RelationshipGroupLocks.
+        RecordProxy<Long,NodeRecord,Void> firstNodeChange =
+                recordChangeSet.getNodeRecords().getOrLoad( firstNodeId, null );
+        RecordProxy<Long,NodeRecord,Void> secondNodeChange =
+                recordChangeSet.getNodeRecords().getOrLoad( secondNodeId, null );
+        NodeRecord firstNode = forLinking( firstNodeChange );
+        NodeRecord secondNode = forLinking( secondNodeChange );
         convertNodeToDenseIfNecessary( firstNode, recordChangeSet.getRelRecords(),
                 recordChangeSet.getRelGroupRecords(), locks );
         convertNodeToDenseIfNecessary( secondNode, recordChangeSet.getRelRecords(),
@@ -64,10 +70,16 @@ public class RelationshipCreator
         record.setLinks( firstNodeId, secondNodeId, type );
         record.setInUse( true );
         record.setCreated();
-        connectRelationship( firstNode, secondNode, record, recordChangeSet.getRelRecords(),
+        connectRelationship( firstNodeChange, secondNodeChange, record, recordChangeSet.getRelRecords(),
                 recordChangeSet.getRelGroupRecords(), locks );
     }
 
+    private static NodeRecord forLinking( RecordProxy<Long,NodeRecord,Void> nodeChange )
+    {
+        NodeRecord node = nodeChange.forReadingLinkage();
+        return node.isDense() ? node : nodeChange.forChangingLinkage();
+    }
+
     public static int relCount( long nodeId, RelationshipRecord rel )
     {
         return (int) (nodeId == rel.getFirstNode() ? rel.getFirstPrevRel() : rel.getSecondPrevRel());
@@ -98,11 +110,14 @@ public class RelationshipCreator
         }
     }
 
-    private void connectRelationship( NodeRecord firstNode,
-            NodeRecord secondNode, RelationshipRecord rel,
+    private void connectRelationship( RecordProxy<Long,NodeRecord,Void> firstNodeChange,
+            RecordProxy<Long,NodeRecord,Void> secondNodeChange, RelationshipRecord rel,
             RecordAccess<Long, RelationshipRecord, Void> relRecords,
             RecordAccess<Long, RelationshipGroupRecord, Integer> relGroupRecords, ResourceLocker locks )
     {
+        NodeRecord firstNode = firstNodeChange.forReadingLinkage();
+        NodeRecord secondNode = secondNodeChange.forReadingLinkage();
+
         // Assertion interpreted: if node is a normal node and we're trying to create a
         // relationship that we already have as first rel for that node --> error
         assert firstNode.getNextRel() != rel.getId() || firstNode.isDense();
@@ -123,7 +138,7 @@ public class RelationshipCreator
         }
         else
         {
-            connectRelationshipToDenseNode( firstNode, rel, relRecords, relGroupRecords, locks );
+            connectRelationshipToDenseNode( firstNodeChange, rel, relRecords, relGroupRecords, locks );
         }
 
         if ( !secondNode.isDense() )
@@ -140,7 +155,7 @@ public class RelationshipCreator
         }
         else if ( firstNode.getId() != secondNode.getId() )
         {
-            connectRelationshipToDenseNode( secondNode, rel, relRecords, relGroupRecords, locks );
+            connectRelationshipToDenseNode( secondNodeChange, rel, relRecords, relGroupRecords, locks );
         }
 
         if ( !firstNode.isDense() )
@@ -153,6 +168,19 @@ public class RelationshipCreator
         }
     }
 
+    private void connectRelationshipToDenseNode( RecordProxy<Long,NodeRecord,Void> nodeChange,
+            RelationshipRecord rel, RecordAccess<Long, RelationshipRecord, Void> relRecords,
+            RecordAccess<Long, RelationshipGroupRecord, Integer> relGroupRecords, ResourceLocker locks )
+    {
+        NodeRecord node = nodeChange.forReadingLinkage();
+        if ( relGroupGetter.getRelationshipGroup( node, rel.getType(), relGroupRecords ).group() == null )
+        {
+            // A new group will be created, which may end up first in the chain and so be linked from the node
+            node = nodeChange.forChangingLinkage();
+        }
+        connectRelationshipToDenseNode( node, rel, relRecords, relGroupRecords, locks );
+    }
+
     private void connectRelationshipToDenseNode( NodeRecord node, RelationshipRecord rel,
             RecordAccess<Long, RelationshipRecord, Void> relRecords,
             RecordAccess<Long, RelationshipGroupRecord, Integer> relGroupRecords, ResourceLocker locks )
@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.state;
+
+import java.util.Arrays;
+import java.util.Set;
+
+import org.neo4j.collection.primitive.Primitive;
+import org.neo4j.collection.primitive.PrimitiveLongCollections;
+import org.neo4j.collection.primitive.PrimitiveLongSet;
+import org.neo4j.kernel.impl.locking.ResourceTypes;
+import org.neo4j.kernel.impl.store.RecordStore;
+import org.neo4j.kernel.impl.store.record.NodeRecord;
+import org.neo4j.kernel.impl.store.record.Record;
+import org.neo4j.kernel.impl.store.record.RelationshipGroupRecord;
+import org.neo4j.storageengine.api.lock.ResourceLocker;
+import org.neo4j.storageengine.api.txstate.ReadableTransactionState;
+
+import static org.neo4j.kernel.impl.store.record.RecordLoad.FORCE;
+
+/**
+ * Locks the relationship groups of dense nodes that a transaction is about to link its created relationships into.
+ * <p>
+ * With {@link org.neo4j.graphdb.factory.GraphDatabaseSettings#dense_node_deferred_locking} enabled, transactions
+ * adding relationships of an existing type to a dense node only hold a shared lock on that node. What keeps them
+ * from linking into the same relationship chains at the same time is an exclusive
+ * {@link ResourceTypes#RELATIONSHIP_GROUP} lock, taken here when the transaction is turned into commands. The lock
+ * covers a whole group, i.e. all directions of a type, since that is the unit of change of a group record.
+ * <p>
+ * The group chain of a node only changes under an exclusive lock on that node, so it can be read here without the
+ * group locks. A group that does not exist anymore, because it was deleted after the transaction decided to settle
+ * for a shared lock, has to be created and that requires the exclusive node lock after all. That is an upgrade of
+ * the shared lock the transaction already holds, so two transactions doing it for the same node wait for each other.
+ * The lock manager detects that like any other deadlock and fails one of them with a
+ * {@link org.neo4j.kernel.DeadlockDetectedException}, which is transient, so the transaction can be retried. Since
+ * groups are only deleted once they are empty, this is rare.
+ * <p>
+ * All of those locks are taken up front, in order, before any group record is read through the transaction.
+ * Records read by a transaction are kept for the remainder of the transaction, so a group read before its lock is
+ * held could later be changed based on what it looked like before some other transaction committed.
+ */
+public class RelationshipGroupLocks
+{
+    private final RecordStore<RelationshipGroupRecord> groupStore;
+
+    public RelationshipGroupLocks( RecordStore<RelationshipGroupRecord> groupStore )
+    {
+        this.groupStore = groupStore;
+    }
+
+    public void lockGroupsOfCreatedRelationships( ReadableTransactionState txState,
+            RecordAccess<Long,NodeRecord,Void> nodeRecords, ResourceLocker locks )
+    {
+        Set<Long> createdRelationships = txState.addedAndRemovedRelationships().getAdded();
+        if ( createdRelationships.isEmpty() )
+        {
+            return;
+        }
+
+        PrimitiveLongSet groups = Primitive.longSet();
+        PrimitiveLongSet nodesMissingGroups = Primitive.longSet();
+        RelationshipGroupRecord group = groupStore.newRecord();
+        for ( Long relationshipId : createdRelationships )
+        {
+            txState.relationshipVisit( relationshipId, ( id, type, startNode, endNode ) ->
+            {
+                addGroupIfDense( txState, nodeRecords, startNode, type, group, groups, nodesMissingGroups );
+                addGroupIfDense( txState, nodeRecords, endNode, type, group, groups, nodesMissingGroups );
+            } );
+        }
+
+        acquireExclusive( locks, ResourceTypes.NODE, nodesMissingGroups );
+        acquireExclusive( locks, ResourceTypes.RELATIONSHIP_GROUP, groups );
+    }
+
+    private void addGroupIfDense( ReadableTransactionState txState, RecordAccess<Long,NodeRecord,Void> nodeRecords,
+            long nodeId, int type, RelationshipGroupRecord group, PrimitiveLongSet groups,
+            PrimitiveLongSet nodesMissingGroups )
+    {
+        if ( txState.nodeIsAddedInThisTx( nodeId ) || txState.nodeIsDeletedInThisTx( nodeId ) )
+        {
+            return;
+        }
+        NodeRecord node = nodeRecords.getOrLoad( nodeId, null ).forReadingLinkage();
+        if ( !node.isDense() )
+        {
+            return;
+        }
+        groups.add( ResourceTypes.relationshipGroupResourceId( nodeId, type ) );
+        if ( !hasGroup( node, type, group ) )
+        {
+            nodesMissingGroups.add( nodeId );
+        }
+    }
+
+    private boolean hasGroup( NodeRecord node, int type, RelationshipGroupRecord group )
+    {
+        long groupId = node.getNextRel();
+        while ( groupId != Record.NO_NEXT_RELATIONSHIP.intValue() )
+        {
+            groupStore.getRecord( groupId, group, FORCE );
+            if ( !group.inUse() || group.getType() > type )
+            {   // The groups are sorted in the chain
+                return false;
+            }
+            if ( group.getType() == type )
+            {
+                return true;
+            }
+            groupId = group.getNext();
+        }
+        return false;
+    }
+
+    private static void acquireExclusive( ResourceLocker locks, ResourceTypes type, PrimitiveLongSet ids )
+    {
+        if ( ids.isEmpty() )
+        {
+            return;
+        }
+        long[] resourceIds = PrimitiveLongCollections.asArray( ids.iterator() );
+        Arrays.sort( resourceIds );
+        locks.acquireExclusive( type, resourceIds );
+    }
+}
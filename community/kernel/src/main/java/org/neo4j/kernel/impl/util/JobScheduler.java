@@ -142,6 +142,21 @@ public interface JobScheduler extends Lifecycle
          */
         public static final Group checkPoint = new Group( "CheckPoint", POOLED );
 
+        /**
+         * Parallel application of transactions to the store.
+         */
+        public static final Group transactionApplication = new Group( "TransactionApplication", POOLED );
+
+        /**
+         * Forces the transaction log on behalf of committing transactions.
+         */
+        public static final Group transactionLogForce = new Group( "TransactionLogForce", NEW_THREAD );
+
+        /**
+         * Looks for deadlocks among lock clients waiting for locks.
+         */
+        public static final Group deadlockDetection = new Group( "DeadlockDetection", POOLED );
+
         /**
          * Raft Log pruning
          */
@@ -152,6 +167,11 @@ public interface JobScheduler extends Lifecycle
          */
         public static final Group boltNetworkIO = new Group( "BoltNetworkIO", NEW_THREAD );
 
+        /**
+         * Page cache warmup and profiling.
+         */
+        public static final Group pageCacheWarmup = new Group( "PageCacheWarmup", POOLED );
+
         /**
          * Reporting thread for Metrics events
          */
@@ -171,6 +191,11 @@ public interface JobScheduler extends Lifecycle
          * Native security.
          */
         public static Group nativeSecurity = new Group( "NativeSecurity", POOLED );
+
+        /**
+         * Workers of the parallel Cypher runtime.
+         */
+        public static final Group cypherWorker = new Group( "CypherWorker", POOLED );
     }
 
     interface JobHandle
@@ -0,0 +1,397 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.util;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.neo4j.collection.primitive.Primitive;
+import org.neo4j.collection.primitive.PrimitiveLongIntMap;
+import org.neo4j.collection.primitive.PrimitiveLongLongMap;
+import org.neo4j.graphdb.Resource;
+import org.neo4j.unsafe.impl.batchimport.cache.LongArray;
+import org.neo4j.unsafe.impl.batchimport.cache.NumberArrayFactory;
+
+/**
+ * A single-threaded set of longs with the same iteration characteristics as {@link VersionedHashMap}, i.e. elements
+ * added while iterating are not returned by iterators created before the addition, whereas removed elements are
+ * skipped by all iterators. Elements are stored as primitives though, which makes it a lot less memory hungry for
+ * large numbers of elements than a set backed by {@link VersionedHashMap}.
+ *
+ * <h2>How it works</h2>
+ *
+ * Elements are appended to a log, in the order they are added, and an index maps each element to its slot in that
+ * log. An iterator only visits the slots that existed when it was created and only returns elements which the
+ * index still points to that slot for. Removing an element leaves a dead slot in the log. Once there are more dead
+ * slots than elements, the log is compacted, unless an iterator is still working its way through it, since that
+ * would move the remaining elements out from under it. Most sets in transaction state hold only a few elements, so
+ * the index isn't created until the log grows beyond a handful of slots. Up until then lookups scan the log.
+ *
+ * <h2>Off-heap storage</h2>
+ *
+ * When the number of elements grows beyond the given threshold both the log and the index are moved off-heap.
+ * From that point this set must be {@link #close() closed} to release its memory.
+ * <p>
+ * As with the primitive collections used internally, {@code -1} cannot be stored in this set.
+ */
+public class VersionedLongSet extends AbstractSet<Long> implements Resource
+{
+    private static final int NULL = -1;
+    private static final int INITIAL_HEAP_CAPACITY = 4;
+    private static final int UNINDEXED_SLOTS = 8;
+    private static final int OFF_HEAP_CHUNK_SIZE = 1 << 20;
+
+    private final int offHeapThreshold;
+    private long[] heapLog;
+    private PrimitiveLongIntMap heapIndex;
+    private long unindexedRemovedSlots;
+    private LongArray offHeapLog;
+    private PrimitiveLongLongMap offHeapIndex;
+    private long slots;
+    private int size;
+    private int generation;
+    // Iterators of the current generation that have not yet reached their end
+    private int activeIterators;
+
+    public VersionedLongSet()
+    {
+        this( Integer.MAX_VALUE );
+    }
+
+    /**
+     * @param offHeapThreshold number of elements this set can hold before moving its storage off-heap.
+     */
+    public VersionedLongSet( int offHeapThreshold )
+    {
+        this.offHeapThreshold = offHeapThreshold;
+    }
+
+    @Override
+    public int size()
+    {
+        return size;
+    }
+
+    @Override
+    public boolean contains( Object o )
+    {
+        return o instanceof Long && contains( ((Long) o).longValue() );
+    }
+
+    public boolean contains( long element )
+    {
+        return slotOf( element ) != NULL;
+    }
+
+    @Override
+    public boolean add( Long element )
+    {
+        return add( element.longValue() );
+    }
+
+    public boolean add( long element )
+    {
+        if ( contains( element ) )
+        {
+            return false;
+        }
+        compactIfNeeded();
+        if ( offHeapLog == null && size >= offHeapThreshold )
+        {
+            moveOffHeap();
+        }
+
+        long slot = slots++;
+        if ( offHeapLog != null )
+        {
+            offHeapLog.set( slot, element );
+            offHeapIndex.put( element, slot );
+        }
+        else
+        {
+            if ( heapLog == null )
+            {
+                heapLog = new long[INITIAL_HEAP_CAPACITY];
+            }
+            else if ( slot == heapLog.length )
+            {
+                heapLog = Arrays.copyOf( heapLog, heapLog.length << 1 );
+            }
+            heapLog[(int) slot] = element;
+            if ( heapIndex != null )
+            {
+                heapIndex.put( element, (int) slot );
+            }
+            else if ( slots > UNINDEXED_SLOTS )
+            {
+                heapIndex = index( Primitive.longIntMap() );
+            }
+        }
+        size++;
+        return true;
+    }
+
+    @Override
+    public boolean remove( Object o )
+    {
+        return o instanceof Long && remove( ((Long) o).longValue() );
+    }
+
+    public boolean remove( long element )
+    {
+        long slot = slotOf( element );
+        if ( slot == NULL )
+        {
+            return false;
+        }
+        if ( offHeapIndex != null )
+        {
+            offHeapIndex.remove( element );
+        }
+        else if ( heapIndex != null )
+        {
+            heapIndex.remove( element );
+        }
+        else
+        {
+            unindexedRemovedSlots |= 1L << slot;
+        }
+        size--;
+        compactIfNeeded();
+        return true;
+    }
+
+    @Override
+    public void clear()
+    {
+        close();
+    }
+
+    @Override
+    public Iterator<Long> iterator()
+    {
+        activeIterators++;
+        return new LogIterator( slots );
+    }
+
+    /**
+     * Releases off-heap memory, if any, and empties this set.
+     */
+    @Override
+    public void close()
+    {
+        if ( offHeapLog != null )
+        {
+            offHeapLog.close();
+            offHeapIndex.close();
+            offHeapLog = null;
+            offHeapIndex = null;
+        }
+        if ( heapIndex != null )
+        {
+            heapIndex.close();
+        }
+        heapLog = null;
+        heapIndex = null;
+        unindexedRemovedSlots = 0;
+        slots = 0;
+        size = 0;
+        activeIterators = 0;
+        generation++;
+    }
+
+    long usedSlots()
+    {
+        return slots;
+    }
+
+    private long slotOf( long element )
+    {
+        if ( offHeapIndex != null )
+        {
+            return offHeapIndex.get( element );
+        }
+        if ( heapIndex != null )
+        {
+            return heapIndex.get( element );
+        }
+        for ( int slot = 0; slot < slots; slot++ )
+        {
+            if ( heapLog[slot] == element && (unindexedRemovedSlots & (1L << slot)) == 0 )
+            {
+                return slot;
+            }
+        }
+        return NULL;
+    }
+
+    private long elementAt( long slot )
+    {
+        return offHeapLog != null ? offHeapLog.get( slot ) : heapLog[(int) slot];
+    }
+
+    private void compactIfNeeded()
+    {
+        // Dead slots are only worth reclaiming once there are more of them than elements, which keeps the cost of
+        // compacting proportional to the number of removals. Logs too small to be indexed are left alone.
+        long deadSlots = slots - size;
+        if ( deadSlots <= size || deadSlots <= UNINDEXED_SLOTS || activeIterators > 0 )
+        {
+            return;
+        }
+
+        // Elements keep their order, so slots only ever move towards the start of the log
+        long liveSlots = 0;
+        for ( long slot = 0; slot < slots; slot++ )
+        {
+            long element = elementAt( slot );
+            if ( slotOf( element ) != slot )
+            {
+                continue;
+            }
+            if ( liveSlots != slot )
+            {
+                if ( offHeapLog != null )
+                {
+                    offHeapLog.set( liveSlots, element );
+                    offHeapIndex.put( element, liveSlots );
+                }
+                else
+                {
+                    heapLog[(int) liveSlots] = element;
+                    heapIndex.put( element, (int) liveSlots );
+                }
+            }
+            liveSlots++;
+        }
+        slots = liveSlots;
+    }
+
+    private void moveOffHeap()
+    {
+        // Slots are kept as they are, so that iterators created before the move can carry on
+        LongArray log = NumberArrayFactory.OFF_HEAP.newDynamicLongArray( OFF_HEAP_CHUNK_SIZE, NULL );
+        for ( int slot = 0; slot < slots; slot++ )
+        {
+            log.set( slot, heapLog[slot] );
+        }
+        PrimitiveLongLongMap index = index( Primitive.offHeapLongLongMap() );
+        if ( heapIndex != null )
+        {
+            heapIndex.close();
+        }
+        heapLog = null;
+        heapIndex = null;
+        offHeapLog = log;
+        offHeapIndex = index;
+    }
+
+    private PrimitiveLongIntMap index( PrimitiveLongIntMap index )
+    {
+        for ( int slot = 0; slot < slots; slot++ )
+        {
+            long element = heapLog[slot];
+            if ( slotOf( element ) == slot )
+            {
+                index.put( element, slot );
+            }
+        }
+        return index;
+    }
+
+    private PrimitiveLongLongMap index( PrimitiveLongLongMap index )
+    {
+        for ( int slot = 0; slot < slots; slot++ )
+        {
+            long element = heapLog[slot];
+            if ( slotOf( element ) == slot )
+            {
+                index.put( element, slot );
+            }
+        }
+        return index;
+    }
+
+    private class LogIterator implements Iterator<Long>
+    {
+        private final long limit;
+        private final int generation = VersionedLongSet.this.generation;
+        private long slot;
+        private long lastReturned = NULL;
+        private boolean hasNext;
+        private boolean exhausted;
+        private long next;
+
+        LogIterator( long limit )
+        {
+            this.limit = limit;
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            // Nothing that was there when this iterator was created is left after a clear()
+            while ( !hasNext && slot < limit && generation == VersionedLongSet.this.generation )
+            {
+                long element = elementAt( slot );
+                if ( slotOf( element ) == slot )
+                {
+                    next = element;
+                    hasNext = true;
+                }
+                slot++;
+            }
+            if ( !hasNext && !exhausted )
+            {
+                exhausted = true;
+                if ( generation == VersionedLongSet.this.generation )
+                {
+                    activeIterators--;
+                }
+            }
+            return hasNext;
+        }
+
+        @Override
+        public Long next()
+        {
+            if ( !hasNext() )
+            {
+                throw new NoSuchElementException();
+            }
+            hasNext = false;
+            lastReturned = next;
+            return next;
+        }
+
+        @Override
+        public void remove()
+        {
+            if ( lastReturned == NULL )
+            {
+                throw new IllegalStateException();
+            }
+            VersionedLongSet.this.remove( lastReturned );
+            lastReturned = NULL;
+        }
+    }
+}
@@ -22,6 +22,7 @@ package org.neo4j.kernel.impl.util.diffsets;
 import java.util.Collections;
 import java.util.Set;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 import org.neo4j.collection.primitive.PrimitiveIntIterator;
 import org.neo4j.collection.primitive.PrimitiveLongIterator;
@@ -45,6 +46,11 @@ public class DiffSets<T> extends SuperDiffSets<T,PrimitiveLongIterator> implemen
         this( null, null );
     }
 
+    public DiffSets( Supplier<Set<T>> setFactory )
+    {
+        super( setFactory );
+    }
+
     public DiffSets( Set<T> addedElements, Set<T> removedElements )
     {
         super( addedElements, removedElements );
@@ -22,6 +22,7 @@ package org.neo4j.kernel.impl.util.diffsets;
 import java.util.Collections;
 import java.util.Set;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 import org.neo4j.collection.primitive.PrimitiveIntIterator;
 import org.neo4j.helpers.collection.Iterables;
@@ -50,6 +51,12 @@ public class RelationshipDiffSets<T> extends SuperDiffSets<T,RelationshipIterato
         this( txStateRelationshipHome, null, null );
     }
 
+    public RelationshipDiffSets( RelationshipVisitor.Home txStateRelationshipHome, Supplier<Set<T>> setFactory )
+    {
+        super( setFactory );
+        this.txStateRelationshipHome = txStateRelationshipHome;
+    }
+
     public RelationshipDiffSets( RelationshipVisitor.Home txStateRelationshipHome,
             Set<T> addedElements, Set<T> removedElements )
     {
@@ -23,8 +23,10 @@ import java.util.Collections;
 import java.util.Iterator;
 import java.util.Set;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 import org.neo4j.collection.primitive.PrimitiveLongIterator;
+import org.neo4j.graphdb.Resource;
 import org.neo4j.helpers.collection.Iterators;
 import org.neo4j.kernel.api.exceptions.schema.ConstraintValidationKernelException;
 import org.neo4j.kernel.api.exceptions.schema.CreateConstraintFailureException;
@@ -42,6 +44,7 @@ import static java.util.Collections.newSetFromMap;
 abstract class SuperDiffSets<T,LONGITERATOR extends PrimitiveLongIterator>
         implements SuperReadableDiffSets<T,LONGITERATOR>
 {
+    private final Supplier<Set<T>> setFactory;
     private Set<T> addedElements;
     private Set<T> removedElements;
     private Predicate<T> filter;
@@ -53,6 +56,21 @@ abstract class SuperDiffSets<T,LONGITERATOR extends PrimitiveLongIterator>
 
     public SuperDiffSets( Set<T> addedElements, Set<T> removedElements )
     {
+        this( SuperDiffSets::newVersionedSet, addedElements, removedElements );
+    }
+
+    /**
+     * @param setFactory creates the sets holding added and removed elements, which need to have the iteration
+     * characteristics of {@link VersionedHashMap}.
+     */
+    public SuperDiffSets( Supplier<Set<T>> setFactory )
+    {
+        this( setFactory, null, null );
+    }
+
+    private SuperDiffSets( Supplier<Set<T>> setFactory, Set<T> addedElements, Set<T> removedElements )
+    {
+        this.setFactory = setFactory;
         this.addedElements = addedElements;
         this.removedElements = removedElements;
     }
@@ -202,6 +220,11 @@ abstract class SuperDiffSets<T,LONGITERATOR extends PrimitiveLongIterator>
     }
 
     private Set<T> newSet()
+    {
+        return setFactory.get();
+    }
+
+    private static <T> Set<T> newVersionedSet()
     {
         return newSetFromMap( new VersionedHashMap<>() );
     }
@@ -228,6 +251,25 @@ abstract class SuperDiffSets<T,LONGITERATOR extends PrimitiveLongIterator>
         }
     }
 
+    /**
+     * Releases resources, like off-heap memory, held by the sets backing this instance.
+     */
+    public void close()
+    {
+        close( addedElements );
+        close( removedElements );
+        addedElements = null;
+        removedElements = null;
+    }
+
+    private static void close( Set<?> elements )
+    {
+        if ( elements instanceof Resource )
+        {
+            ((Resource) elements).close();
+        }
+    }
+
     @Override
     public boolean equals( Object o )
     {
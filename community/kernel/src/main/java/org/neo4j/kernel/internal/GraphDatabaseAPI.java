@@ -71,4 +71,13 @@ public interface GraphDatabaseAPI extends GraphDatabaseService
      * @return internal transaction
      */
     InternalTransaction beginTransaction( KernelTransaction.Type type, SecurityContext securityContext, long timeout, TimeUnit unit );
+
+    /**
+     * Begin internal transaction with specified type and access mode, that refuses all writes. It skips the commit
+     * machinery when closed, which makes it cheaper than a regular transaction, but takes the same locks when reading.
+     * @param type transaction type
+     * @param securityContext transaction security context
+     * @return internal transaction
+     */
+    InternalTransaction beginReadOnlyTransaction( KernelTransaction.Type type, SecurityContext securityContext );
 }
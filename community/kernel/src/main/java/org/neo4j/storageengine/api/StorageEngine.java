@@ -76,7 +76,9 @@ public interface StorageEngine
             throws TransactionFailureException, CreateConstraintFailureException, ConstraintValidationKernelException;
 
     /**
-     * Apply a batch of groups of commands to this storage.
+     * Apply a batch of groups of commands to this storage. Commands applied in
+     * {@link TransactionApplicationMode#RECOVERY recovery} mode may not be used by the caller afterwards,
+     * since the storage engine is free to reuse parts of them.
      *
      * @param batch batch of groups of commands to apply to storage.
      * @param mode {@link TransactionApplicationMode} when applying.
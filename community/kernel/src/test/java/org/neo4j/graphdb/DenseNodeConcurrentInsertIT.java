@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.graphdb;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.neo4j.graphdb.factory.GraphDatabaseBuilder;
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
+import org.neo4j.kernel.api.ReadOperations;
+import org.neo4j.kernel.api.Statement;
+import org.neo4j.kernel.impl.core.ThreadToStatementContextBridge;
+import org.neo4j.test.Race;
+import org.neo4j.test.rule.DatabaseRule;
+import org.neo4j.test.rule.ImpermanentDatabaseRule;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.neo4j.helpers.collection.Iterables.count;
+import static org.neo4j.helpers.collection.Iterables.single;
+
+/**
+ * Many transactions inserting relationships into the same dense node at the same time, with
+ * {@link GraphDatabaseSettings#dense_node_deferred_locking} letting them share the lock on that node.
+ */
+public class DenseNodeConcurrentInsertIT
+{
+    private static final int THREADS = 8;
+    private static final int TRANSACTIONS_PER_THREAD = 20;
+    private static final int RELATIONSHIPS_PER_TRANSACTION = 10;
+    private static final RelationshipType[] TYPES = {
+            RelationshipType.withName( "Type0" ), RelationshipType.withName( "Type1" ),
+            RelationshipType.withName( "Type2" ),
+            // No group of this type exists up front, so the first inserts have to create it
+            RelationshipType.withName( "Type3" )};
+
+    @Rule
+    public final DatabaseRule db = new ImpermanentDatabaseRule()
+    {
+        @Override
+        protected void configure( GraphDatabaseBuilder builder )
+        {
+            builder.setConfig( GraphDatabaseSettings.dense_node_threshold, "1" );
+            builder.setConfig( GraphDatabaseSettings.dense_node_deferred_locking, "true" );
+        }
+    };
+
+    @Test
+    public void concurrentInsertsIntoDenseNodeShouldKeepChainsAndDegreesIntact() throws Throwable
+    {
+        // GIVEN a dense node with groups of all but the last type
+        Node hub;
+        try ( Transaction tx = db.beginTx() )
+        {
+            hub = db.createNode();
+            for ( int i = 0; i < TYPES.length - 1; i++ )
+            {
+                hub.createRelationshipTo( db.createNode(), TYPES[i] );
+                db.createNode().createRelationshipTo( hub, TYPES[i] );
+            }
+            tx.success();
+        }
+        Set<Long> created = ConcurrentHashMap.newKeySet();
+
+        // WHEN
+        Race race = new Race();
+        for ( int t = 0; t < THREADS; t++ )
+        {
+            int thread = t;
+            race.addContestant( () ->
+            {
+                for ( int i = 0; i < TRANSACTIONS_PER_THREAD; i++ )
+                {
+                    insertRelationships( hub, thread + i, created );
+                }
+            } );
+        }
+        race.go();
+
+        // THEN
+        int total = THREADS * TRANSACTIONS_PER_THREAD * RELATIONSHIPS_PER_TRANSACTION;
+        assertEquals( total, created.size() );
+        try ( Transaction tx = db.beginTx() )
+        {
+            int expectedDegree = 2 * (TYPES.length - 1) + total;
+            assertEquals( expectedDegree, hub.getDegree() );
+            assertEquals( expectedDegree, count( hub.getRelationships() ) );
+            for ( RelationshipType type : TYPES )
+            {
+                for ( Direction direction : new Direction[]{Direction.OUTGOING, Direction.INCOMING} )
+                {
+                    assertEquals( hub.getDegree( type, direction ),
+                            count( hub.getRelationships( type, direction ) ) );
+                }
+                assertEquals( countsForRelationship( type ), hub.getDegree( type ) );
+            }
+            for ( Relationship relationship : hub.getRelationships() )
+            {
+                Node other = relationship.getOtherNode( hub );
+                if ( created.contains( relationship.getId() ) )
+                {
+                    assertEquals( relationship, single( other.getRelationships() ) );
+                }
+                created.remove( relationship.getId() );
+            }
+            assertTrue( "Relationships missing from the chains of the dense node: " + created, created.isEmpty() );
+            tx.success();
+        }
+    }
+
+    private void insertRelationships( Node hub, int seed, Set<Long> created )
+    {
+        while ( true )
+        {
+            long[] ids = new long[RELATIONSHIPS_PER_TRANSACTION];
+            try ( Transaction tx = db.beginTx() )
+            {
+                for ( int i = 0; i < RELATIONSHIPS_PER_TRANSACTION; i++ )
+                {
+                    RelationshipType type = TYPES[(seed + i) % TYPES.length];
+                    Node other = db.createNode();
+                    Relationship relationship = i % 2 == 0
+                                                ? hub.createRelationshipTo( other, type )
+                                                : other.createRelationshipTo( hub, type );
+                    ids[i] = relationship.getId();
+                }
+                tx.success();
+            }
+            catch ( TransientFailureException e )
+            {
+                // Deadlocks between transactions creating a missing group are resolved by retrying
+                continue;
+            }
+            for ( long id : ids )
+            {
+                created.add( id );
+            }
+            return;
+        }
+    }
+
+    private long countsForRelationship( RelationshipType type )
+    {
+        Supplier<Statement> statements = db.getDependencyResolver()
+                .resolveDependency( ThreadToStatementContextBridge.class );
+        try ( Statement statement = statements.get() )
+        {
+            ReadOperations read = statement.readOperations();
+            return read.countsForRelationship( ReadOperations.ANY_LABEL,
+                    read.relationshipTypeGetForName( type.name() ), ReadOperations.ANY_LABEL );
+        }
+    }
+}
@@ -19,7 +19,7 @@
  */
 package org.neo4j.kernel.api;
 
-import java.util.function.Supplier;
+import java.util.function.Function;
 
 import org.neo4j.collection.pool.Pool;
 import org.neo4j.kernel.api.security.SecurityContext;
@@ -29,6 +29,7 @@ import org.neo4j.kernel.impl.api.StatementOperationContainer;
 import org.neo4j.kernel.impl.api.TransactionHeaderInformation;
 import org.neo4j.kernel.impl.api.TransactionHooks;
 import org.neo4j.kernel.impl.api.TransactionRepresentationCommitProcess;
+import org.neo4j.kernel.impl.api.TxStateMemoryPool;
 import org.neo4j.kernel.impl.api.state.ConstraintIndexCreator;
 import org.neo4j.kernel.impl.factory.CanWrite;
 import org.neo4j.kernel.impl.locking.NoOpClient;
@@ -83,11 +84,11 @@ public class KernelTransactionFactory
                 new TransactionHooks(),
                 mock( ConstraintIndexCreator.class ), new Procedures(), headerInformationFactory,
                 mock( TransactionRepresentationCommitProcess.class ), mock( TransactionMonitor.class ),
-                mock( Supplier.class ),
+                mock( Function.class ),
                 mock( Pool.class ),
                 Clocks.systemClock(),
                 NULL,
-                storageEngine, new CanWrite() );
+                storageEngine, new CanWrite(), TxStateMemoryPool.UNLIMITED );
 
         StatementLocks statementLocks = new SimpleStatementLocks( new NoOpClient() );
 
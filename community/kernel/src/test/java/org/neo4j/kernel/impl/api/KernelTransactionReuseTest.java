@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.kernel.api.KernelAPI;
+import org.neo4j.kernel.api.KernelTransaction;
+import org.neo4j.kernel.api.Statement;
+import org.neo4j.kernel.impl.locking.StatementLocks;
+import org.neo4j.test.rule.ImpermanentDatabaseRule;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.neo4j.kernel.api.security.SecurityContext.AUTH_DISABLED;
+
+/**
+ * Kernel transactions and their statement locks are pooled, and the lock client is only bound when locks are asked
+ * for, so a transaction that only does a point read should reuse everything and never touch the lock manager.
+ */
+public class KernelTransactionReuseTest
+{
+    @Rule
+    public ImpermanentDatabaseRule db = new ImpermanentDatabaseRule();
+
+    private KernelAPI kernel;
+    private long nodeId;
+
+    @Before
+    public void setUp()
+    {
+        kernel = db.getDependencyResolver().resolveDependency( KernelAPI.class );
+        try ( Transaction tx = db.beginTx() )
+        {
+            nodeId = db.createNode().getId();
+            tx.success();
+        }
+    }
+
+    @Test
+    public void shouldReuseTransactionAndStatementLocksForPointReads() throws Exception
+    {
+        // given
+        KernelTransaction firstTransaction;
+        StatementLocks firstLocks;
+        try ( KernelTransaction tx = kernel.newTransaction( KernelTransaction.Type.implicit, AUTH_DISABLED );
+              Statement statement = tx.acquireStatement() )
+        {
+            assertTrue( statement.readOperations().nodeExists( nodeId ) );
+            firstTransaction = tx;
+            firstLocks = ((KernelStatement) statement).locks();
+            tx.success();
+        }
+
+        // when
+        try ( KernelTransaction tx = kernel.newTransaction( KernelTransaction.Type.implicit, AUTH_DISABLED );
+              Statement statement = tx.acquireStatement() )
+        {
+            assertTrue( statement.readOperations().nodeExists( nodeId ) );
+            StatementLocks locks = ((KernelStatement) statement).locks();
+
+            // then
+            assertSame( firstTransaction, tx );
+            assertSame( firstLocks, locks );
+            assertEquals( "No lock client should be bound for a point read", -1, locks.lockSessionId() );
+            tx.success();
+        }
+    }
+}
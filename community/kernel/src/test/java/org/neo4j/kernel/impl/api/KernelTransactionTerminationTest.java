@@ -332,9 +332,10 @@ public class KernelTransactionTerminationTest
         {
             super( mock( StatementOperationContainer.class ), mock( SchemaWriteGuard.class ), new TransactionHooks(),
                     mock( ConstraintIndexCreator.class ), new Procedures(), TransactionHeaderInformationFactory.DEFAULT,
-                    mock( TransactionCommitProcess.class ), monitor, () -> mock( LegacyIndexTransactionState.class ),
-                    mock( Pool.class ), Clocks.fakeClock(), TransactionTracer.NULL,
-                    mock( StorageEngine.class, RETURNS_MOCKS ), new CanWrite() );
+                    mock( TransactionCommitProcess.class ), monitor,
+                    tracker -> mock( LegacyIndexTransactionState.class ), mock( Pool.class ), Clocks.fakeClock(),
+                    TransactionTracer.NULL, mock( StorageEngine.class, RETURNS_MOCKS ), new CanWrite(),
+                    TxStateMemoryPool.UNLIMITED );
 
             this.monitor = monitor;
         }
@@ -22,7 +22,7 @@ package org.neo4j.kernel.impl.api;
 import org.junit.Before;
 
 import java.util.Collection;
-import java.util.function.Supplier;
+import java.util.function.Function;
 
 import org.neo4j.collection.pool.Pool;
 import org.neo4j.graphdb.factory.GraphDatabaseSettings;
@@ -72,7 +72,8 @@ public class KernelTransactionTestBase
     protected final StoreReadLayer readLayer = mock( StoreReadLayer.class );
     protected final TransactionHooks hooks = new TransactionHooks();
     protected final LegacyIndexTransactionState legacyIndexState = mock( LegacyIndexTransactionState.class );
-    protected final Supplier<LegacyIndexTransactionState> legacyIndexStateSupplier = () -> legacyIndexState;
+    protected final Function<TxStateMemoryTracker,LegacyIndexTransactionState> legacyIndexStateFactory =
+            memory -> legacyIndexState;
     protected final TransactionMonitor transactionMonitor = mock( TransactionMonitor.class );
     protected final CapturingCommitProcess commitProcess = new CapturingCommitProcess();
     protected final TransactionHeaderInformation headerInformation = mock( TransactionHeaderInformation.class );
@@ -134,11 +135,21 @@ public class KernelTransactionTestBase
         return tx;
     }
 
+    public KernelTransactionImplementation newReadOnlyTransaction( SecurityContext securityContext,
+            Locks.Client locks )
+    {
+        KernelTransactionImplementation tx = newNotInitializedTransaction();
+        StatementLocks statementLocks = new SimpleStatementLocks( locks );
+        tx.initialize( 0, BASE_TX_COMMIT_TIMESTAMP, statementLocks, Type.implicit, securityContext,
+                defaultTransactionTimeoutMillis, true );
+        return tx;
+    }
+
     public KernelTransactionImplementation newNotInitializedTransaction()
     {
         return new KernelTransactionImplementation( operationContainer, schemaWriteGuard,
-                hooks, null, null, headerInformationFactory, commitProcess, transactionMonitor, legacyIndexStateSupplier,
-                txPool, clock, TransactionTracer.NULL, storageEngine, new CanWrite() );
+                hooks, null, null, headerInformationFactory, commitProcess, transactionMonitor, legacyIndexStateFactory,
+                txPool, clock, TransactionTracer.NULL, storageEngine, new CanWrite(), TxStateMemoryPool.UNLIMITED );
     }
 
     public class CapturingCommitProcess implements TransactionCommitProcess
@@ -465,12 +465,14 @@ public class KernelTransactionsTest
             return new TestKernelTransactions( statementLocksFactory, null, statementOperationsContianer,
                     null, DEFAULT,
                     commitProcess, null, null, new TransactionHooks(), mock( TransactionMonitor.class ), life,
-                    tracers, storageEngine, new Procedures(), transactionIdStore, Clocks.systemClock(), new CanWrite() );
+                    tracers, storageEngine, new Procedures(), transactionIdStore, Clocks.systemClock(), new CanWrite(),
+                    TxStateMemoryPool.UNLIMITED );
         }
         return new KernelTransactions( statementLocksFactory,
                 null, statementOperationsContianer, null, DEFAULT,
                 commitProcess, null, null, new TransactionHooks(), mock( TransactionMonitor.class ), life,
-                tracers, storageEngine, new Procedures(), transactionIdStore, Clocks.systemClock(), new CanWrite() );
+                tracers, storageEngine, new Procedures(), transactionIdStore, Clocks.systemClock(), new CanWrite(),
+                TxStateMemoryPool.UNLIMITED );
     }
 
     private static TransactionCommitProcess newRememberingCommitProcess( final TransactionRepresentation[] slot )
@@ -518,12 +520,12 @@ public class KernelTransactionsTest
                 LegacyIndexProviderLookup legacyIndexProviderLookup, TransactionHooks hooks,
                 TransactionMonitor transactionMonitor, LifeSupport dataSourceLife, Tracers tracers,
                 StorageEngine storageEngine, Procedures procedures, TransactionIdStore transactionIdStore, Clock clock,
-                AccessCapability accessCapability )
+                AccessCapability accessCapability, TxStateMemoryPool txStateMemoryPool )
         {
             super( statementLocksFactory, constraintIndexCreator, statementOperationsContianer, schemaWriteGuard,
                     txHeaderFactory, transactionCommitProcess, indexConfigStore, legacyIndexProviderLookup, hooks,
                     transactionMonitor, dataSourceLife, tracers, storageEngine, procedures, transactionIdStore, clock,
-                    accessCapability );
+                    accessCapability, txStateMemoryPool );
         }
 
         @Override
@@ -26,6 +26,7 @@ import java.util.Collections;
 import java.util.Iterator;
 import java.util.function.Function;
 
+import org.neo4j.collection.primitive.PrimitiveIntCollections;
 import org.neo4j.kernel.api.constraints.NodePropertyConstraint;
 import org.neo4j.kernel.api.constraints.PropertyConstraint;
 import org.neo4j.kernel.api.constraints.UniquenessConstraint;
@@ -84,8 +85,9 @@ public class LockingStatementOperationsTest
     private final InOrder order;
     private final KernelTransactionImplementation transaction = mock( KernelTransactionImplementation.class );
     private final TxState txState = new TxState();
+    private final StorageStatement storeStatement = mock( StorageStatement.class );
     private final KernelStatement state = new KernelStatement( transaction, new SimpleTxStateHolder( txState ),
-            mock( StorageStatement.class ), new Procedures(), new CanWrite() );
+            storeStatement, new Procedures(), new CanWrite() );
     private final SchemaStateOperations schemaStateOps;
 
     public LockingStatementOperationsTest()
@@ -407,6 +409,51 @@ public class LockingStatementOperationsTest
         }
     }
 
+    @Test
+    public void shouldShareLockOfDenseNodeWithExistingGroupWhenCreatingRelationshipWithDeferredLocking()
+            throws Exception
+    {
+        // GIVEN
+        LockingStatementOperations deferredLockingOps = new LockingStatementOperations(
+                entityReadOps, entityWriteOps, schemaReadOps, schemaWriteOps, schemaStateOps, true );
+        NodeItem denseNode = mock( NodeItem.class );
+        when( denseNode.isDense() ).thenReturn( true );
+        when( denseNode.getRelationshipTypes() ).thenAnswer( invocation -> PrimitiveIntCollections.iterator( 0, 1 ) );
+        when( storeStatement.acquireSingleNodeCursor( 3 ) ).thenAnswer( invocation -> Cursors.cursor( denseNode ) );
+        NodeItem sparseNode = mock( NodeItem.class );
+        when( sparseNode.isDense() ).thenReturn( false );
+        when( storeStatement.acquireSingleNodeCursor( 5 ) ).thenAnswer( invocation -> Cursors.cursor( sparseNode ) );
+
+        // WHEN
+        deferredLockingOps.relationshipCreate( state, 1, 5, 3 );
+
+        // THEN
+        order.verify( locks ).acquireShared( ResourceTypes.NODE, 3 );
+        order.verify( locks ).acquireExclusive( ResourceTypes.NODE, 5 );
+        order.verify( entityWriteOps ).relationshipCreate( state, 1, 5, 3 );
+    }
+
+    @Test
+    public void shouldLockDenseNodeExclusivelyWhenCreatingRelationshipOfNewTypeWithDeferredLocking()
+            throws Exception
+    {
+        // GIVEN
+        LockingStatementOperations deferredLockingOps = new LockingStatementOperations(
+                entityReadOps, entityWriteOps, schemaReadOps, schemaWriteOps, schemaStateOps, true );
+        NodeItem denseNode = mock( NodeItem.class );
+        when( denseNode.isDense() ).thenReturn( true );
+        when( denseNode.getRelationshipTypes() ).thenAnswer( invocation -> PrimitiveIntCollections.iterator( 0, 1 ) );
+        when( storeStatement.acquireSingleNodeCursor( 3 ) ).thenAnswer( invocation -> Cursors.cursor( denseNode ) );
+
+        // WHEN
+        deferredLockingOps.relationshipCreate( state, 2, 3, 3 );
+
+        // THEN
+        order.verify( locks ).acquireExclusive( ResourceTypes.NODE, 3 );
+        order.verify( locks, never() ).acquireShared( ResourceTypes.NODE, 3 );
+        order.verify( entityWriteOps ).relationshipCreate( state, 2, 3, 3 );
+    }
+
     @SuppressWarnings( "unchecked" )
     @Test
     public void shouldAcquireNodeLocksWhenDeletingRelationshipInOrderOfAscendingId() throws Exception
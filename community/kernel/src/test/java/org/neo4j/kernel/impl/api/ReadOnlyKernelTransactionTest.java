@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.neo4j.graphdb.TransactionTerminatedException;
+import org.neo4j.kernel.api.KernelTransaction;
+import org.neo4j.kernel.api.Statement;
+import org.neo4j.kernel.api.exceptions.InvalidTransactionTypeKernelException;
+import org.neo4j.kernel.api.exceptions.Status;
+import org.neo4j.kernel.api.exceptions.TransactionFailureException;
+import org.neo4j.kernel.api.security.AnonymousContext;
+import org.neo4j.kernel.impl.locking.Locks;
+import org.neo4j.kernel.impl.locking.NoOpClient;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.neo4j.kernel.api.security.SecurityContext.AUTH_DISABLED;
+
+public class ReadOnlyKernelTransactionTest extends KernelTransactionTestBase
+{
+    @Test
+    public void shouldRefuseDataWrites() throws Exception
+    {
+        try ( KernelTransaction tx = newReadOnlyTransaction( AnonymousContext.write(), new NoOpClient() );
+              Statement statement = tx.acquireStatement() )
+        {
+            statement.dataWriteOperations();
+            fail( "Should not be able to write in a read-only transaction" );
+        }
+        catch ( InvalidTransactionTypeKernelException e )
+        {
+            // expected
+        }
+    }
+
+    @Test
+    public void shouldRefuseSchemaWrites() throws Exception
+    {
+        try ( KernelTransaction tx = newReadOnlyTransaction( AUTH_DISABLED, new NoOpClient() );
+              Statement statement = tx.acquireStatement() )
+        {
+            statement.schemaWriteOperations();
+            fail( "Should not be able to write schema in a read-only transaction" );
+        }
+        catch ( InvalidTransactionTypeKernelException e )
+        {
+            // expected
+        }
+    }
+
+    @Test
+    public void shouldCloseSuccessfulTransactionWithoutCommitting() throws Exception
+    {
+        // given
+        Locks.Client locks = mock( Locks.Client.class );
+        AtomicLong closeTxId = new AtomicLong( Long.MIN_VALUE );
+        KernelTransactionImplementation tx = newReadOnlyTransaction( AnonymousContext.read(), locks );
+        tx.registerCloseListener( closeTxId::set );
+
+        // when
+        tx.success();
+        long txId = tx.closeTransaction();
+
+        // then
+        assertEquals( KernelTransaction.READ_ONLY, txId );
+        assertEquals( KernelTransaction.READ_ONLY, closeTxId.get() );
+        assertNull( commitProcess.transaction );
+        assertFalse( tx.isOpen() );
+        verify( transactionMonitor ).transactionFinished( true, false );
+        verifyNoMoreInteractions( transactionMonitor );
+        verify( locks ).close();
+        verifyNoMoreInteractions( locks );
+    }
+
+    @Test
+    public void shouldRollBackUnsuccessfulTransaction() throws Exception
+    {
+        // given
+        AtomicLong closeTxId = new AtomicLong( Long.MIN_VALUE );
+        KernelTransactionImplementation tx = newReadOnlyTransaction( AnonymousContext.read(), new NoOpClient() );
+        tx.registerCloseListener( closeTxId::set );
+
+        // when
+        long txId = tx.closeTransaction();
+
+        // then
+        assertEquals( KernelTransaction.ROLLBACK, txId );
+        assertEquals( KernelTransaction.ROLLBACK, closeTxId.get() );
+        verify( transactionMonitor ).transactionFinished( false, false );
+    }
+
+    @Test
+    public void shouldThrowWhenClosingTerminatedSuccessfulTransaction() throws Exception
+    {
+        // given
+        KernelTransactionImplementation tx = newReadOnlyTransaction( AnonymousContext.read(), new NoOpClient() );
+        tx.success();
+        tx.markForTermination( Status.Transaction.Terminated );
+
+        try
+        {
+            // when
+            tx.close();
+            fail( "Expected the termination to be reported" );
+        }
+        catch ( TransactionTerminatedException e )
+        {
+            // then
+            assertEquals( Status.Transaction.Terminated, e.status() );
+        }
+        verify( transactionMonitor ).transactionTerminated( false );
+        verify( transactionMonitor ).transactionFinished( false, false );
+    }
+
+    @Test
+    public void shouldRollBackFailedAndSuccessfulTransactionWithFailure() throws Exception
+    {
+        // given
+        KernelTransactionImplementation tx = newReadOnlyTransaction( AnonymousContext.read(), new NoOpClient() );
+        tx.success();
+        tx.failure();
+
+        try
+        {
+            // when
+            tx.close();
+            fail( "Expected the rollback to be reported" );
+        }
+        catch ( TransactionFailureException e )
+        {
+            // then
+            assertEquals( Status.Transaction.TransactionMarkedAsFailed, e.status() );
+        }
+    }
+}
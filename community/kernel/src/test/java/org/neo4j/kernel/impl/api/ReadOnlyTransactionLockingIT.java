@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.helpers.collection.Iterables;
+import org.neo4j.kernel.api.KernelTransaction;
+import org.neo4j.kernel.impl.coreapi.InternalTransaction;
+import org.neo4j.test.rule.DatabaseRule;
+import org.neo4j.test.rule.ImpermanentDatabaseRule;
+import org.neo4j.test.rule.concurrent.OtherThreadRule;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.neo4j.graphdb.Label.label;
+import static org.neo4j.kernel.api.security.SecurityContext.AUTH_DISABLED;
+
+public class ReadOnlyTransactionLockingIT
+{
+    private static final Label LABEL = label( "Label" );
+
+    @Rule
+    public final DatabaseRule db = new ImpermanentDatabaseRule();
+    @Rule
+    public final OtherThreadRule<Void> writer = new OtherThreadRule<>( "writer" );
+    @Rule
+    public final OtherThreadRule<Void> reader = new OtherThreadRule<>( "reader" );
+
+    @Test
+    public void schemaReadsMustWaitForConcurrentSchemaChanges() throws Exception
+    {
+        // given a schema transaction that holds the exclusive schema lock
+        CountDownLatch indexCreated = new CountDownLatch( 1 );
+        CountDownLatch commit = new CountDownLatch( 1 );
+        Future<Void> schemaChange = writer.execute( state ->
+        {
+            try ( Transaction tx = db.beginTx() )
+            {
+                db.schema().indexFor( LABEL ).on( "key" ).create();
+                indexCreated.countDown();
+                commit.await();
+                tx.success();
+            }
+            return null;
+        } );
+        indexCreated.await();
+
+        // when
+        Future<Long> indexes = reader.execute( state ->
+        {
+            try ( InternalTransaction tx = db.beginReadOnlyTransaction(
+                    KernelTransaction.Type.explicit, AUTH_DISABLED ) )
+            {
+                long count = Iterables.count( db.schema().getIndexes( LABEL ) );
+                tx.success();
+                return count;
+            }
+        } );
+
+        // then the read-only transaction waits for the shared schema lock, and then sees the new index
+        reader.get().waitUntilWaiting();
+        assertFalse( indexes.isDone() );
+        commit.countDown();
+        schemaChange.get();
+        assertEquals( 1L, indexes.get().longValue() );
+    }
+}
@@ -96,6 +96,12 @@ public class TestKernelTransactionHandle implements KernelTransactionHandle
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    public long txStateMemoryUsage()
+    {
+        throw new UnsupportedOperationException();
+    }
+
     @Override
     public boolean equals( Object o )
     {
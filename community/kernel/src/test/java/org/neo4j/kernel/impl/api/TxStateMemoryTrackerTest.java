@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.neo4j.kernel.api.exceptions.Status;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TxStateMemoryTrackerTest
+{
+    private final List<Status> terminations = new ArrayList<>();
+
+    @Test
+    public void shouldAccountAllocatedBytes() throws Exception
+    {
+        // given
+        TxStateMemoryTracker tracker = new TxStateMemoryTracker( TxStateMemoryPool.UNLIMITED, terminations::add );
+
+        // when
+        tracker.allocate( 100 );
+        tracker.allocate( 50 );
+
+        // then
+        assertEquals( 150, tracker.usedBytes() );
+        tracker.reset();
+        assertEquals( 0, tracker.usedBytes() );
+    }
+
+    @Test
+    public void shouldTerminateTransactionGoingBeyondTransactionLimit() throws Exception
+    {
+        // given
+        TxStateMemoryPool pool = new TxStateMemoryPool( 1000, 0 );
+        TxStateMemoryTracker tracker = new TxStateMemoryTracker( pool, terminations::add );
+        tracker.allocate( 1000 );
+
+        // when
+        try
+        {
+            tracker.allocate( 1 );
+            fail( "Should have failed" );
+        }
+        catch ( TxStateMemoryLimitException e )
+        {
+            // then
+            assertEquals( Status.Transaction.TransactionStateTooLarge, e.status() );
+        }
+        assertEquals( 1, terminations.size() );
+        assertEquals( Status.Transaction.TransactionStateTooLarge, terminations.get( 0 ) );
+        assertEquals( 1000, tracker.usedBytes() );
+    }
+
+    @Test
+    public void shouldTerminateTransactionWhenTotalLimitIsReached() throws Exception
+    {
+        // given
+        long chunk = TxStateMemoryPool.RESERVATION_CHUNK_SIZE;
+        TxStateMemoryPool pool = new TxStateMemoryPool( 0, 2 * chunk );
+        TxStateMemoryTracker first = new TxStateMemoryTracker( pool, terminations::add );
+        TxStateMemoryTracker second = new TxStateMemoryTracker( pool, terminations::add );
+        first.allocate( chunk );
+        first.allocate( chunk );
+        assertEquals( 2 * chunk, pool.reservedBytes() );
+
+        // when
+        try
+        {
+            second.allocate( 1 );
+            fail( "Should have failed" );
+        }
+        catch ( TxStateMemoryLimitException e )
+        {
+            // then
+            assertEquals( Status.Transaction.TransactionStateMemoryExhausted, e.status() );
+        }
+        assertEquals( 1, terminations.size() );
+
+        // and when
+        first.reset();
+
+        // then
+        assertEquals( 0, pool.reservedBytes() );
+        second.allocate( 1 );
+        assertEquals( chunk, pool.reservedBytes() );
+    }
+
+    @Test
+    public void shouldEstimateSizeOfValues() throws Exception
+    {
+        assertTrue( TxStateMemoryTracker.sizeOf( "a longer string value" ) >
+                TxStateMemoryTracker.sizeOf( "short" ) );
+        assertTrue( TxStateMemoryTracker.sizeOf( new long[100] ) >= 800 );
+        assertTrue( TxStateMemoryTracker.sizeOf( new String[]{"a", "b"} ) >
+                2 * TxStateMemoryTracker.sizeOf( "a" ) );
+        assertTrue( TxStateMemoryTracker.sizeOf( 42 ) > 0 );
+    }
+}
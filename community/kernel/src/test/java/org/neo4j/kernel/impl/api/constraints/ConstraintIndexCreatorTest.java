@@ -175,6 +175,13 @@ public class ConstraintIndexCreatorTest
             return new StubKernelTransaction( timeout );
         }
 
+        @Override
+        public KernelTransaction newReadOnlyTransaction( KernelTransaction.Type type, SecurityContext securityContext,
+                long timeout )
+        {
+            throw new UnsupportedOperationException( "Please implement" );
+        }
+
         @Override
         public void registerTransactionHook( TransactionHook hook )
         {
@@ -22,8 +22,11 @@ package org.neo4j.kernel.impl.locking;
 import org.junit.Ignore;
 import org.junit.Test;
 
+import java.util.List;
 import java.util.concurrent.Future;
 
+import org.neo4j.kernel.impl.locking.LockWaitStatistics.ContendedResource;
+
 import static junit.framework.Assert.assertTrue;
 import static junit.framework.TestCase.assertFalse;
 import static org.junit.Assert.assertEquals;
@@ -92,6 +95,26 @@ public class AcquireAndReleaseLocksCompatibility extends LockingCompatibilityTes
         assertNotWaiting( clientB, clientBLock );
     }
 
+    @Test
+    public void shouldRecordWaitForContendedLock() throws Exception
+    {
+        // Given
+        clientA.acquireExclusive( NODE, 1L );
+        Future<Object> clientBLock = acquireShared( clientB, NODE, 1L ).callAndAssertWaiting();
+
+        // When
+        clientA.releaseExclusive( NODE, 1L );
+        assertNotWaiting( clientB, clientBLock );
+
+        // Then
+        LockWaitStatistics statistics = locks.waitStatistics();
+        assertEquals( 1, statistics.histogram( NODE ).waits() );
+        List<ContendedResource> contended = statistics.topContendedResources();
+        assertEquals( 1, contended.size() );
+        assertEquals( NODE, contended.get( 0 ).resourceType() );
+        assertEquals( 1L, contended.get( 0 ).resourceId() );
+    }
+
     @Test
     public void shouldTrySharedLock() throws Exception
     {
@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.locking;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import org.neo4j.kernel.impl.locking.LockWaitStatistics.ContendedResource;
+import org.neo4j.kernel.impl.locking.LockWaitStatistics.Histogram;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.neo4j.kernel.impl.locking.ResourceTypes.NODE;
+import static org.neo4j.kernel.impl.locking.ResourceTypes.RELATIONSHIP;
+import static org.neo4j.kernel.impl.locking.ResourceTypes.SCHEMA;
+
+public class LockWaitStatisticsTest
+{
+    @Test
+    public void shouldKeepSeparateHistogramPerResourceType() throws Exception
+    {
+        // given
+        LockWaitStatistics statistics = new LockWaitStatistics( NODE, RELATIONSHIP );
+
+        // when
+        statistics.recordWait( NODE, 1, MILLISECONDS.toNanos( 2 ) );
+        statistics.recordWait( NODE, 2, MILLISECONDS.toNanos( 3 ) );
+        statistics.recordWait( RELATIONSHIP, 1, MILLISECONDS.toNanos( 1 ) );
+
+        // then
+        Histogram nodes = statistics.histogram( NODE );
+        assertEquals( 2, nodes.waits() );
+        assertEquals( MILLISECONDS.toNanos( 5 ), nodes.totalWaitNanos() );
+        Histogram relationships = statistics.histogram( RELATIONSHIP );
+        assertEquals( 1, relationships.waits() );
+        assertEquals( MILLISECONDS.toNanos( 1 ), relationships.totalWaitNanos() );
+    }
+
+    @Test
+    public void shouldIgnoreWaitsOnUnknownResourceTypes() throws Exception
+    {
+        // given
+        LockWaitStatistics statistics = new LockWaitStatistics( NODE );
+
+        // when
+        statistics.recordWait( SCHEMA, 1, MILLISECONDS.toNanos( 2 ) );
+
+        // then
+        assertEquals( 0, statistics.histogram( SCHEMA ).waits() );
+        assertEquals( 0, statistics.topContendedResources().size() );
+    }
+
+    @Test
+    public void shouldEstimatePercentilesFromPowerOfTwoBuckets() throws Exception
+    {
+        // given
+        LockWaitStatistics statistics = new LockWaitStatistics( NODE );
+        for ( int i = 0; i < 99; i++ )
+        {
+            statistics.recordWait( NODE, i, MICROSECONDS.toNanos( 3 ) );
+        }
+        statistics.recordWait( NODE, 100, MICROSECONDS.toNanos( 1000 ) );
+
+        // when
+        Histogram histogram = statistics.histogram( NODE );
+
+        // then
+        assertEquals( 99, histogram.bucket( LockWaitStatistics.bucketOf( MICROSECONDS.toNanos( 3 ) ) ) );
+        assertEquals( 4, histogram.percentileMicros( 50 ) );
+        assertEquals( 4, histogram.percentileMicros( 99 ) );
+        assertEquals( 1024, histogram.percentileMicros( 100 ) );
+    }
+
+    @Test
+    public void shouldPutLongWaitsInLastBucket() throws Exception
+    {
+        assertEquals( LockWaitStatistics.HISTOGRAM_BUCKETS - 1,
+                LockWaitStatistics.bucketOf( MILLISECONDS.toNanos( 1_000_000 ) ) );
+        assertEquals( 0, LockWaitStatistics.bucketOf( 500 ) );
+    }
+
+    @Test
+    public void shouldListMostContendedResourcesFirst() throws Exception
+    {
+        // given
+        LockWaitStatistics statistics = new LockWaitStatistics( 4, NODE, RELATIONSHIP );
+
+        // when
+        statistics.recordWait( NODE, 1, 10 );
+        statistics.recordWait( RELATIONSHIP, 1, 30 );
+        statistics.recordWait( NODE, 1, 10 );
+        statistics.recordWait( NODE, 2, 25 );
+
+        // then
+        List<ContendedResource> contended = statistics.topContendedResources();
+        assertEquals( 3, contended.size() );
+        assertContended( contended.get( 0 ), RELATIONSHIP, 1, 1, 30 );
+        assertContended( contended.get( 1 ), NODE, 2, 1, 25 );
+        assertContended( contended.get( 2 ), NODE, 1, 2, 20 );
+    }
+
+    @Test
+    public void shouldKeepHotResourceWhenSketchIsFull() throws Exception
+    {
+        // given
+        LockWaitStatistics statistics = new LockWaitStatistics( 2, NODE );
+        statistics.recordWait( NODE, 1, 1_000 );
+
+        // when a lot of resources are contended once each
+        for ( long id = 2; id < 100; id++ )
+        {
+            statistics.recordWait( NODE, id, 1 );
+        }
+        statistics.recordWait( NODE, 1, 1_000 );
+
+        // then
+        List<ContendedResource> contended = statistics.topContendedResources();
+        assertEquals( 2, contended.size() );
+        assertContended( contended.get( 0 ), NODE, 1, 2, 2_000 );
+    }
+
+    private void assertContended( ContendedResource resource, ResourceTypes type, long id, long waits, long nanos )
+    {
+        assertEquals( type, resource.resourceType() );
+        assertEquals( id, resource.resourceId() );
+        assertEquals( waits, resource.waits() );
+        assertEquals( nanos, resource.totalWaitNanos() );
+    }
+}
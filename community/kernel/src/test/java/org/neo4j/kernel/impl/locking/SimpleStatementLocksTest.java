@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.locking;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class SimpleStatementLocksTest
+{
+    private final Locks locks = mock( Locks.class );
+    private final StatementLocksFactory factory = new SimpleStatementLocksFactory( locks );
+
+    @Test
+    public void shouldNotCreateClientUntilLocksAreAskedFor() throws Exception
+    {
+        // when
+        StatementLocks statementLocks = factory.newInstance();
+        statementLocks.prepareForCommit();
+        statementLocks.stop();
+        statementLocks.close();
+
+        // then
+        verify( locks, never() ).newClient();
+    }
+
+    @Test
+    public void shouldUseSameClientForPessimisticAndOptimisticLocks() throws Exception
+    {
+        // given
+        Locks.Client client = mock( Locks.Client.class );
+        when( locks.newClient() ).thenReturn( client );
+        when( client.getLockSessionId() ).thenReturn( 42 );
+        StatementLocks statementLocks = factory.newInstance();
+        assertEquals( -1, statementLocks.lockSessionId() );
+
+        // when
+        Locks.Client pessimistic = statementLocks.pessimistic();
+        Locks.Client optimistic = statementLocks.optimistic();
+
+        // then
+        assertSame( client, pessimistic );
+        assertSame( client, optimistic );
+        assertEquals( 42, statementLocks.lockSessionId() );
+        verify( locks, times( 1 ) ).newClient();
+    }
+
+    @Test
+    public void shouldStopClientCreatedAfterBeingStopped() throws Exception
+    {
+        // given
+        Locks.Client client = mock( Locks.Client.class );
+        when( locks.newClient() ).thenReturn( client );
+        StatementLocks statementLocks = factory.newInstance();
+
+        // when
+        statementLocks.stop();
+        statementLocks.pessimistic();
+
+        // then
+        verify( client ).stop();
+    }
+
+    @Test
+    public void shouldCloseClientAndBeReusedAfterClose() throws Exception
+    {
+        // given
+        Locks.Client first = mock( Locks.Client.class );
+        Locks.Client second = mock( Locks.Client.class );
+        when( locks.newClient() ).thenReturn( first, second );
+        StatementLocks statementLocks = factory.newInstance();
+        statementLocks.pessimistic();
+        statementLocks.stop();
+
+        // when
+        statementLocks.close();
+        StatementLocks reused = factory.newInstance();
+
+        // then
+        verify( first ).close();
+        assertSame( statementLocks, reused );
+        assertSame( second, reused.pessimistic() );
+        verify( second, never() ).stop();
+    }
+
+    @Test
+    public void shouldCloseGivenClient() throws Exception
+    {
+        // given
+        Locks.Client client = mock( Locks.Client.class );
+        StatementLocks statementLocks = new SimpleStatementLocks( client );
+
+        // when
+        statementLocks.stop();
+        statementLocks.close();
+
+        // then
+        verify( client ).stop();
+        verify( client ).close();
+        verify( locks, never() ).newClient();
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.pagecache;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.Flushable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.neo4j.io.pagecache.IOLimiter;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class FixedRateIOLimiterTest
+{
+    private static final Flushable FLUSHABLE = () -> {};
+
+    private AtomicLong pauseNanosCounter;
+
+    @Before
+    public void setUp()
+    {
+        pauseNanosCounter = new AtomicLong();
+    }
+
+    private IOLimiter createIOLimiter( int iops )
+    {
+        return new FixedRateIOLimiter( iops, ( blocker, nanos ) -> pauseNanosCounter.getAndAdd( nanos ) );
+    }
+
+    @Test
+    public void mustRestrictIORateToConfiguredLimit() throws Exception
+    {
+        IOLimiter limiter = createIOLimiter( 100 );
+
+        // Do 10*100 = 1000 IOs real quick, when we're limited to 100 IOPS.
+        long stamp = IOLimiter.INITIAL_STAMP;
+        for ( int i = 0; i < 100; i++ )
+        {
+            stamp = limiter.maybeLimitIO( stamp, 10, FLUSHABLE );
+        }
+
+        // This should have led to about 10 seconds of pause, minus the time we spent in the loop.
+        assertThat( pauseNanosCounter.get(), greaterThan( TimeUnit.SECONDS.toNanos( 9 ) ) );
+    }
+
+    @Test
+    public void mustNotPauseWhenStayingWithinTheLimit() throws Exception
+    {
+        IOLimiter limiter = createIOLimiter( 1000 );
+
+        long stamp = limiter.maybeLimitIO( IOLimiter.INITIAL_STAMP, 10, FLUSHABLE );
+        stamp = limiter.maybeLimitIO( stamp, 10, FLUSHABLE );
+        limiter.maybeLimitIO( stamp, 10, FLUSHABLE );
+
+        assertThat( pauseNanosCounter.get(), is( 0L ) );
+    }
+}
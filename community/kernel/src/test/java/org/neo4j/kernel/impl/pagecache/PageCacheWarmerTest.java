@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.pagecache;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.RuleChain;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.BitSet;
+
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.PagedFile;
+import org.neo4j.io.pagecache.tracing.DefaultPageCacheTracer;
+import org.neo4j.io.pagecache.tracing.PageCacheTracer;
+import org.neo4j.kernel.configuration.Config;
+import org.neo4j.kernel.impl.util.JobScheduler;
+import org.neo4j.logging.NullLogProvider;
+import org.neo4j.test.rule.PageCacheRule;
+import org.neo4j.test.rule.fs.EphemeralFileSystemRule;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.neo4j.graphdb.factory.GraphDatabaseSettings.pagecache_memory;
+import static org.neo4j.helpers.collection.MapUtil.stringMap;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_READ_LOCK;
+
+public class PageCacheWarmerTest
+{
+    private static final int PAGE_SIZE = 8192;
+    private static final int FILE_PAGES = 20;
+
+    private final EphemeralFileSystemRule fsRule = new EphemeralFileSystemRule();
+    private final PageCacheRule pageCacheRule = new PageCacheRule( false );
+
+    @Rule
+    public final RuleChain rules = RuleChain.outerRule( fsRule ).around( pageCacheRule );
+
+    private FileSystemAbstraction fs;
+    private File storeDir;
+    private File file;
+    private Config config;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        fs = fsRule.get();
+        storeDir = new File( "store" ).getAbsoluteFile();
+        fs.mkdirs( storeDir );
+        file = new File( storeDir, "neostore.nodestore.db" );
+        try ( OutputStream out = fs.openAsOutputStream( file, false ) )
+        {
+            out.write( new byte[PAGE_SIZE * FILE_PAGES] );
+        }
+        config = new Config( stringMap( pagecache_memory.name(), "8M" ) );
+    }
+
+    @Test
+    public void profileMustRecordThePagesThatAreInMemory() throws Exception
+    {
+        PageCache pageCache = pageCacheRule.getPageCache( fs, config );
+        try ( PagedFile pagedFile = pageCache.map( file, PAGE_SIZE ) )
+        {
+            touch( pagedFile, 1, 3, 5 );
+            PageCacheWarmer warmer = createWarmer( pageCache, PageCacheTracer.NULL );
+
+            assertThat( warmer.profile(), is( 3L ) );
+        }
+
+        assertThat( readProfile( file ), is( bitSet( 1, 3, 5 ) ) );
+    }
+
+    @Test
+    public void warmUpMustLoadTheProfiledPagesBackIntoMemory() throws Exception
+    {
+        PageCache pageCache = pageCacheRule.getPageCache( fs, config );
+        try ( PagedFile pagedFile = pageCache.map( file, PAGE_SIZE ) )
+        {
+            touch( pagedFile, 2, 4, 7, 19 );
+            createWarmer( pageCache, PageCacheTracer.NULL ).profile();
+        }
+
+        DefaultPageCacheTracer tracer = new DefaultPageCacheTracer();
+        pageCache = pageCacheRule.getPageCache( fs, tracer, config );
+        try ( PagedFile pagedFile = pageCache.map( file, PAGE_SIZE ) )
+        {
+            assertThat( pagedFile.getCachedPages().isEmpty(), is( true ) );
+            PageCacheWarmer warmer = createWarmer( pageCache, tracer );
+
+            assertThat( warmer.warmUp(), is( 4L ) );
+            assertThat( tracer.pagesWarmedUp(), is( 4L ) );
+            assertThat( pagedFile.getCachedPages(), is( bitSet( 2, 4, 7, 19 ) ) );
+        }
+    }
+
+    @Test
+    public void warmUpMustIgnoreProfilesOfFilesThatAreNotMapped() throws Exception
+    {
+        PageCache pageCache = pageCacheRule.getPageCache( fs, config );
+        try ( PagedFile pagedFile = pageCache.map( file, PAGE_SIZE ) )
+        {
+            touch( pagedFile, 1 );
+            createWarmer( pageCache, PageCacheTracer.NULL ).profile();
+        }
+
+        assertThat( createWarmer( pageCache, PageCacheTracer.NULL ).warmUp(), is( 0L ) );
+        assertFalse( pageCache.getExistingMapping( file ).isPresent() );
+    }
+
+    @Test
+    public void warmUpMustIgnorePagesBeyondTheEndOfTheFile() throws Exception
+    {
+        PageCache pageCache = pageCacheRule.getPageCache( fs, config );
+        try ( PagedFile pagedFile = pageCache.map( file, PAGE_SIZE ) )
+        {
+            touch( pagedFile, 3, FILE_PAGES - 1 );
+            createWarmer( pageCache, PageCacheTracer.NULL ).profile();
+        }
+        fs.truncate( file, PAGE_SIZE * 10 );
+
+        pageCache = pageCacheRule.getPageCache( fs, config );
+        try ( PagedFile pagedFile = pageCache.map( file, PAGE_SIZE ) )
+        {
+            assertThat( createWarmer( pageCache, PageCacheTracer.NULL ).warmUp(), is( 1L ) );
+            assertThat( pagedFile.getLastPageId(), is( 9L ) );
+        }
+    }
+
+    private PageCacheWarmer createWarmer( PageCache pageCache, PageCacheTracer tracer )
+    {
+        return new PageCacheWarmer( fs, pageCache, storeDir, mock( JobScheduler.class ), tracer,
+                NullLogProvider.getInstance(), config );
+    }
+
+    private void touch( PagedFile pagedFile, int... pageIds ) throws IOException
+    {
+        try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK ) )
+        {
+            for ( int pageId : pageIds )
+            {
+                assertThat( cursor.next( pageId ), is( true ) );
+            }
+        }
+    }
+
+    private BitSet readProfile( File file ) throws IOException
+    {
+        File profile = new File( file.getParentFile(), file.getName() + PageCacheWarmer.SUFFIX_CACHEPROF );
+        byte[] bytes = new byte[(int) fs.getFileSize( profile )];
+        try ( InputStream in = fs.openAsInputStream( profile ) )
+        {
+            assertThat( in.read( bytes ), is( bytes.length ) );
+        }
+        return BitSet.valueOf( bytes );
+    }
+
+    private static BitSet bitSet( int... bits )
+    {
+        BitSet bitSet = new BitSet();
+        for ( int bit : bits )
+        {
+            bitSet.set( bit );
+        }
+        return bitSet;
+    }
+}
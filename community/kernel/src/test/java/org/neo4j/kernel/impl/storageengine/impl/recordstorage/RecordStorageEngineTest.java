@@ -25,11 +25,15 @@ import org.junit.rules.RuleChain;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicReference;
 
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
 import org.neo4j.helpers.Exceptions;
 import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.io.pagecache.DelegatingPageCache;
@@ -39,19 +43,27 @@ import org.neo4j.kernel.impl.api.BatchTransactionApplier;
 import org.neo4j.kernel.impl.api.BatchTransactionApplierFacade;
 import org.neo4j.kernel.impl.api.CountsAccessor;
 import org.neo4j.kernel.impl.api.TransactionToApply;
+import org.neo4j.kernel.impl.api.scan.InMemoryLabelScanStore;
 import org.neo4j.kernel.impl.store.StoreType;
 import org.neo4j.kernel.impl.store.UnderlyingStorageException;
 import org.neo4j.kernel.impl.store.counts.CountsTracker;
 import org.neo4j.kernel.impl.store.format.RecordFormat;
+import org.neo4j.kernel.impl.store.record.NodeRecord;
 import org.neo4j.kernel.impl.storemigration.StoreFile;
 import org.neo4j.kernel.impl.storemigration.StoreFileType;
+import org.neo4j.kernel.configuration.Config;
 import org.neo4j.kernel.impl.transaction.TransactionRepresentation;
+import org.neo4j.kernel.impl.transaction.command.Command;
+import org.neo4j.kernel.impl.transaction.command.Command.NodeCommand;
+import org.neo4j.kernel.impl.transaction.command.Command.NodeCountsCommand;
 import org.neo4j.kernel.impl.transaction.log.FakeCommitment;
 import org.neo4j.kernel.impl.transaction.log.TransactionIdStore;
 import org.neo4j.kernel.internal.DatabaseHealth;
 import org.neo4j.storageengine.api.CommandsToApply;
 import org.neo4j.storageengine.api.StoreFileMetadata;
 import org.neo4j.storageengine.api.TransactionApplicationMode;
+import org.neo4j.storageengine.api.schema.LabelScanReader;
+import org.neo4j.register.Registers;
 import org.neo4j.test.rule.PageCacheRule;
 import org.neo4j.test.rule.RecordStorageEngineRule;
 import org.neo4j.test.rule.fs.EphemeralFileSystemRule;
@@ -59,6 +71,8 @@ import org.neo4j.test.rule.fs.EphemeralFileSystemRule;
 import static org.hamcrest.Matchers.anyOf;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
@@ -69,6 +83,12 @@ import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.neo4j.collection.primitive.PrimitiveLongCollections.asArray;
+import static org.neo4j.helpers.collection.MapUtil.stringMap;
+import static org.neo4j.kernel.api.ReadOperations.ANY_LABEL;
+import static org.neo4j.kernel.impl.transaction.command.Commands.createLabelToken;
+import static org.neo4j.kernel.impl.transaction.command.Commands.transactionRepresentation;
+import static org.neo4j.kernel.impl.transaction.log.TransactionIdStore.BASE_TX_ID;
 
 public class RecordStorageEngineTest
 {
@@ -205,6 +225,63 @@ public class RecordStorageEngineTest
         }
     }
 
+    @Test
+    public void shouldUpdateLabelScanStoreAndCountsWhenApplyingBatchInParallel() throws Throwable
+    {
+        // GIVEN
+        InMemoryLabelScanStore labelScanStore = new InMemoryLabelScanStore();
+        RecordStorageEngine engine = storageEngineRule
+                .getWith( fsRule.get(), pageCacheRule.getPageCache( fsRule.get() ) )
+                .storeDirectory( storeDir )
+                .labelScanStore( labelScanStore )
+                .config( new Config( stringMap( GraphDatabaseSettings.transaction_apply_parallelism.name(), "4" ) ) )
+                .build();
+        int nodes = 1_000;
+        List<TransactionToApply> transactions = new ArrayList<>();
+        for ( int id = 0; id < nodes; id++ )
+        {
+            transactions.add( transaction( new NodeCommand( new NodeRecord( id ), labeledNode( id, id % 2 ) ),
+                    new NodeCountsCommand( ANY_LABEL, 1 ), new NodeCountsCommand( id % 2, 1 ) ) );
+            if ( id == nodes / 2 )
+            {
+                // A token change is applied on its own, between two segments
+                transactions.add( transaction( createLabelToken( 2, 0 ) ) );
+            }
+        }
+        // Changing the labels of a node that was created in the current segment cuts the segment
+        long lastNode = nodes - 1;
+        transactions.add( transaction( new NodeCommand( labeledNode( 0, 0 ), labeledNode( 0, 2 ) ),
+                new NodeCommand( labeledNode( lastNode, 1 ), labeledNode( lastNode, 2 ) ),
+                new NodeCountsCommand( 0, -1 ), new NodeCountsCommand( 1, -1 ), new NodeCountsCommand( 2, 2 ) ) );
+        for ( int i = 1; i < transactions.size(); i++ )
+        {
+            transactions.get( i - 1 ).next( transactions.get( i ) );
+        }
+
+        // WHEN
+        engine.apply( transactions.get( 0 ), TransactionApplicationMode.EXTERNAL );
+
+        // THEN
+        CountsTracker counts = engine.testAccessNeoStores().getCounts();
+        assertEquals( nodes, counts.nodeCount( ANY_LABEL, Registers.newDoubleLongRegister() ).readSecond() );
+        assertEquals( nodes / 2 - 1, counts.nodeCount( 0, Registers.newDoubleLongRegister() ).readSecond() );
+        assertEquals( nodes / 2 - 1, counts.nodeCount( 1, Registers.newDoubleLongRegister() ).readSecond() );
+        assertEquals( 2, counts.nodeCount( 2, Registers.newDoubleLongRegister() ).readSecond() );
+        try ( LabelScanReader reader = labelScanStore.newReader() )
+        {
+            long[] even = new long[nodes / 2 - 1];
+            long[] odd = new long[nodes / 2 - 1];
+            for ( int i = 0; i < even.length; i++ )
+            {
+                even[i] = 2 * (i + 1);
+                odd[i] = 2 * i + 1;
+            }
+            assertArrayEquals( even, sorted( asArray( reader.nodesWithLabel( 0 ) ) ) );
+            assertArrayEquals( odd, sorted( asArray( reader.nodesWithLabel( 1 ) ) ) );
+            assertArrayEquals( new long[]{0, lastNode}, sorted( asArray( reader.nodesWithLabel( 2 ) ) ) );
+        }
+    }
+
     private RecordStorageEngine buildRecordStorageEngine() throws Throwable
     {
         return storageEngineRule
@@ -245,6 +322,30 @@ public class RecordStorageEngineTest
         return txToApply;
     }
 
+    private static NodeRecord labeledNode( long id, int label )
+    {
+        // A single label is stored inline, with the label count in the high bits
+        return new NodeRecord( id ).initialize( true, -1, false, -1, 1L << 36 | label );
+    }
+
+    private static long[] sorted( long[] values )
+    {
+        Arrays.sort( values );
+        return values;
+    }
+
+    private long nextTransactionId = BASE_TX_ID + 1;
+
+    private TransactionToApply transaction( Command... commands )
+    {
+        long txId = nextTransactionId++;
+        TransactionToApply txToApply = new TransactionToApply( transactionRepresentation( commands ) );
+        FakeCommitment commitment = new FakeCommitment( txId, mock( TransactionIdStore.class ) );
+        commitment.setHasLegacyIndexChanges( false );
+        txToApply.commitment( commitment, txId );
+        return txToApply;
+    }
+
     private static class FailingBatchTransactionApplierFacade extends BatchTransactionApplierFacade
     {
         private Exception failure;
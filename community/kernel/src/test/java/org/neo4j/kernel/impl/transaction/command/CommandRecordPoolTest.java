@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.command;
+
+import org.junit.Test;
+
+import java.io.IOException;
+
+import org.neo4j.kernel.impl.store.record.NodeRecord;
+import org.neo4j.kernel.impl.store.record.RelationshipRecord;
+import org.neo4j.kernel.impl.transaction.log.InMemoryClosableChannel;
+import org.neo4j.storageengine.api.CommandStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class CommandRecordPoolTest
+{
+    @Test
+    public void shouldReadCommandsIntoReleasedRecords() throws Exception
+    {
+        // given
+        CommandRecordPool pool = new CommandRecordPool();
+        PhysicalLogCommandReaderV3_0_2 reader = new PhysicalLogCommandReaderV3_0_2( pool );
+        Command.NodeCommand first = (Command.NodeCommand) reader.read( serialized( nodeCommand( 1, true ) ) );
+        release( pool, first );
+
+        // when
+        Command.NodeCommand second = (Command.NodeCommand) reader.read( serialized( nodeCommand( 2, false ) ) );
+
+        // then
+        assertSame( first.getAfter(), second.getBefore() );
+        assertEquals( 2, second.getAfter().getId() );
+        assertTrue( second.getAfter().inUse() );
+        assertFalse( second.getAfter().isDense() );
+        assertTrue( second.getAfter().getDynamicLabelRecords().isEmpty() );
+    }
+
+    @Test
+    public void shouldReadCommandsIntoClearedRecords() throws Exception
+    {
+        // given
+        CommandRecordPool pool = new CommandRecordPool();
+        PhysicalLogCommandReaderV3_0_2 reader = new PhysicalLogCommandReaderV3_0_2( pool );
+        Command.RelationshipCommand command = relationshipCommand( 5 );
+        release( pool, reader.read( serialized( command ) ) );
+        RelationshipRecord unused = new RelationshipRecord( 6 );
+        unused.setLinks( -1, -1, 3 );
+
+        // when
+        Command.RelationshipCommand read = (Command.RelationshipCommand)
+                reader.read( serialized( new Command.RelationshipCommand( unused, unused ) ) );
+
+        // then
+        assertEquals( unused, read.getBefore() );
+        assertEquals( unused, read.getAfter() );
+        assertFalse( read.getAfter().isCreated() );
+    }
+
+    @Test
+    public void shouldNotKeepRecordsWhenNotPooling() throws Exception
+    {
+        // given
+        PhysicalLogCommandReaderV3_0_2 reader = new PhysicalLogCommandReaderV3_0_2();
+        Command.NodeCommand first = (Command.NodeCommand) reader.read( serialized( nodeCommand( 1, true ) ) );
+        release( CommandRecordPool.NO_POOLING, first );
+
+        // when
+        Command.NodeCommand second = (Command.NodeCommand) reader.read( serialized( nodeCommand( 1, true ) ) );
+
+        // then
+        assertNotSame( first.getBefore(), second.getBefore() );
+        assertNotSame( first.getAfter(), second.getAfter() );
+        assertEquals( first.getAfter(), second.getAfter() );
+    }
+
+    private static void release( CommandRecordPool pool, Command command ) throws IOException
+    {
+        CommandStream commands = visitor -> visitor.visit( command );
+        pool.release( commands );
+    }
+
+    private static InMemoryClosableChannel serialized( Command command ) throws IOException
+    {
+        InMemoryClosableChannel channel = new InMemoryClosableChannel();
+        command.serialize( channel );
+        return channel;
+    }
+
+    private static Command.NodeCommand nodeCommand( long id, boolean dense )
+    {
+        NodeRecord before = new NodeRecord( id );
+        NodeRecord after = new NodeRecord( id ).initialize( true, 10, dense, 20, 0 );
+        return new Command.NodeCommand( before, after );
+    }
+
+    private static Command.RelationshipCommand relationshipCommand( long id )
+    {
+        RelationshipRecord before = new RelationshipRecord( id );
+        RelationshipRecord after = new RelationshipRecord( id ).initialize( true, 10, 1, 2, 3, 4, 5, 6, 7,
+                true, false );
+        return new Command.RelationshipCommand( before, after );
+    }
+}
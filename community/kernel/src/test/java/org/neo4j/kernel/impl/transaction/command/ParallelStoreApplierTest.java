@@ -0,0 +1,222 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.command;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.neo4j.kernel.impl.api.TransactionToApply;
+import org.neo4j.kernel.impl.locking.Lock;
+import org.neo4j.kernel.impl.locking.LockGroup;
+import org.neo4j.kernel.impl.locking.LockService;
+import org.neo4j.kernel.impl.store.NeoStores;
+import org.neo4j.kernel.impl.store.RelationshipStore;
+import org.neo4j.kernel.impl.store.record.NodeRecord;
+import org.neo4j.kernel.impl.store.record.RecordLoad;
+import org.neo4j.kernel.impl.store.record.RelationshipRecord;
+import org.neo4j.kernel.impl.transaction.command.Command.NodeCommand;
+import org.neo4j.kernel.impl.transaction.command.Command.RelationshipCommand;
+import org.neo4j.test.rule.NeoStoresRule;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.neo4j.kernel.impl.locking.LockService.NO_LOCK_SERVICE;
+import static org.neo4j.kernel.impl.transaction.command.Commands.createLabelToken;
+import static org.neo4j.kernel.impl.transaction.command.Commands.createNode;
+import static org.neo4j.kernel.impl.transaction.command.Commands.createRelationship;
+import static org.neo4j.kernel.impl.transaction.command.Commands.transactionRepresentation;
+
+public class ParallelStoreApplierTest
+{
+    @Rule
+    public final NeoStoresRule neoStoresRule = new NeoStoresRule( getClass() );
+
+    private final ExecutorService executor = Executors.newFixedThreadPool( 3 );
+    private long nextTransactionId = 2;
+
+    @After
+    public void shutDownExecutor()
+    {
+        executor.shutdown();
+    }
+
+    @Test
+    public void shouldWriteRecordsOfAllTransactionsInSegment() throws Exception
+    {
+        // GIVEN
+        NeoStores neoStores = neoStoresRule.open();
+        ParallelStoreApplier applier = new ParallelStoreApplier( neoStores, executor, 4 );
+
+        // WHEN
+        for ( int i = 0; i < 1_000; i++ )
+        {
+            assertTrue( applier.add( transaction( createNode( i ), createRelationship( i, i, i, 0 ) ) ) );
+        }
+        apply( applier );
+
+        // THEN
+        NodeRecord node = neoStores.getNodeStore().newRecord();
+        RelationshipRecord relationship = neoStores.getRelationshipStore().newRecord();
+        for ( int i = 0; i < 1_000; i++ )
+        {
+            assertTrue( neoStores.getNodeStore().getRecord( i, node, RecordLoad.FORCE ).inUse() );
+            assertTrue( neoStores.getRelationshipStore().getRecord( i, relationship, RecordLoad.FORCE ).inUse() );
+        }
+    }
+
+    @Test
+    public void shouldApplyChangesToSameRecordInTransactionOrder() throws Exception
+    {
+        // GIVEN
+        NeoStores neoStores = neoStoresRule.open();
+        ParallelStoreApplier applier = new ParallelStoreApplier( neoStores, executor, 4 );
+
+        // WHEN
+        for ( int type = 0; type < 100; type++ )
+        {
+            for ( long id = 0; id < 10; id++ )
+            {
+                assertTrue( applier.add( transaction( createRelationship( id, 0, 1, type ) ) ) );
+            }
+        }
+        apply( applier );
+
+        // THEN
+        RelationshipStore store = neoStores.getRelationshipStore();
+        for ( long id = 0; id < 10; id++ )
+        {
+            assertEquals( 99, store.getRecord( id, store.newRecord(), RecordLoad.NORMAL ).getType() );
+        }
+    }
+
+    @Test
+    public void shouldLockEntitiesInIdOrder() throws Exception
+    {
+        // GIVEN
+        ParallelStoreApplier applier = new ParallelStoreApplier( neoStoresRule.open(), executor, 4 );
+        for ( long id = 99; id >= 0; id-- )
+        {
+            assertTrue( applier.add( transaction( createNode( id ), createRelationship( id, id, id, 0 ) ) ) );
+        }
+        List<Long> lockedNodes = new ArrayList<>();
+        List<Long> lockedRelationships = new ArrayList<>();
+        LockService lockService = new LockService()
+        {
+            @Override
+            public Lock acquireNodeLock( long nodeId, LockType type )
+            {
+                lockedNodes.add( nodeId );
+                return NO_LOCK;
+            }
+
+            @Override
+            public Lock acquireRelationshipLock( long relationshipId, LockType type )
+            {
+                lockedRelationships.add( relationshipId );
+                return NO_LOCK;
+            }
+        };
+
+        // WHEN
+        try ( LockGroup locks = new LockGroup() )
+        {
+            applier.apply( lockService, locks );
+        }
+
+        // THEN
+        List<Long> expected = new ArrayList<>();
+        for ( long id = 0; id < 100; id++ )
+        {
+            expected.add( id );
+        }
+        assertEquals( expected, lockedNodes );
+        assertEquals( expected, lockedRelationships );
+    }
+
+    @Test
+    public void shouldNotAddTransactionChangingLabelsOfNodeChangedEarlierInSegment() throws Exception
+    {
+        // GIVEN
+        ParallelStoreApplier applier = new ParallelStoreApplier( neoStoresRule.open(), executor, 4 );
+        assertTrue( applier.add( transaction( createNode( 1 ) ) ) );
+
+        // WHEN
+        NodeRecord before = new NodeRecord( 1 ).initialize( true, -1, false, -1, 0 );
+        NodeRecord after = new NodeRecord( 1 ).initialize( true, -1, false, -1, 1L << 36 | 5 );
+        boolean added = applier.add( transaction( new NodeCommand( before, after ) ) );
+
+        // THEN
+        assertFalse( added );
+        assertEquals( 1, applier.transactions().size() );
+    }
+
+    @Test
+    public void shouldAddTransactionsLinkingRelationshipsToSameNode() throws Exception
+    {
+        // GIVEN
+        ParallelStoreApplier applier = new ParallelStoreApplier( neoStoresRule.open(), executor, 4 );
+
+        // WHEN
+        for ( long id = 1; id < 10; id++ )
+        {
+            NodeRecord before = new NodeRecord( 0 ).initialize( true, -1, false, id - 1, 0 );
+            NodeRecord after = new NodeRecord( 0 ).initialize( true, -1, false, id, 0 );
+            RelationshipCommand relationship = createRelationship( id, 0, id, 0 );
+
+            // THEN
+            assertTrue( applier.add( transaction( new NodeCommand( before, after ), relationship ) ) );
+        }
+    }
+
+    @Test
+    public void shouldNotAddTransactionWithTokenChanges() throws Exception
+    {
+        // GIVEN
+        ParallelStoreApplier applier = new ParallelStoreApplier( neoStoresRule.open(), executor, 4 );
+
+        // WHEN
+        boolean added = applier.add( transaction( createNode( 1 ), createLabelToken( 0, 0 ) ) );
+
+        // THEN
+        assertFalse( added );
+        assertTrue( applier.isEmpty() );
+    }
+
+    private TransactionToApply transaction( Command... commands )
+    {
+        return new TransactionToApply( transactionRepresentation( commands ), nextTransactionId++ );
+    }
+
+    private static void apply( ParallelStoreApplier applier ) throws Exception
+    {
+        try ( LockGroup locks = new LockGroup() )
+        {
+            applier.apply( NO_LOCK_SERVICE, locks );
+        }
+        applier.clear();
+    }
+}
@@ -0,0 +1,296 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.neo4j.kernel.impl.api.TransactionToApply;
+import org.neo4j.kernel.impl.store.record.NodeRecord;
+import org.neo4j.kernel.impl.transaction.DeadSimpleTransactionIdStore;
+import org.neo4j.kernel.impl.transaction.command.Command.NodeCommand;
+import org.neo4j.kernel.impl.transaction.tracing.LogAppendEvent;
+import org.neo4j.kernel.impl.transaction.tracing.LogForceWaitEvent;
+import org.neo4j.kernel.impl.util.JobScheduler;
+import org.neo4j.kernel.impl.util.Neo4jJobScheduler;
+import org.neo4j.kernel.internal.DatabaseHealth;
+import org.neo4j.kernel.lifecycle.LifeRule;
+import org.neo4j.storageengine.api.StorageCommand;
+
+import static java.util.Collections.singletonList;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.neo4j.kernel.impl.transaction.log.rotation.LogRotation.NO_ROTATION;
+import static org.neo4j.kernel.impl.util.IdOrderingQueue.BYPASS;
+
+public class BatchingTransactionAppenderForcerTest
+{
+    @Rule
+    public final LifeRule life = new LifeRule( true );
+
+    private final JobScheduler scheduler = life.add( new Neo4jJobScheduler() );
+    private final ForceControlledChannel channel = new ForceControlledChannel();
+    private final LogFile logFile = mock( LogFile.class );
+    private final DatabaseHealth databaseHealth = mock( DatabaseHealth.class );
+    private ExecutorService committers;
+    private BatchingTransactionAppender appender;
+
+    @Before
+    public void setUp()
+    {
+        when( logFile.getWriter() ).thenReturn( channel );
+        committers = Executors.newCachedThreadPool();
+        appender = life.add( new BatchingTransactionAppender( logFile, NO_ROTATION, new TransactionMetadataCache( 10 ),
+                new DeadSimpleTransactionIdStore(), BYPASS, databaseHealth, scheduler ) );
+    }
+
+    @After
+    public void tearDown()
+    {
+        committers.shutdownNow();
+    }
+
+    @Test
+    public void shouldForceInTheDedicatedForcerThread() throws Exception
+    {
+        // WHEN
+        commit( LogAppendEvent.NULL );
+
+        // THEN
+        assertEquals( 1, channel.forces.get() );
+        assertThat( channel.lastForcingThread.getName(),
+                startsWith( "neo4j." + JobScheduler.Groups.transactionLogForce.name() ) );
+    }
+
+    @Test
+    public void shouldForceInTheCommittingThreadWithoutAScheduler() throws Exception
+    {
+        // GIVEN
+        BatchingTransactionAppender appender = life.add( new BatchingTransactionAppender( logFile, NO_ROTATION,
+                new TransactionMetadataCache( 10 ), new DeadSimpleTransactionIdStore(), BYPASS, databaseHealth ) );
+
+        // WHEN
+        appender.append( new TransactionToApply( transaction() ), LogAppendEvent.NULL );
+
+        // THEN
+        assertSame( Thread.currentThread(), channel.lastForcingThread );
+    }
+
+    @Test
+    public void shouldBatchUpCommittersThatArriveDuringAForce() throws Exception
+    {
+        // GIVEN a force in progress
+        channel.blockFirstForce();
+        Future<Long> first = commitInOtherThread( LogAppendEvent.NULL );
+        channel.firstForceStarted.await();
+
+        // WHEN more committers start waiting for a force meanwhile
+        List<Future<Long>> waiting = commitWhileFirstForceIsBlocked( 5 );
+        channel.releaseFirstForce.countDown();
+
+        // THEN they all get forced together
+        first.get();
+        for ( Future<Long> committer : waiting )
+        {
+            committer.get();
+        }
+        assertEquals( 2, channel.forces.get() );
+    }
+
+    @Test
+    public void shouldHandAFailedForceToEveryCommitterInTheBatch() throws Exception
+    {
+        // GIVEN
+        IOException failure = new IOException( "Force failed" );
+        channel.blockFirstForce();
+        channel.failSecondForce( failure );
+        Future<Long> first = commitInOtherThread( LogAppendEvent.NULL );
+        channel.firstForceStarted.await();
+        List<Future<Long>> waiting = commitWhileFirstForceIsBlocked( 3 );
+
+        // WHEN
+        channel.releaseFirstForce.countDown();
+
+        // THEN
+        first.get();
+        for ( Future<Long> committer : waiting )
+        {
+            try
+            {
+                committer.get();
+                fail( "Should have failed" );
+            }
+            catch ( ExecutionException e )
+            {
+                assertSame( failure, e.getCause() );
+            }
+        }
+        verify( databaseHealth ).panic( failure );
+    }
+
+    @Test
+    public void shouldWaitForMoreCommittersAfterAForceWasShared() throws Exception
+    {
+        // GIVEN a force that was shared by several committers, and that took long enough for the force window to
+        // be bounded by the maximum window rather than by the average force time
+        channel.forceMillis = 20;
+        channel.blockFirstForce();
+        Future<Long> first = commitInOtherThread( LogAppendEvent.NULL );
+        channel.firstForceStarted.await();
+        List<Future<Long>> waiting = commitWhileFirstForceIsBlocked( 2 );
+        channel.releaseFirstForce.countDown();
+        first.get();
+        for ( Future<Long> committer : waiting )
+        {
+            committer.get();
+        }
+        channel.forceMillis = 0;
+
+        // WHEN
+        long startNanos = System.nanoTime();
+        commit( LogAppendEvent.NULL );
+
+        // THEN the forcer held off forcing for the force window
+        assertThat( System.nanoTime() - startNanos, greaterThanOrEqualTo(
+                Math.min( BatchingTransactionAppender.maxForceWindowNanos, TimeUnit.MILLISECONDS.toNanos( 2 ) ) ) );
+    }
+
+    private List<Future<Long>> commitWhileFirstForceIsBlocked( int count ) throws InterruptedException
+    {
+        CountDownLatch allWaiting = new CountDownLatch( count );
+        LogAppendEvent event = new LogAppendEvent.Empty()
+        {
+            @Override
+            public LogForceWaitEvent beginLogForceWait()
+            {
+                allWaiting.countDown();
+                return LogForceWaitEvent.NULL;
+            }
+        };
+        List<Future<Long>> committers = new ArrayList<>();
+        for ( int i = 0; i < count; i++ )
+        {
+            committers.add( commitInOtherThread( event ) );
+        }
+        allWaiting.await();
+        return committers;
+    }
+
+    private Future<Long> commitInOtherThread( LogAppendEvent event )
+    {
+        return committers.submit( () -> commit( event ) );
+    }
+
+    private long commit( LogAppendEvent event ) throws IOException
+    {
+        return appender.append( new TransactionToApply( transaction() ), event );
+    }
+
+    private static PhysicalTransactionRepresentation transaction()
+    {
+        NodeRecord before = new NodeRecord( 0 );
+        NodeRecord after = new NodeRecord( 0 );
+        after.setInUse( true );
+        List<StorageCommand> commands = singletonList( new NodeCommand( before, after ) );
+        PhysicalTransactionRepresentation transaction = new PhysicalTransactionRepresentation( commands );
+        transaction.setHeader( new byte[0], 0, 0, 0, 0, 0, -1 );
+        return transaction;
+    }
+
+    private static class ForceControlledChannel extends InMemoryClosableChannel implements Flushable
+    {
+        final AtomicInteger forces = new AtomicInteger();
+        final CountDownLatch firstForceStarted = new CountDownLatch( 1 );
+        final CountDownLatch releaseFirstForce = new CountDownLatch( 1 );
+        volatile Thread lastForcingThread;
+        volatile long forceMillis;
+        private boolean blockFirstForce;
+        private IOException secondForceFailure;
+
+        ForceControlledChannel()
+        {
+            super( 1_000_000 );
+        }
+
+        void blockFirstForce()
+        {
+            blockFirstForce = true;
+        }
+
+        void failSecondForce( IOException failure )
+        {
+            secondForceFailure = failure;
+        }
+
+        @Override
+        public Flushable prepareForFlush()
+        {
+            return this;
+        }
+
+        @Override
+        public void flush() throws IOException
+        {
+            lastForcingThread = Thread.currentThread();
+            int force = forces.incrementAndGet();
+            try
+            {
+                if ( force == 1 && blockFirstForce )
+                {
+                    firstForceStarted.countDown();
+                    releaseFirstForce.await();
+                }
+                if ( forceMillis > 0 )
+                {
+                    Thread.sleep( forceMillis );
+                }
+            }
+            catch ( InterruptedException e )
+            {
+                throw new IOException( e );
+            }
+            if ( force == 2 && secondForceFailure != null )
+            {
+                throw secondForceFailure;
+            }
+        }
+    }
+}
@@ -50,9 +50,11 @@ import org.neo4j.test.rule.CleanupRule;
 import static org.hamcrest.CoreMatchers.containsString;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Matchers.anyByte;
 import static org.mockito.Matchers.anyInt;
@@ -142,6 +144,52 @@ public class BatchingTransactionAppenderTest
         assertNull( tx.next() );
     }
 
+    @Test
+    public void shouldAppendBatchesLargerThanTheRetainedCommandBuffers() throws Exception
+    {
+        // GIVEN
+        when( logFile.getWriter() ).thenReturn( channel );
+        TransactionAppender appender = life.add( new BatchingTransactionAppender( logFile, NO_ROTATION, positionCache,
+                transactionIdStore, BYPASS, databaseHealth ) );
+        when( transactionIdStore.nextCommittingTransactionId() ).thenAnswer( new Answer<Long>()
+        {
+            private long txId = 2;
+
+            @Override
+            public Long answer( InvocationOnMock invocation )
+            {
+                return txId++;
+            }
+        } );
+
+        // WHEN
+        int transactions = 0;
+        for ( int batchSize : new int[]{5, 1, 2} )
+        {
+            TransactionRepresentation[] batch = new TransactionRepresentation[batchSize];
+            for ( int i = 0; i < batchSize; i++ )
+            {
+                batch[i] = transaction( singleCreateNodeCommand( transactions ),
+                        new byte[]{(byte) transactions++}, 0, 0, 0, 1, 0 );
+            }
+            appender.append( batchOf( batch ), logAppendEvent );
+        }
+
+        // THEN
+        final LogEntryReader<ReadableLogChannel> logEntryReader = new VersionAwareLogEntryReader<>();
+        try ( PhysicalTransactionCursor<ReadableLogChannel> reader =
+                      new PhysicalTransactionCursor<>( channel, logEntryReader ) )
+        {
+            for ( int i = 0; i < transactions; i++ )
+            {
+                assertTrue( reader.next() );
+                assertArrayEquals( new byte[]{(byte) i},
+                        reader.get().getTransactionRepresentation().additionalHeader() );
+            }
+            assertFalse( reader.next() );
+        }
+    }
+
     @Test
     public void shouldAppendCommittedTransactions() throws Exception
     {
@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+
+import org.neo4j.io.fs.DefaultFileSystemAbstraction;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.fs.StoreChannel;
+import org.neo4j.storageengine.api.ReadPastEndException;
+import org.neo4j.test.rule.TestDirectory;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import static org.neo4j.kernel.impl.transaction.log.PhysicalLogFile.openForVersion;
+import static org.neo4j.kernel.impl.transaction.log.entry.LogHeader.LOG_HEADER_SIZE;
+import static org.neo4j.kernel.impl.transaction.log.entry.LogHeaderWriter.writeLogHeader;
+
+public class MappedLogChannelTest
+{
+    @Rule
+    public final TestDirectory directory = TestDirectory.testDirectory();
+    private final FileSystemAbstraction fs = new DefaultFileSystemAbstraction();
+
+    @Test
+    public void shouldReadCompletedVersionsAndContinueIntoCurrentVersion() throws Exception
+    {
+        // GIVEN
+        PhysicalLogFiles logFiles = new PhysicalLogFiles( directory.directory(), fs );
+        writeVersion( logFiles, 0, ByteBuffer.allocate( 13 ).putLong( 10 ).putInt( 11 ).put( (byte) 12 ) );
+        writeVersion( logFiles, 1,
+                ByteBuffer.allocate( 14 ).putShort( (short) 13 ).putDouble( 14.5 ).putFloat( 15.5f ) );
+        writeVersion( logFiles, 2, ByteBuffer.allocate( 8 ).putLong( 16 ) );
+
+        // WHEN
+        try ( ReadableLogChannel channel = new MappedLogChannel( openForVersion( logFiles, fs, 0, false ),
+                new ReaderLogVersionBridge( fs, logFiles ), 1 ) )
+        {
+            // THEN
+            assertEquals( 10, channel.getLong() );
+            assertEquals( 11, channel.getInt() );
+            assertEquals( 12, channel.get() );
+            assertPosition( channel, 0, LOG_HEADER_SIZE + 13 );
+            assertEquals( 13, channel.getShort() );
+            assertPosition( channel, 1, LOG_HEADER_SIZE + 2 );
+            assertEquals( 14.5, channel.getDouble(), 0.0 );
+            assertEquals( 15.5f, channel.getFloat(), 0.0f );
+            assertEquals( 1, channel.getVersion() );
+            assertEquals( 16, channel.getLong() );
+            assertEquals( 2, channel.getVersion() );
+            assertPosition( channel, 2, LOG_HEADER_SIZE + 8 );
+            assertReadPastEnd( channel );
+        }
+    }
+
+    @Test
+    public void shouldReadValuesSpanningTwoVersions() throws Exception
+    {
+        // GIVEN
+        PhysicalLogFiles logFiles = new PhysicalLogFiles( directory.directory(), fs );
+        ByteBuffer content = ByteBuffer.allocate( 16 ).putLong( 0x0102030405060708L ).putInt( 9 ).putInt( 10 );
+        content.flip();
+        writeVersion( logFiles, 0, slice( content, 0, 5 ) );
+        writeVersion( logFiles, 1, slice( content, 5, 11 ) );
+
+        // WHEN
+        try ( ReadableLogChannel channel = new MappedLogChannel( openForVersion( logFiles, fs, 0, false ),
+                new ReaderLogVersionBridge( fs, logFiles ), 1 ) )
+        {
+            // THEN
+            assertEquals( 0x0102030405060708L, channel.getLong() );
+            assertPosition( channel, 1, LOG_HEADER_SIZE + 3 );
+            byte[] bytes = new byte[8];
+            channel.get( bytes, bytes.length );
+            assertArrayEquals( new byte[]{0, 0, 0, 9, 0, 0, 0, 10}, bytes );
+            assertReadPastEnd( channel );
+        }
+    }
+
+    @Test
+    public void shouldStartReadingAtGivenPosition() throws Exception
+    {
+        // GIVEN
+        PhysicalLogFiles logFiles = new PhysicalLogFiles( directory.directory(), fs );
+        writeVersion( logFiles, 0, ByteBuffer.allocate( 16 ).putLong( 1 ).putLong( 2 ) );
+        LogVersionedStoreChannel startingChannel = openForVersion( logFiles, fs, 0, false );
+        startingChannel.position( LOG_HEADER_SIZE + 8 );
+
+        // WHEN
+        try ( ReadableLogChannel channel = new MappedLogChannel( startingChannel,
+                new ReaderLogVersionBridge( fs, logFiles ), 0 ) )
+        {
+            // THEN
+            assertPosition( channel, 0, LOG_HEADER_SIZE + 8 );
+            assertEquals( 2, channel.getLong() );
+            assertReadPastEnd( channel );
+        }
+    }
+
+    @Test
+    public void shouldUnmapVersionsWhenMovingPastThemAndOnClose() throws Exception
+    {
+        // GIVEN
+        PhysicalLogFiles logFiles = new PhysicalLogFiles( directory.directory(), fs );
+        writeVersion( logFiles, 0, ByteBuffer.allocate( 8 ).putLong( 1 ) );
+        writeVersion( logFiles, 1, ByteBuffer.allocate( 8 ).putLong( 2 ) );
+        long mappedBefore = mappedBufferCount();
+
+        // WHEN
+        try ( ReadableLogChannel channel = new MappedLogChannel( openForVersion( logFiles, fs, 0, false ),
+                new ReaderLogVersionBridge( fs, logFiles ), 1 ) )
+        {
+            assertEquals( 1, channel.getLong() );
+            assertEquals( mappedBefore + 1, mappedBufferCount() );
+            assertEquals( 2, channel.getLong() );
+
+            // THEN
+            assertEquals( mappedBefore + 1, mappedBufferCount() );
+        }
+        assertEquals( mappedBefore, mappedBufferCount() );
+    }
+
+    private static long mappedBufferCount()
+    {
+        for ( BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans( BufferPoolMXBean.class ) )
+        {
+            if ( pool.getName().equals( "mapped" ) )
+            {
+                return pool.getCount();
+            }
+        }
+        throw new AssertionError( "No mapped buffer pool" );
+    }
+
+    private void writeVersion( PhysicalLogFiles logFiles, long version, ByteBuffer content ) throws IOException
+    {
+        try ( StoreChannel channel = fs.open( logFiles.getLogFileForVersion( version ), "rw" ) )
+        {
+            writeLogHeader( channel, version, 0 );
+            content.position( 0 );
+            channel.writeAll( content );
+        }
+    }
+
+    private static ByteBuffer slice( ByteBuffer buffer, int from, int length )
+    {
+        ByteBuffer duplicate = buffer.duplicate();
+        duplicate.position( from ).limit( from + length );
+        return duplicate.slice();
+    }
+
+    private static void assertPosition( ReadableLogChannel channel, long version, long offset ) throws IOException
+    {
+        LogPosition position = channel.getCurrentPosition( new LogPositionMarker() ).newPosition();
+        assertEquals( new LogPosition( version, offset ), position );
+    }
+
+    private static void assertReadPastEnd( ReadableLogChannel channel ) throws IOException
+    {
+        try
+        {
+            channel.get();
+            fail( "Should have thrown exception signalling end of log reached" );
+        }
+        catch ( ReadPastEndException e )
+        {
+            // good
+        }
+    }
+}
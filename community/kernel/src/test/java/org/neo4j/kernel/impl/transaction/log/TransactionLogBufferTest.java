@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.neo4j.kernel.impl.index.IndexCommand.AddNodeCommand;
+import org.neo4j.kernel.impl.store.record.NodeRecord;
+import org.neo4j.kernel.impl.transaction.command.Command.NodeCommand;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryWriter;
+import org.neo4j.storageengine.api.StorageCommand;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TransactionLogBufferTest
+{
+    @Test
+    public void shouldWriteSameBytesAsSerializingCommandsDirectly() throws Exception
+    {
+        // GIVEN
+        PhysicalTransactionRepresentation transaction = transaction( nodeCommands( 10 ) );
+        InMemoryClosableChannel direct = new InMemoryClosableChannel();
+        new LogEntryWriter( direct ).serialize( transaction );
+
+        // WHEN
+        TransactionLogBuffer buffer = new TransactionLogBuffer();
+        buffer.serialize( transaction );
+        InMemoryClosableChannel copied = new InMemoryClosableChannel();
+        buffer.writeTo( copied );
+
+        // THEN
+        assertEquals( direct.writerPosition(), copied.writerPosition() );
+        assertArrayEquals( bytes( direct ), bytes( copied ) );
+    }
+
+    @Test
+    public void shouldGrowToFitLargeTransactions() throws Exception
+    {
+        // GIVEN
+        PhysicalTransactionRepresentation transaction = transaction( nodeCommands( 1_000 ) );
+        InMemoryClosableChannel direct = new InMemoryClosableChannel( 100_000 );
+        new LogEntryWriter( direct ).serialize( transaction );
+
+        // WHEN
+        TransactionLogBuffer buffer = new TransactionLogBuffer();
+        buffer.serialize( transaction );
+        InMemoryClosableChannel copied = new InMemoryClosableChannel( 100_000 );
+        buffer.writeTo( copied );
+
+        // THEN
+        assertArrayEquals( bytes( direct ), bytes( copied ) );
+    }
+
+    @Test
+    public void shouldOnlyHoldLatestSerializedTransaction() throws Exception
+    {
+        // GIVEN
+        TransactionLogBuffer buffer = new TransactionLogBuffer();
+        buffer.serialize( transaction( nodeCommands( 10 ) ) );
+
+        // WHEN
+        PhysicalTransactionRepresentation transaction = transaction( nodeCommands( 1 ) );
+        buffer.serialize( transaction );
+
+        // THEN
+        InMemoryClosableChannel direct = new InMemoryClosableChannel();
+        new LogEntryWriter( direct ).serialize( transaction );
+        InMemoryClosableChannel copied = new InMemoryClosableChannel();
+        buffer.writeTo( copied );
+        assertArrayEquals( bytes( direct ), bytes( copied ) );
+    }
+
+    @Test
+    public void shouldNotBufferTransactionsLargerThanItsMaximumSize() throws Exception
+    {
+        // GIVEN
+        PhysicalTransactionRepresentation transaction = transaction( nodeCommands( 1_000 ) );
+        InMemoryClosableChannel direct = new InMemoryClosableChannel( 100_000 );
+        new LogEntryWriter( direct ).serialize( transaction );
+        TransactionLogBuffer buffer = new TransactionLogBuffer( direct.writerPosition() - 1 );
+
+        // WHEN
+        buffer.serialize( transaction );
+
+        // THEN
+        assertFalse( buffer.isSerialized() );
+
+        // and WHEN
+        buffer.serialize( transaction( nodeCommands( 1 ) ) );
+
+        // THEN
+        assertTrue( buffer.isSerialized() );
+    }
+
+    @Test
+    public void shouldSerializeTooLargeTransactionsStraightIntoTheLog() throws Exception
+    {
+        // GIVEN
+        PhysicalTransactionRepresentation transaction = transaction( nodeCommands( 1_000 ) );
+        InMemoryClosableChannel expected = new InMemoryClosableChannel( 100_000 );
+        new TransactionLogWriter( new LogEntryWriter( expected ) ).append( transaction, 42 );
+        TransactionLogBuffer buffer = new TransactionLogBuffer( 1_000 );
+        buffer.serialize( transaction );
+
+        // WHEN
+        InMemoryClosableChannel appended = new InMemoryClosableChannel( 100_000 );
+        new TransactionLogWriter( new LogEntryWriter( appended ) ).append( transaction, buffer, 42 );
+
+        // THEN
+        assertArrayEquals( bytes( expected ), bytes( appended ) );
+    }
+
+    @Test
+    public void shouldDetectLegacyIndexChanges() throws Exception
+    {
+        // GIVEN
+        TransactionLogBuffer buffer = new TransactionLogBuffer();
+        List<StorageCommand> commands = nodeCommands( 1 );
+        AddNodeCommand addNodeCommand = new AddNodeCommand();
+        addNodeCommand.init( 1, 0, 2, "value" );
+        commands.add( addNodeCommand );
+
+        // WHEN
+        buffer.serialize( transaction( commands ) );
+
+        // THEN
+        assertTrue( buffer.hasLegacyIndexChanges() );
+
+        // and WHEN
+        buffer.serialize( transaction( nodeCommands( 1 ) ) );
+
+        // THEN
+        assertFalse( buffer.hasLegacyIndexChanges() );
+    }
+
+    private static byte[] bytes( InMemoryClosableChannel channel ) throws IOException
+    {
+        byte[] bytes = new byte[channel.writerPosition()];
+        channel.get( bytes, bytes.length );
+        return bytes;
+    }
+
+    private static List<StorageCommand> nodeCommands( int count )
+    {
+        List<StorageCommand> commands = new ArrayList<>();
+        for ( long id = 0; id < count; id++ )
+        {
+            NodeRecord before = new NodeRecord( id );
+            NodeRecord after = new NodeRecord( id );
+            after.setInUse( true );
+            commands.add( new NodeCommand( before, after ) );
+        }
+        return commands;
+    }
+
+    private static PhysicalTransactionRepresentation transaction( List<StorageCommand> commands )
+    {
+        PhysicalTransactionRepresentation transaction = new PhysicalTransactionRepresentation( commands );
+        transaction.setHeader( new byte[0], 0, 0, 0, 0, 0, -1 );
+        return transaction;
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.state;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Future;
+
+import org.neo4j.kernel.DeadlockDetectedException;
+import org.neo4j.kernel.impl.api.state.TxState;
+import org.neo4j.kernel.impl.locking.Locks;
+import org.neo4j.kernel.impl.locking.ResourceTypes;
+import org.neo4j.kernel.impl.locking.community.CommunityLockManger;
+import org.neo4j.kernel.impl.store.RecordStore;
+import org.neo4j.kernel.impl.store.record.NodeRecord;
+import org.neo4j.kernel.impl.store.record.Record;
+import org.neo4j.kernel.impl.store.record.RecordLoad;
+import org.neo4j.kernel.impl.store.record.RelationshipGroupRecord;
+import org.neo4j.kernel.impl.transaction.state.RecordAccess.RecordProxy;
+import org.neo4j.storageengine.api.lock.ResourceLocker;
+import org.neo4j.test.rule.concurrent.OtherThreadRule;
+
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+import static org.neo4j.kernel.impl.locking.ResourceTypes.relationshipGroupResourceId;
+
+public class RelationshipGroupLocksTest
+{
+    private static final long NO_NEXT = Record.NO_NEXT_RELATIONSHIP.intValue();
+    private static final long DENSE_NODE = 1;
+    private static final long SPARSE_NODE = 2;
+    private static final int TYPE = 3;
+
+    @Rule
+    public final OtherThreadRule<Void> t2 = new OtherThreadRule<>( "T2" );
+
+    private final Map<Long,NodeRecord> nodes = new HashMap<>();
+    private final Map<Long,RelationshipGroupRecord> groups = new HashMap<>();
+    private final RelationshipGroupLocks groupLocks = new RelationshipGroupLocks( groupStore() );
+    private final ResourceLocker locks = mock( ResourceLocker.class );
+
+    @Test
+    public void shouldOnlyLockGroupOfExistingTypeOnDenseNode() throws Exception
+    {
+        // GIVEN
+        denseNode( DENSE_NODE, group( 10, TYPE - 1, 11 ), group( 11, TYPE, NO_NEXT ) );
+        sparseNode( SPARSE_NODE );
+        TxState txState = new TxState();
+        txState.relationshipDoCreate( 100, TYPE, DENSE_NODE, SPARSE_NODE );
+
+        // WHEN
+        groupLocks.lockGroupsOfCreatedRelationships( txState, nodeRecords(), locks );
+
+        // THEN
+        verify( locks ).acquireExclusive( ResourceTypes.RELATIONSHIP_GROUP,
+                relationshipGroupResourceId( DENSE_NODE, TYPE ) );
+        verifyNoMoreInteractions( locks );
+    }
+
+    @Test
+    public void shouldLockNodeExclusivelyWhenGroupOfTypeIsMissing() throws Exception
+    {
+        // GIVEN
+        denseNode( DENSE_NODE, group( 10, TYPE - 1, 12 ), group( 12, TYPE + 1, NO_NEXT ) );
+        TxState txState = new TxState();
+        txState.relationshipDoCreate( 100, TYPE, DENSE_NODE, DENSE_NODE );
+
+        // WHEN
+        groupLocks.lockGroupsOfCreatedRelationships( txState, nodeRecords(), locks );
+
+        // THEN
+        verifyNodeAndGroupLocked( locks );
+    }
+
+    @Test
+    public void shouldLockNodeExclusivelyWhenGroupOfTypeHasBeenDeleted() throws Exception
+    {
+        // GIVEN a group that another transaction deleted after this one chose the shared node lock
+        RelationshipGroupRecord deleted = group( 11, TYPE, NO_NEXT );
+        denseNode( DENSE_NODE, group( 10, TYPE - 1, 11 ), deleted );
+        deleted.setInUse( false );
+        TxState txState = new TxState();
+        txState.relationshipDoCreate( 100, TYPE, DENSE_NODE, DENSE_NODE );
+
+        // WHEN
+        groupLocks.lockGroupsOfCreatedRelationships( txState, nodeRecords(), locks );
+
+        // THEN
+        verifyNodeAndGroupLocked( locks );
+    }
+
+    @Test
+    public void shouldNotLockAnythingForSparseOrCreatedNodes() throws Exception
+    {
+        // GIVEN
+        sparseNode( SPARSE_NODE );
+        TxState txState = new TxState();
+        txState.nodeDoCreate( DENSE_NODE );
+        txState.relationshipDoCreate( 100, TYPE, DENSE_NODE, SPARSE_NODE );
+
+        // WHEN
+        groupLocks.lockGroupsOfCreatedRelationships( txState, nodeRecords(), locks );
+
+        // THEN
+        verifyZeroInteractions( locks );
+    }
+
+    @Test
+    public void shouldDetectDeadlockWhenTwoTransactionsUpgradeTheirSharedNodeLock() throws Exception
+    {
+        // GIVEN two transactions that took the shared lock on a dense node whose group has since been deleted
+        denseNode( DENSE_NODE );
+        CommunityLockManger lockManager = new CommunityLockManger();
+        Locks.Client client1 = lockManager.newClient();
+        Locks.Client client2 = lockManager.newClient();
+        client1.acquireShared( ResourceTypes.NODE, DENSE_NODE );
+        client2.acquireShared( ResourceTypes.NODE, DENSE_NODE );
+        TxState txState1 = new TxState();
+        txState1.relationshipDoCreate( 100, TYPE, DENSE_NODE, DENSE_NODE );
+        TxState txState2 = new TxState();
+        txState2.relationshipDoCreate( 101, TYPE, DENSE_NODE, DENSE_NODE );
+
+        // WHEN both of them fall back to the exclusive node lock
+        Future<Void> upgrade = t2.execute( state ->
+        {
+            groupLocks.lockGroupsOfCreatedRelationships( txState1, nodeRecords(), client1 );
+            return null;
+        } );
+        t2.get().waitUntilWaiting();
+        try
+        {
+            groupLocks.lockGroupsOfCreatedRelationships( txState2, nodeRecords(), client2 );
+            fail( "Should have detected the deadlock" );
+        }
+        catch ( DeadlockDetectedException e )
+        {
+            // THEN the second one is told to retry, and the first one goes ahead once it has let go
+            client2.close();
+        }
+        upgrade.get();
+        client1.close();
+    }
+
+    private void verifyNodeAndGroupLocked( ResourceLocker locks )
+    {
+        verify( locks ).acquireExclusive( ResourceTypes.NODE, DENSE_NODE );
+        verify( locks ).acquireExclusive( ResourceTypes.RELATIONSHIP_GROUP,
+                relationshipGroupResourceId( DENSE_NODE, TYPE ) );
+        verifyNoMoreInteractions( locks );
+    }
+
+    private void denseNode( long id, RelationshipGroupRecord... chain )
+    {
+        for ( RelationshipGroupRecord group : chain )
+        {
+            group.setOwningNode( id );
+            groups.put( group.getId(), group );
+        }
+        nodes.put( id, new NodeRecord( id, true, chain.length == 0 ? NO_NEXT : chain[0].getId(), NO_NEXT ) );
+    }
+
+    private void sparseNode( long id )
+    {
+        nodes.put( id, new NodeRecord( id, false, NO_NEXT, NO_NEXT ) );
+    }
+
+    private static RelationshipGroupRecord group( long id, int type, long next )
+    {
+        return new RelationshipGroupRecord( id ).initialize( true, type, NO_NEXT, NO_NEXT, NO_NEXT, -1, next );
+    }
+
+    @SuppressWarnings( "unchecked" )
+    private RecordAccess<Long,NodeRecord,Void> nodeRecords()
+    {
+        RecordAccess<Long,NodeRecord,Void> nodeRecords = mock( RecordAccess.class );
+        when( nodeRecords.getOrLoad( anyLong(), any() ) ).thenAnswer( invocation ->
+        {
+            RecordProxy<Long,NodeRecord,Void> proxy = mock( RecordProxy.class );
+            when( proxy.forReadingLinkage() ).thenReturn( nodes.get( invocation.getArgumentAt( 0, Long.class ) ) );
+            return proxy;
+        } );
+        return nodeRecords;
+    }
+
+    @SuppressWarnings( "unchecked" )
+    private RecordStore<RelationshipGroupRecord> groupStore()
+    {
+        RecordStore<RelationshipGroupRecord> groupStore = mock( RecordStore.class );
+        when( groupStore.newRecord() ).thenAnswer( invocation -> new RelationshipGroupRecord( -1 ) );
+        doAnswer( invocation ->
+        {
+            RelationshipGroupRecord source = groups.get( invocation.getArgumentAt( 0, Long.class ) );
+            RelationshipGroupRecord target = invocation.getArgumentAt( 1, RelationshipGroupRecord.class );
+            target.setId( source.getId() );
+            return target.initialize( source.inUse(), source.getType(), source.getFirstOut(), source.getFirstIn(),
+                    source.getFirstLoop(), source.getOwningNode(), source.getNext() );
+        } ).when( groupStore ).getRecord( anyLong(), any( RelationshipGroupRecord.class ), any( RecordLoad.class ) );
+        return groupStore;
+    }
+}
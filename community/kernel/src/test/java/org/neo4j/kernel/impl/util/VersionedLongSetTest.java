@@ -0,0 +1,253 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class VersionedLongSetTest
+{
+    @Test
+    public void shouldAddContainAndRemove() throws Exception
+    {
+        // GIVEN
+        VersionedLongSet set = new VersionedLongSet();
+
+        // WHEN
+        assertTrue( set.add( 5L ) );
+        assertTrue( set.add( 10L ) );
+        assertFalse( set.add( 5L ) );
+        assertTrue( set.remove( 5L ) );
+        assertFalse( set.remove( 5L ) );
+
+        // THEN
+        assertFalse( set.contains( 5L ) );
+        assertTrue( set.contains( 10L ) );
+        assertEquals( 1, set.size() );
+        assertEquals( new HashSet<>( Arrays.asList( 10L ) ), set );
+    }
+
+    @Test
+    public void shouldNotSeeElementsAddedAfterIteratorWasCreated() throws Exception
+    {
+        // GIVEN
+        VersionedLongSet set = new VersionedLongSet();
+        set.add( 1L );
+        set.add( 2L );
+
+        // WHEN
+        List<Long> seen = new ArrayList<>();
+        for ( long element : set )
+        {
+            seen.add( element );
+            set.add( element + 10 );
+        }
+
+        // THEN
+        assertEquals( Arrays.asList( 1L, 2L ), seen );
+        assertEquals( new HashSet<>( Arrays.asList( 1L, 2L, 11L, 12L ) ), set );
+    }
+
+    @Test
+    public void shouldNotSeeElementsRemovedWhileIterating() throws Exception
+    {
+        // GIVEN
+        VersionedLongSet set = new VersionedLongSet();
+        set.add( 1L );
+        set.add( 2L );
+        set.add( 3L );
+
+        // WHEN
+        Iterator<Long> iterator = set.iterator();
+        assertEquals( 1L, iterator.next().longValue() );
+        set.remove( 2L );
+        set.remove( 3L );
+        set.add( 3L );
+
+        // THEN the re-added element was added after the iterator was created
+        assertFalse( iterator.hasNext() );
+        assertEquals( new HashSet<>( Arrays.asList( 1L, 3L ) ), set );
+    }
+
+    @Test
+    public void shouldKeepRemovedElementsRemovedWhenGrowing() throws Exception
+    {
+        // GIVEN a set small enough to not be indexed yet
+        VersionedLongSet set = new VersionedLongSet();
+        set.add( 1L );
+        set.add( 2L );
+        set.remove( 1L );
+
+        // WHEN
+        for ( long i = 10; i < 100; i++ )
+        {
+            set.add( i );
+        }
+
+        // THEN
+        assertFalse( set.contains( 1L ) );
+        assertTrue( set.contains( 2L ) );
+        assertTrue( set.contains( 99L ) );
+        assertEquals( 91, set.size() );
+        int count = 0;
+        for ( long element : set )
+        {
+            assertTrue( element != 1L );
+            count++;
+        }
+        assertEquals( 91, count );
+    }
+
+    @Test
+    public void shouldMoveOffHeapAndKeepIteratorsGoing() throws Exception
+    {
+        // GIVEN
+        try ( VersionedLongSet set = new VersionedLongSet( 10 ) )
+        {
+            for ( long i = 0; i < 10; i++ )
+            {
+                set.add( i );
+            }
+            set.remove( 3L );
+            Iterator<Long> iterator = set.iterator();
+            assertEquals( 0L, iterator.next().longValue() );
+
+            // WHEN
+            for ( long i = 10; i < 1_000; i++ )
+            {
+                set.add( i );
+            }
+
+            // THEN
+            long expected = 1;
+            while ( iterator.hasNext() )
+            {
+                expected = expected == 3 ? 4 : expected;
+                assertEquals( expected++, iterator.next().longValue() );
+            }
+            assertEquals( 10, expected );
+            assertEquals( 999, set.size() );
+            assertFalse( set.contains( 3L ) );
+            assertTrue( set.contains( 999L ) );
+            assertTrue( set.remove( 500L ) );
+            assertFalse( set.contains( 500L ) );
+        }
+    }
+
+    @Test
+    public void shouldCompactOnceMostSlotsAreDead() throws Exception
+    {
+        for ( int offHeapThreshold : new int[]{Integer.MAX_VALUE, 10} )
+        {
+            // GIVEN
+            try ( VersionedLongSet set = new VersionedLongSet( offHeapThreshold ) )
+            {
+                for ( long i = 0; i < 100; i++ )
+                {
+                    set.add( i );
+                }
+
+                // WHEN
+                for ( long i = 0; i < 100; i += 4 )
+                {
+                    set.remove( i );
+                    set.remove( i + 1 );
+                    set.remove( i + 2 );
+                }
+                set.add( 1L );
+
+                // THEN
+                assertTrue( set.usedSlots() <= 2 * set.size() );
+                List<Long> expected = new ArrayList<>();
+                for ( long i = 3; i < 100; i += 4 )
+                {
+                    expected.add( i );
+                }
+                expected.add( 1L );
+                assertEquals( expected, toList( set.iterator() ) );
+                assertFalse( set.contains( 0L ) );
+                assertTrue( set.contains( 1L ) );
+                assertTrue( set.contains( 99L ) );
+                assertEquals( 26, set.size() );
+            }
+        }
+    }
+
+    @Test
+    public void shouldNotCompactWhileIterating() throws Exception
+    {
+        // GIVEN
+        VersionedLongSet set = new VersionedLongSet();
+        for ( long i = 0; i < 100; i++ )
+        {
+            set.add( i );
+        }
+        Iterator<Long> iterator = set.iterator();
+        assertEquals( 0L, iterator.next().longValue() );
+
+        // WHEN
+        for ( long i = 1; i < 90; i++ )
+        {
+            set.remove( i );
+        }
+
+        // THEN
+        assertEquals( 100, set.usedSlots() );
+        assertEquals( Arrays.asList( 90L, 91L, 92L, 93L, 94L, 95L, 96L, 97L, 98L, 99L ), toList( iterator ) );
+        set.remove( 99L );
+        assertEquals( 10, set.usedSlots() );
+        assertEquals( Arrays.asList( 0L, 90L, 91L, 92L, 93L, 94L, 95L, 96L, 97L, 98L ), toList( set.iterator() ) );
+    }
+
+    private static List<Long> toList( Iterator<Long> iterator )
+    {
+        List<Long> list = new ArrayList<>();
+        iterator.forEachRemaining( list::add );
+        return list;
+    }
+
+    @Test
+    public void shouldBeEmptyAfterClear() throws Exception
+    {
+        // GIVEN
+        VersionedLongSet set = new VersionedLongSet( 2 );
+        set.add( 1L );
+        set.add( 2L );
+        set.add( 3L );
+        Iterator<Long> iterator = set.iterator();
+
+        // WHEN
+        set.clear();
+        set.add( 4L );
+
+        // THEN
+        assertFalse( iterator.hasNext() );
+        assertEquals( new HashSet<>( Arrays.asList( 4L ) ), set );
+    }
+}
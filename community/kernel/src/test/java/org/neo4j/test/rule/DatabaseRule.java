@@ -162,6 +162,12 @@ public abstract class DatabaseRule extends ExternalResource implements GraphData
         return getGraphDatabaseAPI().beginTransaction( type, securityContext, timeout, unit );
     }
 
+    @Override
+    public InternalTransaction beginReadOnlyTransaction( KernelTransaction.Type type, SecurityContext securityContext )
+    {
+        return getGraphDatabaseAPI().beginReadOnlyTransaction( type, securityContext );
+    }
+
     @Override
     public Transaction beginTx()
     {
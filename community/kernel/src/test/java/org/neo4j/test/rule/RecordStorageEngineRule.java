@@ -94,6 +94,7 @@ public class RecordStorageEngineRule extends ExternalResource
 
     private RecordStorageEngine get( FileSystemAbstraction fs, PageCache pageCache, LabelScanStore labelScanStore,
             SchemaIndexProvider schemaIndexProvider, DatabaseHealth databaseHealth, File storeDirectory,
+            Config config,
             Function<BatchTransactionApplierFacade,BatchTransactionApplierFacade> transactionApplierTransformer )
     {
         if ( !fs.fileExists( storeDirectory ) && !fs.mkdir( storeDirectory ) )
@@ -106,7 +107,6 @@ public class RecordStorageEngineRule extends ExternalResource
         when( legacyIndexProviderLookup.all() ).thenReturn( Iterables.empty() );
         IndexConfigStore indexConfigStore = new IndexConfigStore( storeDirectory, fs );
         JobScheduler scheduler = life.add( new Neo4jJobScheduler() );
-        Config config = Config.defaults();
         Supplier<KernelTransactionsSnapshot> txSnapshotSupplier =
                 () -> new KernelTransactionsSnapshot( Collections.emptySet(), 0 );
         return life.add( new ExtendedRecordStorageEngine( storeDirectory, config, idGeneratorFactory,
@@ -139,6 +139,7 @@ public class RecordStorageEngineRule extends ExternalResource
         private Function<BatchTransactionApplierFacade,BatchTransactionApplierFacade> transactionApplierTransformer =
                 applierFacade -> applierFacade;
         private SchemaIndexProvider schemaIndexProvider = SchemaIndexProvider.NO_INDEX_PROVIDER;
+        private Config config = Config.defaults();
 
         public Builder( FileSystemAbstraction fs, PageCache pageCache )
         {
@@ -177,11 +178,17 @@ public class RecordStorageEngineRule extends ExternalResource
             return this;
         }
 
+        public Builder config( Config config )
+        {
+            this.config = config;
+            return this;
+        }
+
         // Add more here
 
         public RecordStorageEngine build()
         {
-            return get( fs, pageCache, labelScanStore, schemaIndexProvider, databaseHealth, storeDirectory,
+            return get( fs, pageCache, labelScanStore, schemaIndexProvider, databaseHealth, storeDirectory, config,
                     transactionApplierTransformer );
         }
 
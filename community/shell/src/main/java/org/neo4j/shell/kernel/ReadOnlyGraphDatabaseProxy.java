@@ -105,6 +105,13 @@ public class ReadOnlyGraphDatabaseProxy implements GraphDatabaseService, GraphDa
         return actual.beginTransaction( type, securityContext, timeout, unit );
     }
 
+    @Override
+    public InternalTransaction beginReadOnlyTransaction( KernelTransaction.Type type,
+            SecurityContext securityContext )
+    {
+        return actual.beginReadOnlyTransaction( type, securityContext );
+    }
+
     @Override
     public Transaction beginTx()
     {
@@ -23,7 +23,9 @@ package org.neo4j.unsafe.impl.internal.dragons;
  * The memory manager is simple: it only allocates memory, until it itself is finalizable and frees it all in one go.
  *
  * The memory is allocated in large segments, and the memory returned by the memory manager is page aligned, and plays
- * well with transparent huge pages and other operating system optimisations.
+ * well with transparent huge pages and other operating system optimisations. The segments, or slabs, can optionally
+ * be made larger and aligned to the huge page size, such that the operating system can back whole slabs with
+ * transparent huge pages.
  *
  * The memory manager assumes that the memory claimed from it is evenly divisible in units of pages.
  */
@@ -34,11 +36,18 @@ public final class MemoryManager
      */
     private static final long GRAB_SIZE = FeatureToggles.getInteger( MemoryManager.class, "GRAB_SIZE", 512 * 1024 ); // 512 KiB
 
+    /**
+     * The most common transparent huge page size, on both x86-64 and AArch64 with 4 KiB base pages.
+     */
+    public static final long HUGE_PAGE_SIZE = 2 * 1024 * 1024; // 2 MiB
+
     /**
      * The amount of memory that this memory manager can still allocate.
      */
     private long memoryReserve;
     private final long alignment;
+    private final long grabSize;
+    private final long slabAlignment;
 
     private Slab slabs;
 
@@ -51,8 +60,33 @@ public final class MemoryManager
      */
     public MemoryManager( long expectedMaxMemory, long alignment )
     {
+        this( expectedMaxMemory, alignment, GRAB_SIZE, alignment );
+    }
+
+    /**
+     * Create a new MemoryManager that will allocate the given amount of memory in slabs of the given size, where the
+     * first pointer in every slab is aligned to the given slab alignment.
+     * <p>
+     * Using a multiple of the {@link #HUGE_PAGE_SIZE} as the slab size, and the huge page size as the slab alignment,
+     * means that every slab covers whole huge pages, which the operating system can then back with transparent huge
+     * pages. The alignment padding is never touched, so it takes up address space, but not physical memory.
+     * @param expectedMaxMemory The maximum amount of memory that this memory manager is expected to allocate.
+     * @param alignment The byte multiple that the allocated pointers have to be aligned at.
+     * @param slabSize The amount of memory, in bytes, to grab in each slab.
+     * @param slabAlignment The byte multiple that the first pointer in each slab is aligned at. This must be a power
+     * of two, and a multiple of the alignment.
+     */
+    public MemoryManager( long expectedMaxMemory, long alignment, long slabSize, long slabAlignment )
+    {
+        if ( slabAlignment < alignment || Long.bitCount( slabAlignment ) != 1 )
+        {
+            throw new IllegalArgumentException( "The slab alignment must be a power of two, and no less than the " +
+                                                "pointer alignment, but was " + slabAlignment );
+        }
         this.memoryReserve = expectedMaxMemory;
         this.alignment = alignment;
+        this.grabSize = slabSize;
+        this.slabAlignment = slabAlignment;
     }
 
     /**
@@ -64,11 +98,11 @@ public final class MemoryManager
     {
         if ( slabs == null || !slabs.canAllocate( bytes ) )
         {
-            long slabGrab = Math.min( GRAB_SIZE, memoryReserve );
+            long slabGrab = Math.min( grabSize, memoryReserve );
             if ( slabGrab < bytes )
             {
                 slabGrab = bytes;
-                Slab slab = new Slab( slabs, slabGrab, alignment );
+                Slab slab = new Slab( slabs, slabGrab, alignment, slabAlignment );
                 if ( slab.canAllocate( bytes ) )
                 {
                     memoryReserve -= slabGrab;
@@ -79,7 +113,7 @@ public final class MemoryManager
                 slabGrab = bytes + alignment;
             }
             memoryReserve -= slabGrab;
-            slabs = new Slab( slabs, slabGrab, alignment );
+            slabs = new Slab( slabs, slabGrab, alignment, slabAlignment );
         }
         return slabs.allocate( bytes );
     }
@@ -105,14 +139,19 @@ public final class MemoryManager
         private final long alignMask;
         private long nextAlignedPointer;
 
-        public Slab( Slab next, long size, long alignment )
+        public Slab( Slab next, long size, long alignment, long slabAlignment )
         {
+            // Pad the slab so the slab aligned start still leaves us with the requested size.
+            long padding = slabAlignment > alignment ? slabAlignment : 0;
             this.next = next;
-            this.address = UnsafeUtil.allocateMemory( size );
-            this.limit = address + size;
+            this.address = UnsafeUtil.allocateMemory( size + padding );
             this.alignMask = alignment - 1;
 
-            nextAlignedPointer = nextAligned( address );
+            long slabAlignMask = slabAlignment - 1;
+            long start = (address + slabAlignMask) & ~slabAlignMask;
+            // Without padding, the alignment of the start pointer eats into the slab, like it always has.
+            this.limit = Math.min( start + size, address + size + padding );
+            nextAlignedPointer = nextAligned( start );
         }
 
         private long nextAligned( long pointer )
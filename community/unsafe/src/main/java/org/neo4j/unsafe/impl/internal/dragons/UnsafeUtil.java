@@ -23,8 +23,10 @@ import sun.misc.Unsafe;
 
 import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
+import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
@@ -63,6 +65,8 @@ public final class UnsafeUtil
 
     private static final Unsafe unsafe;
     private static final MethodHandle sharedStringConstructor;
+    private static final MethodHandle directBufferCleaner;
+    private static final MethodHandle cleanerClean;
     private static final String allowUnalignedMemoryAccessProperty =
             "org.neo4j.unsafe.impl.internal.dragons.UnsafeUtil.allowUnalignedMemoryAccess";
 
@@ -85,6 +89,10 @@ public final class UnsafeUtil
 
         MethodHandles.Lookup lookup = MethodHandles.lookup();
         sharedStringConstructor = getSharedStringConstructorMethodHandle( lookup );
+        directBufferCleaner = getMethodHandle( lookup, "sun.nio.ch.DirectBuffer", "cleaner",
+                MethodType.methodType( Object.class, ByteBuffer.class ) );
+        cleanerClean = getMethodHandle( lookup, "sun.misc.Cleaner", "clean",
+                MethodType.methodType( void.class, Object.class ) );
 
         Class<?> dbbClass = null;
         Constructor<?> ctor = null;
@@ -208,6 +216,20 @@ public final class UnsafeUtil
         }
     }
 
+    private static MethodHandle getMethodHandle(
+            MethodHandles.Lookup lookup, String className, String methodName, MethodType type )
+    {
+        try
+        {
+            Method method = Class.forName( className ).getMethod( methodName );
+            return lookup.unreflect( method ).asType( type );
+        }
+        catch ( Exception e )
+        {
+            return null;
+        }
+    }
+
     private static MethodHandle getSharedStringConstructorMethodHandle(
             MethodHandles.Lookup lookup )
     {
@@ -320,6 +342,34 @@ public final class UnsafeUtil
         }
     }
 
+    /**
+     * Free the memory of the given direct or memory mapped buffer right away, instead of waiting for the buffer to be
+     * garbage collected. This does nothing for heap buffers, for buffers that do not own their memory, like slices,
+     * and on JVMs where buffer cleaners are not accessible.
+     * <p>
+     * The buffer, and any slices or duplicates of it, MUST NOT be accessed after this, or the JVM may crash.
+     *
+     * @param buffer the buffer to free.
+     */
+    public static void invokeCleaner( ByteBuffer buffer )
+    {
+        if ( directBufferCleaner != null && cleanerClean != null && buffer.isDirect() )
+        {
+            try
+            {
+                Object cleaner = (Object) directBufferCleaner.invokeExact( buffer );
+                if ( cleaner != null )
+                {
+                    cleanerClean.invokeExact( cleaner );
+                }
+            }
+            catch ( Throwable throwable )
+            {
+                throw new LinkageError( "Unexpected 'Cleaner' intrinsic failure", throwable );
+            }
+        }
+    }
+
     /**
      * Allocate a slab of memory of the given size in bytes, and return a pointer to that memory.
      * <p>
@@ -53,4 +53,29 @@ public class MemoryManagerTest
         }
         // Also asserts that no OutOfMemoryError is thrown.
     }
+
+    @Test
+    public void firstPointerInEverySlabMustBeAlignedToTheSlabAlignment() throws Exception
+    {
+        long slabSize = 2 * MemoryManager.HUGE_PAGE_SIZE;
+        MemoryManager mman = new MemoryManager(
+                4 * slabSize, UnsafeUtil.pageSize(), slabSize, MemoryManager.HUGE_PAGE_SIZE );
+        long pageSize = 8192;
+        long pagesPerSlab = slabSize / pageSize;
+        for ( int i = 0; i < 4 * pagesPerSlab; i++ )
+        {
+            long address = mman.allocateAligned( pageSize );
+            assertThat( address % UnsafeUtil.pageSize(), is( 0L ) );
+            if ( i % pagesPerSlab == 0 )
+            {
+                assertThat( address % MemoryManager.HUGE_PAGE_SIZE, is( 0L ) );
+            }
+        }
+    }
+
+    @Test( expected = IllegalArgumentException.class )
+    public void slabAlignmentMustNotBeLessThanPointerAlignment() throws Exception
+    {
+        new MemoryManager( 16 * 4096, 4096, 8 * 4096, 8 );
+    }
 }
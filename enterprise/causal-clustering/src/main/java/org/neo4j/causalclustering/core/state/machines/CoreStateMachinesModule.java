@@ -62,6 +62,7 @@ import org.neo4j.kernel.impl.store.id.IdType;
 import org.neo4j.kernel.impl.store.id.configuration.IdTypeConfigurationProvider;
 import org.neo4j.kernel.impl.store.stats.IdBasedStoreEntityCounters;
 import org.neo4j.kernel.impl.util.Dependencies;
+import org.neo4j.kernel.impl.util.JobScheduler;
 import org.neo4j.kernel.lifecycle.LifeSupport;
 import org.neo4j.logging.LogProvider;
 import org.neo4j.storageengine.api.Token;
@@ -175,8 +176,8 @@ public class CoreStateMachinesModule
 
         dependencies.satisfyDependencies( replicatedTxStateMachine );
 
-        lockManager = createLockManager( config, logging, replicator, myself, leaderLocator,
-                replicatedLockTokenStateMachine );
+        lockManager = createLockManager( config, logging, platformModule.jobScheduler, replicator, myself,
+                leaderLocator, replicatedLockTokenStateMachine );
 
         coreStateMachines = new CoreStateMachines( replicatedTxStateMachine, labelTokenStateMachine,
                 relationshipTypeTokenStateMachine, propertyKeyTokenStateMachine, replicatedLockTokenStateMachine,
@@ -225,10 +226,11 @@ public class CoreStateMachinesModule
                 idTypeConfigurationProvider );
     }
 
-    private Locks createLockManager( final Config config, final LogService logging, final Replicator replicator,
-            MemberId myself, LeaderLocator leaderLocator, ReplicatedLockTokenStateMachine lockTokenStateMachine )
+    private Locks createLockManager( final Config config, final LogService logging, JobScheduler jobScheduler,
+            final Replicator replicator, MemberId myself, LeaderLocator leaderLocator,
+            ReplicatedLockTokenStateMachine lockTokenStateMachine )
     {
-        Locks localLocks = CommunityEditionModule.createLockManager( config, logging );
+        Locks localLocks = CommunityEditionModule.createLockManager( config, logging, jobScheduler );
         return new LeaderOnlyLockManager( myself, replicator, leaderLocator, localLocks, lockTokenStateMachine );
     }
 }
@@ -27,6 +27,7 @@ import org.neo4j.causalclustering.core.consensus.NoLeaderFoundException;
 import org.neo4j.causalclustering.core.replication.Replicator;
 import org.neo4j.causalclustering.core.state.machines.tx.ReplicatedTransactionStateMachine;
 import org.neo4j.causalclustering.identity.MemberId;
+import org.neo4j.kernel.impl.locking.LockWaitStatistics;
 import org.neo4j.kernel.impl.locking.Locks;
 import org.neo4j.storageengine.api.lock.AcquireLockTimeoutException;
 import org.neo4j.storageengine.api.lock.ResourceType;
@@ -162,6 +163,12 @@ public class LeaderOnlyLockManager implements Locks
         localLocks.accept( visitor );
     }
 
+    @Override
+    public LockWaitStatistics waitStatistics()
+    {
+        return localLocks.waitStatistics();
+    }
+
     @Override
     public void close()
     {
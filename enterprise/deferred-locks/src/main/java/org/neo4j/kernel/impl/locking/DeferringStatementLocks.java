@@ -63,4 +63,10 @@ public class DeferringStatementLocks implements StatementLocks
     {
         implicit.close();
     }
+
+    @Override
+    public int lockSessionId()
+    {
+        return explicit.getLockSessionId();
+    }
 }
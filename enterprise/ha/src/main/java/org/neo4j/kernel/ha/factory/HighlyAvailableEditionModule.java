@@ -478,7 +478,8 @@ public class HighlyAvailableEditionModule
         // Create HA services
         lockManager = dependencies.satisfyDependency(
                 createLockManager( componentSwitcherContainer, config, masterDelegateInvocationHandler,
-                        requestContextFactory, platformModule.availabilityGuard, logging ) );
+                        requestContextFactory, platformModule.availabilityGuard, platformModule.jobScheduler,
+                        logging ) );
 
         statementLocksFactory = new StatementLocksFactorySelector( lockManager, config, logging ).select();
 
@@ -641,13 +642,13 @@ public class HighlyAvailableEditionModule
             Config config,
             DelegateInvocationHandler<Master> masterDelegateInvocationHandler,
             RequestContextFactory requestContextFactory,
-            AvailabilityGuard availabilityGuard, LogService logService )
+            AvailabilityGuard availabilityGuard, JobScheduler jobScheduler, LogService logService )
     {
         DelegateInvocationHandler<Locks> lockManagerDelegate = new DelegateInvocationHandler<>( Locks.class );
         Locks lockManager = (Locks) newProxyInstance( Locks.class.getClassLoader(), new Class[]{Locks.class},
                 lockManagerDelegate );
 
-        Factory<Locks> locksFactory = () -> CommunityEditionModule.createLockManager( config, logService );
+        Factory<Locks> locksFactory = () -> CommunityEditionModule.createLockManager( config, logService, jobScheduler );
 
         LockManagerSwitcher lockManagerModeSwitcher = new LockManagerSwitcher(
                 lockManagerDelegate, masterDelegateInvocationHandler, requestContextFactory, availabilityGuard,
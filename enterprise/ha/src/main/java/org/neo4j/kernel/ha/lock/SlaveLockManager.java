@@ -23,6 +23,7 @@ import org.neo4j.kernel.AvailabilityGuard;
 import org.neo4j.kernel.configuration.Config;
 import org.neo4j.kernel.ha.com.RequestContextFactory;
 import org.neo4j.kernel.ha.com.master.Master;
+import org.neo4j.kernel.impl.locking.LockWaitStatistics;
 import org.neo4j.kernel.impl.locking.Locks;
 import org.neo4j.logging.LogProvider;
 
@@ -57,6 +58,12 @@ public class SlaveLockManager implements Locks
         local.accept( visitor );
     }
 
+    @Override
+    public LockWaitStatistics waitStatistics()
+    {
+        return local.waitStatistics();
+    }
+
     @Override
     public void close()
     {
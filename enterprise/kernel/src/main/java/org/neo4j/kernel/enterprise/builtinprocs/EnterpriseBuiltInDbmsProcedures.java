@@ -49,6 +49,8 @@ import org.neo4j.kernel.api.proc.UserFunctionSignature;
 import org.neo4j.kernel.api.security.SecurityContext;
 import org.neo4j.kernel.impl.api.KernelTransactions;
 import org.neo4j.kernel.impl.core.ThreadToStatementContextBridge;
+import org.neo4j.kernel.impl.locking.LockWaitStatistics.ContendedResource;
+import org.neo4j.kernel.impl.locking.Locks;
 import org.neo4j.kernel.impl.proc.Procedures;
 import org.neo4j.kernel.impl.query.QuerySource;
 import org.neo4j.kernel.internal.GraphDatabaseAPI;
@@ -63,6 +65,7 @@ import static java.time.format.DateTimeFormatter.ISO_OFFSET_DATE_TIME;
 import static java.util.concurrent.TimeUnit.HOURS;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toSet;
@@ -123,11 +126,10 @@ public class EnterpriseBuiltInDbmsProcedures
     {
         assertAdmin();
 
-        return countTransactionByUsername(
+        return summarizeTransactionsByUsername(
             getActiveTransactions( graph.getDependencyResolver() )
                 .stream()
                 .filter( tx -> !tx.terminationReason().isPresent() )
-                .map( tx -> tx.securityContext().subject().username() )
         );
     }
 
@@ -246,8 +248,8 @@ public class EnterpriseBuiltInDbmsProcedures
         try
         {
             return getKernelTransactions().activeTransactions().stream()
-                .flatMap( KernelTransactionHandle::executingQueries )
-                .filter( query -> isAdminOrSelf( query.username() ) )
+                .flatMap( tx -> tx.executingQueries().map( query -> Pair.of( tx, query ) ) )
+                .filter( pair -> isAdminOrSelf( pair.other().username() ) )
                 .map( catchThrown( InvalidArgumentsException.class, this::queryStatusResult ) );
         }
         catch ( UncaughtCheckedException uncaught )
@@ -307,6 +309,16 @@ public class EnterpriseBuiltInDbmsProcedures
         }
     }
 
+    @Description( "List the most contended locks at this instance; how many times transactions had to wait for them " +
+                  "and for how long in total, the most waited for lock first." )
+    @Procedure( name = "dbms.listContendedLocks", mode = DBMS )
+    public Stream<ContendedLockResult> listContendedLocks()
+    {
+        assertAdmin();
+        return resolver.resolveDependency( Locks.class ).waitStatistics().topContendedResources().stream()
+                .map( ContendedLockResult::new );
+    }
+
     private <T> Set<Pair<KernelTransactionHandle, T>> getActiveTransactions(
             Function<KernelTransactionHandle,Stream<T>> selector
     )
@@ -383,13 +395,14 @@ public class EnterpriseBuiltInDbmsProcedures
         return dependencyResolver.resolveDependency( BoltConnectionTracker.class );
     }
 
-    public static Stream<TransactionResult> countTransactionByUsername( Stream<String> usernames )
+    public static Stream<TransactionResult> summarizeTransactionsByUsername( Stream<KernelTransactionHandle> txs )
     {
-        return usernames
-            .collect( Collectors.groupingBy( Function.identity(), Collectors.counting() ) )
+        return txs
+            .collect( Collectors.groupingBy( tx -> tx.securityContext().subject().username() ) )
             .entrySet()
             .stream()
-            .map( entry -> new TransactionResult( entry.getKey(), entry.getValue() )
+            .map( entry -> new TransactionResult( entry.getKey(), (long) entry.getValue().size(),
+                    entry.getValue().stream().mapToLong( KernelTransactionHandle::txStateMemoryUsage ).sum() )
         );
     }
 
@@ -429,9 +442,10 @@ public class EnterpriseBuiltInDbmsProcedures
         }
     }
 
-    private QueryStatusResult queryStatusResult( ExecutingQuery q )
+    private QueryStatusResult queryStatusResult( Pair<KernelTransactionHandle,ExecutingQuery> pair )
             throws InvalidArgumentsException
     {
+        ExecutingQuery q = pair.other();
         return new QueryStatusResult(
                 ofInternalId( q.internalQueryId() ),
                 q.username(),
@@ -440,7 +454,8 @@ public class EnterpriseBuiltInDbmsProcedures
                 q.startTime(),
                 clock.instant().minusMillis( q.startTime() ).toEpochMilli(),
                 q.querySource(),
-                q.metaData()
+                q.metaData(),
+                pair.first().txStateMemoryUsage()
         );
     }
 
@@ -454,6 +469,7 @@ public class EnterpriseBuiltInDbmsProcedures
         public final String elapsedTime;
         public final String connectionDetails;
         public final Map<String,Object> metaData;
+        public final Long transactionStateSize;
 
         QueryStatusResult(
                 QueryId queryId,
@@ -463,7 +479,8 @@ public class EnterpriseBuiltInDbmsProcedures
                 long startTime,
                 long elapsedTime,
                 QuerySource querySource,
-                Map<String,Object> txMetaData
+                Map<String,Object> txMetaData,
+                long transactionStateSize
         ) {
             this.queryId = queryId.toString();
             this.username = username;
@@ -473,6 +490,7 @@ public class EnterpriseBuiltInDbmsProcedures
             this.elapsedTime = formatInterval( elapsedTime );
             this.connectionDetails = querySource.toString();
             this.metaData = txMetaData;
+            this.transactionStateSize = transactionStateSize;
         }
 
         private static String formatTime( final long startTime )
@@ -495,15 +513,33 @@ public class EnterpriseBuiltInDbmsProcedures
         }
     }
 
+    public static class ContendedLockResult
+    {
+        public final String resourceType;
+        public final Long resourceId;
+        public final Long waits;
+        public final String totalWaitTime;
+
+        ContendedLockResult( ContendedResource resource )
+        {
+            this.resourceType = resource.resourceType().toString();
+            this.resourceId = resource.resourceId();
+            this.waits = resource.waits();
+            this.totalWaitTime = formatInterval( NANOSECONDS.toMillis( resource.totalWaitNanos() ) );
+        }
+    }
+
     public static class TransactionResult
     {
         public final String username;
         public final Long activeTransactions;
+        public final Long transactionStateSize;
 
-        TransactionResult( String username, Long activeTransactions )
+        TransactionResult( String username, Long activeTransactions, Long transactionStateSize )
         {
             this.username = username;
             this.activeTransactions = activeTransactions;
+            this.transactionStateSize = transactionStateSize;
         }
     }
 
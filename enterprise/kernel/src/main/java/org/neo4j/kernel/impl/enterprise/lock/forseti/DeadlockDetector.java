@@ -0,0 +1,398 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.enterprise.lock.forseti;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import org.neo4j.collection.primitive.PrimitiveIntIterator;
+import org.neo4j.kernel.impl.enterprise.lock.forseti.ForsetiLockManager.DeadlockResolutionStrategy;
+import org.neo4j.kernel.impl.util.JobScheduler;
+import org.neo4j.kernel.impl.util.collection.SimpleBitSet;
+import org.neo4j.logging.Log;
+import org.neo4j.logging.NullLog;
+import org.neo4j.unsafe.impl.internal.dragons.FeatureToggles;
+
+/**
+ * Periodically looks for deadlocks among waiting {@link ForsetiClient clients}, off the path of acquiring and
+ * releasing locks.
+ * <p/>
+ * Every round builds a wait-for graph from the lock each client is currently waiting for, with an edge to every
+ * holder of that lock that is itself waiting, and searches it for cycles. For each cycle found, the
+ * {@link DeadlockResolutionStrategy} picks a client to abort, which is then signalled and fails its lock acquisition
+ * with a {@link org.neo4j.kernel.DeadlockDetectedException}.
+ * <p/>
+ * The graph is built from racy reads, so before aborting anyone the cycle is verified: every client in it must be
+ * seen in the same wait, see {@link ForsetiClient#waitEpoch()}, before and after each of its edges has been checked
+ * against the lock table. A client that is waiting cannot release any locks, so a cycle that holds up across such
+ * a check is a real deadlock.
+ * <p/>
+ * The detector runs as a job of the {@link JobScheduler.Groups#deadlockDetection} group, which is scheduled when a
+ * client parks and exits once there have been no parked clients for a full round. Whenever that job is not running,
+ * because there is no scheduler, it could not be scheduled or it failed, the parked clients look for deadlocks
+ * themselves each time they wake up, one at a time and no more often than the job would.
+ */
+class DeadlockDetector implements Runnable
+{
+    private static final long INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(
+            FeatureToggles.getLong( DeadlockDetector.class, "intervalMillis", 10 ) );
+
+    private final Iterable<ForsetiClient> clients;
+    private final DeadlockResolutionStrategy deadlockResolutionStrategy;
+    private final JobScheduler scheduler;
+    private final Log log;
+    private final AtomicInteger parkedClients = new AtomicInteger();
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicBoolean detecting = new AtomicBoolean();
+    private volatile long lastDetectionNanos = System.nanoTime() - INTERVAL_NANOS;
+    private volatile boolean shutdown;
+
+    DeadlockDetector( Iterable<ForsetiClient> clients, DeadlockResolutionStrategy deadlockResolutionStrategy )
+    {
+        this( clients, deadlockResolutionStrategy, null, NullLog.getInstance() );
+    }
+
+    /**
+     * @param scheduler to run the detection job on, or {@code null} to leave deadlock detection to the parked
+     * clients.
+     */
+    DeadlockDetector( Iterable<ForsetiClient> clients, DeadlockResolutionStrategy deadlockResolutionStrategy,
+            JobScheduler scheduler, Log log )
+    {
+        this.clients = clients;
+        this.deadlockResolutionStrategy = deadlockResolutionStrategy;
+        this.scheduler = scheduler;
+        this.log = log;
+    }
+
+    /** Called by a client that is about to park, makes sure the detector is running. */
+    void clientParked()
+    {
+        parkedClients.incrementAndGet();
+        if ( scheduler != null && !running.get() && !shutdown && running.compareAndSet( false, true ) )
+        {
+            try
+            {
+                scheduler.schedule( JobScheduler.Groups.deadlockDetection, this );
+            }
+            catch ( RuntimeException e )
+            {
+                running.set( false );
+                log.warn( "Unable to schedule deadlock detection, parked lock clients will look for deadlocks " +
+                          "themselves", e );
+            }
+        }
+    }
+
+    /**
+     * Called by a parked client each time it wakes up without having got its lock. Runs a round of deadlock
+     * detection on the calling thread if the detection job is not running, and no other client is running one and
+     * the last round is at least an interval ago.
+     * <p/>
+     * A failing round is not caught here, it fails the lock acquisition of the calling client rather than leave it
+     * waiting without anyone looking for deadlocks.
+     */
+    void clientWokeUp()
+    {
+        if ( !running.get() && System.nanoTime() - lastDetectionNanos >= INTERVAL_NANOS &&
+             detecting.compareAndSet( false, true ) )
+        {
+            try
+            {
+                detectDeadlocks();
+            }
+            finally
+            {
+                lastDetectionNanos = System.nanoTime();
+                detecting.set( false );
+            }
+        }
+    }
+
+    void clientUnparked()
+    {
+        parkedClients.decrementAndGet();
+    }
+
+    void shutdown()
+    {
+        shutdown = true;
+    }
+
+    @Override
+    public void run()
+    {
+        while ( !shutdown )
+        {
+            LockSupport.parkNanos( this, INTERVAL_NANOS );
+            // A parked client may still be finishing a round it started before this job was scheduled
+            if ( detecting.compareAndSet( false, true ) )
+            {
+                try
+                {
+                    detectDeadlocks();
+                }
+                catch ( RuntimeException e )
+                {
+                    // Leave it to the parked clients from here on, the next client to park schedules a new job
+                    log.error( "Deadlock detection failed, parked lock clients will look for deadlocks themselves",
+                            e );
+                    running.set( false );
+                    return;
+                }
+                finally
+                {
+                    detecting.set( false );
+                }
+            }
+
+            if ( parkedClients.get() == 0 )
+            {
+                running.set( false );
+                if ( parkedClients.get() == 0 || !running.compareAndSet( false, true ) )
+                {
+                    return;
+                }
+            }
+        }
+        running.set( false );
+    }
+
+    /**
+     * Run a single round of deadlock detection.
+     *
+     * @return the number of clients that were aborted.
+     */
+    int detectDeadlocks()
+    {
+        Map<Integer,Waiter> waiters = new HashMap<>();
+        for ( ForsetiClient client : clients )
+        {
+            Waiter waiter = Waiter.of( client );
+            if ( waiter != null )
+            {
+                waiters.put( client.id(), waiter );
+            }
+        }
+        if ( waiters.size() < 2 )
+        {
+            return 0;
+        }
+
+        SimpleBitSet holders = new SimpleBitSet( 64 );
+        for ( Waiter waiter : waiters.values() )
+        {
+            holders.clear();
+            waiter.lock.copyHoldersInto( holders );
+            PrimitiveIntIterator iterator = holders.iterator();
+            while ( iterator.hasNext() )
+            {
+                int holderId = iterator.next();
+                Waiter holder = waiters.get( holderId );
+                if ( holder != null && holder != waiter )
+                {
+                    waiter.waitsFor.add( holder );
+                }
+            }
+        }
+
+        int aborted = 0;
+        List<Waiter> cycle;
+        while ( (cycle = findCycle( waiters.values() )) != null )
+        {
+            Waiter victim = chooseVictim( cycle );
+            if ( isDeadlocked( cycle ) )
+            {
+                victim.abort();
+                aborted++;
+                victim.removed = true;
+            }
+            else
+            {
+                // Things have moved on since we took our snapshot, look at these clients again next round
+                for ( Waiter waiter : cycle )
+                {
+                    waiter.removed = true;
+                }
+            }
+        }
+        return aborted;
+    }
+
+    /**
+     * Depth first search for a cycle among the waiters that have not been removed.
+     *
+     * @return the waiters of a cycle, each waiting for the next and the last for the first, or {@code null} if
+     * there are no cycles.
+     */
+    private static List<Waiter> findCycle( Iterable<Waiter> waiters )
+    {
+        for ( Waiter waiter : waiters )
+        {
+            waiter.state = Waiter.UNVISITED;
+        }
+
+        List<Waiter> path = new ArrayList<>();
+        List<Integer> nextEdge = new ArrayList<>();
+        for ( Waiter start : waiters )
+        {
+            if ( start.removed || start.state != Waiter.UNVISITED )
+            {
+                continue;
+            }
+
+            start.state = Waiter.ON_PATH;
+            path.add( start );
+            nextEdge.add( 0 );
+            while ( !path.isEmpty() )
+            {
+                int top = path.size() - 1;
+                Waiter current = path.get( top );
+                int edge = nextEdge.get( top );
+                if ( edge == current.waitsFor.size() )
+                {
+                    current.state = Waiter.DONE;
+                    path.remove( top );
+                    nextEdge.remove( top );
+                    continue;
+                }
+                nextEdge.set( top, edge + 1 );
+
+                Waiter next = current.waitsFor.get( edge );
+                if ( next.removed )
+                {
+                    continue;
+                }
+                if ( next.state == Waiter.ON_PATH )
+                {
+                    return new ArrayList<>( path.subList( path.indexOf( next ), path.size() ) );
+                }
+                if ( next.state == Waiter.UNVISITED )
+                {
+                    next.state = Waiter.ON_PATH;
+                    path.add( next );
+                    nextEdge.add( 0 );
+                }
+            }
+        }
+        return null;
+    }
+
+    private Waiter chooseVictim( List<Waiter> cycle )
+    {
+        Waiter victim = cycle.get( 0 );
+        for ( Waiter candidate : cycle )
+        {
+            if ( candidate != victim && deadlockResolutionStrategy.shouldAbort( candidate.client, victim.client ) )
+            {
+                victim = candidate;
+            }
+        }
+        return victim;
+    }
+
+    private static boolean isDeadlocked( List<Waiter> cycle )
+    {
+        for ( Waiter waiter : cycle )
+        {
+            if ( !waiter.isStillWaiting() )
+            {
+                return false;
+            }
+        }
+        for ( int i = 0; i < cycle.size(); i++ )
+        {
+            Waiter waiter = cycle.get( i );
+            Waiter holder = cycle.get( (i + 1) % cycle.size() );
+            if ( !waiter.lock.isHeldBy( holder.client.id() ) ||
+                 waiter.client.waitingForTable().get( waiter.client.waitingForResourceId() ) != waiter.lock )
+            {
+                return false;
+            }
+        }
+        for ( Waiter waiter : cycle )
+        {
+            if ( !waiter.isStillWaiting() )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** A client as seen waiting for a lock, and the waiting clients holding that lock. */
+    private static class Waiter
+    {
+        static final int UNVISITED = 0;
+        static final int ON_PATH = 1;
+        static final int DONE = 2;
+
+        final ForsetiClient client;
+        final ForsetiLockManager.Lock lock;
+        final long epoch;
+        final List<Waiter> waitsFor = new ArrayList<>( 1 );
+        int state;
+        boolean removed;
+
+        private Waiter( ForsetiClient client, ForsetiLockManager.Lock lock, long epoch )
+        {
+            this.client = client;
+            this.lock = lock;
+            this.epoch = epoch;
+        }
+
+        /**
+         * @return the lock the client is waiting for along with the wait it is waiting in, or {@code null} if the
+         * client is not waiting for any lock.
+         */
+        static Waiter of( ForsetiClient client )
+        {
+            // A client bumps its epoch before it publishes the lock it waits for, and clears the lock before it
+            // starts waiting for another resource, so seeing the same epoch on both sides of the lock means that
+            // the lock belongs to that wait.
+            long epoch = client.waitEpoch();
+            ForsetiLockManager.Lock lock = client.waitingFor();
+            if ( lock == null || client.waitEpoch() != epoch )
+            {
+                return null;
+            }
+            return new Waiter( client, lock, epoch );
+        }
+
+        boolean isStillWaiting()
+        {
+            Waiter current = of( client );
+            return current != null && current.lock == lock && current.epoch == epoch;
+        }
+
+        void abort()
+        {
+            client.abortWait( epoch, client + " can't acquire " + lock + " on " + client.waitingForType() + "(" +
+                    client.waitingForResourceId() + "), because holders of that lock are waiting for " + client +
+                    ".\n Wait list:" + lock.describeWaitList() );
+        }
+    }
+}
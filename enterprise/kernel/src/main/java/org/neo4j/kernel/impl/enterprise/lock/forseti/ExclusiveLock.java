@@ -31,15 +31,15 @@ class ExclusiveLock implements ForsetiLockManager.Lock
     }
 
     @Override
-    public void copyHolderWaitListsInto( SimpleBitSet waitList )
+    public void copyHoldersInto( SimpleBitSet holders )
     {
-        owner.copyWaitListTo( waitList );
+        holders.put( owner.id() );
     }
 
     @Override
-    public int detectDeadlock( int client )
+    public boolean isHeldBy( int clientId )
     {
-        return owner.isWaitingFor( client ) ? owner.id() : -1;
+        return owner.id() == clientId;
     }
 
     @Override
@@ -19,8 +19,8 @@
  */
 package org.neo4j.kernel.impl.enterprise.lock.forseti;
 
-import java.util.concurrent.ConcurrentMap;
-import java.util.function.IntFunction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 
 import org.neo4j.collection.pool.Pool;
 import org.neo4j.collection.primitive.Primitive;
@@ -28,17 +28,18 @@ import org.neo4j.collection.primitive.PrimitiveIntIterator;
 import org.neo4j.collection.primitive.PrimitiveLongIntMap;
 import org.neo4j.collection.primitive.PrimitiveLongVisitor;
 import org.neo4j.kernel.DeadlockDetectedException;
-import org.neo4j.kernel.impl.enterprise.lock.forseti.ForsetiLockManager.DeadlockResolutionStrategy;
 import org.neo4j.kernel.impl.locking.LockClientStateHolder;
 import org.neo4j.kernel.impl.locking.LockClientStoppedException;
+import org.neo4j.kernel.impl.locking.LockWaitStatistics;
 import org.neo4j.kernel.impl.locking.Locks;
 import org.neo4j.kernel.impl.util.collection.SimpleBitSet;
 import org.neo4j.storageengine.api.lock.AcquireLockTimeoutException;
 import org.neo4j.storageengine.api.lock.ResourceType;
 import org.neo4j.storageengine.api.lock.WaitStrategy;
-import org.neo4j.unsafe.impl.internal.dragons.UnsafeUtil;
+import org.neo4j.unsafe.impl.internal.dragons.FeatureToggles;
 
 import static java.lang.String.format;
+import static org.neo4j.kernel.api.exceptions.Status.Transaction.Interrupted;
 
 // Please note. Except separate test cases for particular classes related to community locking
 // see also org.neo4j.kernel.ha.lock.forseti.ForsetiLocksCompatibility test suite
@@ -54,23 +55,36 @@ import static java.lang.String.format;
  */
 public class ForsetiClient implements Locks.Client
 {
+    /** Number of times to apply the wait strategy of a resource type before parking to wait for a signal. */
+    private static final int SPIN_TRIES = FeatureToggles.getInteger( ForsetiClient.class, "spinTriesBeforePark", 1000 );
+
+    /**
+     * Longest time to stay parked without having been signalled, before looking at the lock again. Only a signal
+     * racing with a client going to sleep makes a difference here, so this can be generous.
+     */
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(
+            FeatureToggles.getLong( ForsetiClient.class, "maxParkMillis", 10 ) );
+
     /** Id for this client */
     private final int clientId;
 
     /** resourceType -> lock map. These are the global lock maps, shared across all clients. */
-    private final ConcurrentMap<Long,ForsetiLockManager.Lock>[] lockMaps;
+    private final LockTable[] lockMaps;
 
     /** resourceType -> wait strategy */
     private final WaitStrategy<AcquireLockTimeoutException>[] waitStrategies;
 
-    /** How to resolve deadlocks. */
-    private final DeadlockResolutionStrategy deadlockResolutionStrategy;
+    /** Where to report the time spent waiting for locks that could not be granted right away. */
+    private final LockWaitStatistics waitStatistics;
 
     /** Handle to return client to pool when closed. */
     private final Pool<ForsetiClient> clientPool;
 
-    /** Look up a client by id */
-    private final IntFunction<ForsetiClient> clientById;
+    /** Where to park when waiting, so that clients releasing locks can signal us. */
+    private final WaitQueues waitQueues;
+
+    /** Notified when this client parks, so that deadlocks are looked for while anyone is parked. */
+    private final DeadlockDetector deadlockDetector;
 
     /**
      * The client uses this to track which locks it holds. It is solely an optimization to ensure we don't need to
@@ -84,9 +98,6 @@ public class ForsetiClient implements Locks.Client
     /** @see {@link #sharedLockCounts} */
     private final PrimitiveLongIntMap[] exclusiveLockCounts;
 
-    /** List of other clients this client is waiting for. */
-    private final SimpleBitSet waitList = new SimpleBitSet( 64 );
-
     // To be able to close Locks.Client instance properly we should be able to do couple of things:
     //  - have a possibility to prevent new clients to come
     //  - wake up all the waiters and let them go
@@ -103,19 +114,41 @@ public class ForsetiClient implements Locks.Client
 
     private volatile boolean hasLocks;
 
+    /** When this client started waiting for the lock it is currently acquiring, or 0 if it has not had to wait. */
+    private long waitStartNanos;
+
+    // The wait this client is currently in, published for the deadlock detector and the wait queues. A new wait
+    // first fills in the plain fields, then bumps the epoch and last publishes the lock, so that anyone seeing the
+    // same epoch before and after reading a lock knows that the lock and the other fields belong to that wait.
+    private volatile ForsetiLockManager.Lock waitingFor;
+    private volatile long waitEpoch;
+    private ResourceType waitingForType;
+    private LockTable waitingForTable;
+    private long waitingForResourceId;
+
+    /** Set by the deadlock detector to the epoch of the wait that should be aborted, along with the reason why. */
+    private volatile long abortedWaitEpoch = -1;
+    private volatile String abortMessage;
+
+    /** The thread parked in the wait queues on behalf of this client, if any. */
+    private volatile Thread waitingThread;
+    private boolean parked;
+
     public ForsetiClient( int id,
-                          ConcurrentMap<Long,ForsetiLockManager.Lock>[] lockMaps,
+                          LockTable[] lockMaps,
                           WaitStrategy<AcquireLockTimeoutException>[] waitStrategies,
+                          LockWaitStatistics waitStatistics,
                           Pool<ForsetiClient> clientPool,
-                          DeadlockResolutionStrategy deadlockResolutionStrategy,
-                          IntFunction<ForsetiClient> clientById )
+                          WaitQueues waitQueues,
+                          DeadlockDetector deadlockDetector )
     {
         this.clientId = id;
         this.lockMaps = lockMaps;
         this.waitStrategies = waitStrategies;
-        this.deadlockResolutionStrategy = deadlockResolutionStrategy;
+        this.waitStatistics = waitStatistics;
         this.clientPool = clientPool;
-        this.clientById = clientById;
+        this.waitQueues = waitQueues;
+        this.deadlockDetector = deadlockDetector;
         this.sharedLockCounts = new PrimitiveLongIntMap[lockMaps.length];
         this.exclusiveLockCounts = new PrimitiveLongIntMap[lockMaps.length];
 
@@ -144,7 +177,7 @@ public class ForsetiClient implements Locks.Client
         try
         {
             // Grab the global lock map we will be using
-            ConcurrentMap<Long,ForsetiLockManager.Lock> lockMap = lockMaps[resourceType.typeId()];
+            LockTable lockMap = lockMaps[resourceType.typeId()];
 
             // And grab our local lock maps
             PrimitiveLongIntMap heldShareLocks = sharedLockCounts[resourceType.typeId()];
@@ -203,14 +236,20 @@ public class ForsetiClient implements Locks.Client
                         }
                     }
 
-                    // Someone holds shared lock on this entity, try and get in on that action
+                    // Someone holds, or recently held, shared lock on this entity, try and get in on that action
                     else if ( existingLock instanceof SharedLock )
                     {
-                        if ( ((SharedLock) existingLock).acquire( this ) )
+                        SharedLock sharedLock = (SharedLock) existingLock;
+                        if ( sharedLock.acquire( this ) || sharedLock.tryRevive( this ) )
                         {
                             // Success!
                             break;
                         }
+                        if ( sharedLock.isRetired() )
+                        {
+                            // It is on its way out of the lock map, look again
+                            continue;
+                        }
                     }
 
                     // Someone holds an exclusive lock on this entity
@@ -223,14 +262,14 @@ public class ForsetiClient implements Locks.Client
                         throw new UnsupportedOperationException( "Unknown lock type: " + existingLock );
                     }
 
+                    // Take note of who we are waiting for. This is used for deadlock detection.
+                    markAsWaitingFor( existingLock, resourceType, lockMap, resourceId );
                     applyWaitStrategy( resourceType, tries++ );
-
-                    // And take note of who we are waiting for. This is used for deadlock detection.
-                    markAsWaitingFor( existingLock, resourceType, resourceId );
                 }
 
                 // Got the lock, no longer waiting for anyone.
-                clearWaitList();
+                endWait();
+                recordWait( resourceType, resourceId );
 
                 // Make a local note about the fact that we now hold this lock
                 heldShareLocks.put( resourceId, 1 );
@@ -238,6 +277,8 @@ public class ForsetiClient implements Locks.Client
         }
         finally
         {
+            endWait();
+            waitStartNanos = 0;
             stateHolder.decrementActiveClients();
         }
     }
@@ -250,7 +291,7 @@ public class ForsetiClient implements Locks.Client
 
         try
         {
-            ConcurrentMap<Long,ForsetiLockManager.Lock> lockMap = lockMaps[resourceType.typeId()];
+            LockTable lockMap = lockMaps[resourceType.typeId()];
             PrimitiveLongIntMap heldLocks = exclusiveLockCounts[resourceType.typeId()];
 
             for ( long resourceId : resourceIds )
@@ -283,16 +324,19 @@ public class ForsetiClient implements Locks.Client
                         }
                     }
 
+                    markAsWaitingFor( existingLock, resourceType, lockMap, resourceId );
                     applyWaitStrategy( resourceType, tries++ );
-                    markAsWaitingFor( existingLock, resourceType, resourceId );
                 }
 
-                clearWaitList();
+                endWait();
+                recordWait( resourceType, resourceId );
                 heldLocks.put( resourceId, 1 );
             }
         }
         finally
         {
+            endWait();
+            waitStartNanos = 0;
             stateHolder.decrementActiveClients();
         }
     }
@@ -305,7 +349,7 @@ public class ForsetiClient implements Locks.Client
 
         try
         {
-            ConcurrentMap<Long,ForsetiLockManager.Lock> lockMap = lockMaps[resourceType.typeId()];
+            LockTable lockMap = lockMaps[resourceType.typeId()];
             PrimitiveLongIntMap heldLocks = exclusiveLockCounts[resourceType.typeId()];
 
             int heldCount = heldLocks.get( resourceId );
@@ -333,6 +377,7 @@ public class ForsetiClient implements Locks.Client
                         else
                         {
                             sharedLock.releaseUpdateLock( this );
+                            waitQueues.signal( lockMap, resourceId );
                             return false;
                         }
                     }
@@ -357,7 +402,7 @@ public class ForsetiClient implements Locks.Client
 
         try
         {
-            ConcurrentMap<Long,ForsetiLockManager.Lock> lockMap = lockMaps[resourceType.typeId()];
+            LockTable lockMap = lockMaps[resourceType.typeId()];
             PrimitiveLongIntMap heldShareLocks = sharedLockCounts[resourceType.typeId()];
             PrimitiveLongIntMap heldExclusiveLocks = exclusiveLockCounts[resourceType.typeId()];
 
@@ -396,12 +441,13 @@ public class ForsetiClient implements Locks.Client
                     // Note that there is a "safe" race here where someone may be releasing the last reference to a lock
                     // and thus removing that lock instance (making it unacquirable). In this case, we allow retrying,
                     // even though this is a try-lock call.
-                    if ( ((SharedLock) existingLock).acquire( this ) )
+                    SharedLock sharedLock = (SharedLock) existingLock;
+                    if ( sharedLock.acquire( this ) || sharedLock.tryRevive( this ) )
                     {
                         // Success!
                         break;
                     }
-                    else if ( ((SharedLock) existingLock).isUpdateLock() )
+                    else if ( sharedLock.isUpdateLock() )
                     {
                         return false;
                     }
@@ -460,7 +506,7 @@ public class ForsetiClient implements Locks.Client
                 return;
             }
 
-            ConcurrentMap<Long,ForsetiLockManager.Lock> lockMap = lockMaps[resourceType.typeId()];
+            LockTable lockMap = lockMaps[resourceType.typeId()];
             if ( sharedLockCounts[resourceType.typeId()].containsKey( resourceId ) )
             {
                 // We are still holding a shared lock, so we will release it to be reused
@@ -484,6 +530,7 @@ public class ForsetiClient implements Locks.Client
                     SharedLock sharedLock = new SharedLock( this );
                     lockMap.put( resourceId, sharedLock );
                 }
+                waitQueues.signal( lockMap, resourceId );
             }
             else
             {
@@ -557,6 +604,12 @@ public class ForsetiClient implements Locks.Client
     {
         // marking client as closed
         stateHolder.stopClient();
+        // and wake it up if it is parked, waiting for a lock
+        Thread thread = waitingThread;
+        if ( thread != null )
+        {
+            LockSupport.unpark( thread );
+        }
         // waiting for all operations to be completed
         while ( stateHolder.hasActiveClients() )
         {
@@ -578,7 +631,6 @@ public class ForsetiClient implements Locks.Client
         if ( hasLocks )
         {
             releaseAllClientLocks();
-            clearWaitList();
             hasLocks = false;
         }
         clientPool.release( this );
@@ -590,22 +642,60 @@ public class ForsetiClient implements Locks.Client
         return clientId;
     }
 
+    /**
+     * @return the number of clients this client is directly waiting for, plus one for the client itself. This is
+     * approximate, since the holders of the lock it waits for come and go concurrently.
+     */
     public int waitListSize()
     {
-        return waitList.size();
+        return waitingForIds().size();
     }
 
-    public void copyWaitListTo( SimpleBitSet other )
+    /** @return the lock this client is currently waiting for, or {@code null} if it is not waiting. */
+    ForsetiLockManager.Lock waitingFor()
     {
-        other.put( waitList );
-        // TODO It might make sense to somehow put a StoreLoad barrier here,
-        // TODO to expedite the observation of the updated waitList in other clients.
+        return waitingFor;
     }
 
-    public boolean isWaitingFor( int clientId )
+    /** @return the epoch of the current wait, which changes every time this client starts waiting for a lock. */
+    long waitEpoch()
     {
-        // TODO Similarly to the above, make reading the waitList a volatile load.
-        return clientId != this.clientId && waitList.contains( clientId );
+        return waitEpoch;
+    }
+
+    ResourceType waitingForType()
+    {
+        return waitingForType;
+    }
+
+    LockTable waitingForTable()
+    {
+        return waitingForTable;
+    }
+
+    long waitingForResourceId()
+    {
+        return waitingForResourceId;
+    }
+
+    Thread waitingThread()
+    {
+        return waitingThread;
+    }
+
+    /**
+     * Abort the given wait of this client with a {@link DeadlockDetectedException}, unless the client has moved on
+     * to another wait since.
+     */
+    void abortWait( long epoch, String message )
+    {
+        abortMessage = message;
+        abortedWaitEpoch = epoch;
+        Thread thread = waitingThread;
+        if ( thread != null )
+        {
+            LockSupport.unpark( thread );
+        }
     }
 
     @Override
@@ -638,8 +728,8 @@ public class ForsetiClient implements Locks.Client
         return String.format( "ForsetiClient[%d]", clientId );
     }
 
-    /** Release a lock from the global pool. */
-    private void releaseGlobalLock( ConcurrentMap<Long,ForsetiLockManager.Lock> lockMap, long resourceId )
+    /** Release a lock from the global pool, and signal anyone parked waiting for it. */
+    private void releaseGlobalLock( LockTable lockMap, long resourceId )
     {
         ForsetiLockManager.Lock lock = lockMap.get( resourceId );
         if ( lock instanceof ExclusiveLock )
@@ -648,11 +738,11 @@ public class ForsetiClient implements Locks.Client
         }
         else if ( lock instanceof SharedLock && ((SharedLock) lock).release( this ) )
         {
-            // We were the last to hold this lock, it is now dead and we should remove it.
-            // Also cleaning updater referense that can hold lock in memory
+            // We were the last to hold this lock. It stays in the lock map, idle, for the next client wanting to
+            // share lock this resource to revive. Still cleaning updater reference that can hold client in memory.
             ((SharedLock) lock).cleanUpdateHolder();
-            lockMap.remove( resourceId );
         }
+        waitQueues.signal( lockMap, resourceId );
     }
 
     /** Release a lock locally, and return true if we still hold more references to that lock. */
@@ -677,7 +767,7 @@ public class ForsetiClient implements Locks.Client
      * Attempt to upgrade a share lock to an exclusive lock, grabbing the share lock if we don't hold it.
      **/
     private boolean tryUpgradeSharedToExclusive( ResourceType resourceType,
-                                                 ConcurrentMap<Long,ForsetiLockManager.Lock> lockMap,
+                                                 LockTable lockMap,
                                                  long resourceId, SharedLock sharedLock )
             throws AcquireLockTimeoutException
     {
@@ -685,7 +775,10 @@ public class ForsetiClient implements Locks.Client
         boolean holdsSharedLock = sharedLockCounts[resourceType.typeId()].containsKey( resourceId );
         if ( !holdsSharedLock )
         {
-            // We don't hold the shared lock, we need to grab it to upgrade it to an exclusive one
+            // We don't hold the shared lock, we need to grab it to upgrade it to an exclusive one. We may well have
+            // to give it back again right away, so stop looking like a waiter until we have the update lock. The
+            // deadlock detector must never see a waiting client release a lock.
+            waitingFor = null;
             if ( !sharedLock.acquire( this ) )
             {
                 return false;
@@ -730,8 +823,8 @@ public class ForsetiClient implements Locks.Client
                 // Now we just wait for all clients to release the the share lock
                 while ( sharedLock.numberOfHolders() > 1 )
                 {
+                    markAsWaitingFor( sharedLock, resourceType, lockMaps[resourceType.typeId()], resourceId );
                     applyWaitStrategy( resourceType, tries++ );
-                    markAsWaitingFor( sharedLock, resourceType, resourceId );
                 }
 
                 return true;
@@ -739,62 +832,58 @@ public class ForsetiClient implements Locks.Client
             }
             catch ( DeadlockDetectedException e )
             {
-                sharedLock.releaseUpdateLock( this );
-                // wait list is not cleared here as in other catch blocks because it is cleared in
-                // markAsWaitingFor() before throwing DeadlockDetectedException
+                handleUpgradeToExclusiveFailure( resourceType, resourceId, sharedLock );
                 throw e;
             }
             catch ( LockClientStoppedException e )
             {
-                handleUpgradeToExclusiveFailure( sharedLock );
+                handleUpgradeToExclusiveFailure( resourceType, resourceId, sharedLock );
                 throw e;
             }
             catch ( Throwable e )
             {
-                handleUpgradeToExclusiveFailure( sharedLock );
+                handleUpgradeToExclusiveFailure( resourceType, resourceId, sharedLock );
                 throw new RuntimeException( e );
             }
         }
         return false;
     }
 
-    private void handleUpgradeToExclusiveFailure( SharedLock sharedLock )
+    private void handleUpgradeToExclusiveFailure( ResourceType resourceType, long resourceId, SharedLock sharedLock )
     {
         sharedLock.releaseUpdateLock( this );
-        clearWaitList();
+        endWait();
+        waitQueues.signal( lockMaps[resourceType.typeId()], resourceId );
     }
 
-    private void clearWaitList()
+    /**
+     * Publish that this client is waiting for the given lock, if that is not already known. This is what the
+     * deadlock detector and the wait queues go by.
+     */
+    private void markAsWaitingFor( ForsetiLockManager.Lock lock, ResourceType type, LockTable lockMap,
+            long resourceId )
     {
-        waitList.clear();
-        waitList.put( clientId );
+        if ( lock != waitingFor )
+        {
+            waitingForType = type;
+            waitingForTable = lockMap;
+            waitingForResourceId = resourceId;
+            waitEpoch++;
+            waitingFor = lock;
+        }
     }
 
-    private void markAsWaitingFor( ForsetiLockManager.Lock lock, ResourceType type, long resourceId )
+    /** No longer waiting for a lock, either because we got it or because we gave up. */
+    private void endWait()
     {
-        clearWaitList();
-        lock.copyHolderWaitListsInto( waitList );
-
-        int b = lock.detectDeadlock( id() );
-        if ( b != -1 && deadlockResolutionStrategy.shouldAbort( this, clientById.apply( b ) ) )
+        if ( parked )
         {
-            // Force the operations below to happen after the reads we do for deadlock
-            // detection in the lines above, as a way to cut down on false-positive deadlocks
-            UnsafeUtil.loadFence();
-
-            // Create message before we clear the wait-list, to lower the chance of the message being insane
-            String message = this + " can't acquire " + lock + " on " + type + "(" + resourceId +
-                             "), because holders of that lock " +
-                             "are waiting for " + this + ".\n Wait list:" + lock.describeWaitList();
-
-            // Minimize the risk of false positives by double-checking that the deadlock remains
-            // after we've generated a description of it.
-            if ( lock.detectDeadlock( id() ) != -1 )
-            {
-                waitList.clear();
-                throw new DeadlockDetectedException( message );
-            }
+            waitQueues.dequeue( this );
+            parked = false;
+            waitingThread = null;
+            deadlockDetector.clientUnparked();
         }
+        waitingFor = null;
     }
 
     /**
@@ -818,7 +907,7 @@ public class ForsetiClient implements Locks.Client
     public String describeWaitList()
     {
         StringBuilder sb = new StringBuilder( format( "%nClient[%d] waits for [", id() ) );
-        PrimitiveIntIterator iter = waitList.iterator();
+        PrimitiveIntIterator iter = waitingForIds().iterator();
         for ( boolean first = true; iter.hasNext(); )
         {
             int next = iter.next();
@@ -839,14 +928,70 @@ public class ForsetiClient implements Locks.Client
         return clientId;
     }
 
+    /** @return this client and the clients holding the lock it is waiting for. */
+    private SimpleBitSet waitingForIds()
+    {
+        SimpleBitSet ids = new SimpleBitSet( 64 );
+        ids.put( clientId );
+        ForsetiLockManager.Lock lock = waitingFor;
+        if ( lock != null )
+        {
+            lock.copyHoldersInto( ids );
+        }
+        return ids;
+    }
+
+    /**
+     * Wait for the lock we are trying to get to change. Short waits are left to the wait strategy of the resource
+     * type, longer ones park in the wait queues until a client releasing the lock signals us, or until the deadlock
+     * detector decides that this wait needs to be aborted.
+     */
     private void applyWaitStrategy( ResourceType resourceType, int tries )
     {
-        WaitStrategy<AcquireLockTimeoutException> waitStrategy = waitStrategies[resourceType.typeId()];
-        waitStrategy.apply( tries );
+        if ( waitStartNanos == 0 )
+        {
+            waitStartNanos = System.nanoTime();
+        }
+        if ( tries < SPIN_TRIES )
+        {
+            WaitStrategy<AcquireLockTimeoutException> waitStrategy = waitStrategies[resourceType.typeId()];
+            waitStrategy.apply( tries );
+        }
+        else if ( !parked )
+        {
+            // Get in the queue, and have another look at the lock before going to sleep. Anyone releasing it from
+            // now on will signal us.
+            waitingThread = Thread.currentThread();
+            waitQueues.enqueue( this );
+            parked = true;
+            deadlockDetector.clientParked();
+        }
+        else
+        {
+            LockSupport.parkNanos( this, MAX_PARK_NANOS );
+            if ( Thread.interrupted() )
+            {
+                throw new AcquireLockTimeoutException( "Interrupted while waiting.", Interrupted );
+            }
+            deadlockDetector.clientWokeUp();
+        }
 
+        if ( abortedWaitEpoch == waitEpoch )
+        {
+            throw new DeadlockDetectedException( abortMessage );
+        }
         assertNotStopped();
     }
 
+    private void recordWait( ResourceType resourceType, long resourceId )
+    {
+        if ( waitStartNanos != 0 )
+        {
+            waitStatistics.recordWait( resourceType, resourceId, System.nanoTime() - waitStartNanos );
+            waitStartNanos = 0;
+        }
+    }
+
     private void assertNotStopped()
     {
         if ( stateHolder.isStopped() )
@@ -863,9 +1008,9 @@ public class ForsetiClient implements Locks.Client
      */
     private class ReleaseSharedDontCheckExclusiveVisitor implements PrimitiveLongVisitor<RuntimeException>
     {
-        private ConcurrentMap<Long,ForsetiLockManager.Lock> lockMap;
+        private LockTable lockMap;
 
-        private PrimitiveLongVisitor<RuntimeException> initialize( ConcurrentMap<Long,ForsetiLockManager.Lock> lockMap )
+        private PrimitiveLongVisitor<RuntimeException> initialize( LockTable lockMap )
         {
             this.lockMap = lockMap;
             return this;
@@ -886,10 +1031,10 @@ public class ForsetiClient implements Locks.Client
     private class ReleaseExclusiveLocksAndClearSharedVisitor implements PrimitiveLongVisitor<RuntimeException>
     {
         private PrimitiveLongIntMap sharedLockCounts;
-        private ConcurrentMap<Long,ForsetiLockManager.Lock> lockMap;
+        private LockTable lockMap;
 
         private PrimitiveLongVisitor<RuntimeException> initialize( PrimitiveLongIntMap sharedLockCounts,
-                                                                   ConcurrentMap<Long,ForsetiLockManager.Lock> lockMap )
+                                                                   LockTable lockMap )
         {
             this.sharedLockCounts = sharedLockCounts;
             this.lockMap = lockMap;
@@ -19,7 +19,6 @@
  */
 package org.neo4j.kernel.impl.enterprise.lock.forseti;
 
-import java.util.Map;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
@@ -27,18 +26,22 @@ import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.neo4j.collection.pool.LinkedQueuePool;
-import org.neo4j.collection.pool.Pool;
+import org.neo4j.kernel.impl.locking.LockWaitStatistics;
 import org.neo4j.kernel.impl.locking.Locks;
+import org.neo4j.kernel.impl.util.JobScheduler;
 import org.neo4j.kernel.impl.util.collection.SimpleBitSet;
+import org.neo4j.logging.LogProvider;
+import org.neo4j.logging.NullLogProvider;
 import org.neo4j.storageengine.api.lock.AcquireLockTimeoutException;
 import org.neo4j.storageengine.api.lock.ResourceType;
 import org.neo4j.storageengine.api.lock.WaitStrategy;
+import org.neo4j.unsafe.impl.internal.dragons.FeatureToggles;
 
 /**
  * <h1>Forseti, the Nordic god of justice</h1>
  * <p/>
- * Forseti is a lock manager using the dreadlocks deadlock detection algorithm, which means
- * deadlock detection does not require complex RAG traversal and can be found in O(1).
+ * Forseti is a lock manager that keeps deadlock detection off the path of acquiring and releasing locks. Clients
+ * that have to wait only publish what they are waiting for, and a background detector looks for cycles among them.
  * <p/>
  * In the best case, Forseti acquires a lock in one CAS instruction, and scales linearly with the number of cores.
  * However, since it uses a shared-memory approach, it will most likely degrade in use cases where there is high
@@ -59,31 +62,30 @@ import org.neo4j.storageengine.api.lock.WaitStrategy;
  * <p/>
  * Once the client is in the holder list, it has the lock.
  * <p/>
- * <h2>Deadlock detection</h2>
- * <p/>
- * Each Client maintains a waiting-for list, which by default always contains the client itself. This list indicates
- * which other clients are blocking our progress. By default, then, if client A is waiting for no-one, its waiting-for
- * list will contain only itself:
- * <p/>
- * A.waitlist = [A]
- * <p/>
- * Once the client is blocked by someone else, it will copy this someones entire wait list into it's own. Assuming A
- * becomes blocked by B, and B has a wait list of:
- * <p/>
- * B.waitlist = [B]
- * <p/>
- * Then A will modify is's wait list as:
+ * <h2>Waiting</h2>
  * <p/>
- * A.waitlist = [A] U [B] => [A,B]
+ * A client that finds the lock it wants held by someone else first spins, according to the {@link WaitStrategy} of
+ * the resource type. If that is not enough, it registers in the {@link WaitQueues} under the resource it wants and
+ * parks. Clients releasing or downgrading a lock signal the waiters registered for that resource, which then go
+ * back to competing for the lock. Waiters also wake up on their own every now and then, so a signal that races
+ * with a client going to sleep only delays that client, it never strands it.
  * <p/>
- * It will do this in a loop, continiously figuring out the union of wait lists for all clients it waits for. The magic
- * then happens whenever one of those clients become blocked on client A. Assuming client B now has to wait for A,
- * it will also perform a union of A's wait list (which is [A,B] at this point):
+ * <h2>Deadlock detection</h2>
  * <p/>
- * B.waitlist = [B] U [A,B]
+ * Before waiting, a client publishes the lock it is waiting for, along with a wait epoch that is bumped for every
+ * new wait. As long as any client is parked, a {@link DeadlockDetector} periodically builds a wait-for graph from
+ * this, with an edge from every waiting client to each holder of the lock it waits for that is itself waiting, and
+ * searches it for cycles. For each cycle, the {@link DeadlockResolutionStrategy} picks a client to abort, and that
+ * client fails its lock acquisition with a {@link org.neo4j.kernel.DeadlockDetectedException}.
  * <p/>
- * As it performs this union, B will find itself in A's waiting list, and when it does, it has detected a deadlock.
+ * The detector reads the state of clients while they keep going, so a cycle is verified before anyone is aborted:
+ * each client in it must be seen in the same wait both before and after the edges of the cycle are checked against
+ * the lock maps. A client that is waiting cannot release any locks, so a cycle that survives that check is a real
+ * deadlock.
  * <p/>
+ * Detection normally runs as a job on the {@link JobScheduler}, which keeps the cost of waiting independent of how
+ * many other clients are waiting. Without a scheduler, or while that job cannot run, the parked clients take turns
+ * doing a round of detection when they wake up.
  * <p/>
  * <h2>Future work</h2>
  * <p/>
@@ -91,8 +93,8 @@ import org.neo4j.storageengine.api.lock.WaitStrategy;
  * be worth investigating fat locks, or in any case optimize the current way SharedLock adds and removes clients from
  * its holder list.
  * <p/>
- * The maps used by Forseti should be replaced by faster concurrent maps, perhaps a striped hopscotch map or something
- * similar.
+ * The lock maps used by Forseti are striped open addressing tables, see {@link LockTable}. Hopscotch hashing might
+ * lower the cost of removals further.
  */
 public class ForsetiLockManager implements Locks
 {
@@ -100,21 +102,19 @@ public class ForsetiLockManager implements Locks
     interface Lock
     {
         /**
-         * For each client currently holding this lock, copy their wait list into the given bitset.
-         * This is how information on who is waiting for whom is propagated.
+         * Add the id of each client currently holding this lock to the given bitset. This is how the
+         * {@link DeadlockDetector} finds out who a waiting client is waiting for.
          */
-        void copyHolderWaitListsInto( SimpleBitSet waitList );
+        void copyHoldersInto( SimpleBitSet holders );
 
         /**
-         * Check if anyone holding this lock is currently waiting for the specified client. This
-         * check is performed continuously while a client waits for a lock - if the check ever
-         * comes back positive, it means we've deadlocked, because we are waiting for someone
-         * (the holder of the lock) who in turn is waiting for us (so they won't release the lock).
+         * Check if the specified client currently holds this lock. The deadlock detector uses this to verify each
+         * edge of a cycle it has found, before it aborts anyone.
          *
-         * @param client the client id that is waiting to grab this lock
-         * @return the id of a client we've deadlocked with, or -1 if there is not currently a deadlock
+         * @param clientId the id of the client that may hold this lock
+         * @return true if the client holds this lock
          */
-        int detectDeadlock( int client );
+        boolean isHeldBy( int clientId );
 
         /**
          * For introspection and error messages, this gives a (somewhat) human-readable description of who is waiting
@@ -134,16 +134,12 @@ public class ForsetiLockManager implements Locks
     interface DeadlockResolutionStrategy
     {
         /**
-         * This gets called when a deadlock has been detected by a client - it realizes it's in a deadlock
-         * situation with at least one other client. In many cases, both (or more!) clients involved in the
-         * deadlock will discover this fact at the same time, and thus this method will get called from different
-         * clients asking about the same deadlock.
-         * <p/>
-         * In fact, this method is guaranteed to keep getting called, eventually from every client involved in
-         * a deadlock, assuming the method keeps returning false.
+         * This gets called by the {@link DeadlockDetector} when it has found a cycle of clients waiting for each
+         * other. The detector walks the cycle, asking for each client whether it should abort rather than the
+         * current candidate, and aborts the client it ends up with.
          * <p/>
-         * The goal of whoever implements this method should be that for each unique deadlock, independent of how
-         * many clients discover it, exactly one client should abort, and no more. Which client is chosen to abort
+         * The goal of whoever implements this method should be that for each unique deadlock exactly one client
+         * should abort, and no more. Which client is chosen to abort
          * is up to the strategy to decide, but should generally be based on something sensible relating to the
          * value or importance of letting one client continue to the detriment of another.
          * <p/>
@@ -151,32 +147,52 @@ public class ForsetiLockManager implements Locks
          * If it does not guarantee this, the deadlock will not be resolved, and the database will
          * actually deadlock, causing a fatal system outage.
          *
-         * @param clientThatsAsking this is the client that has discovered a deadlock
-         * @param clientWereDeadlockedWith this is the client we've realized we are deadlocking with, meaning
-         * this method will eventually be invoked from this clients perspective
-         * as well (eg. with inverted arguments), assuming we return false here.
-         * @return true to make {@code clientThatsAsking} abort, false to take no action, but wait to be called again
-         * from the perspective of the other client.
+         * @param clientThatsAsking a client in the deadlock that may be aborted instead of the current candidate
+         * @param clientWereDeadlockedWith the client currently chosen to be aborted
+         * @return true to make {@code clientThatsAsking} abort instead of {@code clientWereDeadlockedWith}, false to
+         * keep the current candidate.
          */
         boolean shouldAbort( ForsetiClient clientThatsAsking, ForsetiClient clientWereDeadlockedWith );
     }
 
+    /** Number of buckets of the queues of parked clients, shared by all resource types. */
+    private static final int WAIT_QUEUE_BUCKETS =
+            FeatureToggles.getInteger( ForsetiLockManager.class, "waitQueueBuckets", 1024 );
+
+    /** Number of stripes of the lock map of each resource type. */
+    private static final int LOCK_MAP_STRIPES = FeatureToggles.getInteger( ForsetiLockManager.class,
+            "lockMapStripes", Integer.highestOneBit( Runtime.getRuntime().availableProcessors() * 16 - 1 ) << 1 );
+
     /** Pointers to lock maps, one array per resource type. */
-    private final ConcurrentMap<Long,ForsetiLockManager.Lock>[] lockMaps;
+    private final LockTable[] lockMaps;
 
     /** Reverse lookup resource types by id, used for introspection */
     private final ResourceType[] resourceTypes;
 
+    /** Wait times of lock acquisitions that could not be granted right away, shared by all clients. */
+    private final LockWaitStatistics waitStatistics;
+
     /** Pool forseti clients. */
-    private final Pool<ForsetiClient> clientPool;
+    private final ForsetiClientFlyweightPool clientPool;
+
+    /** Looks for deadlocks among waiting clients, in a job of its own or on the waiting threads. */
+    private final DeadlockDetector deadlockDetector;
 
     private volatile boolean closed;
 
-    @SuppressWarnings( "unchecked" )
+    /**
+     * Creates a lock manager that leaves deadlock detection to the clients that are waiting for locks.
+     */
     public ForsetiLockManager( ResourceType... resourceTypes )
+    {
+        this( null, NullLogProvider.getInstance(), resourceTypes );
+    }
+
+    @SuppressWarnings( "unchecked" )
+    public ForsetiLockManager( JobScheduler scheduler, LogProvider logProvider, ResourceType... resourceTypes )
     {
         int maxResourceId = findMaxResourceId( resourceTypes );
-        this.lockMaps = new ConcurrentMap[maxResourceId];
+        this.lockMaps = new LockTable[maxResourceId];
         this.resourceTypes = new ResourceType[maxResourceId];
 
         /* Wait strategies per resource type */
@@ -184,16 +200,19 @@ public class ForsetiLockManager implements Locks
 
         for ( ResourceType type : resourceTypes )
         {
-            this.lockMaps[type.typeId()] = new ConcurrentHashMap<>( 16, 0.6f, 512 );
+            this.lockMaps[type.typeId()] = new LockTable( LOCK_MAP_STRIPES );
             waitStrategies[type.typeId()] = type.waitStrategy();
             this.resourceTypes[type.typeId()] = type;
         }
+        this.waitStatistics = new LockWaitStatistics( resourceTypes );
         // TODO Using a FlyweightPool here might still be more than what we actually need.
         // TODO We should investigate if a simple concurrent stack (aka. free-list) would
         // TODO be good enough. In fact, we could add the required fields for such a stack
         // TODO to the ForsetiClient objects themselves, making the stack garbage-free in
         // TODO the (presumably) common case of client re-use.
-        clientPool = new ForsetiClientFlyweightPool( lockMaps, waitStrategies );
+        clientPool = new ForsetiClientFlyweightPool( lockMaps, waitStrategies, waitStatistics,
+                new WaitQueues( WAIT_QUEUE_BUCKETS ), scheduler, logProvider );
+        deadlockDetector = clientPool.deadlockDetector;
     }
 
     /**
@@ -223,15 +242,21 @@ public class ForsetiLockManager implements Locks
             if ( lockMaps[i] != null )
             {
                 ResourceType type = resourceTypes[i];
-                for ( Map.Entry<Long,Lock> entry : lockMaps[i].entrySet() )
+                lockMaps[i].visitHeldLocks( ( resourceId, lock ) ->
                 {
-                    Lock lock = entry.getValue();
-                    out.visit( type, entry.getKey(), lock.describeWaitList(), 0, System.identityHashCode( lock ) );
-                }
+                    out.visit( type, resourceId, lock.describeWaitList(), 0, System.identityHashCode( lock ) );
+                    return false;
+                } );
             }
         }
     }
 
+    @Override
+    public LockWaitStatistics waitStatistics()
+    {
+        return waitStatistics;
+    }
+
     private int findMaxResourceId( ResourceType[] resourceTypes )
     {
         int max = 0;
@@ -246,6 +271,7 @@ public class ForsetiLockManager implements Locks
     public void close()
     {
         this.closed = true;
+        deadlockDetector.shutdown();
     }
 
     private static class ForsetiClientFlyweightPool extends LinkedQueuePool<ForsetiClient>
@@ -258,17 +284,27 @@ public class ForsetiLockManager implements Locks
         // very limited set of integers.
         private final Queue<Integer> unusedIds = new ConcurrentLinkedQueue<>();
         private final ConcurrentMap<Integer,ForsetiClient> clientsById = new ConcurrentHashMap<>();
-        private final ConcurrentMap<Long,ForsetiLockManager.Lock>[] lockMaps;
+        private final LockTable[] lockMaps;
         private final WaitStrategy<AcquireLockTimeoutException>[] waitStrategies;
-        private final DeadlockResolutionStrategy deadlockResolutionStrategy = DeadlockStrategies.DEFAULT;
+        private final LockWaitStatistics waitStatistics;
+        private final WaitQueues waitQueues;
+        private final DeadlockDetector deadlockDetector;
 
         public ForsetiClientFlyweightPool(
-                ConcurrentMap<Long,ForsetiLockManager.Lock>[] lockMaps,
-                WaitStrategy<AcquireLockTimeoutException>[] waitStrategies )
+                LockTable[] lockMaps,
+                WaitStrategy<AcquireLockTimeoutException>[] waitStrategies,
+                LockWaitStatistics waitStatistics,
+                WaitQueues waitQueues,
+                JobScheduler scheduler,
+                LogProvider logProvider )
         {
             super( 128, null );
             this.lockMaps = lockMaps;
             this.waitStrategies = waitStrategies;
+            this.waitStatistics = waitStatistics;
+            this.waitQueues = waitQueues;
+            this.deadlockDetector = new DeadlockDetector( clientsById.values(), DeadlockStrategies.DEFAULT, scheduler,
+                    logProvider.getLog( DeadlockDetector.class ) );
         }
 
         @Override
@@ -280,7 +316,7 @@ public class ForsetiLockManager implements Locks
                 id = clientIds.getAndIncrement();
             }
             ForsetiClient client = new ForsetiClient(
-                    id, lockMaps, waitStrategies, this, deadlockResolutionStrategy, clientsById::get );
+                    id, lockMaps, waitStrategies, waitStatistics, this, waitQueues, deadlockDetector );
             clientsById.put( id, client );
             return client;
         }
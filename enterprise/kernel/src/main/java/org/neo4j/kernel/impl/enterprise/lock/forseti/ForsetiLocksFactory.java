@@ -22,6 +22,8 @@ package org.neo4j.kernel.impl.enterprise.lock.forseti;
 import org.neo4j.helpers.Service;
 import org.neo4j.kernel.impl.locking.Locks;
 import org.neo4j.kernel.impl.locking.ResourceTypes;
+import org.neo4j.kernel.impl.util.JobScheduler;
+import org.neo4j.logging.LogProvider;
 import org.neo4j.storageengine.api.lock.ResourceType;
 
 @Service.Implementation( Locks.Factory.class )
@@ -37,4 +39,10 @@ public class ForsetiLocksFactory extends Locks.Factory
     {
         return new ForsetiLockManager( ResourceTypes.values() );
     }
+
+    @Override
+    public Locks newInstance( ResourceType[] resourceTypes, JobScheduler scheduler, LogProvider logProvider )
+    {
+        return new ForsetiLockManager( scheduler, logProvider, ResourceTypes.values() );
+    }
 }
@@ -0,0 +1,338 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.enterprise.lock.forseti;
+
+import java.util.concurrent.locks.StampedLock;
+
+import org.neo4j.collection.primitive.PrimitiveLongObjectVisitor;
+
+/**
+ * The global lock map of one resource type, from resource id to the {@link ForsetiLockManager.Lock} currently
+ * held on it.
+ * <p/>
+ * The table is split into a power-of-two number of stripes, each an open addressing hash table with linear
+ * probing, guarded by its own {@link StampedLock}. Lookups are optimistic reads, so finding a lock that is already
+ * in the table neither allocates nor writes to shared memory. Only inserts and removes take the write lock of
+ * their stripe.
+ * <p/>
+ * Shared locks that nobody holds any longer are left in the table rather than removed, so that the next client
+ * to share-lock the same resource can {@link SharedLock#tryRevive(ForsetiClient) revive} it in place. Such idle
+ * shared locks are treated as absent by {@link #putIfAbsent(long, ForsetiLockManager.Lock)}, and dropped whenever
+ * their stripe is rebuilt, which is what keeps the table from growing without bounds.
+ */
+final class LockTable
+{
+    private static final int INITIAL_STRIPE_CAPACITY = 16;
+
+    private final Stripe[] stripes;
+    private final int stripeMask;
+
+    /**
+     * @param stripeCount number of stripes, must be a power of two.
+     */
+    LockTable( int stripeCount )
+    {
+        if ( Integer.bitCount( stripeCount ) != 1 )
+        {
+            throw new IllegalArgumentException( "Stripe count must be a power of two, but was " + stripeCount );
+        }
+        this.stripes = new Stripe[stripeCount];
+        this.stripeMask = stripeCount - 1;
+        for ( int i = 0; i < stripeCount; i++ )
+        {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    ForsetiLockManager.Lock get( long resourceId )
+    {
+        long hash = hash( resourceId );
+        Stripe stripe = stripe( hash );
+        long stamp = stripe.tryOptimisticRead();
+        ForsetiLockManager.Lock lock = stripe.slots.find( resourceId, hash );
+        if ( !stripe.validate( stamp ) )
+        {
+            stamp = stripe.readLock();
+            try
+            {
+                lock = stripe.slots.find( resourceId, hash );
+            }
+            finally
+            {
+                stripe.unlockRead( stamp );
+            }
+        }
+        return lock;
+    }
+
+    /**
+     * Put the given lock in the table, unless there already is a lock for the given resource. A shared lock that
+     * no one holds counts as no lock, and is replaced.
+     *
+     * @return the lock already held on the resource, or {@code null} if the given lock was put in the table.
+     */
+    ForsetiLockManager.Lock putIfAbsent( long resourceId, ForsetiLockManager.Lock lock )
+    {
+        long hash = hash( resourceId );
+        Stripe stripe = stripe( hash );
+        long stamp = stripe.writeLock();
+        try
+        {
+            int index = stripe.slots.indexOf( resourceId, hash );
+            if ( index != -1 )
+            {
+                ForsetiLockManager.Lock existing = stripe.slots.locks[index];
+                if ( !(existing instanceof SharedLock) || !((SharedLock) existing).tryRetire() )
+                {
+                    return existing;
+                }
+                stripe.slots.locks[index] = lock;
+                return null;
+            }
+            stripe.insert( resourceId, hash, lock );
+            return null;
+        }
+        finally
+        {
+            stripe.unlockWrite( stamp );
+        }
+    }
+
+    void put( long resourceId, ForsetiLockManager.Lock lock )
+    {
+        long hash = hash( resourceId );
+        Stripe stripe = stripe( hash );
+        long stamp = stripe.writeLock();
+        try
+        {
+            int index = stripe.slots.indexOf( resourceId, hash );
+            if ( index != -1 )
+            {
+                stripe.slots.locks[index] = lock;
+            }
+            else
+            {
+                stripe.insert( resourceId, hash, lock );
+            }
+        }
+        finally
+        {
+            stripe.unlockWrite( stamp );
+        }
+    }
+
+    void remove( long resourceId )
+    {
+        long hash = hash( resourceId );
+        Stripe stripe = stripe( hash );
+        long stamp = stripe.writeLock();
+        try
+        {
+            stripe.remove( resourceId, hash );
+        }
+        finally
+        {
+            stripe.unlockWrite( stamp );
+        }
+    }
+
+    /**
+     * Visit all locks that are currently held, one stripe at a time.
+     */
+    void visitHeldLocks( PrimitiveLongObjectVisitor<ForsetiLockManager.Lock,RuntimeException> visitor )
+    {
+        for ( Stripe stripe : stripes )
+        {
+            long stamp = stripe.readLock();
+            try
+            {
+                Slots slots = stripe.slots;
+                for ( int i = 0; i < slots.locks.length; i++ )
+                {
+                    ForsetiLockManager.Lock lock = slots.locks[i];
+                    if ( lock != null && !(lock instanceof SharedLock && !((SharedLock) lock).isHeld()) &&
+                         visitor.visited( slots.keys[i], lock ) )
+                    {
+                        return;
+                    }
+                }
+            }
+            finally
+            {
+                stripe.unlockRead( stamp );
+            }
+        }
+    }
+
+    private Stripe stripe( long hash )
+    {
+        return stripes[(int) (hash >>> 32) & stripeMask];
+    }
+
+    private static long hash( long resourceId )
+    {
+        long hash = resourceId * 0x9E3779B97F4A7C15L;
+        return hash ^ (hash >>> 29);
+    }
+
+    /**
+     * Keys and locks of one stripe. Replaced as a whole when the stripe is rebuilt, such that optimistic readers
+     * always see a key array and a lock array of the same length.
+     */
+    private static final class Slots
+    {
+        final long[] keys;
+        final ForsetiLockManager.Lock[] locks;
+
+        Slots( int capacity )
+        {
+            keys = new long[capacity];
+            locks = new ForsetiLockManager.Lock[capacity];
+        }
+
+        int indexOf( long resourceId, long hash )
+        {
+            int mask = locks.length - 1;
+            for ( int i = (int) hash & mask, probes = 0; probes <= mask; i = (i + 1) & mask, probes++ )
+            {
+                if ( locks[i] == null )
+                {
+                    return -1;
+                }
+                if ( keys[i] == resourceId )
+                {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        ForsetiLockManager.Lock find( long resourceId, long hash )
+        {
+            // Only ever reads each slot once, and never probes more than the length of the arrays, such that
+            // this is safe to run concurrently with a writer, although the answer is then not to be trusted.
+            int mask = locks.length - 1;
+            for ( int i = (int) hash & mask, probes = 0; probes <= mask; i = (i + 1) & mask, probes++ )
+            {
+                ForsetiLockManager.Lock lock = locks[i];
+                if ( lock == null )
+                {
+                    return null;
+                }
+                if ( keys[i] == resourceId )
+                {
+                    return lock;
+                }
+            }
+            return null;
+        }
+    }
+
+    private static final class Stripe extends StampedLock
+    {
+        private volatile Slots slots = new Slots( INITIAL_STRIPE_CAPACITY );
+        private int size;
+
+        void insert( long resourceId, long hash, ForsetiLockManager.Lock lock )
+        {
+            if ( (size + 1) * 4 > slots.locks.length * 3 )
+            {
+                rebuild();
+            }
+            Slots current = slots;
+            int mask = current.locks.length - 1;
+            int i = (int) hash & mask;
+            while ( current.locks[i] != null )
+            {
+                i = (i + 1) & mask;
+            }
+            current.keys[i] = resourceId;
+            current.locks[i] = lock;
+            size++;
+        }
+
+        void remove( long resourceId, long hash )
+        {
+            Slots current = slots;
+            int i = current.indexOf( resourceId, hash );
+            if ( i == -1 )
+            {
+                return;
+            }
+            current.locks[i] = null;
+            size--;
+
+            // Shift following entries of the same probe sequence back, so that there are no holes in it
+            int mask = current.locks.length - 1;
+            for ( int j = (i + 1) & mask; current.locks[j] != null; j = (j + 1) & mask )
+            {
+                int home = (int) hash( current.keys[j] ) & mask;
+                boolean inPlace = i <= j ? (i < home && home <= j) : (i < home || home <= j);
+                if ( !inPlace )
+                {
+                    current.keys[i] = current.keys[j];
+                    current.locks[i] = current.locks[j];
+                    current.locks[j] = null;
+                    i = j;
+                }
+            }
+        }
+
+        /**
+         * Rehash into a new set of slots, dropping shared locks that no one holds, and growing if needed.
+         */
+        private void rebuild()
+        {
+            Slots current = slots;
+            int live = 0;
+            for ( ForsetiLockManager.Lock lock : current.locks )
+            {
+                if ( lock != null && !(lock instanceof SharedLock && ((SharedLock) lock).tryRetire()) )
+                {
+                    live++;
+                }
+            }
+            int capacity = INITIAL_STRIPE_CAPACITY;
+            while ( (live + 1) * 2 > capacity )
+            {
+                capacity <<= 1;
+            }
+
+            Slots rebuilt = new Slots( capacity );
+            int mask = capacity - 1;
+            for ( int j = 0; j < current.locks.length; j++ )
+            {
+                ForsetiLockManager.Lock lock = current.locks[j];
+                if ( lock != null && !(lock instanceof SharedLock && ((SharedLock) lock).isRetired()) )
+                {
+                    int i = (int) hash( current.keys[j] ) & mask;
+                    while ( rebuilt.locks[i] != null )
+                    {
+                        i = (i + 1) & mask;
+                    }
+                    rebuilt.keys[i] = current.keys[j];
+                    rebuilt.locks[i] = lock;
+                }
+            }
+            size = live;
+            slots = rebuilt;
+        }
+    }
+}
@@ -43,6 +43,12 @@ class SharedLock implements ForsetiLockManager.Lock
      */
     private static final int MAX_HOLDERS = 4680;
 
+    /**
+     * Reference count of a lock that no one held when it was taken out of the lock table. Such a lock can never
+     * be acquired or revived again.
+     */
+    private static final int RETIRED = MAX_HOLDERS + 1;
+
     // TODO Investigate inlining and padding the refCount.
     // TODO My gut feeling tells me there's a high chance of false-sharing
     // TODO on these unpadded AtomicIntegers.
@@ -109,25 +115,64 @@ class SharedLock implements ForsetiLockManager.Lock
         return releaseReference();
     }
 
+    /**
+     * Shared locks are left in the lock table when the last holder releases them. This acquires such an idle lock
+     * for the given client, without having to put a new lock in the table.
+     *
+     * @return {@code true} if the lock was idle and is now held by the given client.
+     */
+    public boolean tryRevive( ForsetiClient client )
+    {
+        if ( refCount.compareAndSet( 0, 1 ) )
+        {
+            return addClientHoldingLock( client );
+        }
+        return false;
+    }
+
+    /**
+     * Make this lock, if idle, impossible to acquire or revive, before it is taken out of the lock table.
+     *
+     * @return {@code true} if the lock was idle and is now retired.
+     */
+    boolean tryRetire()
+    {
+        return refCount.compareAndSet( 0, RETIRED );
+    }
+
+    boolean isRetired()
+    {
+        return refCount.get() == RETIRED;
+    }
+
+    /**
+     * @return {@code true} if at least one client holds this lock.
+     */
+    boolean isHeld()
+    {
+        int holders = numberOfHolders();
+        return holders > 0 && holders <= MAX_HOLDERS;
+    }
+
     @Override
-    public void copyHolderWaitListsInto( SimpleBitSet waitList )
+    public void copyHoldersInto( SimpleBitSet holders )
     {
         for ( int i = 0; i < clientsHoldingThisLock.length; i++ )
         {
-            AtomicReferenceArray<ForsetiClient> holders = clientsHoldingThisLock[i];
-            for ( int j = 0; holders != null && j < holders.length(); j++ )
+            AtomicReferenceArray<ForsetiClient> clients = clientsHoldingThisLock[i];
+            for ( int j = 0; clients != null && j < clients.length(); j++ )
             {
-                ForsetiClient client = holders.get( j );
+                ForsetiClient client = clients.get( j );
                 if ( client != null )
                 {
-                    client.copyWaitListTo( waitList );
+                    holders.put( client.id() );
                 }
             }
         }
     }
 
     @Override
-    public int detectDeadlock( int clientId )
+    public boolean isHeldBy( int clientId )
     {
         for ( int i = 0; i < clientsHoldingThisLock.length; i++ )
         {
@@ -135,13 +180,13 @@ class SharedLock implements ForsetiLockManager.Lock
             for ( int j = 0; holders != null && j < holders.length(); j++ )
             {
                 ForsetiClient client = holders.get( j );
-                if ( client != null && client.isWaitingFor( clientId ) )
+                if ( client != null && client.id() == clientId )
                 {
-                    return client.id();
+                    return true;
                 }
             }
         }
-        return -1;
+        return false;
     }
 
     public boolean tryAcquireUpdateLock( ForsetiClient client )
@@ -149,7 +194,8 @@ class SharedLock implements ForsetiLockManager.Lock
         while ( true )
         {
             int refs = refCount.get();
-            if ( refs > 0 /* UPDATE_LOCK flips the sign bit, so refs will be < 0 if it is an update lock. */ )
+            if ( refs > 0 /* UPDATE_LOCK flips the sign bit, so refs will be < 0 if it is an update lock. */ &&
+                 refs <= MAX_HOLDERS )
             {
                 if ( refCount.compareAndSet( refs, refs | UPDATE_LOCK_FLAG ) )
                 {
@@ -316,7 +362,9 @@ class SharedLock implements ForsetiLockManager.Lock
         {
             int refAndUpdateFlag = refCount.get();
             int newRefCount = (refAndUpdateFlag & ~UPDATE_LOCK_FLAG) - 1;
-            if ( refCount.compareAndSet( refAndUpdateFlag, newRefCount | (refAndUpdateFlag & UPDATE_LOCK_FLAG) ) )
+            // The update flag goes away with the last reference, so that the lock is left idle and can be revived
+            int newUpdateFlag = newRefCount == 0 ? 0 : refAndUpdateFlag & UPDATE_LOCK_FLAG;
+            if ( refCount.compareAndSet( refAndUpdateFlag, newRefCount | newUpdateFlag ) )
             {
                 return newRefCount == 0;
             }
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.enterprise.lock.forseti;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Where {@link ForsetiClient clients} that have given up spinning for a lock park, until a client releasing that
+ * lock signals them.
+ * <p/>
+ * Rather than keeping a queue in every lock, waiters are hashed on resource id into a fixed number of buckets. Locks
+ * therefore carry no extra state, and releasing a lock that nobody waits for costs a single volatile read. A client
+ * is enqueued before it makes its last attempt at the lock and only parks if that attempt fails, while releasing
+ * clients signal after releasing; one of the two is bound to see the other, so no signal gets lost.
+ */
+final class WaitQueues
+{
+    private final Bucket[] buckets;
+    private final int mask;
+
+    /**
+     * @param bucketCount number of buckets, must be a power of two.
+     */
+    WaitQueues( int bucketCount )
+    {
+        if ( Integer.bitCount( bucketCount ) != 1 )
+        {
+            throw new IllegalArgumentException( "Bucket count must be a power of two, but was " + bucketCount );
+        }
+        this.buckets = new Bucket[bucketCount];
+        this.mask = bucketCount - 1;
+        for ( int i = 0; i < bucketCount; i++ )
+        {
+            buckets[i] = new Bucket();
+        }
+    }
+
+    /**
+     * Enqueue a client that waits for the resource it has most recently been
+     * {@link ForsetiClient#waitingForTable() marked as waiting for}.
+     */
+    void enqueue( ForsetiClient client )
+    {
+        bucket( client.waitingForResourceId() ).add( client );
+    }
+
+    void dequeue( ForsetiClient client )
+    {
+        bucket( client.waitingForResourceId() ).remove( client );
+    }
+
+    /**
+     * Wake up all clients waiting for the given resource, for them to have another go at it.
+     */
+    void signal( LockTable lockMap, long resourceId )
+    {
+        Bucket bucket = bucket( resourceId );
+        if ( bucket.size != 0 )
+        {
+            bucket.signal( lockMap, resourceId );
+        }
+    }
+
+    private Bucket bucket( long resourceId )
+    {
+        return buckets[(int) ((resourceId * 0x9E3779B97F4A7C15L) >>> 32) & mask];
+    }
+
+    private static final class Bucket
+    {
+        private volatile int size;
+        private ForsetiClient[] clients = new ForsetiClient[4];
+
+        synchronized void add( ForsetiClient client )
+        {
+            if ( size == clients.length )
+            {
+                clients = Arrays.copyOf( clients, size * 2 );
+            }
+            clients[size] = client;
+            size++;
+        }
+
+        synchronized void remove( ForsetiClient client )
+        {
+            for ( int i = 0; i < size; i++ )
+            {
+                if ( clients[i] == client )
+                {
+                    clients[i] = clients[size - 1];
+                    clients[size - 1] = null;
+                    size--;
+                    return;
+                }
+            }
+        }
+
+        synchronized void signal( LockTable lockMap, long resourceId )
+        {
+            for ( int i = 0; i < size; i++ )
+            {
+                ForsetiClient client = clients[i];
+                if ( client.waitingForResourceId() == resourceId && client.waitingForTable() == lockMap )
+                {
+                    LockSupport.unpark( client.waitingThread() );
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,292 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.enterprise.lock.forseti;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.neo4j.kernel.impl.locking.ResourceTypes;
+import org.neo4j.kernel.impl.util.JobScheduler;
+import org.neo4j.logging.AssertableLogProvider;
+import org.neo4j.logging.NullLog;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.neo4j.logging.AssertableLogProvider.inLog;
+
+public class DeadlockDetectorTest
+{
+    private final LockTable table = new LockTable( 4 );
+    private final List<ForsetiClient> clients = new ArrayList<>();
+    private final DeadlockDetector detector = new DeadlockDetector( clients, DeadlockStrategies.ABORT_YOUNG );
+
+    @Test
+    public void shouldAbortOneOfTwoClientsWaitingForEachOther() throws Exception
+    {
+        // Given
+        ForsetiClient clientA = client( 0, 1 );
+        ForsetiClient clientB = client( 1, 1 );
+        ExclusiveLock lockA = hold( clientA, 10 );
+        ExclusiveLock lockB = hold( clientB, 11 );
+        waitFor( clientA, lockB, 11, 5 );
+        waitFor( clientB, lockA, 10, 7 );
+
+        // When
+        int aborted = detector.detectDeadlocks();
+
+        // Then the client with the lowest id is kept, since they hold the same number of locks
+        assertEquals( 1, aborted );
+        verify( clientA, never() ).abortWait( anyLong(), anyString() );
+        verify( clientB ).abortWait( eq( 7L ), anyString() );
+    }
+
+    @Test
+    public void shouldAbortClientHoldingFewestLocksInCycle() throws Exception
+    {
+        // Given
+        ForsetiClient clientA = client( 0, 3 );
+        ForsetiClient clientB = client( 1, 1 );
+        ForsetiClient clientC = client( 2, 2 );
+        ExclusiveLock lockA = hold( clientA, 10 );
+        ExclusiveLock lockB = hold( clientB, 11 );
+        ExclusiveLock lockC = hold( clientC, 12 );
+        waitFor( clientA, lockB, 11, 1 );
+        waitFor( clientB, lockC, 12, 1 );
+        waitFor( clientC, lockA, 10, 1 );
+
+        // When
+        int aborted = detector.detectDeadlocks();
+
+        // Then
+        assertEquals( 1, aborted );
+        verify( clientA, never() ).abortWait( anyLong(), anyString() );
+        verify( clientB ).abortWait( eq( 1L ), anyString() );
+        verify( clientC, never() ).abortWait( anyLong(), anyString() );
+    }
+
+    @Test
+    public void shouldNotAbortClientsWaitingInChain() throws Exception
+    {
+        // Given
+        ForsetiClient clientA = client( 0, 1 );
+        ForsetiClient clientB = client( 1, 1 );
+        ForsetiClient clientC = client( 2, 1 );
+        hold( clientA, 10 );
+        ExclusiveLock lockB = hold( clientB, 11 );
+        ExclusiveLock lockC = hold( clientC, 12 );
+        waitFor( clientA, lockB, 11, 1 );
+        waitFor( clientB, lockC, 12, 1 );
+
+        // When
+        int aborted = detector.detectDeadlocks();
+
+        // Then
+        assertEquals( 0, aborted );
+        verify( clientA, never() ).abortWait( anyLong(), anyString() );
+        verify( clientB, never() ).abortWait( anyLong(), anyString() );
+    }
+
+    @Test
+    public void shouldNotAbortWhenLockWaitedForHasBeenReleased() throws Exception
+    {
+        // Given clients that look like they are waiting for each other
+        ForsetiClient clientA = client( 0, 1 );
+        ForsetiClient clientB = client( 1, 1 );
+        ExclusiveLock lockA = hold( clientA, 10 );
+        ExclusiveLock lockB = hold( clientB, 11 );
+        waitFor( clientA, lockB, 11, 1 );
+        waitFor( clientB, lockA, 10, 1 );
+
+        // but where one of the locks is no longer in the lock table
+        table.remove( 11 );
+
+        // When
+        int aborted = detector.detectDeadlocks();
+
+        // Then
+        assertEquals( 0, aborted );
+        verify( clientA, never() ).abortWait( anyLong(), anyString() );
+        verify( clientB, never() ).abortWait( anyLong(), anyString() );
+    }
+
+    @Test
+    public void shouldNotAbortClientsThatHaveMovedOnToAnotherWait() throws Exception
+    {
+        // Given
+        ForsetiClient clientA = client( 0, 1 );
+        ForsetiClient clientB = client( 1, 1 );
+        ExclusiveLock lockA = hold( clientA, 10 );
+        ExclusiveLock lockB = hold( clientB, 11 );
+        waitFor( clientA, lockB, 11, 1 );
+        waitFor( clientB, lockA, 10, 1 );
+
+        // When client B is seen in a new wait once the cycle is verified
+        when( clientB.waitEpoch() ).thenReturn( 1L, 1L, 1L, 1L, 2L );
+        int aborted = detector.detectDeadlocks();
+
+        // Then
+        assertEquals( 0, aborted );
+        verify( clientA, never() ).abortWait( anyLong(), anyString() );
+        verify( clientB, never() ).abortWait( anyLong(), anyString() );
+    }
+
+    @Test
+    public void shouldScheduleDetectionJobOnceWhenClientsPark() throws Exception
+    {
+        // Given
+        JobScheduler scheduler = mock( JobScheduler.class );
+        DeadlockDetector detector = new DeadlockDetector( clients, DeadlockStrategies.ABORT_YOUNG, scheduler,
+                NullLog.getInstance() );
+
+        // When
+        detector.clientParked();
+        detector.clientParked();
+
+        // Then
+        verify( scheduler, times( 1 ) ).schedule( JobScheduler.Groups.deadlockDetection, detector );
+    }
+
+    @Test
+    public void shouldNotDetectDeadlocksOnWaitingThreadWhileDetectionJobRuns() throws Exception
+    {
+        // Given
+        DeadlockDetector detector = new DeadlockDetector( clients, DeadlockStrategies.ABORT_YOUNG,
+                mock( JobScheduler.class ), NullLog.getInstance() );
+        ForsetiClient clientA = client( 0, 1 );
+        ForsetiClient clientB = client( 1, 1 );
+        waitForEachOther( clientA, clientB );
+        detector.clientParked();
+
+        // When
+        detector.clientWokeUp();
+
+        // Then
+        verify( clientA, never() ).abortWait( anyLong(), anyString() );
+        verify( clientB, never() ).abortWait( anyLong(), anyString() );
+    }
+
+    @Test
+    public void shouldDetectDeadlocksOnWaitingThreadWhenDetectionJobCannotBeScheduled() throws Exception
+    {
+        // Given
+        JobScheduler scheduler = mock( JobScheduler.class );
+        when( scheduler.schedule( any( JobScheduler.Group.class ), any( Runnable.class ) ) )
+                .thenThrow( new RejectedExecutionException() );
+        AssertableLogProvider logProvider = new AssertableLogProvider();
+        DeadlockDetector detector = new DeadlockDetector( clients, DeadlockStrategies.ABORT_YOUNG, scheduler,
+                logProvider.getLog( DeadlockDetector.class ) );
+        ForsetiClient clientA = client( 0, 1 );
+        ForsetiClient clientB = client( 1, 1 );
+        waitForEachOther( clientA, clientB );
+
+        // When
+        detector.clientParked();
+        detector.clientWokeUp();
+
+        // Then
+        logProvider.assertAtLeastOnce( inLog( DeadlockDetector.class )
+                .warn( containsString( "Unable to schedule deadlock detection" ),
+                        instanceOf( RejectedExecutionException.class ) ) );
+        verify( clientA, never() ).abortWait( anyLong(), anyString() );
+        verify( clientB ).abortWait( anyLong(), anyString() );
+    }
+
+    @Test
+    public void shouldLogFailedDetectionJobAndLeaveDetectionToWaitingThreads() throws Exception
+    {
+        // Given a detection job that fails its first round
+        AtomicBoolean fail = new AtomicBoolean( true );
+        Iterable<ForsetiClient> failingClients = () ->
+        {
+            if ( fail.getAndSet( false ) )
+            {
+                throw new IllegalStateException( "Concurrently modified" );
+            }
+            return clients.iterator();
+        };
+        AssertableLogProvider logProvider = new AssertableLogProvider();
+        DeadlockDetector detector = new DeadlockDetector( failingClients, DeadlockStrategies.ABORT_YOUNG,
+                mock( JobScheduler.class ), logProvider.getLog( DeadlockDetector.class ) );
+        detector.clientParked();
+
+        // When
+        detector.run();
+
+        // Then
+        logProvider.assertAtLeastOnce( inLog( DeadlockDetector.class )
+                .error( containsString( "Deadlock detection failed" ), instanceOf( IllegalStateException.class ) ) );
+
+        // and When
+        ForsetiClient clientA = client( 0, 1 );
+        ForsetiClient clientB = client( 1, 1 );
+        waitForEachOther( clientA, clientB );
+        detector.clientWokeUp();
+
+        // Then
+        verify( clientB ).abortWait( anyLong(), anyString() );
+    }
+
+    private void waitForEachOther( ForsetiClient clientA, ForsetiClient clientB )
+    {
+        ExclusiveLock lockA = hold( clientA, 10 );
+        ExclusiveLock lockB = hold( clientB, 11 );
+        waitFor( clientA, lockB, 11, 1 );
+        waitFor( clientB, lockA, 10, 1 );
+    }
+
+    private ForsetiClient client( int id, int lockCount )
+    {
+        ForsetiClient client = mock( ForsetiClient.class );
+        when( client.id() ).thenReturn( id );
+        when( client.lockCount() ).thenReturn( lockCount );
+        clients.add( client );
+        return client;
+    }
+
+    private ExclusiveLock hold( ForsetiClient client, long resourceId )
+    {
+        ExclusiveLock lock = new ExclusiveLock( client );
+        table.putIfAbsent( resourceId, lock );
+        return lock;
+    }
+
+    private void waitFor( ForsetiClient client, ForsetiLockManager.Lock lock, long resourceId, long epoch )
+    {
+        when( client.waitingFor() ).thenReturn( lock );
+        when( client.waitEpoch() ).thenReturn( epoch );
+        when( client.waitingForType() ).thenReturn( ResourceTypes.NODE );
+        when( client.waitingForTable() ).thenReturn( table );
+        when( client.waitingForResourceId() ).thenReturn( resourceId );
+    }
+}
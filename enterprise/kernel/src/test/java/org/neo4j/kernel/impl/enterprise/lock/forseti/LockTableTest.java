@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.enterprise.lock.forseti;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.neo4j.kernel.impl.locking.ResourceTypes;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class LockTableTest
+{
+    private final ForsetiClient client =
+            (ForsetiClient) new ForsetiLockManager( ResourceTypes.values() ).newClient();
+    private final LockTable table = new LockTable( 4 );
+
+    @Test
+    public void shouldPutGetAndRemoveManyLocks() throws Exception
+    {
+        // given
+        Map<Long,ForsetiLockManager.Lock> expected = new HashMap<>();
+        for ( long resourceId = 0; resourceId < 10_000; resourceId++ )
+        {
+            ForsetiLockManager.Lock lock = new ExclusiveLock( client );
+            assertNull( table.putIfAbsent( resourceId * 31, lock ) );
+            expected.put( resourceId * 31, lock );
+        }
+
+        // when
+        for ( long resourceId = 0; resourceId < 10_000; resourceId += 2 )
+        {
+            table.remove( resourceId * 31 );
+            expected.remove( resourceId * 31 );
+        }
+
+        // then
+        for ( long resourceId = 0; resourceId < 10_000; resourceId++ )
+        {
+            assertSame( expected.get( resourceId * 31 ), table.get( resourceId * 31 ) );
+        }
+        Map<Long,ForsetiLockManager.Lock> visited = new HashMap<>();
+        table.visitHeldLocks( ( resourceId, lock ) -> visited.put( resourceId, lock ) != null );
+        assertEquals( expected, visited );
+    }
+
+    @Test
+    public void shouldNotPutOverExistingLock() throws Exception
+    {
+        // given
+        ForsetiLockManager.Lock lock = new ExclusiveLock( client );
+        table.putIfAbsent( 1, lock );
+
+        // when
+        ForsetiLockManager.Lock existing = table.putIfAbsent( 1, new SharedLock( client ) );
+
+        // then
+        assertSame( lock, existing );
+        assertSame( lock, table.get( 1 ) );
+    }
+
+    @Test
+    public void shouldReviveIdleSharedLock() throws Exception
+    {
+        // given
+        SharedLock lock = new SharedLock( client );
+        table.putIfAbsent( 1, lock );
+        assertTrue( lock.release( client ) );
+
+        // when
+        boolean revived = lock.tryRevive( client );
+
+        // then
+        assertTrue( revived );
+        assertTrue( lock.isHeld() );
+        assertSame( lock, table.putIfAbsent( 1, new ExclusiveLock( client ) ) );
+    }
+
+    @Test
+    public void shouldReplaceIdleSharedLock() throws Exception
+    {
+        // given
+        SharedLock lock = new SharedLock( client );
+        table.putIfAbsent( 1, lock );
+        assertTrue( lock.release( client ) );
+
+        // when
+        ExclusiveLock exclusiveLock = new ExclusiveLock( client );
+        ForsetiLockManager.Lock existing = table.putIfAbsent( 1, exclusiveLock );
+
+        // then
+        assertNull( existing );
+        assertSame( exclusiveLock, table.get( 1 ) );
+        assertTrue( lock.isRetired() );
+        assertFalse( lock.tryRevive( client ) );
+        assertFalse( lock.acquire( client ) );
+    }
+
+    @Test
+    public void shouldNotVisitOrKeepIdleSharedLocks() throws Exception
+    {
+        // given
+        for ( long resourceId = 0; resourceId < 1_000; resourceId++ )
+        {
+            SharedLock lock = new SharedLock( client );
+            table.putIfAbsent( resourceId, lock );
+            lock.release( client );
+        }
+
+        // when
+        int[] visited = new int[1];
+        table.visitHeldLocks( ( resourceId, lock ) -> visited[0]++ > 0 );
+
+        // then
+        assertEquals( 0, visited[0] );
+        int retired = 0;
+        for ( long resourceId = 0; resourceId < 1_000; resourceId++ )
+        {
+            ForsetiLockManager.Lock lock = table.get( resourceId );
+            if ( lock == null )
+            {
+                retired++;
+            }
+        }
+        assertTrue( "Idle shared locks should have been dropped when the table grew", retired > 0 );
+    }
+}
@@ -29,6 +29,7 @@ import org.neo4j.kernel.configuration.Config;
 import org.neo4j.kernel.ha.cluster.member.ClusterMembers;
 import org.neo4j.kernel.impl.api.LogRotationMonitor;
 import org.neo4j.kernel.impl.factory.OperationalMode;
+import org.neo4j.kernel.impl.locking.Locks;
 import org.neo4j.kernel.impl.logging.LogService;
 import org.neo4j.kernel.impl.spi.KernelContext;
 import org.neo4j.kernel.impl.store.stats.StoreEntityCounters;
@@ -47,6 +48,7 @@ import org.neo4j.metrics.source.db.BoltMetrics;
 import org.neo4j.metrics.source.db.CheckPointingMetrics;
 import org.neo4j.metrics.source.db.CypherMetrics;
 import org.neo4j.metrics.source.db.EntityCountMetrics;
+import org.neo4j.metrics.source.db.LockWaitMetrics;
 import org.neo4j.metrics.source.db.LogRotationMetrics;
 import org.neo4j.metrics.source.db.PageCacheMetrics;
 import org.neo4j.metrics.source.db.TransactionMetrics;
@@ -80,6 +82,8 @@ public class Neo4jMetricsBuilder
 
         StoreEntityCounters entityCountStats();
 
+        Locks lockManager();
+
         Supplier<ClusterMembers> clusterMembers();
 
         Supplier<CoreMetaData> raft();
@@ -135,6 +139,12 @@ public class Neo4jMetricsBuilder
             result = true;
         }
 
+        if ( config.get( MetricsSettings.neoLocksEnabled ) )
+        {
+            life.add( new LockWaitMetrics( registry, dependencies.lockManager() ) );
+            result = true;
+        }
+
         if ( config.get( MetricsSettings.neoNetworkEnabled ) )
         {
             life.add( new NetworkMetrics( registry, dependencies.monitors() ) );
@@ -22,6 +22,7 @@ package org.neo4j.metrics.source.db;
 import com.codahale.metrics.Gauge;
 import com.codahale.metrics.MetricRegistry;
 
+import org.neo4j.cypher.CompiledRuntimeMetricsMonitor;
 import org.neo4j.cypher.PlanCacheMetricsMonitor;
 import org.neo4j.kernel.impl.annotations.Documented;
 import org.neo4j.kernel.lifecycle.LifecycleAdapter;
@@ -37,9 +38,17 @@ public class CypherMetrics extends LifecycleAdapter
     @Documented( "The total number of times Cypher has decided to re-plan a query" )
     public static final String REPLAN_EVENTS = name( NAME_PREFIX, "replan_events" );
 
+    @Documented( "The total number of times Cypher has tried to plan a query on the compiled runtime" )
+    public static final String COMPILED_RUNTIME_ATTEMPTS = name( NAME_PREFIX, "compiled_runtime_attempts" );
+
+    @Documented( "The total number of times Cypher has fallen back from the compiled to the interpreted runtime, " +
+                 "because the query used something the compiled runtime does not support" )
+    public static final String COMPILED_RUNTIME_FALLBACKS = name( NAME_PREFIX, "compiled_runtime_fallbacks" );
+
     private final MetricRegistry registry;
     private final Monitors monitors;
     private final PlanCacheMetricsMonitor cacheMonitor = new PlanCacheMetricsMonitor();
+    private final CompiledRuntimeMetricsMonitor compiledRuntimeMonitor = new CompiledRuntimeMetricsMonitor();
 
     public CypherMetrics( MetricRegistry registry, Monitors monitors )
     {
@@ -52,13 +61,20 @@ public class CypherMetrics extends LifecycleAdapter
     {
         monitors.addMonitorListener( cacheMonitor );
         registry.register( REPLAN_EVENTS, (Gauge<Long>) cacheMonitor::numberOfReplans );
+        monitors.addMonitorListener( compiledRuntimeMonitor );
+        registry.register( COMPILED_RUNTIME_ATTEMPTS,
+                (Gauge<Long>) compiledRuntimeMonitor::numberOfCompilationAttempts );
+        registry.register( COMPILED_RUNTIME_FALLBACKS, (Gauge<Long>) compiledRuntimeMonitor::numberOfFallbacks );
     }
 
     @Override
     public void stop()
     {
         registry.remove( REPLAN_EVENTS );
+        registry.remove( COMPILED_RUNTIME_ATTEMPTS );
+        registry.remove( COMPILED_RUNTIME_FALLBACKS );
         monitors.removeMonitorListener( cacheMonitor );
+        monitors.removeMonitorListener( compiledRuntimeMonitor );
     }
 }
 
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.metrics.source.db;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+
+import org.neo4j.kernel.impl.locking.LockWaitStatistics.Histogram;
+import org.neo4j.kernel.impl.locking.Locks;
+import org.neo4j.kernel.impl.locking.ResourceTypes;
+import org.neo4j.kernel.lifecycle.LifecycleAdapter;
+import org.neo4j.storageengine.api.lock.ResourceType;
+
+import static com.codahale.metrics.MetricRegistry.name;
+
+/**
+ * Reports, per resource type, how often and for how long transactions had to wait for locks. Metric names are of the
+ * form {@code neo4j.locks.<resource type>.<metric>}, e.g. {@code neo4j.locks.node.wait_time}.
+ * <p>
+ * The statistics are looked up through the lock manager every time they are reported, since in HA the lock manager
+ * is replaced when the instance switches role.
+ */
+public class LockWaitMetrics extends LifecycleAdapter
+{
+    private static final String LOCKS_PREFIX = "neo4j.locks";
+
+    /** The total number of lock acquisitions that had to wait */
+    public static final String LOCK_WAITS = "waits";
+    /** The accumulated time spent waiting for locks, in milliseconds */
+    public static final String LOCK_WAIT_TIME = "wait_time";
+    /** Median lock wait time, rounded up to the nearest power of two microseconds */
+    public static final String LOCK_WAIT_TIME_P50 = "wait_time_p50";
+    /** 99th percentile lock wait time, rounded up to the nearest power of two microseconds */
+    public static final String LOCK_WAIT_TIME_P99 = "wait_time_p99";
+
+    private final MetricRegistry registry;
+    private final Locks locks;
+
+    public LockWaitMetrics( MetricRegistry registry, Locks locks )
+    {
+        this.registry = registry;
+        this.locks = locks;
+    }
+
+    @Override
+    public void start()
+    {
+        for ( ResourceType type : ResourceTypes.values() )
+        {
+            register( type, LOCK_WAITS, Histogram::waits );
+            register( type, LOCK_WAIT_TIME, h -> TimeUnit.NANOSECONDS.toMillis( h.totalWaitNanos() ) );
+            register( type, LOCK_WAIT_TIME_P50, h -> h.percentileMicros( 50 ) );
+            register( type, LOCK_WAIT_TIME_P99, h -> h.percentileMicros( 99 ) );
+        }
+    }
+
+    @Override
+    public void stop()
+    {
+        registry.removeMatching( ( name, metric ) -> name.startsWith( LOCKS_PREFIX ) );
+    }
+
+    private void register( ResourceType type, String metric, ToLongFunction<Histogram> value )
+    {
+        registry.register( name( LOCKS_PREFIX, type.toString().toLowerCase(), metric ),
+                (Gauge<Long>) () -> value.applyAsLong( locks.waitStatistics().histogram( type ) ) );
+    }
+}
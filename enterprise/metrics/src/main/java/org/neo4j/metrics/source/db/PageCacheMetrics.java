@@ -35,8 +35,16 @@ public class PageCacheMetrics extends LifecycleAdapter
 
     @Documented( "The total number of exceptions seen during the eviction process in the page cache" )
     public static final String PC_EVICTION_EXCEPTIONS = name( PAGE_CACHE_PREFIX, "eviction_exceptions" );
+    @Documented( "The total number of exceptions seen by the background flushing of the page cache" )
+    public static final String PC_FLUSH_EXCEPTIONS = name( PAGE_CACHE_PREFIX, "flush_exceptions" );
     @Documented( "The total number of flushes executed by the page cache" )
     public static final String PC_FLUSHES = name( PAGE_CACHE_PREFIX, "flushes" );
+    @Documented( "The total number of pages written by the flushes of the page cache" )
+    public static final String PC_PAGES_FLUSHED = name( PAGE_CACHE_PREFIX, "pages_flushed" );
+    @Documented( "The total number of bytes written by the page cache" )
+    public static final String PC_BYTES_WRITTEN = name( PAGE_CACHE_PREFIX, "bytes_written" );
+    @Documented( "The total number of pages loaded into memory by the page cache warmup" )
+    public static final String PC_PAGES_WARMED_UP = name( PAGE_CACHE_PREFIX, "pages_warmed_up" );
     @Documented( "The total number of page unpins executed by the page cache" )
     public static final String PC_UNPINS = name( PAGE_CACHE_PREFIX, "unpins" );
     @Documented( "The total number of page pins executed by the page cache" )
@@ -45,6 +53,10 @@ public class PageCacheMetrics extends LifecycleAdapter
     public static final String PC_EVICTIONS = name( PAGE_CACHE_PREFIX, "evictions" );
     @Documented( "The total number of page faults happened in the page cache" )
     public static final String PC_PAGE_FAULTS = name( PAGE_CACHE_PREFIX, "page_faults" );
+    @Documented( "The total number of page hits happened in the page cache" )
+    public static final String PC_HITS = name( PAGE_CACHE_PREFIX, "hits" );
+    @Documented( "The ratio of hits to the total number of lookups in the page cache" )
+    public static final String PC_HIT_RATIO = name( PAGE_CACHE_PREFIX, "hit_ratio" );
 
     private final MetricRegistry registry;
     private final PageCacheCounters pageCacheCounters;
@@ -63,7 +75,13 @@ public class PageCacheMetrics extends LifecycleAdapter
         registry.register( PC_PINS, (Gauge<Long>) pageCacheCounters::pins );
         registry.register( PC_UNPINS, (Gauge<Long>) pageCacheCounters::unpins );
         registry.register( PC_FLUSHES, (Gauge<Long>) pageCacheCounters::flushes );
+        registry.register( PC_PAGES_FLUSHED, (Gauge<Long>) pageCacheCounters::pagesFlushed );
+        registry.register( PC_BYTES_WRITTEN, (Gauge<Long>) pageCacheCounters::bytesWritten );
+        registry.register( PC_PAGES_WARMED_UP, (Gauge<Long>) pageCacheCounters::pagesWarmedUp );
         registry.register( PC_EVICTION_EXCEPTIONS, (Gauge<Long>) pageCacheCounters::evictionExceptions );
+        registry.register( PC_FLUSH_EXCEPTIONS, (Gauge<Long>) pageCacheCounters::flushExceptions );
+        registry.register( PC_HITS, (Gauge<Long>) pageCacheCounters::hits );
+        registry.register( PC_HIT_RATIO, (Gauge<Double>) pageCacheCounters::hitRatio );
     }
 
     @Override
@@ -74,6 +92,12 @@ public class PageCacheMetrics extends LifecycleAdapter
         registry.remove( PC_PINS );
         registry.remove( PC_UNPINS );
         registry.remove( PC_FLUSHES );
+        registry.remove( PC_PAGES_FLUSHED );
+        registry.remove( PC_BYTES_WRITTEN );
+        registry.remove( PC_PAGES_WARMED_UP );
         registry.remove( PC_EVICTION_EXCEPTIONS );
+        registry.remove( PC_FLUSH_EXCEPTIONS );
+        registry.remove( PC_HITS );
+        registry.remove( PC_HIT_RATIO );
     }
 }
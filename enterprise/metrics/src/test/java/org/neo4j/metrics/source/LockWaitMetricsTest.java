@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2002-2016 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.metrics.source;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.kernel.impl.locking.LockWaitStatistics;
+import org.neo4j.kernel.impl.locking.Locks;
+import org.neo4j.kernel.impl.locking.ResourceTypes;
+import org.neo4j.metrics.source.db.LockWaitMetrics;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class LockWaitMetricsTest
+{
+    private final MetricRegistry registry = new MetricRegistry();
+    private final LockWaitStatistics statistics = new LockWaitStatistics( ResourceTypes.values() );
+
+    @Test
+    public void shouldReportWaitTimePercentilesPerResourceType() throws Exception
+    {
+        // given
+        LockWaitMetrics metrics = new LockWaitMetrics( registry, locksWith( statistics ) );
+        metrics.start();
+
+        // when
+        for ( int i = 0; i < 98; i++ )
+        {
+            statistics.recordWait( ResourceTypes.NODE, i, TimeUnit.MICROSECONDS.toNanos( 3 ) );
+        }
+        statistics.recordWait( ResourceTypes.NODE, 1, TimeUnit.MILLISECONDS.toNanos( 1 ) );
+        statistics.recordWait( ResourceTypes.NODE, 2, TimeUnit.MILLISECONDS.toNanos( 1 ) );
+
+        // then
+        assertThat( gauge( "neo4j.locks.node.waits" ), equalTo( 100L ) );
+        assertThat( gauge( "neo4j.locks.node.wait_time" ), equalTo( 2L ) );
+        assertThat( gauge( "neo4j.locks.node.wait_time_p50" ), equalTo( 4L ) );
+        assertThat( gauge( "neo4j.locks.node.wait_time_p99" ), equalTo( 1024L ) );
+        assertThat( gauge( "neo4j.locks.relationship.waits" ), equalTo( 0L ) );
+        assertThat( gauge( "neo4j.locks.relationship.wait_time_p50" ), equalTo( 0L ) );
+        assertThat( gauge( "neo4j.locks.relationship.wait_time_p99" ), equalTo( 0L ) );
+    }
+
+    @Test
+    public void shouldReadStatisticsFromCurrentLockManager() throws Exception
+    {
+        // given
+        Locks locks = locksWith( LockWaitStatistics.NONE );
+        LockWaitMetrics metrics = new LockWaitMetrics( registry, locks );
+        metrics.start();
+        assertThat( gauge( "neo4j.locks.node.waits" ), equalTo( 0L ) );
+
+        // when the lock manager is replaced, as it is when an HA instance switches role
+        statistics.recordWait( ResourceTypes.NODE, 1, TimeUnit.MICROSECONDS.toNanos( 100 ) );
+        when( locks.waitStatistics() ).thenReturn( statistics );
+
+        // then
+        assertThat( gauge( "neo4j.locks.node.waits" ), equalTo( 1L ) );
+        assertThat( gauge( "neo4j.locks.node.wait_time_p99" ), equalTo( 128L ) );
+    }
+
+    @Test
+    public void shouldRemoveGaugesOnStop() throws Exception
+    {
+        // given
+        LockWaitMetrics metrics = new LockWaitMetrics( registry, locksWith( statistics ) );
+        metrics.start();
+        assertTrue( registry.getGauges().containsKey( "neo4j.locks.node.wait_time_p50" ) );
+
+        // when
+        metrics.stop();
+
+        // then
+        assertTrue( registry.getGauges().isEmpty() );
+    }
+
+    private static Locks locksWith( LockWaitStatistics statistics )
+    {
+        Locks locks = mock( Locks.class );
+        when( locks.waitStatistics() ).thenReturn( statistics );
+        return locks;
+    }
+
+    private long gauge( String name )
+    {
+        Gauge<?> gauge = registry.getGauges().get( name );
+        return (Long) gauge.getValue();
+    }
+}
@@ -33,11 +33,15 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
+import org.neo4j.function.Predicates;
 import org.neo4j.graphdb.factory.GraphDatabaseSettings;
 import org.neo4j.kernel.api.KernelTransaction;
 import org.neo4j.kernel.enterprise.builtinprocs.QueryId;
+import org.neo4j.kernel.impl.enterprise.lock.forseti.ForsetiClient;
 import org.neo4j.server.security.enterprise.auth.plugin.api.PredefinedRoles;
 import org.neo4j.test.Barrier;
 import org.neo4j.test.DoubleLatch;
@@ -61,6 +65,7 @@ import static org.neo4j.helpers.collection.MapUtil.map;
 import static org.neo4j.helpers.collection.MapUtil.stringMap;
 import static org.neo4j.server.security.enterprise.auth.plugin.api.PredefinedRoles.PUBLISHER;
 import static org.neo4j.test.matchers.CommonMatchers.matchesOneToOneInAnyOrder;
+import static org.neo4j.test.rule.concurrent.ThreadingRule.waitingWhileIn;
 
 public abstract class BuiltInProceduresInteractionTestBase<S> extends ProcedureInteractionTestBase<S>
 {
@@ -570,6 +575,54 @@ public abstract class BuiltInProceduresInteractionTestBase<S> extends ProcedureI
                 .toString();
     }
 
+    //---------- list contended locks -----------
+
+    @Test
+    public void shouldNotListContendedLocksIfNotAdmin()
+    {
+        assertFail( noneSubject, "CALL dbms.listContendedLocks()", PERMISSION_DENIED );
+        assertFail( readSubject, "CALL dbms.listContendedLocks()", PERMISSION_DENIED );
+        assertFail( writeSubject, "CALL dbms.listContendedLocks()", PERMISSION_DENIED );
+        assertFail( schemaSubject, "CALL dbms.listContendedLocks()", PERMISSION_DENIED );
+    }
+
+    @Test
+    public void shouldListLockThatQueryHadToWaitFor() throws Throwable
+    {
+        assertEmpty( adminSubject, "CREATE (:MyNode {prop: 2})" );
+        long nodeId = ((Number) single( collectSuccessResult( adminSubject,
+                "MATCH (n:MyNode) RETURN id(n) AS id" ) ).get( "id" )).longValue();
+
+        // start a query that holds the write lock of the node
+        ClassWithProcedures.doubleLatch = new DoubleLatch( 2 );
+        String query1 = "MATCH (n:MyNode) SET n.prop = 5 WITH * CALL test.neverEnding() RETURN 1";
+        ThreadedTransaction<S> tx1 = new ThreadedTransaction<>( neo, new DoubleLatch() );
+        tx1.executeEarly( threading, writeSubject, KernelTransaction.Type.explicit, query1 );
+        ClassWithProcedures.doubleLatch.startAndWaitForAllToStart();
+
+        // start a query that has to wait for that lock
+        ThreadedTransaction<S> tx2 = new ThreadedTransaction<>( neo, new DoubleLatch() );
+        tx2.executeEarly( threading, writeSubject, KernelTransaction.Type.explicit,
+                "MATCH (n:MyNode) SET n.prop = 10 RETURN 1" );
+        Predicate<Thread> waitingForLock = waitingWhileIn( ForsetiClient.class, "applyWaitStrategy" );
+        Predicates.await( () -> Thread.getAllStackTraces().keySet().stream().anyMatch( waitingForLock ),
+                1, TimeUnit.MINUTES );
+
+        // let the first query finish, so that the second one gets the lock
+        ClassWithProcedures.doubleLatch.finish();
+        tx1.closeAndAssertSuccess();
+        tx2.closeAndAssertSuccess();
+
+        // the wait is only reported once the lock has been granted
+        List<Map<String,Object>> contendedLocks = collectSuccessResult( adminSubject,
+                "CALL dbms.listContendedLocks()" );
+        Map<String,Object> nodeLock = single( contendedLocks.stream()
+                .filter( lock -> "NODE".equals( lock.get( "resourceType" ) ) &&
+                                 ((Number) lock.get( "resourceId" )).longValue() == nodeId )
+                .collect( toList() ) );
+        assertEquals( 1L, ((Number) nodeLock.get( "waits" )).longValue() );
+    }
+
     //---------- set tx meta data -----------
 
     @Test
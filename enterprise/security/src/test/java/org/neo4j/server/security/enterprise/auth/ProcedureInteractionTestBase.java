@@ -462,12 +462,11 @@ public abstract class ProcedureInteractionTestBase<S>
 
     private Map<String,Long> countTransactionsByUsername()
     {
-        return EnterpriseBuiltInDbmsProcedures.countTransactionByUsername(
+        return EnterpriseBuiltInDbmsProcedures.summarizeTransactionsByUsername(
                     EnterpriseBuiltInDbmsProcedures.getActiveTransactions(
                             neo.getLocalGraph().getDependencyResolver()
                     ).stream()
                             .filter( tx -> !tx.terminationReason().isPresent() )
-                            .map( tx -> tx.securityContext().subject().username() )
                 ).collect( Collectors.toMap( r -> r.username, r -> r.activeTransactions ) );
     }
 